@@ -0,0 +1,123 @@
+package com.gogidix.centralizeddashboard.benchmarks;
+
+import com.gogidix.centralizeddashboard.core.integration.enhanced.EnhancedCourierAnalytics;
+import com.gogidix.centralizeddashboard.core.integration.enhanced.EnhancedDomainAnalyticsService;
+import com.gogidix.centralizeddashboard.core.integration.enhanced.EnhancedSocialCommerceAnalytics;
+import com.gogidix.centralizeddashboard.core.integration.enhanced.EnhancedWarehousingAnalytics;
+import com.gogidix.centralizeddashboard.core.model.CrossDomainInsight;
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric.SourceDomain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the trend calculation of {@link EnhancedDomainAnalyticsService}, which groups the metric
+ * series of every product, fits a slope to each and correlates the trends across the three domains.
+ * The domain analytics return fixed metrics, so no remote calls are measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CrossDomainTrendBenchmark {
+
+    private static final int REGIONS = 8;
+
+    @Param({"100", "1000"})
+    private int products;
+
+    @Param({"30"})
+    private int pointsPerSeries;
+
+    private EnhancedDomainAnalyticsService analyticsService;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusDays(pointsPerSeries);
+
+        List<DashboardMetric> socialCommerce = new ArrayList<>();
+        List<DashboardMetric> warehousing = new ArrayList<>();
+        List<DashboardMetric> courier = new ArrayList<>();
+        for (int product = 0; product < products; product++) {
+            String productId = "P" + product;
+            double orderGrowth = random.nextDouble() - 0.3;
+            double efficiencyDrift = random.nextDouble() - 0.7;
+            for (int point = 0; point < pointsPerSeries; point++) {
+                LocalDateTime timestamp = start.plusDays(point);
+                socialCommerce.add(metric("order_volume_" + productId, 100 + orderGrowth * point,
+                        SourceDomain.SOCIAL_COMMERCE, timestamp));
+                warehousing.add(metric("fulfillment_efficiency_" + productId, 80 + efficiencyDrift * point,
+                        SourceDomain.WAREHOUSING, timestamp));
+                courier.add(metric("delivery_time_" + productId, 40 + random.nextGaussian() * 5,
+                        SourceDomain.COURIER_SERVICES, timestamp));
+            }
+            socialCommerce.add(metric("product_trend_score_" + productId, random.nextDouble() * 100,
+                    SourceDomain.SOCIAL_COMMERCE, start));
+            warehousing.add(metric("inventory_level_" + productId, random.nextDouble() * 500,
+                    SourceDomain.WAREHOUSING, start));
+        }
+        for (int region = 0; region < REGIONS; region++) {
+            String regionId = "R" + region;
+            warehousing.add(metric("fulfillment_time_" + regionId, 10 + random.nextDouble() * 30,
+                    SourceDomain.WAREHOUSING, start));
+            courier.add(metric("delivery_time_" + regionId, 20 + random.nextDouble() * 40,
+                    SourceDomain.COURIER_SERVICES, start));
+            courier.add(metric("customer_satisfaction_" + regionId, 60 + random.nextDouble() * 40,
+                    SourceDomain.COURIER_SERVICES, start));
+            courier.add(metric("delivery_performance_" + regionId, 70 + random.nextDouble() * 30,
+                    SourceDomain.COURIER_SERVICES, start));
+        }
+
+        analyticsService = new EnhancedDomainAnalyticsService(null, null, null,
+                new EnhancedSocialCommerceAnalytics(null) {
+                    @Override
+                    public List<DashboardMetric> getEnhancedSocialCommerceMetrics() {
+                        return socialCommerce;
+                    }
+                },
+                new EnhancedWarehousingAnalytics(null) {
+                    @Override
+                    public List<DashboardMetric> getEnhancedWarehousingMetrics() {
+                        return warehousing;
+                    }
+                },
+                new EnhancedCourierAnalytics(null) {
+                    @Override
+                    public List<DashboardMetric> getEnhancedCourierMetrics() {
+                        return courier;
+                    }
+                });
+    }
+
+    @Benchmark
+    public List<CrossDomainInsight> generateCrossDomainInsights() {
+        return analyticsService.generateCrossDomainInsights();
+    }
+
+    private static DashboardMetric metric(String name, double value, SourceDomain domain, LocalDateTime timestamp) {
+        return DashboardMetric.builder()
+                .metricName(name)
+                .metricValue(value)
+                .sourceDomain(domain)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.gogidix.centralizeddashboard.benchmarks;
+
+import com.gogidix.centralizeddashboard.core.collection.DomainMetric;
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.service.impl.DataNormalizationServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks normalizing a batch of collected metrics, for both the dashboard metrics of the service layer
+ * and the domain metrics of the transformation layer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DataNormalizationBenchmark {
+
+    private static final String[][] CATEGORIES = {
+            {"Sales", "CURRENCY"},
+            {"Time", "MINUTES"},
+            {"Time", "HOURS"},
+            {"Efficiency", "PERCENTAGE"},
+            {"Count", "COUNT"}
+    };
+
+    @Param({"100", "10000"})
+    private int batchSize;
+
+    private final DataNormalizationServiceImpl dashboardNormalizer = new DataNormalizationServiceImpl();
+    private final com.gogidix.centralizeddashboard.core.transformation.impl.DataNormalizationServiceImpl domainNormalizer =
+            new com.gogidix.centralizeddashboard.core.transformation.impl.DataNormalizationServiceImpl();
+
+    private List<DashboardMetric> dashboardMetrics;
+    private List<DomainMetric> domainMetrics;
+
+    @Setup(Level.Trial)
+    public void createDashboardMetrics() {
+        dashboardMetrics = new ArrayList<>(batchSize);
+        DashboardMetric.SourceDomain[] domains = DashboardMetric.SourceDomain.values();
+        for (int i = 0; i < batchSize; i++) {
+            dashboardMetrics.add(DashboardMetric.builder()
+                    .metricName("metric_" + (i % 50))
+                    .metricValue(i * 1.5)
+                    .metricUnit("COUNT")
+                    .sourceDomain(domains[i % domains.length])
+                    .region("region-" + (i % 5))
+                    .timestamp(LocalDateTime.now().minusMinutes(i))
+                    .build());
+        }
+    }
+
+    /**
+     * The transformation layer converts units in place, so every invocation gets metrics in their source units.
+     */
+    @Setup(Level.Invocation)
+    public void createDomainMetrics() {
+        domainMetrics = new ArrayList<>(batchSize);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < batchSize; i++) {
+            String[] category = CATEGORIES[i % CATEGORIES.length];
+            domainMetrics.add(DomainMetric.builder()
+                    .metricId("metric-" + i)
+                    .domain("courier")
+                    .name("metric_" + (i % 50))
+                    .category(category[0])
+                    .unit(category[1])
+                    .value((double) i)
+                    .dataType(DomainMetric.MetricDataType.DOUBLE)
+                    .sourceTimestamp(now)
+                    .collectionTimestamp(now)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<DashboardMetric> normalizeDashboardMetrics() {
+        return dashboardNormalizer.normalizeMetrics(dashboardMetrics);
+    }
+
+    @Benchmark
+    public List<DomainMetric> normalizeDomainMetrics() {
+        return domainNormalizer.normalizeMetrics(domainMetrics);
+    }
+}
@@ -0,0 +1,156 @@
+package com.gogidix.centralizeddashboard.benchmarks.dashboard;
+
+import com.gogidix.centralizeddashboard.core.dto.CrossDomainSummaryDto;
+import com.gogidix.centralizeddashboard.core.dto.DashboardMetricDto;
+import com.gogidix.centralizeddashboard.core.model.DashboardKPI;
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric.SourceDomain;
+import com.gogidix.centralizeddashboard.core.repository.DashboardKPIRepository;
+import com.gogidix.centralizeddashboard.core.repository.DashboardMetricRepository;
+import com.gogidix.centralizeddashboard.core.service.CrossDomainDashboardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Macro benchmarks driving {@link CrossDomainDashboardService} through its repositories on an embedded H2
+ * database, seeded with metrics for every domain and a set of KPIs.
+ * <p>
+ * No metric aggregates are seeded, so refreshing the summary recalculates the KPIs without storing new ones
+ * and the database stays the same size across invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CrossDomainDashboardBenchmark {
+
+    private static final int KPIS = 200;
+
+    @Param({"1000", "10000"})
+    private int metricsPerDomain;
+
+    private ConfigurableApplicationContext context;
+    private CrossDomainDashboardService dashboardService;
+
+    @Setup
+    public void startContext() {
+        context = new SpringApplicationBuilder(DashboardBenchmarkConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .run(DashboardBenchmarkConfiguration.ARGUMENTS);
+        seed(context.getBean(DashboardMetricRepository.class), context.getBean(DashboardKPIRepository.class));
+        dashboardService = context.getBean(CrossDomainDashboardService.class);
+        dashboardService.getDashboardSummary();
+    }
+
+    @TearDown
+    public void stopContext() {
+        context.close();
+    }
+
+    /**
+     * Recalculate the KPIs and rebuild the summary from the database.
+     */
+    @Benchmark
+    public CrossDomainSummaryDto refreshDashboardSummary() {
+        return dashboardService.refreshDashboardSummary();
+    }
+
+    /**
+     * Read the summary from the current snapshot.
+     */
+    @Benchmark
+    public CrossDomainSummaryDto getDashboardSummary() {
+        return dashboardService.getDashboardSummary();
+    }
+
+    @Benchmark
+    public Map<String, List<Map<String, Object>>> getCrossDomainKPIs() {
+        return dashboardService.getCrossDomainKPIs();
+    }
+
+    @Benchmark
+    public Map<String, List<Map<String, Object>>> getCrossDomainInsights() {
+        return dashboardService.getCrossDomainInsights();
+    }
+
+    @Benchmark
+    public Map<String, Object> getMetricCorrelations() {
+        return dashboardService.getMetricCorrelations();
+    }
+
+    @Benchmark
+    public List<DashboardMetricDto> getDomainMetrics() {
+        return dashboardService.getDomainMetrics("warehousing");
+    }
+
+    private void seed(DashboardMetricRepository metricRepository, DashboardKPIRepository kpiRepository) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<DashboardMetric> metrics = new ArrayList<>(metricsPerDomain);
+        for (SourceDomain domain : SourceDomain.values()) {
+            for (int i = 0; i < metricsPerDomain; i++) {
+                metrics.add(DashboardMetric.builder()
+                        .metricName(domain.name().toLowerCase() + "_metric_" + (i % 40))
+                        .metricValue(random.nextDouble() * 1000)
+                        .metricUnit("COUNT")
+                        .sourceDomain(domain)
+                        .sourceService(domain.name().toLowerCase() + "-service")
+                        .region("region-" + (i % 8))
+                        .timestamp(now.minusMinutes(i))
+                        .dataPointType(DashboardMetric.DataPointType.GAUGE)
+                        .build());
+                if (metrics.size() == 1000) {
+                    metricRepository.saveAll(metrics);
+                    metrics.clear();
+                }
+            }
+        }
+        metricRepository.saveAll(metrics);
+
+        DashboardKPI.KPIStatus[] statuses = DashboardKPI.KPIStatus.values();
+        DashboardKPI.KPICategory[] categories = DashboardKPI.KPICategory.values();
+        SourceDomain[] domains = SourceDomain.values();
+        List<DashboardKPI> kpis = new ArrayList<>(KPIS);
+        for (int i = 0; i < KPIS; i++) {
+            SourceDomain domain = domains[i % domains.length];
+            kpis.add(DashboardKPI.builder()
+                    .kpiName("kpi_" + i)
+                    .kpiValue(random.nextDouble() * 100)
+                    .kpiUnit("PERCENT")
+                    .minThreshold(20.0)
+                    .maxThreshold(90.0)
+                    .kpiStatus(statuses[i % statuses.length])
+                    .kpiCategory(categories[i % categories.length])
+                    .calculationPeriod(DashboardKPI.CalculationPeriod.DAILY)
+                    .timestamp(now.minusHours(i))
+                    .region("region-" + (i % 8))
+                    .domain(domain.name())
+                    .sourceDomain(domain)
+                    .build());
+        }
+        kpiRepository.saveAll(kpis);
+    }
+}
@@ -0,0 +1,87 @@
+package com.gogidix.centralizeddashboard.benchmarks.dashboard;
+
+import com.gogidix.centralizeddashboard.core.integration.CrossDomainIntegrationService;
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.repository.DashboardKPIRepository;
+import com.gogidix.centralizeddashboard.core.repository.DashboardMetricRepository;
+import com.gogidix.centralizeddashboard.core.service.KPIService;
+import com.gogidix.centralizeddashboard.core.service.impl.CrossDomainDashboardServiceImpl;
+import com.gogidix.centralizeddashboard.core.service.impl.KPIServiceImpl;
+import com.gogidix.centralizeddashboard.core.service.impl.MetricAggregateServiceImpl;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Application context for the dashboard macro benchmarks: the dashboard service with its real repositories
+ * and KPI services on an embedded database. Only the persistence auto-configuration is imported, and the
+ * domain integration reports every domain as up without calling it.
+ */
+@SpringBootConfiguration
+@ImportAutoConfiguration({
+        DataSourceAutoConfiguration.class,
+        DataSourceTransactionManagerAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        TransactionAutoConfiguration.class
+})
+@EntityScan(basePackageClasses = DashboardMetric.class)
+@EnableJpaRepositories(basePackageClasses = DashboardMetricRepository.class)
+@Import({KPIServiceImpl.class, MetricAggregateServiceImpl.class})
+public class DashboardBenchmarkConfiguration {
+
+    /**
+     * Snapshots are only rebuilt when a benchmark asks for it.
+     */
+    private static final Duration SNAPSHOT_MAX_AGE = Duration.ofHours(1);
+
+    /**
+     * Settings for the embedded database and logging, passed as arguments so that they override the
+     * application.properties of centralized-core.
+     */
+    static final String[] ARGUMENTS = {
+            "--spring.datasource.url=jdbc:h2:mem:dashboard-benchmark;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.main.banner-mode=off",
+            "--logging.level.root=WARN"
+    };
+
+    @Bean
+    public CrossDomainIntegrationService crossDomainIntegrationService() {
+        return new CrossDomainIntegrationService(null, null, null, null) {
+            @Override
+            public List<DashboardMetric> fetchAllDomainMetrics() {
+                return List.of();
+            }
+
+            @Override
+            public Map<String, String> getDomainStatus() {
+                return Map.of("courierServices", "UP", "socialCommerce", "UP", "warehousing", "UP");
+            }
+        };
+    }
+
+    @Bean
+    public CrossDomainDashboardServiceImpl crossDomainDashboardService(
+            DashboardMetricRepository metricRepository,
+            DashboardKPIRepository kpiRepository,
+            KPIService kpiService,
+            CrossDomainIntegrationService integrationService) {
+        return new CrossDomainDashboardServiceImpl(metricRepository, kpiRepository, kpiService, integrationService,
+                SNAPSHOT_MAX_AGE.toMillis(), SNAPSHOT_MAX_AGE.toSeconds());
+    }
+}
@@ -25,7 +25,7 @@ start_service() {
     sleep 5
     
     # Start the application
-    nohup java -jar target/${centralized-core}-*.jar > logs/app.log 2>&1 &
+    nohup java -jar target/*-exec.jar > logs/app.log 2>&1 &
     echo $! > .pid
     
     echo "$centralized-core started with PID $(cat .pid)"
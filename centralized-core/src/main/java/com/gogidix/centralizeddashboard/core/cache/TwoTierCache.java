@@ -0,0 +1,209 @@
+package com.gogidix.centralizeddashboard.core.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Cache that reads from an in-process Caffeine tier before falling back to a shared remote tier.
+ * Writes and evictions go to both tiers, and are then announced to the other instances so that
+ * they drop their local copy. Local entries also expire after a short time of their own, which
+ * bounds staleness when an announcement is lost or races with a concurrent read.
+ * <p>
+ * Hits and misses are counted per tier as {@code cache.tier.gets}, tagged with the cache name,
+ * the tier ({@code local} or {@code remote}) and the result. A remote entry that cannot be read,
+ * such as one written in an older format, counts as a miss and is replaced by the next write.
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private static final ConversionService KEY_CONVERSION = DefaultConversionService.getSharedInstance();
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+    private final Cache remoteCache;
+    private final Consumer<String> invalidationPublisher;
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+
+    /**
+     * @param name the cache name
+     * @param localCache the local tier, keyed by the string form of the cache key
+     * @param remoteCache the remote tier
+     * @param invalidationPublisher announces a changed key to the other instances; a null key means
+     *        the whole cache was cleared
+     * @param meterRegistry registry for the per-tier hit and miss counters
+     * @param allowNullValues whether null values may be cached
+     */
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> localCache,
+            Cache remoteCache, Consumer<String> invalidationPublisher, MeterRegistry meterRegistry,
+            boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localHits = counter(meterRegistry, name, "local", "hit");
+        this.localMisses = counter(meterRegistry, name, "local", "miss");
+        this.remoteHits = counter(meterRegistry, name, "remote", "hit");
+        this.remoteMisses = counter(meterRegistry, name, "remote", "miss");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        localMisses.increment();
+
+        value = lookupRemote(key);
+        if (value != null) {
+            localCache.put(localKey, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loaded = new boolean[1];
+        // Concurrent misses of the same key on this instance share one remote read and one load
+        Object value = localCache.get(localKey(key), localKey -> {
+            loaded[0] = true;
+            Object remoteValue = lookupRemote(key);
+            if (remoteValue != null) {
+                return remoteValue;
+            }
+            Object newValue;
+            try {
+                newValue = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            remoteCache.put(key, newValue);
+            invalidationPublisher.accept(localKey);
+            return toStoreValue(newValue);
+        });
+        if (loaded[0]) {
+            localMisses.increment();
+        } else {
+            localHits.increment();
+        }
+        return (T) fromStoreValue(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        remoteCache.put(key, value);
+        String localKey = localKey(key);
+        localCache.put(localKey, storeValue);
+        invalidationPublisher.accept(localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        ValueWrapper existing = remoteCache.putIfAbsent(key, value);
+        String localKey = localKey(key);
+        if (existing == null) {
+            localCache.put(localKey, storeValue);
+            invalidationPublisher.accept(localKey);
+        } else {
+            localCache.put(localKey, toStoreValue(existing.get()));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteCache.evict(key);
+        String localKey = localKey(key);
+        localCache.invalidate(localKey);
+        invalidationPublisher.accept(localKey);
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        localCache.invalidateAll();
+        invalidationPublisher.accept(null);
+    }
+
+    /**
+     * Drop a key from the local tier only, after another instance changed it
+     */
+    void evictLocal(String localKey) {
+        localCache.invalidate(localKey);
+    }
+
+    /**
+     * Drop every entry from the local tier only, after another instance cleared the cache
+     */
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+
+    /**
+     * Read a key from the remote tier, returning its store value or null on a miss
+     */
+    private Object lookupRemote(Object key) {
+        ValueWrapper wrapper;
+        try {
+            wrapper = remoteCache.get(key);
+        } catch (SerializationException e) {
+            log.warn("Ignoring unreadable entry {} of cache {}: {}", key, name, e.getMessage());
+            wrapper = null;
+        }
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        return toStoreValue(wrapper.get());
+    }
+
+    /**
+     * Local entries are keyed by the string form of the key, the same form Redis keys are built from,
+     * so that invalidations received from other instances match the local entries
+     */
+    static String localKey(Object key) {
+        if (key instanceof String stringKey) {
+            return stringKey;
+        }
+        String converted = KEY_CONVERSION.convert(key, String.class);
+        return converted != null ? converted : String.valueOf(key);
+    }
+
+    private static Counter counter(MeterRegistry registry, String cacheName, String tier, String result) {
+        return Counter.builder("cache.tier.gets")
+                .description("Cache lookups per tier")
+                .tag("cache", cacheName)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,154 @@
+package com.gogidix.centralizeddashboard.core.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache manager layering a per-cache sized Caffeine tier in front of the caches of a remote
+ * {@link CacheManager}, normally a Redis cache manager.
+ * <p>
+ * Every put, eviction and clear is published on a Redis channel. Each instance subscribes to the
+ * channel with this manager as the listener, and drops the announced keys from its local tier,
+ * ignoring its own announcements.
+ */
+@Slf4j
+public class TwoTierCacheManager extends AbstractCacheManager implements MessageListener {
+
+    /**
+     * Size and time to live of the local tier of one cache
+     */
+    public record LocalTierSpec(long maximumSize, Duration timeToLive) {
+    }
+
+    private static final byte CLEAR = 0;
+    private static final byte EVICT = 1;
+
+    private final CacheManager remoteCacheManager;
+    private final Map<String, LocalTierSpec> localTierSpecs;
+    private final LocalTierSpec defaultLocalTierSpec;
+    private final RedisConnectionFactory connectionFactory;
+    private final byte[] channel;
+    private final MeterRegistry meterRegistry;
+    private final boolean allowNullValues;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * @param remoteCacheManager provides the remote tier of every cache
+     * @param localTierSpecs local tier settings of the known caches, which are created up front
+     * @param defaultLocalTierSpec local tier settings of caches created on first use
+     * @param connectionFactory connection used to publish invalidations
+     * @param channel the channel invalidations are published on
+     * @param meterRegistry registry for the per-tier hit and miss counters
+     * @param allowNullValues whether null values may be cached
+     */
+    public TwoTierCacheManager(CacheManager remoteCacheManager, Map<String, LocalTierSpec> localTierSpecs,
+            LocalTierSpec defaultLocalTierSpec, RedisConnectionFactory connectionFactory, String channel,
+            MeterRegistry meterRegistry, boolean allowNullValues) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.localTierSpecs = localTierSpecs;
+        this.defaultLocalTierSpec = defaultLocalTierSpec;
+        this.connectionFactory = connectionFactory;
+        this.channel = channel.getBytes(StandardCharsets.UTF_8);
+        this.meterRegistry = meterRegistry;
+        this.allowNullValues = allowNullValues;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<>();
+        localTierSpecs.forEach((name, spec) -> caches.add(createCache(name, spec)));
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name, defaultLocalTierSpec);
+    }
+
+    /**
+     * Apply an invalidation published by another instance
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message.getBody()))) {
+            byte type = in.readByte();
+            String origin = in.readUTF();
+            if (instanceId.equals(origin)) {
+                return;
+            }
+            // Only caches already in use on this instance can hold stale entries
+            Cache cache = lookupCache(in.readUTF());
+            if (cache instanceof TwoTierCache twoTierCache) {
+                if (type == CLEAR) {
+                    twoTierCache.clearLocal();
+                } else {
+                    twoTierCache.evictLocal(in.readUTF());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring malformed cache invalidation message: {}", e.getMessage());
+        }
+    }
+
+    private TwoTierCache createCache(String name, LocalTierSpec spec) {
+        Cache remoteCache = remoteCacheManager.getCache(name);
+        if (remoteCache == null) {
+            throw new IllegalStateException("No remote cache available for " + name);
+        }
+        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(spec.maximumSize())
+                .expireAfterWrite(spec.timeToLive())
+                .build();
+        return new TwoTierCache(name, localCache, remoteCache, localKey -> publish(name, localKey),
+                meterRegistry, allowNullValues);
+    }
+
+    /**
+     * Announce a changed key, or a cleared cache when the key is null. Failures are only logged,
+     * since the local time to live of other instances still bounds how long they serve the old value.
+     */
+    private void publish(String cacheName, String localKey) {
+        byte[] body;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(localKey == null ? CLEAR : EVICT);
+            out.writeUTF(instanceId);
+            out.writeUTF(cacheName);
+            if (localKey != null) {
+                out.writeUTF(localKey);
+            }
+            body = bytes.toByteArray();
+        } catch (IOException e) {
+            log.warn("Could not encode invalidation of cache {}: {}", cacheName, e.getMessage());
+            return;
+        }
+
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.publish(channel, body);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish invalidation of cache {}: {}", cacheName, e.getMessage());
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.gogidix.centralizeddashboard.core.config;
 
+import com.gogidix.centralizeddashboard.core.cache.SmileRedisSerializer;
+import com.gogidix.centralizeddashboard.core.cache.TwoTierCacheManager;
+import com.gogidix.centralizeddashboard.core.cache.TwoTierCacheManager.LocalTierSpec;
+import com.gogidix.centralizeddashboard.core.model.DashboardKPI;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,6 +17,8 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -29,6 +35,13 @@ import java.util.Map;
 @EnableCaching
 public class RedisCacheConfig {
 
+    /**
+     * Prefix of the Redis cache keys, versioned with the value format: change it whenever the format
+     * changes, so that instances of either version never read the entries of the other during a
+     * rolling deploy. Entries of the previous format expire with their TTL.
+     */
+    static final String CACHE_KEY_PREFIX = "v2::";
+
     @Value("${spring.redis.host:localhost}")
     private String redisHost;
 
@@ -41,6 +54,15 @@ public class RedisCacheConfig {
     @Value("${spring.cache.redis.time-to-live:3600}")
     private long timeToLive;
 
+    @Value("${dashboard.cache.local.default-max-size:1000}")
+    private long localDefaultMaxSize;
+
+    @Value("${dashboard.cache.local.default-ttl-seconds:60}")
+    private long localDefaultTtlSeconds;
+
+    @Value("${dashboard.cache.invalidation-channel:dashboard:cache:invalidation}")
+    private String invalidationChannel;
+
     /**
      * Creates the Redis connection factory
      *
@@ -84,44 +106,87 @@ public class RedisCacheConfig {
     }
 
     /**
-     * Creates the primary cache manager using Redis
+     * Creates the primary cache manager, a Caffeine tier per cache in front of Redis.
+     * Cached values are stored in Redis in the binary Smile format, under keys versioned with it,
+     * and every instance drops its local copy of an entry when another instance changes it.
      *
      * @param redisConnectionFactory Redis connection factory
-     * @return RedisCacheManager
+     * @param meterRegistry registry for the per-tier hit and miss metrics
+     * @return TwoTierCacheManager
      */
     @Bean
     @Primary
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
-        // Create default configuration with JSON serialization
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, MeterRegistry meterRegistry) {
+        // Create default configuration with binary serialization
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofSeconds(timeToLive))
+                .prefixCacheNameWith(CACHE_KEY_PREFIX)
                 .serializeKeysWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer())
                 )
                 .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer())
+                        RedisSerializationContext.SerializationPair.fromSerializer(new SmileRedisSerializer())
                 );
         
         // Create cache configurations with different TTLs for specific caches
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        // Local tier size and TTL per cache; the local TTL bounds how long a missed invalidation stays visible
+        Map<String, LocalTierSpec> localTierSpecs = new HashMap<>();
         
         // Short-lived caches for frequently changing data
         cacheConfigurations.put("dashboardMetrics", defaultConfig.entryTtl(Duration.ofMinutes(5)));
+        localTierSpecs.put("dashboardMetrics", new LocalTierSpec(500, Duration.ofSeconds(30)));
         cacheConfigurations.put("realtimeData", defaultConfig.entryTtl(Duration.ofMinutes(1)));
+        localTierSpecs.put("realtimeData", new LocalTierSpec(200, Duration.ofSeconds(5)));
         
         // Medium-lived caches for semi-static data
         cacheConfigurations.put("dashboardKpis", defaultConfig.entryTtl(Duration.ofMinutes(15)));
+        localTierSpecs.put("dashboardKpis", new LocalTierSpec(500, Duration.ofSeconds(60)));
         cacheConfigurations.put("exportTemplates", defaultConfig.entryTtl(Duration.ofMinutes(30)));
+        localTierSpecs.put("exportTemplates", new LocalTierSpec(100, Duration.ofMinutes(5)));
         
         // Long-lived caches for relatively static data
         cacheConfigurations.put("domainConfigurations", defaultConfig.entryTtl(Duration.ofHours(1)));
+        localTierSpecs.put("domainConfigurations", new LocalTierSpec(100, Duration.ofMinutes(5)));
         cacheConfigurations.put("userPreferences", defaultConfig.entryTtl(Duration.ofHours(2)));
+        localTierSpecs.put("userPreferences", new LocalTierSpec(10_000, Duration.ofMinutes(5)));
         
-        // Build the cache manager
-        return RedisCacheManager.builder(redisConnectionFactory)
+        // KPI lookups, keyed by KPI name, category and region
+        localTierSpecs.put("kpiCache", new LocalTierSpec(1_000, Duration.ofSeconds(30)));
+        localTierSpecs.put("kpiCategoryCache", new LocalTierSpec(DashboardKPI.KPICategory.values().length, Duration.ofSeconds(30)));
+        localTierSpecs.put("kpiRegionCache", new LocalTierSpec(256, Duration.ofSeconds(30)));
+        
+        // Build the remote tier
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+        
+        return new TwoTierCacheManager(
+                redisCacheManager,
+                localTierSpecs,
+                new LocalTierSpec(localDefaultMaxSize, Duration.ofSeconds(localDefaultTtlSeconds)),
+                redisConnectionFactory,
+                invalidationChannel,
+                meterRegistry,
+                defaultConfig.getAllowCacheNullValues());
+    }
+
+    /**
+     * Subscribes the cache manager to invalidations published by other instances
+     *
+     * @param redisConnectionFactory Redis connection factory
+     * @param cacheManager the two-tier cache manager
+     * @return RedisMessageListenerContainer
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory redisConnectionFactory, TwoTierCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+        return container;
     }
 
     /**
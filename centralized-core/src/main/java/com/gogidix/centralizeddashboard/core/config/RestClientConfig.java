@@ -1,45 +1,128 @@
 package com.gogidix.centralizeddashboard.core.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.Duration;
-
 /**
  * Configuration for REST clients used in the Centralized Dashboard.
- * Configures RestTemplate with appropriate timeouts and error handlers.
+ * All domain integration clients share one RestTemplate backed by a pooled
+ * Apache HttpClient, so connections to each domain are kept alive and reused
+ * instead of being opened per call.
  */
 @Configuration
 public class RestClientConfig {
 
+    @Value("${service.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${service.http.max-connections-per-host:20}")
+    private int maxConnectionsPerHost;
+
+    @Value("${service.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${service.http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${service.http.pool-acquire-timeout-ms:2000}")
+    private long poolAcquireTimeoutMs;
+
+    @Value("${service.http.idle-eviction-seconds:30}")
+    private long idleEvictionSeconds;
+
+    @Value("${service.http.connection-ttl-seconds:300}")
+    private long connectionTtlSeconds;
+
+    /**
+     * Creates the connection pool shared by all outbound domain calls.
+     * The per-host limit caps concurrency against any single domain service.
+     *
+     * @return the pooling connection manager
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager domainConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setTimeToLive(TimeValue.ofSeconds(connectionTtlSeconds))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Creates the HttpClient on top of the shared pool.
+     * A background thread evicts expired connections and those idle for longer
+     * than the configured period, so stale sockets are not handed out.
+     *
+     * @param domainConnectionManager the shared connection pool
+     * @return the pooled HttpClient
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient domainHttpClient(PoolingHttpClientConnectionManager domainConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(domainConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+    }
+
     /**
-     * Creates a ClientHttpRequestFactory with custom connection and read timeouts.
+     * Creates a ClientHttpRequestFactory backed by the pooled HttpClient.
      *
+     * @param domainHttpClient the pooled HttpClient
      * @return the ClientHttpRequestFactory
      */
     @Bean
-    public ClientHttpRequestFactory clientHttpRequestFactory() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(5000); // 5 seconds
-        factory.setReadTimeout(10000);   // 10 seconds
-        return factory;
+    public ClientHttpRequestFactory clientHttpRequestFactory(CloseableHttpClient domainHttpClient) {
+        return new HttpComponentsClientHttpRequestFactory(domainHttpClient);
     }
 
     /**
-     * Creates a RestTemplate configured with appropriate timeouts and error handlers.
+     * Creates the RestTemplate used by all domain integration clients.
      *
      * @param builder the RestTemplateBuilder
+     * @param clientHttpRequestFactory the pooled request factory
      * @return the configured RestTemplate
      */
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+    public RestTemplate restTemplate(RestTemplateBuilder builder, ClientHttpRequestFactory clientHttpRequestFactory) {
         return builder
-                .setConnectTimeout(Duration.ofSeconds(5))
-                .setReadTimeout(Duration.ofSeconds(10))
+                .requestFactory(() -> clientHttpRequestFactory)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Publishes pool gauges (leased, available, pending and max connections)
+     * under the {@code httpcomponents.httpclient.pool} meters.
+     *
+     * @param domainConnectionManager the shared connection pool
+     * @return the meter binder
+     */
+    @Bean
+    public MeterBinder domainConnectionPoolMetrics(PoolingHttpClientConnectionManager domainConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(domainConnectionManager, "domain-integration");
+    }
+}
@@ -0,0 +1,45 @@
+package com.gogidix.centralizeddashboard.core.config;
+
+import com.gogidix.centralizeddashboard.core.timeseries.TimeSeriesStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration for the embedded time-series store of dashboard metrics.
+ * Trend queries read compressed chunks from this store instead of the
+ * dashboard_metrics table, which remains the system of record.
+ */
+@Configuration
+public class TimeSeriesConfig {
+
+    @Value("${dashboard.timeseries.directory:data/timeseries}")
+    private String directory;
+
+    @Value("${dashboard.timeseries.partition-hours:24}")
+    private long partitionHours;
+
+    @Value("${dashboard.timeseries.chunk-size:1024}")
+    private int chunkSize;
+
+    @Value("${dashboard.timeseries.retention-days:400}")
+    private long retentionDays;
+
+    /**
+     * Creates the store, opening the segment files already in its directory.
+     * An empty directory setting keeps all points in memory.
+     *
+     * @return the time-series store
+     */
+    @Bean(destroyMethod = "close")
+    public TimeSeriesStore timeSeriesStore() {
+        return new TimeSeriesStore(
+                directory.isBlank() ? null : Path.of(directory),
+                Duration.ofHours(partitionHours),
+                chunkSize,
+                Duration.ofDays(retentionDays));
+    }
+}
@@ -7,15 +7,21 @@ import com.gogidix.centralizeddashboard.core.repository.DashboardMetricRepositor
 import com.gogidix.centralizeddashboard.core.integration.CrossDomainIntegrationService;
 import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
 import com.gogidix.centralizeddashboard.core.service.CrossDomainDashboardService;
+import com.gogidix.centralizeddashboard.core.service.MetricAggregateService;
 import com.gogidix.centralizeddashboard.core.service.MetricCollectorService;
+import com.gogidix.centralizeddashboard.core.service.MetricTimeSeriesService;
+import com.gogidix.centralizeddashboard.core.service.snapshot.Snapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -35,6 +41,8 @@ public class CrossDomainController {
     private final MetricCollectorService metricCollectorService;
     private final CrossDomainDashboardService crossDomainDashboardService;
     private final DashboardMetricRepository dashboardMetricRepository;
+    private final MetricAggregateService metricAggregateService;
+    private final MetricTimeSeriesService metricTimeSeriesService;
 
     /**
      * Fetch metrics from all domains.
@@ -50,6 +58,8 @@ public class CrossDomainController {
         
         // Save metrics to database
         dashboardMetricRepository.saveAll(metrics);
+        metricAggregateService.record(metrics);
+        metricTimeSeriesService.record(metrics);
         
         // Convert entities to DTOs
         List<DashboardMetricDto> dtos = metrics.stream()
@@ -98,6 +108,8 @@ public class CrossDomainController {
         
         // Save metrics to database
         dashboardMetricRepository.saveAll(metrics);
+        metricAggregateService.record(metrics);
+        metricTimeSeriesService.record(metrics);
         
         // Convert entities to DTOs
         List<DashboardMetricDto> dtos = metrics.stream()
@@ -130,14 +142,26 @@ public class CrossDomainController {
     /**
      * Get the complete cross-domain dashboard summary.
      * This provides a comprehensive view of data across all domains.
+     * The summary carries the ETag of its snapshot, and a request whose If-None-Match
+     * header matches it gets a 304 Not Modified without a body.
      *
+     * @param request the current request
      * @return the cross-domain dashboard summary
      */
     @GetMapping("/summary")
-    public ResponseEntity<CrossDomainSummaryDto> getDashboardSummary() {
+    public ResponseEntity<CrossDomainSummaryDto> getDashboardSummary(WebRequest request) {
         log.info("API request to get cross-domain dashboard summary");
-        CrossDomainSummaryDto summary = crossDomainDashboardService.getDashboardSummary();
-        return ResponseEntity.ok(summary);
+        Snapshot<CrossDomainSummaryDto> snapshot = crossDomainDashboardService.getDashboardSummarySnapshot();
+        if (request.checkNotModified(snapshot.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getETag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getETag())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.getValue());
     }
     
     /**
@@ -3,6 +3,8 @@ package com.gogidix.centralizeddashboard.core.controller;
 import com.gogidix.centralizeddashboard.core.dto.DashboardMetricDto;
 import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
 import com.gogidix.centralizeddashboard.core.service.MetricCollectorService;
+import com.gogidix.centralizeddashboard.core.service.MetricTimeSeriesService;
+import com.gogidix.centralizeddashboard.core.timeseries.DownsampledSeries;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,7 +14,13 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -28,6 +36,7 @@ import java.util.stream.Collectors;
 public class MetricsController {
 
     private final MetricCollectorService metricCollectorService;
+    private final MetricTimeSeriesService metricTimeSeriesService;
 
     /**
      * Collect metrics from all domains.
@@ -191,4 +200,86 @@ public class MetricsController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    /**
+     * Get the daily average of a metric across all regions.
+     *
+     * @param domain the source domain
+     * @param metricName the name of the metric
+     * @param startTime the start time of the range
+     * @param endTime the end time of the range
+     * @return a response with the average per day
+     */
+    @GetMapping("/trend/{domain}/{metricName}/daily-average")
+    @Operation(summary = "Get the daily average of a metric",
+               description = "Averages a metric per day across all regions, from the compressed metric time series")
+    public ResponseEntity<Map<LocalDate, Double>> getDailyAverage(
+            @PathVariable @Parameter(description = "Domain name: SOCIAL_COMMERCE, WAREHOUSING, or COURIER_SERVICES") String domain,
+            @PathVariable @Parameter(description = "Metric name") String metricName,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @Parameter(description = "Start time (ISO format)") LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @Parameter(description = "End time (ISO format)") LocalDateTime endTime) {
+
+        log.info("REST request for the daily average of {} in domain {} from {} to {}", metricName, domain, startTime, endTime);
+
+        try {
+            DashboardMetric.SourceDomain sourceDomain = DashboardMetric.SourceDomain.valueOf(domain.toUpperCase());
+            return ResponseEntity.ok(metricTimeSeriesService.getAverageMetricValueByDay(metricName, sourceDomain, startTime, endTime));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid domain name: {}", domain, e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Get a metric rolled up into intervals of equal length.
+     *
+     * @param domain the source domain
+     * @param metricName the name of the metric
+     * @param startTime the start time of the range
+     * @param endTime the end time of the range
+     * @param interval the length of an interval
+     * @param region the region, or all regions if absent
+     * @return a response with the count, average, minimum and maximum of every interval with metrics
+     */
+    @GetMapping("/trend/{domain}/{metricName}")
+    @Operation(summary = "Get the trend of a metric",
+               description = "Rolls a metric up into intervals of equal length, from the compressed metric time series")
+    public ResponseEntity<List<Map<String, Object>>> getMetricTrend(
+            @PathVariable @Parameter(description = "Domain name: SOCIAL_COMMERCE, WAREHOUSING, or COURIER_SERVICES") String domain,
+            @PathVariable @Parameter(description = "Metric name") String metricName,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @Parameter(description = "Start time (ISO format)") LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @Parameter(description = "End time (ISO format)") LocalDateTime endTime,
+            @RequestParam(defaultValue = "PT1H") @Parameter(description = "Interval length (ISO-8601 duration, e.g. PT15M)") Duration interval,
+            @RequestParam(required = false) @Parameter(description = "Region, all regions if absent") String region) {
+
+        log.info("REST request for the trend of {} in domain {} from {} to {} by {}", metricName, domain, startTime, endTime, interval);
+
+        try {
+            DashboardMetric.SourceDomain sourceDomain = DashboardMetric.SourceDomain.valueOf(domain.toUpperCase());
+            DownsampledSeries series = metricTimeSeriesService.downsample(
+                    metricName, sourceDomain, region, startTime, endTime, interval);
+
+            List<Map<String, Object>> intervals = new ArrayList<>();
+            for (int i = 0; i < series.size(); i++) {
+                if (series.getCount(i) == 0) {
+                    continue;
+                }
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("timestamp", LocalDateTime.ofInstant(Instant.ofEpochMilli(series.getBucketStart(i)), ZoneOffset.UTC));
+                entry.put("count", series.getCount(i));
+                entry.put("average", series.getAverage(i));
+                entry.put("min", series.getMin(i));
+                entry.put("max", series.getMax(i));
+                intervals.add(entry);
+            }
+            return ResponseEntity.ok(intervals);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid trend request for domain {} by {}", domain, interval, e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package com.gogidix.centralizeddashboard.core.integration;
 
+import com.gogidix.centralizeddashboard.core.integration.fanout.DomainFanOutExecutor;
+import com.gogidix.centralizeddashboard.core.integration.fanout.FanOutResult;
+import com.gogidix.centralizeddashboard.core.integration.fanout.FanOutTask;
 import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric.SourceDomain;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -11,11 +15,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service for cross-domain integration.
  * Coordinates communication with all domain clients and
  * transforms domain-specific data into a unified format for the dashboard.
+ * Domain calls are fanned out concurrently through the {@link DomainFanOutExecutor},
+ * so a refresh takes as long as the slowest domain rather than the sum of all of them.
  */
 @Service
 @RequiredArgsConstructor
@@ -25,31 +33,23 @@ public class CrossDomainIntegrationService {
     private final CourierServiceClient courierServiceClient;
     private final SocialCommerceClient socialCommerceClient;
     private final WarehousingClient warehousingClient;
+    private final DomainFanOutExecutor fanOutExecutor;
 
     /**
      * Fetch metrics from all domains and transform them into a unified format.
+     * Domains that fail or miss their deadline are left out of the result.
      *
      * @return a list of dashboard metrics from all domains
      */
     public List<DashboardMetric> fetchAllDomainMetrics() {
         log.info("Fetching metrics from all domains");
-        List<DashboardMetric> unifiedMetrics = new ArrayList<>();
-        
-        try {
-            // Fetch Courier Services metrics
-            unifiedMetrics.addAll(fetchCourierServicesMetrics());
-            
-            // Fetch Social Commerce metrics
-            unifiedMetrics.addAll(fetchSocialCommerceMetrics());
-            
-            // Fetch Warehousing metrics
-            unifiedMetrics.addAll(fetchWarehousingMetrics());
-            
-            log.info("Successfully fetched and transformed metrics from all domains. Total metrics: {}", unifiedMetrics.size());
-        } catch (Exception e) {
-            log.error("Error fetching metrics from all domains", e);
-        }
-        
+        List<FanOutTask<List<DashboardMetric>>> tasks = new ArrayList<>();
+        tasks.addAll(courierServicesTasks());
+        tasks.addAll(socialCommerceTasks());
+        tasks.addAll(warehousingTasks());
+
+        List<DashboardMetric> unifiedMetrics = collect(tasks);
+        log.info("Successfully fetched and transformed metrics from all domains. Total metrics: {}", unifiedMetrics.size());
         return unifiedMetrics;
     }
 
@@ -60,40 +60,8 @@ public class CrossDomainIntegrationService {
      */
     public List<DashboardMetric> fetchCourierServicesMetrics() {
         log.info("Fetching and transforming Courier Services metrics");
-        List<DashboardMetric> courierMetrics = new ArrayList<>();
-        
-        try {
-            Map<String, List<Map<String, Object>>> courierData = courierServiceClient.getAllCourierMetrics();
-            
-            // Transform HQ Admin metrics
-            List<Map<String, Object>> hqMetrics = courierData.getOrDefault("hqAdmin", new ArrayList<>());
-            for (Map<String, Object> metric : hqMetrics) {
-                courierMetrics.add(transformCourierMetric(metric, "HQ Admin"));
-            }
-            
-            // Transform Regional Admin metrics
-            List<Map<String, Object>> regionalMetrics = courierData.getOrDefault("regionalAdmin", new ArrayList<>());
-            for (Map<String, Object> metric : regionalMetrics) {
-                courierMetrics.add(transformCourierMetric(metric, "Regional Admin"));
-            }
-            
-            // Transform Local Management metrics
-            List<Map<String, Object>> localMetrics = courierData.getOrDefault("localManagement", new ArrayList<>());
-            for (Map<String, Object> metric : localMetrics) {
-                courierMetrics.add(transformCourierMetric(metric, "Local Courier Management"));
-            }
-            
-            // Transform Field Staff metrics
-            List<Map<String, Object>> fieldMetrics = courierData.getOrDefault("fieldStaff", new ArrayList<>());
-            for (Map<String, Object> metric : fieldMetrics) {
-                courierMetrics.add(transformCourierMetric(metric, "Field Staff"));
-            }
-            
-            log.info("Successfully transformed {} Courier Services metrics", courierMetrics.size());
-        } catch (Exception e) {
-            log.error("Error fetching and transforming Courier Services metrics", e);
-        }
-        
+        List<DashboardMetric> courierMetrics = collect(courierServicesTasks());
+        log.info("Successfully transformed {} Courier Services metrics", courierMetrics.size());
         return courierMetrics;
     }
 
@@ -104,34 +72,8 @@ public class CrossDomainIntegrationService {
      */
     public List<DashboardMetric> fetchSocialCommerceMetrics() {
         log.info("Fetching and transforming Social Commerce metrics");
-        List<DashboardMetric> socialCommerceMetrics = new ArrayList<>();
-        
-        try {
-            Map<String, List<Map<String, Object>>> socialCommerceData = socialCommerceClient.getAllSocialCommerceMetrics();
-            
-            // Transform Analytics metrics
-            List<Map<String, Object>> analyticsMetrics = socialCommerceData.getOrDefault("analytics", new ArrayList<>());
-            for (Map<String, Object> metric : analyticsMetrics) {
-                socialCommerceMetrics.add(transformSocialCommerceMetric(metric, "Analytics"));
-            }
-            
-            // Transform Engagement metrics
-            List<Map<String, Object>> engagementMetrics = socialCommerceData.getOrDefault("engagement", new ArrayList<>());
-            for (Map<String, Object> metric : engagementMetrics) {
-                socialCommerceMetrics.add(transformSocialCommerceMetric(metric, "Engagement"));
-            }
-            
-            // Transform Sales metrics
-            List<Map<String, Object>> salesMetrics = socialCommerceData.getOrDefault("sales", new ArrayList<>());
-            for (Map<String, Object> metric : salesMetrics) {
-                socialCommerceMetrics.add(transformSocialCommerceMetric(metric, "Sales"));
-            }
-            
-            log.info("Successfully transformed {} Social Commerce metrics", socialCommerceMetrics.size());
-        } catch (Exception e) {
-            log.error("Error fetching and transforming Social Commerce metrics", e);
-        }
-        
+        List<DashboardMetric> socialCommerceMetrics = collect(socialCommerceTasks());
+        log.info("Successfully transformed {} Social Commerce metrics", socialCommerceMetrics.size());
         return socialCommerceMetrics;
     }
 
@@ -142,35 +84,95 @@ public class CrossDomainIntegrationService {
      */
     public List<DashboardMetric> fetchWarehousingMetrics() {
         log.info("Fetching and transforming Warehousing metrics");
-        List<DashboardMetric> warehousingMetrics = new ArrayList<>();
-        
-        try {
-            Map<String, List<Map<String, Object>>> warehousingData = warehousingClient.getAllWarehousingMetrics();
-            
-            // Transform Inventory metrics
-            List<Map<String, Object>> inventoryMetrics = warehousingData.getOrDefault("inventory", new ArrayList<>());
-            for (Map<String, Object> metric : inventoryMetrics) {
-                warehousingMetrics.add(transformWarehousingMetric(metric, "Inventory"));
-            }
-            
-            // Transform Operations metrics
-            List<Map<String, Object>> operationsMetrics = warehousingData.getOrDefault("operations", new ArrayList<>());
-            for (Map<String, Object> metric : operationsMetrics) {
-                warehousingMetrics.add(transformWarehousingMetric(metric, "Operations"));
-            }
-            
-            // Transform Fulfillment metrics
-            List<Map<String, Object>> fulfillmentMetrics = warehousingData.getOrDefault("fulfillment", new ArrayList<>());
-            for (Map<String, Object> metric : fulfillmentMetrics) {
-                warehousingMetrics.add(transformWarehousingMetric(metric, "Fulfillment"));
+        List<DashboardMetric> warehousingMetrics = collect(warehousingTasks());
+        log.info("Successfully transformed {} Warehousing metrics", warehousingMetrics.size());
+        return warehousingMetrics;
+    }
+
+    /**
+     * Build one fan-out task per level of the Courier Services hierarchy.
+     * Each level is called through the client proxy so its circuit breaker applies.
+     */
+    private List<FanOutTask<List<DashboardMetric>>> courierServicesTasks() {
+        return List.of(
+                tierTask("courier.hqAdmin", SourceDomain.COURIER_SERVICES,
+                        courierServiceClient::getHqAdminMetrics,
+                        metric -> transformCourierMetric(metric, "HQ Admin")),
+                tierTask("courier.regionalAdmin", SourceDomain.COURIER_SERVICES,
+                        () -> courierServiceClient.getRegionalAdminMetrics(null),
+                        metric -> transformCourierMetric(metric, "Regional Admin")),
+                tierTask("courier.localManagement", SourceDomain.COURIER_SERVICES,
+                        () -> courierServiceClient.getLocalManagementMetrics(null),
+                        metric -> transformCourierMetric(metric, "Local Courier Management")),
+                tierTask("courier.fieldStaff", SourceDomain.COURIER_SERVICES,
+                        courierServiceClient::getFieldStaffMetrics,
+                        metric -> transformCourierMetric(metric, "Field Staff")));
+    }
+
+    /**
+     * Build one fan-out task per Social Commerce metric category.
+     */
+    private List<FanOutTask<List<DashboardMetric>>> socialCommerceTasks() {
+        return List.of(
+                tierTask("socialCommerce.analytics", SourceDomain.SOCIAL_COMMERCE,
+                        socialCommerceClient::getAnalyticsMetrics,
+                        metric -> transformSocialCommerceMetric(metric, "Analytics")),
+                tierTask("socialCommerce.engagement", SourceDomain.SOCIAL_COMMERCE,
+                        socialCommerceClient::getEngagementMetrics,
+                        metric -> transformSocialCommerceMetric(metric, "Engagement")),
+                tierTask("socialCommerce.sales", SourceDomain.SOCIAL_COMMERCE,
+                        socialCommerceClient::getSalesMetrics,
+                        metric -> transformSocialCommerceMetric(metric, "Sales")));
+    }
+
+    /**
+     * Build one fan-out task per Warehousing metric category.
+     */
+    private List<FanOutTask<List<DashboardMetric>>> warehousingTasks() {
+        return List.of(
+                tierTask("warehousing.inventory", SourceDomain.WAREHOUSING,
+                        warehousingClient::getInventoryMetrics,
+                        metric -> transformWarehousingMetric(metric, "Inventory")),
+                tierTask("warehousing.operations", SourceDomain.WAREHOUSING,
+                        warehousingClient::getOperationsMetrics,
+                        metric -> transformWarehousingMetric(metric, "Operations")),
+                tierTask("warehousing.fulfillment", SourceDomain.WAREHOUSING,
+                        warehousingClient::getFulfillmentMetrics,
+                        metric -> transformWarehousingMetric(metric, "Fulfillment")));
+    }
+
+    /**
+     * Wrap a client call and its transformation into a single fan-out task.
+     */
+    private FanOutTask<List<DashboardMetric>> tierTask(String name,
+                                                       SourceDomain domain,
+                                                       Supplier<List<Map<String, Object>>> fetch,
+                                                       Function<Map<String, Object>, DashboardMetric> transform) {
+        return FanOutTask.of(name, domain, () -> {
+            List<Map<String, Object>> rawMetrics = fetch.get();
+            List<DashboardMetric> metrics = new ArrayList<>();
+            if (rawMetrics != null) {
+                for (Map<String, Object> metric : rawMetrics) {
+                    metrics.add(transform.apply(metric));
+                }
             }
-            
-            log.info("Successfully transformed {} Warehousing metrics", warehousingMetrics.size());
-        } catch (Exception e) {
-            log.error("Error fetching and transforming Warehousing metrics", e);
+            return metrics;
+        });
+    }
+
+    /**
+     * Run the tasks through the fan-out executor and assemble the metrics of
+     * every task that completed in time.
+     */
+    private List<DashboardMetric> collect(List<FanOutTask<List<DashboardMetric>>> tasks) {
+        FanOutResult<List<DashboardMetric>> result = fanOutExecutor.execute(tasks);
+        if (!result.isComplete()) {
+            log.warn("Partial domain metrics: failed={}, timedOut={}", result.getFailed().keySet(), result.getTimedOut());
         }
-        
-        return warehousingMetrics;
+
+        List<DashboardMetric> metrics = new ArrayList<>();
+        result.getCompleted().values().forEach(metrics::addAll);
+        return metrics;
     }
 
     /**
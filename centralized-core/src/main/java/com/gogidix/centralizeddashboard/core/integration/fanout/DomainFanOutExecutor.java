@@ -0,0 +1,161 @@
+package com.gogidix.centralizeddashboard.core.integration.fanout;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric.SourceDomain;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs independent domain calls concurrently on a bounded worker pool.
+ * Every call is given the deadline of its source domain, measured from the start
+ * of the fan-out. Calls still running when their deadline passes are cancelled,
+ * and whatever completed in time is returned as a {@link FanOutResult}.
+ */
+@Component
+@Slf4j
+public class DomainFanOutExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final Map<SourceDomain, Duration> deadlines = new EnumMap<>(SourceDomain.class);
+
+    public DomainFanOutExecutor(
+            @Value("${service.fan-out.max-concurrency:16}") int maxConcurrency,
+            @Value("${service.fan-out.queue-capacity:64}") int queueCapacity,
+            @Value("${service.fan-out.courier.deadline-ms:8000}") long courierDeadlineMs,
+            @Value("${service.fan-out.social-commerce.deadline-ms:8000}") long socialCommerceDeadlineMs,
+            @Value("${service.fan-out.warehousing.deadline-ms:8000}") long warehousingDeadlineMs) {
+        this.executor = new ThreadPoolExecutor(
+                maxConcurrency,
+                maxConcurrency,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new FanOutThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+        deadlines.put(SourceDomain.COURIER_SERVICES, Duration.ofMillis(courierDeadlineMs));
+        deadlines.put(SourceDomain.SOCIAL_COMMERCE, Duration.ofMillis(socialCommerceDeadlineMs));
+        deadlines.put(SourceDomain.WAREHOUSING, Duration.ofMillis(warehousingDeadlineMs));
+    }
+
+    /**
+     * Execute all tasks concurrently and wait until each one has completed or
+     * reached its domain deadline, whichever comes first.
+     *
+     * @param tasks the calls to run
+     * @param <T> the type of result produced by each call
+     * @return the completed results together with failed and timed out call names
+     */
+    public <T> FanOutResult<T> execute(List<FanOutTask<T>> tasks) {
+        FanOutResult<T> result = new FanOutResult<>();
+        long startNanos = System.nanoTime();
+
+        List<Submitted<T>> submitted = new ArrayList<>(tasks.size());
+        for (FanOutTask<T> task : tasks) {
+            try {
+                submitted.add(new Submitted<>(task, executor.submit(task.getCall())));
+            } catch (RejectedExecutionException e) {
+                log.warn("Fan-out call {} rejected, worker pool is saturated", task.getName());
+                result.addFailed(task.getName(), "rejected");
+            }
+        }
+
+        // Wait in deadline order so that each get() only blocks for the time the
+        // task has left; the whole fan-out never outlives its slowest domain.
+        List<Submitted<T>> byDeadline = new ArrayList<>(submitted);
+        byDeadline.sort(Comparator.comparing(s -> deadlineFor(s.task.getDomain())));
+
+        Map<String, T> completed = new HashMap<>();
+        for (Submitted<T> s : byDeadline) {
+            String name = s.task.getName();
+            long remainingNanos = deadlineFor(s.task.getDomain()).toNanos() - (System.nanoTime() - startNanos);
+            try {
+                completed.put(name, s.future.get(Math.max(0L, remainingNanos), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                s.future.cancel(true);
+                log.warn("Fan-out call {} exceeded its {} deadline and was cancelled",
+                        name, deadlineFor(s.task.getDomain()));
+                result.addTimedOut(name);
+            } catch (ExecutionException e) {
+                log.warn("Fan-out call {} failed: {}", name, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                result.addFailed(name, String.valueOf(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAll(submitted);
+                result.addFailed(name, "interrupted");
+                break;
+            }
+        }
+
+        // Report completed calls in submission order rather than deadline order
+        for (Submitted<T> s : submitted) {
+            if (completed.containsKey(s.task.getName())) {
+                result.addCompleted(s.task.getName(), completed.get(s.task.getName()));
+            }
+        }
+
+        log.debug("Fan-out of {} calls finished in {} ms ({} completed, {} failed, {} timed out)",
+                tasks.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                result.getCompleted().size(), result.getFailed().size(), result.getTimedOut().size());
+        return result;
+    }
+
+    /**
+     * Get the deadline applied to calls targeting the given domain.
+     *
+     * @param domain the source domain
+     * @return the configured deadline
+     */
+    public Duration deadlineFor(SourceDomain domain) {
+        return deadlines.get(domain);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static <T> void cancelAll(List<Submitted<T>> submitted) {
+        for (Submitted<T> s : submitted) {
+            s.future.cancel(true);
+        }
+    }
+
+    private static final class Submitted<T> {
+        private final FanOutTask<T> task;
+        private final Future<T> future;
+
+        private Submitted(FanOutTask<T> task, Future<T> future) {
+            this.task = task;
+            this.future = future;
+        }
+    }
+
+    private static final class FanOutThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "domain-fan-out-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
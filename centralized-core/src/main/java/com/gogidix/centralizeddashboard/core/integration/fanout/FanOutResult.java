@@ -0,0 +1,69 @@
+package com.gogidix.centralizeddashboard.core.integration.fanout;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Outcome of a fan-out. Holds the results of the calls that completed in time,
+ * together with the names of the calls that failed or missed their deadline,
+ * so callers can assemble a partial view instead of failing as a whole.
+ *
+ * @param <T> the type of result produced by each call
+ */
+public class FanOutResult<T> {
+
+    private final Map<String, T> completed = new LinkedHashMap<>();
+    private final Map<String, String> failed = new LinkedHashMap<>();
+    private final Set<String> timedOut = new LinkedHashSet<>();
+
+    void addCompleted(String name, T value) {
+        completed.put(name, value);
+    }
+
+    void addFailed(String name, String reason) {
+        failed.put(name, reason);
+    }
+
+    void addTimedOut(String name) {
+        timedOut.add(name);
+    }
+
+    /**
+     * Results of the calls that completed in time, in submission order.
+     *
+     * @return an unmodifiable map of call name to result
+     */
+    public Map<String, T> getCompleted() {
+        return Collections.unmodifiableMap(completed);
+    }
+
+    /**
+     * Calls that threw or were rejected by the executor.
+     *
+     * @return an unmodifiable map of call name to failure reason
+     */
+    public Map<String, String> getFailed() {
+        return Collections.unmodifiableMap(failed);
+    }
+
+    /**
+     * Calls that were cancelled because they exceeded their domain deadline.
+     *
+     * @return an unmodifiable set of call names
+     */
+    public Set<String> getTimedOut() {
+        return Collections.unmodifiableSet(timedOut);
+    }
+
+    /**
+     * Whether every submitted call completed in time.
+     *
+     * @return true if no call failed or timed out
+     */
+    public boolean isComplete() {
+        return failed.isEmpty() && timedOut.isEmpty();
+    }
+}
@@ -0,0 +1,34 @@
+package com.gogidix.centralizeddashboard.core.integration.fanout;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric.SourceDomain;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A single remote call submitted to the {@link DomainFanOutExecutor}.
+ * The source domain determines which deadline applies to the call.
+ *
+ * @param <T> the type of result produced by the call
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class FanOutTask<T> {
+
+    /**
+     * Unique name of the call within a fan-out, used for logging and result lookup.
+     */
+    private final String name;
+
+    /**
+     * Domain the call targets.
+     */
+    private final SourceDomain domain;
+
+    /**
+     * The call itself. Should go through the Spring proxy of the domain client
+     * so that circuit breaker fallbacks are applied.
+     */
+    private final Callable<T> call;
+}
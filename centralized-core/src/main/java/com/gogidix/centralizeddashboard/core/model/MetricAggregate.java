@@ -0,0 +1,123 @@
+package com.gogidix.centralizeddashboard.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entity holding the running aggregate of one metric series, keyed by
+ * (metricName, sourceDomain, region). It is updated as metrics are collected,
+ * so KPIs can be calculated without reloading the metric history.
+ */
+@Entity
+@Table(name = "metric_aggregates",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"metric_name", "source_domain", "region"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricAggregate {
+
+    /**
+     * Region key used for metrics that are not tied to a region.
+     */
+    public static final String NO_REGION = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "metric_name", nullable = false)
+    private String metricName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source_domain", nullable = false)
+    private DashboardMetric.SourceDomain sourceDomain;
+
+    @Column(name = "region", nullable = false)
+    private String region;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+
+    @Column(name = "sum_value", nullable = false)
+    private Double sumValue;
+
+    @Column(name = "min_value", nullable = false)
+    private Double minValue;
+
+    @Column(name = "max_value", nullable = false)
+    private Double maxValue;
+
+    @Column(name = "latest_value", nullable = false)
+    private Double latestValue;
+
+    @Column(name = "latest_timestamp", nullable = false)
+    private LocalDateTime latestTimestamp;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * Average of all samples in the series.
+     *
+     * @return the mean value, or 0.0 if the series is empty
+     */
+    public double getAverageValue() {
+        return sampleCount == null || sampleCount == 0 ? 0.0 : sumValue / sampleCount;
+    }
+
+    /**
+     * Fold another aggregate of the same series into this one.
+     *
+     * @param other the aggregate to merge
+     */
+    public void merge(MetricAggregate other) {
+        sampleCount += other.sampleCount;
+        sumValue += other.sumValue;
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+        if (!other.latestTimestamp.isBefore(latestTimestamp)) {
+            latestValue = other.latestValue;
+            latestTimestamp = other.latestTimestamp;
+        }
+    }
+
+    /**
+     * Create a single-sample aggregate from a collected metric.
+     *
+     * @param metric the collected metric
+     * @return the aggregate for the metric's series
+     */
+    public static MetricAggregate of(DashboardMetric metric) {
+        double value = metric.getMetricValue();
+        return MetricAggregate.builder()
+                .metricName(metric.getMetricName())
+                .sourceDomain(metric.getSourceDomain())
+                .region(regionKey(metric.getRegion()))
+                .sampleCount(1L)
+                .sumValue(value)
+                .minValue(value)
+                .maxValue(value)
+                .latestValue(value)
+                .latestTimestamp(metric.getTimestamp() != null ? metric.getTimestamp() : LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Normalise a metric's region to the region key of its series, so that
+     * missing and blank regions share one series.
+     *
+     * @param region the region of a metric, possibly null
+     * @return the trimmed region, or {@link #NO_REGION}
+     */
+    public static String regionKey(String region) {
+        return region == null ? NO_REGION : region.trim();
+    }
+}
@@ -1,6 +1,7 @@
 package com.gogidix.centralizeddashboard.core.repository;
 
 import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -111,7 +112,7 @@ public interface DashboardMetricRepository extends JpaRepository<DashboardMetric
      * Get the latest metrics for a specific domain, limited by count.
      *
      * @param sourceDomain the source domain
-     * @param limit the maximum number of results to return
+     * @param pageable the page of results to return, whose size limits the count
      * @return a list of the latest metrics from the specified domain
      */
     @Query("SELECT m FROM DashboardMetric m " +
@@ -119,6 +120,57 @@ public interface DashboardMetricRepository extends JpaRepository<DashboardMetric
            "ORDER BY m.timestamp DESC")
     List<DashboardMetric> findLatestBySourceDomain(
             @Param("sourceDomain") DashboardMetric.SourceDomain sourceDomain,
-            @Param("limit") int limit
+            Pageable pageable
     );
-}
\ No newline at end of file
+    
+    /**
+     * Find a page of metrics after a given id and timestamp, in ascending order of id.
+     * Used to read the metric history in pages without counting it.
+     *
+     * @param id the id after which to start
+     * @param maxId the id of the last metric to read
+     * @param timestamp the time after which metrics were recorded
+     * @param pageable the page size
+     * @return the next metrics by id
+     */
+    List<DashboardMetric> findByIdGreaterThanAndIdLessThanEqualAndTimestampAfterOrderByIdAsc(
+            Long id,
+            Long maxId,
+            LocalDateTime timestamp,
+            Pageable pageable
+    );
+    
+    /**
+     * Find the metric with the highest id.
+     *
+     * @return the last stored metric, or null if there is none
+     */
+    DashboardMetric findTopByOrderByIdDesc();
+    
+    /**
+     * Summarize every metric series (metric name, source domain and region) in one grouped pass.
+     * Missing and blank regions are grouped under the empty region key, as in MetricAggregate.
+     * Each row holds metricName, sourceDomain, region key, count, sum, min, max and latest timestamp.
+     *
+     * @return one summary row per series
+     */
+    @Query("SELECT m.metricName, m.sourceDomain, COALESCE(TRIM(m.region), ''), COUNT(m), SUM(m.metricValue), " +
+           "MIN(m.metricValue), MAX(m.metricValue), MAX(m.timestamp) " +
+           "FROM DashboardMetric m " +
+           "GROUP BY m.metricName, m.sourceDomain, COALESCE(TRIM(m.region), '')")
+    List<Object[]> summarizeMetricSeries();
+    
+    /**
+     * Find the most recent metrics of every series in one query, grouping regions as
+     * {@link #summarizeMetricSeries()} does. A series has more than one row only when
+     * several metrics share its latest timestamp; rows are ordered by id.
+     *
+     * @return the most recent metrics of each series
+     */
+    @Query("SELECT m FROM DashboardMetric m " +
+           "WHERE m.timestamp = (SELECT MAX(l.timestamp) FROM DashboardMetric l " +
+           "WHERE l.metricName = m.metricName AND l.sourceDomain = m.sourceDomain " +
+           "AND COALESCE(TRIM(l.region), '') = COALESCE(TRIM(m.region), '')) " +
+           "ORDER BY m.id")
+    List<DashboardMetric> findLatestMetricOfEachSeries();
+}
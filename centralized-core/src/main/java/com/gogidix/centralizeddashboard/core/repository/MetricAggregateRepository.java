@@ -0,0 +1,54 @@
+package com.gogidix.centralizeddashboard.core.repository;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.model.MetricAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repository for MetricAggregate entity operations.
+ */
+@Repository
+public interface MetricAggregateRepository extends JpaRepository<MetricAggregate, Long> {
+
+    /**
+     * Merge a delta into the stored aggregate of its series in one atomic statement,
+     * creating the row if the series has not been stored yet. Concurrent checkpoints
+     * of the same series are serialized by the database, so no update is lost.
+     *
+     * @param delta the buffered delta of one series
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO metric_aggregates (metric_name, source_domain, region, sample_count, sum_value, " +
+                   "min_value, max_value, latest_value, latest_timestamp) " +
+                   "VALUES (:#{#delta.metricName}, :#{#delta.sourceDomain.name()}, :#{#delta.region}, " +
+                   ":#{#delta.sampleCount}, :#{#delta.sumValue}, :#{#delta.minValue}, :#{#delta.maxValue}, " +
+                   ":#{#delta.latestValue}, :#{#delta.latestTimestamp}) " +
+                   "ON CONFLICT (metric_name, source_domain, region) DO UPDATE SET " +
+                   "sample_count = metric_aggregates.sample_count + EXCLUDED.sample_count, " +
+                   "sum_value = metric_aggregates.sum_value + EXCLUDED.sum_value, " +
+                   "min_value = LEAST(metric_aggregates.min_value, EXCLUDED.min_value), " +
+                   "max_value = GREATEST(metric_aggregates.max_value, EXCLUDED.max_value), " +
+                   "latest_value = CASE WHEN EXCLUDED.latest_timestamp >= metric_aggregates.latest_timestamp " +
+                   "THEN EXCLUDED.latest_value ELSE metric_aggregates.latest_value END, " +
+                   "latest_timestamp = GREATEST(metric_aggregates.latest_timestamp, EXCLUDED.latest_timestamp), " +
+                   "updated_at = CURRENT_TIMESTAMP",
+           nativeQuery = true)
+    void upsert(@Param("delta") MetricAggregate delta);
+
+    /**
+     * Find the aggregates of a metric across all regions.
+     *
+     * @param metricName the name of the metric
+     * @param sourceDomain the source domain
+     * @return one aggregate per region
+     */
+    List<MetricAggregate> findByMetricNameAndSourceDomain(String metricName, DashboardMetric.SourceDomain sourceDomain);
+}
@@ -3,6 +3,7 @@ package com.gogidix.centralizeddashboard.core.service;
 import com.gogidix.centralizeddashboard.core.dto.CrossDomainSummaryDto;
 import com.gogidix.centralizeddashboard.core.dto.DashboardMetricDto;
 import com.gogidix.centralizeddashboard.core.dto.DomainHealthDto;
+import com.gogidix.centralizeddashboard.core.service.snapshot.Snapshot;
 
 import java.util.List;
 import java.util.Map;
@@ -20,6 +21,13 @@ public interface CrossDomainDashboardService {
      */
     CrossDomainSummaryDto getDashboardSummary();
     
+    /**
+     * Get the latest versioned snapshot of the dashboard summary.
+     *
+     * @return the dashboard summary snapshot
+     */
+    Snapshot<CrossDomainSummaryDto> getDashboardSummarySnapshot();
+    
     /**
      * Refresh data from all domains and regenerate the dashboard summary.
      *
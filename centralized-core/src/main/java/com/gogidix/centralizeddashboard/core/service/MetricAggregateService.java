@@ -0,0 +1,48 @@
+package com.gogidix.centralizeddashboard.core.service;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.model.MetricAggregate;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service interface for the running aggregates of metric series.
+ * Aggregates are updated incrementally as metrics are collected, so that
+ * KPI calculation costs O(number of KPIs) instead of O(metric history).
+ */
+public interface MetricAggregateService {
+
+    /**
+     * Fold newly collected metrics into the running aggregates.
+     * Updates are buffered in memory until the next checkpoint.
+     *
+     * @param metrics the collected metrics
+     */
+    void record(List<DashboardMetric> metrics);
+
+    /**
+     * Write buffered updates to the aggregate table.
+     *
+     * @return the number of series written
+     */
+    int checkpoint();
+
+    /**
+     * Get the aggregate of a metric across all regions, including updates
+     * that have not been checkpointed yet.
+     *
+     * @param metricName the name of the metric
+     * @param sourceDomain the source domain
+     * @return the aggregate, or empty if the metric has never been collected
+     */
+    Optional<MetricAggregate> getAggregate(String metricName, DashboardMetric.SourceDomain sourceDomain);
+
+    /**
+     * Rebuild the aggregate table from the full metric history.
+     * Only needed once, to seed the table for metrics collected before it existed.
+     *
+     * @return the number of series rebuilt
+     */
+    int rebuildFromHistory();
+}
@@ -0,0 +1,66 @@
+package com.gogidix.centralizeddashboard.core.service;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.timeseries.DownsampledSeries;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service interface for trend queries over the compressed time series of dashboard metrics.
+ * Metrics are recorded into the embedded time-series store as they are collected, so trend
+ * queries scan compressed chunks instead of rows of the dashboard_metrics table.
+ */
+public interface MetricTimeSeriesService {
+
+    /**
+     * Add newly collected metrics to their time series.
+     *
+     * @param metrics the collected metrics
+     */
+    void record(List<DashboardMetric> metrics);
+
+    /**
+     * Get the average value of a metric per day, across all regions.
+     *
+     * @param metricName the name of the metric
+     * @param sourceDomain the source domain
+     * @param startTime the start time of the range, inclusive
+     * @param endTime the end time of the range, inclusive
+     * @return the average per day with metrics, in ascending order of day
+     */
+    Map<LocalDate, Double> getAverageMetricValueByDay(String metricName, DashboardMetric.SourceDomain sourceDomain,
+                                                      LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * Roll a metric up into intervals of equal length.
+     *
+     * @param metricName the name of the metric
+     * @param sourceDomain the source domain
+     * @param region the region, or null for all regions
+     * @param startTime the start time of the range, inclusive
+     * @param endTime the end time of the range, inclusive
+     * @param interval the length of an interval
+     * @return the count, sum, minimum and maximum of every interval
+     */
+    DownsampledSeries downsample(String metricName, DashboardMetric.SourceDomain sourceDomain, String region,
+                                 LocalDateTime startTime, LocalDateTime endTime, Duration interval);
+
+    /**
+     * Persist ended time partitions and drop those beyond the retention.
+     *
+     * @return the number of segment files written
+     */
+    int flush();
+
+    /**
+     * Load the metrics stored before startup and newer than the latest point the store then had
+     * from the metric history, e.g. to seed the store or to recover points not persisted before a crash.
+     *
+     * @return the number of metrics loaded
+     */
+    int loadFromHistory();
+}
@@ -4,6 +4,7 @@ import com.gogidix.centralizeddashboard.core.dto.CrossDomainSummaryDto;
 import com.gogidix.centralizeddashboard.core.dto.DashboardKPIDto;
 import com.gogidix.centralizeddashboard.core.dto.DashboardMetricDto;
 import com.gogidix.centralizeddashboard.core.dto.DomainHealthDto;
+import com.gogidix.centralizeddashboard.core.events.CrossDomainEvent;
 import com.gogidix.centralizeddashboard.core.integration.CrossDomainIntegrationService;
 import com.gogidix.centralizeddashboard.core.model.DashboardKPI;
 import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
@@ -11,15 +12,23 @@ import com.gogidix.centralizeddashboard.core.repository.DashboardKPIRepository;
 import com.gogidix.centralizeddashboard.core.repository.DashboardMetricRepository;
 import com.gogidix.centralizeddashboard.core.service.CrossDomainDashboardService;
 import com.gogidix.centralizeddashboard.core.service.KPIService;
-import lombok.RequiredArgsConstructor;
+import com.gogidix.centralizeddashboard.core.service.snapshot.Snapshot;
+import com.gogidix.centralizeddashboard.core.service.snapshot.SnapshotEngine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -27,22 +36,90 @@ import java.util.stream.Collectors;
  * Provides aggregated data and insights across all domains.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
-public class CrossDomainDashboardServiceImpl implements CrossDomainDashboardService {
+public class CrossDomainDashboardServiceImpl implements CrossDomainDashboardService, DisposableBean {
+
+    /**
+     * Events that can change the metrics, KPIs, alerts or domain health shown in the summary
+     */
+    private static final Set<CrossDomainEvent.EventType> SUMMARY_EVENTS = EnumSet.of(
+            CrossDomainEvent.EventType.CREATED,
+            CrossDomainEvent.EventType.UPDATED,
+            CrossDomainEvent.EventType.DELETED,
+            CrossDomainEvent.EventType.STATUS_CHANGED,
+            CrossDomainEvent.EventType.THRESHOLD_EXCEEDED,
+            CrossDomainEvent.EventType.ALERT_TRIGGERED,
+            CrossDomainEvent.EventType.DATA_SYNCED,
+            CrossDomainEvent.EventType.HEALTH_STATUS_CHANGED);
 
     private final DashboardMetricRepository metricRepository;
     private final DashboardKPIRepository kpiRepository;
     private final KPIService kpiService;
     private final CrossDomainIntegrationService integrationService;
+    private final SnapshotEngine<CrossDomainSummaryDto> summarySnapshots;
+
+    public CrossDomainDashboardServiceImpl(
+            DashboardMetricRepository metricRepository,
+            DashboardKPIRepository kpiRepository,
+            KPIService kpiService,
+            CrossDomainIntegrationService integrationService,
+            @Value("${dashboard.summary.snapshot.debounce-ms:500}") long snapshotDebounceMs,
+            @Value("${dashboard.summary.snapshot.max-age-seconds:60}") long snapshotMaxAgeSeconds) {
+        this.metricRepository = metricRepository;
+        this.kpiRepository = kpiRepository;
+        this.kpiService = kpiService;
+        this.integrationService = integrationService;
+        this.summarySnapshots = new SnapshotEngine<>(
+                "dashboard-summary",
+                this::buildDashboardSummary,
+                Duration.ofMillis(snapshotDebounceMs),
+                Duration.ofSeconds(snapshotMaxAgeSeconds));
+    }
 
     /**
      * Get a comprehensive dashboard summary that aggregates data from all domains.
+     * The summary is served from the latest snapshot.
      *
      * @return the aggregated dashboard summary
      */
     @Override
     public CrossDomainSummaryDto getDashboardSummary() {
+        return summarySnapshots.get().getValue();
+    }
+
+    /**
+     * Get the latest snapshot of the dashboard summary, building it first if none exists yet.
+     *
+     * @return the latest dashboard summary snapshot
+     */
+    @Override
+    public Snapshot<CrossDomainSummaryDto> getDashboardSummarySnapshot() {
+        return summarySnapshots.get();
+    }
+
+    /**
+     * Schedule a rebuild of the dashboard summary when an event changes data it is built from.
+     *
+     * @param event the cross-domain event
+     */
+    @EventListener
+    public void onCrossDomainEvent(CrossDomainEvent event) {
+        if (SUMMARY_EVENTS.contains(event.getEventType())) {
+            summarySnapshots.invalidate();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        summarySnapshots.close();
+    }
+
+    /**
+     * Build the dashboard summary from the repositories and the domain status.
+     *
+     * @return the aggregated dashboard summary, with unmodifiable collections
+     */
+    private CrossDomainSummaryDto buildDashboardSummary() {
         log.info("Generating cross-domain dashboard summary");
         
         // Get domain health
@@ -70,17 +147,18 @@ public class CrossDomainDashboardServiceImpl implements CrossDomainDashboardServ
         
         LocalDateTime now = LocalDateTime.now();
         
+        // The summary is shared by every reader of the snapshot
         return CrossDomainSummaryDto.builder()
                 .timestamp(now)
                 .totalMetrics(totalMetrics)
                 .lastUpdated(now.toString())
-                .domainHealth(domainHealth)
-                .courierMetrics(courierMetrics)
-                .socialCommerceMetrics(socialMetrics)
-                .warehousingMetrics(warehousingMetrics)
-                .topKPIs(topKPIs)
-                .insights(insights)
-                .alerts(alerts)
+                .domainHealth(Collections.unmodifiableList(domainHealth))
+                .courierMetrics(Collections.unmodifiableList(courierMetrics))
+                .socialCommerceMetrics(Collections.unmodifiableList(socialMetrics))
+                .warehousingMetrics(Collections.unmodifiableList(warehousingMetrics))
+                .topKPIs(Collections.unmodifiableList(topKPIs))
+                .insights(Collections.unmodifiableMap(insights))
+                .alerts(Collections.unmodifiableList(alerts))
                 .systemHealthScore(systemHealthScore)
                 .build();
     }
@@ -100,8 +178,8 @@ public class CrossDomainDashboardServiceImpl implements CrossDomainDashboardServ
         // Calculate KPIs based on fresh metrics
         kpiService.calculateAllKPIs();
         
-        // Return updated dashboard summary
-        return getDashboardSummary();
+        // Rebuild the snapshot from the fresh data
+        return summarySnapshots.rebuild().getValue();
     }
 
     /**
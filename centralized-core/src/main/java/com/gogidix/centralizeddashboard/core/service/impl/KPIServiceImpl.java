@@ -2,9 +2,10 @@ package com.gogidix.centralizeddashboard.core.service.impl;
 
 import com.gogidix.centralizeddashboard.core.model.DashboardKPI;
 import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.model.MetricAggregate;
 import com.gogidix.centralizeddashboard.core.repository.DashboardKPIRepository;
-import com.gogidix.centralizeddashboard.core.repository.DashboardMetricRepository;
 import com.gogidix.centralizeddashboard.core.service.KPIService;
+import com.gogidix.centralizeddashboard.core.service.MetricAggregateService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
@@ -26,7 +27,7 @@ import java.util.stream.Collectors;
 public class KPIServiceImpl implements KPIService {
 
     private final DashboardKPIRepository kpiRepository;
-    private final DashboardMetricRepository metricRepository;
+    private final MetricAggregateService metricAggregateService;
 
     /**
      * Calculate all KPIs based on the latest metrics.
@@ -336,13 +337,11 @@ public class KPIServiceImpl implements KPIService {
         
         try {
             // Calculate global Revenue KPI
-            List<DashboardMetric> revenueMetrics = metricRepository.findByMetricNameAndSourceDomain(
+            Optional<MetricAggregate> revenueAggregate = metricAggregateService.getAggregate(
                     "revenue", DashboardMetric.SourceDomain.COURIER_SERVICES);
             
-            if (!revenueMetrics.isEmpty()) {
-                double totalRevenue = revenueMetrics.stream()
-                        .mapToDouble(DashboardMetric::getMetricValue)
-                        .sum();
+            if (revenueAggregate.isPresent()) {
+                double totalRevenue = revenueAggregate.get().getSumValue();
                 
                 DashboardKPI revenueKPI = DashboardKPI.builder()
                         .kpiName("Total Revenue")
@@ -358,13 +357,11 @@ public class KPIServiceImpl implements KPIService {
             }
             
             // Calculate global Cost KPI
-            List<DashboardMetric> costMetrics = metricRepository.findByMetricNameAndSourceDomain(
+            Optional<MetricAggregate> costAggregate = metricAggregateService.getAggregate(
                     "operational_cost", DashboardMetric.SourceDomain.COURIER_SERVICES);
             
-            if (!costMetrics.isEmpty()) {
-                double totalCost = costMetrics.stream()
-                        .mapToDouble(DashboardMetric::getMetricValue)
-                        .sum();
+            if (costAggregate.isPresent()) {
+                double totalCost = costAggregate.get().getSumValue();
                 
                 DashboardKPI costKPI = DashboardKPI.builder()
                         .kpiName("Total Operational Cost")
@@ -379,10 +376,8 @@ public class KPIServiceImpl implements KPIService {
                 kpis.add(costKPI);
                 
                 // If we have both revenue and cost, calculate profit
-                if (!revenueMetrics.isEmpty()) {
-                    double totalRevenue = revenueMetrics.stream()
-                            .mapToDouble(DashboardMetric::getMetricValue)
-                            .sum();
+                if (revenueAggregate.isPresent()) {
+                    double totalRevenue = revenueAggregate.get().getSumValue();
                     
                     double profit = totalRevenue - totalCost;
                     
@@ -418,53 +413,45 @@ public class KPIServiceImpl implements KPIService {
         
         try {
             // Calculate Delivery Success Rate KPI based on collected metrics
-            List<DashboardMetric> deliverySuccessMetrics = metricRepository.findByMetricNameAndSourceDomain(
+            Optional<MetricAggregate> deliverySuccessAggregate = metricAggregateService.getAggregate(
                     "global_delivery_success_rate", DashboardMetric.SourceDomain.COURIER_SERVICES);
             
-            if (!deliverySuccessMetrics.isEmpty()) {
+            if (deliverySuccessAggregate.isPresent()) {
                 // Use the latest value
-                DashboardMetric latestMetric = deliverySuccessMetrics.stream()
-                        .max(Comparator.comparing(DashboardMetric::getTimestamp))
-                        .orElse(null);
+                double latestValue = deliverySuccessAggregate.get().getLatestValue();
                 
-                if (latestMetric != null) {
-                    DashboardKPI deliverySuccessKPI = DashboardKPI.builder()
-                            .kpiName("Delivery Success Rate")
-                            .kpiValue(latestMetric.getMetricValue())
-                            .kpiUnit("percent")
-                            .kpiCategory(DashboardKPI.KPICategory.OPERATIONAL)
-                            .kpiStatus(determineKPIStatus(latestMetric.getMetricValue(), 95.0, 98.0))
-                            .timestamp(LocalDateTime.now())
-                            .calculationPeriod(DashboardKPI.CalculationPeriod.DAILY)
-                            .build();
-                    
-                    kpis.add(deliverySuccessKPI);
-                }
+                DashboardKPI deliverySuccessKPI = DashboardKPI.builder()
+                        .kpiName("Delivery Success Rate")
+                        .kpiValue(latestValue)
+                        .kpiUnit("percent")
+                        .kpiCategory(DashboardKPI.KPICategory.OPERATIONAL)
+                        .kpiStatus(determineKPIStatus(latestValue, 95.0, 98.0))
+                        .timestamp(LocalDateTime.now())
+                        .calculationPeriod(DashboardKPI.CalculationPeriod.DAILY)
+                        .build();
+                
+                kpis.add(deliverySuccessKPI);
             }
             
             // Calculate Average Delivery Time KPI
-            List<DashboardMetric> deliveryTimeMetrics = metricRepository.findByMetricNameAndSourceDomain(
+            Optional<MetricAggregate> deliveryTimeAggregate = metricAggregateService.getAggregate(
                     "global_average_delivery_time", DashboardMetric.SourceDomain.COURIER_SERVICES);
             
-            if (!deliveryTimeMetrics.isEmpty()) {
+            if (deliveryTimeAggregate.isPresent()) {
                 // Use the latest value
-                DashboardMetric latestMetric = deliveryTimeMetrics.stream()
-                        .max(Comparator.comparing(DashboardMetric::getTimestamp))
-                        .orElse(null);
+                double latestValue = deliveryTimeAggregate.get().getLatestValue();
                 
-                if (latestMetric != null) {
-                    DashboardKPI deliveryTimeKPI = DashboardKPI.builder()
-                            .kpiName("Average Delivery Time")
-                            .kpiValue(latestMetric.getMetricValue())
-                            .kpiUnit("hours")
-                            .kpiCategory(DashboardKPI.KPICategory.OPERATIONAL)
-                            .kpiStatus(determineKPIStatus(36.0, latestMetric.getMetricValue(), 24.0))  // Lower time is better
-                            .timestamp(LocalDateTime.now())
-                            .calculationPeriod(DashboardKPI.CalculationPeriod.DAILY)
-                            .build();
-                    
-                    kpis.add(deliveryTimeKPI);
-                }
+                DashboardKPI deliveryTimeKPI = DashboardKPI.builder()
+                        .kpiName("Average Delivery Time")
+                        .kpiValue(latestValue)
+                        .kpiUnit("hours")
+                        .kpiCategory(DashboardKPI.KPICategory.OPERATIONAL)
+                        .kpiStatus(determineKPIStatus(36.0, latestValue, 24.0))  // Lower time is better
+                        .timestamp(LocalDateTime.now())
+                        .calculationPeriod(DashboardKPI.CalculationPeriod.DAILY)
+                        .build();
+                
+                kpis.add(deliveryTimeKPI);
             }
             
         } catch (Exception e) {
@@ -513,53 +500,45 @@ public class KPIServiceImpl implements KPIService {
         
         try {
             // Calculate Courier Utilization KPI
-            List<DashboardMetric> utilizationMetrics = metricRepository.findByMetricNameAndSourceDomain(
+            Optional<MetricAggregate> utilizationAggregate = metricAggregateService.getAggregate(
                     "global_courier_utilization", DashboardMetric.SourceDomain.COURIER_SERVICES);
             
-            if (!utilizationMetrics.isEmpty()) {
+            if (utilizationAggregate.isPresent()) {
                 // Use the latest value
-                DashboardMetric latestMetric = utilizationMetrics.stream()
-                        .max(Comparator.comparing(DashboardMetric::getTimestamp))
-                        .orElse(null);
+                double latestValue = utilizationAggregate.get().getLatestValue();
                 
-                if (latestMetric != null) {
-                    DashboardKPI utilizationKPI = DashboardKPI.builder()
-                            .kpiName("Courier Utilization Rate")
-                            .kpiValue(latestMetric.getMetricValue())
-                            .kpiUnit("percent")
-                            .kpiCategory(DashboardKPI.KPICategory.EFFICIENCY)
-                            .kpiStatus(determineKPIStatus(latestMetric.getMetricValue(), 80.0, 90.0))
-                            .timestamp(LocalDateTime.now())
-                            .calculationPeriod(DashboardKPI.CalculationPeriod.DAILY)
-                            .build();
-                    
-                    kpis.add(utilizationKPI);
-                }
+                DashboardKPI utilizationKPI = DashboardKPI.builder()
+                        .kpiName("Courier Utilization Rate")
+                        .kpiValue(latestValue)
+                        .kpiUnit("percent")
+                        .kpiCategory(DashboardKPI.KPICategory.EFFICIENCY)
+                        .kpiStatus(determineKPIStatus(latestValue, 80.0, 90.0))
+                        .timestamp(LocalDateTime.now())
+                        .calculationPeriod(DashboardKPI.CalculationPeriod.DAILY)
+                        .build();
+                
+                kpis.add(utilizationKPI);
             }
             
             // Calculate Driver Efficiency KPI
-            List<DashboardMetric> driverEfficiencyMetrics = metricRepository.findByMetricNameAndSourceDomain(
+            Optional<MetricAggregate> driverEfficiencyAggregate = metricAggregateService.getAggregate(
                     "driver_efficiency", DashboardMetric.SourceDomain.COURIER_SERVICES);
             
-            if (!driverEfficiencyMetrics.isEmpty()) {
+            if (driverEfficiencyAggregate.isPresent()) {
                 // Use the latest value
-                DashboardMetric latestMetric = driverEfficiencyMetrics.stream()
-                        .max(Comparator.comparing(DashboardMetric::getTimestamp))
-                        .orElse(null);
+                double latestValue = driverEfficiencyAggregate.get().getLatestValue();
                 
-                if (latestMetric != null) {
-                    DashboardKPI driverEfficiencyKPI = DashboardKPI.builder()
-                            .kpiName("Driver Efficiency")
-                            .kpiValue(latestMetric.getMetricValue())
-                            .kpiUnit("percent")
-                            .kpiCategory(DashboardKPI.KPICategory.EFFICIENCY)
-                            .kpiStatus(determineKPIStatus(latestMetric.getMetricValue(), 85.0, 95.0))
-                            .timestamp(LocalDateTime.now())
-                            .calculationPeriod(DashboardKPI.CalculationPeriod.DAILY)
-                            .build();
-                    
-                    kpis.add(driverEfficiencyKPI);
-                }
+                DashboardKPI driverEfficiencyKPI = DashboardKPI.builder()
+                        .kpiName("Driver Efficiency")
+                        .kpiValue(latestValue)
+                        .kpiUnit("percent")
+                        .kpiCategory(DashboardKPI.KPICategory.EFFICIENCY)
+                        .kpiStatus(determineKPIStatus(latestValue, 85.0, 95.0))
+                        .timestamp(LocalDateTime.now())
+                        .calculationPeriod(DashboardKPI.CalculationPeriod.DAILY)
+                        .build();
+                
+                kpis.add(driverEfficiencyKPI);
             }
             
         } catch (Exception e) {
@@ -580,14 +559,11 @@ public class KPIServiceImpl implements KPIService {
         
         try {
             // Collect regional on-time delivery metrics to calculate a global average
-            List<DashboardMetric> onTimeDeliveryMetrics = metricRepository.findByMetricNameAndSourceDomain(
+            Optional<MetricAggregate> onTimeDeliveryAggregate = metricAggregateService.getAggregate(
                     "local_on_time_delivery", DashboardMetric.SourceDomain.COURIER_SERVICES);
             
-            if (!onTimeDeliveryMetrics.isEmpty()) {
-                double averageOnTimeDelivery = onTimeDeliveryMetrics.stream()
-                        .mapToDouble(DashboardMetric::getMetricValue)
-                        .average()
-                        .orElse(0.0);
+            if (onTimeDeliveryAggregate.isPresent()) {
+                double averageOnTimeDelivery = onTimeDeliveryAggregate.get().getAverageValue();
                 
                 DashboardKPI onTimeDeliveryKPI = DashboardKPI.builder()
                         .kpiName("Global On-Time Delivery Rate")
@@ -620,28 +596,24 @@ public class KPIServiceImpl implements KPIService {
         
         try {
             // Calculate Fuel Efficiency KPI
-            List<DashboardMetric> fuelConsumptionMetrics = metricRepository.findByMetricNameAndSourceDomain(
+            Optional<MetricAggregate> fuelConsumptionAggregate = metricAggregateService.getAggregate(
                     "fuel_consumption_rate", DashboardMetric.SourceDomain.COURIER_SERVICES);
             
-            if (!fuelConsumptionMetrics.isEmpty()) {
+            if (fuelConsumptionAggregate.isPresent()) {
                 // Use the latest value
-                DashboardMetric latestMetric = fuelConsumptionMetrics.stream()
-                        .max(Comparator.comparing(DashboardMetric::getTimestamp))
-                        .orElse(null);
+                double latestValue = fuelConsumptionAggregate.get().getLatestValue();
                 
-                if (latestMetric != null) {
-                    DashboardKPI fuelEfficiencyKPI = DashboardKPI.builder()
-                            .kpiName("Fuel Consumption Rate")
-                            .kpiValue(latestMetric.getMetricValue())
-                            .kpiUnit("liters/100km")
-                            .kpiCategory(DashboardKPI.KPICategory.SUSTAINABILITY)
-                            .kpiStatus(determineKPIStatus(9.0, latestMetric.getMetricValue(), 6.0))  // Lower consumption is better
-                            .timestamp(LocalDateTime.now())
-                            .calculationPeriod(DashboardKPI.CalculationPeriod.DAILY)
-                            .build();
-                    
-                    kpis.add(fuelEfficiencyKPI);
-                }
+                DashboardKPI fuelEfficiencyKPI = DashboardKPI.builder()
+                        .kpiName("Fuel Consumption Rate")
+                        .kpiValue(latestValue)
+                        .kpiUnit("liters/100km")
+                        .kpiCategory(DashboardKPI.KPICategory.SUSTAINABILITY)
+                        .kpiStatus(determineKPIStatus(9.0, latestValue, 6.0))  // Lower consumption is better
+                        .timestamp(LocalDateTime.now())
+                        .calculationPeriod(DashboardKPI.CalculationPeriod.DAILY)
+                        .build();
+                
+                kpis.add(fuelEfficiencyKPI);
             }
             
         } catch (Exception e) {
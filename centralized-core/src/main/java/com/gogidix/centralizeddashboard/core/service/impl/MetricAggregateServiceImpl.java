@@ -0,0 +1,243 @@
+package com.gogidix.centralizeddashboard.core.service.impl;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.model.MetricAggregate;
+import com.gogidix.centralizeddashboard.core.repository.DashboardMetricRepository;
+import com.gogidix.centralizeddashboard.core.repository.MetricAggregateRepository;
+import com.gogidix.centralizeddashboard.core.service.MetricAggregateService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of the MetricAggregateService interface.
+ * Collected metrics are folded into an in-memory buffer of per-series deltas,
+ * which is periodically merged into the metric_aggregates table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MetricAggregateServiceImpl implements MetricAggregateService {
+
+    private final MetricAggregateRepository aggregateRepository;
+    private final DashboardMetricRepository metricRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Replaced, not cleared, by rebuildFromHistory() so deltas recorded during a rebuild are kept
+    private volatile Map<SeriesKey, MetricAggregate> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Fold newly collected metrics into the running aggregates.
+     *
+     * @param metrics the collected metrics
+     */
+    @Override
+    public void record(List<DashboardMetric> metrics) {
+        for (DashboardMetric metric : metrics) {
+            if (metric.getMetricName() == null || metric.getSourceDomain() == null || metric.getMetricValue() == null) {
+                continue;
+            }
+            MetricAggregate sample = MetricAggregate.of(metric);
+            buffer(sample);
+        }
+    }
+
+    /**
+     * Write buffered updates to the aggregate table, merging each delta into its
+     * stored row with an atomic upsert.
+     * By default, runs every minute.
+     *
+     * @return the number of series written
+     */
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${dashboard.kpi.aggregate-checkpoint-ms:60000}")
+    public int checkpoint() {
+        Map<SeriesKey, MetricAggregate> buffered = pending;
+        List<MetricAggregate> drained = new ArrayList<>();
+        for (SeriesKey key : buffered.keySet()) {
+            MetricAggregate delta = buffered.remove(key);
+            if (delta != null) {
+                drained.add(delta);
+            }
+        }
+
+        if (drained.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            drained.forEach(aggregateRepository::upsert);
+            log.debug("Checkpointed {} metric aggregates", drained.size());
+            return drained.size();
+        } catch (Exception e) {
+            // Put the deltas back so that they are retried on the next checkpoint
+            log.error("Error checkpointing metric aggregates, {} series will be retried", drained.size(), e);
+            drained.forEach(this::buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * Get the aggregate of a metric across all regions.
+     *
+     * @param metricName the name of the metric
+     * @param sourceDomain the source domain
+     * @return the aggregate, or empty if the metric has never been collected
+     */
+    @Override
+    public Optional<MetricAggregate> getAggregate(String metricName, DashboardMetric.SourceDomain sourceDomain) {
+        MetricAggregate combined = null;
+
+        for (MetricAggregate stored : aggregateRepository.findByMetricNameAndSourceDomain(metricName, sourceDomain)) {
+            combined = mergeInto(combined, stored);
+        }
+
+        Map<SeriesKey, MetricAggregate> buffered = pending;
+        for (SeriesKey key : buffered.keySet()) {
+            if (key.getMetricName().equals(metricName) && key.getSourceDomain() == sourceDomain) {
+                MetricAggregate[] holder = {combined};
+                // Read under the map's per-key lock so a concurrent record() is not seen half-applied
+                buffered.computeIfPresent(key, (k, delta) -> {
+                    holder[0] = mergeInto(holder[0], delta);
+                    return delta;
+                });
+                combined = holder[0];
+            }
+        }
+
+        return Optional.ofNullable(combined);
+    }
+
+    /**
+     * Rebuild the aggregate table from the full metric history in two grouped queries.
+     * Deltas buffered before the rebuild are covered by the history and are discarded,
+     * unless the rebuild fails; deltas recorded while it runs are kept for the next checkpoint.
+     *
+     * @return the number of series rebuilt
+     */
+    @Override
+    @Transactional
+    public int rebuildFromHistory() {
+        log.info("Rebuilding metric aggregates from metric history");
+        Map<SeriesKey, MetricAggregate> discarded = pending;
+        pending = new ConcurrentHashMap<>();
+
+        try {
+            aggregateRepository.deleteAllInBatch();
+
+            Map<SeriesKey, Double> latestValues = new HashMap<>();
+            for (DashboardMetric latest : metricRepository.findLatestMetricOfEachSeries()) {
+                latestValues.put(SeriesKey.of(latest.getMetricName(), latest.getSourceDomain(),
+                        MetricAggregate.regionKey(latest.getRegion())), latest.getMetricValue());
+            }
+
+            List<MetricAggregate> aggregates = new ArrayList<>();
+            for (Object[] row : metricRepository.summarizeMetricSeries()) {
+                SeriesKey key = SeriesKey.of((String) row[0], (DashboardMetric.SourceDomain) row[1],
+                        MetricAggregate.regionKey((String) row[2]));
+
+                aggregates.add(MetricAggregate.builder()
+                        .metricName(key.getMetricName())
+                        .sourceDomain(key.getSourceDomain())
+                        .region(key.getRegion())
+                        .sampleCount(((Number) row[3]).longValue())
+                        .sumValue(((Number) row[4]).doubleValue())
+                        .minValue(((Number) row[5]).doubleValue())
+                        .maxValue(((Number) row[6]).doubleValue())
+                        .latestValue(latestValues.getOrDefault(key, 0.0))
+                        .latestTimestamp((LocalDateTime) row[7])
+                        .build());
+            }
+
+            aggregateRepository.saveAll(aggregates);
+            log.info("Rebuilt {} metric aggregates from metric history", aggregates.size());
+            return aggregates.size();
+        } catch (RuntimeException e) {
+            // The stored aggregates are rolled back, so the discarded deltas still have to be written
+            discarded.values().forEach(this::buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * Seed the aggregate table on startup when metrics exist but no aggregates
+     * have been recorded yet, e.g. right after the table was introduced.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void seedAggregatesIfEmpty() {
+        if (aggregateRepository.count() == 0 && metricRepository.count() > 0) {
+            rebuildFromHistory();
+        }
+    }
+
+    /**
+     * Flush buffered updates on shutdown so they are not lost.
+     * Runs through the transaction template, since calling checkpoint() on this
+     * bypasses its @Transactional proxy.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> checkpoint());
+        } catch (Exception e) {
+            log.warn("Could not checkpoint metric aggregates on shutdown", e);
+        }
+    }
+
+    private void buffer(MetricAggregate delta) {
+        pending.merge(SeriesKey.from(delta), delta, (current, update) -> {
+            current.merge(update);
+            return current;
+        });
+    }
+
+    private static MetricAggregate mergeInto(MetricAggregate target, MetricAggregate source) {
+        if (target == null) {
+            // Copy so that managed entities and buffered deltas are never mutated by reads
+            return MetricAggregate.builder()
+                    .metricName(source.getMetricName())
+                    .sourceDomain(source.getSourceDomain())
+                    .region(source.getRegion())
+                    .sampleCount(source.getSampleCount())
+                    .sumValue(source.getSumValue())
+                    .minValue(source.getMinValue())
+                    .maxValue(source.getMaxValue())
+                    .latestValue(source.getLatestValue())
+                    .latestTimestamp(source.getLatestTimestamp())
+                    .build();
+        }
+        target.merge(source);
+        return target;
+    }
+
+    /**
+     * Identity of a metric series.
+     */
+    @Value(staticConstructor = "of")
+    private static class SeriesKey {
+        String metricName;
+        DashboardMetric.SourceDomain sourceDomain;
+        String region;
+
+        static SeriesKey from(MetricAggregate aggregate) {
+            return SeriesKey.of(aggregate.getMetricName(), aggregate.getSourceDomain(), aggregate.getRegion());
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.gogidix.centralizeddashboard.core.service.impl;
 
 import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
 import com.gogidix.centralizeddashboard.core.repository.DashboardMetricRepository;
+import com.gogidix.centralizeddashboard.core.service.MetricAggregateService;
 import com.gogidix.centralizeddashboard.core.service.MetricCollectorService;
+import com.gogidix.centralizeddashboard.core.service.MetricTimeSeriesService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,6 +30,8 @@ public class MetricCollectorServiceImpl implements MetricCollectorService {
 
     private final DashboardMetricRepository metricRepository;
     private final RestTemplate restTemplate;
+    private final MetricAggregateService metricAggregateService;
+    private final MetricTimeSeriesService metricTimeSeriesService;
     
     @Value("${service.social-commerce.url}")
     private String socialCommerceServiceUrl;
@@ -59,6 +63,14 @@ public class MetricCollectorServiceImpl implements MetricCollectorService {
         metricRepository.saveAll(warehousingMetrics);
         metricRepository.saveAll(courierMetrics);
         
+        // Fold the new samples into the running KPI aggregates and the trend time series
+        metricAggregateService.record(socialCommerceMetrics);
+        metricAggregateService.record(warehousingMetrics);
+        metricAggregateService.record(courierMetrics);
+        metricTimeSeriesService.record(socialCommerceMetrics);
+        metricTimeSeriesService.record(warehousingMetrics);
+        metricTimeSeriesService.record(courierMetrics);
+        
         // Record the count of metrics collected from each domain
         results.put(DashboardMetric.SourceDomain.SOCIAL_COMMERCE, socialCommerceMetrics.size());
         results.put(DashboardMetric.SourceDomain.WAREHOUSING, warehousingMetrics.size());
@@ -258,6 +270,8 @@ public class MetricCollectorServiceImpl implements MetricCollectorService {
         }
         
         metricRepository.saveAll(metrics);
+        metricAggregateService.record(metrics);
+        metricTimeSeriesService.record(metrics);
         log.info("Refreshed {} metrics for domain {}", metrics.size(), domain);
         return metrics.size();
     }
@@ -281,7 +295,10 @@ public class MetricCollectorServiceImpl implements MetricCollectorService {
     @Override
     public DashboardMetric saveMetric(DashboardMetric metric) {
         log.debug("Saving metric: {}", metric.getMetricName());
-        return metricRepository.save(metric);
+        DashboardMetric saved = metricRepository.save(metric);
+        metricAggregateService.record(List.of(saved));
+        metricTimeSeriesService.record(List.of(saved));
+        return saved;
     }
 
     /**
@@ -0,0 +1,189 @@
+package com.gogidix.centralizeddashboard.core.service.impl;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.repository.DashboardMetricRepository;
+import com.gogidix.centralizeddashboard.core.service.MetricTimeSeriesService;
+import com.gogidix.centralizeddashboard.core.timeseries.DownsampledSeries;
+import com.gogidix.centralizeddashboard.core.timeseries.SeriesKey;
+import com.gogidix.centralizeddashboard.core.timeseries.TimeSeriesStore;
+import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.Predicate;
+
+/**
+ * Implementation of the MetricTimeSeriesService interface on the embedded {@link TimeSeriesStore}.
+ * Metric timestamps are local date-times; they are stored as if in UTC, so that daily buckets
+ * match the dates of the timestamps, as {@code DATE(timestamp)} does in the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MetricTimeSeriesServiceImpl implements MetricTimeSeriesService {
+
+    private static final int HISTORY_PAGE_SIZE = 10_000;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final TimeSeriesStore timeSeriesStore;
+    private final DashboardMetricRepository metricRepository;
+
+    /**
+     * Time of the latest point persisted by the store, and id of the latest metric of the history,
+     * both taken before any metric is recorded; the history between the two is loaded on startup
+     */
+    private LocalDateTime historyCutoff = EPOCH;
+    private long historyLastId;
+
+    /**
+     * Take the range of the history to load before web requests and scheduled collection can record
+     * metrics, which would move the latest point of the store past the metrics still missing from it.
+     */
+    @PostConstruct
+    public void captureHistoryRange() {
+        OptionalLong latest = timeSeriesStore.latestTimestamp();
+        historyCutoff = latest.isPresent() ? toLocalDateTime(latest.getAsLong()) : EPOCH;
+        DashboardMetric last = metricRepository.findTopByOrderByIdDesc();
+        historyLastId = last != null ? last.getId() : 0;
+    }
+
+    /**
+     * Add newly collected metrics to their time series.
+     *
+     * @param metrics the collected metrics
+     */
+    @Override
+    public void record(List<DashboardMetric> metrics) {
+        for (DashboardMetric metric : metrics) {
+            if (metric.getMetricName() == null || metric.getSourceDomain() == null
+                    || metric.getMetricValue() == null || metric.getTimestamp() == null) {
+                continue;
+            }
+            timeSeriesStore.append(SeriesKey.from(metric), toEpochMillis(metric.getTimestamp()), metric.getMetricValue());
+        }
+    }
+
+    /**
+     * Get the average value of a metric per day, across all regions.
+     *
+     * @param metricName the name of the metric
+     * @param sourceDomain the source domain
+     * @param startTime the start time of the range, inclusive
+     * @param endTime the end time of the range, inclusive
+     * @return the average per day with metrics, in ascending order of day
+     */
+    @Override
+    public Map<LocalDate, Double> getAverageMetricValueByDay(String metricName, DashboardMetric.SourceDomain sourceDomain,
+                                                             LocalDateTime startTime, LocalDateTime endTime) {
+        Map<LocalDate, Double> averages = new LinkedHashMap<>();
+        if (endTime.isBefore(startTime)) {
+            return averages;
+        }
+        DownsampledSeries days = downsample(metricName, sourceDomain, null, startTime, endTime, Duration.ofDays(1));
+        for (int i = 0; i < days.size(); i++) {
+            if (days.getCount(i) > 0) {
+                averages.put(toLocalDateTime(days.getBucketStart(i)).toLocalDate(), days.getAverage(i));
+            }
+        }
+        return averages;
+    }
+
+    /**
+     * Roll a metric up into intervals of equal length.
+     *
+     * @param metricName the name of the metric
+     * @param sourceDomain the source domain
+     * @param region the region, or null for all regions
+     * @param startTime the start time of the range, inclusive
+     * @param endTime the end time of the range, inclusive
+     * @param interval the length of an interval
+     * @return the count, sum, minimum and maximum of every interval
+     */
+    @Override
+    public DownsampledSeries downsample(String metricName, DashboardMetric.SourceDomain sourceDomain, String region,
+                                        LocalDateTime startTime, LocalDateTime endTime, Duration interval) {
+        Predicate<SeriesKey> selector = key -> key.getMetricName().equals(metricName)
+                && key.getSourceDomain() == sourceDomain
+                && (region == null || key.getRegion().equals(region));
+        return timeSeriesStore.downsample(selector, toEpochMillis(startTime), toEpochMillis(endTime) + 1, interval);
+    }
+
+    /**
+     * Persist ended time partitions and drop those beyond the retention.
+     * By default, runs every minute.
+     *
+     * @return the number of segment files written
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${dashboard.timeseries.flush-ms:60000}")
+    public int flush() {
+        int written = timeSeriesStore.flush();
+        if (written > 0) {
+            log.debug("Wrote {} time-series segments", written);
+        }
+        return written;
+    }
+
+    /**
+     * Load the metrics stored before startup and newer than the latest point the store had then
+     * from the metric history, reading the table in pages by ascending id. Metrics stored since
+     * startup are left out, as they were recorded into the store when collected.
+     *
+     * @return the number of metrics loaded
+     */
+    @Override
+    public int loadFromHistory() {
+        LocalDateTime after = historyCutoff;
+        log.info("Loading metric history after {} up to id {} into the time-series store", after, historyLastId);
+
+        int loaded = 0;
+        long lastId = 0;
+        List<DashboardMetric> page;
+        do {
+            page = metricRepository.findByIdGreaterThanAndIdLessThanEqualAndTimestampAfterOrderByIdAsc(
+                    lastId, historyLastId, after, PageRequest.of(0, HISTORY_PAGE_SIZE));
+            record(page);
+            loaded += page.size();
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == HISTORY_PAGE_SIZE);
+
+        log.info("Loaded {} metrics into the time-series store", loaded);
+        return loaded;
+    }
+
+    /**
+     * Seed the store on startup, or catch up with metrics recorded after its last flush.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHistoryOnStartup() {
+        try {
+            loadFromHistory();
+        } catch (Exception e) {
+            log.error("Could not load metric history into the time-series store", e);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+}
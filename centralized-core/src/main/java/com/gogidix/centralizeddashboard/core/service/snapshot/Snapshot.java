@@ -0,0 +1,58 @@
+package com.gogidix.centralizeddashboard.core.service.snapshot;
+
+import java.time.Instant;
+
+/**
+ * Immutable, versioned result of one build of a precomputed view.
+ * The value is shared by every reader of the snapshot and must not be modified.
+ *
+ * @param <T> the type of the precomputed view
+ */
+public final class Snapshot<T> {
+
+    private final long version;
+    private final Instant builtAt;
+    private final T value;
+
+    Snapshot(long version, Instant builtAt, T value) {
+        this.version = version;
+        this.builtAt = builtAt;
+        this.value = value;
+    }
+
+    /**
+     * Version of the snapshot, increasing with every build.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Time at which the build of this snapshot started.
+     *
+     * @return the build time
+     */
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * The precomputed view.
+     *
+     * @return the value
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Entity tag identifying this snapshot in HTTP responses.
+     *
+     * @return the quoted entity tag
+     */
+    public String getETag() {
+        return "\"" + Long.toHexString(version) + "\"";
+    }
+}
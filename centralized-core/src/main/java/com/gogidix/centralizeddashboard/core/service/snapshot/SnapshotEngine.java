@@ -0,0 +1,133 @@
+package com.gogidix.centralizeddashboard.core.service.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the latest snapshot of an expensive view, so that readers get it in constant time.
+ * <p>
+ * The view is built on first read, on {@link #rebuild()}, and in the background after
+ * {@link #invalidate()}. Invalidations arriving within the debounce delay share a single rebuild.
+ * A snapshot older than the maximum age is still served, but also triggers a background rebuild,
+ * which keeps time-dependent parts of the view current when nothing invalidates it.
+ * Readers keep getting the previous snapshot while a rebuild runs, and a failed background
+ * rebuild leaves it in place.
+ *
+ * @param <T> the type of the precomputed view
+ */
+@Slf4j
+public class SnapshotEngine<T> implements AutoCloseable {
+
+    private final String name;
+    private final Supplier<T> builder;
+    private final Duration debounce;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final Object buildLock = new Object();
+    private volatile Snapshot<T> current;
+    private long lastVersion;
+
+    /**
+     * @param name name of the view, used for logging and the rebuild thread
+     * @param builder builds the view from scratch
+     * @param debounce delay between an invalidation and the rebuild it triggers
+     * @param maxAge age after which a snapshot is rebuilt even without an invalidation
+     */
+    public SnapshotEngine(String name, Supplier<T> builder, Duration debounce, Duration maxAge) {
+        this(name, builder, debounce, maxAge, Clock.systemUTC());
+    }
+
+    SnapshotEngine(String name, Supplier<T> builder, Duration debounce, Duration maxAge, Clock clock) {
+        this.name = name;
+        this.builder = builder;
+        this.debounce = debounce;
+        this.maxAge = maxAge;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the latest snapshot, building it first if none exists yet.
+     *
+     * @return the latest snapshot
+     */
+    public Snapshot<T> get() {
+        Snapshot<T> snapshot = current;
+        if (snapshot == null) {
+            synchronized (buildLock) {
+                // Concurrent first readers wait for a single build
+                snapshot = current;
+                if (snapshot == null) {
+                    snapshot = build();
+                }
+            }
+        } else if (snapshot.getBuiltAt().plus(maxAge).isBefore(clock.instant())) {
+            invalidate();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Build a new snapshot now and make it current.
+     *
+     * @return the new snapshot
+     */
+    public Snapshot<T> rebuild() {
+        synchronized (buildLock) {
+            return build();
+        }
+    }
+
+    /**
+     * Mark the current snapshot as outdated and schedule a background rebuild.
+     * Returns immediately; readers get the current snapshot until the rebuild completes.
+     */
+    public void invalidate() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::rebuildInBackground, debounce.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void rebuildInBackground() {
+        // Clear the flag first, so that invalidations during the build schedule another one
+        rebuildScheduled.set(false);
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild {} snapshot, keeping version {}", name,
+                    current != null ? current.getVersion() : null, e);
+        }
+    }
+
+    private Snapshot<T> build() {
+        Instant builtAt = clock.instant();
+        long startNanos = System.nanoTime();
+        T value = builder.get();
+        // Versions must increase even if the clock goes backwards
+        lastVersion = Math.max(lastVersion + 1, builtAt.toEpochMilli());
+        Snapshot<T> snapshot = new Snapshot<>(lastVersion, builtAt, value);
+        current = snapshot;
+        log.debug("Built {} snapshot version {} in {} ms", name, snapshot.getVersion(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return snapshot;
+    }
+}
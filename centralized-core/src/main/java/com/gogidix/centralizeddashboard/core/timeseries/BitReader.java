@@ -0,0 +1,39 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+/**
+ * Reads bits, most significant first, from the words written by a {@link BitWriter}.
+ */
+final class BitReader {
+
+    private final long[] words;
+    private long position;
+
+    BitReader(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Read the next bits as the lowest bits of a value.
+     *
+     * @param bits the number of bits to read, from 1 to 64
+     * @return the value
+     */
+    long readBits(int bits) {
+        int index = (int) (position >>> 6);
+        int offset = (int) (position & 63);
+        int available = 64 - offset;
+        long value = (words[index] << offset) >>> (64 - bits);
+        if (bits > available) {
+            value |= words[index + 1] >>> (64 - (bits - available));
+        }
+        position += bits;
+        return value;
+    }
+
+    boolean readBit() {
+        int index = (int) (position >>> 6);
+        int offset = (int) (position & 63);
+        position++;
+        return ((words[index] << offset) & Long.MIN_VALUE) != 0;
+    }
+}
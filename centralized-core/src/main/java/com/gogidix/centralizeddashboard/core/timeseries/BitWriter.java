@@ -0,0 +1,63 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Appends bits, most significant first, to a growing array of words.
+ */
+final class BitWriter {
+
+    private long[] words;
+    private long size;
+
+    BitWriter(int expectedBits) {
+        this.words = new long[Math.max(1, (expectedBits + 63) >>> 6)];
+    }
+
+    /**
+     * Append the lowest bits of a value.
+     *
+     * @param value the value
+     * @param bits the number of bits to append, from 1 to 64
+     */
+    void writeBits(long value, int bits) {
+        if (bits < 64) {
+            value &= (1L << bits) - 1;
+        }
+        int index = (int) (size >>> 6);
+        int free = 64 - (int) (size & 63);
+        ensureCapacity(index + 2);
+        if (bits <= free) {
+            words[index] |= value << (free - bits);
+        } else {
+            int spill = bits - free;
+            words[index] |= value >>> spill;
+            words[index + 1] |= value << (64 - spill);
+        }
+        size += bits;
+    }
+
+    void writeBit(boolean bit) {
+        if (bit) {
+            writeBits(1, 1);
+        } else {
+            size++;
+            ensureCapacity((int) (size >>> 6) + 1);
+        }
+    }
+
+    /**
+     * Get the written bits, padded with zeros to whole words.
+     *
+     * @return the words holding every written bit
+     */
+    long[] toWords() {
+        return Arrays.copyOf(words, (int) ((size + 63) >>> 6));
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > words.length) {
+            words = Arrays.copyOf(words, Math.max(required, words.length * 2));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+/**
+ * A sealed chunk of one series, held in memory or in a segment file.
+ * The statistics are always in memory, so that queries covering a whole chunk never decode it.
+ */
+interface ChunkHandle {
+
+    int count();
+
+    long minTimestamp();
+
+    long maxTimestamp();
+
+    double sum();
+
+    double min();
+
+    double max();
+
+    /**
+     * Get the compressed points, reading them from disk if necessary.
+     *
+     * @return the chunk
+     */
+    GorillaChunk load();
+}
@@ -0,0 +1,79 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+/**
+ * Points of one or more series rolled up into consecutive, equally long time buckets, as parallel columns.
+ * Buckets are aligned to multiples of their length since the epoch, so daily buckets start at midnight UTC.
+ * Buckets without points have a count of zero and a NaN minimum and maximum.
+ */
+public final class DownsampledSeries {
+
+    private final long origin;
+    private final long bucketMillis;
+    private final long[] counts;
+    private final double[] sums;
+    private final double[] mins;
+    private final double[] maxs;
+
+    DownsampledSeries(long origin, long bucketMillis, long[] counts, double[] sums, double[] mins, double[] maxs) {
+        this.origin = origin;
+        this.bucketMillis = bucketMillis;
+        this.counts = counts;
+        this.sums = sums;
+        this.mins = mins;
+        this.maxs = maxs;
+    }
+
+    /**
+     * Get the number of buckets.
+     *
+     * @return the number of buckets
+     */
+    public int size() {
+        return counts.length;
+    }
+
+    /**
+     * Get the length of every bucket.
+     *
+     * @return the length in milliseconds
+     */
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    /**
+     * Get the start of a bucket.
+     *
+     * @param index the index of the bucket
+     * @return the start in epoch milliseconds
+     */
+    public long getBucketStart(int index) {
+        return origin + index * bucketMillis;
+    }
+
+    public long getCount(int index) {
+        return counts[index];
+    }
+
+    public double getSum(int index) {
+        return sums[index];
+    }
+
+    public double getMin(int index) {
+        return mins[index];
+    }
+
+    public double getMax(int index) {
+        return maxs[index];
+    }
+
+    /**
+     * Get the mean of the points in a bucket.
+     *
+     * @param index the index of the bucket
+     * @return the mean, or NaN if the bucket has no points
+     */
+    public double getAverage(int index) {
+        return counts[index] > 0 ? sums[index] / counts[index] : Double.NaN;
+    }
+}
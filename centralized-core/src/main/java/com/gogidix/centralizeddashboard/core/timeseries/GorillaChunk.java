@@ -0,0 +1,214 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+/**
+ * Immutable block of points of one series, sorted by timestamp and compressed as in Facebook's Gorilla:
+ * timestamps as delta-of-delta, values as the XOR with the previous value.
+ * <p>
+ * Regular collection intervals make most timestamps a single bit, and unchanged or slowly changing
+ * values a single bit or a few meaningful bits, so a chunk typically needs 1 to 4 bytes per point
+ * instead of the 16 bytes of the raw timestamp and value.
+ */
+final class GorillaChunk implements ChunkHandle {
+
+    private final long[] data;
+    private final int count;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    GorillaChunk(long[] data, int count, long minTimestamp, long maxTimestamp, double sum, double min, double max) {
+        this.data = data;
+        this.count = count;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Compress points sorted by timestamp.
+     *
+     * @param timestamps the timestamps in epoch milliseconds, in ascending order
+     * @param values the values
+     * @param count the number of points, at least one
+     * @return the chunk
+     */
+    static GorillaChunk encode(long[] timestamps, double[] values, int count) {
+        BitWriter writer = new BitWriter(count * 16 + 128);
+        long previousTimestamp = timestamps[0];
+        long previousDelta = 0;
+        long previousBits = Double.doubleToRawLongBits(values[0]);
+        int previousLeading = Integer.MAX_VALUE;
+        int previousTrailing = 0;
+        double sum = values[0];
+        double min = values[0];
+        double max = values[0];
+
+        writer.writeBits(previousTimestamp, 64);
+        writer.writeBits(previousBits, 64);
+
+        for (int i = 1; i < count; i++) {
+            long delta = timestamps[i] - previousTimestamp;
+            writeDeltaOfDelta(writer, delta - previousDelta);
+            previousTimestamp = timestamps[i];
+            previousDelta = delta;
+
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previousBits;
+            if (xor == 0) {
+                writer.writeBit(false);
+            } else {
+                writer.writeBit(true);
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (leading >= previousLeading && trailing >= previousTrailing) {
+                    // The meaningful bits fit in the window of the previous value
+                    writer.writeBit(false);
+                    writer.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                } else {
+                    int meaningful = 64 - leading - trailing;
+                    writer.writeBit(true);
+                    writer.writeBits(leading, 5);
+                    writer.writeBits(meaningful, 6); // 64 wraps to 0
+                    writer.writeBits(xor >>> trailing, meaningful);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previousBits = bits;
+
+            sum += values[i];
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+
+        return new GorillaChunk(writer.toWords(), count, timestamps[0], previousTimestamp, sum, min, max);
+    }
+
+    /**
+     * Decompress every point of the chunk.
+     *
+     * @param timestamps receives the timestamps, at least {@link #count()} long
+     * @param values receives the values, at least {@link #count()} long
+     */
+    void decode(long[] timestamps, double[] values) {
+        BitReader reader = new BitReader(data);
+        long timestamp = reader.readBits(64);
+        long bits = reader.readBits(64);
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        timestamps[0] = timestamp;
+        values[0] = Double.longBitsToDouble(bits);
+
+        for (int i = 1; i < count; i++) {
+            delta += readDeltaOfDelta(reader);
+            timestamp += delta;
+            timestamps[i] = timestamp;
+
+            if (reader.readBit()) {
+                if (reader.readBit()) {
+                    leading = (int) reader.readBits(5);
+                    int meaningful = (int) reader.readBits(6);
+                    if (meaningful == 0) {
+                        meaningful = 64;
+                    }
+                    trailing = 64 - leading - meaningful;
+                }
+                bits ^= reader.readBits(64 - leading - trailing) << trailing;
+            }
+            values[i] = Double.longBitsToDouble(bits);
+        }
+    }
+
+    private static void writeDeltaOfDelta(BitWriter writer, long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            writer.writeBit(false);
+        } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+            writer.writeBits(0b10, 2);
+            writer.writeBits(deltaOfDelta, 7);
+        } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+            writer.writeBits(0b110, 3);
+            writer.writeBits(deltaOfDelta, 9);
+        } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+            writer.writeBits(0b1110, 4);
+            writer.writeBits(deltaOfDelta, 12);
+        } else {
+            // Millisecond timestamps of irregular samples need more than Gorilla's 32 bits
+            writer.writeBits(0b1111, 4);
+            writer.writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader reader) {
+        if (!reader.readBit()) {
+            return 0;
+        }
+        if (!reader.readBit()) {
+            return signExtend(reader.readBits(7), 7);
+        }
+        if (!reader.readBit()) {
+            return signExtend(reader.readBits(9), 9);
+        }
+        if (!reader.readBit()) {
+            return signExtend(reader.readBits(12), 12);
+        }
+        return reader.readBits(64);
+    }
+
+    private static long signExtend(long value, int bits) {
+        long shift = 64 - bits;
+        return (value << shift) >> shift;
+    }
+
+    long[] data() {
+        return data;
+    }
+
+    /**
+     * Approximate heap size of the chunk, including the compressed points.
+     *
+     * @return the size in bytes
+     */
+    long residentBytes() {
+        return 64 + 16 + data.length * 8L;
+    }
+
+    @Override
+    public int count() {
+        return count;
+    }
+
+    @Override
+    public long minTimestamp() {
+        return minTimestamp;
+    }
+
+    @Override
+    public long maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    @Override
+    public double sum() {
+        return sum;
+    }
+
+    @Override
+    public double min() {
+        return min;
+    }
+
+    @Override
+    public double max() {
+        return max;
+    }
+
+    @Override
+    public GorillaChunk load() {
+        return this;
+    }
+}
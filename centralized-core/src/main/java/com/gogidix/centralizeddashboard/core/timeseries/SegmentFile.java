@@ -0,0 +1,274 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable file holding the sealed chunks of every series of one time partition.
+ * <p>
+ * The file starts with the compressed points of all chunks, followed by an index of the series with
+ * the position and statistics of each of their chunks, and ends with the position of the index.
+ * Opening a segment reads only the index; chunk points are read when a query needs them.
+ */
+final class SegmentFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x44545331; // "DTS1"
+    private static final int FOOTER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<SeriesKey, List<ChunkHandle>> chunks;
+
+    private SegmentFile(Path path, FileChannel channel, Map<SeriesKey, List<ChunkHandle>> chunks) {
+        this.path = path;
+        this.channel = channel;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Write chunks to a new segment file, atomically replacing any file at the path.
+     *
+     * @param path the path of the segment
+     * @param chunks the chunks of each series
+     * @return the open segment
+     */
+    static SegmentFile write(Path path, Map<SeriesKey, List<ChunkHandle>> chunks) {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            long[][] positions = new long[chunks.size()][];
+            int[][] words = new int[chunks.size()][];
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                long position = Integer.BYTES;
+
+                // Points first, loading one chunk at a time when compacting segments
+                int series = 0;
+                for (List<ChunkHandle> handles : chunks.values()) {
+                    positions[series] = new long[handles.size()];
+                    words[series] = new int[handles.size()];
+                    for (int i = 0; i < handles.size(); i++) {
+                        long[] data = handles.get(i).load().data();
+                        positions[series][i] = position;
+                        words[series][i] = data.length;
+                        for (long word : data) {
+                            out.writeLong(word);
+                        }
+                        position += data.length * (long) Long.BYTES;
+                    }
+                    series++;
+                }
+
+                long indexPosition = position;
+                out.writeInt(chunks.size());
+                series = 0;
+                for (Map.Entry<SeriesKey, List<ChunkHandle>> entry : chunks.entrySet()) {
+                    SeriesKey key = entry.getKey();
+                    out.writeUTF(key.getMetricName());
+                    out.writeUTF(key.getSourceDomain().name());
+                    out.writeUTF(key.getRegion());
+                    out.writeInt(entry.getValue().size());
+                    for (int i = 0; i < entry.getValue().size(); i++) {
+                        ChunkHandle chunk = entry.getValue().get(i);
+                        out.writeLong(positions[series][i]);
+                        out.writeInt(words[series][i]);
+                        out.writeInt(chunk.count());
+                        out.writeLong(chunk.minTimestamp());
+                        out.writeLong(chunk.maxTimestamp());
+                        out.writeDouble(chunk.sum());
+                        out.writeDouble(chunk.min());
+                        out.writeDouble(chunk.max());
+                    }
+                    series++;
+                }
+                out.writeLong(indexPosition);
+                out.writeInt(MAGIC);
+            }
+            try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                file.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException("Could not write time-series segment " + path, e);
+        }
+        return open(path);
+    }
+
+    /**
+     * Open a segment file and read its index.
+     *
+     * @param path the path of the segment
+     * @return the open segment
+     */
+    static SegmentFile open(Path path) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            long size = channel.size();
+            if (size < Integer.BYTES + FOOTER_BYTES) {
+                throw new IOException("Not a time-series segment");
+            }
+            ByteBuffer footer = read(channel, size - FOOTER_BYTES, FOOTER_BYTES);
+            long indexPosition = footer.getLong();
+            if (footer.getInt() != MAGIC) {
+                throw new IOException("Not a time-series segment");
+            }
+
+            Map<SeriesKey, List<ChunkHandle>> chunks = new LinkedHashMap<>();
+            SegmentFile segment = new SegmentFile(path, channel, Collections.unmodifiableMap(chunks));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(indexPosition)), 1 << 16));
+            int seriesCount = in.readInt();
+            for (int series = 0; series < seriesCount; series++) {
+                SeriesKey key = SeriesKey.of(in.readUTF(), DashboardMetric.SourceDomain.valueOf(in.readUTF()), in.readUTF());
+                int chunkCount = in.readInt();
+                List<ChunkHandle> handles = new ArrayList<>(chunkCount);
+                for (int i = 0; i < chunkCount; i++) {
+                    handles.add(segment.new StoredChunk(in.readLong(), in.readInt(), in.readInt(), in.readLong(),
+                            in.readLong(), in.readDouble(), in.readDouble(), in.readDouble()));
+                }
+                chunks.put(key, Collections.unmodifiableList(handles));
+            }
+            return segment;
+        } catch (IOException | IllegalArgumentException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new UncheckedIOException("Could not open time-series segment " + path,
+                    e instanceof IOException io ? io : new IOException(e));
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    Map<SeriesKey, List<ChunkHandle>> chunks() {
+        return chunks;
+    }
+
+    /**
+     * Close the file and delete it.
+     */
+    void delete() {
+        close();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete time-series segment " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close time-series segment " + path, e);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of time-series segment");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Chunk whose statistics are in memory and whose points are read from the segment on demand.
+     */
+    private final class StoredChunk implements ChunkHandle {
+
+        private final long position;
+        private final int words;
+        private final int count;
+        private final long minTimestamp;
+        private final long maxTimestamp;
+        private final double sum;
+        private final double min;
+        private final double max;
+
+        private StoredChunk(long position, int words, int count, long minTimestamp, long maxTimestamp,
+                            double sum, double min, double max) {
+            this.position = position;
+            this.words = words;
+            this.count = count;
+            this.minTimestamp = minTimestamp;
+            this.maxTimestamp = maxTimestamp;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public GorillaChunk load() {
+            try {
+                long[] data = new long[words];
+                read(channel, position, words * Long.BYTES).asLongBuffer().get(data);
+                return new GorillaChunk(data, count, minTimestamp, maxTimestamp, sum, min, max);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read time-series segment " + path, e);
+            }
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public long minTimestamp() {
+            return minTimestamp;
+        }
+
+        @Override
+        public long maxTimestamp() {
+            return maxTimestamp;
+        }
+
+        @Override
+        public double sum() {
+            return sum;
+        }
+
+        @Override
+        public double min() {
+            return min;
+        }
+
+        @Override
+        public double max() {
+            return max;
+        }
+    }
+}
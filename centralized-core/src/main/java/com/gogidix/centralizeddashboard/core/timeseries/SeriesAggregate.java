@@ -0,0 +1,25 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+import lombok.Value;
+
+/**
+ * Count, sum, minimum and maximum of the points of one or more series in a time range.
+ * The minimum and maximum of an empty aggregate are NaN.
+ */
+@Value
+public class SeriesAggregate {
+
+    long count;
+    double sum;
+    double min;
+    double max;
+
+    /**
+     * Get the mean of the points.
+     *
+     * @return the mean, or NaN if there are no points
+     */
+    public double getAverage() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+}
@@ -0,0 +1,28 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.model.MetricAggregate;
+import lombok.Value;
+
+/**
+ * Identifies one series of the time-series store: a metric of a source domain in a region.
+ * Metrics without a region belong to the series with region {@link MetricAggregate#NO_REGION}.
+ */
+@Value(staticConstructor = "of")
+public class SeriesKey {
+
+    String metricName;
+    DashboardMetric.SourceDomain sourceDomain;
+    String region;
+
+    /**
+     * Get the series of a metric.
+     *
+     * @param metric the metric, with a name and source domain
+     * @return the series key
+     */
+    public static SeriesKey from(DashboardMetric metric) {
+        return of(metric.getMetricName(), metric.getSourceDomain(),
+                metric.getRegion() != null ? metric.getRegion() : MetricAggregate.NO_REGION);
+    }
+}
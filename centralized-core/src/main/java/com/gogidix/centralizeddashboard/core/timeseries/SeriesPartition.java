@@ -0,0 +1,105 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory points of one series in one time partition: an open head, kept sorted by timestamp,
+ * and the chunks sealed from it. Not thread-safe, guarded by the lock of the store.
+ */
+final class SeriesPartition {
+
+    private static final long[] NO_TIMESTAMPS = new long[0];
+    private static final double[] NO_VALUES = new double[0];
+
+    private final int chunkSize;
+    private long[] headTimestamps;
+    private double[] headValues;
+    private int headSize;
+    private final List<GorillaChunk> chunks = new ArrayList<>();
+
+    SeriesPartition(int chunkSize) {
+        this.chunkSize = chunkSize;
+        this.headTimestamps = NO_TIMESTAMPS;
+        this.headValues = NO_VALUES;
+    }
+
+    void append(long timestamp, double value) {
+        if (headSize == headTimestamps.length) {
+            int capacity = Math.min(chunkSize, Math.max(16, headSize * 2));
+            headTimestamps = Arrays.copyOf(headTimestamps, capacity);
+            headValues = Arrays.copyOf(headValues, capacity);
+        }
+
+        // Points mostly arrive in order; a late one is shifted into place
+        int position = headSize;
+        while (position > 0 && headTimestamps[position - 1] > timestamp) {
+            position--;
+        }
+        if (position < headSize) {
+            System.arraycopy(headTimestamps, position, headTimestamps, position + 1, headSize - position);
+            System.arraycopy(headValues, position, headValues, position + 1, headSize - position);
+        }
+        headTimestamps[position] = timestamp;
+        headValues[position] = value;
+        headSize++;
+
+        if (headSize == chunkSize) {
+            seal();
+        }
+    }
+
+    /**
+     * Compress the head into a chunk.
+     */
+    void seal() {
+        if (headSize == 0) {
+            return;
+        }
+        chunks.add(GorillaChunk.encode(headTimestamps, headValues, headSize));
+        headTimestamps = NO_TIMESTAMPS;
+        headValues = NO_VALUES;
+        headSize = 0;
+    }
+
+    List<GorillaChunk> chunks() {
+        return chunks;
+    }
+
+    long[] headTimestamps() {
+        return headTimestamps;
+    }
+
+    double[] headValues() {
+        return headValues;
+    }
+
+    int headSize() {
+        return headSize;
+    }
+
+    long pointCount() {
+        long count = headSize;
+        for (GorillaChunk chunk : chunks) {
+            count += chunk.count();
+        }
+        return count;
+    }
+
+    long latestTimestamp() {
+        long latest = headSize > 0 ? headTimestamps[headSize - 1] : Long.MIN_VALUE;
+        for (GorillaChunk chunk : chunks) {
+            latest = Math.max(latest, chunk.maxTimestamp());
+        }
+        return latest;
+    }
+
+    long residentBytes() {
+        long bytes = 64 + headTimestamps.length * 16L;
+        for (GorillaChunk chunk : chunks) {
+            bytes += chunk.residentBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,47 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+/**
+ * Points of one series in a time range, sorted by timestamp, as parallel columns.
+ * The arrays are owned by this object and must not be modified.
+ */
+public final class SeriesPoints {
+
+    private final long[] timestamps;
+    private final double[] values;
+    private final int size;
+
+    SeriesPoints(long[] timestamps, double[] values, int size) {
+        this.timestamps = timestamps;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Get the number of points.
+     *
+     * @return the number of points
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the timestamp of a point.
+     *
+     * @param index the index of the point
+     * @return the timestamp in epoch milliseconds
+     */
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Get the value of a point.
+     *
+     * @param index the index of the point
+     * @return the value
+     */
+    public double getValue(int index) {
+        return values[index];
+    }
+}
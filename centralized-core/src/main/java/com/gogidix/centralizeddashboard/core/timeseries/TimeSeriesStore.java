@@ -0,0 +1,675 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded, column-oriented store for metric time series.
+ * <p>
+ * Points are grouped by series and by fixed-length time partition. Within a partition, the points of
+ * a series accumulate in a small sorted head that is sealed into a {@link GorillaChunk} once it holds
+ * a chunk's worth of points. Partitions that ended more than {@link #LATE_ARRIVAL_GRACE} ago are
+ * written to a segment file per partition, after which only the statistics of their chunks stay in
+ * memory. Points arriving late for a persisted partition are merged into its segment on the next flush.
+ * <p>
+ * Queries decode whole chunks into primitive arrays and aggregate them in tight loops, and use the
+ * statistics of a chunk instead of decoding it whenever it lies entirely within the queried range
+ * (and bucket). Without a directory, the store keeps every chunk in memory.
+ * <p>
+ * Writes and segment I/O take an exclusive lock; queries share a read lock.
+ */
+@Slf4j
+public class TimeSeriesStore implements AutoCloseable {
+
+    /**
+     * Time after the end of a partition during which it stays in memory for late points.
+     */
+    static final Duration LATE_ARRIVAL_GRACE = Duration.ofHours(1);
+
+    private static final int MAX_BUCKETS = 1_000_000;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(-?\\d+)-(\\d+)(-compacted)?\\.dts");
+
+    private final Path directory;
+    private final long partitionMillis;
+    private final int chunkSize;
+    private final long retentionMillis;
+    private final Clock clock;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Long, Partition> partitions = new TreeMap<>();
+    private long nextSegmentSequence;
+    private boolean closed;
+
+    /**
+     * @param directory directory of the segment files, or null to keep every point in memory
+     * @param partitionDuration length of a time partition, and so of the time range of a segment file
+     * @param chunkSize maximum number of points in a chunk
+     * @param retention age after which partitions are dropped, or zero to keep them forever
+     */
+    public TimeSeriesStore(Path directory, Duration partitionDuration, int chunkSize, Duration retention) {
+        this(directory, partitionDuration, chunkSize, retention, Clock.systemUTC());
+    }
+
+    TimeSeriesStore(Path directory, Duration partitionDuration, int chunkSize, Duration retention, Clock clock) {
+        if (partitionDuration.toMillis() <= 0 || chunkSize < 2 || retention.isNegative()) {
+            throw new IllegalArgumentException("Invalid time-series store configuration: partition "
+                    + partitionDuration + ", chunk size " + chunkSize + ", retention " + retention);
+        }
+        this.directory = directory;
+        this.partitionMillis = partitionDuration.toMillis();
+        this.chunkSize = chunkSize;
+        this.retentionMillis = retention.toMillis();
+        this.clock = clock;
+        if (directory != null) {
+            loadSegments();
+        }
+    }
+
+    /**
+     * Add a point to a series. Points may arrive in any order.
+     *
+     * @param key the series
+     * @param timestamp the timestamp in epoch milliseconds
+     * @param value the value
+     * @return false if the point is older than the retention and was dropped
+     */
+    public boolean append(SeriesKey key, long timestamp, double value) {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Time-series store is closed");
+            }
+            if (retentionMillis > 0 && timestamp < clock.millis() - retentionMillis) {
+                return false;
+            }
+            long start = partitionStart(timestamp);
+            partitions.computeIfAbsent(start, Partition::new)
+                    .memory.computeIfAbsent(key, k -> new SeriesPartition(chunkSize))
+                    .append(timestamp, value);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the points of a series in a time range.
+     *
+     * @param key the series
+     * @param from the start of the range in epoch milliseconds, inclusive
+     * @param to the end of the range in epoch milliseconds, exclusive
+     * @return the points, sorted by timestamp
+     */
+    public SeriesPoints range(SeriesKey key, long from, long to) {
+        RangeCollector collector = new RangeCollector();
+        scan(key::equals, from, to, collector);
+        return collector.toPoints();
+    }
+
+    /**
+     * Aggregate the points of every matching series in a time range.
+     *
+     * @param selector selects the series
+     * @param from the start of the range in epoch milliseconds, inclusive
+     * @param to the end of the range in epoch milliseconds, exclusive
+     * @return the aggregate
+     */
+    public SeriesAggregate aggregate(Predicate<SeriesKey> selector, long from, long to) {
+        AggregateCollector collector = new AggregateCollector();
+        scan(selector, from, to, collector);
+        return new SeriesAggregate(collector.count, collector.sum,
+                collector.count > 0 ? collector.min : Double.NaN,
+                collector.count > 0 ? collector.max : Double.NaN);
+    }
+
+    /**
+     * Roll the points of every matching series in a time range up into time buckets.
+     *
+     * @param selector selects the series
+     * @param from the start of the range in epoch milliseconds, inclusive
+     * @param to the end of the range in epoch milliseconds, exclusive
+     * @param bucket the length of a bucket
+     * @return the buckets from the one containing {@code from} to the one containing the end of the range
+     */
+    public DownsampledSeries downsample(Predicate<SeriesKey> selector, long from, long to, Duration bucket) {
+        long bucketMillis = bucket.toMillis();
+        if (bucketMillis <= 0 || to <= from) {
+            throw new IllegalArgumentException("Invalid downsampling of [" + from + ", " + to + ") by " + bucket);
+        }
+        long origin = Math.floorDiv(from, bucketMillis) * bucketMillis;
+        long buckets = (to - origin + bucketMillis - 1) / bucketMillis;
+        if (buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Downsampling by " + bucket + " yields more than " + MAX_BUCKETS + " buckets");
+        }
+
+        DownsampleCollector collector = new DownsampleCollector(origin, bucketMillis, (int) buckets);
+        scan(selector, from, to, collector);
+        for (int i = 0; i < collector.counts.length; i++) {
+            if (collector.counts[i] == 0) {
+                collector.mins[i] = Double.NaN;
+                collector.maxs[i] = Double.NaN;
+            }
+        }
+        return new DownsampledSeries(origin, bucketMillis, collector.counts, collector.sums, collector.mins, collector.maxs);
+    }
+
+    /**
+     * Get every series that has points in the store.
+     *
+     * @return the series keys
+     */
+    public Set<SeriesKey> seriesKeys() {
+        lock.readLock().lock();
+        try {
+            Set<SeriesKey> keys = new LinkedHashSet<>();
+            for (Partition partition : partitions.values()) {
+                for (SegmentFile segment : partition.segments) {
+                    keys.addAll(segment.chunks().keySet());
+                }
+                keys.addAll(partition.memory.keySet());
+            }
+            return keys;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the timestamp of the most recent point.
+     *
+     * @return the timestamp in epoch milliseconds, or empty if the store has no points
+     */
+    public OptionalLong latestTimestamp() {
+        lock.readLock().lock();
+        try {
+            for (Partition partition : partitions.descendingMap().values()) {
+                long latest = Long.MIN_VALUE;
+                for (SegmentFile segment : partition.segments) {
+                    for (List<ChunkHandle> chunks : segment.chunks().values()) {
+                        for (ChunkHandle chunk : chunks) {
+                            latest = Math.max(latest, chunk.maxTimestamp());
+                        }
+                    }
+                }
+                for (SeriesPartition series : partition.memory.values()) {
+                    latest = Math.max(latest, series.latestTimestamp());
+                }
+                if (latest != Long.MIN_VALUE) {
+                    return OptionalLong.of(latest);
+                }
+            }
+            return OptionalLong.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of points in the store.
+     *
+     * @return the number of points
+     */
+    public long pointCount() {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            for (Partition partition : partitions.values()) {
+                for (SegmentFile segment : partition.segments) {
+                    for (List<ChunkHandle> chunks : segment.chunks().values()) {
+                        for (ChunkHandle chunk : chunks) {
+                            count += chunk.count();
+                        }
+                    }
+                }
+                for (SeriesPartition series : partition.memory.values()) {
+                    count += series.pointCount();
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimate the heap used by the points held in memory and by the index of the segment files.
+     *
+     * @return the size in bytes
+     */
+    public long residentBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Partition partition : partitions.values()) {
+                for (SegmentFile segment : partition.segments) {
+                    for (List<ChunkHandle> chunks : segment.chunks().values()) {
+                        bytes += 64 + chunks.size() * 80L;
+                    }
+                }
+                for (SeriesPartition series : partition.memory.values()) {
+                    bytes += series.residentBytes();
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drop partitions beyond the retention, and write partitions whose grace period is over
+     * to their segment file, merging them with points already persisted. Without a directory,
+     * the heads of those partitions are sealed instead.
+     *
+     * @return the number of segment files written
+     */
+    public int flush() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return 0;
+            }
+            long now = clock.millis();
+            if (retentionMillis > 0) {
+                Map<Long, Partition> expired = partitions.headMap(partitionStart(now - retentionMillis - partitionMillis), true);
+                for (Partition partition : expired.values()) {
+                    partition.segments.forEach(SegmentFile::delete);
+                    log.info("Dropped time-series partition starting at {}", partition.start);
+                }
+                expired.clear();
+            }
+
+            int written = 0;
+            for (Partition partition : partitions.values()) {
+                if (partition.start + partitionMillis + LATE_ARRIVAL_GRACE.toMillis() > now) {
+                    continue;
+                }
+                if (directory == null) {
+                    // Compress the last points of ended partitions, which will not fill their heads any more
+                    partition.memory.values().forEach(SeriesPartition::seal);
+                } else if (!partition.memory.isEmpty() || partition.segments.size() > 1) {
+                    persist(partition, true);
+                    written++;
+                }
+            }
+            return written;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write the points still held in memory to segment files and close the store.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Partition partition : partitions.values()) {
+                if (directory != null && !partition.memory.isEmpty()) {
+                    persist(partition, false);
+                }
+                partition.segments.forEach(SegmentFile::close);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Seal the in-memory points of a partition and write them to a new segment file.
+     *
+     * @param partition the partition
+     * @param compact whether to merge the existing segment files of the partition into the new one
+     */
+    private void persist(Partition partition, boolean compact) {
+        Map<SeriesKey, List<ChunkHandle>> chunks = new LinkedHashMap<>();
+        if (compact) {
+            for (SegmentFile segment : partition.segments) {
+                segment.chunks().forEach((key, handles) ->
+                        chunks.computeIfAbsent(key, k -> new ArrayList<>()).addAll(handles));
+            }
+        }
+        partition.memory.forEach((key, series) -> {
+            series.seal();
+            chunks.computeIfAbsent(key, k -> new ArrayList<>()).addAll(series.chunks());
+        });
+
+        // A compacted segment holds every older segment of its partition; its name marks it, so that
+        // the older ones are skipped on loading should the process stop before they are deleted
+        Path path = directory.resolve("segment-" + partition.start + "-" + nextSegmentSequence++
+                + (compact ? "-compacted" : "") + ".dts");
+        SegmentFile segment = SegmentFile.write(path, chunks);
+        if (compact) {
+            partition.segments.forEach(SegmentFile::delete);
+            partition.segments.clear();
+        }
+        partition.segments.add(segment);
+        partition.memory.clear();
+        log.debug("Wrote time-series segment {} with {} series", path, chunks.size());
+    }
+
+    private void loadSegments() {
+        try {
+            Files.createDirectories(directory);
+            Map<Long, TreeMap<Long, Path>> segmentsByPartition = new TreeMap<>();
+            Map<Long, Long> compactedSequences = new HashMap<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*")) {
+                for (Path path : files) {
+                    Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                    if (!matcher.matches()) {
+                        // Left over from a write that did not complete
+                        Files.delete(path);
+                        continue;
+                    }
+                    long start = Long.parseLong(matcher.group(1));
+                    long sequence = Long.parseLong(matcher.group(2));
+                    nextSegmentSequence = Math.max(nextSegmentSequence, sequence + 1);
+                    segmentsByPartition.computeIfAbsent(start, k -> new TreeMap<>()).put(sequence, path);
+                    if (matcher.group(3) != null) {
+                        compactedSequences.merge(start, sequence, Math::max);
+                    }
+                }
+            }
+
+            int opened = 0;
+            for (Map.Entry<Long, TreeMap<Long, Path>> entry : segmentsByPartition.entrySet()) {
+                long start = entry.getKey();
+                TreeMap<Long, Path> segments = entry.getValue();
+                Long compacted = compactedSequences.get(start);
+                if (compacted != null) {
+                    // Already merged into the latest compacted segment, left over from a compaction that did not complete
+                    Map<Long, Path> superseded = segments.headMap(compacted, false);
+                    for (Path path : superseded.values()) {
+                        log.info("Deleting time-series segment {} superseded by a compacted segment", path);
+                        Files.delete(path);
+                    }
+                    superseded.clear();
+                }
+                Partition partition = partitions.computeIfAbsent(start, Partition::new);
+                for (Path path : segments.values()) {
+                    partition.segments.add(SegmentFile.open(path));
+                    opened++;
+                }
+            }
+            log.info("Opened {} time-series segments in {}", opened, directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open time-series store in " + directory, e);
+        }
+    }
+
+    private void scan(Predicate<SeriesKey> selector, long from, long to, Collector collector) {
+        if (to <= from) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            Scratch scratch = new Scratch(chunkSize);
+            for (Partition partition : partitions.subMap(partitionStart(from), true, to, false).values()) {
+                for (SegmentFile segment : partition.segments) {
+                    segment.chunks().forEach((key, chunks) -> {
+                        if (selector.test(key)) {
+                            for (ChunkHandle chunk : chunks) {
+                                scanChunk(chunk, from, to, collector, scratch);
+                            }
+                        }
+                    });
+                }
+                partition.memory.forEach((key, series) -> {
+                    if (selector.test(key)) {
+                        for (GorillaChunk chunk : series.chunks()) {
+                            scanChunk(chunk, from, to, collector, scratch);
+                        }
+                        scanSorted(series.headTimestamps(), series.headValues(), series.headSize(), from, to, collector);
+                    }
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void scanChunk(ChunkHandle handle, long from, long to, Collector collector, Scratch scratch) {
+        if (handle.maxTimestamp() < from || handle.minTimestamp() >= to) {
+            return;
+        }
+        if (handle.minTimestamp() >= from && handle.maxTimestamp() < to && collector.acceptChunk(handle)) {
+            return;
+        }
+        GorillaChunk chunk = handle.load();
+        scratch.ensureCapacity(chunk.count());
+        chunk.decode(scratch.timestamps, scratch.values);
+        scanSorted(scratch.timestamps, scratch.values, chunk.count(), from, to, collector);
+    }
+
+    private static void scanSorted(long[] timestamps, double[] values, int size, long from, long to, Collector collector) {
+        int start = lowerBound(timestamps, size, from);
+        int end = lowerBound(timestamps, size, to);
+        if (start < end) {
+            collector.acceptPoints(timestamps, values, start, end);
+        }
+    }
+
+    private static int lowerBound(long[] timestamps, int size, long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long partitionStart(long timestamp) {
+        return Math.floorDiv(timestamp, partitionMillis) * partitionMillis;
+    }
+
+    /**
+     * Points of one time partition: segment files, and points not yet persisted.
+     */
+    private static final class Partition {
+
+        private final long start;
+        private final List<SegmentFile> segments = new ArrayList<>();
+        private final Map<SeriesKey, SeriesPartition> memory = new HashMap<>();
+
+        private Partition(long start) {
+            this.start = start;
+        }
+    }
+
+    /**
+     * Reusable arrays to decode chunks into.
+     */
+    private static final class Scratch {
+
+        private long[] timestamps;
+        private double[] values;
+
+        private Scratch(int capacity) {
+            this.timestamps = new long[capacity];
+            this.values = new double[capacity];
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > timestamps.length) {
+                timestamps = new long[capacity];
+                values = new double[capacity];
+            }
+        }
+    }
+
+    /**
+     * Receives the points of a query, a sorted slice of a chunk or head at a time.
+     */
+    private interface Collector {
+
+        /**
+         * Accept a chunk lying entirely within the queried range from its statistics alone.
+         *
+         * @param chunk the chunk
+         * @return false if the points of the chunk are needed
+         */
+        default boolean acceptChunk(ChunkHandle chunk) {
+            return false;
+        }
+
+        void acceptPoints(long[] timestamps, double[] values, int start, int end);
+    }
+
+    private static final class AggregateCollector implements Collector {
+
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        @Override
+        public boolean acceptChunk(ChunkHandle chunk) {
+            count += chunk.count();
+            sum += chunk.sum();
+            min = Math.min(min, chunk.min());
+            max = Math.max(max, chunk.max());
+            return true;
+        }
+
+        @Override
+        public void acceptPoints(long[] timestamps, double[] values, int start, int end) {
+            double sliceSum = 0;
+            double sliceMin = min;
+            double sliceMax = max;
+            for (int i = start; i < end; i++) {
+                double value = values[i];
+                sliceSum += value;
+                sliceMin = Math.min(sliceMin, value);
+                sliceMax = Math.max(sliceMax, value);
+            }
+            count += end - start;
+            sum += sliceSum;
+            min = sliceMin;
+            max = sliceMax;
+        }
+    }
+
+    private static final class DownsampleCollector implements Collector {
+
+        private final long origin;
+        private final long bucketMillis;
+        private final long[] counts;
+        private final double[] sums;
+        private final double[] mins;
+        private final double[] maxs;
+
+        private DownsampleCollector(long origin, long bucketMillis, int buckets) {
+            this.origin = origin;
+            this.bucketMillis = bucketMillis;
+            this.counts = new long[buckets];
+            this.sums = new double[buckets];
+            this.mins = new double[buckets];
+            this.maxs = new double[buckets];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+        }
+
+        @Override
+        public boolean acceptChunk(ChunkHandle chunk) {
+            int bucket = bucket(chunk.minTimestamp());
+            if (bucket != bucket(chunk.maxTimestamp())) {
+                return false;
+            }
+            counts[bucket] += chunk.count();
+            sums[bucket] += chunk.sum();
+            mins[bucket] = Math.min(mins[bucket], chunk.min());
+            maxs[bucket] = Math.max(maxs[bucket], chunk.max());
+            return true;
+        }
+
+        @Override
+        public void acceptPoints(long[] timestamps, double[] values, int start, int end) {
+            for (int i = start; i < end; i++) {
+                int bucket = bucket(timestamps[i]);
+                double value = values[i];
+                counts[bucket]++;
+                sums[bucket] += value;
+                mins[bucket] = Math.min(mins[bucket], value);
+                maxs[bucket] = Math.max(maxs[bucket], value);
+            }
+        }
+
+        private int bucket(long timestamp) {
+            return (int) ((timestamp - origin) / bucketMillis);
+        }
+    }
+
+    private static final class RangeCollector implements Collector {
+
+        private long[] timestamps = new long[64];
+        private double[] values = new double[64];
+        private int size;
+        private boolean sorted = true;
+
+        @Override
+        public void acceptPoints(long[] sliceTimestamps, double[] sliceValues, int start, int end) {
+            int length = end - start;
+            if (size + length > timestamps.length) {
+                int capacity = Math.max(size + length, timestamps.length * 2);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            if (size > 0 && sliceTimestamps[start] < timestamps[size - 1]) {
+                sorted = false;
+            }
+            System.arraycopy(sliceTimestamps, start, timestamps, size, length);
+            System.arraycopy(sliceValues, start, values, size, length);
+            size += length;
+        }
+
+        private SeriesPoints toPoints() {
+            if (sorted) {
+                return new SeriesPoints(timestamps, values, size);
+            }
+            // Chunks of late points overlap earlier ones
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(timestamps[a], timestamps[b]));
+            long[] sortedTimestamps = new long[size];
+            double[] sortedValues = new double[size];
+            for (int i = 0; i < size; i++) {
+                sortedTimestamps[i] = timestamps[order[i]];
+                sortedValues[i] = values[order[i]];
+            }
+            return new SeriesPoints(sortedTimestamps, sortedValues, size);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+-- Migration to add running aggregates per metric series for incremental KPI calculation
+
+CREATE TABLE metric_aggregates (
+    id BIGSERIAL PRIMARY KEY,
+    metric_name VARCHAR(100) NOT NULL,
+    source_domain VARCHAR(50) NOT NULL,
+    region VARCHAR(100) NOT NULL DEFAULT '',
+    sample_count BIGINT NOT NULL,
+    sum_value DOUBLE PRECISION NOT NULL,
+    min_value DOUBLE PRECISION NOT NULL,
+    max_value DOUBLE PRECISION NOT NULL,
+    latest_value DOUBLE PRECISION NOT NULL,
+    latest_timestamp TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT metric_aggregates_series_unique UNIQUE (metric_name, source_domain, region)
+);
+
+CREATE INDEX idx_metric_aggregates_name_domain ON metric_aggregates(metric_name, source_domain);
@@ -0,0 +1,218 @@
+package com.gogidix.centralizeddashboard.core.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gogidix.centralizeddashboard.core.cache.TwoTierCacheManager.LocalTierSpec;
+import com.gogidix.centralizeddashboard.core.model.DashboardKPI;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TwoTierCacheManagerTest {
+
+    private static final String CHANNEL = "dashboard:cache:invalidation";
+
+    private ConcurrentMapCacheManager remoteCacheManager;
+    private RedisConnection connection;
+    private MeterRegistry meterRegistry;
+    private TwoTierCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        // A shared map stands in for Redis, so that two managers behave like two instances
+        remoteCacheManager = new ConcurrentMapCacheManager();
+        connection = mock(RedisConnection.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = newManager(meterRegistry);
+    }
+
+    @Test
+    void get_ShouldServeRepeatedReadsFromLocalTier() {
+        // Given
+        remoteCacheManager.getCache("kpiCache").put("revenue", "100");
+        Cache cache = cacheManager.getCache("kpiCache");
+
+        // When
+        Cache.ValueWrapper first = cache.get("revenue");
+        remoteCacheManager.getCache("kpiCache").put("revenue", "200");
+        Cache.ValueWrapper second = cache.get("revenue");
+
+        // Then
+        assertEquals("100", first.get());
+        assertEquals("100", second.get(), "Second read should not reach the remote tier");
+        assertEquals(1.0, count("kpiCache", "local", "hit"));
+        assertEquals(1.0, count("kpiCache", "local", "miss"));
+        assertEquals(1.0, count("kpiCache", "remote", "hit"));
+        assertEquals(0.0, count("kpiCache", "remote", "miss"));
+    }
+
+    @Test
+    void get_ShouldCacheNullValuesInBothTiers() {
+        // Given
+        Cache cache = cacheManager.getCache("kpiCache");
+
+        // When
+        cache.put("missing", null);
+        Cache.ValueWrapper value = cache.get("missing");
+
+        // Then
+        assertNotNull(value, "Cached null should be a hit");
+        assertNull(value.get());
+        assertNotNull(remoteCacheManager.getCache("kpiCache").get("missing"));
+    }
+
+    @Test
+    void getWithLoader_ShouldLoadOnceAndWriteThroughToRemoteTier() {
+        // Given
+        Cache cache = cacheManager.getCache("kpiCategoryCache");
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        String first = cache.get(DashboardKPI.KPICategory.FINANCIAL, () -> "loaded-" + loads.incrementAndGet());
+        String second = cache.get(DashboardKPI.KPICategory.FINANCIAL, () -> "loaded-" + loads.incrementAndGet());
+
+        // Then
+        assertEquals("loaded-1", first);
+        assertEquals("loaded-1", second);
+        assertEquals(1, loads.get());
+        assertEquals("loaded-1", remoteCacheManager.getCache("kpiCategoryCache")
+                .get(DashboardKPI.KPICategory.FINANCIAL).get());
+        assertEquals(1.0, count("kpiCategoryCache", "local", "hit"));
+        assertEquals(1.0, count("kpiCategoryCache", "remote", "miss"));
+    }
+
+    @Test
+    void put_ShouldInvalidateLocalTierOfOtherInstances() {
+        // Given
+        TwoTierCacheManager otherInstance = newManager(new SimpleMeterRegistry());
+        Cache cache = cacheManager.getCache("dashboardMetrics");
+        Cache otherCache = otherInstance.getCache("dashboardMetrics");
+        cache.put("latest", "v1");
+        assertEquals("v1", otherCache.get("latest").get());
+
+        // When
+        cache.put("latest", "v2");
+        deliverLastPublished(otherInstance);
+
+        // Then
+        assertEquals("v2", otherCache.get("latest").get(), "Other instance should re-read the remote tier");
+    }
+
+    @Test
+    void clear_ShouldClearLocalTierOfOtherInstances() {
+        // Given
+        TwoTierCacheManager otherInstance = newManager(new SimpleMeterRegistry());
+        Cache otherCache = otherInstance.getCache("realtimeData");
+        otherCache.put("a", "1");
+
+        // When
+        cacheManager.getCache("realtimeData").clear();
+        deliverLastPublished(otherInstance);
+
+        // Then
+        assertNull(otherCache.get("a"));
+    }
+
+    @Test
+    void onMessage_ShouldIgnoreOwnInvalidations() {
+        // Given
+        Cache cache = cacheManager.getCache("kpiRegionCache");
+        cache.put("EU", "kpis");
+        remoteCacheManager.getCache("kpiRegionCache").evict("EU");
+
+        // When
+        deliverLastPublished(cacheManager);
+
+        // Then
+        assertEquals("kpis", cache.get("EU").get(), "Own invalidation should keep the fresh local entry");
+    }
+
+    @Test
+    void smileSerializer_ShouldRoundTripEntitiesSmallerThanJson() {
+        // Given
+        List<DashboardKPI> kpis = List.of(
+                kpi("conversion_rate", 3.5),
+                kpi("average_order_value", 42.0),
+                kpi("delivery_success_rate", 97.25));
+        SmileRedisSerializer serializer = new SmileRedisSerializer();
+
+        // When
+        byte[] bytes = serializer.serialize(kpis);
+        Object restored = serializer.deserialize(bytes);
+
+        // Then
+        assertEquals(kpis, restored);
+        assertEquals(NullValue.INSTANCE, serializer.deserialize(serializer.serialize(NullValue.INSTANCE)));
+        assertTrue(bytes.length < jsonWithTimeModule(kpis).length, "Smile should be smaller than the equivalent JSON");
+    }
+
+    private TwoTierCacheManager newManager(MeterRegistry registry) {
+        RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        TwoTierCacheManager manager = new TwoTierCacheManager(
+                remoteCacheManager,
+                Map.of("kpiCache", new LocalTierSpec(100, Duration.ofMinutes(1))),
+                new LocalTierSpec(100, Duration.ofMinutes(1)),
+                connectionFactory,
+                CHANNEL,
+                registry,
+                true);
+        manager.afterPropertiesSet();
+        return manager;
+    }
+
+    private void deliverLastPublished(TwoTierCacheManager receiver) {
+        ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+        verify(connection, atLeastOnce()).publish(any(byte[].class), body.capture());
+        receiver.onMessage(new DefaultMessage(CHANNEL.getBytes(), body.getValue()), null);
+    }
+
+    private double count(String cacheName, String tier, String result) {
+        return meterRegistry.get("cache.tier.gets")
+                .tag("cache", cacheName)
+                .tag("tier", tier)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+
+    private static byte[] jsonWithTimeModule(Object value) {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
+        return new GenericJackson2JsonRedisSerializer(mapper).serialize(value);
+    }
+
+    private static DashboardKPI kpi(String name, double value) {
+        return DashboardKPI.builder()
+                .id((long) name.length())
+                .kpiName(name)
+                .kpiValue(value)
+                .kpiUnit("%")
+                .kpiStatus(DashboardKPI.KPIStatus.GOOD)
+                .kpiCategory(DashboardKPI.KPICategory.FINANCIAL)
+                .timestamp(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.gogidix.centralizeddashboard.core.config;
+
+import com.gogidix.centralizeddashboard.core.cache.SmileRedisSerializer;
+import com.gogidix.centralizeddashboard.core.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RedisCacheConfigTest {
+
+    /**
+     * Key the previous version, which stored JSON values, wrote an entry of the dashboardKpis cache under
+     */
+    private static final String LEGACY_KEY = "dashboardKpis::revenue";
+    private static final String VERSIONED_KEY = "v2::dashboardKpis::revenue";
+
+    // Stands in for Redis, keyed by the string form of the Redis key
+    private final Map<String, byte[]> redis = new ConcurrentHashMap<>();
+    private TwoTierCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.get(any(byte[].class)))
+                .thenAnswer(invocation -> redis.get(key(invocation.getArgument(0))));
+        when(connection.set(any(byte[].class), any(byte[].class), any(Expiration.class), any(SetOption.class)))
+                .thenAnswer(invocation -> {
+                    redis.put(key(invocation.getArgument(0)), invocation.getArgument(1));
+                    return true;
+                });
+        RedisConnectionFactory connectionFactory = mock(RedisConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+
+        RedisCacheConfig config = new RedisCacheConfig();
+        ReflectionTestUtils.setField(config, "timeToLive", 3600L);
+        ReflectionTestUtils.setField(config, "localDefaultMaxSize", 1000L);
+        ReflectionTestUtils.setField(config, "localDefaultTtlSeconds", 60L);
+        ReflectionTestUtils.setField(config, "invalidationChannel", "dashboard:cache:invalidation");
+        cacheManager = config.cacheManager(connectionFactory, new SimpleMeterRegistry());
+        cacheManager.afterPropertiesSet();
+    }
+
+    @Test
+    void cacheManager_ShouldNotReadLegacyJsonEntries() {
+        // Given an entry written in JSON by an instance of the previous version
+        byte[] legacyEntry = new GenericJackson2JsonRedisSerializer().serialize("legacy");
+        redis.put(LEGACY_KEY, legacyEntry);
+        Cache cache = cacheManager.getCache("dashboardKpis");
+
+        // When
+        String value = cache.get("revenue", () -> "loaded");
+
+        // Then
+        assertEquals("loaded", value);
+        assertEquals("loaded", new SmileRedisSerializer().deserialize(redis.get(VERSIONED_KEY)));
+        assertArrayEquals(legacyEntry, redis.get(LEGACY_KEY), "Instances of the previous version keep their entry");
+    }
+
+    @Test
+    void cacheManager_WhenAnEntryCannotBeRead_ShouldTreatItAsAMiss() {
+        // Given a JSON entry under the versioned key
+        redis.put(VERSIONED_KEY, new GenericJackson2JsonRedisSerializer().serialize("legacy"));
+        Cache cache = cacheManager.getCache("dashboardKpis");
+
+        // When
+        Cache.ValueWrapper missing = cache.get("revenue");
+        String value = cache.get("revenue", () -> "loaded");
+
+        // Then
+        assertNull(missing);
+        assertEquals("loaded", value);
+        assertEquals("loaded", new SmileRedisSerializer().deserialize(redis.get(VERSIONED_KEY)),
+                "The unreadable entry should be replaced");
+    }
+
+    private static String key(byte[] key) {
+        return new String(key, StandardCharsets.UTF_8);
+    }
+}
@@ -1,12 +1,14 @@
 package com.gogidix.centralizeddashboard.core.integration;
 
 import com.gogidix.centralizeddashboard.core.BaseUnitTest;
+import com.gogidix.centralizeddashboard.core.integration.fanout.DomainFanOutExecutor;
 import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
 import com.gogidix.centralizeddashboard.core.model.DashboardMetric.SourceDomain;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 
 import java.util.*;
 
@@ -25,6 +27,9 @@ class CrossDomainIntegrationServiceTest extends BaseUnitTest {
     @Mock
     private WarehousingClient warehousingClient;
 
+    @Spy
+    private DomainFanOutExecutor fanOutExecutor = new DomainFanOutExecutor(8, 16, 500, 500, 500);
+
     @InjectMocks
     private CrossDomainIntegrationService crossDomainIntegrationService;
 
@@ -60,9 +65,9 @@ class CrossDomainIntegrationServiceTest extends BaseUnitTest {
     @Test
     void fetchAllDomainMetrics_ShouldReturnCombinedMetrics() {
         // Given
-        when(courierServiceClient.getAllCourierMetrics()).thenReturn(mockCourierData);
-        when(socialCommerceClient.getAllSocialCommerceMetrics()).thenReturn(getMockSocialCommerceListData());
-        when(warehousingClient.getAllWarehousingMetrics()).thenReturn(getMockWarehousingListData());
+        stubCourierTiers();
+        stubSocialCommerceTiers();
+        stubWarehousingTiers();
 
         // When
         List<DashboardMetric> result = crossDomainIntegrationService.fetchAllDomainMetrics();
@@ -83,15 +88,15 @@ class CrossDomainIntegrationServiceTest extends BaseUnitTest {
         assertTrue(containsMetric(result, "active_users"));
         assertTrue(containsMetric(result, "inventory_count"));
         
-        verify(courierServiceClient, times(1)).getAllCourierMetrics();
-        verify(socialCommerceClient, times(1)).getAllSocialCommerceMetrics();
-        verify(warehousingClient, times(1)).getAllWarehousingMetrics();
+        verify(courierServiceClient, times(1)).getHqAdminMetrics();
+        verify(socialCommerceClient, times(1)).getAnalyticsMetrics();
+        verify(warehousingClient, times(1)).getInventoryMetrics();
     }
 
     @Test
     void fetchCourierServicesMetrics_ShouldTransformDataCorrectly() {
         // Given
-        when(courierServiceClient.getAllCourierMetrics()).thenReturn(mockCourierData);
+        stubCourierTiers();
 
         // When
         List<DashboardMetric> result = crossDomainIntegrationService.fetchCourierServicesMetrics();
@@ -111,13 +116,14 @@ class CrossDomainIntegrationServiceTest extends BaseUnitTest {
         assertEquals(SourceDomain.COURIER_SERVICES, shipmentMetric.getSourceDomain());
         assertEquals("HQ Admin", shipmentMetric.getSourceService());
         
-        verify(courierServiceClient, times(1)).getAllCourierMetrics();
+        verify(courierServiceClient, times(1)).getHqAdminMetrics();
+        verify(courierServiceClient, times(1)).getRegionalAdminMetrics(null);
     }
 
     @Test
     void fetchSocialCommerceMetrics_ShouldTransformDataCorrectly() {
         // Given
-        when(socialCommerceClient.getAllSocialCommerceMetrics()).thenReturn(getMockSocialCommerceListData());
+        stubSocialCommerceTiers();
 
         // When
         List<DashboardMetric> result = crossDomainIntegrationService.fetchSocialCommerceMetrics();
@@ -136,13 +142,13 @@ class CrossDomainIntegrationServiceTest extends BaseUnitTest {
         assertEquals("count", usersMetric.getMetricUnit());
         assertEquals(SourceDomain.SOCIAL_COMMERCE, usersMetric.getSourceDomain());
         
-        verify(socialCommerceClient, times(1)).getAllSocialCommerceMetrics();
+        verify(socialCommerceClient, times(1)).getAnalyticsMetrics();
     }
 
     @Test
     void fetchWarehousingMetrics_ShouldTransformDataCorrectly() {
         // Given
-        when(warehousingClient.getAllWarehousingMetrics()).thenReturn(getMockWarehousingListData());
+        stubWarehousingTiers();
 
         // When
         List<DashboardMetric> result = crossDomainIntegrationService.fetchWarehousingMetrics();
@@ -161,7 +167,7 @@ class CrossDomainIntegrationServiceTest extends BaseUnitTest {
         assertEquals("count", inventoryMetric.getMetricUnit());
         assertEquals(SourceDomain.WAREHOUSING, inventoryMetric.getSourceDomain());
         
-        verify(warehousingClient, times(1)).getAllWarehousingMetrics();
+        verify(warehousingClient, times(1)).getInventoryMetrics();
     }
 
     @Test
@@ -189,9 +195,9 @@ class CrossDomainIntegrationServiceTest extends BaseUnitTest {
     @Test
     void fetchAllDomainMetrics_ShouldHandleClientErrorsGracefully() {
         // Given
-        when(courierServiceClient.getAllCourierMetrics()).thenThrow(new RuntimeException("Service unavailable"));
-        when(socialCommerceClient.getAllSocialCommerceMetrics()).thenReturn(getMockSocialCommerceListData());
-        when(warehousingClient.getAllWarehousingMetrics()).thenReturn(getMockWarehousingListData());
+        when(courierServiceClient.getHqAdminMetrics()).thenThrow(new RuntimeException("Service unavailable"));
+        stubSocialCommerceTiers();
+        stubWarehousingTiers();
 
         // When
         List<DashboardMetric> result = crossDomainIntegrationService.fetchAllDomainMetrics();
@@ -208,6 +214,67 @@ class CrossDomainIntegrationServiceTest extends BaseUnitTest {
         // Log verification is typically done with a test appender if needed
     }
 
+    @Test
+    void fetchAllDomainMetrics_ShouldReturnPartialResultsWhenDomainExceedsDeadline() {
+        // Given - warehousing inventory hangs well beyond its 500ms deadline
+        stubCourierTiers();
+        stubSocialCommerceTiers();
+        when(warehousingClient.getInventoryMetrics()).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return getMockWarehousingListData().get("inventory");
+        });
+
+        // When
+        long start = System.currentTimeMillis();
+        List<DashboardMetric> result = crossDomainIntegrationService.fetchAllDomainMetrics();
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Then - the refresh is bounded by the deadline and keeps the other domains
+        assertTrue(elapsed < 2000, "Fan-out should not wait for the straggler, took " + elapsed + "ms");
+        assertTrue(containsMetric(result, "total_shipments"));
+        assertTrue(containsMetric(result, "active_users"));
+        assertFalse(containsMetric(result, "inventory_count"));
+    }
+
+    @Test
+    void fetchAllDomainMetrics_ShouldCallDomainsConcurrently() {
+        // Given - every domain takes 300ms
+        when(courierServiceClient.getHqAdminMetrics()).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return mockCourierData.get("hqAdmin");
+        });
+        when(socialCommerceClient.getAnalyticsMetrics()).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return getMockSocialCommerceListData().get("analytics");
+        });
+        when(warehousingClient.getInventoryMetrics()).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return getMockWarehousingListData().get("inventory");
+        });
+
+        // When
+        long start = System.currentTimeMillis();
+        List<DashboardMetric> result = crossDomainIntegrationService.fetchAllDomainMetrics();
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Then - total time is close to the slowest call, not the sum
+        assertTrue(elapsed < 800, "Domains should be fetched concurrently, took " + elapsed + "ms");
+        assertEquals(7, result.size());
+    }
+
+    private void stubCourierTiers() {
+        when(courierServiceClient.getHqAdminMetrics()).thenReturn(mockCourierData.get("hqAdmin"));
+        when(courierServiceClient.getRegionalAdminMetrics(null)).thenReturn(mockCourierData.get("regionalAdmin"));
+    }
+
+    private void stubSocialCommerceTiers() {
+        when(socialCommerceClient.getAnalyticsMetrics()).thenReturn(getMockSocialCommerceListData().get("analytics"));
+    }
+
+    private void stubWarehousingTiers() {
+        when(warehousingClient.getInventoryMetrics()).thenReturn(getMockWarehousingListData().get("inventory"));
+    }
+
     private Map<String, Object> createMockMetric(String name, Object value, String unit) {
         Map<String, Object> metric = new HashMap<>();
         metric.put("metricName", name);
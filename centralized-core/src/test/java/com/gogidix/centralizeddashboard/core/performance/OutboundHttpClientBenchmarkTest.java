@@ -0,0 +1,150 @@
+package com.gogidix.centralizeddashboard.core.performance;
+
+import com.gogidix.centralizeddashboard.core.config.RestClientConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark comparing the pooled outbound client against the previous
+ * SimpleClientHttpRequestFactory setup, using a local stub domain service.
+ */
+@Tag("performance")
+public class OutboundHttpClientBenchmarkTest {
+
+    private static final int CONCURRENT_CALLERS = 16;
+    private static final int REQUESTS_PER_CALLER = 50;
+    private static final int MAX_CONNECTIONS_PER_HOST = CONCURRENT_CALLERS;
+    private static final String METRICS_PAYLOAD =
+            "[{\"metricName\":\"total_shipments\",\"metricValue\":1500.0,\"metricUnit\":\"count\"},"
+                    + "{\"metricName\":\"on_time_delivery_rate\",\"metricValue\":95.5,\"metricUnit\":\"percent\"}]";
+
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private HttpServer stubServer;
+    private String previousNodelay;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private String metricsUrl;
+
+    @BeforeEach
+    void startStubServer() throws Exception {
+        // Avoid Nagle/delayed-ACK stalls in the stub so the client cost dominates
+        previousNodelay = System.setProperty(NODELAY_PROPERTY, "true");
+        stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubServer.createContext("/api/reports/metrics", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = METRICS_PAYLOAD.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stubServer.setExecutor(Executors.newFixedThreadPool(CONCURRENT_CALLERS));
+        stubServer.start();
+        metricsUrl = "http://127.0.0.1:" + stubServer.getAddress().getPort() + "/api/reports/metrics";
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        stubServer.stop(0);
+        if (previousNodelay == null) {
+            System.clearProperty(NODELAY_PROPERTY);
+        } else {
+            System.setProperty(NODELAY_PROPERTY, previousNodelay);
+        }
+    }
+
+    @Test
+    @DisplayName("Pooled client should reuse a bounded set of connections to each host")
+    public void testPooledClientReusesConnections() throws Exception {
+        RestClientConfig config = new RestClientConfig();
+        ReflectionTestUtils.setField(config, "maxConnections", 50);
+        ReflectionTestUtils.setField(config, "maxConnectionsPerHost", MAX_CONNECTIONS_PER_HOST);
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(config, "readTimeoutMs", 10000L);
+        ReflectionTestUtils.setField(config, "poolAcquireTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(config, "idleEvictionSeconds", 30L);
+        ReflectionTestUtils.setField(config, "connectionTtlSeconds", 300L);
+
+        try (PoolingHttpClientConnectionManager pool = config.domainConnectionManager();
+             CloseableHttpClient httpClient = config.domainHttpClient(pool)) {
+            RestTemplate pooled = config.restTemplate(new RestTemplateBuilder(), config.clientHttpRequestFactory(httpClient));
+            // Warm up both clients before measuring
+            runLoad(pooled);
+            SimpleClientHttpRequestFactory simpleFactory = new SimpleClientHttpRequestFactory();
+            simpleFactory.setConnectTimeout(5000);
+            simpleFactory.setReadTimeout(10000);
+            RestTemplate simple = new RestTemplate(simpleFactory);
+            runLoad(simple);
+
+            clientPorts.clear();
+            Duration pooledDuration = runLoad(pooled);
+            int pooledConnections = clientPorts.size();
+
+            clientPorts.clear();
+            Duration simpleDuration = runLoad(simple);
+            int simpleConnections = clientPorts.size();
+
+            System.out.println("Pooled client: " + pooledDuration.toMillis() + "ms, " + pooledConnections + " connections");
+            System.out.println("Simple client: " + simpleDuration.toMillis() + "ms, " + simpleConnections + " connections");
+
+            assertTrue(pooledConnections <= MAX_CONNECTIONS_PER_HOST,
+                    "Pooled client opened " + pooledConnections + " connections, cap is " + MAX_CONNECTIONS_PER_HOST);
+            assertEquals(0, pool.getTotalStats().getLeased(), "All connections should be returned to the pool");
+        }
+    }
+
+    private Duration runLoad(RestTemplate restTemplate) {
+        ExecutorService callers = Executors.newFixedThreadPool(CONCURRENT_CALLERS);
+        try {
+            Instant start = Instant.now();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_CALLERS; i++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int r = 0; r < REQUESTS_PER_CALLER; r++) {
+                        List<Map<String, Object>> body = restTemplate.exchange(
+                                metricsUrl,
+                                HttpMethod.GET,
+                                null,
+                                new ParameterizedTypeReference<List<Map<String, Object>>>() {}
+                        ).getBody();
+                        assertEquals(2, body.size());
+                    }
+                }, callers));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            return Duration.between(start, Instant.now());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -2,8 +2,8 @@ package com.gogidix.centralizeddashboard.core.service;
 
 import com.gogidix.centralizeddashboard.core.model.DashboardKPI;
 import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.model.MetricAggregate;
 import com.gogidix.centralizeddashboard.core.repository.DashboardKPIRepository;
-import com.gogidix.centralizeddashboard.core.repository.DashboardMetricRepository;
 import com.gogidix.centralizeddashboard.core.service.impl.KPIServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,7 +26,7 @@ class KPIServiceImplTest {
     private DashboardKPIRepository kpiRepository;
 
     @Mock
-    private DashboardMetricRepository metricRepository;
+    private MetricAggregateService metricAggregateService;
 
     @InjectMocks
     private KPIServiceImpl kpiService;
@@ -84,32 +84,32 @@ class KPIServiceImplTest {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        // Mock all metric queries to return appropriate data or empty lists
+        // Mock all metric aggregates to return appropriate data or empty
         // Financial KPIs
-        when(metricRepository.findByMetricNameAndSourceDomain("revenue", DashboardMetric.SourceDomain.COURIER_SERVICES))
-                .thenReturn(Collections.singletonList(revenueMetric));
-        when(metricRepository.findByMetricNameAndSourceDomain("operational_cost", DashboardMetric.SourceDomain.COURIER_SERVICES))
-                .thenReturn(Collections.emptyList());
+        when(metricAggregateService.getAggregate("revenue", DashboardMetric.SourceDomain.COURIER_SERVICES))
+                .thenReturn(Optional.of(MetricAggregate.of(revenueMetric)));
+        when(metricAggregateService.getAggregate("operational_cost", DashboardMetric.SourceDomain.COURIER_SERVICES))
+                .thenReturn(Optional.empty());
         
         // Operational KPIs
-        when(metricRepository.findByMetricNameAndSourceDomain("global_delivery_success_rate", DashboardMetric.SourceDomain.COURIER_SERVICES))
-                .thenReturn(Collections.singletonList(deliverySuccessMetric));
-        when(metricRepository.findByMetricNameAndSourceDomain("global_average_delivery_time", DashboardMetric.SourceDomain.COURIER_SERVICES))
-                .thenReturn(Collections.emptyList());
+        when(metricAggregateService.getAggregate("global_delivery_success_rate", DashboardMetric.SourceDomain.COURIER_SERVICES))
+                .thenReturn(Optional.of(MetricAggregate.of(deliverySuccessMetric)));
+        when(metricAggregateService.getAggregate("global_average_delivery_time", DashboardMetric.SourceDomain.COURIER_SERVICES))
+                .thenReturn(Optional.empty());
         
         // Efficiency KPIs
-        when(metricRepository.findByMetricNameAndSourceDomain("global_courier_utilization", DashboardMetric.SourceDomain.COURIER_SERVICES))
-                .thenReturn(Collections.singletonList(deliverySuccessMetric));
-        when(metricRepository.findByMetricNameAndSourceDomain("driver_efficiency", DashboardMetric.SourceDomain.COURIER_SERVICES))
-                .thenReturn(Collections.emptyList());
+        when(metricAggregateService.getAggregate("global_courier_utilization", DashboardMetric.SourceDomain.COURIER_SERVICES))
+                .thenReturn(Optional.of(MetricAggregate.of(deliverySuccessMetric)));
+        when(metricAggregateService.getAggregate("driver_efficiency", DashboardMetric.SourceDomain.COURIER_SERVICES))
+                .thenReturn(Optional.empty());
         
         // Quality KPIs
-        when(metricRepository.findByMetricNameAndSourceDomain("local_on_time_delivery", DashboardMetric.SourceDomain.COURIER_SERVICES))
-                .thenReturn(Collections.singletonList(deliverySuccessMetric));
+        when(metricAggregateService.getAggregate("local_on_time_delivery", DashboardMetric.SourceDomain.COURIER_SERVICES))
+                .thenReturn(Optional.of(MetricAggregate.of(deliverySuccessMetric)));
         
         // Sustainability KPIs
-        when(metricRepository.findByMetricNameAndSourceDomain("fuel_consumption_rate", DashboardMetric.SourceDomain.COURIER_SERVICES))
-                .thenReturn(Collections.singletonList(revenueMetric));
+        when(metricAggregateService.getAggregate("fuel_consumption_rate", DashboardMetric.SourceDomain.COURIER_SERVICES))
+                .thenReturn(Optional.of(MetricAggregate.of(revenueMetric)));
         
         // Mock saveAll to return saved KPIs
         when(kpiRepository.saveAll(any())).thenReturn(Collections.singletonList(testKPI));
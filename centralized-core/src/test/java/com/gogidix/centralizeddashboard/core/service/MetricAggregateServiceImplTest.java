@@ -0,0 +1,250 @@
+package com.gogidix.centralizeddashboard.core.service;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.model.MetricAggregate;
+import com.gogidix.centralizeddashboard.core.repository.DashboardMetricRepository;
+import com.gogidix.centralizeddashboard.core.repository.MetricAggregateRepository;
+import com.gogidix.centralizeddashboard.core.service.impl.MetricAggregateServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricAggregateServiceImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Mock
+    private MetricAggregateRepository aggregateRepository;
+
+    @Mock
+    private DashboardMetricRepository metricRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate();
+
+    @InjectMocks
+    private MetricAggregateServiceImpl metricAggregateService;
+
+    @Test
+    void getAggregate_ShouldIncludeRecordedMetricsBeforeCheckpoint() {
+        // Given
+        when(aggregateRepository.findByMetricNameAndSourceDomain("revenue", DashboardMetric.SourceDomain.COURIER_SERVICES))
+                .thenReturn(Collections.emptyList());
+        metricAggregateService.record(List.of(
+                metric("revenue", 100.0, "EU", NOW.minusMinutes(5)),
+                metric("revenue", 300.0, "US", NOW),
+                metric("revenue", 200.0, "EU", NOW.minusMinutes(1))));
+
+        // When
+        Optional<MetricAggregate> result = metricAggregateService.getAggregate(
+                "revenue", DashboardMetric.SourceDomain.COURIER_SERVICES);
+
+        // Then
+        assertTrue(result.isPresent(), "Aggregate should be present");
+        assertEquals(3L, result.get().getSampleCount());
+        assertEquals(600.0, result.get().getSumValue());
+        assertEquals(200.0, result.get().getAverageValue());
+        assertEquals(100.0, result.get().getMinValue());
+        assertEquals(300.0, result.get().getMaxValue());
+        assertEquals(300.0, result.get().getLatestValue(), "Latest value should come from the newest sample");
+    }
+
+    @Test
+    void getAggregate_ShouldMergeStoredAndPendingWithoutMutatingStoredRows() {
+        // Given
+        MetricAggregate stored = MetricAggregate.of(metric("revenue", 500.0, "EU", NOW.minusDays(1)));
+        when(aggregateRepository.findByMetricNameAndSourceDomain("revenue", DashboardMetric.SourceDomain.COURIER_SERVICES))
+                .thenReturn(List.of(stored));
+        metricAggregateService.record(List.of(metric("revenue", 100.0, "EU", NOW)));
+
+        // When
+        Optional<MetricAggregate> result = metricAggregateService.getAggregate(
+                "revenue", DashboardMetric.SourceDomain.COURIER_SERVICES);
+
+        // Then
+        assertTrue(result.isPresent(), "Aggregate should be present");
+        assertEquals(2L, result.get().getSampleCount());
+        assertEquals(600.0, result.get().getSumValue());
+        assertEquals(100.0, result.get().getLatestValue());
+        assertEquals(1L, stored.getSampleCount(), "Stored aggregate should not be modified by reads");
+    }
+
+    @Test
+    void checkpoint_ShouldUpsertOneDeltaPerSeries() {
+        // Given
+        metricAggregateService.record(List.of(
+                metric("revenue", 100.0, "EU", NOW.minusMinutes(1)),
+                metric("revenue", 200.0, "EU", NOW),
+                metric("revenue", 50.0, "US", NOW)));
+
+        // When
+        int written = metricAggregateService.checkpoint();
+
+        // Then
+        assertEquals(2, written, "Should write one row per series");
+        ArgumentCaptor<MetricAggregate> captor = ArgumentCaptor.forClass(MetricAggregate.class);
+        verify(aggregateRepository, times(2)).upsert(captor.capture());
+        MetricAggregate eu = captor.getAllValues().stream()
+                .filter(delta -> delta.getRegion().equals("EU"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2L, eu.getSampleCount());
+        assertEquals(300.0, eu.getSumValue());
+        assertEquals(200.0, eu.getLatestValue());
+        verify(aggregateRepository, never()).save(any(MetricAggregate.class));
+        assertEquals(0, metricAggregateService.checkpoint(), "Buffer should be empty after a checkpoint");
+    }
+
+    @Test
+    void record_ShouldNormaliseMissingAndBlankRegionsToOneSeries() {
+        // Given
+        metricAggregateService.record(List.of(
+                metric("revenue", 100.0, null, NOW),
+                metric("revenue", 200.0, "", NOW),
+                metric("revenue", 300.0, " EU ", NOW),
+                metric("revenue", 400.0, "EU", NOW)));
+
+        // When
+        int written = metricAggregateService.checkpoint();
+
+        // Then
+        assertEquals(2, written, "Missing and blank regions should share one series");
+        ArgumentCaptor<MetricAggregate> captor = ArgumentCaptor.forClass(MetricAggregate.class);
+        verify(aggregateRepository, times(2)).upsert(captor.capture());
+        assertEquals(List.of(MetricAggregate.NO_REGION, "EU"), captor.getAllValues().stream()
+                .map(MetricAggregate::getRegion)
+                .sorted()
+                .toList());
+        assertTrue(captor.getAllValues().stream().allMatch(delta -> delta.getSampleCount() == 2L));
+    }
+
+    @Test
+    void flushOnShutdown_ShouldCheckpointInsideATransaction() {
+        // Given
+        TransactionStatus status = new SimpleTransactionStatus();
+        transactionTemplate.setTransactionManager(transactionManager);
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        metricAggregateService.record(List.of(metric("revenue", 100.0, "EU", NOW)));
+
+        // When
+        metricAggregateService.flushOnShutdown();
+
+        // Then
+        var order = inOrder(transactionManager, aggregateRepository);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(aggregateRepository).upsert(any(MetricAggregate.class));
+        order.verify(transactionManager).commit(status);
+    }
+
+    @Test
+    void checkpoint_WhenUpsertFails_ShouldRetainDeltasForRetry() {
+        // Given
+        doThrow(new RuntimeException("Database unavailable"))
+                .doNothing()
+                .when(aggregateRepository).upsert(any(MetricAggregate.class));
+        metricAggregateService.record(List.of(metric("revenue", 100.0, "EU", NOW)));
+
+        // When
+        assertThrows(RuntimeException.class, () -> metricAggregateService.checkpoint());
+        int written = metricAggregateService.checkpoint();
+
+        // Then
+        assertEquals(1, written, "Failed deltas should be written on the next checkpoint");
+        ArgumentCaptor<MetricAggregate> captor = ArgumentCaptor.forClass(MetricAggregate.class);
+        verify(aggregateRepository, times(2)).upsert(captor.capture());
+        assertEquals(1L, captor.getValue().getSampleCount(), "Retried delta should not be double counted");
+    }
+
+    @Test
+    void rebuildFromHistory_ShouldCreateAggregatesFromGroupedQuery() {
+        // Given
+        Object[] row = {"revenue", DashboardMetric.SourceDomain.COURIER_SERVICES, "", 4L, 1000.0, 100.0, 400.0, NOW};
+        when(metricRepository.summarizeMetricSeries()).thenReturn(Collections.singletonList(row));
+        when(metricRepository.findLatestMetricOfEachSeries())
+                .thenReturn(List.of(metric("revenue", 250.0, null, NOW)));
+
+        // When
+        int rebuilt = metricAggregateService.rebuildFromHistory();
+
+        // Then
+        assertEquals(1, rebuilt);
+        verify(aggregateRepository).deleteAllInBatch();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<MetricAggregate>> captor = ArgumentCaptor.forClass(List.class);
+        verify(aggregateRepository).saveAll(captor.capture());
+        MetricAggregate aggregate = captor.getValue().get(0);
+        assertEquals(MetricAggregate.NO_REGION, aggregate.getRegion());
+        assertEquals(4L, aggregate.getSampleCount());
+        assertEquals(250.0, aggregate.getAverageValue());
+        assertEquals(250.0, aggregate.getLatestValue());
+        verify(metricRepository, never()).findByMetricNameAndSourceDomain(any(), any());
+    }
+
+    @Test
+    void rebuildFromHistory_ShouldKeepDeltasRecordedDuringTheRebuild() {
+        // Given
+        metricAggregateService.record(List.of(metric("revenue", 100.0, "EU", NOW.minusMinutes(1))));
+        when(metricRepository.findLatestMetricOfEachSeries()).thenReturn(Collections.emptyList());
+        when(metricRepository.summarizeMetricSeries()).thenAnswer(invocation -> {
+            metricAggregateService.record(List.of(metric("revenue", 200.0, "EU", NOW)));
+            return Collections.emptyList();
+        });
+
+        // When
+        metricAggregateService.rebuildFromHistory();
+        int written = metricAggregateService.checkpoint();
+
+        // Then
+        assertEquals(1, written, "Delta recorded during the rebuild should be checkpointed");
+        ArgumentCaptor<MetricAggregate> captor = ArgumentCaptor.forClass(MetricAggregate.class);
+        verify(aggregateRepository).upsert(captor.capture());
+        assertEquals(1L, captor.getValue().getSampleCount(), "Delta recorded before the rebuild is covered by history");
+        assertEquals(200.0, captor.getValue().getSumValue());
+    }
+
+    @Test
+    void rebuildFromHistory_WhenRebuildFails_ShouldRetainBufferedDeltas() {
+        // Given
+        metricAggregateService.record(List.of(metric("revenue", 100.0, "EU", NOW)));
+        when(metricRepository.findLatestMetricOfEachSeries()).thenThrow(new RuntimeException("Database unavailable"));
+
+        // When
+        assertThrows(RuntimeException.class, () -> metricAggregateService.rebuildFromHistory());
+        int written = metricAggregateService.checkpoint();
+
+        // Then
+        assertEquals(1, written, "Deltas should survive a failed rebuild");
+        verify(aggregateRepository).upsert(any(MetricAggregate.class));
+    }
+
+    private DashboardMetric metric(String name, double value, String region, LocalDateTime timestamp) {
+        return DashboardMetric.builder()
+                .metricName(name)
+                .metricValue(value)
+                .sourceDomain(DashboardMetric.SourceDomain.COURIER_SERVICES)
+                .region(region)
+                .timestamp(timestamp)
+                .build();
+    }
+}
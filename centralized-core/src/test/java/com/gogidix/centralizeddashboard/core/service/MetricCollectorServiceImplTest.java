@@ -30,6 +30,12 @@ class MetricCollectorServiceImplTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private MetricAggregateService metricAggregateService;
+
+    @Mock
+    private MetricTimeSeriesService metricTimeSeriesService;
+
     @InjectMocks
     private MetricCollectorServiceImpl metricCollectorService;
 
@@ -38,7 +44,8 @@ class MetricCollectorServiceImplTest {
     @BeforeEach
     void setUp() {
         // Initialize service URLs
-        metricCollectorService = new MetricCollectorServiceImpl(metricRepository, restTemplate);
+        metricCollectorService = new MetricCollectorServiceImpl(metricRepository, restTemplate, metricAggregateService,
+                metricTimeSeriesService);
         metricCollectorService.setSocialCommerceServiceUrl("http://social-commerce-metrics");
         metricCollectorService.setWarehousingServiceUrl("http://warehousing-metrics");
         metricCollectorService.setCourierServiceUrl("http://courier-metrics");
@@ -141,6 +148,7 @@ class MetricCollectorServiceImplTest {
         // Then
         assertTrue(count > 0, "Should refresh some metrics");
         verify(metricRepository, times(1)).saveAll(any());
+        verify(metricAggregateService, times(1)).record(any());
     }
 
     @Test
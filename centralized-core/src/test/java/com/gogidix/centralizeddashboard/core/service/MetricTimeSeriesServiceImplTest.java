@@ -0,0 +1,103 @@
+package com.gogidix.centralizeddashboard.core.service;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import com.gogidix.centralizeddashboard.core.repository.DashboardMetricRepository;
+import com.gogidix.centralizeddashboard.core.service.impl.MetricTimeSeriesServiceImpl;
+import com.gogidix.centralizeddashboard.core.timeseries.SeriesKey;
+import com.gogidix.centralizeddashboard.core.timeseries.TimeSeriesStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricTimeSeriesServiceImplTest {
+
+    private static final LocalDateTime PERSISTED = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Mock
+    private DashboardMetricRepository metricRepository;
+
+    private TimeSeriesStore timeSeriesStore;
+    private MetricTimeSeriesServiceImpl metricTimeSeriesService;
+
+    @BeforeEach
+    void setUp() {
+        timeSeriesStore = new TimeSeriesStore(null, Duration.ofDays(1), 16, Duration.ZERO);
+        metricTimeSeriesService = new MetricTimeSeriesServiceImpl(timeSeriesStore, metricRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timeSeriesStore.close();
+    }
+
+    @Test
+    void loadFromHistory_ShouldLoadTheRangeTakenBeforeMetricsWereRecorded() {
+        // Given a store persisted up to noon and a history of 42 metrics at startup
+        DashboardMetric persisted = metric(1L, 10.0, PERSISTED);
+        timeSeriesStore.append(SeriesKey.from(persisted), PERSISTED.toInstant(ZoneOffset.UTC).toEpochMilli(), 10.0);
+        when(metricRepository.findTopByOrderByIdDesc()).thenReturn(metric(42L, 1.0, PERSISTED.plusHours(2)));
+        metricTimeSeriesService.captureHistoryRange();
+
+        // and a metric collected before the history is loaded
+        metricTimeSeriesService.record(List.of(metric(43L, 5.0, PERSISTED.plusHours(3))));
+        DashboardMetric missing = metric(41L, 20.0, PERSISTED.plusHours(1));
+        when(metricRepository.findByIdGreaterThanAndIdLessThanEqualAndTimestampAfterOrderByIdAsc(
+                eq(0L), eq(42L), eq(PERSISTED), any(Pageable.class)))
+                .thenReturn(List.of(missing));
+
+        // When
+        int loaded = metricTimeSeriesService.loadFromHistory();
+
+        // Then
+        assertEquals(1, loaded);
+        assertEquals(3, timeSeriesStore.pointCount());
+        verify(metricRepository).findByIdGreaterThanAndIdLessThanEqualAndTimestampAfterOrderByIdAsc(
+                eq(0L), eq(42L), eq(PERSISTED), any(Pageable.class));
+    }
+
+    @Test
+    void loadFromHistory_WhenStoreAndHistoryAreEmpty_ShouldLoadNothing() {
+        // Given
+        when(metricRepository.findTopByOrderByIdDesc()).thenReturn(null);
+        metricTimeSeriesService.captureHistoryRange();
+        when(metricRepository.findByIdGreaterThanAndIdLessThanEqualAndTimestampAfterOrderByIdAsc(
+                anyLong(), anyLong(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        int loaded = metricTimeSeriesService.loadFromHistory();
+
+        // Then
+        assertEquals(0, loaded);
+        verify(metricRepository).findByIdGreaterThanAndIdLessThanEqualAndTimestampAfterOrderByIdAsc(
+                eq(0L), eq(0L), eq(LocalDateTime.of(1970, 1, 1, 0, 0)), any(Pageable.class));
+    }
+
+    private DashboardMetric metric(Long id, double value, LocalDateTime timestamp) {
+        return DashboardMetric.builder()
+                .id(id)
+                .metricName("revenue")
+                .metricValue(value)
+                .sourceDomain(DashboardMetric.SourceDomain.COURIER_SERVICES)
+                .region("EU")
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.gogidix.centralizeddashboard.core.service.snapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotEngineTest {
+
+    private final AtomicInteger builds = new AtomicInteger();
+    private SnapshotEngine<String> engine;
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    @Test
+    void get_ShouldBuildOnceAndServeSameSnapshot() {
+        // Given
+        engine = new SnapshotEngine<>("test", () -> "summary-" + builds.incrementAndGet(),
+                Duration.ofMillis(10), Duration.ofMinutes(1));
+
+        // When
+        Snapshot<String> first = engine.get();
+        Snapshot<String> second = engine.get();
+
+        // Then
+        assertSame(first, second);
+        assertEquals("summary-1", first.getValue());
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void rebuild_ShouldPublishNewVersionWithNewETag() {
+        // Given
+        engine = new SnapshotEngine<>("test", () -> "summary-" + builds.incrementAndGet(),
+                Duration.ofMillis(10), Duration.ofMinutes(1));
+        Snapshot<String> first = engine.get();
+
+        // When
+        Snapshot<String> rebuilt = engine.rebuild();
+
+        // Then
+        assertTrue(rebuilt.getVersion() > first.getVersion());
+        assertNotEquals(first.getETag(), rebuilt.getETag());
+        assertSame(rebuilt, engine.get());
+    }
+
+    @Test
+    void invalidate_ShouldCoalesceBurstIntoOneBackgroundRebuild() throws InterruptedException {
+        // Given
+        engine = new SnapshotEngine<>("test", () -> "summary-" + builds.incrementAndGet(),
+                Duration.ofMillis(100), Duration.ofMinutes(1));
+        engine.get();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            engine.invalidate();
+        }
+        assertEquals("summary-1", engine.get().getValue(), "Readers should keep the current snapshot");
+        waitForBuilds(2);
+
+        // Then
+        assertEquals(2, builds.get());
+        assertEquals("summary-2", engine.get().getValue());
+    }
+
+    @Test
+    void invalidate_ShouldKeepSnapshotWhenBackgroundRebuildFails() throws InterruptedException {
+        // Given
+        engine = new SnapshotEngine<>("test", () -> {
+            if (builds.incrementAndGet() > 1) {
+                throw new IllegalStateException("Repository unavailable");
+            }
+            return "summary-1";
+        }, Duration.ofMillis(10), Duration.ofMinutes(1));
+        Snapshot<String> first = engine.get();
+
+        // When
+        engine.invalidate();
+        waitForBuilds(2);
+
+        // Then
+        assertSame(first, engine.get());
+    }
+
+    @Test
+    void get_ShouldRebuildInBackgroundWhenSnapshotExceedsMaxAge() throws InterruptedException {
+        // Given
+        Instant start = Instant.parse("2024-01-01T12:00:00Z");
+        MutableClock clock = new MutableClock(start);
+        engine = new SnapshotEngine<>("test", () -> "summary-" + builds.incrementAndGet(),
+                Duration.ofMillis(10), Duration.ofSeconds(60), clock);
+        engine.get();
+
+        // When
+        clock.instant = start.plusSeconds(61);
+        Snapshot<String> stale = engine.get();
+        waitForBuilds(2);
+
+        // Then
+        assertEquals("summary-1", stale.getValue(), "An old snapshot should still be served");
+        assertEquals("summary-2", engine.get().getValue());
+    }
+
+    private void waitForBuilds(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (builds.get() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // Let the build publish its snapshot
+        Thread.sleep(50);
+    }
+
+    private static class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
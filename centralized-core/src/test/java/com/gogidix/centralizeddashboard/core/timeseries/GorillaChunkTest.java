@@ -0,0 +1,87 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GorillaChunkTest {
+
+    @Test
+    void encode_ShouldRoundTripIrregularTimestampsAndValues() {
+        // Given
+        Random random = new Random(7);
+        int count = 1000;
+        long[] timestamps = new long[count];
+        double[] values = new double[count];
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            // Mix of regular steps, jitter, long gaps and duplicates
+            timestamp += switch (i % 4) {
+                case 0 -> 60_000;
+                case 1 -> 60_000 + random.nextInt(5_000) - 2_500;
+                case 2 -> random.nextInt(10) == 0 ? 86_400_000L * 30 : 1;
+                default -> 0;
+            };
+            timestamps[i] = timestamp;
+            values[i] = switch (i % 5) {
+                case 0 -> random.nextGaussian() * 1e6;
+                case 1 -> values[Math.max(0, i - 1)];
+                case 2 -> Double.NaN;
+                case 3 -> -0.0;
+                default -> Math.round(random.nextDouble() * 10_000) / 100.0;
+            };
+        }
+
+        // When
+        GorillaChunk chunk = GorillaChunk.encode(timestamps, values, count);
+        long[] decodedTimestamps = new long[count];
+        double[] decodedValues = new double[count];
+        chunk.decode(decodedTimestamps, decodedValues);
+
+        // Then
+        assertArrayEquals(timestamps, decodedTimestamps);
+        for (int i = 0; i < count; i++) {
+            assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(decodedValues[i]), "value " + i);
+        }
+        assertEquals(timestamps[0], chunk.minTimestamp());
+        assertEquals(timestamps[count - 1], chunk.maxTimestamp());
+    }
+
+    @Test
+    void encode_ShouldCompressRegularGaugeToFewBytesPerPoint() {
+        // Given a gauge sampled every 15 minutes that changes in small steps
+        int count = 1024;
+        long[] timestamps = new long[count];
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = 1_700_000_000_000L + i * 900_000L;
+            values[i] = 250 + (i / 8) % 20;
+        }
+
+        // When
+        GorillaChunk chunk = GorillaChunk.encode(timestamps, values, count);
+
+        // Then
+        double bytesPerPoint = chunk.data().length * 8.0 / count;
+        assertTrue(bytesPerPoint < 1.0, "Expected under 1 byte per point but was " + bytesPerPoint);
+        assertEquals(count, chunk.count());
+        assertEquals(250, chunk.min());
+        assertEquals(269, chunk.max());
+    }
+
+    @Test
+    void encode_ShouldKeepSinglePoint() {
+        // When
+        GorillaChunk chunk = GorillaChunk.encode(new long[]{42}, new double[]{3.5}, 1);
+        long[] timestamps = new long[1];
+        double[] values = new double[1];
+        chunk.decode(timestamps, values);
+
+        // Then
+        assertEquals(42, timestamps[0]);
+        assertEquals(3.5, values[0]);
+        assertEquals(3.5, chunk.sum());
+    }
+}
@@ -0,0 +1,276 @@
+package com.gogidix.centralizeddashboard.core.timeseries;
+
+import com.gogidix.centralizeddashboard.core.model.DashboardMetric;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSeriesStoreTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long DAY = Duration.ofDays(1).toMillis();
+    private static final long START = Instant.parse("2024-03-01T00:00:00Z").toEpochMilli();
+
+    private static final SeriesKey ORDERS_EU = SeriesKey.of("orders", DashboardMetric.SourceDomain.SOCIAL_COMMERCE, "EU");
+    private static final SeriesKey ORDERS_US = SeriesKey.of("orders", DashboardMetric.SourceDomain.SOCIAL_COMMERCE, "US");
+    private static final SeriesKey STOCK = SeriesKey.of("stock", DashboardMetric.SourceDomain.WAREHOUSING, "");
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock(Instant.ofEpochMilli(START));
+    private TimeSeriesStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void range_ShouldReturnPointsSortedAcrossChunksAndLateArrivals() {
+        // Given
+        store = new TimeSeriesStore(null, Duration.ofDays(1), 8, Duration.ZERO, clock);
+        for (int i = 0; i < 20; i++) {
+            store.append(ORDERS_EU, START + i * 60_000L, i);
+        }
+        store.append(ORDERS_EU, START + 90_000L, 100); // late, lands between sealed points
+        store.append(ORDERS_US, START + 60_000L, -1);
+
+        // When
+        SeriesPoints points = store.range(ORDERS_EU, START + 60_000L, START + 5 * 60_000L);
+
+        // Then
+        assertEquals(5, points.size());
+        assertEquals(START + 60_000L, points.getTimestamp(0));
+        assertEquals(START + 90_000L, points.getTimestamp(1));
+        assertEquals(100, points.getValue(1));
+        assertEquals(START + 4 * 60_000L, points.getTimestamp(4));
+    }
+
+    @Test
+    void aggregateAndDownsample_ShouldMatchRawPointsInMemoryAndOnDisk() {
+        // Given three days of two series, the first day persisted to a segment
+        store = new TimeSeriesStore(directory, Duration.ofDays(1), 64, Duration.ZERO, clock);
+        List<long[]> timestamps = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        Random random = new Random(3);
+        for (long timestamp = START; timestamp < START + 3 * DAY; timestamp += 5 * 60_000L) {
+            double value = random.nextInt(1000) / 10.0;
+            SeriesKey key = random.nextBoolean() ? ORDERS_EU : ORDERS_US;
+            store.append(key, timestamp, value);
+            timestamps.add(new long[]{timestamp});
+            values.add(value);
+        }
+        store.append(STOCK, START + HOUR, 1e9);
+        clock.instant = Instant.ofEpochMilli(START + DAY + 2 * HOUR);
+        assertEquals(1, store.flush());
+
+        long from = START + 7 * HOUR + 1;
+        long to = START + 2 * DAY + 13 * HOUR;
+
+        // When
+        SeriesAggregate aggregate = store.aggregate(key -> key.getMetricName().equals("orders"), from, to);
+        DownsampledSeries days = store.downsample(key -> key.getMetricName().equals("orders"), from, to, Duration.ofDays(1));
+
+        // Then
+        long count = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        long[] dayCounts = new long[3];
+        double[] daySums = new double[3];
+        for (int i = 0; i < timestamps.size(); i++) {
+            long timestamp = timestamps.get(i)[0];
+            if (timestamp >= from && timestamp < to) {
+                double value = values.get(i);
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                int day = (int) ((timestamp - START) / DAY);
+                dayCounts[day]++;
+                daySums[day] += value;
+            }
+        }
+        assertEquals(count, aggregate.getCount());
+        assertEquals(sum, aggregate.getSum(), 1e-6);
+        assertEquals(min, aggregate.getMin());
+        assertEquals(max, aggregate.getMax());
+
+        assertEquals(3, days.size());
+        for (int day = 0; day < 3; day++) {
+            assertEquals(START + day * DAY, days.getBucketStart(day));
+            assertEquals(dayCounts[day], days.getCount(day));
+            assertEquals(daySums[day] / dayCounts[day], days.getAverage(day), 1e-9);
+        }
+    }
+
+    @Test
+    void close_ShouldPersistPointsThatAreReadAfterReopening() throws IOException {
+        // Given
+        store = new TimeSeriesStore(directory, Duration.ofDays(1), 16, Duration.ZERO, clock);
+        for (int i = 0; i < 100; i++) {
+            store.append(ORDERS_EU, START + i * HOUR, i);
+        }
+        store.close();
+
+        // When
+        store = new TimeSeriesStore(directory, Duration.ofDays(1), 16, Duration.ZERO, clock);
+
+        // Then
+        assertEquals(100, store.pointCount());
+        assertEquals(START + 99 * HOUR, store.latestTimestamp().getAsLong());
+        SeriesPoints points = store.range(ORDERS_EU, START, START + 100 * HOUR);
+        assertEquals(100, points.size());
+        assertEquals(42, points.getValue(42));
+        assertEquals(5, segmentFiles().size());
+    }
+
+    @Test
+    void flush_ShouldMergeLatePointsIntoTheSegmentOfTheirPartition() throws IOException {
+        // Given a persisted first day
+        store = new TimeSeriesStore(directory, Duration.ofDays(1), 16, Duration.ZERO, clock);
+        for (int i = 0; i < 24; i++) {
+            store.append(ORDERS_EU, START + i * HOUR, 1);
+        }
+        clock.instant = Instant.ofEpochMilli(START + DAY + 2 * HOUR);
+        store.flush();
+
+        // When a late point arrives for it
+        store.append(ORDERS_EU, START + 30 * 60_000L, 10);
+        store.flush();
+
+        // Then
+        assertEquals(1, segmentFiles().size());
+        SeriesAggregate aggregate = store.aggregate(ORDERS_EU::equals, START, START + DAY);
+        assertEquals(25, aggregate.getCount());
+        assertEquals(34, aggregate.getSum());
+        assertEquals(START + 30 * 60_000L, store.range(ORDERS_EU, START, START + HOUR).getTimestamp(1));
+    }
+
+    @Test
+    void open_ShouldSkipSegmentsLeftOverFromAnInterruptedCompaction() throws IOException {
+        // Given a partition persisted on close, then compacted, as if the process stopped
+        // after writing the compacted segment and before deleting the one it replaces
+        store = new TimeSeriesStore(directory, Duration.ofDays(1), 16, Duration.ZERO, clock);
+        for (int i = 0; i < 10; i++) {
+            store.append(ORDERS_EU, START + i * HOUR, 1);
+        }
+        store.close();
+        Path closedSegment = segmentFiles().get(0);
+        byte[] closedContent = Files.readAllBytes(closedSegment);
+
+        store = new TimeSeriesStore(directory, Duration.ofDays(1), 16, Duration.ZERO, clock);
+        store.append(ORDERS_EU, START + 12 * HOUR, 1);
+        clock.instant = Instant.ofEpochMilli(START + DAY + 2 * HOUR);
+        store.flush();
+        store.close();
+        Files.write(closedSegment, closedContent);
+        assertEquals(2, segmentFiles().size());
+
+        // When
+        store = new TimeSeriesStore(directory, Duration.ofDays(1), 16, Duration.ZERO, clock);
+
+        // Then
+        assertEquals(11, store.pointCount());
+        assertEquals(11, store.aggregate(ORDERS_EU::equals, START, START + DAY).getCount());
+        List<Path> segments = segmentFiles();
+        assertEquals(1, segments.size());
+        assertTrue(segments.get(0).getFileName().toString().endsWith("-compacted.dts"));
+    }
+
+    @Test
+    void flush_ShouldDropPartitionsBeyondRetention() throws IOException {
+        // Given
+        store = new TimeSeriesStore(directory, Duration.ofDays(1), 16, Duration.ofDays(7), clock);
+        store.append(ORDERS_EU, START, 1);
+        store.append(ORDERS_EU, START + 5 * DAY, 2);
+        clock.instant = Instant.ofEpochMilli(START + 2 * DAY);
+        store.flush();
+        assertEquals(1, segmentFiles().size());
+
+        // When
+        clock.instant = Instant.ofEpochMilli(START + 9 * DAY);
+        store.flush();
+
+        // Then only the segment of the sixth day is left
+        assertEquals(1, store.pointCount());
+        List<Path> segments = segmentFiles();
+        assertEquals(1, segments.size());
+        assertTrue(segments.get(0).getFileName().toString().startsWith("segment-" + (START + 5 * DAY) + "-"));
+        assertFalse(store.append(ORDERS_EU, START + DAY, 3));
+    }
+
+    @Test
+    void residentBytes_ShouldBeFarBelowOneRowPerPoint() {
+        // Given 100 series sampled every 15 minutes for 30 days
+        store = new TimeSeriesStore(null, Duration.ofDays(1), 1024, Duration.ZERO, clock);
+        Random random = new Random(11);
+        int points = 0;
+        for (int series = 0; series < 100; series++) {
+            SeriesKey key = SeriesKey.of("metric_" + series, DashboardMetric.SourceDomain.COURIER_SERVICES, "EU");
+            double value = 100;
+            for (long timestamp = START; timestamp < START + 30 * DAY; timestamp += 900_000L) {
+                value += random.nextInt(3) - 1;
+                store.append(key, timestamp, value);
+                points++;
+            }
+        }
+
+        clock.instant = Instant.ofEpochMilli(START + 31 * DAY);
+        store.flush();
+
+        // When
+        double bytesPerPoint = (double) store.residentBytes() / points;
+
+        // Then a DashboardMetric entity takes over 200 bytes per point on the heap
+        assertEquals(points, store.pointCount());
+        assertTrue(bytesPerPoint < 8, "Expected under 8 bytes per point but was " + bytesPerPoint);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".dts")).toList();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
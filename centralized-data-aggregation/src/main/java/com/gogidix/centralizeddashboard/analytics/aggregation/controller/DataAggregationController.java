@@ -14,8 +14,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * REST controller for data aggregation operations
@@ -189,7 +191,26 @@ public class DataAggregationController {
     }
     
     /**
-     * Trigger data aggregation manually
+     * Get a unique count (e.g. unique_users) over a time range, merged from hourly sketches
+     */
+    @GetMapping("/unique-count")
+    public ResponseEntity<Long> getUniqueCount(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "overall") String dimension,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        try {
+            long uniqueCount = dataAggregationService.estimateUniqueCount(name, dimension, start, end);
+            return ResponseEntity.ok(uniqueCount);
+        } catch (Exception e) {
+            logger.error("Error getting unique count: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Trigger data aggregation manually.
+     * Several granularities can be given as a comma-separated list and are aggregated in one scan.
      */
     @PostMapping("/aggregate")
     public ResponseEntity<Void> triggerDataAggregation(
@@ -197,8 +218,11 @@ public class DataAggregationController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
             @RequestParam String granularity) {
         try {
-            TimeGranularity timeGranularity = TimeGranularity.valueOf(granularity.toUpperCase());
-            dataAggregationService.aggregateData(start, end, timeGranularity);
+            Set<TimeGranularity> granularities = EnumSet.noneOf(TimeGranularity.class);
+            for (String value : granularity.split(",")) {
+                granularities.add(TimeGranularity.valueOf(value.trim().toUpperCase()));
+            }
+            dataAggregationService.aggregateData(start, end, granularities);
             return ResponseEntity.accepted().build();
         } catch (IllegalArgumentException e) {
             logger.error("Invalid parameters: {}", e.getMessage());
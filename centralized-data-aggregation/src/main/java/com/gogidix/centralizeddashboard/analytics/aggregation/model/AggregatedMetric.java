@@ -67,6 +67,12 @@ public class AggregatedMetric {
     @Convert(converter = JsonAttributeConverter.class)
     @Builder.Default
     private Map<String, Object> attributes = new HashMap<>();
+    
+    /**
+     * Serialized HyperLogLog sketch behind UNIQUE_COUNT metrics, used to merge unique counts across periods
+     */
+    @Column
+    private byte[] sketch;
 
     /**
      * Add an attribute to the metrics attributes map
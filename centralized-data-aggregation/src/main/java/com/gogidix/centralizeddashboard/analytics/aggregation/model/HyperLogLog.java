@@ -0,0 +1,170 @@
+package com.gogidix.centralizeddashboard.analytics.aggregation.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog sketch for estimating the number of distinct values in a stream.
+ * Sketches of the same precision can be merged, so unique counts of a long period
+ * can be derived from the sketches of its sub-periods without rescanning raw events.
+ * With the default precision of 14 the sketch uses 16 KB and has a standard error of about 0.8%.
+ */
+public class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 14;
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+    private static final int HEADER_SIZE = 3;
+
+    /**
+     * Estimates up to this many times the number of registers use linear counting
+     */
+    private static final double LINEAR_COUNTING_THRESHOLD = 3.0;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Add a value to the sketch; null values are ignored
+     */
+    public void add(String value) {
+        if (value == null) {
+            return;
+        }
+        long hash = hash(value);
+        int index = (int) (hash >>> (64 - precision));
+        // Rank of the first set bit in the remaining bits; the sentinel bit caps it at 64 - precision + 1
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Merge another sketch of the same precision into this one
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(
+                    "Cannot merge sketches of precision " + other.precision + " into precision " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Estimate the number of distinct values added to the sketch
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        // Linear counting is more accurate while many registers are still empty. The switch is decided
+        // on the linear count itself: the raw estimate overshoots by about 2% just above 2.5m, so deciding
+        // on it would pick the biased estimate right where it is worst
+        if (zeros > 0) {
+            double linearCount = m * Math.log((double) m / zeros);
+            if (linearCount <= LINEAR_COUNTING_THRESHOLD * m) {
+                return Math.round(linearCount);
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        return Math.round(alpha * m * m / sum);
+    }
+
+    /**
+     * Serialize the sketch, using a sparse encoding while few registers are set
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+
+        // Each sparse entry takes 3 bytes against 1 byte per register when dense
+        if (4 + nonZero * 3 < registers.length) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 + nonZero * 3);
+            buffer.put(FORMAT_VERSION).put((byte) precision).put(SPARSE).putInt(nonZero);
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    buffer.putChar((char) i).put(registers[i]);
+                }
+            }
+            return buffer.array();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + registers.length);
+        buffer.put(FORMAT_VERSION).put((byte) precision).put(DENSE).put(registers);
+        return buffer.array();
+    }
+
+    /**
+     * Deserialize a sketch produced by {@link #toBytes()}
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported sketch format version: " + version);
+        }
+        HyperLogLog sketch = new HyperLogLog(buffer.get());
+        byte encoding = buffer.get();
+        if (encoding == SPARSE) {
+            int entries = buffer.getInt();
+            for (int i = 0; i < entries; i++) {
+                sketch.registers[buffer.getChar()] = buffer.get();
+            }
+        } else {
+            buffer.get(sketch.registers);
+        }
+        return sketch;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, followed by the MurmurHash3 finalizer for avalanche
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
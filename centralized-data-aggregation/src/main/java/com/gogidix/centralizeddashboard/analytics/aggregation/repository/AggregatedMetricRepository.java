@@ -5,10 +5,16 @@ import com.gogidix.centralizeddashboard.analytics.aggregation.model.MetricType;
 import com.gogidix.centralizeddashboard.analytics.aggregation.model.TimeGranularity;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository for aggregated metrics
@@ -90,4 +96,42 @@ public interface AggregatedMetricRepository extends JpaRepository<AggregatedMetr
      * Find metrics with end time before a given time
      */
     List<AggregatedMetric> findByEndTimeBefore(LocalDateTime end);
-} 
\ No newline at end of file
+    
+    /**
+     * Count the distinct periods of a granularity within a time range that have a stored sketch
+     */
+    @Query("SELECT COUNT(DISTINCT m.startTime) FROM AggregatedMetric m " +
+           "WHERE m.granularity = :granularity AND m.name = :name AND m.dimension = :dimension " +
+           "AND m.startTime >= :start AND m.endTime <= :end AND m.sketch IS NOT NULL")
+    long countSketchedPeriods(@Param("granularity") TimeGranularity granularity,
+            @Param("name") String name, @Param("dimension") String dimension,
+            @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    /**
+     * Stream the sketches of all unique count metrics of a granularity within a time range.
+     * Each row holds name, dimension and sketch.
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "100"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT m.name, m.dimension, m.sketch FROM AggregatedMetric m " +
+           "WHERE m.granularity = :granularity " +
+           "AND m.startTime >= :start AND m.endTime <= :end AND m.sketch IS NOT NULL")
+    Stream<Object[]> streamSketches(@Param("granularity") TimeGranularity granularity,
+            @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    /**
+     * Stream the sketches of one unique count metric of a granularity within a time range
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "100"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT m.sketch FROM AggregatedMetric m " +
+           "WHERE m.granularity = :granularity AND m.name = :name AND m.dimension = :dimension " +
+           "AND m.startTime >= :start AND m.endTime <= :end AND m.sketch IS NOT NULL")
+    Stream<byte[]> streamSketches(@Param("granularity") TimeGranularity granularity,
+            @Param("name") String name, @Param("dimension") String dimension,
+            @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
@@ -7,10 +7,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository for analytics events
@@ -118,4 +123,19 @@ public interface AnalyticsEventRepository extends JpaRepository<AnalyticsEvent,
            "e.timestamp BETWEEN ?2 AND ?3 " +
            "GROUP BY FUNCTION('HOUR', e.timestamp)")
     List<Object[]> getHourlyEventCounts(EventType eventType, LocalDateTime start, LocalDateTime end);
-} 
\ No newline at end of file
+    
+    /**
+     * Stream the fields needed for aggregation of every event in a time range, ordered by timestamp.
+     * Each row holds eventType, sourceService, userId, sessionId and timestamp. Rows are fetched
+     * through a database cursor, so the stream must be consumed and closed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT e.eventType, e.sourceService, e.userId, e.sessionId, e.timestamp " +
+           "FROM AnalyticsEvent e " +
+           "WHERE e.timestamp BETWEEN :start AND :end " +
+           "ORDER BY e.timestamp")
+    Stream<Object[]> streamAggregationRows(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+}
@@ -0,0 +1,83 @@
+package com.gogidix.centralizeddashboard.analytics.aggregation.service;
+
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.AggregatedMetric;
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.JsonAttributeConverter;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers aggregated metrics and writes them to the aggregated_metrics table
+ * in JDBC batches, bypassing the persistence context.
+ * Instances are not thread-safe and are meant to be used for a single aggregation run.
+ */
+class AggregatedMetricBatchWriter implements AutoCloseable {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO aggregated_metrics " +
+            "(id, metric_type, name, dimension, value, start_time, end_time, granularity, created_at, attributes, sketch) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final JsonAttributeConverter ATTRIBUTE_CONVERTER = new JsonAttributeConverter();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final List<Object[]> pending;
+    private int written;
+
+    AggregatedMetricBatchWriter(JdbcTemplate jdbcTemplate, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.pending = new ArrayList<>(this.batchSize);
+    }
+
+    /**
+     * Queue a metric, writing the current batch once it is full
+     */
+    void write(AggregatedMetric metric) {
+        pending.add(new Object[]{
+                metric.getId(),
+                metric.getMetricType().name(),
+                metric.getName(),
+                metric.getDimension(),
+                metric.getValue(),
+                Timestamp.valueOf(metric.getStartTime()),
+                Timestamp.valueOf(metric.getEndTime()),
+                metric.getGranularity().name(),
+                Timestamp.valueOf(metric.getCreatedAt()),
+                ATTRIBUTE_CONVERTER.convertToDatabaseColumn(metric.getAttributes()),
+                metric.getSketch()
+        });
+
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Write any queued metrics
+     */
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, pending);
+        written += pending.size();
+        pending.clear();
+    }
+
+    /**
+     * Number of metrics written so far
+     */
+    int getWrittenCount() {
+        return written;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -2,6 +2,7 @@ package com.gogidix.centralizeddashboard.analytics.aggregation.service;
 
 import com.gogidix.centralizeddashboard.analytics.aggregation.model.AnalyticsEvent;
 import com.gogidix.centralizeddashboard.analytics.aggregation.model.EventType;
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.HyperLogLog;
 import com.gogidix.centralizeddashboard.analytics.aggregation.repository.AnalyticsEventRepository;
 
 import org.slf4j.Logger;
@@ -15,10 +16,12 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the analytics service
@@ -170,29 +173,29 @@ public class AnalyticsServiceImpl implements AnalyticsService {
     public Map<String, Object> getUserEngagementMetrics(LocalDateTime start, LocalDateTime end) {
         Map<String, Object> metrics = new HashMap<>();
         
-        // Count total events in the period
-        long totalEvents = eventRepository.countByTimestampBetween(start, end);
+        // Count events, unique users and unique sessions in a single streaming pass
+        HyperLogLog users = new HyperLogLog();
+        HyperLogLog sessions = new HyperLogLog();
+        Map<EventType, Long> eventsByType = new EnumMap<>(EventType.class);
+        
+        try (Stream<Object[]> rows = eventRepository.streamAggregationRows(start, end)) {
+            rows.forEach(row -> {
+                eventsByType.merge((EventType) row[0], 1L, Long::sum);
+                users.add((String) row[2]);
+                sessions.add((String) row[3]);
+            });
+        }
+        
+        long totalEvents = eventsByType.values().stream().mapToLong(Long::longValue).sum();
         metrics.put("totalEvents", totalEvents);
         
-        // Count unique users in the period
-        List<AnalyticsEvent> events = eventRepository.findByTimestampBetween(start, end);
-        long uniqueUsers = events.stream()
-                .map(AnalyticsEvent::getUserId)
-                .distinct()
-                .count();
+        long uniqueUsers = users.estimate();
         metrics.put("uniqueUsers", uniqueUsers);
         
-        // Count unique sessions in the period
-        long uniqueSessions = events.stream()
-                .map(AnalyticsEvent::getSessionId)
-                .distinct()
-                .count();
+        long uniqueSessions = sessions.estimate();
         metrics.put("uniqueSessions", uniqueSessions);
         
         // Count events by type
-        Map<EventType, Long> eventsByType = events.stream()
-                .collect(Collectors.groupingBy(AnalyticsEvent::getEventType, Collectors.counting()));
-        
         Map<String, Long> eventCounts = new HashMap<>();
         eventsByType.forEach((type, count) -> eventCounts.put(type.name(), count));
         metrics.put("eventCounts", eventCounts);
@@ -7,6 +7,7 @@ import com.gogidix.centralizeddashboard.analytics.aggregation.model.TimeGranular
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Service interface for data aggregation operations
@@ -86,11 +87,21 @@ public interface DataAggregationService {
             String name, String dimension, LocalDateTime start, LocalDateTime end, 
             TimeGranularity granularity);
     
+    /**
+     * Estimate a unique count (e.g. unique_users) over a time range by merging the stored hourly sketches
+     */
+    long estimateUniqueCount(String name, String dimension, LocalDateTime start, LocalDateTime end);
+    
     /**
      * Aggregate data for a specific time period and granularity
      */
     void aggregateData(LocalDateTime start, LocalDateTime end, TimeGranularity granularity);
     
+    /**
+     * Aggregate data for a specific time period into several granularities with a single scan of the events
+     */
+    void aggregateData(LocalDateTime start, LocalDateTime end, Set<TimeGranularity> granularities);
+    
     /**
      * Aggregate user activity metrics
      */
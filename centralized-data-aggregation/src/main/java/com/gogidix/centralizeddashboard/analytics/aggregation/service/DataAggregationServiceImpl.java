@@ -1,16 +1,19 @@
 package com.gogidix.centralizeddashboard.analytics.aggregation.service;
 
 import com.gogidix.centralizeddashboard.analytics.aggregation.model.AggregatedMetric;
-import com.gogidix.centralizeddashboard.analytics.aggregation.model.AnalyticsEvent;
 import com.gogidix.centralizeddashboard.analytics.aggregation.model.EventType;
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.HyperLogLog;
 import com.gogidix.centralizeddashboard.analytics.aggregation.model.MetricType;
 import com.gogidix.centralizeddashboard.analytics.aggregation.model.TimeGranularity;
 import com.gogidix.centralizeddashboard.analytics.aggregation.repository.AggregatedMetricRepository;
 import com.gogidix.centralizeddashboard.analytics.aggregation.repository.AnalyticsEventRepository;
+import com.gogidix.centralizeddashboard.analytics.aggregation.service.StreamingEventAggregator.MetricGroup;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,10 +22,14 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the data aggregation service
@@ -35,13 +42,19 @@ public class DataAggregationServiceImpl implements DataAggregationService {
     
     private final AggregatedMetricRepository metricRepository;
     private final AnalyticsEventRepository eventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
     
     @Autowired
     public DataAggregationServiceImpl(
             AggregatedMetricRepository metricRepository,
-            AnalyticsEventRepository eventRepository) {
+            AnalyticsEventRepository eventRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${analytics.aggregation.batch-size:500}") int batchSize) {
         this.metricRepository = metricRepository;
         this.eventRepository = eventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
     }
 
     @Override
@@ -176,17 +189,34 @@ public class DataAggregationServiceImpl implements DataAggregationService {
         return result;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public long estimateUniqueCount(String name, String dimension, LocalDateTime start, LocalDateTime end) {
+        HyperLogLog merged = new HyperLogLog();
+        
+        try (Stream<byte[]> sketches = metricRepository.streamSketches(
+                TimeGranularity.HOUR, name, dimension, start, end)) {
+            sketches.forEach(sketch -> merged.merge(HyperLogLog.fromBytes(sketch)));
+        }
+        
+        return merged.estimate();
+    }
+
     @Override
     @Transactional
     public void aggregateData(LocalDateTime start, LocalDateTime end, TimeGranularity granularity) {
-        logger.info("Aggregating data for period: {} to {} with granularity: {}", 
-                start, end, granularity);
+        aggregateData(start, end, EnumSet.of(granularity));
+    }
+
+    @Override
+    @Transactional
+    public void aggregateData(LocalDateTime start, LocalDateTime end, Set<TimeGranularity> granularities) {
+        logger.info("Aggregating data for period: {} to {} with granularities: {}", 
+                start, end, granularities);
         
         try {
-            // Aggregate different types of metrics
-            aggregateUserActivityMetrics(start, end, granularity);
-            aggregateEcommerceMetrics(start, end, granularity);
-            aggregatePerformanceMetrics(start, end, granularity);
+            // Aggregate all types of metrics in a single scan
+            aggregateInSinglePass(start, end, granularities, EnumSet.allOf(MetricGroup.class));
             
             logger.info("Data aggregation completed successfully");
         } catch (Exception e) {
@@ -201,20 +231,8 @@ public class DataAggregationServiceImpl implements DataAggregationService {
         logger.info("Aggregating user activity metrics");
         
         try {
-            // Aggregate page views
-            aggregateEventCounts(EventType.PAGE_VIEW, "page_views", start, end, granularity);
-            
-            // Aggregate unique users
-            aggregateUniqueUsers(start, end, granularity);
-            
-            // Aggregate user sessions
-            aggregateUniqueSessions(start, end, granularity);
-            
-            // Aggregate user registrations
-            aggregateEventCounts(EventType.USER_REGISTRATION, "user_registrations", start, end, granularity);
-            
-            // Aggregate user logins
-            aggregateEventCounts(EventType.USER_LOGIN, "user_logins", start, end, granularity);
+            // Page views, unique users, unique sessions, registrations and logins
+            aggregateInSinglePass(start, end, EnumSet.of(granularity), EnumSet.of(MetricGroup.USER_ACTIVITY));
             
             logger.info("User activity metrics aggregation completed");
         } catch (Exception e) {
@@ -229,20 +247,8 @@ public class DataAggregationServiceImpl implements DataAggregationService {
         logger.info("Aggregating e-commerce metrics");
         
         try {
-            // Aggregate product views
-            aggregateEventCounts(EventType.PRODUCT_VIEW, "product_views", start, end, granularity);
-            
-            // Aggregate add to cart events
-            aggregateEventCounts(EventType.ADD_TO_CART, "add_to_cart", start, end, granularity);
-            
-            // Aggregate checkout starts
-            aggregateEventCounts(EventType.CHECKOUT_START, "checkout_starts", start, end, granularity);
-            
-            // Aggregate orders
-            aggregateEventCounts(EventType.CHECKOUT_COMPLETE, "orders", start, end, granularity);
-            
-            // Aggregate conversion rates
-            aggregateConversionRates(start, end, granularity);
+            // Product views, add to cart, checkout starts, orders and conversion rates
+            aggregateInSinglePass(start, end, EnumSet.of(granularity), EnumSet.of(MetricGroup.ECOMMERCE));
             
             logger.info("E-commerce metrics aggregation completed");
         } catch (Exception e) {
@@ -257,14 +263,8 @@ public class DataAggregationServiceImpl implements DataAggregationService {
         logger.info("Aggregating performance metrics");
         
         try {
-            // Aggregate API errors
-            aggregateEventCounts(EventType.SERVICE_ERROR, "api_errors", start, end, granularity);
-            
-            // Aggregate health checks
-            aggregateEventCounts(EventType.SERVICE_HEALTH_CHECK, "health_checks", start, end, granularity);
-            
-            // Aggregate rate limit exceeded events
-            aggregateEventCounts(EventType.API_RATE_LIMIT_EXCEEDED, "rate_limit_exceeded", start, end, granularity);
+            // API errors, health checks and rate limit exceeded events
+            aggregateInSinglePass(start, end, EnumSet.of(granularity), EnumSet.of(MetricGroup.PERFORMANCE));
             
             logger.info("Performance metrics aggregation completed");
         } catch (Exception e) {
@@ -288,236 +288,93 @@ public class DataAggregationServiceImpl implements DataAggregationService {
     }
     
     /**
-     * Helper method to aggregate event counts by type
+     * Helper method to scan the events of a time range once, feeding every requested
+     * granularity and metric group at the same time, and to write the results in batches.
+     * Unique counts of granularities coarser than an hour are rolled up from stored hourly
+     * sketches when those cover the whole range.
      */
-    private void aggregateEventCounts(EventType eventType, String metricName, 
-            LocalDateTime start, LocalDateTime end, TimeGranularity granularity) {
-        logger.debug("Aggregating {} events", eventType);
-        
-        List<LocalDateTime> timePoints = generateTimePoints(start, end, granularity);
-        
-        for (int i = 0; i < timePoints.size() - 1; i++) {
-            LocalDateTime periodStart = timePoints.get(i);
-            LocalDateTime periodEnd = timePoints.get(i + 1);
-            
-            // Count events in this time period
-            long count = eventRepository.countByEventTypeAndTimestampBetween(
-                    eventType, periodStart, periodEnd);
-            
-            // Create metric for overall count
-            createMetric(
-                    MetricType.COUNT,
-                    metricName,
-                    "overall",
-                    (double) count,
-                    periodStart,
-                    periodEnd,
-                    granularity
-            );
-            
-            // Get events in this time period
-            List<AnalyticsEvent> events = eventRepository.findByEventTypeAndTimestampBetween(
-                    eventType, periodStart, periodEnd);
-            
-            // Group by source service and create metrics
-            Map<String, Long> countsByService = events.stream()
-                    .collect(Collectors.groupingBy(AnalyticsEvent::getSourceService, Collectors.counting()));
-            
-            countsByService.forEach((service, serviceCount) -> {
-                createMetric(
-                        MetricType.COUNT,
-                        metricName,
-                        "service:" + service,
-                        serviceCount.doubleValue(),
-                        periodStart,
-                        periodEnd,
-                        granularity
-                );
-            });
+    private void aggregateInSinglePass(LocalDateTime start, LocalDateTime end,
+            Set<TimeGranularity> granularities, Set<MetricGroup> groups) {
+        Map<TimeGranularity, List<LocalDateTime>> timePoints = new EnumMap<>(TimeGranularity.class);
+        for (TimeGranularity granularity : granularities) {
+            timePoints.put(granularity, generateTimePoints(start, end, granularity));
         }
-    }
-    
-    /**
-     * Helper method to aggregate unique users
-     */
-    private void aggregateUniqueUsers(LocalDateTime start, LocalDateTime end, TimeGranularity granularity) {
-        logger.debug("Aggregating unique users");
         
-        List<LocalDateTime> timePoints = generateTimePoints(start, end, granularity);
+        Set<TimeGranularity> rolledUp = EnumSet.noneOf(TimeGranularity.class);
+        if (groups.contains(MetricGroup.USER_ACTIVITY)) {
+            for (TimeGranularity granularity : granularities) {
+                if (granularity != TimeGranularity.MINUTE && granularity != TimeGranularity.HOUR
+                        && hourlySketchesCover(start, end)) {
+                    rolledUp.add(granularity);
+                }
+            }
+        }
         
-        for (int i = 0; i < timePoints.size() - 1; i++) {
-            LocalDateTime periodStart = timePoints.get(i);
-            LocalDateTime periodEnd = timePoints.get(i + 1);
-            
-            // Get events in this time period
-            List<AnalyticsEvent> events = eventRepository.findByTimestampBetween(periodStart, periodEnd);
-            
-            // Count unique users
-            long uniqueUsers = events.stream()
-                    .map(AnalyticsEvent::getUserId)
-                    .distinct()
-                    .count();
-            
-            // Create metric for unique users
-            createMetric(
-                    MetricType.UNIQUE_COUNT,
-                    "unique_users",
-                    "overall",
-                    (double) uniqueUsers,
-                    periodStart,
-                    periodEnd,
-                    granularity
-            );
+        try (AggregatedMetricBatchWriter writer = new AggregatedMetricBatchWriter(jdbcTemplate, batchSize)) {
+            StreamingEventAggregator aggregator = 
+                    new StreamingEventAggregator(timePoints, groups, rolledUp, writer::write);
+            
+            try (Stream<Object[]> rows = eventRepository.streamAggregationRows(start, end)) {
+                rows.forEach(row -> aggregator.accept(
+                        (EventType) row[0],
+                        (String) row[1],
+                        (String) row[2],
+                        (String) row[3],
+                        (LocalDateTime) row[4]));
+            }
+            aggregator.finish();
             
-            // Group by source service and create metrics
-            Map<String, List<AnalyticsEvent>> eventsByService = events.stream()
-                    .collect(Collectors.groupingBy(AnalyticsEvent::getSourceService));
+            for (TimeGranularity granularity : rolledUp) {
+                rollUpUniqueCounts(timePoints.get(granularity), granularity, writer);
+            }
+            writer.flush();
             
-            eventsByService.forEach((service, serviceEvents) -> {
-                long serviceUniqueUsers = serviceEvents.stream()
-                        .map(AnalyticsEvent::getUserId)
-                        .distinct()
-                        .count();
-                
-                createMetric(
-                        MetricType.UNIQUE_COUNT,
-                        "unique_users",
-                        "service:" + service,
-                        (double) serviceUniqueUsers,
-                        periodStart,
-                        periodEnd,
-                        granularity
-                );
-            });
+            logger.debug("Aggregated {} events of {} into {} metrics, unique counts of {} rolled up from hourly sketches", 
+                    aggregator.getEventCount(), groups, writer.getWrittenCount(), rolledUp);
         }
     }
     
     /**
-     * Helper method to aggregate unique sessions
+     * Helper method to check that every hour of a time range has a stored unique users sketch
      */
-    private void aggregateUniqueSessions(LocalDateTime start, LocalDateTime end, TimeGranularity granularity) {
-        logger.debug("Aggregating unique sessions");
-        
-        List<LocalDateTime> timePoints = generateTimePoints(start, end, granularity);
-        
-        for (int i = 0; i < timePoints.size() - 1; i++) {
-            LocalDateTime periodStart = timePoints.get(i);
-            LocalDateTime periodEnd = timePoints.get(i + 1);
-            
-            // Get events in this time period
-            List<AnalyticsEvent> events = eventRepository.findByTimestampBetween(periodStart, periodEnd);
-            
-            // Count unique sessions
-            long uniqueSessions = events.stream()
-                    .map(AnalyticsEvent::getSessionId)
-                    .distinct()
-                    .count();
-            
-            // Create metric for unique sessions
-            createMetric(
-                    MetricType.UNIQUE_COUNT,
-                    "unique_sessions",
-                    "overall",
-                    (double) uniqueSessions,
-                    periodStart,
-                    periodEnd,
-                    granularity
-            );
-            
-            // Group by source service and create metrics
-            Map<String, List<AnalyticsEvent>> eventsByService = events.stream()
-                    .collect(Collectors.groupingBy(AnalyticsEvent::getSourceService));
-            
-            eventsByService.forEach((service, serviceEvents) -> {
-                long serviceUniqueSessions = serviceEvents.stream()
-                        .map(AnalyticsEvent::getSessionId)
-                        .distinct()
-                        .count();
-                
-                createMetric(
-                        MetricType.UNIQUE_COUNT,
-                        "unique_sessions",
-                        "service:" + service,
-                        (double) serviceUniqueSessions,
-                        periodStart,
-                        periodEnd,
-                        granularity
-                );
-            });
-        }
+    private boolean hourlySketchesCover(LocalDateTime start, LocalDateTime end) {
+        long expectedHours = generateTimePoints(start, end, TimeGranularity.HOUR).size() - 1;
+        long sketchedHours = metricRepository.countSketchedPeriods(
+                TimeGranularity.HOUR, StreamingEventAggregator.UNIQUE_USERS, StreamingEventAggregator.OVERALL, 
+                start, end);
+        return expectedHours > 0 && sketchedHours >= expectedHours;
     }
     
     /**
-     * Helper method to aggregate conversion rates
+     * Helper method to write the unique counts of each period by merging the hourly sketches it contains.
+     * Merging is idempotent, so hours that were aggregated more than once are not double counted.
      */
-    private void aggregateConversionRates(LocalDateTime start, LocalDateTime end, TimeGranularity granularity) {
-        logger.debug("Aggregating conversion rates");
-        
-        List<LocalDateTime> timePoints = generateTimePoints(start, end, granularity);
-        
+    private void rollUpUniqueCounts(List<LocalDateTime> timePoints, TimeGranularity granularity, 
+            AggregatedMetricBatchWriter writer) {
         for (int i = 0; i < timePoints.size() - 1; i++) {
             LocalDateTime periodStart = timePoints.get(i);
             LocalDateTime periodEnd = timePoints.get(i + 1);
             
-            // Count relevant events in this time period
-            long productViews = eventRepository.countByEventTypeAndTimestampBetween(
-                    EventType.PRODUCT_VIEW, periodStart, periodEnd);
-            
-            long addToCarts = eventRepository.countByEventTypeAndTimestampBetween(
-                    EventType.ADD_TO_CART, periodStart, periodEnd);
-            
-            long checkoutStarts = eventRepository.countByEventTypeAndTimestampBetween(
-                    EventType.CHECKOUT_START, periodStart, periodEnd);
-            
-            long orders = eventRepository.countByEventTypeAndTimestampBetween(
-                    EventType.CHECKOUT_COMPLETE, periodStart, periodEnd);
-            
-            // Calculate conversion rates
-            double addToCartRate = productViews > 0 ? (double) addToCarts / productViews : 0;
-            double checkoutRate = addToCarts > 0 ? (double) checkoutStarts / addToCarts : 0;
-            double orderCompletionRate = checkoutStarts > 0 ? (double) orders / checkoutStarts : 0;
-            double overallConversionRate = productViews > 0 ? (double) orders / productViews : 0;
-            
-            // Create metrics for conversion rates
-            createMetric(
-                    MetricType.RATE,
-                    "add_to_cart_rate",
-                    "overall",
-                    addToCartRate,
-                    periodStart,
-                    periodEnd,
-                    granularity
-            );
-            
-            createMetric(
-                    MetricType.RATE,
-                    "checkout_rate",
-                    "overall",
-                    checkoutRate,
-                    periodStart,
-                    periodEnd,
-                    granularity
-            );
-            
-            createMetric(
-                    MetricType.RATE,
-                    "order_completion_rate",
-                    "overall",
-                    orderCompletionRate,
-                    periodStart,
-                    periodEnd,
-                    granularity
-            );
+            // Merged sketch per metric name and dimension
+            Map<String, Map<String, HyperLogLog>> merged = new HashMap<>();
+            try (Stream<Object[]> sketches = metricRepository.streamSketches(TimeGranularity.HOUR, periodStart, periodEnd)) {
+                sketches.forEach(row -> merged
+                        .computeIfAbsent((String) row[0], name -> new HashMap<>())
+                        .computeIfAbsent((String) row[1], dimension -> new HyperLogLog())
+                        .merge(HyperLogLog.fromBytes((byte[]) row[2])));
+            }
             
-            createMetric(
-                    MetricType.RATE,
-                    "overall_conversion_rate",
-                    "overall",
-                    overallConversionRate,
-                    periodStart,
-                    periodEnd,
-                    granularity
-            );
+            merged.forEach((name, byDimension) -> byDimension.forEach((dimension, sketch) ->
+                    writer.write(AggregatedMetric.builder()
+                            .metricType(MetricType.UNIQUE_COUNT)
+                            .name(name)
+                            .dimension(dimension)
+                            .value((double) sketch.estimate())
+                            .startTime(periodStart)
+                            .endTime(periodEnd)
+                            .granularity(granularity)
+                            .sketch(sketch.toBytes())
+                            .build())));
         }
     }
     
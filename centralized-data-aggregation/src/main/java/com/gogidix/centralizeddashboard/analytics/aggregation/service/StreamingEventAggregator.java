@@ -0,0 +1,259 @@
+package com.gogidix.centralizeddashboard.analytics.aggregation.service;
+
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.AggregatedMetric;
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.EventType;
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.HyperLogLog;
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.MetricType;
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.TimeGranularity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass aggregator for analytics events.
+ * Events must be fed in timestamp order; every requested granularity keeps only its
+ * current bucket open, and a bucket is emitted as soon as the scan moves past it.
+ * Distinct users and sessions are tracked with HyperLogLog sketches, so memory use is
+ * bounded by the number of services in one bucket, not by the number of events or users.
+ */
+class StreamingEventAggregator {
+
+    /**
+     * Groups of metrics that can be produced by a pass
+     */
+    enum MetricGroup {
+        USER_ACTIVITY,
+        ECOMMERCE,
+        PERFORMANCE
+    }
+
+    static final String OVERALL = "overall";
+    static final String SERVICE_PREFIX = "service:";
+    static final String UNIQUE_USERS = "unique_users";
+    static final String UNIQUE_SESSIONS = "unique_sessions";
+
+    private static final Map<MetricGroup, Map<EventType, String>> COUNTED_EVENTS = new EnumMap<>(MetricGroup.class);
+
+    static {
+        Map<EventType, String> userActivity = new LinkedHashMap<>();
+        userActivity.put(EventType.PAGE_VIEW, "page_views");
+        userActivity.put(EventType.USER_REGISTRATION, "user_registrations");
+        userActivity.put(EventType.USER_LOGIN, "user_logins");
+        COUNTED_EVENTS.put(MetricGroup.USER_ACTIVITY, userActivity);
+
+        Map<EventType, String> ecommerce = new LinkedHashMap<>();
+        ecommerce.put(EventType.PRODUCT_VIEW, "product_views");
+        ecommerce.put(EventType.ADD_TO_CART, "add_to_cart");
+        ecommerce.put(EventType.CHECKOUT_START, "checkout_starts");
+        ecommerce.put(EventType.CHECKOUT_COMPLETE, "orders");
+        COUNTED_EVENTS.put(MetricGroup.ECOMMERCE, ecommerce);
+
+        Map<EventType, String> performance = new LinkedHashMap<>();
+        performance.put(EventType.SERVICE_ERROR, "api_errors");
+        performance.put(EventType.SERVICE_HEALTH_CHECK, "health_checks");
+        performance.put(EventType.API_RATE_LIMIT_EXCEEDED, "rate_limit_exceeded");
+        COUNTED_EVENTS.put(MetricGroup.PERFORMANCE, performance);
+    }
+
+    private final Set<MetricGroup> groups;
+    private final Map<EventType, String> countedEvents = new LinkedHashMap<>();
+    private final List<GranularityState> states = new ArrayList<>();
+    private final Consumer<AggregatedMetric> sink;
+    private long eventCount;
+
+    /**
+     * @param timePoints the bucket boundaries of each granularity to aggregate
+     * @param groups the metric groups to produce
+     * @param rolledUpGranularities granularities whose unique counts are rolled up from
+     *        stored sketches elsewhere, and so are not tracked by this scan
+     * @param sink receives every aggregated metric as soon as its bucket is complete
+     */
+    StreamingEventAggregator(Map<TimeGranularity, List<LocalDateTime>> timePoints,
+            Set<MetricGroup> groups, Set<TimeGranularity> rolledUpGranularities,
+            Consumer<AggregatedMetric> sink) {
+        this.groups = groups;
+        this.sink = sink;
+        groups.forEach(group -> countedEvents.putAll(COUNTED_EVENTS.get(group)));
+        timePoints.forEach((granularity, points) -> {
+            if (points.size() > 1) {
+                boolean trackUniques = groups.contains(MetricGroup.USER_ACTIVITY)
+                        && !rolledUpGranularities.contains(granularity);
+                states.add(new GranularityState(granularity, points, trackUniques));
+            }
+        });
+    }
+
+    /**
+     * Add one event to the open bucket of every granularity
+     */
+    void accept(EventType eventType, String sourceService, String userId, String sessionId, LocalDateTime timestamp) {
+        eventCount++;
+        for (GranularityState state : states) {
+            state.advanceTo(timestamp);
+            state.bucket.add(eventType, sourceService, userId, sessionId);
+        }
+    }
+
+    /**
+     * Emit the open bucket and any remaining empty buckets of every granularity
+     */
+    void finish() {
+        for (GranularityState state : states) {
+            state.finish();
+        }
+    }
+
+    /**
+     * Number of events fed into the aggregator
+     */
+    long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Bucket boundaries and the currently open bucket of one granularity
+     */
+    private class GranularityState {
+        private final TimeGranularity granularity;
+        private final List<LocalDateTime> points;
+        private final boolean trackUniques;
+        private int index;
+        private Bucket bucket;
+
+        GranularityState(TimeGranularity granularity, List<LocalDateTime> points, boolean trackUniques) {
+            this.granularity = granularity;
+            this.points = points;
+            this.trackUniques = trackUniques;
+            this.bucket = new Bucket(trackUniques);
+        }
+
+        void advanceTo(LocalDateTime timestamp) {
+            // Buckets are half-open except the last one, which also holds events at the range end
+            while (index < points.size() - 2 && !timestamp.isBefore(points.get(index + 1))) {
+                emitAndAdvance();
+            }
+        }
+
+        void finish() {
+            while (index < points.size() - 1) {
+                emitAndAdvance();
+            }
+        }
+
+        private void emitAndAdvance() {
+            bucket.emit(granularity, points.get(index), points.get(index + 1));
+            bucket = new Bucket(trackUniques);
+            index++;
+        }
+    }
+
+    /**
+     * Running counts and distinct value sketches of one time bucket
+     */
+    private class Bucket {
+        private final boolean trackUniques;
+        private final Map<EventType, Long> counts = new EnumMap<>(EventType.class);
+        private final Map<EventType, Map<String, Long>> countsByService = new EnumMap<>(EventType.class);
+        private final HyperLogLog users;
+        private final HyperLogLog sessions;
+        private final Map<String, HyperLogLog> usersByService = new HashMap<>();
+        private final Map<String, HyperLogLog> sessionsByService = new HashMap<>();
+
+        Bucket(boolean trackUniques) {
+            this.trackUniques = trackUniques;
+            this.users = trackUniques ? new HyperLogLog() : null;
+            this.sessions = trackUniques ? new HyperLogLog() : null;
+        }
+
+        void add(EventType eventType, String sourceService, String userId, String sessionId) {
+            if (countedEvents.containsKey(eventType)) {
+                counts.merge(eventType, 1L, Long::sum);
+                countsByService.computeIfAbsent(eventType, type -> new HashMap<>())
+                        .merge(sourceService, 1L, Long::sum);
+            }
+
+            if (trackUniques) {
+                users.add(userId);
+                sessions.add(sessionId);
+                usersByService.computeIfAbsent(sourceService, service -> new HyperLogLog()).add(userId);
+                sessionsByService.computeIfAbsent(sourceService, service -> new HyperLogLog()).add(sessionId);
+            }
+        }
+
+        void emit(TimeGranularity granularity, LocalDateTime periodStart, LocalDateTime periodEnd) {
+            countedEvents.forEach((eventType, metricName) -> {
+                emit(MetricType.COUNT, metricName, OVERALL, counts.getOrDefault(eventType, 0L),
+                        periodStart, periodEnd, granularity);
+                countsByService.getOrDefault(eventType, Map.of()).forEach((service, count) ->
+                        emit(MetricType.COUNT, metricName, SERVICE_PREFIX + service, count,
+                                periodStart, periodEnd, granularity));
+            });
+
+            if (trackUniques) {
+                emitUnique(UNIQUE_USERS, OVERALL, users, periodStart, periodEnd, granularity);
+                usersByService.forEach((service, serviceUsers) ->
+                        emitUnique(UNIQUE_USERS, SERVICE_PREFIX + service, serviceUsers,
+                                periodStart, periodEnd, granularity));
+
+                emitUnique(UNIQUE_SESSIONS, OVERALL, sessions, periodStart, periodEnd, granularity);
+                sessionsByService.forEach((service, serviceSessions) ->
+                        emitUnique(UNIQUE_SESSIONS, SERVICE_PREFIX + service, serviceSessions,
+                                periodStart, periodEnd, granularity));
+            }
+
+            if (groups.contains(MetricGroup.ECOMMERCE)) {
+                long productViews = counts.getOrDefault(EventType.PRODUCT_VIEW, 0L);
+                long addToCarts = counts.getOrDefault(EventType.ADD_TO_CART, 0L);
+                long checkoutStarts = counts.getOrDefault(EventType.CHECKOUT_START, 0L);
+                long orders = counts.getOrDefault(EventType.CHECKOUT_COMPLETE, 0L);
+
+                emit(MetricType.RATE, "add_to_cart_rate", OVERALL, ratio(addToCarts, productViews),
+                        periodStart, periodEnd, granularity);
+                emit(MetricType.RATE, "checkout_rate", OVERALL, ratio(checkoutStarts, addToCarts),
+                        periodStart, periodEnd, granularity);
+                emit(MetricType.RATE, "order_completion_rate", OVERALL, ratio(orders, checkoutStarts),
+                        periodStart, periodEnd, granularity);
+                emit(MetricType.RATE, "overall_conversion_rate", OVERALL, ratio(orders, productViews),
+                        periodStart, periodEnd, granularity);
+            }
+        }
+
+        private void emit(MetricType metricType, String name, String dimension, double value,
+                LocalDateTime periodStart, LocalDateTime periodEnd, TimeGranularity granularity) {
+            sink.accept(AggregatedMetric.builder()
+                    .metricType(metricType)
+                    .name(name)
+                    .dimension(dimension)
+                    .value(value)
+                    .startTime(periodStart)
+                    .endTime(periodEnd)
+                    .granularity(granularity)
+                    .build());
+        }
+
+        private void emitUnique(String name, String dimension, HyperLogLog sketch,
+                LocalDateTime periodStart, LocalDateTime periodEnd, TimeGranularity granularity) {
+            sink.accept(AggregatedMetric.builder()
+                    .metricType(MetricType.UNIQUE_COUNT)
+                    .name(name)
+                    .dimension(dimension)
+                    .value((double) sketch.estimate())
+                    .startTime(periodStart)
+                    .endTime(periodEnd)
+                    .granularity(granularity)
+                    .sketch(sketch.toBytes())
+                    .build());
+        }
+
+        private double ratio(long numerator, long denominator) {
+            return denominator > 0 ? (double) numerator / denominator : 0;
+        }
+    }
+}
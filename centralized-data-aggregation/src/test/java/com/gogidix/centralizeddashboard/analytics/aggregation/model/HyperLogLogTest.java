@@ -0,0 +1,140 @@
+package com.gogidix.centralizeddashboard.analytics.aggregation.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    /**
+     * Three standard errors of the default precision, 1.04 / sqrt(2^14)
+     */
+    private static final double MAX_RELATIVE_ERROR = 3 * 1.04 / Math.sqrt(1 << HyperLogLog.DEFAULT_PRECISION);
+
+    @Test
+    void estimate_WhenEmpty_ShouldBeZero() {
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+
+    @Test
+    void estimate_ShouldIgnoreNullsAndDuplicates() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+
+        // When
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                sketch.add("user-" + i);
+            }
+            sketch.add(null);
+        }
+
+        // Then
+        assertEquals(50, sketch.estimate(), "Small cardinalities should be counted exactly by linear counting");
+    }
+
+    @Test
+    void estimate_ShouldStayWithinStandardErrorAcrossCardinalities() {
+        for (int cardinality : new int[]{1_000, 20_000, 40_000, 100_000, 1_000_000}) {
+            // Given
+            HyperLogLog sketch = new HyperLogLog();
+
+            // When
+            for (int i = 0; i < cardinality; i++) {
+                sketch.add("user-" + i);
+            }
+
+            // Then
+            double error = Math.abs(sketch.estimate() - cardinality) / (double) cardinality;
+            assertTrue(error < MAX_RELATIVE_ERROR,
+                    "Relative error " + error + " at cardinality " + cardinality + " exceeds " + MAX_RELATIVE_ERROR);
+        }
+    }
+
+    @Test
+    void toBytes_WithFewRegistersSet_ShouldUseSparseEncodingAndRoundTrip() {
+        // Given
+        HyperLogLog sketch = sketchOf(0, 200);
+
+        // When
+        byte[] bytes = sketch.toBytes();
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+
+        // Then
+        assertEquals(1, bytes[2], "Encoding byte should mark a sparse sketch");
+        assertTrue(bytes.length < 1 << HyperLogLog.DEFAULT_PRECISION, "Sparse sketch should be smaller than dense");
+        assertEquals(sketch.estimate(), restored.estimate());
+        assertArrayEquals(bytes, restored.toBytes());
+    }
+
+    @Test
+    void toBytes_WithManyRegistersSet_ShouldUseDenseEncodingAndRoundTrip() {
+        // Given
+        HyperLogLog sketch = sketchOf(0, 100_000);
+
+        // When
+        byte[] bytes = sketch.toBytes();
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+
+        // Then
+        assertEquals(0, bytes[2], "Encoding byte should mark a dense sketch");
+        assertEquals(3 + (1 << HyperLogLog.DEFAULT_PRECISION), bytes.length);
+        assertEquals(sketch.estimate(), restored.estimate());
+        assertArrayEquals(bytes, restored.toBytes());
+    }
+
+    @Test
+    void toBytes_WhenEmpty_ShouldRoundTrip() {
+        HyperLogLog restored = HyperLogLog.fromBytes(new HyperLogLog(10).toBytes());
+
+        assertEquals(10, restored.getPrecision());
+        assertEquals(0, restored.estimate());
+    }
+
+    @Test
+    void fromBytes_WithUnknownVersion_ShouldThrow() {
+        byte[] bytes = new HyperLogLog().toBytes();
+        bytes[0] = 99;
+
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(bytes));
+    }
+
+    @Test
+    void merge_ShouldEqualSketchOfUnion() {
+        // Given
+        HyperLogLog first = sketchOf(0, 60_000);
+        HyperLogLog second = sketchOf(40_000, 100_000);
+
+        // When
+        first.merge(second);
+
+        // Then
+        assertArrayEquals(sketchOf(0, 100_000).toBytes(), first.toBytes(),
+                "Merging should keep the maximum of every register");
+        double error = Math.abs(first.estimate() - 100_000) / 100_000.0;
+        assertTrue(error < MAX_RELATIVE_ERROR, "Merged estimate error " + error);
+    }
+
+    @Test
+    void merge_WithDifferentPrecision_ShouldThrow() {
+        HyperLogLog sketch = new HyperLogLog(14);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> sketch.merge(new HyperLogLog(12)));
+        assertTrue(e.getMessage().contains("precision 12"));
+    }
+
+    @Test
+    void constructor_WithPrecisionOutOfRange_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(17));
+    }
+
+    private static HyperLogLog sketchOf(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.add("user-" + i);
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,148 @@
+package com.gogidix.centralizeddashboard.analytics.aggregation.service;
+
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.AggregatedMetric;
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.EventType;
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.HyperLogLog;
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.MetricType;
+import com.gogidix.centralizeddashboard.analytics.aggregation.model.TimeGranularity;
+import com.gogidix.centralizeddashboard.analytics.aggregation.service.StreamingEventAggregator.MetricGroup;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingEventAggregatorTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    /**
+     * Unique counts are estimates; a hash collision can be off by one even for small sets
+     */
+    private static final double SKETCH_TOLERANCE = 0.03;
+
+    private final List<AggregatedMetric> emitted = new ArrayList<>();
+
+    @Test
+    void accept_ShouldCountEventsPerBucketAndService() {
+        // Given
+        StreamingEventAggregator aggregator = aggregator(Set.of(MetricGroup.USER_ACTIVITY), Set.of());
+
+        // When
+        aggregator.accept(EventType.PAGE_VIEW, "web", "u1", "s1", T0);
+        aggregator.accept(EventType.PAGE_VIEW, "mobile", "u2", "s2", T0.plusMinutes(30));
+        aggregator.accept(EventType.SEARCH, "web", "u1", "s1", T0.plusMinutes(40));
+        aggregator.accept(EventType.PAGE_VIEW, "web", "u1", "s3", T0.plusHours(1));
+        aggregator.finish();
+
+        // Then
+        assertEquals(4, aggregator.getEventCount());
+        assertEquals(2.0, value("page_views", "overall", T0));
+        assertEquals(1.0, value("page_views", "service:web", T0));
+        assertEquals(1.0, value("page_views", "service:mobile", T0));
+        assertEquals(1.0, value("page_views", "overall", T0.plusHours(1)));
+        assertNull(find("page_views", "service:mobile", T0.plusHours(1)), "Services without events are not emitted");
+    }
+
+    @Test
+    void finish_ShouldEmitEmptyBucketsAndKeepRangeEndInLastBucket() {
+        // Given
+        StreamingEventAggregator aggregator = aggregator(Set.of(MetricGroup.USER_ACTIVITY), Set.of());
+
+        // When
+        aggregator.accept(EventType.USER_LOGIN, "web", "u1", "s1", T0.plusHours(3));
+        aggregator.finish();
+
+        // Then
+        assertEquals(0.0, value("user_logins", "overall", T0));
+        assertEquals(0.0, value("user_logins", "overall", T0.plusHours(1)));
+        assertEquals(1.0, value("user_logins", "overall", T0.plusHours(2)),
+                "An event at the end of the range belongs to the last bucket");
+    }
+
+    @Test
+    void accept_ShouldEstimateUniqueUsersAndSessionsWithSketches() {
+        // Given
+        StreamingEventAggregator aggregator = aggregator(Set.of(MetricGroup.USER_ACTIVITY), Set.of());
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            aggregator.accept(EventType.PAGE_VIEW, i % 2 == 0 ? "web" : "mobile",
+                    "user-" + (i % 100), "session-" + (i % 250), T0.plusSeconds(i));
+        }
+        aggregator.finish();
+
+        // Then
+        AggregatedMetric users = find("unique_users", "overall", T0);
+        assertNotNull(users);
+        assertEquals(MetricType.UNIQUE_COUNT, users.getMetricType());
+        assertEquals(100.0, users.getValue(), 100 * SKETCH_TOLERANCE);
+        assertEquals(users.getValue(), HyperLogLog.fromBytes(users.getSketch()).estimate(),
+                "Stored sketch should match the value");
+        assertEquals(250.0, value("unique_sessions", "overall", T0), 250 * SKETCH_TOLERANCE);
+        assertEquals(50.0, value("unique_users", "service:web", T0), 50 * SKETCH_TOLERANCE);
+    }
+
+    @Test
+    void accept_ForRolledUpGranularity_ShouldNotTrackUniques() {
+        // Given
+        StreamingEventAggregator aggregator = aggregator(Set.of(MetricGroup.USER_ACTIVITY), Set.of(TimeGranularity.HOUR));
+
+        // When
+        aggregator.accept(EventType.PAGE_VIEW, "web", "u1", "s1", T0);
+        aggregator.finish();
+
+        // Then
+        assertEquals(1.0, value("page_views", "overall", T0));
+        assertNull(find("unique_users", "overall", T0));
+    }
+
+    @Test
+    void finish_ShouldEmitConversionRatesForEcommerce() {
+        // Given
+        StreamingEventAggregator aggregator = aggregator(Set.of(MetricGroup.ECOMMERCE), Set.of());
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            aggregator.accept(EventType.PRODUCT_VIEW, "shop", "u" + i, "s" + i, T0.plusMinutes(i));
+        }
+        aggregator.accept(EventType.ADD_TO_CART, "shop", "u1", "s1", T0.plusMinutes(5));
+        aggregator.accept(EventType.ADD_TO_CART, "shop", "u2", "s2", T0.plusMinutes(6));
+        aggregator.accept(EventType.CHECKOUT_START, "shop", "u1", "s1", T0.plusMinutes(7));
+        aggregator.accept(EventType.CHECKOUT_COMPLETE, "shop", "u1", "s1", T0.plusMinutes(8));
+        aggregator.finish();
+
+        // Then
+        assertEquals(0.5, value("add_to_cart_rate", "overall", T0));
+        assertEquals(0.5, value("checkout_rate", "overall", T0));
+        assertEquals(1.0, value("order_completion_rate", "overall", T0));
+        assertEquals(0.25, value("overall_conversion_rate", "overall", T0));
+        assertEquals(0.0, value("overall_conversion_rate", "overall", T0.plusHours(1)),
+                "Rates of empty buckets should be zero");
+        assertNull(find("page_views", "overall", T0), "Only the requested groups should be produced");
+    }
+
+    private StreamingEventAggregator aggregator(Set<MetricGroup> groups, Set<TimeGranularity> rolledUp) {
+        List<LocalDateTime> hours = List.of(T0, T0.plusHours(1), T0.plusHours(2), T0.plusHours(3));
+        return new StreamingEventAggregator(Map.of(TimeGranularity.HOUR, hours), groups, rolledUp, emitted::add);
+    }
+
+    private AggregatedMetric find(String name, String dimension, LocalDateTime start) {
+        return emitted.stream()
+                .filter(metric -> metric.getName().equals(name)
+                        && metric.getDimension().equals(dimension)
+                        && metric.getStartTime().equals(start))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Double value(String name, String dimension, LocalDateTime start) {
+        AggregatedMetric metric = find(name, dimension, start);
+        assertNotNull(metric, "No " + name + " metric for " + dimension + " at " + start);
+        return metric.getValue();
+    }
+}
@@ -0,0 +1,145 @@
+package com.gogidix.centralizeddashboard.metrics.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the batch ingestion pipeline for performance metrics
+ */
+@Configuration
+@ConfigurationProperties(prefix = "metrics.ingestion")
+public class IngestionProperties {
+
+    /**
+     * Maximum number of points accepted but not yet written
+     */
+    private int bufferCapacity = 500_000;
+
+    /**
+     * Maximum number of points written in one transaction
+     */
+    private int batchSize = 5_000;
+
+    /**
+     * Maximum number of rows of one multi-row insert statement
+     */
+    private int rowsPerStatement = 1_000;
+
+    /**
+     * Number of threads writing batches
+     */
+    private int writerThreads = 2;
+
+    /**
+     * Time a writer waits for points when the buffer is empty; available points are written at once
+     */
+    private long flushIntervalMs = 200;
+
+    /**
+     * Attempts to write a batch before its points are dropped
+     */
+    private int writeAttempts = 3;
+
+    /**
+     * Maximum size of a request body, after decompression
+     */
+    private int maxRequestBytes = 16 * 1024 * 1024;
+
+    /**
+     * Points per second a tenant may ingest unless overridden
+     */
+    private long defaultPointsPerSecond = 50_000;
+
+    /**
+     * Seconds of the rate a tenant may ingest at once after being idle
+     */
+    private long burstSeconds = 2;
+
+    /**
+     * Points per second of specific tenants
+     */
+    private Map<String, Long> tenantPointsPerSecond = new HashMap<>();
+
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    public void setBufferCapacity(int bufferCapacity) {
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getRowsPerStatement() {
+        return rowsPerStatement;
+    }
+
+    public void setRowsPerStatement(int rowsPerStatement) {
+        this.rowsPerStatement = rowsPerStatement;
+    }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    public void setWriterThreads(int writerThreads) {
+        this.writerThreads = writerThreads;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public int getWriteAttempts() {
+        return writeAttempts;
+    }
+
+    public void setWriteAttempts(int writeAttempts) {
+        this.writeAttempts = writeAttempts;
+    }
+
+    public int getMaxRequestBytes() {
+        return maxRequestBytes;
+    }
+
+    public void setMaxRequestBytes(int maxRequestBytes) {
+        this.maxRequestBytes = maxRequestBytes;
+    }
+
+    public long getDefaultPointsPerSecond() {
+        return defaultPointsPerSecond;
+    }
+
+    public void setDefaultPointsPerSecond(long defaultPointsPerSecond) {
+        this.defaultPointsPerSecond = defaultPointsPerSecond;
+    }
+
+    public long getBurstSeconds() {
+        return burstSeconds;
+    }
+
+    public void setBurstSeconds(long burstSeconds) {
+        this.burstSeconds = burstSeconds;
+    }
+
+    public Map<String, Long> getTenantPointsPerSecond() {
+        return tenantPointsPerSecond;
+    }
+
+    public void setTenantPointsPerSecond(Map<String, Long> tenantPointsPerSecond) {
+        this.tenantPointsPerSecond = tenantPointsPerSecond;
+    }
+}
@@ -0,0 +1,138 @@
+package com.gogidix.centralizeddashboard.metrics.config;
+
+import com.gogidix.centralizeddashboard.metrics.model.RollupTier;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configuration of the rollup of performance metrics into tiers and of their retention
+ */
+@Configuration
+@ConfigurationProperties(prefix = "metrics.rollup")
+public class RollupProperties {
+
+    /**
+     * Whether this instance compacts tiers and applies retention; enable it on one instance only
+     */
+    private boolean enabled = true;
+
+    /**
+     * Age a minute must reach before it is rolled up; later points are kept raw only
+     */
+    private Duration settleDelay = Duration.ofMinutes(2);
+
+    /**
+     * Range of raw metrics rolled up in one transaction, a whole number of minutes
+     */
+    private Duration compactionWindow = Duration.ofMinutes(10);
+
+    /**
+     * Maximum number of windows compacted per tier and run, bounding the work of catching up
+     */
+    private int maxWindowsPerRun = 60;
+
+    /**
+     * Retention of raw metrics; they are never deleted before being rolled up
+     */
+    private Duration rawRetention = Duration.ofDays(7);
+
+    /**
+     * Retention of the per-instance sketches of recent intervals
+     */
+    private Duration sketchRetention = Duration.ofDays(2);
+
+    /**
+     * Retention of each tier
+     */
+    private Map<RollupTier, Duration> tierRetention = new EnumMap<>(Map.of(
+            RollupTier.MINUTE, Duration.ofDays(30),
+            RollupTier.HOUR, Duration.ofDays(400),
+            RollupTier.DAY, Duration.ofDays(5 * 365)));
+
+    /**
+     * Longest time range a time series query without interval returns raw points for
+     */
+    private Duration rawQueryMaxRange = Duration.ofHours(6);
+
+    /**
+     * Maximum number of intervals of a time series query without interval over a longer range
+     */
+    private int maxPoints = 1_500;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getSettleDelay() {
+        return settleDelay;
+    }
+
+    public void setSettleDelay(Duration settleDelay) {
+        this.settleDelay = settleDelay;
+    }
+
+    public Duration getCompactionWindow() {
+        return compactionWindow;
+    }
+
+    public void setCompactionWindow(Duration compactionWindow) {
+        this.compactionWindow = compactionWindow;
+    }
+
+    public int getMaxWindowsPerRun() {
+        return maxWindowsPerRun;
+    }
+
+    public void setMaxWindowsPerRun(int maxWindowsPerRun) {
+        this.maxWindowsPerRun = maxWindowsPerRun;
+    }
+
+    public Duration getRawRetention() {
+        return rawRetention;
+    }
+
+    public void setRawRetention(Duration rawRetention) {
+        this.rawRetention = rawRetention;
+    }
+
+    public Duration getSketchRetention() {
+        return sketchRetention;
+    }
+
+    public void setSketchRetention(Duration sketchRetention) {
+        this.sketchRetention = sketchRetention;
+    }
+
+    public Map<RollupTier, Duration> getTierRetention() {
+        return tierRetention;
+    }
+
+    public void setTierRetention(Map<RollupTier, Duration> tierRetention) {
+        this.tierRetention = tierRetention;
+    }
+
+    public Duration getRawQueryMaxRange() {
+        return rawQueryMaxRange;
+    }
+
+    public void setRawQueryMaxRange(Duration rawQueryMaxRange) {
+        this.rawQueryMaxRange = rawQueryMaxRange;
+    }
+
+    public int getMaxPoints() {
+        return maxPoints;
+    }
+
+    public void setMaxPoints(int maxPoints) {
+        this.maxPoints = maxPoints;
+    }
+}
\ No newline at end of file
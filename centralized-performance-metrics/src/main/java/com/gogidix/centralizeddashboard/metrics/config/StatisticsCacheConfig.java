@@ -0,0 +1,55 @@
+package com.gogidix.centralizeddashboard.metrics.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Cache configuration for statistics queries.
+ * Dashboards poll the same windows of the same metrics, so results are kept briefly in memory;
+ * the TTL bounds how stale a statistic can be.
+ */
+@Configuration
+@EnableCaching
+public class StatisticsCacheConfig {
+
+    /**
+     * Statistics and percentiles of one metric of one service over a window
+     */
+    public static final String METRIC_STATISTICS = "metricStatistics";
+
+    /**
+     * Pages of the statistics of every metric of every service over a window
+     */
+    public static final String SERVICE_STATISTICS = "serviceStatistics";
+
+    @Value("${metrics.statistics.cache-ttl:PT10S}")
+    private Duration timeToLive;
+
+    @Value("${metrics.statistics.cache-max-size:10000}")
+    private long maxSize;
+
+    /**
+     * Creates the cache manager of the statistics caches
+     *
+     * @return CacheManager
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(METRIC_STATISTICS, SERVICE_STATISTICS);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .expireAfterWrite(timeToLive)
+                .maximumSize(maxSize)
+                .recordStats());
+        // Empty statistics are valid results, null quantiles included
+        cacheManager.setAllowNullValues(true);
+        return cacheManager;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.gogidix.centralizeddashboard.metrics.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gogidix.centralizeddashboard.metrics.config.IngestionProperties;
+import com.gogidix.centralizeddashboard.metrics.ingest.LineProtocolParser;
+import com.gogidix.centralizeddashboard.metrics.model.MetricSeries;
+import com.gogidix.centralizeddashboard.metrics.service.MetricIngestionService;
+import com.gogidix.centralizeddashboard.metrics.service.MetricIngestionService.IngestionResult;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * REST controller for the batch ingestion of performance metrics
+ */
+@RestController
+@RequestMapping("/api/v1/metrics/batch")
+public class MetricIngestionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricIngestionController.class);
+
+    private static final String TENANT_HEADER = "X-Tenant-ID";
+
+    private static final TypeReference<List<MetricSeries>> SERIES_LIST = new TypeReference<>() {
+    };
+
+    private final MetricIngestionService ingestionService;
+    private final ObjectMapper objectMapper;
+    private final IngestionProperties properties;
+
+    @Autowired
+    public MetricIngestionController(MetricIngestionService ingestionService, ObjectMapper objectMapper,
+            IngestionProperties properties) {
+        this.ingestionService = ingestionService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Ingest a batch of metrics, either as a JSON array of columnar series or, with a text/plain
+     * content type, in line protocol. The body may be gzip compressed with a Content-Encoding header.
+     * Points are written asynchronously; the batch is accepted or rejected as a whole.
+     */
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<Map<String, Object>> ingest(HttpServletRequest request,
+            @RequestHeader(value = TENANT_HEADER, defaultValue = "default") String tenantId) {
+        try {
+            byte[] body = readBody(request);
+            if (body == null) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+            }
+
+            IngestionResult result;
+            if (MediaType.TEXT_PLAIN.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))) {
+                result = ingestionService.ingest(tenantId, LineProtocolParser.parse(
+                        new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8)));
+            } else {
+                result = ingestionService.ingestSeries(tenantId, objectMapper.readValue(body, SERIES_LIST));
+            }
+            return toResponse(result);
+        } catch (JsonProcessingException e) {
+            logger.error("Invalid metric batch: {}", e.getOriginalMessage());
+            return error(HttpStatus.BAD_REQUEST, e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid metric batch: {}", e.getMessage());
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error ingesting metric batch: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Get the state of the ingestion buffer
+     */
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getIngestionStatus() {
+        try {
+            return ResponseEntity.ok(ingestionService.getIngestionStatus());
+        } catch (Exception e) {
+            logger.error("Error getting ingestion status: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Read the decompressed body, or null if it exceeds the maximum request size
+     */
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        InputStream input = request.getInputStream();
+        if (encoding != null && encoding.toLowerCase().contains("gzip")) {
+            input = new GZIPInputStream(input);
+        }
+        try (InputStream body = input) {
+            byte[] bytes = body.readNBytes(properties.getMaxRequestBytes() + 1);
+            return bytes.length > properties.getMaxRequestBytes() ? null : bytes;
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> toResponse(IngestionResult result) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("outcome", result.outcome());
+        response.put("points", result.points());
+        return switch (result.outcome()) {
+            case ACCEPTED -> ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+            case TOO_LARGE -> ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
+            case QUOTA_EXCEEDED -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(result.retryAfterSeconds()))
+                    .body(response);
+            case BUFFER_FULL -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(result.retryAfterSeconds()))
+                    .body(response);
+        };
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", message);
+        return ResponseEntity.status(status).body(response);
+    }
+}
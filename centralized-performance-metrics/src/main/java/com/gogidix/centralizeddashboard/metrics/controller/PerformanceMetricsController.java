@@ -2,6 +2,8 @@ package com.gogidix.centralizeddashboard.metrics.controller;
 
 import com.gogidix.centralizeddashboard.metrics.model.MetricType;
 import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
+import com.gogidix.centralizeddashboard.metrics.model.ServiceStatisticsPage;
+import com.gogidix.centralizeddashboard.metrics.service.MetricStatisticsService;
 import com.gogidix.centralizeddashboard.metrics.service.PerformanceMetricsService;
 
 import org.slf4j.Logger;
@@ -12,7 +14,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -27,10 +31,13 @@ public class PerformanceMetricsController {
     private static final Logger logger = LoggerFactory.getLogger(PerformanceMetricsController.class);
     
     private final PerformanceMetricsService metricsService;
+    private final MetricStatisticsService statisticsService;
     
     @Autowired
-    public PerformanceMetricsController(PerformanceMetricsService metricsService) {
+    public PerformanceMetricsController(PerformanceMetricsService metricsService,
+            MetricStatisticsService statisticsService) {
         this.metricsService = metricsService;
+        this.statisticsService = statisticsService;
     }
     
     /**
@@ -170,18 +177,22 @@ public class PerformanceMetricsController {
     }
     
     /**
-     * Get metrics statistics
+     * Get metrics statistics, with percentiles for the given quantiles (p50, p90, p95 and p99 by default)
      */
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Double>> getMetricsStatistics(
             @RequestParam String serviceName, 
             @RequestParam String metricName,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) List<Double> quantiles) {
         try {
             Map<String, Double> statistics = metricsService.getMetricsStatistics(
-                    serviceName, metricName, start, end);
+                    serviceName, metricName, start, end, quantiles);
             return ResponseEntity.ok(statistics);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid statistics request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error getting metrics statistics: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -189,18 +200,48 @@ public class PerformanceMetricsController {
     }
     
     /**
-     * Get time series data for a specific metric
+     * Get the histogram of a metric
+     */
+    @GetMapping("/statistics/histogram")
+    public ResponseEntity<List<Map<String, Object>>> getMetricHistogram(
+            @RequestParam String serviceName, 
+            @RequestParam String metricName,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "20") int buckets) {
+        try {
+            List<Map<String, Object>> histogram = metricsService.getMetricHistogram(
+                    serviceName, metricName, start, end, buckets);
+            return ResponseEntity.ok(histogram);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid histogram request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Error getting metric histogram: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Get time series data for a specific metric, as raw points or, when an interval
+     * (ISO-8601 duration, e.g. PT5M) is given or the range is long, as statistics and percentiles per interval
      */
     @GetMapping("/time-series")
     public ResponseEntity<List<Map<String, Object>>> getMetricTimeSeries(
             @RequestParam String serviceName, 
             @RequestParam String metricName,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) Duration interval,
+            @RequestParam(required = false) List<Double> quantiles) {
         try {
-            List<Map<String, Object>> timeSeries = metricsService.getMetricTimeSeries(
-                    serviceName, metricName, start, end);
+            List<Map<String, Object>> timeSeries = interval == null
+                    ? metricsService.getMetricTimeSeries(serviceName, metricName, start, end)
+                    : metricsService.getMetricTimeSeries(serviceName, metricName, start, end, interval, quantiles);
             return ResponseEntity.ok(timeSeries);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid time series request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error getting metric time series: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -208,13 +249,30 @@ public class PerformanceMetricsController {
     }
     
     /**
-     * Get metrics for all services
+     * Get the statistics of every metric of every service over a time range, the last hour by default,
+     * one page at a time; the next page is requested with the cursor of the previous one, which keeps
+     * the time range of the first page. The default range ends at the start of the current minute,
+     * so that repeated requests share their cached pages.
      */
     @GetMapping("/all-services")
-    public ResponseEntity<Map<String, List<PerformanceMetric>>> getAllServicesMetrics() {
+    public ResponseEntity<ServiceStatisticsPage> getAllServicesMetrics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
         try {
-            Map<String, List<PerformanceMetric>> metrics = metricsService.getMetricsGroupedByService();
-            return ResponseEntity.ok(metrics);
+            ServiceStatisticsPage page;
+            if (cursor != null && !cursor.isEmpty()) {
+                page = statisticsService.getServiceStatistics(start, end, cursor, limit);
+            } else {
+                LocalDateTime rangeEnd = end != null ? end : LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+                LocalDateTime rangeStart = start != null ? start : rangeEnd.minusHours(1);
+                page = statisticsService.getServiceStatistics(rangeStart, rangeEnd, null, limit);
+            }
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid all services metrics request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error getting all services metrics: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -0,0 +1,113 @@
+package com.gogidix.centralizeddashboard.metrics.ingest;
+
+import com.gogidix.centralizeddashboard.metrics.model.MetricType;
+import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Parser of performance metrics in a line protocol modelled on InfluxDB's, one point per line:
+ * <pre>
+ * metricName,service=orders,instance=orders-1[,type=TIMER][,key=value...] value=12.5 [epochMillis]
+ * </pre>
+ * The type defaults to GAUGE and the timestamp to the time of parsing. Other tags are kept, comma
+ * separated, in the tags of the metric. Names and tags cannot contain spaces, commas or equal signs.
+ * Blank lines and lines starting with {@code #} are skipped.
+ */
+public final class LineProtocolParser {
+
+    private static final Pattern SPACES = Pattern.compile(" +");
+
+    private LineProtocolParser() {
+    }
+
+    /**
+     * Parse every line of a request body.
+     *
+     * @param reader the body
+     * @return the metrics, in the order of the lines
+     * @throws IllegalArgumentException if a line is malformed, with its line number
+     * @throws IOException if the body cannot be read
+     */
+    public static List<PerformanceMetric> parse(Reader reader) throws IOException {
+        List<PerformanceMetric> metrics = new ArrayList<>();
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        int lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                metrics.add(parseLine(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return metrics;
+    }
+
+    private static PerformanceMetric parseLine(String line) {
+        String[] parts = SPACES.split(line);
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("expected series, value and optional timestamp");
+        }
+
+        String[] series = parts[0].split(",");
+        PerformanceMetric metric = new PerformanceMetric();
+        metric.setMetricName(series[0]);
+        metric.setMetricType(MetricType.GAUGE);
+        StringBuilder tags = new StringBuilder();
+        for (int i = 1; i < series.length; i++) {
+            int separator = series[i].indexOf('=');
+            if (separator <= 0 || separator == series[i].length() - 1) {
+                throw new IllegalArgumentException("malformed tag " + series[i]);
+            }
+            String key = series[i].substring(0, separator);
+            String value = series[i].substring(separator + 1);
+            switch (key) {
+                case "service" -> metric.setServiceName(value);
+                case "instance" -> metric.setInstanceId(value);
+                case "type" -> metric.setMetricType(MetricType.valueOf(value.toUpperCase()));
+                default -> tags.append(tags.isEmpty() ? "" : ",").append(series[i]);
+            }
+        }
+        if (metric.getMetricName().isEmpty() || metric.getServiceName() == null || metric.getInstanceId() == null) {
+            throw new IllegalArgumentException("metric name, service and instance are required");
+        }
+        if (!tags.isEmpty()) {
+            metric.setTags(tags.toString());
+        }
+
+        if (!parts[1].startsWith("value=")) {
+            throw new IllegalArgumentException("expected value=<number>");
+        }
+        double value = Double.parseDouble(parts[1].substring("value=".length()));
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException("value must be finite");
+        }
+        metric.setValue(value);
+
+        if (parts.length == 3) {
+            metric.setTimestamp(toLocalDateTime(Long.parseLong(parts[2])));
+        }
+        return metric;
+    }
+
+    /**
+     * Convert epoch milliseconds to the local date time metrics are recorded in
+     */
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
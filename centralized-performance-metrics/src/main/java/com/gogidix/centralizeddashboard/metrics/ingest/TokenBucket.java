@@ -0,0 +1,71 @@
+package com.gogidix.centralizeddashboard.metrics.ingest;
+
+/**
+ * Token bucket limiting the number of points a tenant ingests per second, allowing bursts of up to
+ * its capacity after being idle. Thread-safe.
+ */
+public class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * Create a full bucket.
+     *
+     * @param tokensPerSecond the sustained rate
+     * @param capacity the maximum burst, at least the rate
+     * @param now the current time from {@link System#nanoTime()}
+     */
+    public TokenBucket(long tokensPerSecond, long capacity, long now) {
+        this.tokensPerNano = tokensPerSecond / 1e9;
+        this.capacity = Math.max(capacity, tokensPerSecond);
+        this.tokens = this.capacity;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Take tokens if all of them are available.
+     *
+     * @param requested the number of tokens
+     * @param now the current time from {@link System#nanoTime()}
+     * @return whether the tokens were taken
+     */
+    public synchronized boolean tryAcquire(long requested, long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        if (tokens < requested) {
+            return false;
+        }
+        tokens -= requested;
+        return true;
+    }
+
+    /**
+     * Give back tokens taken for points that were not ingested after all.
+     *
+     * @param released the number of tokens
+     */
+    public synchronized void release(long released) {
+        tokens = Math.min(capacity, tokens + released);
+    }
+
+    /**
+     * The maximum number of tokens taken at once
+     */
+    public long getCapacity() {
+        return (long) capacity;
+    }
+
+    /**
+     * Time until a number of tokens is available, at the sustained rate.
+     *
+     * @param requested the number of tokens
+     * @return the time in seconds, at least one
+     */
+    public synchronized long secondsUntilAvailable(long requested) {
+        double missing = Math.max(0, Math.min(requested, capacity) - tokens);
+        return Math.max(1, (long) Math.ceil(missing / tokensPerNano / 1e9));
+    }
+}
@@ -0,0 +1,151 @@
+package com.gogidix.centralizeddashboard.metrics.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity representing the aggregates of a metric of a service, across its instances, over one
+ * bucket of a rollup tier
+ */
+@Entity
+@Table(name = "performance_metric_rollups",
+        uniqueConstraints = @UniqueConstraint(
+                columnNames = {"tier", "service_name", "metric_name", "bucket_start"}),
+        indexes = @Index(columnList = "tier, bucket_start"))
+public class MetricRollup {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private RollupTier tier;
+
+    @Column(name = "service_name", nullable = false)
+    private String serviceName;
+
+    @Column(name = "metric_name", nullable = false)
+    private String metricName;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private Long count;
+
+    @Column(nullable = false)
+    private Double sum;
+
+    @Column(nullable = false)
+    private Double min;
+
+    @Column(nullable = false)
+    private Double max;
+
+    @Column(nullable = false)
+    private byte[] sketch;
+
+    // Default constructor
+    public MetricRollup() {
+        this.id = UUID.randomUUID().toString();
+    }
+
+    // Constructor with required fields
+    public MetricRollup(RollupTier tier, String serviceName, String metricName, LocalDateTime bucketStart) {
+        this();
+        this.tier = tier;
+        this.serviceName = serviceName;
+        this.metricName = metricName;
+        this.bucketStart = bucketStart;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public RollupTier getTier() {
+        return tier;
+    }
+
+    public void setTier(RollupTier tier) {
+        this.tier = tier;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public void setMetricName(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public Double getSum() {
+        return sum;
+    }
+
+    public void setSum(Double sum) {
+        this.sum = sum;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public byte[] getSketch() {
+        return sketch;
+    }
+
+    public void setSketch(byte[] sketch) {
+        this.sketch = sketch;
+    }
+}
\ No newline at end of file
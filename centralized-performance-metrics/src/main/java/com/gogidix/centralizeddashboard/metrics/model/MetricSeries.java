@@ -0,0 +1,79 @@
+package com.gogidix.centralizeddashboard.metrics.model;
+
+/**
+ * Points of one metric of one service instance in columnar form, as posted to the batch ingestion endpoint.
+ * Timestamps are epoch milliseconds; without them every value is taken as recorded now.
+ */
+public class MetricSeries {
+
+    private String serviceName;
+
+    private String instanceId;
+
+    private MetricType metricType;
+
+    private String metricName;
+
+    private String tags;
+
+    private long[] timestamps;
+
+    private double[] values;
+
+    // Getters and Setters
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public MetricType getMetricType() {
+        return metricType;
+    }
+
+    public void setMetricType(MetricType metricType) {
+        this.metricType = metricType;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public void setMetricName(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getTags() {
+        return tags;
+    }
+
+    public void setTags(String tags) {
+        this.tags = tags;
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public void setTimestamps(long[] timestamps) {
+        this.timestamps = timestamps;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public void setValues(double[] values) {
+        this.values = values;
+    }
+}
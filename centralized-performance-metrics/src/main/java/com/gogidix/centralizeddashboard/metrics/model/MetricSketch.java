@@ -0,0 +1,148 @@
+package com.gogidix.centralizeddashboard.metrics.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity representing the distribution of a metric of one service instance over one interval,
+ * stored as a serialized quantile sketch
+ */
+@Entity
+@Table(name = "performance_metric_sketches",
+        uniqueConstraints = @UniqueConstraint(
+                columnNames = {"service_name", "metric_name", "instance_id", "interval_start"}),
+        indexes = @Index(columnList = "service_name, metric_name, interval_start"))
+public class MetricSketch {
+
+    @Id
+    private String id;
+
+    @Column(name = "service_name", nullable = false)
+    private String serviceName;
+
+    @Column(name = "instance_id", nullable = false)
+    private String instanceId;
+
+    @Column(name = "metric_name", nullable = false)
+    private String metricName;
+
+    @Column(name = "interval_start", nullable = false)
+    private LocalDateTime intervalStart;
+
+    @Column(nullable = false)
+    private Long count;
+
+    @Column(nullable = false)
+    private Double sum;
+
+    @Column(nullable = false)
+    private Double min;
+
+    @Column(nullable = false)
+    private Double max;
+
+    @Column(nullable = false)
+    private byte[] sketch;
+
+    // Default constructor
+    public MetricSketch() {
+        this.id = UUID.randomUUID().toString();
+    }
+
+    // Constructor with required fields
+    public MetricSketch(String serviceName, String instanceId, String metricName, LocalDateTime intervalStart) {
+        this();
+        this.serviceName = serviceName;
+        this.instanceId = instanceId;
+        this.metricName = metricName;
+        this.intervalStart = intervalStart;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public void setMetricName(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public LocalDateTime getIntervalStart() {
+        return intervalStart;
+    }
+
+    public void setIntervalStart(LocalDateTime intervalStart) {
+        this.intervalStart = intervalStart;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public Double getSum() {
+        return sum;
+    }
+
+    public void setSum(Double sum) {
+        this.sum = sum;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public byte[] getSketch() {
+        return sketch;
+    }
+
+    public void setSketch(byte[] sketch) {
+        this.sketch = sketch;
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 import java.time.LocalDateTime;
@@ -14,13 +15,15 @@ import java.util.UUID;
  * Entity representing a performance metric
  */
 @Entity
-@Table(name = "performance_metrics")
+@Table(name = "performance_metrics", indexes = {
+        @Index(columnList = "timestamp"),
+        @Index(columnList = "service_name, metric_name, timestamp")})
 public class PerformanceMetric {
 
     @Id
     private String id;
     
-    @Column(nullable = false)
+    @Column(name = "service_name", nullable = false)
     private String serviceName;
     
     @Column(nullable = false)
@@ -30,7 +33,7 @@ public class PerformanceMetric {
     @Enumerated(EnumType.STRING)
     private MetricType metricType;
     
-    @Column(nullable = false)
+    @Column(name = "metric_name", nullable = false)
     private String metricName;
     
     @Column(nullable = false)
@@ -0,0 +1,32 @@
+package com.gogidix.centralizeddashboard.metrics.model;
+
+import java.time.Duration;
+
+/**
+ * Enum representing the resolutions performance metrics are rolled up to, from the finest
+ */
+public enum RollupTier {
+    MINUTE(Duration.ofMinutes(1)),  // Rolled up from the raw metrics
+    HOUR(Duration.ofHours(1)),      // Rolled up from the minute tier
+    DAY(Duration.ofDays(1));        // Rolled up from the hour tier
+
+    private final Duration width;
+
+    RollupTier(Duration width) {
+        this.width = width;
+    }
+
+    /**
+     * Length of the buckets of the tier
+     */
+    public Duration getWidth() {
+        return width;
+    }
+
+    /**
+     * The tier this one is rolled up from, or null for the minute tier
+     */
+    public RollupTier getSource() {
+        return ordinal() == 0 ? null : values()[ordinal() - 1];
+    }
+}
\ No newline at end of file
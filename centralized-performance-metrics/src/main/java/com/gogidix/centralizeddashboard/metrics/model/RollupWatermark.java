@@ -0,0 +1,53 @@
+package com.gogidix.centralizeddashboard.metrics.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing how far a rollup tier has been compacted: every bucket starting before
+ * the watermark is complete
+ */
+@Entity
+@Table(name = "performance_metric_rollup_watermarks")
+public class RollupWatermark {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private RollupTier tier;
+
+    @Column(nullable = false)
+    private LocalDateTime compactedUntil;
+
+    // Default constructor
+    public RollupWatermark() {
+    }
+
+    // Constructor with required fields
+    public RollupWatermark(RollupTier tier, LocalDateTime compactedUntil) {
+        this.tier = tier;
+        this.compactedUntil = compactedUntil;
+    }
+
+    // Getters and Setters
+    public RollupTier getTier() {
+        return tier;
+    }
+
+    public void setTier(RollupTier tier) {
+        this.tier = tier;
+    }
+
+    public LocalDateTime getCompactedUntil() {
+        return compactedUntil;
+    }
+
+    public void setCompactedUntil(LocalDateTime compactedUntil) {
+        this.compactedUntil = compactedUntil;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.gogidix.centralizeddashboard.metrics.model;
+
+/**
+ * Aggregates of one metric of one service, across its instances, over a time range
+ */
+public class ServiceMetricStatistics {
+
+    private String serviceName;
+
+    private String metricName;
+
+    private long count;
+
+    private double sum;
+
+    private double min;
+
+    private double max;
+
+    // Default constructor
+    public ServiceMetricStatistics() {
+    }
+
+    // Constructor with all fields
+    public ServiceMetricStatistics(String serviceName, String metricName, long count, double sum, double min, double max) {
+        this.serviceName = serviceName;
+        this.metricName = metricName;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    // Getters and Setters
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public void setMetricName(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public void setMin(double min) {
+        this.min = min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void setMax(double max) {
+        this.max = max;
+    }
+
+    public double getAvg() {
+        return count == 0 ? 0 : sum / count;
+    }
+}
\ No newline at end of file
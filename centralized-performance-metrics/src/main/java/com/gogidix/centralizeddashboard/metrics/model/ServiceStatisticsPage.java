@@ -0,0 +1,66 @@
+package com.gogidix.centralizeddashboard.metrics.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One page of service metric statistics, ordered by service name and metric name.
+ * All pages of a listing cover the time range of its first page.
+ * The cursor of the next page is null on the last page.
+ */
+public class ServiceStatisticsPage {
+
+    private List<ServiceMetricStatistics> statistics;
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+
+    private String nextCursor;
+
+    // Default constructor
+    public ServiceStatisticsPage() {
+    }
+
+    // Constructor with all fields
+    public ServiceStatisticsPage(List<ServiceMetricStatistics> statistics, LocalDateTime start, LocalDateTime end,
+            String nextCursor) {
+        this.statistics = statistics;
+        this.start = start;
+        this.end = end;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<ServiceMetricStatistics> getStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(List<ServiceMetricStatistics> statistics) {
+        this.statistics = statistics;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public void setStart(LocalDateTime start) {
+        this.start = start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    public void setEnd(LocalDateTime end) {
+        this.end = end;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.gogidix.centralizeddashboard.metrics.repository;
+
+import com.gogidix.centralizeddashboard.metrics.model.MetricRollup;
+import com.gogidix.centralizeddashboard.metrics.model.RollupTier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the sources of the rollup tiers and inserts rollups with JDBC batches, so that compacting
+ * a window keeps no entity in memory. Scans must run inside a transaction for PostgreSQL to fetch
+ * their rows in chunks instead of all at once.
+ */
+@Repository
+public class MetricRollupJdbcRepository {
+
+    private static final int FETCH_SIZE = 5_000;
+
+    private static final String SCAN_RAW = "SELECT service_name, metric_name, timestamp, value "
+            + "FROM performance_metrics WHERE timestamp >= ? AND timestamp < ?";
+
+    private static final String SCAN_ROLLUPS = "SELECT service_name, metric_name, bucket_start, sketch "
+            + "FROM performance_metric_rollups WHERE tier = ? AND bucket_start >= ? AND bucket_start < ?";
+
+    private static final String NEXT_RAW = "SELECT MIN(timestamp) FROM performance_metrics WHERE timestamp >= ?";
+
+    private static final String NEXT_ROLLUP = "SELECT MIN(bucket_start) FROM performance_metric_rollups "
+            + "WHERE tier = ? AND bucket_start >= ?";
+
+    private static final String INSERT = "INSERT INTO performance_metric_rollups "
+            + "(id, tier, service_name, metric_name, bucket_start, count, sum, min, max, sketch) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final int[] INSERT_TYPES = {
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP,
+            Types.BIGINT, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.BINARY
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public MetricRollupJdbcRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Visit the raw metrics recorded within a time range, the end excluded
+     */
+    public void scanRaw(LocalDateTime start, LocalDateTime end, RawPointHandler handler) {
+        jdbcTemplate.query(SCAN_RAW, resultSet -> {
+            handler.accept(resultSet.getString(1), resultSet.getString(2),
+                    resultSet.getTimestamp(3).toLocalDateTime(), resultSet.getDouble(4));
+        }, Timestamp.valueOf(start), Timestamp.valueOf(end));
+    }
+
+    /**
+     * Visit the rollups of a tier whose bucket starts within a time range, the end excluded
+     */
+    public void scanRollups(RollupTier tier, LocalDateTime start, LocalDateTime end, RollupHandler handler) {
+        jdbcTemplate.query(SCAN_ROLLUPS, resultSet -> {
+            handler.accept(resultSet.getString(1), resultSet.getString(2),
+                    resultSet.getTimestamp(3).toLocalDateTime(), resultSet.getBytes(4));
+        }, tier.name(), Timestamp.valueOf(start), Timestamp.valueOf(end));
+    }
+
+    /**
+     * Find the time of the first raw metric at or after a time, or null if there is none
+     */
+    public LocalDateTime findNextRawTimestamp(LocalDateTime from) {
+        Timestamp next = jdbcTemplate.queryForObject(NEXT_RAW, Timestamp.class, Timestamp.valueOf(from));
+        return next == null ? null : next.toLocalDateTime();
+    }
+
+    /**
+     * Find the start of the first bucket of a tier at or after a time, or null if there is none
+     */
+    public LocalDateTime findNextBucketStart(RollupTier tier, LocalDateTime from) {
+        Timestamp next = jdbcTemplate.queryForObject(NEXT_ROLLUP, Timestamp.class, tier.name(), Timestamp.valueOf(from));
+        return next == null ? null : next.toLocalDateTime();
+    }
+
+    /**
+     * Insert rollups, skipping those whose bucket is already stored
+     */
+    public void insert(List<MetricRollup> rollups) {
+        List<Object[]> rows = new ArrayList<>(rollups.size());
+        for (MetricRollup rollup : rollups) {
+            rows.add(new Object[]{
+                    rollup.getId(),
+                    rollup.getTier().name(),
+                    rollup.getServiceName(),
+                    rollup.getMetricName(),
+                    Timestamp.valueOf(rollup.getBucketStart()),
+                    rollup.getCount(),
+                    rollup.getSum(),
+                    rollup.getMin(),
+                    rollup.getMax(),
+                    rollup.getSketch()
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows, INSERT_TYPES);
+    }
+
+    /**
+     * Receives raw metrics
+     */
+    @FunctionalInterface
+    public interface RawPointHandler {
+
+        void accept(String serviceName, String metricName, LocalDateTime timestamp, double value);
+    }
+
+    /**
+     * Receives the serialized sketches of rollups
+     */
+    @FunctionalInterface
+    public interface RollupHandler {
+
+        void accept(String serviceName, String metricName, LocalDateTime bucketStart, byte[] sketch);
+    }
+}
\ No newline at end of file
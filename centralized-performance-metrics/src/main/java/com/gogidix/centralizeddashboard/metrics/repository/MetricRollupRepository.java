@@ -0,0 +1,43 @@
+package com.gogidix.centralizeddashboard.metrics.repository;
+
+import com.gogidix.centralizeddashboard.metrics.model.MetricRollup;
+import com.gogidix.centralizeddashboard.metrics.model.RollupTier;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for metric rollups
+ */
+@Repository
+public interface MetricRollupRepository extends JpaRepository<MetricRollup, String> {
+
+    /**
+     * Find the rollups of a tier for a service name and metric name whose bucket starts within a time range,
+     * the end excluded
+     */
+    @Query("SELECT r FROM MetricRollup r WHERE r.tier = ?1 AND r.serviceName = ?2 AND r.metricName = ?3 " +
+           "AND r.bucketStart >= ?4 AND r.bucketStart < ?5 ORDER BY r.bucketStart")
+    List<MetricRollup> findWithinTimeRange(
+            RollupTier tier, String serviceName, String metricName, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Find the start of the first bucket of a tier
+     */
+    @Query("SELECT MIN(r.bucketStart) FROM MetricRollup r WHERE r.tier = ?1")
+    LocalDateTime findFirstBucketStart(RollupTier tier);
+
+    /**
+     * Delete the rollups of a tier whose bucket started before a specific time
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MetricRollup r WHERE r.tier = ?1 AND r.bucketStart < ?2")
+    int deleteByTierAndBucketStartBefore(RollupTier tier, LocalDateTime bucketStart);
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.gogidix.centralizeddashboard.metrics.repository;
+
+import com.gogidix.centralizeddashboard.metrics.model.MetricSketch;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for metric sketches
+ */
+@Repository
+public interface MetricSketchRepository extends JpaRepository<MetricSketch, String> {
+
+    /**
+     * Find the sketch of a service instance metric for an interval
+     */
+    Optional<MetricSketch> findByServiceNameAndMetricNameAndInstanceIdAndIntervalStart(
+            String serviceName, String metricName, String instanceId, LocalDateTime intervalStart);
+
+    /**
+     * Find the sketches of all instances of a service metric for the intervals starting within a time range,
+     * the end excluded
+     */
+    @Query("SELECT s FROM MetricSketch s WHERE s.serviceName = ?1 AND s.metricName = ?2 " +
+           "AND s.intervalStart >= ?3 AND s.intervalStart < ?4 ORDER BY s.intervalStart")
+    List<MetricSketch> findByServiceNameAndMetricNameWithinTimeRange(
+            String serviceName, String metricName, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Delete sketches of intervals that started before a specific time
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MetricSketch s WHERE s.intervalStart < ?1")
+    int deleteByIntervalStartBefore(LocalDateTime intervalStart);
+}
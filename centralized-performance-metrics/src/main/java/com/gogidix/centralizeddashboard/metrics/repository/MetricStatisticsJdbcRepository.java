@@ -0,0 +1,93 @@
+package com.gogidix.centralizeddashboard.metrics.repository;
+
+import com.gogidix.centralizeddashboard.metrics.model.RollupTier;
+import com.gogidix.centralizeddashboard.metrics.model.ServiceMetricStatistics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Computes the aggregates of every metric of every service over a time range in one grouped statement.
+ * The range is given as segments, each read from a rollup tier or from the raw metrics, whose partial
+ * aggregates are combined per service and metric. Pages are selected by keyset, after the last service
+ * and metric of the previous page, so that deep pages cost no more than the first.
+ */
+@Repository
+public class MetricStatisticsJdbcRepository {
+
+    private static final String ROLLUP_SEGMENT = "SELECT service_name, metric_name, "
+            + "SUM(count) AS points, SUM(sum) AS total, MIN(min) AS lowest, MAX(max) AS highest "
+            + "FROM performance_metric_rollups WHERE tier = ? AND bucket_start >= ? AND bucket_start < ?";
+
+    private static final String RAW_SEGMENT = "SELECT service_name, metric_name, "
+            + "COUNT(*) AS points, SUM(value) AS total, MIN(value) AS lowest, MAX(value) AS highest "
+            + "FROM performance_metrics WHERE timestamp >= ? AND timestamp < ?";
+
+    private static final String AFTER = " AND (service_name > ? OR (service_name = ? AND metric_name > ?))";
+
+    private static final String GROUP_BY = " GROUP BY service_name, metric_name";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public MetricStatisticsJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Find the aggregates over the given segments of the metrics ordered after a service name and
+     * metric name, or from the first if null, at most limit of them
+     */
+    public List<ServiceMetricStatistics> findStatistics(List<Segment> segments,
+            String afterServiceName, String afterMetricName, int limit) {
+        if (segments.isEmpty()) {
+            return List.of();
+        }
+        StringJoiner union = new StringJoiner(" UNION ALL ");
+        List<Object> args = new ArrayList<>();
+        for (Segment segment : segments) {
+            StringBuilder sql = new StringBuilder();
+            if (segment.tier() == null) {
+                sql.append(RAW_SEGMENT);
+            } else {
+                sql.append(ROLLUP_SEGMENT);
+                args.add(segment.tier().name());
+            }
+            args.add(Timestamp.valueOf(segment.start()));
+            args.add(Timestamp.valueOf(segment.end()));
+            // Repeated in every segment so that each one only scans the metrics past the cursor
+            if (afterServiceName != null) {
+                sql.append(AFTER);
+                args.add(afterServiceName);
+                args.add(afterServiceName);
+                args.add(afterMetricName);
+            }
+            union.add(sql.append(GROUP_BY));
+        }
+        args.add(limit);
+
+        String sql = "SELECT service_name, metric_name, SUM(points), SUM(total), MIN(lowest), MAX(highest) FROM ("
+                + union + ") segments" + GROUP_BY + " ORDER BY service_name, metric_name LIMIT ?";
+        return jdbcTemplate.query(sql, (resultSet, row) -> new ServiceMetricStatistics(
+                resultSet.getString(1),
+                resultSet.getString(2),
+                resultSet.getLong(3),
+                resultSet.getDouble(4),
+                resultSet.getDouble(5),
+                resultSet.getDouble(6)), args.toArray());
+    }
+
+    /**
+     * Part of a time range read from one rollup tier, or from the raw metrics if the tier is null.
+     * Rollups are selected by the start of their bucket, raw metrics by their time, the end excluded.
+     */
+    public record Segment(RollupTier tier, LocalDateTime start, LocalDateTime end) {
+    }
+}
\ No newline at end of file
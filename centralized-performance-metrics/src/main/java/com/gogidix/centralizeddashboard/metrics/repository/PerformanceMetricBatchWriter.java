@@ -0,0 +1,87 @@
+package com.gogidix.centralizeddashboard.metrics.repository;
+
+import com.gogidix.centralizeddashboard.metrics.config.IngestionProperties;
+import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Writes batches of performance metrics with multi-row inserts, bypassing the entity manager.
+ * Each statement inserts up to {@code metrics.ingestion.rows-per-statement} rows and a batch is
+ * written in one transaction. Rows whose id is already stored are skipped, so a failed batch can
+ * be written again.
+ */
+@Repository
+public class PerformanceMetricBatchWriter {
+
+    private static final String INSERT = "INSERT INTO performance_metrics "
+            + "(id, service_name, instance_id, metric_type, metric_name, value, timestamp, tags) VALUES ";
+
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ON_CONFLICT = " ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int rowsPerStatement;
+    private final String fullStatement;
+
+    @Autowired
+    public PerformanceMetricBatchWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            IngestionProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        // PostgreSQL allows at most 32767 parameters per statement
+        this.rowsPerStatement = Math.max(1, Math.min(properties.getRowsPerStatement(), 4_000));
+        this.fullStatement = statement(rowsPerStatement);
+    }
+
+    /**
+     * Insert metrics in one transaction.
+     *
+     * @param metrics the metrics
+     */
+    public void write(List<PerformanceMetric> metrics) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < metrics.size(); from += rowsPerStatement) {
+                List<PerformanceMetric> rows = metrics.subList(from, Math.min(metrics.size(), from + rowsPerStatement));
+                String sql = rows.size() == rowsPerStatement ? fullStatement : statement(rows.size());
+                jdbcTemplate.update(sql, statement -> bind(statement, rows));
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement statement, List<PerformanceMetric> rows) throws SQLException {
+        int parameter = 1;
+        for (PerformanceMetric metric : rows) {
+            statement.setString(parameter++, metric.getId());
+            statement.setString(parameter++, metric.getServiceName());
+            statement.setString(parameter++, metric.getInstanceId());
+            statement.setString(parameter++, metric.getMetricType().name());
+            statement.setString(parameter++, metric.getMetricName());
+            statement.setDouble(parameter++, metric.getValue());
+            statement.setTimestamp(parameter++, Timestamp.valueOf(metric.getTimestamp()));
+            statement.setString(parameter++, metric.getTags());
+        }
+    }
+
+    private static String statement(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + rows * (ROW.length() + 2) + ON_CONFLICT.length());
+        sql.append(INSERT);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.append(ON_CONFLICT).toString();
+    }
+}
@@ -4,8 +4,10 @@ import com.gogidix.centralizeddashboard.metrics.model.MetricType;
 import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -77,31 +79,16 @@ public interface PerformanceMetricRepository extends JpaRepository<PerformanceMe
             String serviceName, String metricName, org.springframework.data.domain.Pageable pageable);
     
     /**
-     * Get average metric value for a service name and metric name within a time range
+     * Find the time of the oldest metric
      */
-    @Query("SELECT AVG(m.value) FROM PerformanceMetric m WHERE m.serviceName = ?1 " +
-           "AND m.metricName = ?2 AND m.timestamp BETWEEN ?3 AND ?4")
-    Double getAverageValueByServiceNameAndMetricNameWithinTimeRange(
-            String serviceName, String metricName, LocalDateTime start, LocalDateTime end);
-    
-    /**
-     * Get maximum metric value for a service name and metric name within a time range
-     */
-    @Query("SELECT MAX(m.value) FROM PerformanceMetric m WHERE m.serviceName = ?1 " +
-           "AND m.metricName = ?2 AND m.timestamp BETWEEN ?3 AND ?4")
-    Double getMaxValueByServiceNameAndMetricNameWithinTimeRange(
-            String serviceName, String metricName, LocalDateTime start, LocalDateTime end);
-    
-    /**
-     * Get minimum metric value for a service name and metric name within a time range
-     */
-    @Query("SELECT MIN(m.value) FROM PerformanceMetric m WHERE m.serviceName = ?1 " +
-           "AND m.metricName = ?2 AND m.timestamp BETWEEN ?3 AND ?4")
-    Double getMinValueByServiceNameAndMetricNameWithinTimeRange(
-            String serviceName, String metricName, LocalDateTime start, LocalDateTime end);
+    @Query("SELECT MIN(m.timestamp) FROM PerformanceMetric m")
+    LocalDateTime findFirstTimestamp();
     
     /**
-     * Delete metrics older than a specific time
+     * Delete metrics older than a specific time in one statement, returning the number of deleted metrics
      */
-    void deleteByTimestampBefore(LocalDateTime timestamp);
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PerformanceMetric m WHERE m.timestamp < ?1")
+    int deleteByTimestampBefore(LocalDateTime timestamp);
 } 
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.gogidix.centralizeddashboard.metrics.repository;
+
+import com.gogidix.centralizeddashboard.metrics.model.RollupTier;
+import com.gogidix.centralizeddashboard.metrics.model.RollupWatermark;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the compaction watermarks of rollup tiers
+ */
+@Repository
+public interface RollupWatermarkRepository extends JpaRepository<RollupWatermark, RollupTier> {
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.gogidix.centralizeddashboard.metrics.service;
+
+import com.gogidix.centralizeddashboard.metrics.model.MetricSeries;
+import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service interface for the batch ingestion of performance metrics.
+ * Accepted metrics are staged in a bounded buffer and written asynchronously in large batches;
+ * a request is accepted or rejected as a whole.
+ */
+public interface MetricIngestionService {
+
+    /**
+     * Stage metrics of a tenant for writing
+     */
+    IngestionResult ingest(String tenantId, List<PerformanceMetric> metrics);
+
+    /**
+     * Stage metrics of a tenant, posted in columnar form, for writing
+     *
+     * @throws IllegalArgumentException if a series is incomplete or its columns differ in length
+     */
+    IngestionResult ingestSeries(String tenantId, List<MetricSeries> series);
+
+    /**
+     * Get the state of the ingestion buffer and the counts of ingested points
+     */
+    Map<String, Object> getIngestionStatus();
+
+    /**
+     * Outcome of an ingestion request
+     */
+    enum Outcome {
+        ACCEPTED,
+        QUOTA_EXCEEDED,
+        BUFFER_FULL,
+        TOO_LARGE
+    }
+
+    /**
+     * Result of an ingestion request, with the number of points and, when rejected for lack of quota
+     * or buffer space, the seconds to wait before retrying
+     */
+    record IngestionResult(Outcome outcome, int points, long retryAfterSeconds) {
+    }
+}
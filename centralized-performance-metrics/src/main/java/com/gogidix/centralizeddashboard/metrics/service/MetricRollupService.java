@@ -0,0 +1,51 @@
+package com.gogidix.centralizeddashboard.metrics.service;
+
+import com.gogidix.centralizeddashboard.metrics.model.RollupTier;
+import com.gogidix.centralizeddashboard.metrics.sketch.DDSketch;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.NavigableMap;
+
+/**
+ * Service interface for the rollup of performance metrics into minute, hour and day tiers.
+ * Queries read the coarsest tier whose buckets fit the requested range or interval, finer tiers
+ * for the edges, and the sketches of recent intervals past the watermarks of the tiers.
+ */
+public interface MetricRollupService {
+
+    /**
+     * Roll up the raw metrics and each tier into the next, as far as their sources are complete,
+     * returning the number of rollups written
+     */
+    int compact();
+
+    /**
+     * Delete rollups, raw metrics and sketches beyond their retention, never before they are rolled up,
+     * returning the number of deleted rows
+     */
+    int applyRetention();
+
+    /**
+     * Get the distribution of a metric over a time range, merged across instances
+     */
+    DDSketch getSketch(String serviceName, String metricName, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Get the distributions of a metric per interval of a time range, merged across instances.
+     * The tiers used are those whose bucket width divides the interval.
+     */
+    NavigableMap<LocalDateTime, DDSketch> getSketchesByInterval(
+            String serviceName, String metricName, LocalDateTime start, LocalDateTime end, Duration interval);
+
+    /**
+     * Choose the interval of a time series requested without one: null to return raw points over
+     * short ranges, otherwise the finest tier width within the configured maximum number of points
+     */
+    Duration resolveInterval(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Get the time before which a tier is complete, or null if it was never compacted
+     */
+    LocalDateTime getCompactedUntil(RollupTier tier);
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.gogidix.centralizeddashboard.metrics.service;
+
+import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
+import com.gogidix.centralizeddashboard.metrics.sketch.DDSketch;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.NavigableMap;
+
+/**
+ * Service interface for the quantile sketches of performance metrics.
+ * Values are summarized per service instance, metric name and fixed interval; queries merge the
+ * sketches of every instance and of every interval overlapping the requested time range.
+ */
+public interface MetricSketchService {
+
+    /**
+     * Add the value of a metric to the sketch of its instance and interval
+     */
+    void record(PerformanceMetric metric);
+
+    /**
+     * Get the distribution of a metric over a time range, merged across instances
+     */
+    DDSketch getSketch(String serviceName, String metricName, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Get the distributions of a metric per interval of a time range, merged across instances.
+     * Intervals shorter than the sketch interval are widened to it.
+     */
+    NavigableMap<LocalDateTime, DDSketch> getSketchesByInterval(
+            String serviceName, String metricName, LocalDateTime start, LocalDateTime end, Duration interval);
+
+    /**
+     * Persist the sketches of ended intervals, merging them into the stored ones
+     */
+    int flush();
+
+    /**
+     * Create an empty sketch with the configured accuracy
+     */
+    DDSketch newSketch();
+}
@@ -0,0 +1,19 @@
+package com.gogidix.centralizeddashboard.metrics.service;
+
+import com.gogidix.centralizeddashboard.metrics.model.ServiceStatisticsPage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Service interface for the statistics of every metric of every service over a time range
+ */
+public interface MetricStatisticsService {
+
+    /**
+     * Get one page of the count, sum, min, max and average of every metric of every service
+     * within a time range, ordered by service name and metric name, starting after the cursor
+     * of the previous page or from the first metric if the cursor is null. A cursor holds the time
+     * range of its listing, so the range may be null when a cursor is given.
+     */
+    ServiceStatisticsPage getServiceStatistics(LocalDateTime start, LocalDateTime end, String cursor, int limit);
+}
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.gogidix.centralizeddashboard.metrics.service;
 import com.gogidix.centralizeddashboard.metrics.model.MetricType;
 import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -72,24 +73,42 @@ public interface PerformanceMetricsService {
     PerformanceMetric getLatestMetric(String serviceName, String metricName);
     
     /**
-     * Get metrics statistics (min, max, avg) for a service name and metric name
+     * Get metrics statistics (min, max, avg, count and the p50, p90, p95 and p99 percentiles)
+     * for a service name and metric name
      */
     Map<String, Double> getMetricsStatistics(
             String serviceName, String metricName, LocalDateTime start, LocalDateTime end);
     
     /**
-     * Get metrics for all services grouped by service name
+     * Get metrics statistics (min, max, avg, count and the given quantiles, labelled as percentiles,
+     * or the default ones if null) for a service name and metric name. Count and quantiles come from
+     * the sketches of the intervals overlapping the time range.
      */
-    Map<String, List<PerformanceMetric>> getMetricsGroupedByService();
+    Map<String, Double> getMetricsStatistics(String serviceName, String metricName,
+            LocalDateTime start, LocalDateTime end, List<Double> quantiles);
     
     /**
-     * Get time series data for a specific metric
+     * Get the histogram of a metric over a time range, as equal-width buckets between its min and max
+     */
+    List<Map<String, Object>> getMetricHistogram(String serviceName, String metricName,
+            LocalDateTime start, LocalDateTime end, int buckets);
+    
+    /**
+     * Get time series data for a specific metric, as raw points over short time ranges and
+     * per interval of a rollup tier over longer ones
      */
     List<Map<String, Object>> getMetricTimeSeries(
             String serviceName, String metricName, LocalDateTime start, LocalDateTime end);
     
     /**
-     * Prune old metrics to maintain database size
+     * Get time series data for a specific metric per interval, with count, min, max, avg and
+     * the given quantiles, or the default ones if null, of each interval
+     */
+    List<Map<String, Object>> getMetricTimeSeries(String serviceName, String metricName,
+            LocalDateTime start, LocalDateTime end, Duration interval, List<Double> quantiles);
+    
+    /**
+     * Prune old metrics to maintain database size, keeping those not rolled up yet
      */
     int pruneOldMetrics(LocalDateTime cutoffTime);
 } 
\ No newline at end of file
@@ -0,0 +1,297 @@
+package com.gogidix.centralizeddashboard.metrics.service.impl;
+
+import com.gogidix.centralizeddashboard.metrics.config.IngestionProperties;
+import com.gogidix.centralizeddashboard.metrics.ingest.LineProtocolParser;
+import com.gogidix.centralizeddashboard.metrics.ingest.TokenBucket;
+import com.gogidix.centralizeddashboard.metrics.model.MetricSeries;
+import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
+import com.gogidix.centralizeddashboard.metrics.repository.PerformanceMetricBatchWriter;
+import com.gogidix.centralizeddashboard.metrics.service.MetricIngestionService;
+import com.gogidix.centralizeddashboard.metrics.service.MetricSketchService;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Implementation of the metric ingestion service.
+ * The buffer is bounded by the number of points accepted and not yet written, which includes the
+ * batches being written. Writer threads drain it into multi-row inserts, retry failed batches and
+ * then add the written points to the sketches.
+ * Quotas are kept per tenant only while the tenant ingests: a bucket idle for its burst is full, as
+ * a new one would be, so forgetting it changes nothing and tenant ids cannot grow the map.
+ */
+@Service
+public class MetricIngestionServiceImpl implements MetricIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricIngestionServiceImpl.class);
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final long MAX_TRACKED_TENANTS = 100_000;
+
+    private final PerformanceMetricBatchWriter batchWriter;
+    private final MetricSketchService sketchService;
+    private final IngestionProperties properties;
+    private final BlockingQueue<StagedMetric> buffer = new LinkedBlockingQueue<>();
+    private final AtomicInteger staged = new AtomicInteger();
+    private final Cache<String, TokenBucket> quotas;
+    private final ExecutorService writers;
+    // Held to stage points, and exclusively to stop, so no point is staged after the writers drained
+    private final ReadWriteLock stagingLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+
+    private final Counter acceptedPoints;
+    private final Counter writtenPoints;
+    private final Counter failedPoints;
+    private final Counter quotaRejectedPoints;
+    private final Counter bufferRejectedPoints;
+    private final Timer ingestionLag;
+
+    @Autowired
+    public MetricIngestionServiceImpl(PerformanceMetricBatchWriter batchWriter, MetricSketchService sketchService,
+            IngestionProperties properties, MeterRegistry meterRegistry) {
+        this.batchWriter = batchWriter;
+        this.sketchService = sketchService;
+        this.properties = properties;
+        this.quotas = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofSeconds(Math.max(1, properties.getBurstSeconds())))
+                .maximumSize(MAX_TRACKED_TENANTS)
+                .build();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(properties.getWriterThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "metric-ingestion-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.acceptedPoints = pointCounter(meterRegistry, "accepted");
+        this.writtenPoints = pointCounter(meterRegistry, "written");
+        this.failedPoints = pointCounter(meterRegistry, "failed");
+        this.quotaRejectedPoints = pointCounter(meterRegistry, "rejected_quota");
+        this.bufferRejectedPoints = pointCounter(meterRegistry, "rejected_buffer_full");
+        this.ingestionLag = Timer.builder("metrics.ingestion.lag")
+                .description("Time from accepting a batch of points to committing it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("metrics.ingestion.buffer.points", staged, AtomicInteger::get)
+                .description("Points accepted and not yet written")
+                .register(meterRegistry);
+        Gauge.builder("metrics.ingestion.buffer.oldest.seconds", this, MetricIngestionServiceImpl::oldestStagedSeconds)
+                .description("Time the oldest staged point has waited")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < properties.getWriterThreads(); i++) {
+            writers.execute(this::runWriter);
+        }
+        logger.info("Started {} metric ingestion writers with a buffer of {} points",
+                properties.getWriterThreads(), properties.getBufferCapacity());
+    }
+
+    /**
+     * Stop accepting points and write the staged ones
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stagingLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stagingLock.writeLock().unlock();
+        }
+        writers.shutdown();
+        if (!writers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            logger.warn("Metric ingestion writers did not finish, {} points not written", staged.get());
+            writers.shutdownNow();
+        }
+    }
+
+    @Override
+    public IngestionResult ingest(String tenantId, List<PerformanceMetric> metrics) {
+        int points = metrics.size();
+        if (points == 0) {
+            return new IngestionResult(Outcome.ACCEPTED, 0, 0);
+        }
+        TokenBucket quota = quotas.get(tenantId, this::createQuota);
+        if (points > quota.getCapacity() || points > properties.getBufferCapacity()) {
+            return new IngestionResult(Outcome.TOO_LARGE, points, 0);
+        }
+
+        long now = System.nanoTime();
+        if (!quota.tryAcquire(points, now)) {
+            quotaRejectedPoints.increment(points);
+            return new IngestionResult(Outcome.QUOTA_EXCEEDED, points, quota.secondsUntilAvailable(points));
+        }
+        stagingLock.readLock().lock();
+        try {
+            if (!running) {
+                quota.release(points);
+                bufferRejectedPoints.increment(points);
+                return new IngestionResult(Outcome.BUFFER_FULL, points, 1);
+            }
+            if (staged.addAndGet(points) > properties.getBufferCapacity()) {
+                staged.addAndGet(-points);
+                quota.release(points);
+                bufferRejectedPoints.increment(points);
+                return new IngestionResult(Outcome.BUFFER_FULL, points, 1);
+            }
+
+            for (PerformanceMetric metric : metrics) {
+                buffer.add(new StagedMetric(metric, now));
+            }
+        } finally {
+            stagingLock.readLock().unlock();
+        }
+        acceptedPoints.increment(points);
+        return new IngestionResult(Outcome.ACCEPTED, points, 0);
+    }
+
+    @Override
+    public IngestionResult ingestSeries(String tenantId, List<MetricSeries> series) {
+        List<PerformanceMetric> metrics = new ArrayList<>();
+        for (MetricSeries one : series) {
+            if (one.getServiceName() == null || one.getInstanceId() == null || one.getMetricType() == null
+                    || one.getMetricName() == null || one.getValues() == null) {
+                throw new IllegalArgumentException(
+                        "Series require serviceName, instanceId, metricType, metricName and values");
+            }
+            long[] timestamps = one.getTimestamps();
+            double[] values = one.getValues();
+            if (timestamps != null && timestamps.length != values.length) {
+                throw new IllegalArgumentException("Series " + one.getMetricName() + " has "
+                        + timestamps.length + " timestamps for " + values.length + " values");
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (!Double.isFinite(values[i])) {
+                    throw new IllegalArgumentException("Series " + one.getMetricName() + " has a non-finite value");
+                }
+                PerformanceMetric metric = new PerformanceMetric(one.getServiceName(), one.getInstanceId(),
+                        one.getMetricType(), one.getMetricName(), values[i]);
+                metric.setTags(one.getTags());
+                if (timestamps != null) {
+                    metric.setTimestamp(LineProtocolParser.toLocalDateTime(timestamps[i]));
+                }
+                metrics.add(metric);
+            }
+        }
+        return ingest(tenantId, metrics);
+    }
+
+    @Override
+    public Map<String, Object> getIngestionStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("bufferedPoints", staged.get());
+        status.put("bufferCapacity", properties.getBufferCapacity());
+        status.put("oldestBufferedSeconds", oldestStagedSeconds());
+        status.put("acceptedPoints", (long) acceptedPoints.count());
+        status.put("writtenPoints", (long) writtenPoints.count());
+        status.put("failedPoints", (long) failedPoints.count());
+        status.put("quotaRejectedPoints", (long) quotaRejectedPoints.count());
+        status.put("bufferRejectedPoints", (long) bufferRejectedPoints.count());
+        status.put("meanLagMs", ingestionLag.mean(TimeUnit.MILLISECONDS));
+        status.put("maxLagMs", ingestionLag.max(TimeUnit.MILLISECONDS));
+        status.put("checkedAt", LocalDateTime.now());
+        return status;
+    }
+
+    private void runWriter() {
+        List<StagedMetric> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || !buffer.isEmpty()) {
+            try {
+                StagedMetric first = buffer.poll(properties.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, properties.getBatchSize() - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                staged.addAndGet(-batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<StagedMetric> batch) throws InterruptedException {
+        List<PerformanceMetric> metrics = new ArrayList<>(batch.size());
+        for (StagedMetric stagedMetric : batch) {
+            metrics.add(stagedMetric.metric());
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                batchWriter.write(metrics);
+                break;
+            } catch (RuntimeException e) {
+                if (attempt >= properties.getWriteAttempts()) {
+                    failedPoints.increment(metrics.size());
+                    logger.error("Dropping {} metrics after {} failed attempts: {}",
+                            metrics.size(), attempt, e.getMessage());
+                    return;
+                }
+                logger.warn("Error writing {} metrics, attempt {}: {}", metrics.size(), attempt, e.getMessage());
+                Thread.sleep(100L << attempt);
+            }
+        }
+
+        // The batch is drained in order, its first point has waited the longest
+        ingestionLag.record(System.nanoTime() - batch.get(0).acceptedAt(), TimeUnit.NANOSECONDS);
+        writtenPoints.increment(metrics.size());
+        for (PerformanceMetric metric : metrics) {
+            sketchService.record(metric);
+        }
+    }
+
+    private TokenBucket createQuota(String tenantId) {
+        long pointsPerSecond = properties.getTenantPointsPerSecond()
+                .getOrDefault(tenantId, properties.getDefaultPointsPerSecond());
+        return new TokenBucket(pointsPerSecond, pointsPerSecond * properties.getBurstSeconds(), System.nanoTime());
+    }
+
+    private double oldestStagedSeconds() {
+        StagedMetric oldest = buffer.peek();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.acceptedAt()) / 1e9;
+    }
+
+    private static Counter pointCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("metrics.ingestion.points")
+                .description("Points by ingestion outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record StagedMetric(PerformanceMetric metric, long acceptedAt) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,331 @@
+package com.gogidix.centralizeddashboard.metrics.service.impl;
+
+import com.gogidix.centralizeddashboard.metrics.config.RollupProperties;
+import com.gogidix.centralizeddashboard.metrics.model.MetricRollup;
+import com.gogidix.centralizeddashboard.metrics.model.RollupTier;
+import com.gogidix.centralizeddashboard.metrics.model.RollupWatermark;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricRollupJdbcRepository;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricRollupRepository;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricSketchRepository;
+import com.gogidix.centralizeddashboard.metrics.repository.PerformanceMetricRepository;
+import com.gogidix.centralizeddashboard.metrics.repository.RollupWatermarkRepository;
+import com.gogidix.centralizeddashboard.metrics.service.MetricRollupService;
+import com.gogidix.centralizeddashboard.metrics.service.MetricSketchService;
+import com.gogidix.centralizeddashboard.metrics.sketch.DDSketch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Implementation of the metric rollup service.
+ * Each tier is compacted in windows, one transaction per window writing its rollups together with
+ * the watermark of the tier, so that a failed run resumes where it stopped. The minute tier is rolled
+ * up from the raw metrics once a minute is older than the settle delay, the hour and day tiers from
+ * the tier below as far as its watermark.
+ */
+@Service
+public class MetricRollupServiceImpl implements MetricRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricRollupServiceImpl.class);
+
+    private static final List<RollupTier> COARSEST_FIRST = List.of(RollupTier.DAY, RollupTier.HOUR, RollupTier.MINUTE);
+
+    private final MetricRollupRepository rollupRepository;
+    private final MetricRollupJdbcRepository rollupJdbcRepository;
+    private final RollupWatermarkRepository watermarkRepository;
+    private final PerformanceMetricRepository metricRepository;
+    private final MetricSketchRepository sketchRepository;
+    private final MetricSketchService sketchService;
+    private final TransactionTemplate transactionTemplate;
+    private final RollupProperties properties;
+
+    @Autowired
+    public MetricRollupServiceImpl(MetricRollupRepository rollupRepository,
+            MetricRollupJdbcRepository rollupJdbcRepository,
+            RollupWatermarkRepository watermarkRepository,
+            PerformanceMetricRepository metricRepository,
+            MetricSketchRepository sketchRepository,
+            MetricSketchService sketchService,
+            TransactionTemplate transactionTemplate,
+            RollupProperties properties) {
+        Duration window = properties.getCompactionWindow();
+        if (window.getSeconds() < 60 || window.getSeconds() % 60 != 0 || window.getNano() != 0) {
+            throw new IllegalArgumentException("Compaction window must be a whole number of minutes: " + window);
+        }
+        this.rollupRepository = rollupRepository;
+        this.rollupJdbcRepository = rollupJdbcRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.metricRepository = metricRepository;
+        this.sketchRepository = sketchRepository;
+        this.sketchService = sketchService;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * Compact the tiers and apply retention, on the instances rollups are enabled on
+     */
+    @Scheduled(fixedDelayString = "${metrics.rollup.compaction-ms:60000}",
+            initialDelayString = "${metrics.rollup.initial-delay-ms:30000}")
+    public void compactAndApplyRetention() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            int rollups = compact();
+            int deleted = applyRetention();
+            if (rollups > 0 || deleted > 0) {
+                logger.info("Wrote {} metric rollups and deleted {} expired rows", rollups, deleted);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error compacting metric rollups: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int compact() {
+        int rollups = 0;
+        // From the finest tier, so that each tier sees the buckets just written into its source
+        for (RollupTier tier : RollupTier.values()) {
+            rollups += compact(tier);
+        }
+        return rollups;
+    }
+
+    @Override
+    public int applyRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        for (RollupTier tier : RollupTier.values()) {
+            Duration retention = properties.getTierRetention().get(tier);
+            if (retention == null) {
+                continue;
+            }
+            LocalDateTime cutoff = now.minus(retention);
+            // Buckets are kept until the next tier has rolled them up
+            if (tier.ordinal() < RollupTier.values().length - 1) {
+                LocalDateTime rolledUp = getCompactedUntil(RollupTier.values()[tier.ordinal() + 1]);
+                if (rolledUp == null) {
+                    continue;
+                }
+                cutoff = earliest(cutoff, rolledUp);
+            }
+            deleted += rollupRepository.deleteByTierAndBucketStartBefore(tier, cutoff);
+        }
+        LocalDateTime rolledUp = getCompactedUntil(RollupTier.MINUTE);
+        if (rolledUp != null) {
+            deleted += metricRepository.deleteByTimestampBefore(
+                    earliest(now.minus(properties.getRawRetention()), rolledUp));
+            deleted += sketchRepository.deleteByIntervalStartBefore(
+                    earliest(now.minus(properties.getSketchRetention()), rolledUp));
+        }
+        return deleted;
+    }
+
+    @Override
+    public DDSketch getSketch(String serviceName, String metricName, LocalDateTime start, LocalDateTime end) {
+        DDSketch merged = sketchService.newSketch();
+        Map<RollupTier, LocalDateTime> watermarks = getWatermarks();
+        cover(serviceName, metricName, start, end, COARSEST_FIRST, 0, watermarks,
+                (bucketStart, sketch) -> merged.merge(sketch),
+                (from, to) -> merged.merge(sketchService.getSketch(serviceName, metricName, from, to)));
+        return merged;
+    }
+
+    @Override
+    public NavigableMap<LocalDateTime, DDSketch> getSketchesByInterval(
+            String serviceName, String metricName, LocalDateTime start, LocalDateTime end, Duration interval) {
+        List<RollupTier> tiers = new ArrayList<>();
+        for (RollupTier tier : COARSEST_FIRST) {
+            long width = tier.getWidth().getSeconds();
+            if (interval.getNano() == 0 && interval.getSeconds() % width == 0) {
+                tiers.add(tier);
+            }
+        }
+        NavigableMap<LocalDateTime, DDSketch> sketches = new TreeMap<>();
+        BiConsumer<LocalDateTime, DDSketch> sink = (bucketStart, sketch) -> sketches
+                .computeIfAbsent(align(bucketStart, interval), k -> sketchService.newSketch())
+                .merge(sketch);
+        cover(serviceName, metricName, align(start, interval), end, tiers, 0, getWatermarks(), sink,
+                (from, to) -> sketchService.getSketchesByInterval(serviceName, metricName, from, to, interval)
+                        .forEach(sink));
+        return sketches;
+    }
+
+    @Override
+    public Duration resolveInterval(LocalDateTime start, LocalDateTime end) {
+        Duration range = Duration.between(start, end);
+        if (range.compareTo(properties.getRawQueryMaxRange()) <= 0) {
+            return null;
+        }
+        for (RollupTier tier : RollupTier.values()) {
+            if (range.dividedBy(tier.getWidth()) <= properties.getMaxPoints()) {
+                return tier.getWidth();
+            }
+        }
+        long days = range.toDays() / properties.getMaxPoints() + 1;
+        return Duration.ofDays(days);
+    }
+
+    @Override
+    public LocalDateTime getCompactedUntil(RollupTier tier) {
+        return watermarkRepository.findById(tier).map(RollupWatermark::getCompactedUntil).orElse(null);
+    }
+
+    private int compact(RollupTier tier) {
+        RollupTier source = tier.getSource();
+        Duration width = tier.getWidth();
+        LocalDateTime target;
+        if (source == null) {
+            target = align(LocalDateTime.now().minus(properties.getSettleDelay()), width);
+        } else {
+            LocalDateTime sourceWatermark = getCompactedUntil(source);
+            if (sourceWatermark == null) {
+                return 0;
+            }
+            target = align(sourceWatermark, width);
+        }
+
+        LocalDateTime cursor = getCompactedUntil(tier);
+        if (cursor == null) {
+            LocalDateTime first = source == null
+                    ? metricRepository.findFirstTimestamp()
+                    : rollupRepository.findFirstBucketStart(source);
+            cursor = first == null ? target : align(first, width);
+        }
+
+        Duration window = source == null ? properties.getCompactionWindow() : width;
+        int rollups = 0;
+        for (int windows = 0; cursor.isBefore(target) && windows < properties.getMaxWindowsPerRun(); windows++) {
+            // Skip the gaps without any source row, rather than compacting them window by window
+            LocalDateTime next = source == null
+                    ? rollupJdbcRepository.findNextRawTimestamp(cursor)
+                    : rollupJdbcRepository.findNextBucketStart(source, cursor);
+            LocalDateTime from = next == null ? target : earliest(align(next, width), target);
+            if (!from.isBefore(target)) {
+                saveWatermark(tier, target);
+                break;
+            }
+            LocalDateTime to = earliest(from.plus(window), target);
+            rollups += compactWindow(tier, from, to);
+            cursor = to;
+        }
+        return rollups;
+    }
+
+    private int compactWindow(RollupTier tier, LocalDateTime from, LocalDateTime to) {
+        Integer written = transactionTemplate.execute(status -> {
+            Map<RollupKey, DDSketch> sketches = new HashMap<>();
+            Duration width = tier.getWidth();
+            if (tier.getSource() == null) {
+                rollupJdbcRepository.scanRaw(from, to, (serviceName, metricName, timestamp, value) ->
+                        sketches.computeIfAbsent(new RollupKey(serviceName, metricName, align(timestamp, width)),
+                                k -> sketchService.newSketch()).accept(value));
+            } else {
+                rollupJdbcRepository.scanRollups(tier.getSource(), from, to, (serviceName, metricName, bucketStart, sketch) ->
+                        sketches.computeIfAbsent(new RollupKey(serviceName, metricName, align(bucketStart, width)),
+                                k -> sketchService.newSketch()).merge(DDSketch.fromBytes(sketch)));
+            }
+
+            List<MetricRollup> rollups = new ArrayList<>(sketches.size());
+            for (Map.Entry<RollupKey, DDSketch> entry : sketches.entrySet()) {
+                RollupKey key = entry.getKey();
+                DDSketch sketch = entry.getValue();
+                MetricRollup rollup = new MetricRollup(tier, key.serviceName(), key.metricName(), key.bucketStart());
+                rollup.setCount(sketch.getCount());
+                rollup.setSum(sketch.getSum());
+                rollup.setMin(sketch.getMin());
+                rollup.setMax(sketch.getMax());
+                rollup.setSketch(sketch.toBytes());
+                rollups.add(rollup);
+            }
+            rollupJdbcRepository.insert(rollups);
+            watermarkRepository.save(new RollupWatermark(tier, to));
+            return rollups.size();
+        });
+        logger.debug("Rolled up {} {} buckets from {} to {}", written, tier, from, to);
+        return written == null ? 0 : written;
+    }
+
+    private void saveWatermark(RollupTier tier, LocalDateTime compactedUntil) {
+        watermarkRepository.save(new RollupWatermark(tier, compactedUntil));
+    }
+
+    private Map<RollupTier, LocalDateTime> getWatermarks() {
+        Map<RollupTier, LocalDateTime> watermarks = new EnumMap<>(RollupTier.class);
+        for (RollupWatermark watermark : watermarkRepository.findAll()) {
+            watermarks.put(watermark.getTier(), watermark.getCompactedUntil());
+        }
+        return watermarks;
+    }
+
+    /**
+     * Cover a time range with the buckets of the coarsest tier fitting inside it and, recursively,
+     * its edges with finer tiers. The finest tier also takes the buckets overlapping the range, since
+     * nothing finer would cover their partial edges; whatever lies past its watermark is read live.
+     */
+    private void cover(String serviceName, String metricName, LocalDateTime start, LocalDateTime end,
+            List<RollupTier> tiers, int index, Map<RollupTier, LocalDateTime> watermarks,
+            BiConsumer<LocalDateTime, DDSketch> sink, BiConsumer<LocalDateTime, LocalDateTime> live) {
+        if (!start.isBefore(end)) {
+            return;
+        }
+        if (index == tiers.size()) {
+            live.accept(start, end);
+            return;
+        }
+        RollupTier tier = tiers.get(index);
+        LocalDateTime watermark = watermarks.get(tier);
+        if (watermark == null) {
+            cover(serviceName, metricName, start, end, tiers, index + 1, watermarks, sink, live);
+            return;
+        }
+        Duration width = tier.getWidth();
+        boolean finest = index == tiers.size() - 1;
+        LocalDateTime from = finest ? align(start, width) : alignUp(start, width);
+        LocalDateTime to = earliest(finest ? alignUp(end, width) : align(end, width), watermark);
+        if (!from.isBefore(to)) {
+            cover(serviceName, metricName, start, end, tiers, index + 1, watermarks, sink, live);
+            return;
+        }
+        for (MetricRollup rollup : rollupRepository.findWithinTimeRange(tier, serviceName, metricName, from, to)) {
+            sink.accept(rollup.getBucketStart(), DDSketch.fromBytes(rollup.getSketch()));
+        }
+        cover(serviceName, metricName, start, from, tiers, index + 1, watermarks, sink, live);
+        cover(serviceName, metricName, to, end, tiers, index + 1, watermarks, sink, live);
+    }
+
+    private static LocalDateTime earliest(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime align(LocalDateTime time, Duration width) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        long step = width.getSeconds();
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(seconds, step) * step, 0, ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime alignUp(LocalDateTime time, Duration width) {
+        LocalDateTime aligned = align(time, width);
+        return aligned.isBefore(time) ? aligned.plus(width) : aligned;
+    }
+
+    private record RollupKey(String serviceName, String metricName, LocalDateTime bucketStart) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,194 @@
+package com.gogidix.centralizeddashboard.metrics.service.impl;
+
+import com.gogidix.centralizeddashboard.metrics.model.MetricSketch;
+import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricSketchRepository;
+import com.gogidix.centralizeddashboard.metrics.service.MetricSketchService;
+import com.gogidix.centralizeddashboard.metrics.sketch.DDSketch;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Implementation of the metric sketch service.
+ * Sketches of open intervals are kept in memory and persisted by a scheduled flush once their
+ * interval has ended; points arriving later for a persisted interval are merged into the stored sketch.
+ */
+@Service
+public class MetricSketchServiceImpl implements MetricSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricSketchServiceImpl.class);
+
+    private final MetricSketchRepository sketchRepository;
+    private final double relativeAccuracy;
+    private final Duration interval;
+    private final ConcurrentMap<SketchKey, DDSketch> openSketches = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MetricSketchServiceImpl(MetricSketchRepository sketchRepository,
+            @Value("${metrics.sketch.relative-accuracy:0.01}") double relativeAccuracy,
+            @Value("${metrics.sketch.interval:PT1M}") Duration interval) {
+        // Intervals must not straddle the minutes of the finest rollup tier
+        if (interval.getSeconds() < 1 || 60 % interval.getSeconds() != 0) {
+            throw new IllegalArgumentException("Sketch interval must be a whole number of seconds dividing a minute: "
+                    + interval);
+        }
+        this.sketchRepository = sketchRepository;
+        this.relativeAccuracy = relativeAccuracy;
+        this.interval = interval;
+    }
+
+    @Override
+    public void record(PerformanceMetric metric) {
+        if (metric.getValue() == null || metric.getTimestamp() == null) {
+            return;
+        }
+        SketchKey key = new SketchKey(metric.getServiceName(), metric.getMetricName(), metric.getInstanceId(),
+                align(metric.getTimestamp(), interval));
+        double value = metric.getValue();
+        openSketches.compute(key, (k, sketch) -> {
+            if (sketch == null) {
+                sketch = new DDSketch(relativeAccuracy);
+            }
+            sketch.accept(value);
+            return sketch;
+        });
+    }
+
+    @Override
+    public DDSketch getSketch(String serviceName, String metricName, LocalDateTime start, LocalDateTime end) {
+        DDSketch merged = new DDSketch(relativeAccuracy);
+        LocalDateTime from = align(start, interval);
+        for (MetricSketch stored : sketchRepository.findByServiceNameAndMetricNameWithinTimeRange(
+                serviceName, metricName, from, end)) {
+            merged.merge(DDSketch.fromBytes(stored.getSketch()));
+        }
+        mergeOpenSketches(serviceName, metricName, from, end, (intervalStart, sketch) -> merged.merge(sketch));
+        return merged;
+    }
+
+    @Override
+    public NavigableMap<LocalDateTime, DDSketch> getSketchesByInterval(
+            String serviceName, String metricName, LocalDateTime start, LocalDateTime end, Duration bucket) {
+        Duration width = bucket.compareTo(interval) < 0 ? interval : bucket;
+        NavigableMap<LocalDateTime, DDSketch> sketches = new TreeMap<>();
+        LocalDateTime from = align(start, interval);
+        for (MetricSketch stored : sketchRepository.findByServiceNameAndMetricNameWithinTimeRange(
+                serviceName, metricName, from, end)) {
+            sketches.computeIfAbsent(align(stored.getIntervalStart(), width), k -> new DDSketch(relativeAccuracy))
+                    .merge(DDSketch.fromBytes(stored.getSketch()));
+        }
+        mergeOpenSketches(serviceName, metricName, from, end, (intervalStart, sketch) ->
+                sketches.computeIfAbsent(align(intervalStart, width), k -> new DDSketch(relativeAccuracy))
+                        .merge(sketch));
+        return sketches;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${metrics.sketch.flush-ms:30000}")
+    public int flush() {
+        int persisted = flushBefore(align(LocalDateTime.now(), interval));
+        if (persisted > 0) {
+            logger.debug("Persisted {} metric sketches", persisted);
+        }
+        return persisted;
+    }
+
+    /**
+     * Persist every sketch, including those of open intervals, when the service stops
+     */
+    @PreDestroy
+    public void flushAll() {
+        int persisted = flushBefore(LocalDateTime.MAX);
+        logger.info("Persisted {} metric sketches on shutdown", persisted);
+    }
+
+    @Override
+    public DDSketch newSketch() {
+        return new DDSketch(relativeAccuracy);
+    }
+
+    private int flushBefore(LocalDateTime openFrom) {
+        int persisted = 0;
+        for (SketchKey key : openSketches.keySet()) {
+            if (!key.intervalStart().isBefore(openFrom)) {
+                continue;
+            }
+            DDSketch sketch = openSketches.remove(key);
+            if (sketch == null) {
+                continue;
+            }
+            try {
+                persist(key, sketch);
+                persisted++;
+            } catch (RuntimeException e) {
+                logger.error("Error persisting metric sketch {}: {}", key, e.getMessage());
+                // Keep the values for the next flush
+                openSketches.merge(key, sketch, (current, failed) -> {
+                    current.merge(failed);
+                    return current;
+                });
+            }
+        }
+        return persisted;
+    }
+
+    private void persist(SketchKey key, DDSketch sketch) {
+        MetricSketch stored = sketchRepository
+                .findByServiceNameAndMetricNameAndInstanceIdAndIntervalStart(
+                        key.serviceName(), key.metricName(), key.instanceId(), key.intervalStart())
+                .orElseGet(() -> new MetricSketch(
+                        key.serviceName(), key.instanceId(), key.metricName(), key.intervalStart()));
+        // Merged into a copy, the sketch is queued again as it is if saving fails
+        DDSketch merged = sketch.emptyCopy();
+        merged.merge(sketch);
+        if (stored.getSketch() != null) {
+            merged.merge(DDSketch.fromBytes(stored.getSketch()));
+        }
+        stored.setCount(merged.getCount());
+        stored.setSum(merged.getSum());
+        stored.setMin(merged.getMin());
+        stored.setMax(merged.getMax());
+        stored.setSketch(merged.toBytes());
+        sketchRepository.save(stored);
+    }
+
+    private void mergeOpenSketches(String serviceName, String metricName, LocalDateTime from, LocalDateTime end,
+            BiConsumer<LocalDateTime, DDSketch> consumer) {
+        for (Map.Entry<SketchKey, DDSketch> entry : openSketches.entrySet()) {
+            SketchKey key = entry.getKey();
+            if (key.serviceName().equals(serviceName) && key.metricName().equals(metricName)
+                    && !key.intervalStart().isBefore(from) && key.intervalStart().isBefore(end)) {
+                // Read under the lock of the entry, the sketch is updated in place
+                openSketches.computeIfPresent(key, (k, sketch) -> {
+                    consumer.accept(k.intervalStart(), sketch);
+                    return sketch;
+                });
+            }
+        }
+    }
+
+    private static LocalDateTime align(LocalDateTime time, Duration width) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        long step = width.getSeconds();
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(seconds, step) * step, 0, ZoneOffset.UTC);
+    }
+
+    private record SketchKey(String serviceName, String metricName, String instanceId, LocalDateTime intervalStart) {
+    }
+}
@@ -0,0 +1,165 @@
+package com.gogidix.centralizeddashboard.metrics.service.impl;
+
+import com.gogidix.centralizeddashboard.metrics.config.StatisticsCacheConfig;
+import com.gogidix.centralizeddashboard.metrics.model.RollupTier;
+import com.gogidix.centralizeddashboard.metrics.model.RollupWatermark;
+import com.gogidix.centralizeddashboard.metrics.model.ServiceMetricStatistics;
+import com.gogidix.centralizeddashboard.metrics.model.ServiceStatisticsPage;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricStatisticsJdbcRepository;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricStatisticsJdbcRepository.Segment;
+import com.gogidix.centralizeddashboard.metrics.repository.RollupWatermarkRepository;
+import com.gogidix.centralizeddashboard.metrics.service.MetricStatisticsService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the metric statistics service.
+ * A time range is split into segments read from the coarsest rollup tiers whose buckets fit inside it,
+ * as far as each tier is compacted, and from the raw metrics for the partial minutes at its edges and
+ * for the minutes not rolled up yet. All segments are then aggregated in one grouped query.
+ */
+@Service
+public class MetricStatisticsServiceImpl implements MetricStatisticsService {
+
+    /**
+     * Largest number of metrics returned in one page
+     */
+    private static final int MAX_PAGE_SIZE = 1_000;
+
+    private static final List<RollupTier> COARSEST_FIRST = List.of(RollupTier.DAY, RollupTier.HOUR, RollupTier.MINUTE);
+
+    private static final char CURSOR_SEPARATOR = '\n';
+
+    private final MetricStatisticsJdbcRepository statisticsRepository;
+    private final RollupWatermarkRepository watermarkRepository;
+
+    @Autowired
+    public MetricStatisticsServiceImpl(MetricStatisticsJdbcRepository statisticsRepository,
+            RollupWatermarkRepository watermarkRepository) {
+        this.statisticsRepository = statisticsRepository;
+        this.watermarkRepository = watermarkRepository;
+    }
+
+    @Override
+    @Cacheable(cacheNames = StatisticsCacheConfig.SERVICE_STATISTICS)
+    public ServiceStatisticsPage getServiceStatistics(LocalDateTime start, LocalDateTime end, String cursor, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        String afterServiceName = null;
+        String afterMetricName = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            // Every page of a listing covers the window of its first page
+            Cursor position = Cursor.decode(cursor);
+            if ((start != null && !start.equals(position.start())) || (end != null && !end.equals(position.end()))) {
+                throw new IllegalArgumentException(
+                        "Cursor was issued for the range " + position.start() + " to " + position.end());
+            }
+            start = position.start();
+            end = position.end();
+            afterServiceName = position.serviceName();
+            afterMetricName = position.metricName();
+        } else if (start == null || end == null) {
+            throw new IllegalArgumentException("A time range or a cursor is required");
+        }
+
+        Map<RollupTier, LocalDateTime> watermarks = new EnumMap<>(RollupTier.class);
+        for (RollupWatermark watermark : watermarkRepository.findAll()) {
+            watermarks.put(watermark.getTier(), watermark.getCompactedUntil());
+        }
+        List<Segment> segments = new ArrayList<>();
+        plan(start, end, 0, watermarks, segments);
+
+        // One more than the page size tells whether there is a next page
+        List<ServiceMetricStatistics> statistics = statisticsRepository.findStatistics(
+                segments, afterServiceName, afterMetricName, pageSize + 1);
+        String nextCursor = null;
+        if (statistics.size() > pageSize) {
+            statistics = statistics.subList(0, pageSize);
+            ServiceMetricStatistics last = statistics.get(pageSize - 1);
+            nextCursor = new Cursor(start, end, last.getServiceName(), last.getMetricName()).encode();
+        }
+        return new ServiceStatisticsPage(List.copyOf(statistics), start, end, nextCursor);
+    }
+
+    /**
+     * Split a time range into the buckets of the coarsest tier fitting inside it and, recursively,
+     * its edges into finer tiers, leaving the partial minutes and the minutes past the watermark
+     * of the minute tier to the raw metrics
+     */
+    static void plan(LocalDateTime start, LocalDateTime end, int index, Map<RollupTier, LocalDateTime> watermarks,
+            List<Segment> segments) {
+        if (!start.isBefore(end)) {
+            return;
+        }
+        if (index == COARSEST_FIRST.size()) {
+            segments.add(new Segment(null, start, end));
+            return;
+        }
+        RollupTier tier = COARSEST_FIRST.get(index);
+        LocalDateTime watermark = watermarks.get(tier);
+        LocalDateTime from = alignUp(start, tier.getWidth());
+        LocalDateTime to = align(end, tier.getWidth());
+        if (watermark != null && watermark.isBefore(to)) {
+            to = watermark;
+        }
+        if (watermark == null || !from.isBefore(to)) {
+            plan(start, end, index + 1, watermarks, segments);
+            return;
+        }
+        segments.add(new Segment(tier, from, to));
+        plan(start, from, index + 1, watermarks, segments);
+        plan(to, end, index + 1, watermarks, segments);
+    }
+
+    private static LocalDateTime align(LocalDateTime time, Duration width) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        long step = width.getSeconds();
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(seconds, step) * step, 0, ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime alignUp(LocalDateTime time, Duration width) {
+        LocalDateTime aligned = align(time, width);
+        return aligned.isBefore(time) ? aligned.plus(width) : aligned;
+    }
+
+    /**
+     * Position of a page: the window of the listing, and the service name and metric name the page follows
+     */
+    private record Cursor(LocalDateTime start, LocalDateTime end, String serviceName, String metricName) {
+
+        private String encode() {
+            String position = String.join(String.valueOf(CURSOR_SEPARATOR),
+                    start.toString(), end.toString(), serviceName, metricName);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Cursor decode(String cursor) {
+            try {
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                        .split(String.valueOf(CURSOR_SEPARATOR), 4);
+                if (position.length == 4) {
+                    return new Cursor(LocalDateTime.parse(position[0]), LocalDateTime.parse(position[1]),
+                            position[2], position[3]);
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,256 @@
+package com.gogidix.centralizeddashboard.metrics.service.impl;
+
+import com.gogidix.centralizeddashboard.metrics.config.StatisticsCacheConfig;
+import com.gogidix.centralizeddashboard.metrics.model.MetricType;
+import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
+import com.gogidix.centralizeddashboard.metrics.model.RollupTier;
+import com.gogidix.centralizeddashboard.metrics.repository.PerformanceMetricRepository;
+import com.gogidix.centralizeddashboard.metrics.service.MetricRollupService;
+import com.gogidix.centralizeddashboard.metrics.service.MetricSketchService;
+import com.gogidix.centralizeddashboard.metrics.service.PerformanceMetricsService;
+import com.gogidix.centralizeddashboard.metrics.sketch.DDSketch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Implementation of the performance metrics service.
+ * Raw metrics are stored as they are recorded and also summarized in quantile sketches, which
+ * answer percentile and histogram queries without reading the raw rows. Queries over a time range
+ * read the rollup tiers as far as they are compacted and the sketches past them.
+ */
+@Service
+public class PerformanceMetricsServiceImpl implements PerformanceMetricsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceMetricsServiceImpl.class);
+
+    /**
+     * Quantiles reported by default in statistics and time series
+     */
+    private static final List<Double> DEFAULT_QUANTILES = List.of(0.5, 0.9, 0.95, 0.99);
+
+    private final PerformanceMetricRepository metricRepository;
+    private final MetricSketchService sketchService;
+    private final MetricRollupService rollupService;
+
+    @Autowired
+    public PerformanceMetricsServiceImpl(PerformanceMetricRepository metricRepository,
+            MetricSketchService sketchService, MetricRollupService rollupService) {
+        this.metricRepository = metricRepository;
+        this.sketchService = sketchService;
+        this.rollupService = rollupService;
+    }
+
+    @Override
+    @Transactional
+    public PerformanceMetric recordMetric(String serviceName, String instanceId, MetricType metricType,
+            String metricName, Double value) {
+        return recordMetricWithTags(serviceName, instanceId, metricType, metricName, value, null);
+    }
+
+    @Override
+    @Transactional
+    public PerformanceMetric recordMetricWithTags(String serviceName, String instanceId, MetricType metricType,
+            String metricName, Double value, String tags) {
+        PerformanceMetric metric = new PerformanceMetric(serviceName, instanceId, metricType, metricName, value);
+        metric.setTags(tags);
+        PerformanceMetric saved = metricRepository.save(metric);
+        sketchService.record(saved);
+        return saved;
+    }
+
+    @Override
+    public List<PerformanceMetric> getMetricsByServiceName(String serviceName) {
+        return metricRepository.findByServiceName(serviceName);
+    }
+
+    @Override
+    public List<PerformanceMetric> getMetricsByInstanceId(String instanceId) {
+        return metricRepository.findByInstanceId(instanceId);
+    }
+
+    @Override
+    public List<PerformanceMetric> getMetricsByMetricType(MetricType metricType) {
+        return metricRepository.findByMetricType(metricType);
+    }
+
+    @Override
+    public List<PerformanceMetric> getMetricsByMetricName(String metricName) {
+        return metricRepository.findByMetricName(metricName);
+    }
+
+    @Override
+    public List<PerformanceMetric> getMetricsByServiceNameAndMetricName(String serviceName, String metricName) {
+        return metricRepository.findByServiceNameAndMetricName(serviceName, metricName);
+    }
+
+    @Override
+    public List<PerformanceMetric> getMetricsByTimeRange(LocalDateTime start, LocalDateTime end) {
+        return metricRepository.findByTimestampBetween(start, end);
+    }
+
+    @Override
+    public List<PerformanceMetric> getMetricsByServiceNameAndTimeRange(
+            String serviceName, LocalDateTime start, LocalDateTime end) {
+        return metricRepository.findByServiceNameAndTimestampBetween(serviceName, start, end);
+    }
+
+    @Override
+    public List<PerformanceMetric> getMetricsByServiceNameMetricNameAndTimeRange(
+            String serviceName, String metricName, LocalDateTime start, LocalDateTime end) {
+        return metricRepository.findByServiceNameAndMetricNameAndTimestampBetween(serviceName, metricName, start, end);
+    }
+
+    @Override
+    public PerformanceMetric getLatestMetric(String serviceName, String metricName) {
+        List<PerformanceMetric> latest = metricRepository.findLatestByServiceNameAndMetricName(
+                serviceName, metricName, PageRequest.of(0, 1));
+        return latest.isEmpty() ? null : latest.get(0);
+    }
+
+    @Override
+    public Map<String, Double> getMetricsStatistics(
+            String serviceName, String metricName, LocalDateTime start, LocalDateTime end) {
+        return getMetricsStatistics(serviceName, metricName, start, end, DEFAULT_QUANTILES);
+    }
+
+    @Override
+    @Cacheable(cacheNames = StatisticsCacheConfig.METRIC_STATISTICS)
+    public Map<String, Double> getMetricsStatistics(String serviceName, String metricName,
+            LocalDateTime start, LocalDateTime end, List<Double> quantiles) {
+        // Min, max and sum are kept exactly by the sketches, raw metrics past their retention are not needed
+        DDSketch sketch = getSketch(serviceName, metricName, start, end);
+        Map<String, Double> statistics = new LinkedHashMap<>();
+        statistics.put("min", sketch.isEmpty() ? null : sketch.getMin());
+        statistics.put("max", sketch.isEmpty() ? null : sketch.getMax());
+        statistics.put("avg", sketch.isEmpty() ? null : sketch.getAverage());
+        statistics.put("count", (double) sketch.getCount());
+        for (Double quantile : quantiles == null ? DEFAULT_QUANTILES : quantiles) {
+            statistics.put(quantileLabel(quantile), sketch.isEmpty() ? null : sketch.getValueAtQuantile(quantile));
+        }
+        return statistics;
+    }
+
+    @Override
+    public List<Map<String, Object>> getMetricHistogram(String serviceName, String metricName,
+            LocalDateTime start, LocalDateTime end, int buckets) {
+        if (buckets < 1) {
+            throw new IllegalArgumentException("Number of buckets must be positive: " + buckets);
+        }
+        DDSketch sketch = getSketch(serviceName, metricName, start, end);
+        List<Map<String, Object>> histogram = new ArrayList<>();
+        if (sketch.isEmpty()) {
+            return histogram;
+        }
+
+        // Sketch buckets are logarithmic; they are counted in equal-width buckets by their middle value
+        double min = sketch.getMin();
+        double width = (sketch.getMax() - min) / buckets;
+        long[] counts = new long[buckets];
+        sketch.forEachBucket((lowerBound, upperBound, count) -> {
+            double middle = Math.max(min, Math.min(sketch.getMax(), (lowerBound + upperBound) / 2));
+            int bucket = width == 0 ? 0 : (int) Math.min(buckets - 1, (middle - min) / width);
+            counts[bucket] += count;
+        });
+        for (int i = 0; i < buckets; i++) {
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put("lowerBound", min + i * width);
+            bucket.put("upperBound", i == buckets - 1 ? sketch.getMax() : min + (i + 1) * width);
+            bucket.put("count", counts[i]);
+            histogram.add(bucket);
+        }
+        return histogram;
+    }
+
+    @Override
+    public List<Map<String, Object>> getMetricTimeSeries(
+            String serviceName, String metricName, LocalDateTime start, LocalDateTime end) {
+        Duration interval = rollupService.resolveInterval(start, end);
+        if (interval != null) {
+            return getMetricTimeSeries(serviceName, metricName, start, end, interval, null);
+        }
+        List<Map<String, Object>> timeSeries = new ArrayList<>();
+        for (PerformanceMetric metric : metricRepository.findByServiceNameAndMetricNameAndTimestampBetween(
+                serviceName, metricName, start, end)) {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("timestamp", metric.getTimestamp());
+            point.put("value", metric.getValue());
+            point.put("instanceId", metric.getInstanceId());
+            timeSeries.add(point);
+        }
+        return timeSeries;
+    }
+
+    @Override
+    public List<Map<String, Object>> getMetricTimeSeries(String serviceName, String metricName,
+            LocalDateTime start, LocalDateTime end, Duration interval, List<Double> quantiles) {
+        List<Map<String, Object>> timeSeries = new ArrayList<>();
+        rollupService.getSketchesByInterval(serviceName, metricName, start, end, interval)
+                .forEach((intervalStart, sketch) -> {
+                    Map<String, Object> point = new LinkedHashMap<>();
+                    point.put("timestamp", intervalStart);
+                    point.put("count", sketch.getCount());
+                    point.put("min", sketch.getMin());
+                    point.put("max", sketch.getMax());
+                    point.put("avg", sketch.getAverage());
+                    for (Double quantile : quantiles == null ? DEFAULT_QUANTILES : quantiles) {
+                        point.put(quantileLabel(quantile), sketch.getValueAtQuantile(quantile));
+                    }
+                    timeSeries.add(point);
+                });
+        return timeSeries;
+    }
+
+    @Override
+    @Transactional
+    public int pruneOldMetrics(LocalDateTime cutoffTime) {
+        // Metrics are kept until rolled up, statistics of the pruned range stay available
+        LocalDateTime rolledUp = rollupService.getCompactedUntil(RollupTier.MINUTE);
+        if (rolledUp != null && rolledUp.isBefore(cutoffTime)) {
+            cutoffTime = rolledUp;
+        }
+        int pruned = metricRepository.deleteByTimestampBefore(cutoffTime);
+        logger.info("Pruned {} performance metrics recorded before {}", pruned, cutoffTime);
+        return pruned;
+    }
+
+    /**
+     * Get the sketch of a time range, built from the raw metrics when no sketch covers it,
+     * as for metrics recorded before sketches were kept
+     */
+    private DDSketch getSketch(String serviceName, String metricName, LocalDateTime start, LocalDateTime end) {
+        DDSketch sketch = rollupService.getSketch(serviceName, metricName, start, end);
+        if (sketch.isEmpty()) {
+            for (PerformanceMetric metric : metricRepository.findByServiceNameAndMetricNameAndTimestampBetween(
+                    serviceName, metricName, start, end)) {
+                if (metric.getValue() != null) {
+                    sketch.accept(metric.getValue());
+                }
+            }
+        }
+        return sketch;
+    }
+
+    /**
+     * Label of a quantile, p99 for 0.99 and p99.9 for 0.999
+     */
+    private static String quantileLabel(double quantile) {
+        String percentile = String.format(Locale.ROOT, "%.4f", quantile * 100)
+                .replaceAll("0+$", "")
+                .replaceAll("\\.$", "");
+        return "p" + percentile;
+    }
+}
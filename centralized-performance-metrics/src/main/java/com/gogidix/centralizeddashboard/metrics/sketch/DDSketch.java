@@ -0,0 +1,389 @@
+package com.gogidix.centralizeddashboard.metrics.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch with a relative error guarantee, after DataDog's DDSketch.
+ * <p>
+ * Values are counted in logarithmically sized buckets, so any quantile is answered within the
+ * configured relative accuracy of the true value, whatever the distribution. Two sketches with the
+ * same accuracy merge exactly by adding their bucket counts, which makes them suitable to combine
+ * across service instances and time intervals. Not thread-safe.
+ */
+public class DDSketch {
+
+    /**
+     * Values closer to zero than this are counted in the zero bucket
+     */
+    private static final double MIN_INDEXABLE_VALUE = 1e-9;
+
+    /**
+     * Upper bound of buckets per sign; the lowest ones are collapsed beyond it
+     */
+    private static final int MAX_BUCKETS = 2048;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final Store positive = new Store();
+    private final Store negative = new Store();
+    private long zeroCount;
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Create an empty sketch.
+     *
+     * @param relativeAccuracy the relative accuracy of quantiles, between 0 and 1 exclusive
+     */
+    public DDSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Add a value to the sketch. NaN and infinite values are ignored.
+     *
+     * @param value the value
+     */
+    public void accept(double value) {
+        accept(value, 1);
+    }
+
+    /**
+     * Add a value to the sketch a number of times. NaN and infinite values are ignored.
+     *
+     * @param value the value
+     * @param occurrences the number of times, at least one
+     */
+    public void accept(double value, long occurrences) {
+        if (!Double.isFinite(value) || occurrences <= 0) {
+            return;
+        }
+        addToBucket(value, occurrences);
+        count += occurrences;
+        sum += value * occurrences;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Add every value of another sketch to this one. The merge is exact when both sketches have the
+     * same relative accuracy; otherwise the buckets of the other sketch are counted at their middle
+     * value, which adds its error to the error of this sketch.
+     *
+     * @param other the sketch to merge
+     */
+    public void merge(DDSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (other.gamma == gamma) {
+            positive.merge(other.positive);
+            negative.merge(other.negative);
+            zeroCount += other.zeroCount;
+        } else {
+            other.forEachBucket((lowerBound, upperBound, bucketCount) ->
+                    addToBucket((lowerBound + upperBound) / 2, bucketCount));
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Get the approximate value at a quantile.
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the value, within the relative accuracy of the exact one, or NaN if the sketch is empty
+     */
+    public double getValueAtQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        double rank = quantile * (count - 1);
+        long seen = 0;
+        // Negative values, from the most negative one, are stored by their absolute value
+        for (int i = negative.counts.length - 1; i >= 0; i--) {
+            seen += negative.counts[i];
+            if (seen > rank) {
+                return clamp(-value(negative.offset + i));
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < positive.counts.length; i++) {
+            seen += positive.counts[i];
+            if (seen > rank) {
+                return clamp(value(positive.offset + i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Visit the non-empty buckets in ascending order of values.
+     *
+     * @param consumer receives the bounds and the count of each bucket
+     */
+    public void forEachBucket(BucketConsumer consumer) {
+        for (int i = negative.counts.length - 1; i >= 0; i--) {
+            if (negative.counts[i] > 0) {
+                int index = negative.offset + i;
+                consumer.accept(-lowerBound(index + 1), -lowerBound(index), negative.counts[i]);
+            }
+        }
+        if (zeroCount > 0) {
+            consumer.accept(-MIN_INDEXABLE_VALUE, MIN_INDEXABLE_VALUE, zeroCount);
+        }
+        for (int i = 0; i < positive.counts.length; i++) {
+            if (positive.counts[i] > 0) {
+                int index = positive.offset + i;
+                consumer.accept(lowerBound(index), lowerBound(index + 1), positive.counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Serialize the sketch. Only the range of non-empty buckets is written, with variable-length
+     * counts, which takes one to three bytes per bucket between the smallest and the largest value.
+     *
+     * @return the serialized sketch
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 * 5 + 10 + positive.serializedSize() + negative.serializedSize());
+        buffer.put(FORMAT_VERSION);
+        buffer.putDouble(relativeAccuracy);
+        putVarLong(buffer, count);
+        buffer.putDouble(sum);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        putVarLong(buffer, zeroCount);
+        positive.writeTo(buffer);
+        negative.writeTo(buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Deserialize a sketch written by {@link #toBytes()}.
+     *
+     * @param bytes the serialized sketch
+     * @return the sketch
+     */
+    public static DDSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported sketch format version: " + version);
+        }
+        DDSketch sketch = new DDSketch(buffer.getDouble());
+        sketch.count = getVarLong(buffer);
+        sketch.sum = buffer.getDouble();
+        sketch.min = buffer.getDouble();
+        sketch.max = buffer.getDouble();
+        sketch.zeroCount = getVarLong(buffer);
+        sketch.positive.readFrom(buffer);
+        sketch.negative.readFrom(buffer);
+        return sketch;
+    }
+
+    /**
+     * Create an empty sketch with the same relative accuracy.
+     *
+     * @return the sketch
+     */
+    public DDSketch emptyCopy() {
+        return new DDSketch(relativeAccuracy);
+    }
+
+    private void addToBucket(double value, long occurrences) {
+        if (value > MIN_INDEXABLE_VALUE) {
+            positive.add(index(value), occurrences);
+        } else if (value < -MIN_INDEXABLE_VALUE) {
+            negative.add(index(-value), occurrences);
+        } else {
+            zeroCount += occurrences;
+        }
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /**
+     * The value that represents a bucket, within the relative accuracy of any value in it
+     */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private double lowerBound(int index) {
+        return Math.pow(gamma, index - 1);
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    public double getAverage() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Receives the buckets of a sketch
+     */
+    @FunctionalInterface
+    public interface BucketConsumer {
+
+        void accept(double lowerBound, double upperBound, long count);
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Dense bucket counts from the bucket index {@code offset} on
+     */
+    private static final class Store {
+
+        private long[] counts = new long[0];
+        private int offset;
+
+        void add(int index, long occurrences) {
+            if (counts.length == 0) {
+                counts = new long[16];
+                offset = index - 8;
+            }
+            if (index < offset) {
+                int grow = offset - index;
+                if (counts.length + grow > MAX_BUCKETS) {
+                    // Out of range at the low end: count with the lowest bucket kept
+                    counts[0] += occurrences;
+                    return;
+                }
+                long[] grown = new long[counts.length + grow];
+                System.arraycopy(counts, 0, grown, grow, counts.length);
+                counts = grown;
+                offset = index;
+            } else if (index >= offset + counts.length) {
+                int length = index - offset + 1;
+                if (length > MAX_BUCKETS) {
+                    collapseBelow(index - MAX_BUCKETS + 1);
+                    length = MAX_BUCKETS;
+                }
+                counts = Arrays.copyOf(counts, Math.min(MAX_BUCKETS, Math.max(length, counts.length * 2)));
+            }
+            counts[index - offset] += occurrences;
+        }
+
+        /**
+         * Fold the buckets below an index into the bucket at that index, trading accuracy of the
+         * smallest values for a bounded size
+         */
+        private void collapseBelow(int newOffset) {
+            long[] shifted = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                shifted[Math.max(offset + i, newOffset) - newOffset] += counts[i];
+            }
+            counts = shifted;
+            offset = newOffset;
+        }
+
+        void merge(Store other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] > 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+
+        int serializedSize() {
+            return 10 + 10 + counts.length * 10;
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            int first = 0;
+            int last = counts.length - 1;
+            while (first <= last && counts[first] == 0) {
+                first++;
+            }
+            while (last >= first && counts[last] == 0) {
+                last--;
+            }
+            int length = last - first + 1;
+            // Zig-zag encoded, bucket indexes of values below one are negative
+            int start = offset + first;
+            putVarLong(buffer, (start << 1) ^ (start >> 31));
+            putVarLong(buffer, length);
+            for (int i = first; i <= last; i++) {
+                putVarLong(buffer, counts[i]);
+            }
+        }
+
+        void readFrom(ByteBuffer buffer) {
+            int zigZag = (int) getVarLong(buffer);
+            int length = (int) getVarLong(buffer);
+            offset = (zigZag >>> 1) ^ -(zigZag & 1);
+            counts = new long[length];
+            for (int i = 0; i < length; i++) {
+                counts[i] = getVarLong(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.gogidix.centralizeddashboard.metrics.ingest;
+
+import com.gogidix.centralizeddashboard.metrics.model.MetricType;
+import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineProtocolParserTest {
+
+    @Test
+    void parse_ShouldReadSeriesTagsValueAndTimestamp() throws IOException {
+        // When
+        List<PerformanceMetric> metrics = parse(
+                "latency,service=orders,instance=orders-1,type=timer,region=eu,pod=a value=12.5 1700000000000");
+
+        // Then
+        assertEquals(1, metrics.size());
+        PerformanceMetric metric = metrics.get(0);
+        assertEquals("latency", metric.getMetricName());
+        assertEquals("orders", metric.getServiceName());
+        assertEquals("orders-1", metric.getInstanceId());
+        assertEquals(MetricType.TIMER, metric.getMetricType());
+        assertEquals("region=eu,pod=a", metric.getTags());
+        assertEquals(12.5, metric.getValue());
+        assertEquals(LineProtocolParser.toLocalDateTime(1_700_000_000_000L), metric.getTimestamp());
+    }
+
+    @Test
+    void parse_ShouldDefaultToGaugeWithoutTags() throws IOException {
+        // When
+        PerformanceMetric metric = parse("heap,service=orders,instance=orders-1 value=-3").get(0);
+
+        // Then
+        assertEquals(MetricType.GAUGE, metric.getMetricType());
+        assertNull(metric.getTags());
+        assertEquals(-3.0, metric.getValue());
+    }
+
+    @Test
+    void parse_ShouldSkipBlankLinesAndComments() throws IOException {
+        // When
+        List<PerformanceMetric> metrics = parse("""
+                # orders
+                cpu,service=orders,instance=orders-1 value=1
+
+                  cpu,service=orders,instance=orders-2   value=2
+                """);
+
+        // Then
+        assertEquals(2, metrics.size());
+        assertEquals("orders-2", metrics.get(1).getInstanceId());
+        assertEquals(2.0, metrics.get(1).getValue());
+    }
+
+    @Test
+    void parse_WhenTagIsMalformed_ShouldReportTheLine() {
+        // When
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> parse("""
+                cpu,service=orders,instance=orders-1 value=1
+                cpu,service=orders,instance=orders-1,region value=1
+                """));
+
+        // Then
+        assertEquals("Line 2: malformed tag region", thrown.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> parse("cpu,service=orders,instance= value=1"));
+        assertThrows(IllegalArgumentException.class, () -> parse("cpu,service=orders,=a,instance=orders-1 value=1"));
+    }
+
+    @Test
+    void parse_WhenTypeIsUnknown_ShouldReject() {
+        // When
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> parse("cpu,service=orders,instance=orders-1,type=quantile value=1"));
+
+        // Then
+        assertTrue(thrown.getMessage().startsWith("Line 1: "));
+    }
+
+    @Test
+    void parse_WhenServiceOrInstanceIsMissing_ShouldReject() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> parse("cpu,instance=orders-1 value=1"));
+        assertThrows(IllegalArgumentException.class, () -> parse("cpu,service=orders value=1"));
+        assertThrows(IllegalArgumentException.class, () -> parse(",service=orders,instance=orders-1 value=1"));
+    }
+
+    @Test
+    void parse_WhenValueOrTimestampIsMalformed_ShouldReject() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> parse("cpu,service=orders,instance=orders-1 1"));
+        assertThrows(IllegalArgumentException.class, () -> parse("cpu,service=orders,instance=orders-1 value=high"));
+        assertThrows(IllegalArgumentException.class,
+                () -> parse("cpu,service=orders,instance=orders-1 value=1 2024-01-01T00:00"));
+        assertThrows(IllegalArgumentException.class,
+                () -> parse("cpu,service=orders,instance=orders-1 value=1 1700000000000 extra"));
+        assertThrows(IllegalArgumentException.class, () -> parse("cpu,service=orders,instance=orders-1"));
+    }
+
+    @Test
+    void parse_WhenValueIsNotFinite_ShouldReject() {
+        // When / Then
+        for (String value : List.of("NaN", "Infinity", "-Infinity", "1e400")) {
+            IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                    () -> parse("cpu,service=orders,instance=orders-1 value=" + value));
+            assertEquals("Line 1: value must be finite", thrown.getMessage(), value);
+        }
+    }
+
+    private static List<PerformanceMetric> parse(String body) throws IOException {
+        return LineProtocolParser.parse(new StringReader(body));
+    }
+}
\ No newline at end of file
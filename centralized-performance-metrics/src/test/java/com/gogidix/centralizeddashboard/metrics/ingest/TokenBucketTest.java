@@ -0,0 +1,94 @@
+package com.gogidix.centralizeddashboard.metrics.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void tryAcquire_ShouldAllowABurstUpToTheCapacity() {
+        // Given
+        TokenBucket bucket = new TokenBucket(100, 200, 0);
+
+        // When / Then
+        assertTrue(bucket.tryAcquire(150, 0));
+        assertTrue(bucket.tryAcquire(50, 0));
+        assertFalse(bucket.tryAcquire(1, 0), "The burst is used up");
+    }
+
+    @Test
+    void tryAcquire_WhenRejected_ShouldTakeNoTokens() {
+        // Given
+        TokenBucket bucket = new TokenBucket(100, 100, 0);
+        bucket.tryAcquire(60, 0);
+
+        // When
+        boolean acquired = bucket.tryAcquire(50, 0);
+
+        // Then
+        assertFalse(acquired);
+        assertTrue(bucket.tryAcquire(40, 0), "A rejected request should leave the remaining tokens");
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillAtTheRateUpToTheCapacity() {
+        // Given
+        TokenBucket bucket = new TokenBucket(100, 200, 0);
+        bucket.tryAcquire(200, 0);
+
+        // When / Then
+        assertFalse(bucket.tryAcquire(51, SECOND / 2));
+        assertTrue(bucket.tryAcquire(50, SECOND / 2));
+        assertFalse(bucket.tryAcquire(201, 60 * SECOND), "Idle time should not refill past the capacity");
+        assertTrue(bucket.tryAcquire(200, 60 * SECOND));
+    }
+
+    @Test
+    void constructor_ShouldHoldAtLeastOneSecondOfTheRate() {
+        // When
+        TokenBucket bucket = new TokenBucket(100, 10, 0);
+
+        // Then
+        assertEquals(100, bucket.getCapacity());
+        assertTrue(bucket.tryAcquire(100, 0));
+    }
+
+    @Test
+    void release_ShouldReturnTokensUpToTheCapacity() {
+        // Given
+        TokenBucket bucket = new TokenBucket(100, 100, 0);
+        bucket.tryAcquire(80, 0);
+
+        // When
+        bucket.release(500);
+
+        // Then
+        assertTrue(bucket.tryAcquire(100, 0));
+        assertFalse(bucket.tryAcquire(1, 0), "Released tokens should not exceed the capacity");
+    }
+
+    @Test
+    void secondsUntilAvailable_ShouldRoundUpTheWaitAtTheRate() {
+        // Given
+        TokenBucket bucket = new TokenBucket(100, 300, 0);
+        bucket.tryAcquire(300, 0);
+
+        // When / Then
+        assertEquals(1, bucket.secondsUntilAvailable(50));
+        assertEquals(2, bucket.secondsUntilAvailable(101));
+        assertEquals(3, bucket.secondsUntilAvailable(300));
+        assertEquals(3, bucket.secondsUntilAvailable(1_000), "The wait is capped by the capacity");
+    }
+
+    @Test
+    void secondsUntilAvailable_WhenTokensAreAvailable_ShouldBeOne() {
+        // Given
+        TokenBucket bucket = new TokenBucket(100, 100, 0);
+
+        // When / Then
+        assertEquals(1, bucket.secondsUntilAvailable(10));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,171 @@
+package com.gogidix.centralizeddashboard.metrics.service.impl;
+
+import com.gogidix.centralizeddashboard.metrics.config.IngestionProperties;
+import com.gogidix.centralizeddashboard.metrics.model.MetricType;
+import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
+import com.gogidix.centralizeddashboard.metrics.repository.PerformanceMetricBatchWriter;
+import com.gogidix.centralizeddashboard.metrics.service.MetricIngestionService.IngestionResult;
+import com.gogidix.centralizeddashboard.metrics.service.MetricIngestionService.Outcome;
+import com.gogidix.centralizeddashboard.metrics.service.MetricSketchService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricIngestionServiceImplTest {
+
+    @Mock
+    private PerformanceMetricBatchWriter batchWriter;
+
+    @Mock
+    private MetricSketchService sketchService;
+
+    private final IngestionProperties properties = new IngestionProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MetricIngestionServiceImpl ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        properties.setWriterThreads(1);
+        properties.setFlushIntervalMs(10);
+        properties.setBufferCapacity(100);
+        properties.setDefaultPointsPerSecond(50);
+        properties.setBurstSeconds(1);
+        properties.setTenantPointsPerSecond(Map.of("bulk", 1_000L));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (ingestionService != null) {
+            ingestionService.stop();
+        }
+    }
+
+    @Test
+    void ingest_WhenBatchExceedsTheQuotaCapacity_ShouldRejectAsTooLarge() {
+        // Given
+        startService();
+
+        // When
+        IngestionResult result = ingestionService.ingest("tenant", metrics(51));
+
+        // Then
+        assertEquals(new IngestionResult(Outcome.TOO_LARGE, 51, 0), result);
+        assertEquals(Outcome.ACCEPTED, ingestionService.ingest("tenant", metrics(50)).outcome(),
+                "A rejected batch should take no quota");
+    }
+
+    @Test
+    void ingest_WhenBatchExceedsTheBuffer_ShouldRejectAsTooLarge() {
+        // Given
+        startService();
+
+        // When
+        IngestionResult result = ingestionService.ingest("bulk", metrics(101));
+
+        // Then
+        assertEquals(Outcome.TOO_LARGE, result.outcome());
+    }
+
+    @Test
+    void ingest_WhenQuotaIsUsedUp_ShouldRejectWithTheWait() {
+        // Given
+        startService();
+        assertEquals(Outcome.ACCEPTED, ingestionService.ingest("tenant", metrics(40)).outcome());
+
+        // When
+        IngestionResult result = ingestionService.ingest("tenant", metrics(40));
+
+        // Then
+        assertEquals(new IngestionResult(Outcome.QUOTA_EXCEEDED, 40, 1), result);
+        assertEquals(Outcome.ACCEPTED, ingestionService.ingest("other", metrics(40)).outcome(),
+                "Quotas should be kept per tenant");
+        assertEquals(40L, ingestionService.getIngestionStatus().get("quotaRejectedPoints"));
+    }
+
+    @Test
+    void ingest_WhenBufferIsFull_ShouldRejectAndReleaseTheQuota() throws InterruptedException {
+        // Given a writer blocked on a first batch that holds most of the buffer
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return null;
+        }).when(batchWriter).write(anyList());
+        startService();
+        assertEquals(Outcome.ACCEPTED, ingestionService.ingest("bulk", metrics(80)).outcome());
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // When
+        IngestionResult result = ingestionService.ingest("bulk", metrics(30));
+
+        // Then
+        assertEquals(new IngestionResult(Outcome.BUFFER_FULL, 30, 1), result);
+        assertEquals(Outcome.ACCEPTED, ingestionService.ingest("bulk", metrics(20)).outcome());
+        assertEquals(30L, ingestionService.getIngestionStatus().get("bufferRejectedPoints"));
+        release.countDown();
+    }
+
+    @Test
+    void ingest_WhenStopped_ShouldRejectAsBufferFull() throws InterruptedException {
+        // Given
+        startService();
+        ingestionService.stop();
+
+        // When
+        IngestionResult result = ingestionService.ingest("tenant", metrics(10));
+
+        // Then
+        assertEquals(new IngestionResult(Outcome.BUFFER_FULL, 10, 1), result);
+        verify(batchWriter, never()).write(anyList());
+    }
+
+    @Test
+    void stop_ShouldWriteEveryAcceptedPoint() throws InterruptedException {
+        // Given
+        List<PerformanceMetric> written = new ArrayList<>();
+        doAnswer(invocation -> written.addAll(invocation.getArgument(0)))
+                .when(batchWriter).write(anyList());
+        startService();
+        List<PerformanceMetric> metrics = metrics(50);
+        assertEquals(Outcome.ACCEPTED, ingestionService.ingest("bulk", metrics).outcome());
+
+        // When
+        ingestionService.stop();
+
+        // Then
+        assertEquals(metrics, written);
+        assertEquals(0, ingestionService.getIngestionStatus().get("bufferedPoints"));
+        verify(sketchService, times(50)).record(any(PerformanceMetric.class));
+    }
+
+    private void startService() {
+        ingestionService = new MetricIngestionServiceImpl(batchWriter, sketchService, properties, meterRegistry);
+        ingestionService.start();
+    }
+
+    private static List<PerformanceMetric> metrics(int count) {
+        List<PerformanceMetric> metrics = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            metrics.add(new PerformanceMetric("orders", "orders-1", MetricType.GAUGE, "cpu", (double) i));
+        }
+        return metrics;
+    }
+}
\ No newline at end of file
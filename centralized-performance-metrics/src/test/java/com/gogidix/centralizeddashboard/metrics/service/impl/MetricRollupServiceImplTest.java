@@ -0,0 +1,452 @@
+package com.gogidix.centralizeddashboard.metrics.service.impl;
+
+import com.gogidix.centralizeddashboard.metrics.config.RollupProperties;
+import com.gogidix.centralizeddashboard.metrics.model.MetricRollup;
+import com.gogidix.centralizeddashboard.metrics.model.RollupTier;
+import com.gogidix.centralizeddashboard.metrics.model.RollupWatermark;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricRollupJdbcRepository;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricRollupJdbcRepository.RawPointHandler;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricRollupJdbcRepository.RollupHandler;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricRollupRepository;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricSketchRepository;
+import com.gogidix.centralizeddashboard.metrics.repository.PerformanceMetricRepository;
+import com.gogidix.centralizeddashboard.metrics.repository.RollupWatermarkRepository;
+import com.gogidix.centralizeddashboard.metrics.service.MetricSketchService;
+import com.gogidix.centralizeddashboard.metrics.sketch.DDSketch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricRollupServiceImplTest {
+
+    private static final String SERVICE = "checkout";
+    private static final String METRIC = "latency";
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final LocalDateTime DAY_1 = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Mock
+    private MetricRollupRepository rollupRepository;
+
+    @Mock
+    private MetricRollupJdbcRepository rollupJdbcRepository;
+
+    @Mock
+    private RollupWatermarkRepository watermarkRepository;
+
+    @Mock
+    private PerformanceMetricRepository metricRepository;
+
+    @Mock
+    private MetricSketchRepository sketchRepository;
+
+    @Mock
+    private MetricSketchService sketchService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final RollupProperties properties = new RollupProperties();
+    private final Map<RollupTier, LocalDateTime> watermarks = new EnumMap<>(RollupTier.class);
+    private final List<LocalDateTime[]> liveRanges = new ArrayList<>();
+    private final List<MetricRollup> inserted = new ArrayList<>();
+    private MetricRollupServiceImpl rollupService;
+
+    @BeforeEach
+    void setUp() {
+        rollupService = new MetricRollupServiceImpl(rollupRepository, rollupJdbcRepository, watermarkRepository,
+                metricRepository, sketchRepository, sketchService, transactionTemplate, properties);
+
+        lenient().when(watermarkRepository.findAll()).thenAnswer(invocation -> watermarks.entrySet().stream()
+                .map(entry -> new RollupWatermark(entry.getKey(), entry.getValue()))
+                .toList());
+        lenient().when(watermarkRepository.findById(any(RollupTier.class))).thenAnswer(invocation ->
+                Optional.ofNullable(watermarks.get(invocation.getArgument(0, RollupTier.class)))
+                        .map(compactedUntil -> new RollupWatermark(invocation.getArgument(0), compactedUntil)));
+        lenient().when(watermarkRepository.save(any(RollupWatermark.class))).thenAnswer(invocation -> {
+            RollupWatermark watermark = invocation.getArgument(0);
+            watermarks.put(watermark.getTier(), watermark.getCompactedUntil());
+            return watermark;
+        });
+        // Every tier holds one point per minute up to its watermark
+        lenient().when(rollupRepository.findWithinTimeRange(any(RollupTier.class), eq(SERVICE), eq(METRIC),
+                any(LocalDateTime.class), any(LocalDateTime.class))).thenAnswer(invocation -> {
+                    RollupTier tier = invocation.getArgument(0);
+                    LocalDateTime to = invocation.getArgument(4);
+                    List<MetricRollup> rollups = new ArrayList<>();
+                    for (LocalDateTime bucket = invocation.getArgument(3);
+                            bucket.isBefore(to) && bucket.isBefore(watermarks.get(tier));
+                            bucket = bucket.plus(tier.getWidth())) {
+                        rollups.add(rollup(tier, bucket, tier.getWidth().toMinutes()));
+                    }
+                    return rollups;
+                });
+        lenient().when(sketchService.getSketch(eq(SERVICE), eq(METRIC), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenAnswer(invocation -> {
+                    LocalDateTime from = invocation.getArgument(2);
+                    LocalDateTime to = invocation.getArgument(3);
+                    liveRanges.add(new LocalDateTime[] {from, to});
+                    return sketch(ChronoUnit.MINUTES.between(from, to));
+                });
+        lenient().when(sketchService.newSketch()).thenAnswer(invocation -> new DDSketch(RELATIVE_ACCURACY));
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> inserted.addAll(invocation.getArgument(0)))
+                .when(rollupJdbcRepository).insert(anyList());
+    }
+
+    @Test
+    void getSketch_ShouldCoverTheInteriorWithTheCoarsestTierAndTheEdgesWithFinerOnes() {
+        // Given
+        watermarks.put(RollupTier.DAY, DAY_1.plusDays(2));
+        watermarks.put(RollupTier.HOUR, DAY_1.plusDays(2).plusHours(6));
+        watermarks.put(RollupTier.MINUTE, DAY_1.plusDays(2).plusHours(6).plusMinutes(30));
+        LocalDateTime start = DAY_1.plusHours(22).plusMinutes(30);
+        LocalDateTime end = DAY_1.plusDays(2).plusHours(6).plusMinutes(45);
+
+        // When
+        DDSketch sketch = rollupService.getSketch(SERVICE, METRIC, start, end);
+
+        // Then every minute is counted once
+        assertEquals(ChronoUnit.MINUTES.between(start, end), sketch.getCount());
+        verify(rollupRepository).findWithinTimeRange(RollupTier.DAY, SERVICE, METRIC,
+                DAY_1.plusDays(1), DAY_1.plusDays(2));
+        verify(rollupRepository).findWithinTimeRange(RollupTier.HOUR, SERVICE, METRIC,
+                DAY_1.plusHours(23), DAY_1.plusDays(1));
+        verify(rollupRepository).findWithinTimeRange(RollupTier.HOUR, SERVICE, METRIC,
+                DAY_1.plusDays(2), DAY_1.plusDays(2).plusHours(6));
+        verify(rollupRepository).findWithinTimeRange(RollupTier.MINUTE, SERVICE, METRIC,
+                start, DAY_1.plusHours(23));
+        verify(rollupRepository).findWithinTimeRange(RollupTier.MINUTE, SERVICE, METRIC,
+                DAY_1.plusDays(2).plusHours(6), watermarks.get(RollupTier.MINUTE));
+        assertLiveRanges(watermarks.get(RollupTier.MINUTE), end);
+    }
+
+    @Test
+    void getSketch_WhenATierHasNoWatermark_ShouldCoverItsRangeWithFinerTiers() {
+        // Given
+        watermarks.put(RollupTier.HOUR, DAY_1.plusDays(3));
+        watermarks.put(RollupTier.MINUTE, DAY_1.plusDays(3));
+        LocalDateTime start = DAY_1.plusMinutes(10);
+        LocalDateTime end = DAY_1.plusDays(2);
+
+        // When
+        DDSketch sketch = rollupService.getSketch(SERVICE, METRIC, start, end);
+
+        // Then
+        assertEquals(ChronoUnit.MINUTES.between(start, end), sketch.getCount());
+        verify(rollupRepository, never()).findWithinTimeRange(eq(RollupTier.DAY), any(), any(), any(), any());
+        verify(rollupRepository).findWithinTimeRange(RollupTier.HOUR, SERVICE, METRIC, DAY_1.plusHours(1), end);
+        assertTrue(liveRanges.isEmpty());
+    }
+
+    @Test
+    void getSketch_WhenNothingIsRolledUp_ShouldReadTheWholeRangeLive() {
+        // Given
+        LocalDateTime start = DAY_1.plusMinutes(10);
+        LocalDateTime end = DAY_1.plusDays(2);
+
+        // When
+        DDSketch sketch = rollupService.getSketch(SERVICE, METRIC, start, end);
+
+        // Then
+        assertEquals(ChronoUnit.MINUTES.between(start, end), sketch.getCount());
+        verify(rollupRepository, never()).findWithinTimeRange(any(), any(), any(), any(), any());
+        assertLiveRanges(start, end);
+    }
+
+    @Test
+    void getSketch_WhenACoarseWatermarkLags_ShouldCoverThePastItWithFinerTiers() {
+        // Given the day tier not yet rolled up from the last complete day of the hours
+        watermarks.put(RollupTier.DAY, DAY_1.plusDays(1));
+        watermarks.put(RollupTier.HOUR, DAY_1.plusDays(2).plusHours(6));
+        watermarks.put(RollupTier.MINUTE, DAY_1.plusDays(2).plusHours(6).plusMinutes(5));
+        LocalDateTime end = DAY_1.plusDays(2).plusHours(6).plusMinutes(20);
+
+        // When
+        DDSketch sketch = rollupService.getSketch(SERVICE, METRIC, DAY_1, end);
+
+        // Then
+        assertEquals(ChronoUnit.MINUTES.between(DAY_1, end), sketch.getCount());
+        verify(rollupRepository).findWithinTimeRange(RollupTier.DAY, SERVICE, METRIC, DAY_1, DAY_1.plusDays(1));
+        verify(rollupRepository).findWithinTimeRange(RollupTier.HOUR, SERVICE, METRIC,
+                DAY_1.plusDays(1), DAY_1.plusDays(2).plusHours(6));
+        assertLiveRanges(watermarks.get(RollupTier.MINUTE), end);
+    }
+
+    @Test
+    void getSketch_WhenRangeIsWithinAMinute_ShouldTakeTheOverlappingMinuteBucket() {
+        // Given
+        watermarks.put(RollupTier.HOUR, DAY_1.plusHours(1));
+        watermarks.put(RollupTier.MINUTE, DAY_1.plusHours(1));
+        LocalDateTime start = DAY_1.plusMinutes(10).plusSeconds(20);
+
+        // When
+        DDSketch sketch = rollupService.getSketch(SERVICE, METRIC, start, start.plusSeconds(20));
+
+        // Then
+        assertEquals(1, sketch.getCount());
+        verify(rollupRepository).findWithinTimeRange(RollupTier.MINUTE, SERVICE, METRIC,
+                DAY_1.plusMinutes(10), DAY_1.plusMinutes(11));
+        verify(rollupRepository, never()).findWithinTimeRange(eq(RollupTier.HOUR), any(), any(), any(), any());
+        assertTrue(liveRanges.isEmpty());
+    }
+
+    @Test
+    void getSketchesByInterval_ShouldAlignEveryTierAndTheLiveRangeToTheInterval() {
+        // Given
+        watermarks.put(RollupTier.DAY, DAY_1);
+        watermarks.put(RollupTier.HOUR, DAY_1.plusHours(12));
+        watermarks.put(RollupTier.MINUTE, DAY_1.plusHours(12).plusMinutes(30));
+        LocalDateTime end = DAY_1.plusHours(13);
+        when(sketchService.getSketchesByInterval(SERVICE, METRIC, DAY_1.plusHours(12).plusMinutes(30), end,
+                Duration.ofHours(1))).thenReturn(new TreeMap<>(Map.of(DAY_1.plusHours(12), sketch(30))));
+
+        // When
+        NavigableMap<LocalDateTime, DDSketch> sketches = rollupService.getSketchesByInterval(
+                SERVICE, METRIC, DAY_1.plusHours(10).plusMinutes(30), end, Duration.ofHours(1));
+
+        // Then the start is widened to its hour, and the minutes and live points fill the last one
+        assertEquals(List.of(DAY_1.plusHours(10), DAY_1.plusHours(11), DAY_1.plusHours(12)),
+                List.copyOf(sketches.keySet()));
+        sketches.values().forEach(sketch -> assertEquals(60, sketch.getCount()));
+        verify(rollupRepository, never()).findWithinTimeRange(eq(RollupTier.DAY), any(), any(), any(), any());
+        verify(rollupRepository).findWithinTimeRange(RollupTier.HOUR, SERVICE, METRIC,
+                DAY_1.plusHours(10), DAY_1.plusHours(12));
+    }
+
+    @Test
+    void getSketchesByInterval_WhenIntervalIsNotAMultipleOfATier_ShouldMergeFinerBuckets() {
+        // Given
+        watermarks.put(RollupTier.HOUR, DAY_1.plusHours(2));
+        watermarks.put(RollupTier.MINUTE, DAY_1.plusHours(2));
+
+        // When
+        NavigableMap<LocalDateTime, DDSketch> sketches = rollupService.getSketchesByInterval(
+                SERVICE, METRIC, DAY_1.plusMinutes(7), DAY_1.plusMinutes(30), Duration.ofMinutes(15));
+
+        // Then
+        assertEquals(List.of(DAY_1, DAY_1.plusMinutes(15)), List.copyOf(sketches.keySet()));
+        assertEquals(15, sketches.get(DAY_1).getCount());
+        assertEquals(15, sketches.get(DAY_1.plusMinutes(15)).getCount());
+        verify(rollupRepository, never()).findWithinTimeRange(eq(RollupTier.HOUR), any(), any(), any(), any());
+    }
+
+    @Test
+    void getSketchesByInterval_WhenIntervalIsNotWholeMinutes_ShouldReadLive() {
+        // Given
+        watermarks.put(RollupTier.MINUTE, DAY_1.plusHours(12));
+        Duration interval = Duration.ofSeconds(90);
+        when(sketchService.getSketchesByInterval(eq(SERVICE), eq(METRIC), any(), any(), eq(interval)))
+                .thenReturn(new TreeMap<>());
+
+        // When
+        rollupService.getSketchesByInterval(SERVICE, METRIC, DAY_1.plusHours(10).plusMinutes(7),
+                DAY_1.plusHours(11), interval);
+
+        // Then
+        verify(sketchService).getSketchesByInterval(SERVICE, METRIC, DAY_1.plusHours(10).plusMinutes(6),
+                DAY_1.plusHours(11), interval);
+        verify(rollupRepository, never()).findWithinTimeRange(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void compact_ShouldRollUpRawMetricsInWindowsAndResumeFromTheWatermark() {
+        // Given raw points every minute from 25 minutes before the settle delay, and two windows per run
+        properties.setMaxWindowsPerRun(2);
+        LocalDateTime first = LocalDateTime.now().minus(properties.getSettleDelay()).minusMinutes(25)
+                .truncatedTo(ChronoUnit.MINUTES);
+        when(metricRepository.findFirstTimestamp()).thenReturn(first.plusSeconds(30));
+        when(rollupJdbcRepository.findNextRawTimestamp(any(LocalDateTime.class)))
+                .thenAnswer(invocation -> invocation.<LocalDateTime>getArgument(0).plusSeconds(30));
+        doAnswer(invocation -> {
+            RawPointHandler handler = invocation.getArgument(2);
+            LocalDateTime to = invocation.getArgument(1);
+            for (LocalDateTime minute = invocation.getArgument(0); minute.isBefore(to); minute = minute.plusMinutes(1)) {
+                handler.accept(SERVICE, METRIC, minute.plusSeconds(30), 1.0);
+            }
+            return null;
+        }).when(rollupJdbcRepository).scanRaw(any(), any(), any());
+
+        // When
+        int firstRun = rollupService.compact();
+
+        // Then
+        assertEquals(20, firstRun);
+        assertEquals(first.plusMinutes(20), watermarks.get(RollupTier.MINUTE));
+
+        // When
+        int secondRun = rollupService.compact();
+
+        // Then
+        LocalDateTime settled = watermarks.get(RollupTier.MINUTE);
+        assertEquals(ChronoUnit.MINUTES.between(first, settled), firstRun + secondRun);
+        assertEquals(ChronoUnit.MINUTES.between(first, settled), inserted.stream()
+                .map(MetricRollup::getBucketStart).distinct().count());
+        inserted.forEach(rollup -> {
+            assertEquals(RollupTier.MINUTE, rollup.getTier());
+            assertEquals(1L, rollup.getCount());
+        });
+        verify(rollupJdbcRepository).scanRaw(eq(first), eq(first.plusMinutes(10)), any());
+        verify(rollupJdbcRepository).scanRaw(eq(first.plusMinutes(20)), eq(settled), any());
+    }
+
+    @Test
+    void compact_ShouldSkipGapsAndStopAtTheLastCompleteBucketOfTheSource() {
+        // Given minute buckets in two hours and one in the hour the minute tier is still in
+        properties.setSettleDelay(Duration.ofDays(365 * 100));
+        watermarks.put(RollupTier.MINUTE, DAY_1.plusHours(10).plusMinutes(30));
+        watermarks.put(RollupTier.HOUR, DAY_1.plusHours(2));
+        List<LocalDateTime> minutes = new ArrayList<>();
+        for (int minute = 17; minute < 40; minute++) {
+            minutes.add(DAY_1.plusHours(5).plusMinutes(minute));
+        }
+        minutes.add(DAY_1.plusHours(8).plusMinutes(5));
+        minutes.add(DAY_1.plusHours(10).plusMinutes(5));
+        when(rollupJdbcRepository.findNextBucketStart(eq(RollupTier.MINUTE), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> minutes.stream()
+                        .filter(minute -> !minute.isBefore(invocation.getArgument(1)))
+                        .findFirst()
+                        .orElse(null));
+        doAnswer(invocation -> {
+            RollupHandler handler = invocation.getArgument(3);
+            minutes.stream()
+                    .filter(minute -> !minute.isBefore(invocation.getArgument(1))
+                            && minute.isBefore(invocation.getArgument(2)))
+                    .forEach(minute -> handler.accept(SERVICE, METRIC, minute, sketch(1).toBytes()));
+            return null;
+        }).when(rollupJdbcRepository).scanRollups(eq(RollupTier.MINUTE), any(), any(), any());
+
+        // When
+        int rollups = rollupService.compact();
+
+        // Then
+        assertEquals(2, rollups);
+        assertEquals(DAY_1.plusHours(5), inserted.get(0).getBucketStart());
+        assertEquals(23L, inserted.get(0).getCount());
+        assertEquals(DAY_1.plusHours(8), inserted.get(1).getBucketStart());
+        assertEquals(1L, inserted.get(1).getCount());
+        assertEquals(DAY_1.plusHours(10), watermarks.get(RollupTier.HOUR));
+        verify(rollupJdbcRepository, times(2)).scanRollups(eq(RollupTier.MINUTE), any(), any(), any());
+        verify(rollupJdbcRepository, never()).scanRollups(eq(RollupTier.HOUR), any(), any(), any());
+        assertNull(watermarks.get(RollupTier.DAY), "The day tier has no complete day to roll up");
+    }
+
+    @Test
+    void compact_WhenSourceHasNoWatermark_ShouldRollUpNothing() {
+        // Given
+        properties.setSettleDelay(Duration.ofDays(365 * 100));
+
+        // When
+        int rollups = rollupService.compact();
+
+        // Then
+        assertEquals(0, rollups);
+        assertTrue(watermarks.isEmpty());
+        verify(rollupJdbcRepository, never()).scanRaw(any(), any(), any());
+        verify(rollupJdbcRepository, never()).scanRollups(any(), any(), any(), any());
+    }
+
+    @Test
+    void applyRetention_ShouldNotDeleteRowsPastTheWatermarkOfTheNextTier() {
+        // Given every tier lagging behind its retention
+        LocalDateTime now = LocalDateTime.now();
+        watermarks.put(RollupTier.MINUTE, now.minusDays(10));
+        watermarks.put(RollupTier.HOUR, now.minusDays(40));
+        watermarks.put(RollupTier.DAY, now.minusDays(500));
+
+        // When
+        rollupService.applyRetention();
+
+        // Then
+        verify(metricRepository).deleteByTimestampBefore(now.minusDays(10));
+        verify(sketchRepository).deleteByIntervalStartBefore(now.minusDays(10));
+        verify(rollupRepository).deleteByTierAndBucketStartBefore(RollupTier.MINUTE, now.minusDays(40));
+        verify(rollupRepository).deleteByTierAndBucketStartBefore(RollupTier.HOUR, now.minusDays(500));
+        ArgumentCaptor<LocalDateTime> dayCutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(rollupRepository).deleteByTierAndBucketStartBefore(eq(RollupTier.DAY), dayCutoff.capture());
+        assertFalse(dayCutoff.getValue().isAfter(LocalDateTime.now().minusDays(5 * 365)),
+                "The coarsest tier should only be cut at its retention");
+    }
+
+    @Test
+    void applyRetention_ShouldCutTiersAtTheirRetentionOnceRolledUp() {
+        // Given
+        watermarks.put(RollupTier.MINUTE, LocalDateTime.now());
+        watermarks.put(RollupTier.HOUR, LocalDateTime.now());
+        watermarks.put(RollupTier.DAY, LocalDateTime.now());
+        LocalDateTime before = LocalDateTime.now();
+
+        // When
+        rollupService.applyRetention();
+
+        // Then
+        LocalDateTime after = LocalDateTime.now();
+        ArgumentCaptor<LocalDateTime> rawCutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(metricRepository).deleteByTimestampBefore(rawCutoff.capture());
+        assertFalse(rawCutoff.getValue().isBefore(before.minusDays(7)));
+        assertFalse(rawCutoff.getValue().isAfter(after.minusDays(7)));
+        ArgumentCaptor<LocalDateTime> minuteCutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(rollupRepository).deleteByTierAndBucketStartBefore(eq(RollupTier.MINUTE), minuteCutoff.capture());
+        assertFalse(minuteCutoff.getValue().isBefore(before.minusDays(30)));
+        assertFalse(minuteCutoff.getValue().isAfter(after.minusDays(30)));
+    }
+
+    @Test
+    void applyRetention_WhenNextTierHasNoWatermark_ShouldKeepTheTier() {
+        // Given only the day tier rolled up
+        watermarks.put(RollupTier.DAY, LocalDateTime.now());
+
+        // When
+        rollupService.applyRetention();
+
+        // Then
+        verify(rollupRepository, never()).deleteByTierAndBucketStartBefore(eq(RollupTier.MINUTE), any());
+        verify(rollupRepository).deleteByTierAndBucketStartBefore(eq(RollupTier.HOUR), any());
+        verify(metricRepository, never()).deleteByTimestampBefore(any());
+        verify(sketchRepository, never()).deleteByIntervalStartBefore(any());
+    }
+
+    private void assertLiveRanges(LocalDateTime start, LocalDateTime end) {
+        assertEquals(1, liveRanges.size(), "Only the range past the finest watermark should be read live");
+        assertEquals(start, liveRanges.get(0)[0]);
+        assertEquals(end, liveRanges.get(0)[1]);
+    }
+
+    private static MetricRollup rollup(RollupTier tier, LocalDateTime bucketStart, long points) {
+        MetricRollup rollup = new MetricRollup(tier, SERVICE, METRIC, bucketStart);
+        rollup.setSketch(sketch(points).toBytes());
+        return rollup;
+    }
+
+    private static DDSketch sketch(long points) {
+        DDSketch sketch = new DDSketch(RELATIVE_ACCURACY);
+        if (points > 0) {
+            sketch.accept(1.0, points);
+        }
+        return sketch;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,172 @@
+package com.gogidix.centralizeddashboard.metrics.service.impl;
+
+import com.gogidix.centralizeddashboard.metrics.model.MetricSketch;
+import com.gogidix.centralizeddashboard.metrics.model.MetricType;
+import com.gogidix.centralizeddashboard.metrics.model.PerformanceMetric;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricSketchRepository;
+import com.gogidix.centralizeddashboard.metrics.sketch.DDSketch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricSketchServiceImplTest {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+
+    /**
+     * An ended interval, and one that is still open
+     */
+    private static final LocalDateTime ENDED = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(5);
+    private static final LocalDateTime OPEN = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).plusMinutes(5);
+
+    @Mock
+    private MetricSketchRepository sketchRepository;
+
+    private MetricSketchServiceImpl sketchService;
+
+    @BeforeEach
+    void setUp() {
+        sketchService = new MetricSketchServiceImpl(sketchRepository, RELATIVE_ACCURACY, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void flush_ShouldPersistOnlyTheSketchesOfEndedIntervals() {
+        // Given
+        when(sketchRepository.findByServiceNameAndMetricNameAndInstanceIdAndIntervalStart(
+                "checkout", "latency", "i-1", ENDED)).thenReturn(Optional.empty());
+        for (int i = 1; i <= 100; i++) {
+            sketchService.record(metric(i, ENDED.plusSeconds(i % 60)));
+        }
+        sketchService.record(metric(1_000, OPEN));
+
+        // When
+        int persisted = sketchService.flush();
+
+        // Then
+        assertEquals(1, persisted);
+        ArgumentCaptor<MetricSketch> saved = ArgumentCaptor.forClass(MetricSketch.class);
+        verify(sketchRepository).save(saved.capture());
+        assertEquals(ENDED, saved.getValue().getIntervalStart());
+        assertEquals(100, saved.getValue().getCount());
+        assertEquals(5_050, saved.getValue().getSum());
+        DDSketch sketch = DDSketch.fromBytes(saved.getValue().getSketch());
+        assertEquals(50, sketch.getValueAtQuantile(0.5), 50 * RELATIVE_ACCURACY);
+
+        // The open interval is still answered from memory
+        assertEquals(1, sketchService.getSketch("checkout", "latency", OPEN, OPEN.plusMinutes(1)).getCount());
+    }
+
+    @Test
+    void flush_ShouldMergeLatePointsIntoTheStoredSketch() {
+        // Given a stored sketch of the interval
+        DDSketch stored = new DDSketch(RELATIVE_ACCURACY);
+        for (int i = 1; i <= 50; i++) {
+            stored.accept(i);
+        }
+        MetricSketch existing = new MetricSketch("checkout", "i-1", "latency", ENDED);
+        existing.setSketch(stored.toBytes());
+        existing.setCount(stored.getCount());
+        when(sketchRepository.findByServiceNameAndMetricNameAndInstanceIdAndIntervalStart(
+                "checkout", "latency", "i-1", ENDED)).thenReturn(Optional.of(existing));
+
+        // and late points for it
+        for (int i = 51; i <= 100; i++) {
+            sketchService.record(metric(i, ENDED.plusSeconds(30)));
+        }
+
+        // When
+        sketchService.flush();
+
+        // Then
+        verify(sketchRepository).save(existing);
+        assertEquals(100, existing.getCount());
+        assertEquals(5_050, existing.getSum());
+        assertEquals(1, existing.getMin());
+        assertEquals(100, existing.getMax());
+        DDSketch merged = DDSketch.fromBytes(existing.getSketch());
+        assertEquals(100, merged.getCount());
+        assertEquals(90, merged.getValueAtQuantile(0.9), 90 * RELATIVE_ACCURACY);
+    }
+
+    @Test
+    void flush_WhenSavingFails_ShouldKeepTheValuesForTheNextFlush() {
+        // Given
+        when(sketchRepository.findByServiceNameAndMetricNameAndInstanceIdAndIntervalStart(
+                "checkout", "latency", "i-1", ENDED)).thenReturn(Optional.empty());
+        when(sketchRepository.save(any(MetricSketch.class)))
+                .thenThrow(new IllegalStateException("Database unavailable"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        sketchService.record(metric(10, ENDED));
+
+        // When
+        assertEquals(0, sketchService.flush());
+        sketchService.record(metric(20, ENDED));
+        int persisted = sketchService.flush();
+
+        // Then
+        assertEquals(1, persisted);
+        ArgumentCaptor<MetricSketch> saved = ArgumentCaptor.forClass(MetricSketch.class);
+        verify(sketchRepository, times(2)).save(saved.capture());
+        assertEquals(2, saved.getValue().getCount());
+        assertEquals(30, saved.getValue().getSum());
+    }
+
+    @Test
+    void getSketchesByInterval_ShouldMergeStoredAndOpenSketchesIntoAlignedBuckets() {
+        // Given stored sketches at 10:01, 10:04 and 10:06, and an open one at 10:07
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        when(sketchRepository.findByServiceNameAndMetricNameWithinTimeRange(
+                "checkout", "latency", start, start.plusMinutes(10))).thenReturn(List.of(
+                stored(start.plusMinutes(1), 1), stored(start.plusMinutes(4), 2), stored(start.plusMinutes(6), 3)));
+        sketchService.record(metric(4, start.plusMinutes(7).plusSeconds(20)));
+
+        // When
+        NavigableMap<LocalDateTime, DDSketch> sketches = sketchService.getSketchesByInterval(
+                "checkout", "latency", start.plusSeconds(30), start.plusMinutes(10), Duration.ofMinutes(5));
+
+        // Then
+        assertEquals(List.of(start, start.plusMinutes(5)), List.copyOf(sketches.keySet()));
+        assertEquals(2, sketches.get(start).getCount());
+        assertEquals(3, sketches.get(start).getSum());
+        assertEquals(2, sketches.get(start.plusMinutes(5)).getCount());
+        assertEquals(7, sketches.get(start.plusMinutes(5)).getSum());
+    }
+
+    @Test
+    void constructor_WithIntervalNotDividingAMinute_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MetricSketchServiceImpl(sketchRepository, RELATIVE_ACCURACY, Duration.ofSeconds(7)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new MetricSketchServiceImpl(sketchRepository, RELATIVE_ACCURACY, Duration.ofMinutes(2)));
+    }
+
+    private static PerformanceMetric metric(double value, LocalDateTime timestamp) {
+        PerformanceMetric metric = new PerformanceMetric("checkout", "i-1", MetricType.TIMER, "latency", value);
+        metric.setTimestamp(timestamp);
+        return metric;
+    }
+
+    private static MetricSketch stored(LocalDateTime intervalStart, double value) {
+        DDSketch sketch = new DDSketch(RELATIVE_ACCURACY);
+        sketch.accept(value);
+        MetricSketch stored = new MetricSketch("checkout", "i-1", "latency", intervalStart);
+        stored.setSketch(sketch.toBytes());
+        return stored;
+    }
+}
\ No newline at end of file
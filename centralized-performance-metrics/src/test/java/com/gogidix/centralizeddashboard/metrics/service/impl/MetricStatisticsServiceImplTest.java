@@ -0,0 +1,192 @@
+package com.gogidix.centralizeddashboard.metrics.service.impl;
+
+import com.gogidix.centralizeddashboard.metrics.model.RollupTier;
+import com.gogidix.centralizeddashboard.metrics.model.RollupWatermark;
+import com.gogidix.centralizeddashboard.metrics.model.ServiceMetricStatistics;
+import com.gogidix.centralizeddashboard.metrics.model.ServiceStatisticsPage;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricStatisticsJdbcRepository;
+import com.gogidix.centralizeddashboard.metrics.repository.MetricStatisticsJdbcRepository.Segment;
+import com.gogidix.centralizeddashboard.metrics.repository.RollupWatermarkRepository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricStatisticsServiceImplTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 10, 30, 15);
+    private static final LocalDateTime END = LocalDateTime.of(2024, 1, 3, 5, 20);
+
+    @Mock
+    private MetricStatisticsJdbcRepository statisticsRepository;
+
+    @Mock
+    private RollupWatermarkRepository watermarkRepository;
+
+    @InjectMocks
+    private MetricStatisticsServiceImpl statisticsService;
+
+    @Test
+    void plan_WithoutWatermarks_ShouldReadTheRawMetrics() {
+        // When
+        List<Segment> segments = plan(START, END, Map.of());
+
+        // Then
+        assertEquals(List.of(new Segment(null, START, END)), segments);
+    }
+
+    @Test
+    void plan_WithCompactedTiers_ShouldReadTheCoarsestBucketsAndTheEdgesFromFinerTiers() {
+        // Given
+        LocalDateTime compacted = LocalDateTime.of(2024, 2, 1, 0, 0);
+        Map<RollupTier, LocalDateTime> watermarks = Map.of(
+                RollupTier.MINUTE, compacted, RollupTier.HOUR, compacted, RollupTier.DAY, compacted);
+
+        // When
+        List<Segment> segments = plan(START, END, watermarks);
+
+        // Then
+        assertEquals(List.of(
+                new Segment(null, START, LocalDateTime.of(2024, 1, 1, 10, 31)),
+                new Segment(RollupTier.MINUTE, LocalDateTime.of(2024, 1, 1, 10, 31), LocalDateTime.of(2024, 1, 1, 11, 0)),
+                new Segment(RollupTier.HOUR, LocalDateTime.of(2024, 1, 1, 11, 0), LocalDateTime.of(2024, 1, 2, 0, 0)),
+                new Segment(RollupTier.DAY, LocalDateTime.of(2024, 1, 2, 0, 0), LocalDateTime.of(2024, 1, 3, 0, 0)),
+                new Segment(RollupTier.HOUR, LocalDateTime.of(2024, 1, 3, 0, 0), LocalDateTime.of(2024, 1, 3, 5, 0)),
+                new Segment(RollupTier.MINUTE, LocalDateTime.of(2024, 1, 3, 5, 0), END)), segments);
+    }
+
+    @Test
+    void plan_WithLaggingWatermarks_ShouldReadPastEachWatermarkFromFinerTiers() {
+        // Given the day tier compacted up to the first day, the hour tier to 02:00 and the minute tier to 04:10
+        Map<RollupTier, LocalDateTime> watermarks = Map.of(
+                RollupTier.DAY, LocalDateTime.of(2024, 1, 2, 0, 0),
+                RollupTier.HOUR, LocalDateTime.of(2024, 1, 3, 2, 0),
+                RollupTier.MINUTE, LocalDateTime.of(2024, 1, 3, 4, 10));
+
+        // When
+        List<Segment> segments = plan(START, END, watermarks);
+
+        // Then no day bucket is read and no tier is read past its watermark
+        assertCovers(START, END, segments);
+        assertTrue(segments.stream().noneMatch(segment -> segment.tier() == RollupTier.DAY));
+        for (Segment segment : segments) {
+            if (segment.tier() != null) {
+                assertFalse(segment.end().isAfter(watermarks.get(segment.tier())), "Read past the watermark: " + segment);
+            }
+        }
+        assertEquals(new Segment(RollupTier.HOUR, LocalDateTime.of(2024, 1, 1, 11, 0), LocalDateTime.of(2024, 1, 3, 2, 0)),
+                segments.get(2));
+        assertEquals(new Segment(RollupTier.MINUTE, LocalDateTime.of(2024, 1, 3, 2, 0), LocalDateTime.of(2024, 1, 3, 4, 10)),
+                segments.get(3));
+        assertEquals(new Segment(null, LocalDateTime.of(2024, 1, 3, 4, 10), END), segments.get(4));
+    }
+
+    @Test
+    void plan_WithMissingIntermediateWatermark_ShouldSkipThatTier() {
+        // Given the hour tier was never compacted
+        LocalDateTime compacted = LocalDateTime.of(2024, 2, 1, 0, 0);
+        Map<RollupTier, LocalDateTime> watermarks = Map.of(RollupTier.MINUTE, compacted, RollupTier.DAY, compacted);
+
+        // When
+        List<Segment> segments = plan(START, END, watermarks);
+
+        // Then
+        assertCovers(START, END, segments);
+        assertTrue(segments.stream().noneMatch(segment -> segment.tier() == RollupTier.HOUR));
+        assertEquals(new Segment(RollupTier.MINUTE, LocalDateTime.of(2024, 1, 1, 10, 31), LocalDateTime.of(2024, 1, 2, 0, 0)),
+                segments.get(1));
+    }
+
+    @Test
+    void plan_WithinOneMinute_ShouldReadTheRawMetrics() {
+        // Given
+        LocalDateTime compacted = LocalDateTime.of(2024, 2, 1, 0, 0);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 30, 15);
+        LocalDateTime end = LocalDateTime.of(2024, 1, 1, 10, 30, 45);
+
+        // When
+        List<Segment> segments = plan(start, end, Map.of(RollupTier.MINUTE, compacted));
+
+        // Then
+        assertEquals(List.of(new Segment(null, start, end)), segments);
+        assertTrue(plan(end, start, Map.of()).isEmpty());
+    }
+
+    @Test
+    void getServiceStatistics_ShouldKeepTheWindowOfTheFirstPageInTheCursor() {
+        // Given
+        when(watermarkRepository.findAll()).thenReturn(List.of());
+        List<Segment> raw = List.of(new Segment(null, START, END));
+        when(statisticsRepository.findStatistics(eq(raw), isNull(), isNull(), eq(3))).thenReturn(List.of(
+                statistics("checkout", "latency"), statistics("checkout", "errors"), statistics("search", "latency")));
+        when(statisticsRepository.findStatistics(eq(raw), eq("checkout"), eq("errors"), eq(3)))
+                .thenReturn(List.of(statistics("search", "latency")));
+
+        // When
+        ServiceStatisticsPage first = statisticsService.getServiceStatistics(START, END, null, 2);
+        ServiceStatisticsPage second = statisticsService.getServiceStatistics(null, null, first.getNextCursor(), 2);
+
+        // Then
+        assertEquals(2, first.getStatistics().size());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getStatistics().size());
+        assertNull(second.getNextCursor());
+        assertEquals(START, second.getStart());
+        assertEquals(END, second.getEnd());
+    }
+
+    @Test
+    void getServiceStatistics_WithCursorOfAnotherRange_ShouldThrow() {
+        // Given
+        when(watermarkRepository.findAll()).thenReturn(List.of());
+        when(statisticsRepository.findStatistics(any(), isNull(), isNull(), anyInt())).thenReturn(List.of(
+                statistics("checkout", "latency"), statistics("search", "latency")));
+        String cursor = statisticsService.getServiceStatistics(START, END, null, 1).getNextCursor();
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+                () -> statisticsService.getServiceStatistics(START, END.plusMinutes(1), cursor, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> statisticsService.getServiceStatistics(null, null, "bm90IGEgY3Vyc29y", 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> statisticsService.getServiceStatistics(null, null, null, 1));
+    }
+
+    private static List<Segment> plan(LocalDateTime start, LocalDateTime end, Map<RollupTier, LocalDateTime> watermarks) {
+        List<Segment> segments = new ArrayList<>();
+        MetricStatisticsServiceImpl.plan(start, end, 0,
+                watermarks.isEmpty() ? new EnumMap<>(RollupTier.class) : new EnumMap<>(watermarks), segments);
+        segments.sort(Comparator.comparing(Segment::start));
+        return segments;
+    }
+
+    private static void assertCovers(LocalDateTime start, LocalDateTime end, List<Segment> segments) {
+        LocalDateTime covered = start;
+        for (Segment segment : segments) {
+            assertEquals(covered, segment.start(), "Gap or overlap before " + segment);
+            assertTrue(segment.start().isBefore(segment.end()), "Empty segment " + segment);
+            covered = segment.end();
+        }
+        assertEquals(end, covered);
+    }
+
+    private static ServiceMetricStatistics statistics(String serviceName, String metricName) {
+        return new ServiceMetricStatistics(serviceName, metricName, 1, 1, 1, 1);
+    }
+}
\ No newline at end of file
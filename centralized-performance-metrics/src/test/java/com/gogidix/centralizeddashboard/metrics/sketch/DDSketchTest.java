@@ -0,0 +1,197 @@
+package com.gogidix.centralizeddashboard.metrics.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DDSketchTest {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1};
+
+    @Test
+    void toBytes_WhenEmpty_ShouldRoundTrip() {
+        // When
+        DDSketch restored = roundTrip(new DDSketch(RELATIVE_ACCURACY));
+
+        // Then
+        assertTrue(restored.isEmpty());
+        assertEquals(RELATIVE_ACCURACY, restored.getRelativeAccuracy());
+        assertTrue(Double.isNaN(restored.getValueAtQuantile(0.5)));
+        assertTrue(Double.isNaN(restored.getMin()));
+        assertArrayEquals(new DDSketch(RELATIVE_ACCURACY).toBytes(), restored.toBytes());
+    }
+
+    @Test
+    void toBytes_WithNegativeValuesOnly_ShouldRoundTrip() {
+        // Given
+        DDSketch sketch = new DDSketch(RELATIVE_ACCURACY);
+        for (int i = 1; i <= 1_000; i++) {
+            sketch.accept(-i);
+        }
+
+        // When
+        DDSketch restored = roundTrip(sketch);
+
+        // Then
+        assertSameSketch(sketch, restored);
+        assertEquals(-1_000, restored.getMin());
+        assertEquals(-1, restored.getMax());
+        assertEquals(-500.5, restored.getValueAtQuantile(0.5), 500.5 * RELATIVE_ACCURACY);
+    }
+
+    @Test
+    void toBytes_WithZeroBucket_ShouldRoundTrip() {
+        // Given values around zero, counted in the zero bucket
+        DDSketch sketch = new DDSketch(RELATIVE_ACCURACY);
+        sketch.accept(0, 5);
+        sketch.accept(1e-12);
+        sketch.accept(-1e-12);
+        sketch.accept(-3);
+        sketch.accept(7, 2);
+
+        // When
+        DDSketch restored = roundTrip(sketch);
+
+        // Then
+        assertSameSketch(sketch, restored);
+        assertEquals(10, restored.getCount());
+        assertEquals(0, restored.getValueAtQuantile(0.5));
+        assertEquals(-3, restored.getValueAtQuantile(0), 3 * RELATIVE_ACCURACY);
+        assertEquals(7, restored.getValueAtQuantile(1));
+    }
+
+    @Test
+    void toBytes_WithCollapsedBuckets_ShouldRoundTripAndKeepTheHighQuantilesAccurate() {
+        // Given values over 38 orders of magnitude, about twice what the buckets of a store can cover
+        DDSketch sketch = new DDSketch(RELATIVE_ACCURACY);
+        double[] values = new double[2_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.pow(10, -8 + i * 0.019);
+            sketch.accept(values[i]);
+        }
+
+        // When
+        DDSketch restored = roundTrip(sketch);
+
+        // Then
+        assertSameSketch(sketch, restored);
+        assertEquals(values.length, restored.getCount());
+        for (double quantile : new double[]{0.75, 0.9, 0.99, 1}) {
+            double exact = values[(int) (quantile * (values.length - 1))];
+            assertEquals(exact, restored.getValueAtQuantile(quantile), exact * RELATIVE_ACCURACY);
+        }
+        // The smallest values were folded into the lowest bucket kept
+        assertTrue(restored.getValueAtQuantile(0.01) > values[(int) (0.01 * (values.length - 1))]);
+    }
+
+    @Test
+    void fromBytes_WithUnknownVersion_ShouldThrow() {
+        byte[] bytes = new DDSketch(RELATIVE_ACCURACY).toBytes();
+        bytes[0] = 9;
+
+        assertThrows(IllegalArgumentException.class, () -> DDSketch.fromBytes(bytes));
+    }
+
+    @Test
+    void merge_WithSameAccuracy_ShouldEqualSketchOfAllValues() {
+        // Given
+        DDSketch first = new DDSketch(RELATIVE_ACCURACY);
+        DDSketch second = new DDSketch(RELATIVE_ACCURACY);
+        DDSketch all = new DDSketch(RELATIVE_ACCURACY);
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            double value = Math.round(random.nextGaussian() * 1_000);
+            (i % 3 == 0 ? first : second).accept(value);
+            all.accept(value);
+        }
+
+        // When
+        first.merge(second);
+        first.merge(new DDSketch(RELATIVE_ACCURACY));
+
+        // Then
+        assertSameSketch(all, first);
+    }
+
+    @Test
+    void merge_WithDifferentAccuracy_ShouldStayWithinBothErrors() {
+        // Given
+        DDSketch sketch = new DDSketch(RELATIVE_ACCURACY);
+        DDSketch coarse = new DDSketch(0.05);
+        for (int i = 1; i <= 1_000; i++) {
+            coarse.accept(i);
+        }
+
+        // When
+        sketch.merge(coarse);
+
+        // Then
+        assertEquals(1_000, sketch.getCount());
+        assertEquals(500, sketch.getValueAtQuantile(0.5), 500 * (RELATIVE_ACCURACY + 0.05));
+    }
+
+    @Test
+    void getValueAtQuantile_ShouldBeWithinRelativeAccuracy() {
+        // Given a long-tailed distribution of latencies, and a few negative values
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        DDSketch sketch = new DDSketch(RELATIVE_ACCURACY);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 2 + 3) * (i % 50 == 0 ? -1 : 1);
+            sketch.accept(values[i]);
+        }
+        Arrays.sort(values);
+
+        // Then
+        for (double quantile : QUANTILES) {
+            double exact = values[(int) (quantile * (values.length - 1))];
+            double estimate = sketch.getValueAtQuantile(quantile);
+            assertEquals(exact, estimate, Math.abs(exact) * RELATIVE_ACCURACY,
+                    "Quantile " + quantile + " out of the relative accuracy");
+        }
+        assertEquals(values[0], sketch.getMin());
+        assertEquals(values[values.length - 1], sketch.getMax());
+    }
+
+    @Test
+    void accept_ShouldIgnoreNonFiniteValuesAndNonPositiveOccurrences() {
+        // Given
+        DDSketch sketch = new DDSketch(RELATIVE_ACCURACY);
+
+        // When
+        sketch.accept(Double.NaN);
+        sketch.accept(Double.POSITIVE_INFINITY);
+        sketch.accept(1, 0);
+        sketch.accept(2);
+
+        // Then
+        assertEquals(1, sketch.getCount());
+        assertEquals(2, sketch.getSum());
+    }
+
+    @Test
+    void constructor_WithAccuracyOutOfRange_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new DDSketch(0));
+        assertThrows(IllegalArgumentException.class, () -> new DDSketch(1));
+    }
+
+    private static DDSketch roundTrip(DDSketch sketch) {
+        return DDSketch.fromBytes(sketch.toBytes());
+    }
+
+    private static void assertSameSketch(DDSketch expected, DDSketch actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getSum(), actual.getSum(), Math.abs(expected.getSum()) * 1e-12);
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+        for (double quantile : QUANTILES) {
+            assertEquals(expected.getValueAtQuantile(quantile), actual.getValueAtQuantile(quantile),
+                    "Quantile " + quantile);
+        }
+    }
+}
\ No newline at end of file
@@ -26,6 +26,7 @@ public class ExportRequest {
     private String format;
     private String fileName;
     private String emailTo;
+    private String userId; // The user who requested the export
     private boolean scheduled;
     private String scheduleCron;
     
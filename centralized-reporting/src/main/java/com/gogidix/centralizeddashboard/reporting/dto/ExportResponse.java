@@ -30,6 +30,7 @@ public class ExportResponse {
     private String downloadUrl;
     private String filename;
     private String contentType;
+    private int progress; // Percentage of the rows written by a background export
     
     /**
      * Builder method for exportId to maintain compatibility
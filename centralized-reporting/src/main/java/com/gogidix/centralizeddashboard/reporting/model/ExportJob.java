@@ -0,0 +1,133 @@
+package com.gogidix.centralizeddashboard.reporting.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entity tracking one export from the moment it is requested until its file expires.
+ * Jobs are run by a pool of export workers, so heavy exports do not tie up request threads.
+ */
+@Entity
+@Table(name = "export_jobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJob {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "schedule_id")
+    private Long scheduleId;
+
+    @Column(name = "user_id")
+    private String userId;
+
+    @Column(name = "report_type", nullable = false)
+    private String reportType;
+
+    @Column(name = "format", nullable = false)
+    private String format;
+
+    /**
+     * Hash of the request parameters, used to find identical exports that are already queued or running.
+     */
+    @Column(name = "request_key", nullable = false, length = 64)
+    private String requestKey;
+
+    /**
+     * The export request, serialized as JSON.
+     */
+    @Column(name = "request", nullable = false, columnDefinition = "TEXT")
+    private String request;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+
+    @Column(name = "priority", nullable = false)
+    private Integer priority;
+
+    @Column(name = "rows_written")
+    private Long rowsWritten;
+
+    @Column(name = "total_rows")
+    private Long totalRows;
+
+    @Column(name = "filename")
+    private String filename;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "download_url")
+    private String downloadUrl;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "email_to")
+    private String emailTo;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * Share of the report rows written so far.
+     *
+     * @return the progress in percent, 100 once the job has completed
+     */
+    public int getProgress() {
+        if (status == Status.COMPLETED || status == Status.EXPIRED) {
+            return 100;
+        }
+        if (rowsWritten == null || totalRows == null || totalRows == 0) {
+            return 0;
+        }
+        return (int) Math.min(100, rowsWritten * 100 / totalRows);
+    }
+
+    /**
+     * Whether the job is still waiting for or being processed by a worker.
+     *
+     * @return true if the job is queued or running
+     */
+    public boolean isActive() {
+        return status == Status.QUEUED || status == Status.RUNNING;
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED,
+        EXPIRED
+    }
+}
@@ -0,0 +1,65 @@
+package com.gogidix.centralizeddashboard.reporting.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entity for a recurring export. Each time its cron expression is due, an export job is queued.
+ */
+@Entity
+@Table(name = "export_schedules")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportSchedule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id")
+    private String userId;
+
+    @Column(name = "report_type", nullable = false)
+    private String reportType;
+
+    /**
+     * The export request, serialized as JSON.
+     */
+    @Column(name = "request", nullable = false, columnDefinition = "TEXT")
+    private String request;
+
+    @Column(name = "cron_expression", nullable = false)
+    private String cronExpression;
+
+    @Column(name = "email_to")
+    private String emailTo;
+
+    @Column(name = "active", nullable = false)
+    private Boolean active;
+
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    @Column(name = "last_run_at")
+    private LocalDateTime lastRunAt;
+
+    @Column(name = "last_job_id", length = 36)
+    private String lastJobId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
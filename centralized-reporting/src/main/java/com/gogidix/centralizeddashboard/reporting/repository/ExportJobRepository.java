@@ -0,0 +1,85 @@
+package com.gogidix.centralizeddashboard.reporting.repository;
+
+import com.gogidix.centralizeddashboard.reporting.model.ExportJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for ExportJob entity operations.
+ */
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, String> {
+
+    /**
+     * Find a job for the same request in one of the given states.
+     *
+     * @param requestKey the hash of the request parameters
+     * @param statuses the states to look for
+     * @return the oldest matching job, if any
+     */
+    Optional<ExportJob> findFirstByRequestKeyAndStatusInOrderByCreatedAtAsc(String requestKey,
+                                                                           Collection<ExportJob.Status> statuses);
+
+    /**
+     * Find the jobs in a state, highest priority first.
+     *
+     * @param status the job status
+     * @return the jobs in the order they should run
+     */
+    List<ExportJob> findByStatusOrderByPriorityDescCreatedAtAsc(ExportJob.Status status);
+
+    /**
+     * Find the most recent jobs of a user.
+     *
+     * @param userId the ID of the user
+     * @param pageable the page to return
+     * @return the jobs, newest first
+     */
+    List<ExportJob> findByUserIdOrderByCreatedAtDesc(String userId, Pageable pageable);
+
+    /**
+     * Find jobs in a state whose files expired before the given time.
+     *
+     * @param status the job status
+     * @param time the expiry cutoff
+     * @return the expired jobs
+     */
+    List<ExportJob> findByStatusAndExpiresAtBefore(ExportJob.Status status, LocalDateTime time);
+
+    /**
+     * Move a job from one state to another, unless another thread changed its state first.
+     *
+     * @param id the job ID
+     * @param from the expected current status
+     * @param to the new status
+     * @return 1 if the job was updated, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.status = :to, j.updatedAt = CURRENT_TIMESTAMP WHERE j.id = :id AND j.status = :from")
+    int updateStatus(@Param("id") String id, @Param("from") ExportJob.Status from, @Param("to") ExportJob.Status to);
+
+    /**
+     * Record the progress of a running job.
+     *
+     * @param id the job ID
+     * @param rowsWritten the rows written so far
+     * @param totalRows the rows in the report
+     * @return 1 if the job was updated, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExportJob j SET j.rowsWritten = :rowsWritten, j.totalRows = :totalRows WHERE j.id = :id")
+    int updateProgress(@Param("id") String id, @Param("rowsWritten") long rowsWritten,
+                       @Param("totalRows") long totalRows);
+}
@@ -0,0 +1,23 @@
+package com.gogidix.centralizeddashboard.reporting.repository;
+
+import com.gogidix.centralizeddashboard.reporting.model.ExportSchedule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for ExportSchedule entity operations.
+ */
+@Repository
+public interface ExportScheduleRepository extends JpaRepository<ExportSchedule, Long> {
+
+    /**
+     * Find the active schedules that are due.
+     *
+     * @param time the current time
+     * @return the schedules whose next run is not after the given time
+     */
+    List<ExportSchedule> findByActiveTrueAndNextRunAtLessThanEqual(LocalDateTime time);
+}
@@ -0,0 +1,450 @@
+package com.gogidix.centralizeddashboard.reporting.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gogidix.centralizeddashboard.reporting.dto.ExportRequest;
+import com.gogidix.centralizeddashboard.reporting.dto.ExportResponse;
+import com.gogidix.centralizeddashboard.reporting.dto.ReportData;
+import com.gogidix.centralizeddashboard.reporting.exception.ExportException;
+import com.gogidix.centralizeddashboard.reporting.model.ExportJob;
+import com.gogidix.centralizeddashboard.reporting.model.ExportSchedule;
+import com.gogidix.centralizeddashboard.reporting.repository.ExportJobRepository;
+import com.gogidix.centralizeddashboard.reporting.repository.ExportScheduleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs exports as background jobs, so heavy exports do not tie up request threads.
+ * Jobs are persisted and taken from a priority queue by a fixed number of workers. New jobs are refused
+ * while the queue is full, identical requests share one job while it is queued or running, and recurring
+ * exports are queued from their cron schedules. The files of completed jobs are deleted from the file
+ * storage once they expire.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportJobService {
+
+    public static final int PRIORITY_LOW = 0;
+    public static final int PRIORITY_NORMAL = 5;
+    public static final int PRIORITY_HIGH = 10;
+
+    private static final Set<ExportJob.Status> ACTIVE_STATUSES = EnumSet.of(ExportJob.Status.QUEUED,
+            ExportJob.Status.RUNNING);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ExportJobRepository jobRepository;
+    private final ExportScheduleRepository scheduleRepository;
+    private final DataFetchService dataFetchService;
+    private final FileStorageService fileStorageService;
+    private final ReportExportEngine exportEngine;
+    private final ObjectMapper objectMapper;
+
+    @Value("${reporting.export.worker-threads:4}")
+    private int workerThreads = 4;
+
+    @Value("${reporting.export.queue-capacity:100}")
+    private int queueCapacity = 100;
+
+    @Value("${reporting.export.retention-days:7}")
+    private int retentionDays = 7;
+
+    private final Set<String> cancelRequested = ConcurrentHashMap.newKeySet();
+    private final AtomicLong submissionSequence = new AtomicLong();
+    private final Object submitLock = new Object();
+    private ThreadPoolExecutor workers;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "report-export-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Queues an export. If an identical export is already queued or running, that job is returned instead.
+     *
+     * @param exportRequest The export request
+     * @param priority The priority of the job, higher priorities run first
+     * @return The queued job
+     * @throws ExportException If the format is not supported or the queue is full
+     */
+    public ExportJob submit(ExportRequest exportRequest, int priority) {
+        return submit(exportRequest, priority, null);
+    }
+
+    private ExportJob submit(ExportRequest exportRequest, int priority, Long scheduleId) {
+        ReportExportFormat format = ReportExportFormat.from(exportRequest.getFormat());
+        String requestKey = requestKey(exportRequest, format);
+
+        synchronized (submitLock) {
+            Optional<ExportJob> existing = jobRepository.findFirstByRequestKeyAndStatusInOrderByCreatedAtAsc(
+                    requestKey, ACTIVE_STATUSES);
+            if (existing.isPresent()) {
+                log.info("Export request for report type {} matches active job {}", exportRequest.getReportType(),
+                        existing.get().getId());
+                return existing.get();
+            }
+            if (workers.getQueue().size() >= queueCapacity) {
+                throw new ExportException("Export queue is full, please try again later");
+            }
+
+            ExportJob job = jobRepository.save(ExportJob.builder()
+                    .id(UUID.randomUUID().toString())
+                    .scheduleId(scheduleId)
+                    .userId(exportRequest.getUserId())
+                    .reportType(exportRequest.getReportType())
+                    .format(format.name())
+                    .requestKey(requestKey)
+                    .request(toJson(exportRequest))
+                    .status(ExportJob.Status.QUEUED)
+                    .priority(priority)
+                    .emailTo(exportRequest.getEmailTo())
+                    .build());
+            enqueue(job);
+            log.info("Queued export job {} for report type {} with priority {}", job.getId(),
+                    job.getReportType(), priority);
+            return job;
+        }
+    }
+
+    /**
+     * Creates a recurring export. The export covers the same length of time up to each run.
+     *
+     * @param exportRequest The export request
+     * @param cronExpression When to run the export, as a Spring cron expression
+     * @return The schedule
+     * @throws ExportException If the cron expression or the format is not valid
+     */
+    public ExportSchedule schedule(ExportRequest exportRequest, String cronExpression) {
+        ReportExportFormat.from(exportRequest.getFormat());
+        CronExpression cron = parseCron(cronExpression);
+        ExportSchedule schedule = scheduleRepository.save(ExportSchedule.builder()
+                .userId(exportRequest.getUserId())
+                .reportType(exportRequest.getReportType())
+                .request(toJson(exportRequest))
+                .cronExpression(cronExpression)
+                .emailTo(exportRequest.getEmailTo())
+                .active(true)
+                .nextRunAt(cron.next(LocalDateTime.now()))
+                .build());
+        log.info("Scheduled export {} for report type {} at {}", schedule.getId(), schedule.getReportType(),
+                cronExpression);
+        return schedule;
+    }
+
+    /**
+     * Gets a job by its ID.
+     *
+     * @param jobId The job ID
+     * @return The job, if it exists
+     */
+    public Optional<ExportJob> getJob(String jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    /**
+     * Gets the most recent jobs of a user.
+     *
+     * @param userId The ID of the user
+     * @param limit The maximum number of jobs to return
+     * @return The jobs, newest first
+     */
+    public List<ExportJob> getRecentJobs(String userId, int limit) {
+        return jobRepository.findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    /**
+     * Cancels a job. A queued job is cancelled at once, a running job stops after the next chunk of rows.
+     *
+     * @param jobId The job ID
+     * @return True if the job was queued or running, false otherwise
+     */
+    public boolean cancel(String jobId) {
+        if (jobRepository.updateStatus(jobId, ExportJob.Status.QUEUED, ExportJob.Status.CANCELLED) > 0) {
+            log.info("Cancelled queued export job {}", jobId);
+            return true;
+        }
+        boolean running = jobRepository.findById(jobId)
+                .map(job -> job.getStatus() == ExportJob.Status.RUNNING)
+                .orElse(false);
+        if (running) {
+            cancelRequested.add(jobId);
+            log.info("Requested cancellation of running export job {}", jobId);
+        }
+        return running;
+    }
+
+    /**
+     * Queues the jobs of the recurring exports that are due.
+     */
+    @Scheduled(fixedDelayString = "${reporting.export.schedule-poll-interval-ms:60000}")
+    public void runDueSchedules() {
+        LocalDateTime now = LocalDateTime.now();
+        for (ExportSchedule schedule : scheduleRepository.findByActiveTrueAndNextRunAtLessThanEqual(now)) {
+            try {
+                ExportRequest exportRequest = objectMapper.readValue(schedule.getRequest(), ExportRequest.class);
+                shiftToRunTime(exportRequest, now);
+                ExportJob job = submit(exportRequest, PRIORITY_LOW, schedule.getId());
+                schedule.setLastJobId(job.getId());
+                schedule.setLastRunAt(now);
+            } catch (Exception e) {
+                log.error("Error queuing scheduled export {}: {}", schedule.getId(), e.getMessage(), e);
+            }
+            schedule.setNextRunAt(parseCron(schedule.getCronExpression()).next(now));
+            scheduleRepository.save(schedule);
+        }
+    }
+
+    /**
+     * Deletes the files of completed jobs once they expire.
+     */
+    @Scheduled(fixedDelayString = "${reporting.export.cleanup-interval-ms:3600000}")
+    public void removeExpiredExports() {
+        List<ExportJob> expired = jobRepository.findByStatusAndExpiresAtBefore(ExportJob.Status.COMPLETED,
+                LocalDateTime.now());
+        for (ExportJob job : expired) {
+            if (fileStorageService.deleteFile(job.getFilename())) {
+                job.setStatus(ExportJob.Status.EXPIRED);
+                job.setDownloadUrl(null);
+                jobRepository.save(job);
+            } else {
+                log.warn("Could not delete expired export file {} of job {}", job.getFilename(), job.getId());
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.info("Removed {} expired exports", expired.size());
+        }
+    }
+
+    /**
+     * Queues the jobs left over from before a restart. Jobs that were running are run again from the start.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        for (ExportJob job : jobRepository.findByStatusOrderByPriorityDescCreatedAtAsc(ExportJob.Status.RUNNING)) {
+            jobRepository.updateStatus(job.getId(), ExportJob.Status.RUNNING, ExportJob.Status.QUEUED);
+        }
+        List<ExportJob> queued = jobRepository.findByStatusOrderByPriorityDescCreatedAtAsc(ExportJob.Status.QUEUED);
+        queued.forEach(this::enqueue);
+        if (!queued.isEmpty()) {
+            log.info("Resumed {} export jobs", queued.size());
+        }
+    }
+
+    /**
+     * Converts a job to an export response.
+     *
+     * @param job The job
+     * @return The export response
+     */
+    public static ExportResponse toResponse(ExportJob job) {
+        return ExportResponse.builder()
+                .exportId(job.getId())
+                .status(job.getStatus().name())
+                .progress(job.getProgress())
+                .downloadUrl(job.getDownloadUrl())
+                .filename(job.getFilename())
+                .contentType(job.getContentType())
+                .fileType(job.getFormat())
+                .fileSize(job.getFileSize() != null ? job.getFileSize() : 0L)
+                .createdAt(job.getCreatedAt())
+                .expiresAt(job.getExpiresAt())
+                .message(job.getErrorMessage())
+                .build();
+    }
+
+    private void enqueue(ExportJob job) {
+        workers.execute(new JobTask(job.getId(), job.getPriority(), submissionSequence.incrementAndGet()));
+    }
+
+    /**
+     * Runs a job, unless it was cancelled while queued.
+     */
+    private void run(String jobId) {
+        if (jobRepository.updateStatus(jobId, ExportJob.Status.QUEUED, ExportJob.Status.RUNNING) == 0) {
+            log.debug("Skipping export job {} that is no longer queued", jobId);
+            return;
+        }
+        ExportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        job.setStartedAt(LocalDateTime.now());
+        job = jobRepository.save(job);
+
+        AtomicLong rowsWritten = new AtomicLong();
+        AtomicLong totalRows = new AtomicLong();
+        try {
+            ExportRequest exportRequest = objectMapper.readValue(job.getRequest(), ExportRequest.class);
+            ReportExportFormat format = ReportExportFormat.valueOf(job.getFormat());
+            ReportData reportData = dataFetchService.fetchReportData(exportRequest);
+            String filename = createFilename(job, format);
+            job.setFilename(filename);
+            job.setContentType(format.getContentType());
+
+            ExportProgressListener progressListener = (rows, total) -> {
+                if (cancelRequested.contains(jobId)) {
+                    throw new CancellationException("Export job " + jobId + " was cancelled");
+                }
+                rowsWritten.set(rows);
+                totalRows.set(total);
+                jobRepository.updateProgress(jobId, rows, total);
+            };
+            AtomicLong fileSize = new AtomicLong();
+            String downloadUrl = fileStorageService.storeFile(filename, format.getContentType(),
+                    output -> fileSize.set(exportEngine.write(reportData, format, output, progressListener)));
+
+            LocalDateTime completedAt = LocalDateTime.now();
+            job.setStatus(ExportJob.Status.COMPLETED);
+            job.setDownloadUrl(downloadUrl);
+            job.setFileSize(fileSize.get());
+            job.setCompletedAt(completedAt);
+            job.setExpiresAt(completedAt.plusDays(retentionDays));
+            log.info("Completed export job {} with {} rows in {} ms", jobId, rowsWritten.get(),
+                    Duration.between(job.getStartedAt(), completedAt).toMillis());
+            if (job.getEmailTo() != null) {
+                log.info("Export job {} is ready for {} at {}", jobId, job.getEmailTo(), downloadUrl);
+            }
+        } catch (CancellationException e) {
+            log.info("Cancelled running export job {}", jobId);
+            job.setStatus(ExportJob.Status.CANCELLED);
+            job.setCompletedAt(LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Error running export job {}: {}", jobId, e.getMessage(), e);
+            job.setStatus(ExportJob.Status.FAILED);
+            job.setErrorMessage(truncate(String.valueOf(e.getMessage())));
+            job.setCompletedAt(LocalDateTime.now());
+        } finally {
+            cancelRequested.remove(jobId);
+        }
+        job.setRowsWritten(rowsWritten.get());
+        job.setTotalRows(totalRows.get());
+        jobRepository.save(job);
+    }
+
+    /**
+     * Moves the date range of a recurring export so that it ends at the time of the run.
+     */
+    private static void shiftToRunTime(ExportRequest exportRequest, LocalDateTime runTime) {
+        if (exportRequest.getStartDate() != null && exportRequest.getEndDate() != null) {
+            Duration length = Duration.between(exportRequest.getStartDate(), exportRequest.getEndDate());
+            exportRequest.setStartDate(runTime.minus(length));
+            exportRequest.setEndDate(runTime);
+        }
+    }
+
+    /**
+     * Hashes the parameters that determine the content of an export, so identical requests get the same key.
+     */
+    private String requestKey(ExportRequest exportRequest, ReportExportFormat format) {
+        List<Object> parameters = Arrays.asList(
+                exportRequest.getUserId(),
+                exportRequest.getReportType(),
+                exportRequest.getDataSource(),
+                exportRequest.getStartDate(),
+                exportRequest.getEndDate(),
+                exportRequest.getMetrics(),
+                exportRequest.getDimensions(),
+                format.name());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(toJson(parameters).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new ExportException("Failed to serialize export request", e);
+        }
+    }
+
+    private static CronExpression parseCron(String cronExpression) {
+        try {
+            return CronExpression.parse(cronExpression);
+        } catch (IllegalArgumentException e) {
+            throw new ExportException("Invalid cron expression: " + cronExpression, e);
+        }
+    }
+
+    private static String createFilename(ExportJob job, ReportExportFormat format) {
+        return job.getReportType() + "_" + job.getId() + format.getFileExtension();
+    }
+
+    private static String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    /**
+     * A job waiting for a worker. Higher priorities run first, and jobs of equal priority in submission order.
+     */
+    private final class JobTask implements Runnable, Comparable<JobTask> {
+
+        private final String jobId;
+        private final int priority;
+        private final long sequence;
+
+        JobTask(String jobId, int priority, long sequence) {
+            this.jobId = jobId;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            try {
+                ExportJobService.this.run(jobId);
+            } catch (RuntimeException e) {
+                log.error("Export job {} could not be run: {}", jobId, e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public int compareTo(JobTask other) {
+            int byPriority = Integer.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.gogidix.centralizeddashboard.reporting.service;
+
+/**
+ * Receives the progress of an export while it is written
+ */
+@FunctionalInterface
+public interface ExportProgressListener {
+
+    /**
+     * Called every few rows and after the last row. Throwing an exception stops the export.
+     *
+     * @param rowsWritten The number of rows written so far
+     * @param totalRows The number of rows in the report
+     */
+    void onProgress(long rowsWritten, long totalRows);
+}
@@ -4,24 +4,20 @@ import com.gogidix.centralizeddashboard.reporting.dto.ExportRequest;
 import com.gogidix.centralizeddashboard.reporting.dto.ExportResponse;
 import com.gogidix.centralizeddashboard.reporting.dto.ReportData;
 import com.gogidix.centralizeddashboard.reporting.exception.ExportException;
+import com.gogidix.centralizeddashboard.reporting.model.ExportJob;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Service for exporting report data to different formats (CSV, Excel, PDF).
@@ -33,9 +29,13 @@ public class ExportService {
 
     private final DataFetchService dataFetchService;
     private final FileStorageService fileStorageService;
+    private final ReportExportEngine exportEngine;
+    private final ExportJobService exportJobService;
 
     /**
      * Exports report data to the specified format and returns a download link.
+     * The export is written through a pipe into the file storage while it is generated, so it is never
+     * held in memory as a whole.
      *
      * @param exportRequest The export request containing report parameters
      * @return ExportResponse with the download details
@@ -45,50 +45,26 @@ public class ExportService {
             log.info("Processing export request for report type: {}, format: {}", 
                     exportRequest.getReportType(), exportRequest.getFormat());
             
+            ReportExportFormat format = ReportExportFormat.from(exportRequest.getFormat());
+            
             // Fetch the report data
             ReportData reportData = dataFetchService.fetchReportData(exportRequest);
             
-            // Generate the file in the requested format
-            byte[] fileContent;
-            String contentType;
-            String fileExtension;
-            
-            switch (exportRequest.getFormat().toLowerCase()) {
-                case "csv":
-                    fileContent = generateCsvReport(reportData);
-                    contentType = "text/csv";
-                    fileExtension = ".csv";
-                    break;
-                case "excel":
-                    fileContent = generateExcelReport(reportData);
-                    contentType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-                    fileExtension = ".xlsx";
-                    break;
-                case "pdf":
-                    fileContent = generatePdfReport(reportData);
-                    contentType = "application/pdf";
-                    fileExtension = ".pdf";
-                    break;
-                default:
-                    throw new ExportException("Unsupported export format: " + exportRequest.getFormat());
-            }
-            
             // Create a unique filename
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String filename = exportRequest.getReportType() + "_" + timestamp + fileExtension;
+            String filename = createFilename(exportRequest, format);
             
-            // Store the file and get a download URL
-            // Convert byte[] to InputStream for FileStorageService
-            InputStream inputStream = new ByteArrayInputStream(fileContent);
-            String downloadUrl = fileStorageService.storeFile(filename, contentType, inputStream);
+            // Store the file while it is being generated and get a download URL
+            AtomicLong fileSize = new AtomicLong();
+            String downloadUrl = fileStorageService.storeFile(filename, format.getContentType(),
+                    output -> fileSize.set(exportEngine.write(reportData, format, output)));
             
             // Create response
             return ExportResponse.builder()
                     .exportId(UUID.randomUUID().toString())
                     .downloadUrl(downloadUrl)
                     .filename(filename)
-                    .contentType(contentType)
-                    .fileSize(fileContent.length)
+                    .contentType(format.getContentType())
+                    .fileSize(fileSize.get())
                     .expiresAt(LocalDateTime.now().plusDays(7))
                     .build();
             
@@ -99,103 +75,93 @@ public class ExportService {
     }
 
     /**
-     * Generates a CSV report from the provided data.
+     * Exports report data to the specified format directly to an output stream, such as an HTTP response.
+     * The first bytes reach the stream as soon as they are generated. The stream is flushed but not closed.
      *
-     * @param reportData The report data to export
-     * @return Byte array containing the CSV content
-     * @throws IOException If there's an error writing the CSV
+     * @param exportRequest The export request containing report parameters
+     * @param outputStream The stream to write the export to
+     * @return The format the export was written in, for the response content type
      */
-    private byte[] generateCsvReport(ReportData reportData) throws IOException {
-        log.debug("Generating CSV report with {} rows", reportData.getData().size());
+    public ReportExportFormat streamReport(ExportRequest exportRequest, OutputStream outputStream) {
+        log.info("Streaming export for report type: {}, format: {}", 
+                exportRequest.getReportType(), exportRequest.getFormat());
         
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        
-        try (OutputStreamWriter writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
-             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT
-                     .withHeader(reportData.getColumns().toArray(new String[0])))) {
-            
-            // Write data rows
-            for (Map<String, Object> row : reportData.getData()) {
-                csvPrinter.printRecord(reportData.getColumns().stream()
-                        .map(column -> formatCellValue(row.get(column)))
-                        .toArray());
-            }
-            
-            csvPrinter.flush();
+        ReportExportFormat format = ReportExportFormat.from(exportRequest.getFormat());
+        ReportData reportData = dataFetchService.fetchReportData(exportRequest);
+        try {
+            exportEngine.write(reportData, format, outputStream);
+        } catch (IOException e) {
+            log.error("Error streaming report: {}", e.getMessage(), e);
+            throw new ExportException("Failed to export report", e);
         }
-        
-        return outputStream.toByteArray();
+        return format;
     }
 
     /**
-     * Generates an Excel report from the provided data.
+     * Creates the file name of an export from the report type and the current time.
      *
-     * @param reportData The report data to export
-     * @return Byte array containing the Excel content
+     * @param exportRequest The export request
+     * @param format The export format
+     * @return The file name
      */
-    private byte[] generateExcelReport(ReportData reportData) {
-        log.debug("Generating Excel report with {} rows", reportData.getData().size());
-        
-        // Use Apache POI to generate Excel file
-        // Implementation omitted for brevity
-        // In a real implementation, this would use Apache POI to create an XLSX file
-        
-        throw new ExportException("Excel export not implemented in this example");
+    public String createFilename(ExportRequest exportRequest, ReportExportFormat format) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        return exportRequest.getReportType() + "_" + timestamp + format.getFileExtension();
     }
 
     /**
-     * Generates a PDF report from the provided data.
+     * Queues an export to run in the background, so the request thread does not wait for it.
+     * An identical export that is already queued or running is returned instead of starting another one.
      *
-     * @param reportData The report data to export
-     * @return Byte array containing the PDF content
+     * @param exportRequest The export request containing report parameters
+     * @param priority The priority of the export, higher priorities run first
+     * @return ExportResponse with the ID and status of the export
      */
-    private byte[] generatePdfReport(ReportData reportData) {
-        log.debug("Generating PDF report with {} rows", reportData.getData().size());
-        
-        // Use a PDF library like iText or Apache PDFBox to generate PDF
-        // Implementation omitted for brevity
-        // In a real implementation, this would use a PDF library to create a PDF file
-        
-        throw new ExportException("PDF export not implemented in this example");
+    public ExportResponse submitExport(ExportRequest exportRequest, int priority) {
+        log.info("Queuing export for report type: {}, format: {}", 
+                exportRequest.getReportType(), exportRequest.getFormat());
+        return ExportJobService.toResponse(exportJobService.submit(exportRequest, priority));
     }
 
     /**
-     * Formats a cell value for CSV output.
+     * Gets the status of a background export.
      *
-     * @param value The cell value to format
-     * @return Formatted string representation of the value
+     * @param exportId The ID of the export
+     * @return The export, if it exists
      */
-    private String formatCellValue(Object value) {
-        if (value == null) {
-            return "";
-        }
-        
-        // Handle specific types
-        if (value instanceof LocalDateTime) {
-            return ((LocalDateTime) value).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        }
-        
-        return value.toString();
+    public Optional<ExportResponse> getExport(String exportId) {
+        return exportJobService.getJob(exportId).map(ExportJobService::toResponse);
+    }
+
+    /**
+     * Cancels a background export that is queued or running.
+     *
+     * @param exportId The ID of the export
+     * @return True if the export was cancelled, false if it had already finished
+     */
+    public boolean cancelExport(String exportId) {
+        return exportJobService.cancel(exportId);
     }
 
     /**
      * Schedules a report to be generated and sent via email.
+     * Requests with a cron schedule are exported each time the schedule is due, and other requests once
+     * in the background.
      *
      * @param exportRequest The export request
      * @param email The email address to send the report to
-     * @return The ID of the scheduled export
+     * @return The ID of the export schedule, or of the export for a one-off request
      */
     public String scheduleExport(ExportRequest exportRequest, String email) {
         log.info("Scheduling export for report type: {}, format: {} to email: {}", 
                 exportRequest.getReportType(), exportRequest.getFormat(), email);
         
-        // Generate a unique ID for the scheduled export
-        String scheduleId = UUID.randomUUID().toString();
-        
-        // Logic to schedule the export job
-        // In a real implementation, this would use a job scheduler like Quartz or Spring Scheduler
-        
-        return scheduleId;
+        exportRequest.setEmailTo(email);
+        if (exportRequest.isScheduled() && exportRequest.getScheduleCron() != null) {
+            return String.valueOf(exportJobService.schedule(exportRequest, exportRequest.getScheduleCron()).getId());
+        }
+        ExportJob job = exportJobService.submit(exportRequest, ExportJobService.PRIORITY_LOW);
+        return job.getId();
     }
 
     /**
@@ -208,9 +174,8 @@ public class ExportService {
     public List<ExportResponse> getRecentExports(String userId, int limit) {
         log.info("Fetching recent exports for user: {}, limit: {}", userId, limit);
         
-        // Logic to retrieve recent exports from storage
-        // Implementation omitted for brevity
-        
-        return List.of(); // Return empty list for this example
+        return exportJobService.getRecentJobs(userId, limit).stream()
+                .map(ExportJobService::toResponse)
+                .collect(Collectors.toList());
     }
-} 
\ No newline at end of file
+}
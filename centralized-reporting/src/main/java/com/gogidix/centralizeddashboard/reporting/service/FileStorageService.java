@@ -1,30 +1,114 @@
 package com.gogidix.centralizeddashboard.reporting.service;
 
+import com.gogidix.centralizeddashboard.reporting.exception.ExportException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Service for managing file storage operations
  */
 @Service
 public class FileStorageService {
-    
+
+    private final ExecutorService storageExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "report-export-storage");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${reporting.export.pipe-buffer-size:65536}")
+    private int pipeBufferSize = 65536;
+
+    /**
+     * Writes the content of a file
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        /**
+         * Writes the content to the stream, without closing it
+         * @param outputStream The stream to write to
+         * @throws IOException If the content cannot be written
+         */
+        void write(OutputStream outputStream) throws IOException;
+    }
+
     /**
      * Stores a file in the appropriate storage location
      * @param fileName The name of the file to store
      * @param contentType The MIME type of the file
-     * @param inputStream The file content as an input stream
+     * @param inputStream The file content as an input stream, which is read to the end
      * @return The URL where the file can be accessed
+     * @throws IOException If the file content cannot be read
      */
-    public String storeFile(String fileName, String contentType, InputStream inputStream) {
+    public String storeFile(String fileName, String contentType, InputStream inputStream) throws IOException {
         // Implementation would save the file to appropriate storage
         // (local filesystem, cloud storage, etc.)
-        
+        // Exports are written while they are stored, so the content must be read to the end
+        inputStream.transferTo(OutputStream.nullOutputStream());
+
         // For now, return a stub URL that won't cause issues
         return "https://storage.example.com/reports/" + fileName;
     }
-    
+
+    /**
+     * Stores a file while its content is being written. The content is passed through a pipe to the
+     * storage, so it is never held in memory as a whole. If the writer fails, nothing is stored and
+     * its exception is rethrown.
+     * @param fileName The name of the file to store
+     * @param contentType The MIME type of the file
+     * @param contentWriter Writes the file content
+     * @return The URL where the file can be accessed
+     * @throws IOException If the file content cannot be written or stored
+     */
+    public String storeFile(String fileName, String contentType, ContentWriter contentWriter) throws IOException {
+        PipedInputStream inputStream = new PipedInputStream(pipeBufferSize);
+        PipedOutputStream outputStream = new PipedOutputStream(inputStream);
+        PipedContent content = new PipedContent(inputStream);
+        Future<String> storedFile = storageExecutor.submit(() -> {
+            try (InputStream input = content) {
+                return storeFile(fileName, contentType, input);
+            }
+        });
+
+        try {
+            contentWriter.write(outputStream);
+        } catch (IOException | RuntimeException e) {
+            // Poisons the read side before closing the write side, so the storage fails instead of
+            // taking the end of the pipe for the end of the content and storing a truncated file
+            content.poison();
+            storedFile.cancel(true);
+            inputStream.close();
+            outputStream.close();
+            throw e;
+        }
+        outputStream.close();
+
+        try {
+            return storedFile.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExportException("Interrupted while storing " + fileName, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new ExportException("Failed to store " + fileName, e.getCause());
+        }
+    }
+
     /**
      * Checks if a file exists in storage
      * @param fileName The name of the file to check
@@ -34,7 +118,7 @@ public class FileStorageService {
         // Implementation would check if the file exists in storage
         return false;
     }
-    
+
     /**
      * Deletes a file from storage
      * @param fileName The name of the file to delete
@@ -44,4 +128,42 @@ public class FileStorageService {
         // Implementation would delete the file from storage
         return true;
     }
+
+    @PreDestroy
+    void shutdown() {
+        storageExecutor.shutdown();
+    }
+
+    /**
+     * Read side of a pipe, failing at the end of the pipe once the content writer has failed
+     */
+    private static final class PipedContent extends FilterInputStream {
+
+        private volatile boolean poisoned;
+
+        private PipedContent(PipedInputStream inputStream) {
+            super(inputStream);
+        }
+
+        private void poison() {
+            poisoned = true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return checkEnd(super.read());
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return checkEnd(super.read(buffer, offset, length));
+        }
+
+        private int checkEnd(int result) throws IOException {
+            if (result < 0 && poisoned) {
+                throw new IOException("The content writer failed, the content is incomplete");
+            }
+            return result;
+        }
+    }
 }
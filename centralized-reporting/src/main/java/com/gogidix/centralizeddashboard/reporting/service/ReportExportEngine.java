@@ -0,0 +1,429 @@
+package com.gogidix.centralizeddashboard.reporting.service;
+
+import com.gogidix.centralizeddashboard.reporting.dto.ReportData;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes report data as CSV, Excel or PDF directly to an output stream, one row at a time.
+ * Excel workbooks keep a bounded window of rows in memory and flush older rows to a temporary file,
+ * and PDF pages are buffered in a temporary file, so memory use does not grow with the number of rows.
+ */
+@Service
+@Slf4j
+public class ReportExportEngine {
+
+    private static final int MAX_EXCEL_CELL_LENGTH = 32_767;
+    private static final int MAX_PDF_CELL_LENGTH = 200;
+    private static final float PDF_MARGIN = 36;
+    private static final float PDF_FONT_SIZE = 8;
+    private static final float PDF_TITLE_FONT_SIZE = 12;
+    private static final float PDF_LEADING = 11;
+    private static final float PDF_CELL_PADDING = 2;
+    private static final PDFont PDF_FONT = PDType1Font.HELVETICA;
+    private static final PDFont PDF_BOLD_FONT = PDType1Font.HELVETICA_BOLD;
+
+    @Value("${reporting.export.excel-row-window:100}")
+    private int excelRowWindow = 100;
+
+    @Value("${reporting.export.progress-interval:1000}")
+    private int progressInterval = 1000;
+
+    /**
+     * Writes report data in the given format. The output stream is flushed but not closed.
+     *
+     * @param reportData The report data to export
+     * @param format The export format
+     * @param outputStream The stream to write the export to
+     * @return The number of bytes written
+     * @throws IOException If there's an error writing the export
+     */
+    public long write(ReportData reportData, ReportExportFormat format, OutputStream outputStream) throws IOException {
+        return write(reportData, format, outputStream, null);
+    }
+
+    /**
+     * Writes report data in the given format, reporting progress every few rows.
+     * A listener can stop the export by throwing an exception, which is passed on to the caller.
+     * The output stream is flushed but not closed.
+     *
+     * @param reportData The report data to export
+     * @param format The export format
+     * @param outputStream The stream to write the export to
+     * @param progressListener Receives the number of rows written so far, or null
+     * @return The number of bytes written
+     * @throws IOException If there's an error writing the export
+     */
+    public long write(ReportData reportData, ReportExportFormat format, OutputStream outputStream,
+                      ExportProgressListener progressListener) throws IOException {
+        CountingOutputStream output = new CountingOutputStream(outputStream);
+        Progress progress = new Progress(progressListener, rowCount(reportData));
+        switch (format) {
+            case CSV:
+                writeCsv(reportData, output, progress);
+                break;
+            case EXCEL:
+                writeExcel(reportData, output, progress);
+                break;
+            case PDF:
+                writePdf(reportData, output, progress);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown export format: " + format);
+        }
+        output.flush();
+        progress.finish();
+        return output.getCount();
+    }
+
+    /**
+     * Writes a CSV report with a header row.
+     */
+    private void writeCsv(ReportData reportData, OutputStream output, Progress progress) throws IOException {
+        log.debug("Writing CSV report with {} rows", rowCount(reportData));
+        List<String> columns = reportData.getColumns();
+
+        try (CSVPrinter csvPrinter = new CSVPrinter(
+                new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)),
+                CSVFormat.DEFAULT.withHeader(columns.toArray(new String[0])))) {
+
+            for (Map<String, Object> row : rows(reportData)) {
+                csvPrinter.printRecord(columns.stream()
+                        .map(column -> formatCellValue(row.get(column)))
+                        .toArray());
+                progress.rowWritten();
+            }
+        }
+    }
+
+    /**
+     * Writes an Excel workbook through a streaming workbook that keeps only the last rows in memory.
+     * Rows beyond the maximum of a sheet continue on a new sheet.
+     */
+    private void writeExcel(ReportData reportData, OutputStream output, Progress progress) throws IOException {
+        log.debug("Writing Excel report with {} rows, keeping {} rows in memory", rowCount(reportData),
+                excelRowWindow);
+        List<String> columns = reportData.getColumns();
+        int maxRows = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(excelRowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            CellStyle dateTimeStyle = workbook.createCellStyle();
+            dateTimeStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+
+            Sheet sheet = null;
+            int rowIndex = maxRows;
+            for (Map<String, Object> row : rows(reportData)) {
+                if (rowIndex >= maxRows) {
+                    sheet = createSheet(workbook, reportData, columns, headerStyle);
+                    rowIndex = 1;
+                }
+                Row excelRow = sheet.createRow(rowIndex++);
+                for (int i = 0; i < columns.size(); i++) {
+                    setCellValue(excelRow.createCell(i), row.get(columns.get(i)), dateTimeStyle, dateStyle);
+                }
+                progress.rowWritten();
+            }
+            if (sheet == null) {
+                createSheet(workbook, reportData, columns, headerStyle);
+            }
+
+            workbook.write(output);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private Sheet createSheet(SXSSFWorkbook workbook, ReportData reportData, List<String> columns,
+                              CellStyle headerStyle) {
+        String name = reportData.getReportName() != null ? reportData.getReportName() : "Report";
+        if (workbook.getNumberOfSheets() > 0) {
+            name = name.substring(0, Math.min(name.length(), 24)) + " (" + (workbook.getNumberOfSheets() + 1) + ")";
+        }
+        Sheet sheet = workbook.createSheet(WorkbookUtil.createSafeSheetName(name));
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < columns.size(); i++) {
+            Cell cell = header.createCell(i);
+            cell.setCellValue(columns.get(i));
+            cell.setCellStyle(headerStyle);
+        }
+        return sheet;
+    }
+
+    private void setCellValue(Cell cell, Object value, CellStyle dateTimeStyle, CellStyle dateStyle) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else if (value instanceof LocalDateTime) {
+            cell.setCellValue((LocalDateTime) value);
+            cell.setCellStyle(dateTimeStyle);
+        } else if (value instanceof LocalDate) {
+            cell.setCellValue((LocalDate) value);
+            cell.setCellStyle(dateStyle);
+        } else if (value instanceof Date) {
+            cell.setCellValue((Date) value);
+            cell.setCellStyle(dateTimeStyle);
+        } else {
+            String text = formatCellValue(value);
+            cell.setCellValue(text.length() > MAX_EXCEL_CELL_LENGTH ? text.substring(0, MAX_EXCEL_CELL_LENGTH) : text);
+        }
+    }
+
+    /**
+     * Writes a PDF report as a table on landscape pages, repeating the header row on every page.
+     * Page content is kept in a temporary file until the document is written.
+     */
+    private void writePdf(ReportData reportData, OutputStream output, Progress progress) throws IOException {
+        log.debug("Writing PDF report with {} rows", rowCount(reportData));
+        List<String> columns = reportData.getColumns();
+        PDRectangle pageSize = new PDRectangle(PDRectangle.A4.getHeight(), PDRectangle.A4.getWidth());
+        float columnWidth = (pageSize.getWidth() - 2 * PDF_MARGIN) / Math.max(columns.size(), 1);
+
+        try (PDDocument document = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+            PdfPage page = new PdfPage(document, pageSize, 1);
+            float y = page.writeTitle(reportData.getReportName() != null ? reportData.getReportName() : "Report");
+            y = page.writeRow(columns, columnWidth, y, PDF_BOLD_FONT);
+
+            for (Map<String, Object> row : rows(reportData)) {
+                if (y - PDF_LEADING < PDF_MARGIN + PDF_LEADING) {
+                    page.close();
+                    page = new PdfPage(document, pageSize, page.number + 1);
+                    y = page.writeRow(columns, columnWidth, pageSize.getHeight() - PDF_MARGIN, PDF_BOLD_FONT);
+                }
+                y = page.writeRow(columns.stream().map(column -> formatCellValue(row.get(column))).toList(),
+                        columnWidth, y, PDF_FONT);
+                progress.rowWritten();
+            }
+            page.close();
+
+            document.save(output);
+        }
+    }
+
+    /**
+     * A page being written, with its content stream.
+     */
+    private static final class PdfPage {
+
+        private final PDPageContentStream content;
+        private final PDRectangle pageSize;
+        private final int number;
+
+        PdfPage(PDDocument document, PDRectangle pageSize, int number) throws IOException {
+            PDPage page = new PDPage(pageSize);
+            document.addPage(page);
+            this.content = new PDPageContentStream(document, page);
+            this.pageSize = pageSize;
+            this.number = number;
+        }
+
+        float writeTitle(String title) throws IOException {
+            float y = pageSize.getHeight() - PDF_MARGIN - PDF_TITLE_FONT_SIZE;
+            writeText(fitText(title, PDF_BOLD_FONT, PDF_TITLE_FONT_SIZE, pageSize.getWidth() - 2 * PDF_MARGIN),
+                    PDF_BOLD_FONT, PDF_TITLE_FONT_SIZE, PDF_MARGIN, y);
+            return y - 2 * PDF_LEADING;
+        }
+
+        float writeRow(List<String> values, float columnWidth, float y, PDFont font) throws IOException {
+            float baseline = y - PDF_FONT_SIZE;
+            for (int i = 0; i < values.size(); i++) {
+                String text = fitText(values.get(i), font, PDF_FONT_SIZE, columnWidth - 2 * PDF_CELL_PADDING);
+                if (!text.isEmpty()) {
+                    writeText(text, font, PDF_FONT_SIZE, PDF_MARGIN + i * columnWidth + PDF_CELL_PADDING, baseline);
+                }
+            }
+            return y - PDF_LEADING;
+        }
+
+        void close() throws IOException {
+            writeText("Page " + number, PDF_FONT, PDF_FONT_SIZE, pageSize.getWidth() - PDF_MARGIN - 40,
+                    PDF_MARGIN / 2);
+            content.close();
+        }
+
+        private void writeText(String text, PDFont font, float fontSize, float x, float y) throws IOException {
+            content.beginText();
+            content.setFont(font, fontSize);
+            content.newLineAtOffset(x, y);
+            content.showText(text);
+            content.endText();
+        }
+    }
+
+    /**
+     * Shortens text to fit a width, replacing characters the font cannot show.
+     */
+    private static String fitText(String value, PDFont font, float fontSize, float width) throws IOException {
+        String text = value.length() > MAX_PDF_CELL_LENGTH ? value.substring(0, MAX_PDF_CELL_LENGTH) : value;
+        text = toPrintable(text.replaceAll("[\\r\\n\\t]", " "), font);
+        if (textWidth(text, font, fontSize) <= width) {
+            return text;
+        }
+        // Find the longest prefix that fits together with the ellipsis
+        int low = 0;
+        int high = text.length() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) / 2;
+            if (textWidth(text.substring(0, middle) + "...", font, fontSize) <= width) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low > 0 ? text.substring(0, low) + "..." : "";
+    }
+
+    private static String toPrintable(String text, PDFont font) throws IOException {
+        try {
+            font.encode(text);
+            return text;
+        } catch (IllegalArgumentException e) {
+            StringBuilder printable = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                String character = String.valueOf(text.charAt(i));
+                try {
+                    font.encode(character);
+                    printable.append(character);
+                } catch (IllegalArgumentException unsupported) {
+                    printable.append('?');
+                }
+            }
+            return printable.toString();
+        }
+    }
+
+    private static float textWidth(String text, PDFont font, float fontSize) throws IOException {
+        return font.getStringWidth(text) / 1000 * fontSize;
+    }
+
+    private static List<Map<String, Object>> rows(ReportData reportData) {
+        return reportData.getData() != null ? reportData.getData() : List.of();
+    }
+
+    private static int rowCount(ReportData reportData) {
+        return rows(reportData).size();
+    }
+
+    /**
+     * Formats a cell value as text.
+     *
+     * @param value The cell value to format
+     * @return Formatted string representation of the value
+     */
+    static String formatCellValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+
+        // Handle specific types
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+
+        return value.toString();
+    }
+
+    /**
+     * Reports progress to a listener every few rows.
+     */
+    private final class Progress {
+
+        private final ExportProgressListener listener;
+        private final long totalRows;
+        private long rowsWritten;
+
+        Progress(ExportProgressListener listener, long totalRows) {
+            this.listener = listener;
+            this.totalRows = totalRows;
+        }
+
+        void rowWritten() {
+            rowsWritten++;
+            if (listener != null && rowsWritten % progressInterval == 0) {
+                listener.onProgress(rowsWritten, totalRows);
+            }
+        }
+
+        void finish() {
+            if (listener != null && rowsWritten % progressInterval != 0) {
+                listener.onProgress(rowsWritten, totalRows);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes written and keeps the caller's stream open when a writer closes its stream.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.gogidix.centralizeddashboard.reporting.service;
+
+import com.gogidix.centralizeddashboard.reporting.exception.ExportException;
+
+import java.util.Locale;
+
+/**
+ * Formats report data can be exported to
+ */
+public enum ReportExportFormat {
+
+    CSV("text/csv", ".csv"),
+    EXCEL("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", ".xlsx"),
+    PDF("application/pdf", ".pdf");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ReportExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Resolves the format of an export request, such as "csv", "excel", "xlsx" or "pdf"
+     * @param format The requested format
+     * @return The export format
+     * @throws ExportException If the format is not supported
+     */
+    public static ReportExportFormat from(String format) {
+        switch (format == null ? "" : format.trim().toLowerCase(Locale.ROOT)) {
+            case "csv":
+                return CSV;
+            case "excel":
+            case "xlsx":
+                return EXCEL;
+            case "pdf":
+                return PDF;
+            default:
+                throw new ExportException("Unsupported export format: " + format);
+        }
+    }
+}
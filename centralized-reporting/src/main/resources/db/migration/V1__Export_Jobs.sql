@@ -0,0 +1,48 @@
+-- Export jobs run by the export workers, and the recurring schedules that queue them
+
+CREATE TABLE export_schedules (
+    id BIGSERIAL PRIMARY KEY,
+    user_id VARCHAR(255),
+    report_type VARCHAR(255) NOT NULL,
+    request TEXT NOT NULL,
+    cron_expression VARCHAR(255) NOT NULL,
+    email_to VARCHAR(255),
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    next_run_at TIMESTAMP NOT NULL,
+    last_run_at TIMESTAMP,
+    last_job_id VARCHAR(36),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_export_schedules_next_run ON export_schedules(next_run_at) WHERE active;
+
+CREATE TABLE export_jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    schedule_id BIGINT REFERENCES export_schedules(id),
+    user_id VARCHAR(255),
+    report_type VARCHAR(255) NOT NULL,
+    format VARCHAR(50) NOT NULL,
+    request_key VARCHAR(64) NOT NULL,
+    request TEXT NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    priority INTEGER NOT NULL,
+    rows_written BIGINT,
+    total_rows BIGINT,
+    filename VARCHAR(255),
+    content_type VARCHAR(255),
+    download_url VARCHAR(1024),
+    file_size BIGINT,
+    email_to VARCHAR(255),
+    error_message TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    expires_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_export_jobs_request_key ON export_jobs(request_key, status);
+CREATE INDEX idx_export_jobs_status_priority ON export_jobs(status, priority DESC, created_at);
+CREATE INDEX idx_export_jobs_user_created ON export_jobs(user_id, created_at DESC);
+CREATE INDEX idx_export_jobs_expires ON export_jobs(expires_at) WHERE status = 'COMPLETED';
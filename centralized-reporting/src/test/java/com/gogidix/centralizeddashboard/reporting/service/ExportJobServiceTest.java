@@ -0,0 +1,375 @@
+package com.gogidix.centralizeddashboard.reporting.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gogidix.centralizeddashboard.reporting.dto.ExportRequest;
+import com.gogidix.centralizeddashboard.reporting.dto.ReportData;
+import com.gogidix.centralizeddashboard.reporting.exception.ExportException;
+import com.gogidix.centralizeddashboard.reporting.model.ExportJob;
+import com.gogidix.centralizeddashboard.reporting.model.ExportSchedule;
+import com.gogidix.centralizeddashboard.reporting.repository.ExportJobRepository;
+import com.gogidix.centralizeddashboard.reporting.repository.ExportScheduleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportJobServiceTest {
+
+    /**
+     * Report type whose export waits for {@link #release} once it has started, keeping the only worker busy
+     */
+    private static final String BLOCKING = "blocking";
+
+    @Mock
+    private ExportJobRepository jobRepository;
+
+    @Mock
+    private ExportScheduleRepository scheduleRepository;
+
+    @Mock
+    private DataFetchService dataFetchService;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private ReportExportEngine exportEngine;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final List<String> runOrder = new CopyOnWriteArrayList<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ExportJobService exportJobService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        exportJobService = new ExportJobService(jobRepository, scheduleRepository, dataFetchService,
+                fileStorageService, exportEngine, objectMapper);
+        ReflectionTestUtils.setField(exportJobService, "workerThreads", 1);
+        exportJobService.start();
+
+        lenient().when(jobRepository.save(any(ExportJob.class))).thenAnswer(invocation -> {
+            ExportJob job = invocation.getArgument(0);
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        lenient().when(jobRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.<String>getArgument(0))));
+        lenient().when(jobRepository.updateStatus(anyString(), any(), any())).thenAnswer(invocation -> {
+            ExportJob job = jobs.get(invocation.<String>getArgument(0));
+            if (job == null || job.getStatus() != invocation.getArgument(1)) {
+                return 0;
+            }
+            job.setStatus(invocation.getArgument(2));
+            return 1;
+        });
+        lenient().when(jobRepository.findFirstByRequestKeyAndStatusInOrderByCreatedAtAsc(anyString(), any()))
+                .thenAnswer(invocation -> {
+                    Collection<ExportJob.Status> statuses = invocation.getArgument(1);
+                    return jobs.values().stream()
+                            .filter(job -> job.getRequestKey().equals(invocation.getArgument(0)))
+                            .filter(job -> statuses.contains(job.getStatus()))
+                            .findFirst();
+                });
+        lenient().when(jobRepository.findByStatusOrderByPriorityDescCreatedAtAsc(any())).thenAnswer(invocation ->
+                jobs.values().stream()
+                        .filter(job -> job.getStatus() == invocation.getArgument(0))
+                        .sorted(Comparator.comparing(ExportJob::getPriority).reversed())
+                        .toList());
+
+        lenient().when(dataFetchService.fetchReportData(any(ExportRequest.class))).thenAnswer(invocation -> {
+            String reportType = invocation.getArgument(0, ExportRequest.class).getReportType();
+            runOrder.add(reportType);
+            return ReportData.builder().reportName(reportType).build();
+        });
+        lenient().when(exportEngine.write(any(ReportData.class), any(ReportExportFormat.class), any(OutputStream.class),
+                any(ExportProgressListener.class))).thenAnswer(invocation -> {
+                    if (BLOCKING.equals(invocation.getArgument(0, ReportData.class).getReportName())) {
+                        started.countDown();
+                        assertTrue(release.await(5, TimeUnit.SECONDS), "The blocking export was not released");
+                    }
+                    invocation.getArgument(3, ExportProgressListener.class).onProgress(10, 10);
+                    return 100L;
+                });
+        lenient().when(fileStorageService.storeFile(anyString(), anyString(), any(FileStorageService.ContentWriter.class)))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(2, FileStorageService.ContentWriter.class).write(OutputStream.nullOutputStream());
+                    return "https://storage.example.com/reports/" + invocation.getArgument(0);
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        exportJobService.shutdown();
+    }
+
+    @Test
+    void submit_WhenIdenticalJobIsQueuedOrRunning_ShouldReturnTheActiveJob() throws Exception {
+        // Given
+        ExportJob running = exportJobService.submit(request(BLOCKING), ExportJobService.PRIORITY_NORMAL);
+        awaitStarted();
+        ExportJob queued = exportJobService.submit(request("sales"), ExportJobService.PRIORITY_NORMAL);
+
+        // When
+        ExportJob sameAsRunning = exportJobService.submit(request(BLOCKING), ExportJobService.PRIORITY_HIGH);
+        ExportJob sameAsQueued = exportJobService.submit(request("sales"), ExportJobService.PRIORITY_HIGH);
+        ExportJob otherFormat = exportJobService.submit(request("sales", "pdf"), ExportJobService.PRIORITY_NORMAL);
+
+        // Then
+        assertEquals(running.getId(), sameAsRunning.getId());
+        assertEquals(queued.getId(), sameAsQueued.getId());
+        assertNotEquals(queued.getId(), otherFormat.getId(), "A different format should get its own job");
+        assertEquals(3, jobs.size());
+
+        release.countDown();
+        awaitStatus(otherFormat.getId(), ExportJob.Status.COMPLETED);
+        assertEquals(List.of(BLOCKING, "sales", "sales"), runOrder, "Duplicate requests should not run again");
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldRejectNewJobs() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(exportJobService, "queueCapacity", 1);
+        exportJobService.submit(request(BLOCKING), ExportJobService.PRIORITY_NORMAL);
+        awaitStarted();
+        ExportJob queued = exportJobService.submit(request("sales"), ExportJobService.PRIORITY_NORMAL);
+
+        // When
+        ExportException thrown = assertThrows(ExportException.class,
+                () -> exportJobService.submit(request("inventory"), ExportJobService.PRIORITY_HIGH));
+
+        // Then
+        assertTrue(thrown.getMessage().contains("queue is full"));
+        assertTrue(jobs.values().stream().noneMatch(job -> job.getReportType().equals("inventory")),
+                "A rejected job should not be stored");
+        ExportJob duplicate = exportJobService.submit(request("sales"), ExportJobService.PRIORITY_NORMAL);
+        assertEquals(queued.getId(), duplicate.getId(), "Identical requests should still be served while full");
+    }
+
+    @Test
+    void cancel_WhenJobIsQueued_ShouldCancelItBeforeItRuns() throws Exception {
+        // Given
+        ExportJob blocking = exportJobService.submit(request(BLOCKING), ExportJobService.PRIORITY_NORMAL);
+        awaitStarted();
+        ExportJob queued = exportJobService.submit(request("sales"), ExportJobService.PRIORITY_NORMAL);
+
+        // When
+        boolean cancelled = exportJobService.cancel(queued.getId());
+
+        // Then
+        assertTrue(cancelled);
+        assertEquals(ExportJob.Status.CANCELLED, jobs.get(queued.getId()).getStatus());
+
+        release.countDown();
+        awaitStatus(blocking.getId(), ExportJob.Status.COMPLETED);
+        verify(jobRepository, timeout(5000)).updateStatus(queued.getId(), ExportJob.Status.QUEUED,
+                ExportJob.Status.RUNNING);
+        assertEquals(List.of(BLOCKING), runOrder, "A cancelled job should be skipped by the worker");
+        assertEquals(ExportJob.Status.CANCELLED, jobs.get(queued.getId()).getStatus());
+    }
+
+    @Test
+    void cancel_WhenJobIsRunning_ShouldStopItAtTheNextProgressUpdate() throws Exception {
+        // Given
+        ExportJob running = exportJobService.submit(request(BLOCKING), ExportJobService.PRIORITY_NORMAL);
+        awaitStarted();
+
+        // When
+        boolean cancelled = exportJobService.cancel(running.getId());
+        release.countDown();
+
+        // Then
+        assertTrue(cancelled);
+        ExportJob job = awaitStatus(running.getId(), ExportJob.Status.CANCELLED);
+        assertNull(job.getDownloadUrl());
+        assertNotNull(job.getCompletedAt());
+        assertFalse(exportJobService.cancel(running.getId()), "A finished job cannot be cancelled");
+    }
+
+    @Test
+    void resumeJobs_ShouldRequeueRunningJobsAndRunAllJobsByPriority() throws Exception {
+        // Given
+        storeJob("interrupted", ExportJob.Status.RUNNING, ExportJobService.PRIORITY_NORMAL);
+        storeJob("queued-low", ExportJob.Status.QUEUED, ExportJobService.PRIORITY_LOW);
+        storeJob("queued-high", ExportJob.Status.QUEUED, ExportJobService.PRIORITY_HIGH);
+        storeJob("completed", ExportJob.Status.COMPLETED, ExportJobService.PRIORITY_HIGH);
+
+        // When
+        exportJobService.resumeJobs();
+
+        // Then
+        verify(jobRepository).updateStatus("interrupted", ExportJob.Status.RUNNING, ExportJob.Status.QUEUED);
+        awaitStatus("queued-low", ExportJob.Status.COMPLETED);
+        awaitStatus("interrupted", ExportJob.Status.COMPLETED);
+        awaitStatus("queued-high", ExportJob.Status.COMPLETED);
+        assertEquals(List.of("queued-high", "interrupted", "queued-low"), runOrder);
+    }
+
+    @Test
+    void submit_ShouldRunHigherPrioritiesFirstAndEqualPrioritiesInSubmissionOrder() throws Exception {
+        // Given
+        exportJobService.submit(request(BLOCKING), ExportJobService.PRIORITY_NORMAL);
+        awaitStarted();
+        exportJobService.submit(request("low"), ExportJobService.PRIORITY_LOW);
+        exportJobService.submit(request("high-1"), ExportJobService.PRIORITY_HIGH);
+        exportJobService.submit(request("normal"), ExportJobService.PRIORITY_NORMAL);
+        ExportJob last = exportJobService.submit(request("high-2"), ExportJobService.PRIORITY_HIGH);
+        ExportJob lowest = jobs.values().stream()
+                .filter(job -> job.getReportType().equals("low"))
+                .findFirst()
+                .orElseThrow();
+
+        // When
+        release.countDown();
+
+        // Then
+        awaitStatus(last.getId(), ExportJob.Status.COMPLETED);
+        awaitStatus(lowest.getId(), ExportJob.Status.COMPLETED);
+        assertEquals(List.of(BLOCKING, "high-1", "high-2", "normal", "low"), runOrder);
+    }
+
+    @Test
+    void runDueSchedules_ShouldQueueAJobCoveringTheSameLengthOfTimeUpToTheRun() throws Exception {
+        // Given
+        ExportRequest scheduled = request("sales");
+        scheduled.setStartDate(LocalDateTime.of(2024, 1, 1, 0, 0));
+        scheduled.setEndDate(LocalDateTime.of(2024, 1, 8, 0, 0));
+        ExportSchedule schedule = ExportSchedule.builder()
+                .id(7L)
+                .reportType("sales")
+                .request(objectMapper.writeValueAsString(scheduled))
+                .cronExpression("0 0 * * * *")
+                .active(true)
+                .nextRunAt(LocalDateTime.now().minusMinutes(1))
+                .build();
+        when(scheduleRepository.findByActiveTrueAndNextRunAtLessThanEqual(any(LocalDateTime.class)))
+                .thenReturn(List.of(schedule));
+
+        // When
+        exportJobService.runDueSchedules();
+
+        // Then
+        ExportJob job = jobs.get(schedule.getLastJobId());
+        assertNotNull(job, "The schedule should record its queued job");
+        assertEquals(7L, job.getScheduleId());
+        assertEquals(ExportJobService.PRIORITY_LOW, job.getPriority());
+        ExportRequest queued = objectMapper.readValue(job.getRequest(), ExportRequest.class);
+        assertEquals(schedule.getLastRunAt(), queued.getEndDate());
+        assertEquals(schedule.getLastRunAt().minusDays(7), queued.getStartDate());
+        assertTrue(schedule.getNextRunAt().isAfter(schedule.getLastRunAt()));
+        assertEquals(0, schedule.getNextRunAt().getMinute());
+        verify(scheduleRepository).save(schedule);
+    }
+
+    @Test
+    void runDueSchedules_WhenRequestCannotBeRead_ShouldStillAdvanceTheSchedule() {
+        // Given
+        LocalDateTime dueAt = LocalDateTime.now().minusMinutes(1);
+        ExportSchedule schedule = ExportSchedule.builder()
+                .id(8L)
+                .reportType("sales")
+                .request("not json")
+                .cronExpression("0 0 * * * *")
+                .active(true)
+                .nextRunAt(dueAt)
+                .build();
+        when(scheduleRepository.findByActiveTrueAndNextRunAtLessThanEqual(any(LocalDateTime.class)))
+                .thenReturn(List.of(schedule));
+
+        // When
+        exportJobService.runDueSchedules();
+
+        // Then
+        assertNull(schedule.getLastJobId());
+        assertTrue(schedule.getNextRunAt().isAfter(dueAt));
+        assertTrue(jobs.isEmpty());
+        verify(scheduleRepository).save(schedule);
+    }
+
+    @Test
+    void removeExpiredExports_ShouldExpireJobsWhoseFilesWereDeleted() {
+        // Given
+        ExportJob deleted = storeJob("deleted", ExportJob.Status.COMPLETED, ExportJobService.PRIORITY_NORMAL);
+        deleted.setFilename("deleted.csv");
+        deleted.setDownloadUrl("https://storage.example.com/reports/deleted.csv");
+        ExportJob kept = storeJob("kept", ExportJob.Status.COMPLETED, ExportJobService.PRIORITY_NORMAL);
+        kept.setFilename("kept.csv");
+        kept.setDownloadUrl("https://storage.example.com/reports/kept.csv");
+        when(jobRepository.findByStatusAndExpiresAtBefore(eq(ExportJob.Status.COMPLETED), any(LocalDateTime.class)))
+                .thenReturn(List.of(deleted, kept));
+        when(fileStorageService.deleteFile("deleted.csv")).thenReturn(true);
+        when(fileStorageService.deleteFile("kept.csv")).thenReturn(false);
+
+        // When
+        exportJobService.removeExpiredExports();
+
+        // Then
+        assertEquals(ExportJob.Status.EXPIRED, deleted.getStatus());
+        assertNull(deleted.getDownloadUrl());
+        verify(jobRepository).save(deleted);
+        assertEquals(ExportJob.Status.COMPLETED, kept.getStatus(), "A job whose file is still stored should not expire");
+        assertNotNull(kept.getDownloadUrl());
+        verify(jobRepository, never()).save(kept);
+    }
+
+    private ExportRequest request(String reportType) {
+        return request(reportType, "csv");
+    }
+
+    private ExportRequest request(String reportType, String format) {
+        return ExportRequest.builder().reportType(reportType).format(format).userId("user-1").build();
+    }
+
+    private ExportJob storeJob(String id, ExportJob.Status status, int priority) {
+        ExportJob job = ExportJob.builder()
+                .id(id)
+                .reportType(id)
+                .format(ReportExportFormat.CSV.name())
+                .requestKey(id)
+                .request("{\"reportType\":\"" + id + "\",\"format\":\"csv\"}")
+                .status(status)
+                .priority(priority)
+                .build();
+        jobs.put(id, job);
+        return job;
+    }
+
+    private void awaitStarted() throws InterruptedException {
+        assertTrue(started.await(5, TimeUnit.SECONDS), "The blocking export did not start");
+    }
+
+    /**
+     * Waits for a worker to save a job in the given state, which it does once the job has finished
+     */
+    private ExportJob awaitStatus(String jobId, ExportJob.Status status) {
+        verify(jobRepository, timeout(5000).atLeastOnce())
+                .save(argThat(job -> job.getId().equals(jobId) && job.getStatus() == status));
+        return jobs.get(jobId);
+    }
+}
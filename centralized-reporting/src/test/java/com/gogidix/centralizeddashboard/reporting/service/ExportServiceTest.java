@@ -0,0 +1,86 @@
+package com.gogidix.centralizeddashboard.reporting.service;
+
+import com.gogidix.centralizeddashboard.reporting.dto.ExportRequest;
+import com.gogidix.centralizeddashboard.reporting.dto.ExportResponse;
+import com.gogidix.centralizeddashboard.reporting.dto.ReportData;
+import com.gogidix.centralizeddashboard.reporting.exception.ExportException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTest {
+
+    private static final int EXPORT_SIZE = 512 * 1024;
+
+    @Mock
+    private DataFetchService dataFetchService;
+
+    @Mock
+    private ReportExportEngine exportEngine;
+
+    @Mock
+    private ExportJobService exportJobService;
+
+    private final RecordingFileStorageService fileStorageService = new RecordingFileStorageService();
+    private final ReportData reportData = ReportData.builder().reportName("Sales").build();
+    private final ExportRequest exportRequest = ExportRequest.builder().reportType("sales").format("csv").build();
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new ExportService(dataFetchService, fileStorageService, exportEngine, exportJobService);
+        when(dataFetchService.fetchReportData(exportRequest)).thenReturn(reportData);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fileStorageService.shutdown();
+    }
+
+    @Test
+    void exportReport_ShouldStoreTheExportWhileItIsWritten() throws Exception {
+        // Given
+        when(exportEngine.write(eq(reportData), eq(ReportExportFormat.CSV), any(OutputStream.class))).thenAnswer(invocation -> {
+            invocation.getArgument(2, OutputStream.class).write(new byte[EXPORT_SIZE]);
+            return (long) EXPORT_SIZE;
+        });
+
+        // When
+        ExportResponse response = exportService.exportReport(exportRequest);
+
+        // Then
+        assertEquals(EXPORT_SIZE, response.getFileSize());
+        assertTrue(response.getDownloadUrl().endsWith(response.getFilename()));
+        assertEquals(List.of(EXPORT_SIZE), fileStorageService.awaitStoredSizes());
+    }
+
+    @Test
+    void exportReport_WhenExportFailsHalfway_ShouldStoreNothing() throws Exception {
+        // Given
+        IOException failure = new IOException("Result set closed");
+        when(exportEngine.write(eq(reportData), eq(ReportExportFormat.CSV), any(OutputStream.class))).thenAnswer(invocation -> {
+            invocation.getArgument(2, OutputStream.class).write(new byte[EXPORT_SIZE / 2]);
+            throw failure;
+        });
+
+        // When
+        ExportException thrown = assertThrows(ExportException.class, () -> exportService.exportReport(exportRequest));
+
+        // Then
+        assertSame(failure, thrown.getCause());
+        assertTrue(fileStorageService.awaitStoredSizes().isEmpty(), "A truncated export was stored");
+    }
+}
@@ -0,0 +1,68 @@
+package com.gogidix.centralizeddashboard.reporting.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileStorageServiceTest {
+
+    /**
+     * Several times the pipe buffer, so the writer blocks on the storage while it writes
+     */
+    private static final int CONTENT_SIZE = 512 * 1024;
+
+    private final RecordingFileStorageService fileStorageService = new RecordingFileStorageService();
+
+    @AfterEach
+    void tearDown() {
+        fileStorageService.shutdown();
+    }
+
+    @Test
+    void storeFile_ShouldStoreTheWholeContentWrittenThroughThePipe() throws Exception {
+        // When
+        String url = fileStorageService.storeFile("report.csv", "text/csv", output -> {
+            for (int i = 0; i < CONTENT_SIZE; i++) {
+                output.write('a');
+            }
+        });
+
+        // Then
+        assertEquals("https://storage.example.com/reports/report.csv", url);
+        assertEquals(List.of(CONTENT_SIZE), fileStorageService.awaitStoredSizes());
+    }
+
+    @Test
+    void storeFile_WhenWriterThrowsHalfway_ShouldStoreNothing() throws Exception {
+        // Given
+        IOException failure = new IOException("Database connection lost");
+
+        // When
+        IOException thrown = assertThrows(IOException.class, () ->
+                fileStorageService.storeFile("report.csv", "text/csv", output -> {
+                    output.write(new byte[CONTENT_SIZE / 2]);
+                    throw failure;
+                }));
+
+        // Then
+        assertSame(failure, thrown);
+        assertTrue(fileStorageService.awaitStoredSizes().isEmpty(), "A truncated file was stored");
+    }
+
+    @Test
+    void storeFile_WhenWriterThrowsRuntimeExceptionHalfway_ShouldStoreNothing() throws Exception {
+        // When
+        assertThrows(IllegalStateException.class, () ->
+                fileStorageService.storeFile("report.csv", "text/csv", output -> {
+                    output.write(new byte[CONTENT_SIZE / 2]);
+                    throw new IllegalStateException("Unsupported value");
+                }));
+
+        // Then
+        assertTrue(fileStorageService.awaitStoredSizes().isEmpty(), "A truncated file was stored");
+    }
+}
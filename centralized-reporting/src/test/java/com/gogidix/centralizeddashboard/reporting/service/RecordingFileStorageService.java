@@ -0,0 +1,39 @@
+package com.gogidix.centralizeddashboard.reporting.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File storage recording the size of every file read to its end, for one stored file
+ */
+class RecordingFileStorageService extends FileStorageService {
+
+    private final List<Integer> storedSizes = new CopyOnWriteArrayList<>();
+    private final CountDownLatch storageEnded = new CountDownLatch(1);
+
+    @Override
+    public String storeFile(String fileName, String contentType, InputStream inputStream) throws IOException {
+        try {
+            int size = inputStream.readAllBytes().length;
+            storedSizes.add(size);
+            return "https://storage.example.com/reports/" + fileName;
+        } finally {
+            storageEnded.countDown();
+        }
+    }
+
+    /**
+     * Waits for the storage to succeed or fail
+     * @return The sizes of the stored files
+     */
+    List<Integer> awaitStoredSizes() throws InterruptedException {
+        if (!storageEnded.await(5, TimeUnit.SECONDS)) {
+            throw new AssertionError("The storage did not end");
+        }
+        return storedSizes;
+    }
+}
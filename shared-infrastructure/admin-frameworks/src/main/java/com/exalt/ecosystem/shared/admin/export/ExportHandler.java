@@ -1,8 +1,11 @@
 package com.gogidix.ecosystem.shared.admin.export;
 
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Interface for handling specific export formats.
@@ -19,6 +22,42 @@ public interface ExportHandler<T> {
      * @param options Additional export options
      */
     void export(List<T> data, OutputStream outputStream, Map<String, Object> options) throws ExportException;
+
+    /**
+     * Export data read one item at a time, for exports too large to hold in memory.
+     * Handlers that write items as they are read override this method; by default the items are
+     * collected into a list first.
+     *
+     * @param data The data to export
+     * @param outputStream The output stream to write to
+     * @param options Additional export options
+     */
+    default void exportIterator(Iterator<T> data, OutputStream outputStream, Map<String, Object> options)
+            throws ExportException {
+        List<T> items = new ArrayList<>();
+        if (data != null) {
+            data.forEachRemaining(items::add);
+        }
+        export(items, outputStream, options);
+    }
+
+    /**
+     * Export data read one item at a time from a stream, which is closed afterwards.
+     *
+     * @param data The data to export
+     * @param outputStream The output stream to write to
+     * @param options Additional export options
+     */
+    default void exportStream(Stream<T> data, OutputStream outputStream, Map<String, Object> options)
+            throws ExportException {
+        if (data == null) {
+            exportIterator(null, outputStream, options);
+            return;
+        }
+        try (Stream<T> items = data) {
+            exportIterator(items.iterator(), outputStream, options);
+        }
+    }
     
     /**
      * Get the format this handler supports.
@@ -3,6 +3,7 @@ package com.gogidix.ecosystem.shared.admin.export;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Service interface for exporting data in various formats.
@@ -18,6 +19,18 @@ public interface ExportService {
      * @param options Additional export options
      */
     <T> void exportData(List<T> data, ExportFormat format, OutputStream outputStream, Map<String, Object> options);
+
+    /**
+     * Export data read one item at a time, such as the results of a streaming query.
+     * CSV, Excel and JSON exports are written as the items are read, so memory use does not grow
+     * with the number of items. The stream is closed afterwards.
+     *
+     * @param data The data to export
+     * @param format The export format (e.g., CSV, EXCEL, PDF)
+     * @param outputStream The output stream to write the exported data to
+     * @param options Additional export options
+     */
+    <T> void exportStream(Stream<T> data, ExportFormat format, OutputStream outputStream, Map<String, Object> options);
     
     /**
      * Export data with a custom template.
@@ -15,6 +15,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * Default implementation of the ExportService.
@@ -79,6 +80,28 @@ public class ExportServiceImpl implements ExportService {
         }
     }
 
+    @Override
+    public <T> void exportStream(Stream<T> data, ExportFormat format, OutputStream outputStream, Map<String, Object> options) {
+        Objects.requireNonNull(data, "Data cannot be null");
+        Objects.requireNonNull(format, "Format cannot be null");
+        Objects.requireNonNull(outputStream, "Output stream cannot be null");
+        
+        ExportHandler handler = handlers.get(format);
+        if (handler == null) {
+            data.close();
+            throw new UnsupportedOperationException("Export format not supported: " + format);
+        }
+        
+        try {
+            log.debug("Streaming export as {}", format);
+            handler.exportStream(data, outputStream, options != null ? options : Collections.emptyMap());
+            log.debug("Successfully streamed export as {}", format);
+        } catch (Exception e) {
+            log.error("Error exporting data as " + format, e);
+            throw new ExportException("Failed to export data: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public <T> void exportWithTemplate(List<T> data, String templateName, OutputStream outputStream, Map<String, Object> options) {
         Objects.requireNonNull(data, "Data cannot be null");
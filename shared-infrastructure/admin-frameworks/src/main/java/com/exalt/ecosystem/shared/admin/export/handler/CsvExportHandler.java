@@ -13,8 +13,8 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -33,39 +33,43 @@ public class CsvExportHandler<T> implements ExportHandler<T> {
             return;
         }
         
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
-             CSVPrinter csvPrinter = new CSVPrinter(writer, getCsvFormat(options))) {
+        exportIterator(data.iterator(), outputStream, options);
+    }
+    
+    /**
+     * Writes each item as soon as it is read. The columns are resolved from the first item.
+     * The output stream is flushed but not closed.
+     */
+    @Override
+    public void exportIterator(Iterator<T> data, OutputStream outputStream, Map<String, Object> options)
+            throws ExportException {
+        if (data == null || !data.hasNext()) {
+            log.warn("No data provided for CSV export");
+            return;
+        }
+        
+        try {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            CSVPrinter csvPrinter = new CSVPrinter(writer, getCsvFormat(options));
             
             // Get headers from the first item's fields
-            if (!data.isEmpty()) {
-                T firstItem = data.get(0);
-                Field[] fields = firstItem.getClass().getDeclaredFields();
-                
-                // Print headers
-                String[] headers = new String[fields.length];
-                for (int i = 0; i < fields.length; i++) {
-                    fields[i].setAccessible(true);
-                    headers[i] = fields[i].getName();
-                }
-                csvPrinter.printRecord((Object[]) headers);
-                
-                // Print data rows
-                for (T item : data) {
-                    Object[] row = new Object[fields.length];
-                    for (int i = 0; i < fields.length; i++) {
-                        try {
-                            row[i] = fields[i].get(item);
-                        } catch (IllegalAccessException e) {
-                            row[i] = "";
-                            log.warn("Could not access field: " + fields[i].getName(), e);
-                        }
-                    }
-                    csvPrinter.printRecord(row);
-                }
+            T firstItem = data.next();
+            ExportColumns columns = ExportColumns.of(firstItem);
+            csvPrinter.printRecord(columns.getNames());
+            
+            // Print data rows
+            Object[] row = new Object[columns.size()];
+            columns.readValues(firstItem, row);
+            csvPrinter.printRecord(row);
+            long count = 1;
+            while (data.hasNext()) {
+                columns.readValues(data.next(), row);
+                csvPrinter.printRecord(row);
+                count++;
             }
             
             csvPrinter.flush();
-            log.info("Exported {} items to CSV format", data.size());
+            log.info("Exported {} items to CSV format", count);
             
         } catch (IOException e) {
             throw new ExportException("Error writing CSV data", e);
@@ -0,0 +1,114 @@
+package com.gogidix.ecosystem.shared.admin.export.handler;
+
+import com.gogidix.ecosystem.shared.admin.export.service.PropertyAccessors;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The columns of a tabular export, with an accessor per column.
+ * For objects, the columns are the instance fields of the class, inherited fields first, read through their
+ * getters or else directly. They are resolved once per class, so writing a row does not use reflection.
+ * For maps, such as data processed with a template, the columns are the keys of the first item.
+ */
+public final class ExportColumns {
+
+    private static final ClassValue<ExportColumns> COLUMNS_BY_CLASS = new ClassValue<>() {
+        @Override
+        protected ExportColumns computeValue(Class<?> type) {
+            return forClass(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final List<String> names;
+    private final List<Function<Object, Object>> accessors;
+
+    private ExportColumns(Class<?> type, List<String> names, List<Function<Object, Object>> accessors) {
+        this.type = type;
+        this.names = Collections.unmodifiableList(names);
+        this.accessors = List.copyOf(accessors);
+    }
+
+    /**
+     * Get the columns for the items of an export.
+     *
+     * @param firstItem The first item of the export
+     * @return The columns
+     */
+    public static ExportColumns of(Object firstItem) {
+        if (firstItem instanceof Map) {
+            return forMap((Map<?, ?>) firstItem);
+        }
+        return COLUMNS_BY_CLASS.get(firstItem.getClass());
+    }
+
+    /**
+     * Get the column names.
+     *
+     * @return the names, in column order
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Get the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Read the values of an item into a row. Items the columns do not apply to get empty values.
+     *
+     * @param item The item to read
+     * @param row The array to fill, with at least one element per column
+     */
+    public void readValues(Object item, Object[] row) {
+        boolean applies = type.isInstance(item);
+        for (int i = 0; i < accessors.size(); i++) {
+            Function<Object, Object> accessor = accessors.get(i);
+            row[i] = applies && accessor != null ? accessor.apply(item) : null;
+        }
+    }
+
+    private static ExportColumns forClass(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            List<Field> declared = new ArrayList<>();
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                    declared.add(field);
+                }
+            }
+            fields.addAll(0, declared);
+        }
+
+        List<String> names = new ArrayList<>(fields.size());
+        List<Function<Object, Object>> accessors = new ArrayList<>(fields.size());
+        for (Field field : fields) {
+            Function<Object, Object> accessor = PropertyAccessors.forProperty(type, field.getName());
+            names.add(field.getName());
+            accessors.add(accessor != null ? accessor : PropertyAccessors.forField(field));
+        }
+        return new ExportColumns(type, names, accessors);
+    }
+
+    private static ExportColumns forMap(Map<?, ?> firstItem) {
+        List<String> names = new ArrayList<>(firstItem.size());
+        List<Function<Object, Object>> accessors = new ArrayList<>(firstItem.size());
+        for (Object key : firstItem.keySet()) {
+            names.add(String.valueOf(key));
+            accessors.add(item -> ((Map<?, ?>) item).get(key));
+        }
+        return new ExportColumns(Map.class, names, accessors);
+    }
+}
@@ -1,7 +1,9 @@
 package com.gogidix.ecosystem.shared.admin.export.handler;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.gogidix.ecosystem.shared.admin.export.ExportException;
@@ -11,11 +13,14 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Export handler for JSON format.
+ * Items are written to a streaming JSON generator one at a time, so the output is never held in memory.
  */
 @Component
 public class JsonExportHandler<T> implements ExportHandler<T> {
@@ -26,26 +31,31 @@ public class JsonExportHandler<T> implements ExportHandler<T> {
         this.objectMapper = new ObjectMapper()
                 .registerModule(new JavaTimeModule())
                 .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
-                .enable(SerializationFeature.INDENT_OUTPUT);
+                .configure(SerializationFeature.FLUSH_AFTER_WRITE_VALUE, false)
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
     }
 
     @Override
     public void export(List<T> data, OutputStream outputStream, Map<String, Object> options) throws ExportException {
-        try {
-            if (data == null || data.isEmpty()) {
-                outputStream.write("[]".getBytes());
-                return;
-            }
+        exportIterator(data != null ? data.iterator() : Collections.emptyIterator(), outputStream, options);
+    }
+
+    /**
+     * Writes the items as a JSON array, each item as soon as it is read.
+     * The output stream is flushed but not closed.
+     */
+    @Override
+    public void exportIterator(Iterator<T> data, OutputStream outputStream, Map<String, Object> options)
+            throws ExportException {
+        boolean prettyPrint = options != null && Boolean.TRUE.equals(options.get("prettyPrint"));
+        ObjectWriter writer = prettyPrint ? objectMapper.writerWithDefaultPrettyPrinter() : objectMapper.writer();
 
-            boolean prettyPrint = options != null && Boolean.TRUE.equals(options.get("prettyPrint"));
-            
-            if (prettyPrint) {
-                objectMapper.writerWithDefaultPrettyPrinter().writeValue(outputStream, data);
-            } else {
-                objectMapper.writeValue(outputStream, data);
+        try (JsonGenerator generator = writer.createGenerator(outputStream)) {
+            generator.writeStartArray();
+            while (data != null && data.hasNext()) {
+                writer.writeValue(generator, data.next());
             }
-            
-            outputStream.flush();
+            generator.writeEndArray();
         } catch (JsonProcessingException e) {
             throw new ExportException("Error converting data to JSON", e);
         } catch (IOException e) {
@@ -3,23 +3,36 @@ package com.gogidix.ecosystem.shared.admin.export.handler.excel;
 import com.gogidix.ecosystem.shared.admin.export.ExportException;
 import com.gogidix.ecosystem.shared.admin.export.ExportFormat;
 import com.gogidix.ecosystem.shared.admin.export.ExportHandler;
+import com.gogidix.ecosystem.shared.admin.export.handler.ExportColumns;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.stream.IntStream;
 
 /**
  * Excel (XLSX) export handler implementation.
+ * The workbook is written through a streaming workbook that keeps only a window of rows in memory and
+ * flushes older rows to a temporary file, so memory use does not grow with the number of rows.
+ * Rows beyond the maximum of a sheet continue on a new sheet.
+ * <p>
+ * Besides sheetName, includeHeader and dateFormat, the options accept:
+ * <ul>
+ *   <li>rowAccessWindowSize - rows kept in memory, 100 by default</li>
+ *   <li>compressTempFiles - whether to compress the temporary files, true by default</li>
+ *   <li>useSharedStrings - whether to store repeated strings once, which makes files with many repeated
+ *       values smaller but keeps all distinct strings in memory, false by default</li>
+ *   <li>autoSizeColumns - whether to size columns to their content, which measures every cell written,
+ *       false by default</li>
+ * </ul>
  */
 @Component
 public class ExcelExportHandler<T> implements ExportHandler<T> {
@@ -28,6 +41,7 @@ public class ExcelExportHandler<T> implements ExportHandler<T> {
     private static final String DEFAULT_SHEET_NAME = "Export";
     private static final String DEFAULT_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
     private static final int DEFAULT_COLUMN_WIDTH = 20;
+    private static final int DEFAULT_ROW_ACCESS_WINDOW_SIZE = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
 
     @Override
     public void export(List<T> data, OutputStream outputStream, Map<String, Object> options) throws ExportException {
@@ -36,125 +50,132 @@ public class ExcelExportHandler<T> implements ExportHandler<T> {
             return;
         }
 
-        try (Workbook workbook = new XSSFWorkbook()) {
-            // Get export options or use defaults
-            String sheetName = getOptionAsString(options, "sheetName", DEFAULT_SHEET_NAME);
-            boolean includeHeader = getOptionAsBoolean(options, "includeHeader", true);
-            String dateFormat = getOptionAsString(options, "dateFormat", DEFAULT_DATE_FORMAT);
-            
-            // Create sheet
-            Sheet sheet = workbook.createSheet(sheetName);
-            
+        exportIterator(data.iterator(), outputStream, options);
+    }
+
+    /**
+     * Writes each item as soon as it is read. The columns are resolved from the first item.
+     */
+    @Override
+    public void exportIterator(Iterator<T> data, OutputStream outputStream, Map<String, Object> options)
+            throws ExportException {
+        if (data == null || !data.hasNext()) {
+            log.warn("No data provided for Excel export");
+            return;
+        }
+
+        // Get export options or use defaults
+        String sheetName = getOptionAsString(options, "sheetName", DEFAULT_SHEET_NAME);
+        boolean includeHeader = getOptionAsBoolean(options, "includeHeader", true);
+        String dateFormat = getOptionAsString(options, "dateFormat", DEFAULT_DATE_FORMAT);
+        int windowSize = getOptionAsInt(options, "rowAccessWindowSize", DEFAULT_ROW_ACCESS_WINDOW_SIZE);
+        boolean compressTempFiles = getOptionAsBoolean(options, "compressTempFiles", true);
+        boolean useSharedStrings = getOptionAsBoolean(options, "useSharedStrings", false);
+        boolean autoSizeColumns = getOptionAsBoolean(options, "autoSizeColumns", false);
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, windowSize, compressTempFiles, useSharedStrings);
+        try {
             // Get all fields from the first data item
-            T firstItem = data.get(0);
-            List<Field> fields = getAllFields(firstItem.getClass());
-            List<Method> getters = getGetters(firstItem.getClass(), fields);
-            
-            // Create header row if needed
-            int rowIndex = 0;
-            if (includeHeader) {
-                Row headerRow = sheet.createRow(rowIndex++);
-                createHeaderRow(headerRow, fields, workbook);
-            }
-            
-            // Create data rows
+            T firstItem = data.next();
+            ExportColumns columns = ExportColumns.of(firstItem);
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            CellStyle dateCellStyle = createDateCellStyle(workbook, dateFormat);
             SimpleDateFormat sdf = new SimpleDateFormat(dateFormat);
-            for (T item : data) {
-                Row row = sheet.createRow(rowIndex++);
-                createDataRow(row, item, fields, getters, sdf, workbook);
-            }
-            
-            // Auto-size columns
-            IntStream.range(0, fields.size())
-                    .forEach(sheet::autoSizeColumn);
-            
-            // Set default column width
-            for (int i = 0; i < fields.size(); i++) {
-                int width = sheet.getColumnWidth(i);
-                sheet.setColumnWidth(i, Math.max(width, DEFAULT_COLUMN_WIDTH * 256)); // Convert to 1/256th of a character
+            int maxRows = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+            // Create data rows, starting a new sheet when one is full
+            Object[] values = new Object[columns.size()];
+            SXSSFSheet sheet = null;
+            int rowIndex = maxRows;
+            long count = 0;
+            for (; count == 0 || data.hasNext(); count++) {
+                T item = count == 0 ? firstItem : data.next();
+                if (rowIndex >= maxRows) {
+                    if (sheet != null) {
+                        finishSheet(sheet, columns.size(), autoSizeColumns);
+                    }
+                    sheet = createSheet(workbook, sheetName, columns, autoSizeColumns);
+                    rowIndex = 0;
+                    if (includeHeader) {
+                        createHeaderRow(sheet.createRow(rowIndex++), columns, headerStyle);
+                    }
+                }
+
+                columns.readValues(item, values);
+                createDataRow(sheet.createRow(rowIndex++), values, columns, dateCellStyle, sdf);
             }
-            
+            finishSheet(sheet, columns.size(), autoSizeColumns);
+
             // Write to output stream
             workbook.write(outputStream);
-            log.info("Exported {} items to Excel format", data.size());
-            
-        } catch (IOException | IllegalAccessException | InvocationTargetException e) {
+            log.info("Exported {} items to Excel format", count);
+
+        } catch (IOException e) {
             throw new ExportException("Error generating Excel file", e);
+        } finally {
+            workbook.dispose();
+            try {
+                workbook.close();
+            } catch (IOException e) {
+                log.warn("Error closing Excel workbook", e);
+            }
         }
     }
-    
+
     @Override
     public ExportFormat getFormat() {
         return ExportFormat.EXCEL_XLSX;
     }
-    
-    private List<Field> getAllFields(Class<?> clazz) {
-        List<Field> fields = new ArrayList<>();
-        Class<?> currentClass = clazz;
-        
-        // Get all fields including inherited ones
-        while (currentClass != null && currentClass != Object.class) {
-            fields.addAll(0, Arrays.asList(currentClass.getDeclaredFields()));
-            currentClass = currentClass.getSuperclass();
+
+    private SXSSFSheet createSheet(SXSSFWorkbook workbook, String sheetName, ExportColumns columns,
+                                   boolean autoSizeColumns) {
+        int sheetNumber = workbook.getNumberOfSheets() + 1;
+        String name = sheetNumber == 1 ? sheetName : sheetName + " (" + sheetNumber + ")";
+        SXSSFSheet sheet = workbook.createSheet(WorkbookUtil.createSafeSheetName(name));
+        if (autoSizeColumns) {
+            sheet.trackAllColumnsForAutoSizing();
         }
-        
-        return fields;
+        for (int i = 0; i < columns.size(); i++) {
+            sheet.setColumnWidth(i, DEFAULT_COLUMN_WIDTH * 256); // Convert to 1/256th of a character
+        }
+        return sheet;
     }
-    
-    private List<Method> getGetters(Class<?> clazz, List<Field> fields) {
-        return fields.stream()
-                .map(field -> {
-                    String getterName = "get" + field.getName().substring(0, 1).toUpperCase() + 
-                                       field.getName().substring(1);
-                    try {
-                        return clazz.getMethod(getterName);
-                    } catch (NoSuchMethodException e) {
-                        // Try with 'is' prefix for boolean fields
-                        if (field.getType() == boolean.class || field.getType() == Boolean.class) {
-                            try {
-                                return clazz.getMethod("is" + field.getName().substring(0, 1).toUpperCase() + 
-                                                    field.getName().substring(1));
-                            } catch (NoSuchMethodException ex) {
-                                return null;
-                            }
-                        }
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull)
-                .toList();
+
+    private void finishSheet(SXSSFSheet sheet, int columnCount, boolean autoSizeColumns) {
+        if (!autoSizeColumns) {
+            return;
+        }
+
+        // Auto-size columns, keeping the default width as minimum
+        for (int i = 0; i < columnCount; i++) {
+            sheet.autoSizeColumn(i);
+            sheet.setColumnWidth(i, Math.max(sheet.getColumnWidth(i), DEFAULT_COLUMN_WIDTH * 256));
+        }
     }
-    
-    private void createHeaderRow(Row headerRow, List<Field> fields, Workbook workbook) {
-        CellStyle headerStyle = createHeaderStyle(workbook);
-        
-        for (int i = 0; i < fields.size(); i++) {
+
+    private void createHeaderRow(Row headerRow, ExportColumns columns, CellStyle headerStyle) {
+        List<String> names = columns.getNames();
+        for (int i = 0; i < names.size(); i++) {
             Cell cell = headerRow.createCell(i);
-            cell.setCellValue(fields.get(i).getName());
+            cell.setCellValue(names.get(i));
             cell.setCellStyle(headerStyle);
         }
     }
-    
-    private void createDataRow(Row row, T item, List<Field> fields, List<Method> getters, 
-                              SimpleDateFormat dateFormat, Workbook workbook) 
-            throws IllegalAccessException, InvocationTargetException {
-            
-        CellStyle dateCellStyle = createDateCellStyle(workbook, dateFormat.toPattern());
-        
-        for (int i = 0; i < fields.size(); i++) {
-            Field field = fields.get(i);
+
+    private void createDataRow(Row row, Object[] values, ExportColumns columns, CellStyle dateCellStyle,
+                               SimpleDateFormat dateFormat) {
+        for (int i = 0; i < columns.size(); i++) {
             Cell cell = row.createCell(i);
-            
+
             try {
-                Object value = getters.get(i).invoke(item);
-                setCellValue(cell, value, dateCellStyle, dateFormat);
+                setCellValue(cell, values[i], dateCellStyle, dateFormat);
             } catch (Exception e) {
-                log.warn("Error setting value for field: " + field.getName(), e);
+                log.warn("Error setting value for field: " + columns.getNames().get(i), e);
                 cell.setCellValue("");
             }
         }
     }
-    
+
     private void setCellValue(Cell cell, Object value, CellStyle dateCellStyle, SimpleDateFormat dateFormat) {
         if (value == null) {
             cell.setCellValue("");
@@ -172,7 +193,7 @@ public class ExcelExportHandler<T> implements ExportHandler<T> {
             cell.setCellValue(value.toString());
         }
     }
-    
+
     private CellStyle createHeaderStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         Font font = workbook.createFont();
@@ -186,26 +207,34 @@ public class ExcelExportHandler<T> implements ExportHandler<T> {
         style.setBorderLeft(BorderStyle.THIN);
         return style;
     }
-    
+
     private CellStyle createDateCellStyle(Workbook workbook, String dateFormat) {
         CellStyle style = workbook.createCellStyle();
         CreationHelper createHelper = workbook.getCreationHelper();
         style.setDataFormat(createHelper.createDataFormat().getFormat(dateFormat));
         return style;
     }
-    
+
     @SuppressWarnings("unchecked")
     private <V> V getOption(Map<String, Object> options, String key, V defaultValue) {
-        return options != null && options.containsKey(key) 
-                ? (V) options.get(key) 
+        return options != null && options.containsKey(key)
+                ? (V) options.get(key)
                 : defaultValue;
     }
-    
+
     private String getOptionAsString(Map<String, Object> options, String key, String defaultValue) {
         return getOption(options, key, defaultValue);
     }
-    
+
     private boolean getOptionAsBoolean(Map<String, Object> options, String key, boolean defaultValue) {
         return getOption(options, key, defaultValue);
     }
+
+    private int getOptionAsInt(Map<String, Object> options, String key, int defaultValue) {
+        Object value = getOption(options, key, null);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return value != null ? Integer.parseInt(value.toString()) : defaultValue;
+    }
 }
@@ -0,0 +1,127 @@
+package com.gogidix.ecosystem.shared.admin.export.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * An export template prepared for one item class.
+ * Expressions are parsed and compiled and property accessors are resolved once, when the template is
+ * compiled, so processing an item only reads its values. Instances are immutable and thread-safe.
+ */
+@Slf4j
+final class CompiledTemplate {
+
+    private static final SpelExpressionParser INTERPRETING_PARSER = new SpelExpressionParser();
+
+    private final List<CompiledField> fields;
+
+    CompiledTemplate(List<CompiledField> fields) {
+        this.fields = List.copyOf(fields);
+    }
+
+    /**
+     * Process a single data item.
+     *
+     * @param item The item to process
+     * @param context The evaluation context for template expressions
+     * @return The values of the visible fields, keyed by target field
+     */
+    Map<String, Object> apply(Object item, EvaluationContext context) {
+        Map<String, Object> result = new LinkedHashMap<>((int) (fields.size() / 0.75f) + 1);
+        for (CompiledField field : fields) {
+            Object value;
+            try {
+                value = field.reader.read(item, context);
+                if (field.formatter != null && value != null) {
+                    value = field.formatter.apply(value);
+                }
+            } catch (Exception e) {
+                log.warn("Error processing field {}: {}", field.sourceField, e.getMessage());
+                value = null;
+            }
+            result.put(field.targetField, value);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the value of a field from an item.
+     */
+    @FunctionalInterface
+    interface ValueReader {
+
+        Object read(Object item, EvaluationContext context);
+
+        /**
+         * Read a property through an accessor.
+         */
+        static ValueReader property(Function<Object, Object> accessor) {
+            return (item, context) -> accessor.apply(item);
+        }
+
+        /**
+         * Evaluate an expression with the item as root object.
+         */
+        static ValueReader expression(Expression expression) {
+            return new ExpressionReader(expression);
+        }
+    }
+
+    /**
+     * Evaluates a compiled expression. If its compiled code fails, for example because a value has an
+     * unexpected type, the expression is evaluated interpreted from then on.
+     */
+    private static final class ExpressionReader implements ValueReader {
+
+        private volatile Expression expression;
+
+        ExpressionReader(Expression expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        public Object read(Object item, EvaluationContext context) {
+            Expression current = expression;
+            try {
+                return current.getValue(context, item);
+            } catch (SpelEvaluationException e) {
+                if (e.getMessageCode() != SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION) {
+                    throw e;
+                }
+                log.debug("Compiled expression {} failed, interpreting it instead: {}",
+                        current.getExpressionString(), e.getMessage());
+                Expression interpreted = INTERPRETING_PARSER.parseExpression(current.getExpressionString());
+                expression = interpreted;
+                return interpreted.getValue(context, item);
+            }
+        }
+    }
+
+    /**
+     * A visible field of the template.
+     */
+    static final class CompiledField {
+
+        private final String sourceField;
+        private final String targetField;
+        private final ValueReader reader;
+        private final UnaryOperator<Object> formatter;
+
+        CompiledField(String sourceField, String targetField, ValueReader reader, UnaryOperator<Object> formatter) {
+            this.sourceField = sourceField;
+            this.targetField = targetField;
+            this.reader = reader;
+            this.formatter = formatter;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.gogidix.ecosystem.shared.admin.export.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Creates fast accessors for the properties of export items.
+ * Getters are bound to generated lambdas, so reading a property costs about as much as calling the getter
+ * directly. Where a lambda cannot be generated, for example for a class in another class loader,
+ * the accessor falls back to a method handle.
+ */
+@Slf4j
+public final class PropertyAccessors {
+
+    private static final MethodType FUNCTION_TYPE = MethodType.methodType(Function.class);
+    private static final MethodType APPLY_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private PropertyAccessors() {
+    }
+
+    /**
+     * Create an accessor for a property of the given type.
+     *
+     * @param type The class of the items
+     * @param property The property name
+     * @return The accessor, or null if the type has no such readable property
+     */
+    public static Function<Object, Object> forProperty(Class<?> type, String property) {
+        if (Map.class.isAssignableFrom(type)) {
+            return item -> ((Map<?, ?>) item).get(property);
+        }
+
+        Member member = findGetter(type, property);
+        if (member == null) {
+            member = findField(type, property);
+        }
+        return member != null ? forMember(member) : null;
+    }
+
+    /**
+     * Create an accessor reading a field directly, including private fields.
+     *
+     * @param field The field to read
+     * @return The accessor, or null if the field is not accessible
+     */
+    public static Function<Object, Object> forField(Field field) {
+        return forMember(field);
+    }
+
+    /**
+     * Create an accessor calling a getter without arguments or reading a field, including private members.
+     *
+     * @param member The getter or field to read
+     * @return The accessor, or null if the member is not accessible
+     */
+    public static Function<Object, Object> forMember(Member member) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(member.getDeclaringClass(),
+                    MethodHandles.lookup());
+            if (member instanceof Method) {
+                MethodHandle getter = lookup.unreflect((Method) member);
+                Function<Object, Object> accessor = generateLambda(lookup, getter);
+                return accessor != null ? accessor : invoking(getter);
+            }
+            return invoking(lookup.unreflectGetter((Field) member));
+        } catch (IllegalAccessException e) {
+            log.debug("{} {} of {} is not accessible: {}", member instanceof Method ? "Getter" : "Field",
+                    member.getName(), member.getDeclaringClass().getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Generate a lambda calling the getter, or return null if the lookup does not allow defining one.
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> generateLambda(MethodHandles.Lookup lookup, MethodHandle getter) {
+        try {
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply", FUNCTION_TYPE, APPLY_TYPE,
+                    getter, getter.type().wrap());
+            return (Function<Object, Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            log.debug("Falling back to a method handle for {}: {}", getter, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Function<Object, Object> invoking(MethodHandle getter) {
+        MethodHandle handle = getter.asType(APPLY_TYPE);
+        return item -> {
+            try {
+                return handle.invokeExact(item);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * Find a public getter, such as getName(), isActive() or a record accessor name().
+     */
+    private static Method findGetter(Class<?> type, String property) {
+        if (property.isEmpty()) {
+            return null;
+        }
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        String booleanGetter = "is" + suffix;
+        for (String name : new String[]{"get" + suffix, booleanGetter, property}) {
+            try {
+                Method method = type.getMethod(name);
+                Class<?> returnType = method.getReturnType();
+                if (returnType == void.class || Modifier.isStatic(method.getModifiers())
+                        || method.getDeclaringClass() == Object.class) {
+                    continue;
+                }
+                if (name.equals(booleanGetter) && returnType != boolean.class && returnType != Boolean.class) {
+                    continue;
+                }
+                return method;
+            } catch (NoSuchMethodException e) {
+                // Try the next naming convention
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> type, String property) {
+        try {
+            Field field = type.getField(property);
+            return Modifier.isStatic(field.getModifiers()) ? null : field;
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+}
@@ -1,30 +1,47 @@
 package com.gogidix.ecosystem.shared.admin.export.service;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.BeanDescription;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
 import com.gogidix.ecosystem.shared.admin.export.model.ExportTemplate;
 import com.gogidix.ecosystem.shared.admin.export.exception.TemplateException;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Processes data according to export templates.
+ * Each template is compiled once per item class into a {@link CompiledTemplate}: expressions are parsed and
+ * compiled to bytecode, and simple fields are read through generated property accessors. Fields are the
+ * properties the object mapper would serialize, and their values are converted as in JSON.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class TemplateProcessor {
 
+    private static final int MAX_COMPILED_TEMPLATES = 1024;
+
     private final ObjectMapper objectMapper;
-    private final ExpressionParser expressionParser = new SpelExpressionParser();
+    private final ExpressionParser expressionParser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, null));
+    private final Map<TemplateKey, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<>();
 
     /**
      * Process data according to the specified template.
@@ -39,58 +56,137 @@ public class TemplateProcessor {
             return Collections.emptyList();
         }
 
-        return data.stream()
-                .map(item -> processItem(item, template))
-                .collect(Collectors.toList());
+        List<List<Object>> fingerprint = fingerprint(template);
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        List<Map<String, Object>> result = new ArrayList<>(data.size());
+        Class<?> compiledFor = null;
+        CompiledTemplate compiled = null;
+
+        for (T item : data) {
+            Class<?> itemClass = item != null ? item.getClass() : Object.class;
+            if (itemClass != compiledFor) {
+                compiledFor = itemClass;
+                compiled = getCompiledTemplate(template, fingerprint, compiledFor);
+            }
+            result.add(compiled.apply(item, context));
+        }
+        return result;
     }
 
     /**
-     * Process a single data item according to the template.
+     * Drop all compiled templates, for example after templates were changed without updating their timestamp.
      */
-    private <T> Map<String, Object> processItem(T item, ExportTemplate template) {
-        Map<String, Object> result = new LinkedHashMap<>();
-        StandardEvaluationContext context = new StandardEvaluationContext(item);
+    public void clearCompiledTemplates() {
+        compiledTemplates.clear();
+    }
+
+    private CompiledTemplate getCompiledTemplate(ExportTemplate template, List<List<Object>> fingerprint,
+                                                 Class<?> itemClass) {
+        TemplateKey key = new TemplateKey(template.getId(), fingerprint, itemClass);
+        CompiledTemplate compiled = compiledTemplates.get(key);
+        if (compiled == null) {
+            if (compiledTemplates.size() >= MAX_COMPILED_TEMPLATES) {
+                compiledTemplates.clear();
+            }
+            compiled = compiledTemplates.computeIfAbsent(key, k -> compileTemplate(template, itemClass));
+        }
+        return compiled;
+    }
 
+    /**
+     * Compile the visible fields of a template for an item class.
+     */
+    private CompiledTemplate compileTemplate(ExportTemplate template, Class<?> itemClass) {
+        List<CompiledTemplate.CompiledField> fields = new ArrayList<>();
         for (ExportTemplate.FieldMapping mapping : template.getFieldMappings()) {
             if (!mapping.isVisible()) {
                 continue; // Skip hidden fields
             }
 
-            try {
-                Object value = evaluateExpression(context, mapping.getSourceField(), item);
-                
-                // Apply formatting if specified
-                if (mapping.getFormat() != null && value != null) {
-                    value = formatValue(value, mapping.getFormat(), mapping.getDataType());
-                }
-                
-                result.put(mapping.getTargetField(), value);
-            } catch (Exception e) {
-                log.warn("Error processing field {}: {}", mapping.getSourceField(), e.getMessage());
-                result.put(mapping.getTargetField(), null);
-            }
+            String format = mapping.getFormat();
+            String dataType = mapping.getDataType();
+            fields.add(new CompiledTemplate.CompiledField(
+                    mapping.getSourceField(),
+                    mapping.getTargetField(),
+                    compileReader(mapping.getSourceField(), itemClass),
+                    format != null ? value -> formatValue(value, format, dataType) : null));
         }
-
-        return result;
+        log.debug("Compiled template {} with {} fields for {}", template.getName(), fields.size(),
+                itemClass.getName());
+        return new CompiledTemplate(fields);
     }
 
     /**
-     * Evaluate a SpEL expression against the given context.
+     * Compile the source of a field: a SpEL expression, or else a simple property of the item.
      */
-    private <T> Object evaluateExpression(StandardEvaluationContext context, String expression, T item) {
+    private CompiledTemplate.ValueReader compileReader(String sourceField, Class<?> itemClass) {
         try {
-            // Convert item to map for simpler property access
-            if (expression.startsWith("#")) {
-                // This is a SpEL expression, evaluate it directly
-                Expression exp = expressionParser.parseExpression(expression);
-                return exp.getValue(context);
-            } else {
-                // Simple property access
-                return objectMapper.convertValue(item, Map.class).get(expression);
+            if (sourceField.startsWith("#")) {
+                // This is a SpEL expression, compiled to bytecode on its first evaluation
+                return CompiledTemplate.ValueReader.expression(expressionParser.parseExpression(sourceField));
+            }
+
+            if (Map.class.isAssignableFrom(itemClass)) {
+                return CompiledTemplate.ValueReader.property(PropertyAccessors.forProperty(itemClass, sourceField));
+            }
+            CompiledTemplate.ValueReader reader = compilePropertyReader(sourceField, itemClass);
+            if (reader != null) {
+                return reader;
             }
         } catch (Exception e) {
-            throw new TemplateException("Error evaluating expression: " + expression, e);
+            throw new TemplateException("Error evaluating expression: " + sourceField, e);
         }
+
+        // Properties the object mapper writes with their own settings or serializer, such as @JsonFormat dates
+        log.debug("No accessor for {} on {}, reading it through the object mapper", sourceField,
+                itemClass.getName());
+        return (item, context) -> objectMapper.convertValue(item, Map.class).get(sourceField);
+    }
+
+    /**
+     * Compile a property as the object mapper serializes it, so that ignored properties are not readable
+     * and renamed properties are read by their JSON name. Plain values are read as they are, other values
+     * such as dates and enums are converted by the object mapper, so its modules and settings apply.
+     *
+     * @return The reader, or null if the property has to be read by converting the whole item
+     */
+    private CompiledTemplate.ValueReader compilePropertyReader(String sourceField, Class<?> itemClass) {
+        BeanDescription description = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(itemClass));
+        AnnotatedMember member = description.findProperties().stream()
+                .filter(property -> property.getName().equals(sourceField))
+                .map(BeanPropertyDefinition::getAccessor)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+        if (member == null || member.hasAnnotation(JsonFormat.class) || member.hasAnnotation(JsonSerialize.class)) {
+            return null;
+        }
+
+        Function<Object, Object> accessor = PropertyAccessors.forMember(member.getMember());
+        if (accessor == null) {
+            return null;
+        }
+        Class<?> type = member.getRawType();
+        if (type == String.class || ClassUtils.isPrimitiveOrWrapper(type)) {
+            return CompiledTemplate.ValueReader.property(accessor);
+        }
+        return CompiledTemplate.ValueReader.property(item -> {
+            Object value = accessor.apply(item);
+            return value != null ? objectMapper.convertValue(value, Object.class) : null;
+        });
+    }
+
+    /**
+     * The parts of a template that determine its compiled form.
+     */
+    private static List<List<Object>> fingerprint(ExportTemplate template) {
+        List<List<Object>> fingerprint = new ArrayList<>(template.getFieldMappings().size());
+        for (ExportTemplate.FieldMapping mapping : template.getFieldMappings()) {
+            fingerprint.add(Arrays.asList(mapping.getSourceField(), mapping.getTargetField(),
+                    mapping.getDataType(), mapping.getFormat(), mapping.isVisible()));
+        }
+        return fingerprint;
     }
 
     /**
@@ -121,6 +217,16 @@ public class TemplateProcessor {
         return value;
     }
 
+    /**
+     * Cache key of a template compiled for an item class.
+     */
+    @Value
+    private static class TemplateKey {
+        Long templateId;
+        List<List<Object>> fields;
+        Class<?> itemClass;
+    }
+
     /**
      * Get the headers for the export based on the template.
      */
@@ -0,0 +1,105 @@
+package com.gogidix.ecommerce.admin.export.handler;
+
+import com.gogidix.ecosystem.shared.admin.export.handler.CsvExportHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvExportHandlerTest {
+
+    private CsvExportHandler<Object> csvExportHandler;
+
+    @BeforeEach
+    void setUp() {
+        csvExportHandler = new CsvExportHandler<>();
+    }
+
+    @Test
+    void export_ShouldWriteHeaderAndRows() throws Exception {
+        // Given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        csvExportHandler.export(List.of(new Product("Desk", 120), new Product("Lamp, small", 35)), outputStream, null);
+
+        // Then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertArrayEquals(new String[]{"name,quantity", "Desk,120", "\"Lamp, small\",35"}, lines);
+    }
+
+    @Test
+    void exportStream_WithFieldsWithoutGetters_ShouldReadFields() throws Exception {
+        // Given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Stream<Object> data = Stream.iterate(1, i -> i + 1).limit(1000).map(i -> new Reading("sensor" + i, i));
+
+        // When
+        csvExportHandler.exportStream(data, outputStream, null);
+
+        // Then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(1001, lines.length);
+        assertEquals("sensor,value", lines[0]);
+        assertEquals("sensor1000,1000", lines[1000]);
+    }
+
+    @Test
+    void export_WithMapItems_ShouldUseKeysOfFirstItem() throws Exception {
+        // Given
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("id", 1);
+        first.put("status", "Active");
+        Map<String, Object> second = Map.of("status", "Inactive", "id", 2);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        csvExportHandler.export(List.of(first, second), outputStream, null);
+
+        // Then
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertArrayEquals(new String[]{"id,status", "1,Active", "2,Inactive"}, lines);
+    }
+
+    @Test
+    void export_WithEmptyData_ShouldWriteNothing() throws Exception {
+        // Given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // When
+        csvExportHandler.export(List.of(), outputStream, null);
+
+        // Then
+        assertEquals(0, outputStream.size());
+    }
+
+    public static class Product {
+        private final String name;
+        private final int quantity;
+
+        public Product(String name, int quantity) {
+            this.name = name;
+            this.quantity = quantity;
+        }
+
+        public String getName() { return name; }
+        public int getQuantity() { return quantity; }
+    }
+
+    static class Reading {
+        private final String sensor;
+        private final long value;
+
+        Reading(String sensor, long value) {
+            this.sensor = sensor;
+            this.value = value;
+        }
+    }
+}
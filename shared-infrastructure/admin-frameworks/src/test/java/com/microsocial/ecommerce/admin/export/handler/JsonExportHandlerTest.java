@@ -11,6 +11,8 @@ import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -106,6 +108,29 @@ class JsonExportHandlerTest {
             () -> jsonExportHandler.export(List.of(testData), failingStream, null));
     }
 
+    @Test
+    void exportStream_shouldWriteArrayAndKeepStreamOpen() throws Exception {
+        // Arrange
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        Stream<TestData> data = Stream.iterate(1, i -> i + 1).limit(3)
+                .map(i -> new TestData("item" + i, i, LocalDate.of(2023, 1, i)));
+
+        // Act
+        jsonExportHandler.exportStream(data, outputStream, null);
+        String result = outputStream.toString();
+
+        // Assert
+        assertTrue(result.startsWith("[{\"name\":\"item1\""));
+        assertTrue(result.contains("{\"name\":\"item3\",\"value\":3,\"date\":\"2023-01-03\"}]"));
+        assertFalse(closed.get());
+    }
+
     // Test data class
     public static class TestData {
         private String name;
@@ -1,11 +1,14 @@
 package com.gogidix.ecommerce.admin.export.handler.excel;
 
 import com.gogidix.ecommerce.admin.export.ExportException;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
@@ -16,6 +19,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -164,4 +168,42 @@ class ExcelExportHandlerTest {
         byte[] result = outputStream.toByteArray();
         assertTrue(result.length > 0, "Generated Excel file should not be empty");
     }
+
+    @Test
+    void exportStream_ShouldWriteEveryItemWithSmallWindow() throws Exception {
+        // Given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Map<String, Object> options = new HashMap<>();
+        options.put("rowAccessWindowSize", 10);
+        options.put("useSharedStrings", true);
+
+        // When
+        excelExportHandler.exportStream(Stream.generate(TestData::createSample).limit(250), outputStream, options);
+
+        // Then
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(250, sheet.getLastRowNum(), "Header plus one row per item expected");
+            assertEquals("id", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("Test Product", sheet.getRow(250).getCell(1).getStringCellValue());
+            assertEquals(99.99, sheet.getRow(250).getCell(3).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void export_WithAutoSizeColumns_ShouldGenerateExcelFile() throws Exception {
+        // Given
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Map<String, Object> options = Map.of("autoSizeColumns", true, "includeHeader", false);
+
+        // When
+        excelExportHandler.export(testData, outputStream, options);
+
+        // Then
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(2, sheet.getLastRowNum(), "One row per item expected");
+            assertEquals(1.0, sheet.getRow(0).getCell(0).getNumericCellValue());
+        }
+    }
 }
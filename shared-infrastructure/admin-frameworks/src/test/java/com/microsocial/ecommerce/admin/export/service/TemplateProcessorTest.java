@@ -1,6 +1,12 @@
 package com.gogidix.ecommerce.admin.export.service;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.gogidix.ecosystem.shared.admin.export.exception.TemplateException;
 import com.gogidix.ecosystem.shared.admin.export.model.ExportTemplate;
 import com.gogidix.ecosystem.shared.admin.export.service.TemplateProcessor;
@@ -8,11 +14,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
-import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -20,13 +27,18 @@ import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class TemplateProcessorTest {
 
-    @Mock
-    private ObjectMapper objectMapper;
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
 
     @InjectMocks
     private TemplateProcessor templateProcessor;
@@ -167,7 +179,136 @@ class TemplateProcessorTest {
         assertTrue(processedUser.containsKey("userId")); // Other fields should be included
     }
 
-    // Helper test class
+    @Test
+    void processData_WithManyItems_ReadsPropertiesWithoutConvertingItems() {
+        // Given
+        TestUser otherUser = new TestUser();
+        otherUser.setId(456L);
+        otherUser.setFirstName("Jane");
+        otherUser.setLastName("Roe");
+        otherUser.setEmail("jane.roe@example.com");
+
+        // When
+        List<Map<String, Object>> result = templateProcessor.processData(List.of(testUser, otherUser), template);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(123L, result.get(0).get("userId"));
+        assertEquals("Jane Roe", result.get(1).get("name"));
+        assertEquals("jane.roe@example.com", result.get(1).get("email"));
+        assertNull(result.get(1).get("memberSince"));
+        verify(objectMapper, never()).convertValue(any(), eq(Map.class));
+    }
+
+    @Test
+    void processData_WithRootExpression_EvaluatesCompiledExpressionForEachItem() {
+        // Given
+        template.getFieldMappings().get(1).setSourceField("#this.firstName + ' ' + #this.lastName.toUpperCase()");
+        TestUser otherUser = new TestUser();
+        otherUser.setFirstName("Jane");
+        otherUser.setLastName("Roe");
+
+        // When
+        List<Map<String, Object>> result = templateProcessor.processData(
+                List.of(testUser, otherUser, testUser), template);
+
+        // Then
+        assertEquals("John DOE", result.get(0).get("name"));
+        assertEquals("Jane ROE", result.get(1).get("name"));
+        assertEquals("John DOE", result.get(2).get("name"));
+    }
+
+    @Test
+    void processData_AfterTemplateChange_UsesChangedMapping() {
+        // Given
+        templateProcessor.processData(List.of(testUser), template);
+        template.getFieldMappings().get(2).setSourceField("firstName");
+
+        // When
+        List<Map<String, Object>> result = templateProcessor.processData(List.of(testUser), template);
+
+        // Then
+        assertEquals("John", result.get(0).get("email"));
+    }
+
+    @Test
+    void processData_WithMapItems_ReadsEntries() {
+        // Given
+        Map<String, Object> user = Map.of("id", 7L, "fullName", "Map User", "email", "map@example.com");
+
+        // When
+        List<Map<String, Object>> result = templateProcessor.processData(List.of(user), template);
+
+        // Then
+        assertEquals(7L, result.get(0).get("userId"));
+        assertEquals("Map User", result.get(0).get("name"));
+        assertEquals("map@example.com", result.get(0).get("email"));
+    }
+
+    @Test
+    void processData_WithUnknownProperty_FallsBackToObjectMapper() {
+        // Given
+        template.getFieldMappings().get(2).setSourceField("email_address");
+        doReturn(Map.of("email_address", "john.doe@example.com"))
+                .when(objectMapper).convertValue(eq(testUser), eq(Map.class));
+
+        // When
+        List<Map<String, Object>> result = templateProcessor.processData(List.of(testUser), template);
+
+        // Then
+        assertEquals("john.doe@example.com", result.get(0).get("email"));
+        assertEquals(123L, result.get(0).get("userId"));
+    }
+
+    @Test
+    void processData_WithJsonIgnoredProperty_DoesNotReadIt() {
+        // Given
+        ExportTemplate accountTemplate = templateFor("owner", "password");
+
+        // When
+        List<Map<String, Object>> result = templateProcessor.processData(List.of(testAccount()), accountTemplate);
+
+        // Then
+        assertEquals("John Doe", result.get(0).get("owner"));
+        assertNull(result.get(0).get("password"));
+    }
+
+    @Test
+    void processData_WithDateProperties_ConvertsThemLikeTheObjectMapper() {
+        // Given
+        ExportTemplate accountTemplate = templateFor("opened", "closedAt");
+
+        // When
+        List<Map<String, Object>> result = templateProcessor.processData(List.of(testAccount()), accountTemplate);
+
+        // Then
+        assertEquals("2024-03-01T09:30:00", result.get(0).get("opened"));
+        assertEquals("01.04.2024", result.get(0).get("closedAt"));
+        assertEquals("2020-01-15",
+                templateProcessor.processData(List.of(testUser), template).get(0).get("memberSince"));
+    }
+
+    private ExportTemplate templateFor(String... sourceFields) {
+        ExportTemplate accountTemplate = new ExportTemplate();
+        accountTemplate.setId(2L);
+        accountTemplate.setName("Account Export");
+        List<ExportTemplate.FieldMapping> mappings = new ArrayList<>();
+        for (String sourceField : sourceFields) {
+            ExportTemplate.FieldMapping mapping = new ExportTemplate.FieldMapping();
+            mapping.setSourceField(sourceField);
+            mapping.setTargetField(sourceField);
+            mappings.add(mapping);
+        }
+        accountTemplate.setFieldMappings(mappings);
+        return accountTemplate;
+    }
+
+    private TestAccount testAccount() {
+        return new TestAccount("John Doe", "secret",
+                LocalDateTime.of(2024, 3, 1, 9, 30), LocalDateTime.of(2024, 4, 1, 17, 0));
+    }
+
+    // Helper test classes
     public static class TestUser {
         private Long id;
         private String firstName;
@@ -200,4 +341,29 @@ class TemplateProcessorTest {
             return firstName + " " + lastName;
         }
     }
+
+    public static class TestAccount {
+        private final String owner;
+        private final String password;
+        private final LocalDateTime openedAt;
+        private final LocalDateTime closedAt;
+
+        TestAccount(String owner, String password, LocalDateTime openedAt, LocalDateTime closedAt) {
+            this.owner = owner;
+            this.password = password;
+            this.openedAt = openedAt;
+            this.closedAt = closedAt;
+        }
+
+        public String getOwner() { return owner; }
+
+        @JsonIgnore
+        public String getPassword() { return password; }
+
+        @JsonProperty("opened")
+        public LocalDateTime getOpenedAt() { return openedAt; }
+
+        @JsonFormat(pattern = "dd.MM.yyyy")
+        public LocalDateTime getClosedAt() { return closedAt; }
+    }
 }
@@ -13,6 +13,11 @@ public class CacheConfig {
     private long defaultTtlSeconds = -1; // -1 means no default expiration
     private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
     
+    // Loading through getOrPut
+    private long loaderTimeoutMillis = 0; // 0 means callers wait until the loader finishes
+    private double earlyRefreshBeta = 0; // 0 disables probabilistic early refresh
+    private long staleWhileRevalidateSeconds = 0; // 0 disables serving stale values
+    
     // Specific settings for different cache types
     private String connectionString;
     private int connectionTimeout = 2000;
@@ -20,6 +25,11 @@ public class CacheConfig {
     private String password;
     private boolean useSsl = false;
     
+    // Local near-cache in front of remote caches
+    private boolean nearCacheEnabled = false;
+    private int nearCacheMaxSize = 1000;
+    private long nearCacheTtlSeconds = 60;
+    
     /**
      * Supported cache eviction policies.
      */
@@ -31,7 +41,13 @@ public class CacheConfig {
         /** First In First Out - evicts oldest entries first */
         FIFO,
         /** Random Replacement - evicts random entries */
-        RANDOM
+        RANDOM,
+        /**
+         * Window TinyLFU - a small LRU admission window in front of a segmented LRU main space,
+         * where an entry is only admitted to the main space if it is used more often than the
+         * entry it would replace. Resistant to scans and one-hit wonders.
+         */
+        W_TINY_LFU
     }
     
     /**
@@ -250,4 +266,130 @@ public class CacheConfig {
         this.useSsl = useSsl;
         return this;
     }
+    
+    /**
+     * Checks if remote caches keep a local near-cache of recently read values.
+     *
+     * @return true if the near-cache is enabled, false otherwise
+     */
+    public boolean isNearCacheEnabled() {
+        return nearCacheEnabled;
+    }
+    
+    /**
+     * Enables or disables the local near-cache of remote caches.
+     *
+     * @param nearCacheEnabled true to enable the near-cache, false to disable
+     * @return This config instance for chaining
+     */
+    public CacheConfig setNearCacheEnabled(boolean nearCacheEnabled) {
+        this.nearCacheEnabled = nearCacheEnabled;
+        return this;
+    }
+    
+    /**
+     * Gets the maximum number of entries held by the near-cache.
+     *
+     * @return The maximum near-cache size
+     */
+    public int getNearCacheMaxSize() {
+        return nearCacheMaxSize;
+    }
+    
+    /**
+     * Sets the maximum number of entries held by the near-cache.
+     *
+     * @param nearCacheMaxSize The maximum near-cache size
+     * @return This config instance for chaining
+     */
+    public CacheConfig setNearCacheMaxSize(int nearCacheMaxSize) {
+        this.nearCacheMaxSize = nearCacheMaxSize;
+        return this;
+    }
+    
+    /**
+     * Gets how long a value may stay in the near-cache, bounding staleness
+     * if an invalidation message is lost.
+     *
+     * @return The near-cache TTL in seconds
+     */
+    public long getNearCacheTtlSeconds() {
+        return nearCacheTtlSeconds;
+    }
+    
+    /**
+     * Sets how long a value may stay in the near-cache.
+     *
+     * @param nearCacheTtlSeconds The near-cache TTL in seconds
+     * @return This config instance for chaining
+     */
+    public CacheConfig setNearCacheTtlSeconds(long nearCacheTtlSeconds) {
+        this.nearCacheTtlSeconds = nearCacheTtlSeconds;
+        return this;
+    }
+    
+    /**
+     * Gets how long getOrPut waits for a value to be loaded.
+     *
+     * @return The loader timeout in milliseconds, or 0 to wait until the loader finishes
+     */
+    public long getLoaderTimeoutMillis() {
+        return loaderTimeoutMillis;
+    }
+    
+    /**
+     * Sets how long getOrPut waits for a value to be loaded. A load that times out
+     * keeps running in the background and still populates the cache when it finishes.
+     *
+     * @param loaderTimeoutMillis The loader timeout in milliseconds, or 0 to wait until the loader finishes
+     * @return This config instance for chaining
+     */
+    public CacheConfig setLoaderTimeoutMillis(long loaderTimeoutMillis) {
+        this.loaderTimeoutMillis = loaderTimeoutMillis;
+        return this;
+    }
+    
+    /**
+     * Gets the eagerness of probabilistic early refresh.
+     *
+     * @return The early refresh beta, or 0 if early refresh is disabled
+     */
+    public double getEarlyRefreshBeta() {
+        return earlyRefreshBeta;
+    }
+    
+    /**
+     * Sets the eagerness of probabilistic early refresh. When positive, getOrPut may reload
+     * a value in the background shortly before its TTL elapses, with a probability that grows
+     * as the expiry approaches and with the time the loader takes. A value of 1.0 is a good
+     * default; larger values refresh earlier.
+     *
+     * @param earlyRefreshBeta The early refresh beta, or 0 to disable early refresh
+     * @return This config instance for chaining
+     */
+    public CacheConfig setEarlyRefreshBeta(double earlyRefreshBeta) {
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        return this;
+    }
+    
+    /**
+     * Gets how long after its TTL an entry may still be served by getOrPut while it is reloaded.
+     *
+     * @return The stale-while-revalidate window in seconds, or 0 if disabled
+     */
+    public long getStaleWhileRevalidateSeconds() {
+        return staleWhileRevalidateSeconds;
+    }
+    
+    /**
+     * Sets how long after its TTL an entry may still be served by getOrPut while it is reloaded
+     * in the background. Plain gets treat the entry as expired as soon as its TTL elapses.
+     *
+     * @param staleWhileRevalidateSeconds The stale-while-revalidate window in seconds, or 0 to disable
+     * @return This config instance for chaining
+     */
+    public CacheConfig setStaleWhileRevalidateSeconds(long staleWhileRevalidateSeconds) {
+        this.staleWhileRevalidateSeconds = staleWhileRevalidateSeconds;
+        return this;
+    }
 }
@@ -0,0 +1,127 @@
+package com.exalt.ecosystem.shared.caching;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the performance of a cache.
+ * Counters are only updated when statistics recording is enabled in the {@link CacheConfig}.
+ */
+public class CacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    
+    /**
+     * Records a cache hit.
+     */
+    public void recordHit() {
+        hits.increment();
+    }
+    
+    /**
+     * Records a cache miss.
+     */
+    public void recordMiss() {
+        misses.increment();
+    }
+    
+    /**
+     * Records a value being written to the cache.
+     */
+    public void recordPut() {
+        puts.increment();
+    }
+    
+    /**
+     * Records an entry being evicted because the cache was full.
+     */
+    public void recordEviction() {
+        evictions.increment();
+    }
+    
+    /**
+     * Records an entry being removed because its TTL elapsed.
+     */
+    public void recordExpiration() {
+        expirations.increment();
+    }
+    
+    /**
+     * Gets the number of lookups that found a value.
+     *
+     * @return The hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    /**
+     * Gets the number of lookups that did not find a value.
+     *
+     * @return The miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+    
+    /**
+     * Gets the number of values written to the cache.
+     *
+     * @return The put count
+     */
+    public long getPutCount() {
+        return puts.sum();
+    }
+    
+    /**
+     * Gets the number of entries evicted because the cache was full.
+     *
+     * @return The eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+    
+    /**
+     * Gets the number of entries removed because their TTL elapsed.
+     *
+     * @return The expiration count
+     */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+    
+    /**
+     * Gets the ratio of lookups that found a value.
+     *
+     * @return The hit rate between 0.0 and 1.0, or 1.0 if there were no lookups
+     */
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long requestCount = hitCount + getMissCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+    
+    /**
+     * Resets all counters.
+     */
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        puts.reset();
+        evictions.reset();
+        expirations.reset();
+    }
+    
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + getHitCount() +
+               ", misses=" + getMissCount() +
+               ", hitRate=" + String.format("%.4f", getHitRate()) +
+               ", puts=" + getPutCount() +
+               ", evictions=" + getEvictionCount() +
+               ", expirations=" + getExpirationCount() + "}";
+    }
+}
@@ -0,0 +1,253 @@
+package com.exalt.ecosystem.shared.caching;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Loads missing cache values for getOrPut so that concurrent misses of the same key
+ * call the loader only once. The first caller registers an in-flight future for the key
+ * and runs the loader; every other caller waits on that future.
+ * <p>
+ * Depending on the {@link CacheConfig}, the loader also
+ * <ul>
+ *   <li>refreshes values in the background shortly before their TTL elapses, with a
+ *       probability that grows as the expiry approaches (probabilistic early expiration),</li>
+ *   <li>serves values whose TTL has elapsed while a background reload is running
+ *       (stale-while-revalidate),</li>
+ *   <li>gives up waiting for a loader after a timeout, letting the load finish in the background.</li>
+ * </ul>
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+public class SingleFlightLoader<K, V> {
+    private static final Logger log = LoggerFactory.getLogger(SingleFlightLoader.class);
+    
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService LOADER_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cache-loader-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private static final double LOAD_TIME_SMOOTHING = 0.2;
+    
+    private final String cacheName;
+    private final long timeoutMillis;
+    private final double earlyRefreshBeta;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private volatile long averageLoadNanos;
+    
+    /**
+     * A cached value and how long it stays fresh.
+     *
+     * @param <V> Type of the cached value
+     */
+    public static final class CachedValue<V> {
+        private final V value;
+        private final long freshNanos;
+        
+        private CachedValue(V value, long freshNanos) {
+            this.value = value;
+            this.freshNanos = freshNanos;
+        }
+        
+        /**
+         * Creates a cached value that stays fresh for the given time.
+         *
+         * @param value      The cached value
+         * @param freshNanos Nanoseconds until the value becomes stale, zero or negative if it is stale
+         * @return The cached value
+         */
+        public static <V> CachedValue<V> of(V value, long freshNanos) {
+            return new CachedValue<>(value, freshNanos);
+        }
+        
+        /**
+         * Creates a cached value that never becomes stale.
+         *
+         * @param value The cached value
+         * @return The cached value
+         */
+        public static <V> CachedValue<V> withoutExpiry(V value) {
+            return new CachedValue<>(value, Long.MAX_VALUE);
+        }
+        
+        public V getValue() {
+            return value;
+        }
+        
+        public long getFreshNanos() {
+            return freshNanos;
+        }
+        
+        public boolean isFresh() {
+            return freshNanos > 0;
+        }
+    }
+    
+    /**
+     * Reads a key from the cache, including entries that are stale but not yet removed.
+     */
+    @FunctionalInterface
+    public interface Reader<K, V> {
+        CachedValue<V> read(K key) throws CacheException;
+    }
+    
+    /**
+     * Writes a loaded value to the cache.
+     */
+    @FunctionalInterface
+    public interface Writer<K, V> {
+        void write(K key, V value) throws CacheException;
+    }
+    
+    /**
+     * Creates a loader for a cache.
+     *
+     * @param cacheName The name of the cache, used in error messages
+     * @param config    The cache configuration
+     */
+    public SingleFlightLoader(String cacheName, CacheConfig config) {
+        this.cacheName = cacheName;
+        this.timeoutMillis = config.getLoaderTimeoutMillis();
+        this.earlyRefreshBeta = config.getEarlyRefreshBeta();
+    }
+    
+    /**
+     * Gets a value from the cache, loading it if it is missing.
+     * Stale values and values due for early refresh are returned immediately
+     * while a single background reload runs.
+     *
+     * @param key      The cache key
+     * @param reader   Reads the key from the cache
+     * @param supplier The loader of missing values
+     * @param writer   Writes loaded values to the cache
+     * @return The cached or loaded value
+     * @throws CacheException if the load fails or times out
+     */
+    public V getOrLoad(K key, Reader<K, V> reader, Supplier<V> supplier, Writer<K, V> writer) throws CacheException {
+        CachedValue<V> cached = reader.read(key);
+        
+        if (cached != null) {
+            if (!cached.isFresh() || shouldRefreshEarly(cached.getFreshNanos())) {
+                refreshInBackground(key, supplier, writer);
+            }
+            return cached.getValue();
+        }
+        
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(key, existing);
+        }
+        
+        // Another caller may have finished loading between the read and registering the future
+        cached = reader.read(key);
+        if (cached != null && cached.isFresh()) {
+            future.complete(cached.getValue());
+            inFlight.remove(key, future);
+            return cached.getValue();
+        }
+        
+        if (timeoutMillis > 0) {
+            LOADER_EXECUTOR.execute(() -> load(key, supplier, writer, future));
+        } else {
+            load(key, supplier, writer, future);
+        }
+        return await(key, future);
+    }
+    
+    /**
+     * Gets the number of keys currently being loaded.
+     *
+     * @return The number of in-flight loads
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+    
+    private void refreshInBackground(K key, Supplier<V> supplier, Writer<K, V> writer) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return;
+        }
+        
+        future.whenComplete((value, error) -> {
+            if (error != null) {
+                log.warn("Background refresh of key '{}' in cache '{}' failed: {}", key, cacheName, error.getMessage());
+            }
+        });
+        LOADER_EXECUTOR.execute(() -> load(key, supplier, writer, future));
+    }
+    
+    private void load(K key, Supplier<V> supplier, Writer<K, V> writer, CompletableFuture<V> future) {
+        try {
+            long start = System.nanoTime();
+            V value = supplier.get();
+            recordLoadTime(System.nanoTime() - start);
+            writer.write(key, value);
+            future.complete(value);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+    
+    private V await(K key, CompletableFuture<V> future) throws CacheException {
+        try {
+            return timeoutMillis > 0 ? future.get(timeoutMillis, TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            throw new CacheException(
+                CacheException.ErrorCode.TIMEOUT_ERROR,
+                "Loading key '" + key + "' in cache '" + cacheName + "' timed out after " + timeoutMillis + " ms",
+                e
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Interrupted while loading key '" + key + "'", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CacheException) {
+                throw (CacheException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Failed to load key '" + key + "': " + cause.getMessage(), cause);
+        }
+    }
+    
+    /**
+     * Decides whether to refresh a fresh value early, following the XFetch rule
+     * {@code -loadTime * beta * ln(random) >= timeUntilStale}. Slow loaders and values
+     * close to their expiry are refreshed earlier, and only a few of the concurrent
+     * readers of a hot key trigger a refresh.
+     */
+    private boolean shouldRefreshEarly(long freshNanos) {
+        long loadNanos = averageLoadNanos;
+        if (earlyRefreshBeta <= 0 || freshNanos == Long.MAX_VALUE || loadNanos == 0) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return -loadNanos * earlyRefreshBeta * Math.log(random) >= freshNanos;
+    }
+    
+    private void recordLoadTime(long nanos) {
+        long average = averageLoadNanos;
+        averageLoadNanos = average == 0 ? nanos : average + (long) ((nanos - average) * LOAD_TIME_SMOOTHING);
+    }
+}
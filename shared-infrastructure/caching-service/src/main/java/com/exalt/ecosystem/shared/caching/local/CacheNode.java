@@ -0,0 +1,62 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+/**
+ * An entry of an {@link InMemoryCache}, linked into the structures of its eviction
+ * strategy and of the expiry timer wheel so that both can be updated in O(1).
+ * Links are only modified while holding the cache's eviction lock.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+final class CacheNode<K, V> {
+    
+    /** Queue of a node in the Window TinyLFU strategy */
+    enum Queue {
+        WINDOW,
+        PROBATION,
+        PROTECTED
+    }
+    
+    final K key;
+    volatile V value;
+    
+    /** Expiration time in ticker nanoseconds, or 0 if the entry never expires */
+    volatile long expiresAt;
+    
+    /**
+     * Time in ticker nanoseconds after which the entry is stale, or 0 if it never becomes stale.
+     * Stale entries are only served by getOrPut while they are reloaded, until {@link #expiresAt}.
+     */
+    volatile long freshUntil;
+    
+    /** Set once the node has been removed from the cache */
+    volatile boolean retired;
+    
+    // Links of the eviction strategy's ordering
+    CacheNode<K, V> prev;
+    CacheNode<K, V> next;
+    
+    // Links of the timer wheel bucket
+    CacheNode<K, V> previousInWheel;
+    CacheNode<K, V> nextInWheel;
+    
+    // Strategy specific bookkeeping
+    Queue queue;
+    Object frequencyBucket;
+    int index = -1;
+    
+    CacheNode(K key, V value, long freshUntil, long expiresAt) {
+        this.key = key;
+        this.value = value;
+        this.freshUntil = freshUntil;
+        this.expiresAt = expiresAt;
+    }
+    
+    boolean isExpired(long now) {
+        return expiresAt != 0 && now - expiresAt >= 0;
+    }
+    
+    boolean isFresh(long now) {
+        return freshUntil == 0 || now - freshUntil < 0;
+    }
+}
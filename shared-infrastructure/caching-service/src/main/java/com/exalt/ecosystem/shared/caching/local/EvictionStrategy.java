@@ -0,0 +1,66 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import com.gogidix.ecosystem.shared.caching.CacheConfig;
+
+/**
+ * Orders the entries of an {@link InMemoryCache} for eviction.
+ * All operations are O(1) and are called while holding the cache's eviction lock.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+interface EvictionStrategy<K, V> {
+    
+    /**
+     * Called when a new entry has been added to the cache.
+     */
+    void onInsert(CacheNode<K, V> node);
+    
+    /**
+     * Called when an existing entry has been read or overwritten.
+     */
+    void onAccess(CacheNode<K, V> node);
+    
+    /**
+     * Called when an entry has been removed for any reason other than {@link #evict()}.
+     */
+    void onRemove(CacheNode<K, V> node);
+    
+    /**
+     * Selects an entry to evict and unlinks it from the strategy.
+     *
+     * @return The entry to evict, or null if there are no entries
+     */
+    CacheNode<K, V> evict();
+    
+    /**
+     * Removes all entries from the strategy.
+     */
+    void clear();
+    
+    /**
+     * Whether reads need to be reported through {@link #onAccess(CacheNode)}.
+     */
+    default boolean recordsReads() {
+        return true;
+    }
+    
+    /**
+     * Creates the strategy for a cache configuration.
+     */
+    static <K, V> EvictionStrategy<K, V> forConfig(CacheConfig config) {
+        switch (config.getEvictionPolicy()) {
+            case LFU:
+                return new LfuEvictionStrategy<>();
+            case FIFO:
+                return new FifoEvictionStrategy<>();
+            case RANDOM:
+                return new RandomEvictionStrategy<>();
+            case W_TINY_LFU:
+                return new WindowTinyLfuEvictionStrategy<>(config.getMaxSize());
+            case LRU:
+            default:
+                return new LruEvictionStrategy<>();
+        }
+    }
+}
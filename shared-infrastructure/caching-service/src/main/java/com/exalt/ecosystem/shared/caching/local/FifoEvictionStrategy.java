@@ -0,0 +1,41 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+/**
+ * First In First Out eviction, keeping entries in insertion order.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+final class FifoEvictionStrategy<K, V> implements EvictionStrategy<K, V> {
+    private final NodeList<K, V> insertionOrder = new NodeList<>();
+    
+    @Override
+    public void onInsert(CacheNode<K, V> node) {
+        insertionOrder.addLast(node);
+    }
+    
+    @Override
+    public void onAccess(CacheNode<K, V> node) {
+        // Insertion order is not affected by reads or overwrites
+    }
+    
+    @Override
+    public void onRemove(CacheNode<K, V> node) {
+        insertionOrder.remove(node);
+    }
+    
+    @Override
+    public CacheNode<K, V> evict() {
+        return insertionOrder.pollFirst();
+    }
+    
+    @Override
+    public void clear() {
+        insertionOrder.clear();
+    }
+    
+    @Override
+    public boolean recordsReads() {
+        return false;
+    }
+}
@@ -4,16 +4,28 @@ import com.gogidix.ecosystem.shared.caching.Cache;
 import com.gogidix.ecosystem.shared.caching.CacheConfig;
 import com.gogidix.ecosystem.shared.caching.CacheException;
 import com.gogidix.ecosystem.shared.caching.CacheException.ErrorCode;
-import com.gogidix.ecosystem.shared.caching.CacheEntry;
+import com.gogidix.ecosystem.shared.caching.CacheStats;
+import com.gogidix.ecosystem.shared.caching.SingleFlightLoader;
+import com.gogidix.ecosystem.shared.caching.SingleFlightLoader.CachedValue;
 
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
  * In-memory implementation of the Cache interface.
- * Stores cache entries in memory using a ConcurrentHashMap.
+ * Stores cache entries in memory using a ConcurrentHashMap, with the configured
+ * {@link CacheConfig.EvictionPolicy} applied by an {@link EvictionStrategy} and expiration
+ * tracked by a {@link TimerWheel}, so that get, put and eviction are all O(1).
+ * <p>
+ * Reads are lock free. Writes, evictions and expirations are serialized by an eviction lock.
+ * Reads update the eviction order only if that lock is free; under heavy contention some
+ * accesses are not recorded, which slightly degrades the eviction order but never blocks a read.
+ * <p>
+ * getOrPut loads missing values through a {@link SingleFlightLoader}, so concurrent misses of
+ * the same key call the supplier only once.
  *
  * @param <K> Type of the cache key
  * @param <V> Type of the cached value
@@ -21,7 +33,14 @@ import java.util.function.Supplier;
 public class InMemoryCache<K, V> implements Cache<K, V> {
     private final String name;
     private final CacheConfig config;
-    private final Map<K, CacheEntry<V>> cache;
+    private final ConcurrentHashMap<K, CacheNode<K, V>> cache;
+    private final EvictionStrategy<K, V> evictionStrategy;
+    private final TimerWheel<K, V> timerWheel;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongSupplier ticker;
+    private final CacheStats stats = new CacheStats();
+    private final SingleFlightLoader<K, V> loader;
+    private final long staleNanos;
     
     /**
      * Creates a new in-memory cache with the specified name and configuration.
@@ -30,9 +49,25 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
      * @param config The cache configuration
      */
     public InMemoryCache(String name, CacheConfig config) {
+        this(name, config, System::nanoTime);
+    }
+    
+    /**
+     * Creates a new in-memory cache reading the time from the given ticker.
+     *
+     * @param name   The name of the cache
+     * @param config The cache configuration
+     * @param ticker Source of the current time in nanoseconds
+     */
+    InMemoryCache(String name, CacheConfig config, LongSupplier ticker) {
         this.name = name;
         this.config = config;
+        this.ticker = ticker;
         this.cache = new ConcurrentHashMap<>(config.getInitialCapacity());
+        this.evictionStrategy = EvictionStrategy.forConfig(config);
+        this.timerWheel = new TimerWheel<>(ticker.getAsLong());
+        this.loader = new SingleFlightLoader<>(name, config);
+        this.staleNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.getStaleWhileRevalidateSeconds()));
     }
     
     @Override
@@ -41,19 +76,26 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
             throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
         }
         
-        CacheEntry<V> entry = cache.get(key);
+        CacheNode<K, V> node = cache.get(key);
         
-        if (entry == null) {
+        if (node == null) {
+            recordMiss();
             return null;
         }
         
-        // Check if entry has expired
-        if (entry.isExpired()) {
-            cache.remove(key);
+        // Check if entry has expired; stale entries are only served by getOrPut
+        long now = ticker.getAsLong();
+        if (!node.isFresh(now)) {
+            if (node.isExpired(now)) {
+                expireEagerly(node);
+            }
+            recordMiss();
             return null;
         }
         
-        return entry.getValue();
+        recordRead(node);
+        recordHit();
+        return node.value;
     }
     
     @Override
@@ -70,7 +112,7 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
         } else {
             throw new CacheException(
                 ErrorCode.TYPE_MISMATCH,
-                "Cached value is not of the expected type. Expected: " + clazz.getName() + 
+                "Cached value is not of the expected type. Expected: " + clazz.getName() +
                 ", Actual: " + value.getClass().getName()
             );
         }
@@ -78,26 +120,12 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
     
     @Override
     public V getOrPut(K key, Supplier<V> supplier) throws CacheException {
-        V value = get(key);
-        
-        if (value == null) {
-            value = supplier.get();
-            put(key, value);
-        }
-        
-        return value;
+        return loader.getOrLoad(key, this::lookup, supplier, this::put);
     }
     
     @Override
     public V getOrPut(K key, Supplier<V> supplier, long ttl, TimeUnit timeUnit) throws CacheException {
-        V value = get(key);
-        
-        if (value == null) {
-            value = supplier.get();
-            put(key, value, ttl, timeUnit);
-        }
-        
-        return value;
+        return loader.getOrLoad(key, this::lookup, supplier, (k, value) -> put(k, value, ttl, timeUnit));
     }
     
     @Override
@@ -110,15 +138,12 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
             throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cache value cannot be null");
         }
         
-        // Check if max size is reached
-        evictIfNeeded();
-        
         // Use default TTL if specified in config
         long ttl = config.getDefaultTtlSeconds();
         if (ttl > 0) {
             put(key, value, ttl, TimeUnit.SECONDS);
         } else {
-            cache.put(key, new CacheEntry<>(value));
+            doPut(key, value, 0);
         }
     }
     
@@ -136,10 +161,7 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
             throw new CacheException(ErrorCode.UNKNOWN_ERROR, "TTL must be positive");
         }
         
-        // Check if max size is reached
-        evictIfNeeded();
-        
-        cache.put(key, new CacheEntry<>(value, ttl, timeUnit));
+        doPut(key, value, timeUnit.toNanos(ttl));
     }
     
     @Override
@@ -148,15 +170,18 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
             throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
         }
         
-        CacheEntry<V> entry = cache.get(key);
+        CacheNode<K, V> node = cache.get(key);
         
-        if (entry == null) {
+        if (node == null) {
             return false;
         }
         
         // Check if entry has expired
-        if (entry.isExpired()) {
-            cache.remove(key);
+        long now = ticker.getAsLong();
+        if (!node.isFresh(now)) {
+            if (node.isExpired(now)) {
+                expireEagerly(node);
+            }
             return false;
         }
         
@@ -169,19 +194,44 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
             throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
         }
         
-        return cache.remove(key) != null;
+        evictionLock.lock();
+        try {
+            CacheNode<K, V> node = cache.remove(key);
+            if (node == null) {
+                return false;
+            }
+            evictionStrategy.onRemove(node);
+            timerWheel.deschedule(node);
+            node.retired = true;
+            return true;
+        } finally {
+            evictionLock.unlock();
+        }
     }
     
     @Override
     public void clear() throws CacheException {
-        cache.clear();
+        evictionLock.lock();
+        try {
+            cache.values().forEach(node -> node.retired = true);
+            cache.clear();
+            evictionStrategy.clear();
+            timerWheel.clear();
+        } finally {
+            evictionLock.unlock();
+        }
     }
     
     @Override
     public long size() throws CacheException {
-        // Remove expired entries first to get an accurate count
-        removeExpiredEntries();
-        return cache.size();
+        // Expire due entries first to get an accurate count
+        evictionLock.lock();
+        try {
+            timerWheel.advance(ticker.getAsLong(), this::expire);
+            return cache.size();
+        } finally {
+            evictionLock.unlock();
+        }
     }
     
     @Override
@@ -190,103 +240,164 @@ public class InMemoryCache<K, V> implements Cache<K, V> {
     }
     
     /**
-     * Removes all expired entries from the cache.
+     * Gets the statistics of this cache.
+     * Hits and misses are only counted when statistics recording is enabled in the configuration.
+     *
+     * @return The cache statistics
      */
-    private void removeExpiredEntries() {
-        for (Map.Entry<K, CacheEntry<V>> entry : cache.entrySet()) {
-            if (entry.getValue().isExpired()) {
-                cache.remove(entry.getKey());
-            }
-        }
+    public CacheStats getStats() {
+        return stats;
     }
     
     /**
-     * Evicts entries if the cache size exceeds the maximum size.
+     * Reads an entry for getOrPut, including an entry that is stale but still within
+     * the stale-while-revalidate window.
      */
-    private void evictIfNeeded() {
-        // First, remove expired entries
-        removeExpiredEntries();
+    private CachedValue<V> lookup(K key) throws CacheException {
+        if (key == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
+        }
         
-        if (cache.size() >= config.getMaxSize()) {
-            // If still too large, apply eviction policy
-            switch (config.getEvictionPolicy()) {
-                case LRU:
-                    evictLRU();
-                    break;
-                case LFU:
-                    evictLFU();
-                    break;
-                case FIFO:
-                    evictFIFO();
-                    break;
-                case RANDOM:
-                    evictRandom();
-                    break;
-                default:
-                    evictRandom(); // Default to random if unknown policy
+        CacheNode<K, V> node = cache.get(key);
+        
+        if (node == null) {
+            recordMiss();
+            return null;
+        }
+        
+        long now = ticker.getAsLong();
+        if (node.isExpired(now)) {
+            expireEagerly(node);
+            recordMiss();
+            return null;
+        }
+        
+        recordRead(node);
+        recordHit();
+        long freshUntil = node.freshUntil;
+        return freshUntil == 0 ? CachedValue.withoutExpiry(node.value) : CachedValue.of(node.value, freshUntil - now);
+    }
+    
+    /**
+     * Inserts or updates an entry, evicting entries first if a new entry would exceed the maximum size.
+     * Entries with a TTL are kept for the stale-while-revalidate window after they become stale.
+     *
+     * @param ttlNanos Time to live in nanoseconds, or 0 if the entry never expires
+     */
+    private void doPut(K key, V value, long ttlNanos) {
+        evictionLock.lock();
+        try {
+            long now = ticker.getAsLong();
+            timerWheel.advance(now, this::expire);
+            long freshUntil = ttlNanos > 0 ? expirationTime(now, ttlNanos) : 0;
+            long expiresAt = ttlNanos > 0 ? expirationTime(now, saturatedAdd(ttlNanos, staleNanos)) : 0;
+            
+            CacheNode<K, V> node = cache.get(key);
+            if (node != null) {
+                timerWheel.deschedule(node);
+                node.value = value;
+                node.freshUntil = freshUntil;
+                node.expiresAt = expiresAt;
+                evictionStrategy.onAccess(node);
+            } else {
+                // Make room first, so a new entry is never its own eviction victim
+                evictIfNeeded();
+                node = new CacheNode<>(key, value, freshUntil, expiresAt);
+                cache.put(key, node);
+                evictionStrategy.onInsert(node);
             }
+            if (expiresAt != 0) {
+                timerWheel.schedule(node);
+            }
+            
+            if (config.isRecordStats()) {
+                stats.recordPut();
+            }
+        } finally {
+            evictionLock.unlock();
         }
     }
     
     /**
-     * Evicts the least recently used entry.
-     * Note: This is a simplified implementation. A real LRU cache would 
-     * track access times for all entries.
+     * Evicts entries chosen by the eviction strategy until there is room for a new entry.
      */
-    private void evictLRU() {
-        // For this simplified implementation, just remove the first entry
-        // A real LRU would use a LinkedHashMap or similar structure
-        if (!cache.isEmpty()) {
-            K keyToRemove = cache.keySet().iterator().next();
-            cache.remove(keyToRemove);
+    private void evictIfNeeded() {
+        while (cache.size() >= config.getMaxSize()) {
+            CacheNode<K, V> victim = evictionStrategy.evict();
+            if (victim == null) {
+                return;
+            }
+            cache.remove(victim.key, victim);
+            timerWheel.deschedule(victim);
+            victim.retired = true;
+            if (config.isRecordStats()) {
+                stats.recordEviction();
+            }
         }
     }
     
     /**
-     * Evicts the least frequently used entry.
-     * Note: This is a simplified implementation. A real LFU cache would 
-     * track access counts for all entries.
+     * Removes an expired entry found by a read, rather than waiting for the timer wheel.
      */
-    private void evictLFU() {
-        // For this simplified implementation, just remove the first entry
-        // A real LFU would track access counts
-        if (!cache.isEmpty()) {
-            K keyToRemove = cache.keySet().iterator().next();
-            cache.remove(keyToRemove);
+    private void expireEagerly(CacheNode<K, V> node) {
+        evictionLock.lock();
+        try {
+            if (!node.retired && node.isExpired(ticker.getAsLong())) {
+                timerWheel.deschedule(node);
+                expire(node);
+            }
+        } finally {
+            evictionLock.unlock();
         }
     }
     
     /**
-     * Evicts the oldest entry (first in, first out).
+     * Removes an entry that has been descheduled from the timer wheel.
      */
-    private void evictFIFO() {
-        // Similar to LRU in this simplified implementation
-        if (!cache.isEmpty()) {
-            K keyToRemove = cache.keySet().iterator().next();
-            cache.remove(keyToRemove);
+    private void expire(CacheNode<K, V> node) {
+        cache.remove(node.key, node);
+        evictionStrategy.onRemove(node);
+        node.retired = true;
+        if (config.isRecordStats()) {
+            stats.recordExpiration();
         }
     }
     
     /**
-     * Evicts a random entry.
+     * Reports a read to the eviction strategy, skipping it if another thread holds the lock.
      */
-    private void evictRandom() {
-        if (!cache.isEmpty()) {
-            int randomIndex = (int) (Math.random() * cache.size());
-            K keyToRemove = null;
-            int i = 0;
-            
-            for (K key : cache.keySet()) {
-                if (i == randomIndex) {
-                    keyToRemove = key;
-                    break;
+    private void recordRead(CacheNode<K, V> node) {
+        if (evictionStrategy.recordsReads() && evictionLock.tryLock()) {
+            try {
+                if (!node.retired) {
+                    evictionStrategy.onAccess(node);
                 }
-                i++;
-            }
-            
-            if (keyToRemove != null) {
-                cache.remove(keyToRemove);
+            } finally {
+                evictionLock.unlock();
             }
         }
     }
+    
+    private void recordHit() {
+        if (config.isRecordStats()) {
+            stats.recordHit();
+        }
+    }
+    
+    private void recordMiss() {
+        if (config.isRecordStats()) {
+            stats.recordMiss();
+        }
+    }
+    
+    private static long expirationTime(long now, long ttlNanos) {
+        long expiresAt = now + Math.min(ttlNanos, Long.MAX_VALUE >> 1);
+        // 0 is reserved for entries that never expire
+        return expiresAt == 0 ? 1 : expiresAt;
+    }
+    
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
 }
@@ -0,0 +1,108 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+/**
+ * Least Frequently Used eviction with O(1) operations.
+ * Entries are grouped into buckets of equal access frequency, kept in a list ordered by
+ * frequency. Within a bucket entries are in LRU order, so ties evict the least recent entry.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+final class LfuEvictionStrategy<K, V> implements EvictionStrategy<K, V> {
+    
+    /**
+     * Entries that have been accessed the same number of times.
+     */
+    private static final class FrequencyBucket<K, V> {
+        final long frequency;
+        final NodeList<K, V> nodes = new NodeList<>();
+        FrequencyBucket<K, V> lower;
+        FrequencyBucket<K, V> higher;
+        
+        FrequencyBucket(long frequency) {
+            this.frequency = frequency;
+        }
+    }
+    
+    private FrequencyBucket<K, V> lowest;
+    
+    @Override
+    public void onInsert(CacheNode<K, V> node) {
+        FrequencyBucket<K, V> bucket = lowest;
+        if (bucket == null || bucket.frequency != 1) {
+            bucket = insertAfter(null, 1);
+        }
+        bucket.nodes.addLast(node);
+        node.frequencyBucket = bucket;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onAccess(CacheNode<K, V> node) {
+        FrequencyBucket<K, V> current = (FrequencyBucket<K, V>) node.frequencyBucket;
+        FrequencyBucket<K, V> next = current.higher;
+        if (next == null || next.frequency != current.frequency + 1) {
+            next = insertAfter(current, current.frequency + 1);
+        }
+        
+        current.nodes.remove(node);
+        next.nodes.addLast(node);
+        node.frequencyBucket = next;
+        
+        if (current.nodes.isEmpty()) {
+            unlink(current);
+        }
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onRemove(CacheNode<K, V> node) {
+        FrequencyBucket<K, V> bucket = (FrequencyBucket<K, V>) node.frequencyBucket;
+        bucket.nodes.remove(node);
+        node.frequencyBucket = null;
+        if (bucket.nodes.isEmpty()) {
+            unlink(bucket);
+        }
+    }
+    
+    @Override
+    public CacheNode<K, V> evict() {
+        if (lowest == null) {
+            return null;
+        }
+        CacheNode<K, V> victim = lowest.nodes.peekFirst();
+        onRemove(victim);
+        return victim;
+    }
+    
+    @Override
+    public void clear() {
+        lowest = null;
+    }
+    
+    private FrequencyBucket<K, V> insertAfter(FrequencyBucket<K, V> previous, long frequency) {
+        FrequencyBucket<K, V> bucket = new FrequencyBucket<>(frequency);
+        bucket.lower = previous;
+        bucket.higher = previous == null ? lowest : previous.higher;
+        if (bucket.higher != null) {
+            bucket.higher.lower = bucket;
+        }
+        if (previous == null) {
+            lowest = bucket;
+        } else {
+            previous.higher = bucket;
+        }
+        return bucket;
+    }
+    
+    private void unlink(FrequencyBucket<K, V> bucket) {
+        if (bucket.lower == null) {
+            lowest = bucket.higher;
+        } else {
+            bucket.lower.higher = bucket.higher;
+        }
+        if (bucket.higher != null) {
+            bucket.higher.lower = bucket.lower;
+        }
+    }
+}
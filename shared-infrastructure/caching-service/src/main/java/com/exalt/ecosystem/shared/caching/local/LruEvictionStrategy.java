@@ -0,0 +1,36 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+/**
+ * Least Recently Used eviction, keeping entries in access order.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+final class LruEvictionStrategy<K, V> implements EvictionStrategy<K, V> {
+    private final NodeList<K, V> accessOrder = new NodeList<>();
+    
+    @Override
+    public void onInsert(CacheNode<K, V> node) {
+        accessOrder.addLast(node);
+    }
+    
+    @Override
+    public void onAccess(CacheNode<K, V> node) {
+        accessOrder.moveToLast(node);
+    }
+    
+    @Override
+    public void onRemove(CacheNode<K, V> node) {
+        accessOrder.remove(node);
+    }
+    
+    @Override
+    public CacheNode<K, V> evict() {
+        return accessOrder.pollFirst();
+    }
+    
+    @Override
+    public void clear() {
+        accessOrder.clear();
+    }
+}
@@ -0,0 +1,76 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+/**
+ * Intrusive doubly-linked list of cache nodes, using the nodes' own links
+ * so that every operation is O(1) and allocation free.
+ * A node can only be a member of one NodeList at a time.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+final class NodeList<K, V> {
+    private CacheNode<K, V> first;
+    private CacheNode<K, V> last;
+    private int size;
+    
+    void addLast(CacheNode<K, V> node) {
+        node.prev = last;
+        node.next = null;
+        if (last == null) {
+            first = node;
+        } else {
+            last.next = node;
+        }
+        last = node;
+        size++;
+    }
+    
+    void remove(CacheNode<K, V> node) {
+        if (node.prev == null) {
+            first = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            last = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        size--;
+    }
+    
+    void moveToLast(CacheNode<K, V> node) {
+        if (node != last) {
+            remove(node);
+            addLast(node);
+        }
+    }
+    
+    CacheNode<K, V> peekFirst() {
+        return first;
+    }
+    
+    CacheNode<K, V> pollFirst() {
+        CacheNode<K, V> node = first;
+        if (node != null) {
+            remove(node);
+        }
+        return node;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    void clear() {
+        first = null;
+        last = null;
+        size = 0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random eviction. Entries are kept in an array so that a random entry can be
+ * selected and removed in O(1) by swapping it with the last element.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+final class RandomEvictionStrategy<K, V> implements EvictionStrategy<K, V> {
+    private final List<CacheNode<K, V>> nodes = new ArrayList<>();
+    
+    @Override
+    public void onInsert(CacheNode<K, V> node) {
+        node.index = nodes.size();
+        nodes.add(node);
+    }
+    
+    @Override
+    public void onAccess(CacheNode<K, V> node) {
+        // Random eviction does not depend on access patterns
+    }
+    
+    @Override
+    public void onRemove(CacheNode<K, V> node) {
+        int index = node.index;
+        CacheNode<K, V> last = nodes.remove(nodes.size() - 1);
+        if (last != node) {
+            nodes.set(index, last);
+            last.index = index;
+        }
+        node.index = -1;
+    }
+    
+    @Override
+    public CacheNode<K, V> evict() {
+        if (nodes.isEmpty()) {
+            return null;
+        }
+        CacheNode<K, V> victim = nodes.get(ThreadLocalRandom.current().nextInt(nodes.size()));
+        onRemove(victim);
+        return victim;
+    }
+    
+    @Override
+    public void clear() {
+        nodes.clear();
+    }
+    
+    @Override
+    public boolean recordsReads() {
+        return false;
+    }
+}
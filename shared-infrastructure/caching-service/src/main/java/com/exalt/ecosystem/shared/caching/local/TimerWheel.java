@@ -0,0 +1,160 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel tracking the expiration of cache entries.
+ * Each level of the wheel is an array of buckets covering a power-of-two time span
+ * (about 1 second, 1 minute, 1 hour, 1 day and 6 days). Scheduling and descheduling an
+ * entry are O(1). When time advances only the buckets whose span has passed are visited;
+ * their entries either expire or cascade down to a finer level of the wheel.
+ * Instances are not thread-safe and are guarded by the cache's eviction lock.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+final class TimerWheel<K, V> {
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final long[] SPANS = {
+        1L << 30, // 1.07s
+        1L << 36, // 1.14m
+        1L << 42, // 1.22h
+        1L << 47, // 1.63d
+        1L << 49, // 6.5d
+        1L << 49  // 6.5d
+    };
+    private static final long[] SHIFT = new long[SPANS.length];
+    
+    static {
+        for (int i = 0; i < SPANS.length; i++) {
+            SHIFT[i] = Long.numberOfTrailingZeros(SPANS[i]);
+        }
+    }
+    
+    private final CacheNode<K, V>[][] wheel;
+    private long nanos;
+    
+    TimerWheel(long now) {
+        this.nanos = now;
+        @SuppressWarnings("unchecked")
+        CacheNode<K, V>[][] levels = (CacheNode<K, V>[][]) new CacheNode<?, ?>[BUCKETS.length][];
+        for (int i = 0; i < levels.length; i++) {
+            @SuppressWarnings("unchecked")
+            CacheNode<K, V>[] buckets = (CacheNode<K, V>[]) new CacheNode<?, ?>[BUCKETS[i]];
+            for (int j = 0; j < buckets.length; j++) {
+                buckets[j] = newSentinel();
+            }
+            levels[i] = buckets;
+        }
+        this.wheel = levels;
+    }
+    
+    /**
+     * Adds an entry with an expiration time to the wheel.
+     */
+    void schedule(CacheNode<K, V> node) {
+        CacheNode<K, V> sentinel = findBucket(node.expiresAt);
+        node.previousInWheel = sentinel.previousInWheel;
+        node.nextInWheel = sentinel;
+        sentinel.previousInWheel.nextInWheel = node;
+        sentinel.previousInWheel = node;
+    }
+    
+    /**
+     * Removes an entry from the wheel, if it is scheduled.
+     */
+    void deschedule(CacheNode<K, V> node) {
+        if (node.nextInWheel != null) {
+            node.nextInWheel.previousInWheel = node.previousInWheel;
+            node.previousInWheel.nextInWheel = node.nextInWheel;
+            node.nextInWheel = null;
+            node.previousInWheel = null;
+        }
+    }
+    
+    /**
+     * Advances the wheel to the current time, passing every entry that has expired
+     * to the given callback. Expired entries are descheduled before the callback is invoked.
+     *
+     * @param now      The current time of the cache's ticker
+     * @param onExpiry Callback receiving expired entries
+     */
+    void advance(long now, Consumer<CacheNode<K, V>> onExpiry) {
+        long previous = nanos;
+        nanos = now;
+        for (int i = 0; i < wheel.length; i++) {
+            long previousTicks = previous >>> SHIFT[i];
+            long currentTicks = now >>> SHIFT[i];
+            if (currentTicks - previousTicks <= 0) {
+                break;
+            }
+            expire(i, previousTicks, currentTicks, onExpiry);
+        }
+    }
+    
+    /**
+     * Removes all entries from the wheel.
+     */
+    void clear() {
+        for (CacheNode<K, V>[] buckets : wheel) {
+            for (CacheNode<K, V> sentinel : buckets) {
+                CacheNode<K, V> node = sentinel.nextInWheel;
+                while (node != sentinel) {
+                    CacheNode<K, V> next = node.nextInWheel;
+                    node.nextInWheel = null;
+                    node.previousInWheel = null;
+                    node = next;
+                }
+                sentinel.nextInWheel = sentinel;
+                sentinel.previousInWheel = sentinel;
+            }
+        }
+    }
+    
+    private void expire(int level, long previousTicks, long currentTicks, Consumer<CacheNode<K, V>> onExpiry) {
+        CacheNode<K, V>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        long delta = currentTicks - previousTicks;
+        int start = delta >= buckets.length ? 0 : (int) (previousTicks & mask);
+        int count = (int) Math.min(delta + 1, buckets.length);
+        
+        for (int i = 0; i < count; i++) {
+            CacheNode<K, V> sentinel = buckets[(start + i) & mask];
+            CacheNode<K, V> node = sentinel.nextInWheel;
+            sentinel.nextInWheel = sentinel;
+            sentinel.previousInWheel = sentinel;
+            
+            while (node != sentinel) {
+                CacheNode<K, V> next = node.nextInWheel;
+                node.nextInWheel = null;
+                node.previousInWheel = null;
+                if (node.expiresAt - nanos <= 0) {
+                    onExpiry.accept(node);
+                } else {
+                    // Not yet due, so cascade into a finer-grained bucket
+                    schedule(node);
+                }
+                node = next;
+            }
+        }
+    }
+    
+    private CacheNode<K, V> findBucket(long time) {
+        long duration = time - nanos;
+        int last = wheel.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = time >>> SHIFT[i];
+                return wheel[i][(int) ticks & (wheel[i].length - 1)];
+            }
+        }
+        return wheel[last][0];
+    }
+    
+    private CacheNode<K, V> newSentinel() {
+        CacheNode<K, V> sentinel = new CacheNode<>(null, null, 0, 0);
+        sentinel.nextInWheel = sentinel;
+        sentinel.previousInWheel = sentinel;
+        return sentinel;
+    }
+}
@@ -0,0 +1,125 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+/**
+ * Window TinyLFU eviction.
+ * New entries enter a small LRU window holding 1% of the capacity. Entries leaving the
+ * window join the probation segment of a segmented LRU main space, and move to the protected
+ * segment (80% of the main space) when accessed again. When the cache is full, the oldest
+ * window entry competes with the oldest probation entry, and the one that the {@link FrequencySketch}
+ * estimates to be used less often is evicted. Entries that are only read once, such as those
+ * of a scan, therefore cannot push frequently used entries out of the cache.
+ *
+ * @param <K> Type of the cache key
+ * @param <V> Type of the cached value
+ */
+final class WindowTinyLfuEvictionStrategy<K, V> implements EvictionStrategy<K, V> {
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.8;
+    
+    private final NodeList<K, V> window = new NodeList<>();
+    private final NodeList<K, V> probation = new NodeList<>();
+    private final NodeList<K, V> protectedSegment = new NodeList<>();
+    private final FrequencySketch sketch;
+    private final int maxWindowSize;
+    private final int maxProtectedSize;
+    
+    WindowTinyLfuEvictionStrategy(int maximumSize) {
+        this.sketch = new FrequencySketch(maximumSize);
+        this.maxWindowSize = Math.max(1, (int) (maximumSize * WINDOW_RATIO));
+        this.maxProtectedSize = (int) (Math.max(0, maximumSize - maxWindowSize) * PROTECTED_RATIO);
+    }
+    
+    @Override
+    public void onInsert(CacheNode<K, V> node) {
+        sketch.increment(node.key);
+        node.queue = CacheNode.Queue.WINDOW;
+        window.addLast(node);
+        
+        // While the cache is filling up, entries leaving the window move to the main space freely
+        while (window.size() > maxWindowSize) {
+            moveToProbation(window.pollFirst());
+        }
+    }
+    
+    @Override
+    public void onAccess(CacheNode<K, V> node) {
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                node.queue = CacheNode.Queue.PROTECTED;
+                protectedSegment.addLast(node);
+                demoteIfNeeded();
+                break;
+            case PROTECTED:
+                protectedSegment.moveToLast(node);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    @Override
+    public void onRemove(CacheNode<K, V> node) {
+        queueOf(node).remove(node);
+        node.queue = null;
+    }
+    
+    @Override
+    public CacheNode<K, V> evict() {
+        CacheNode<K, V> candidate = window.size() >= maxWindowSize ? window.peekFirst() : null;
+        CacheNode<K, V> victim = !probation.isEmpty() ? probation.peekFirst() : protectedSegment.peekFirst();
+        
+        CacheNode<K, V> evicted;
+        if (candidate == null) {
+            evicted = victim != null ? victim : window.peekFirst();
+        } else if (victim == null) {
+            evicted = candidate;
+        } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            // The candidate is used more often than the entry it replaces, so it is admitted
+            evicted = victim;
+            window.remove(candidate);
+            moveToProbation(candidate);
+        } else {
+            evicted = candidate;
+        }
+        
+        if (evicted != null) {
+            onRemove(evicted);
+        }
+        return evicted;
+    }
+    
+    @Override
+    public void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+    
+    private void demoteIfNeeded() {
+        while (protectedSegment.size() > maxProtectedSize) {
+            moveToProbation(protectedSegment.pollFirst());
+        }
+    }
+    
+    private void moveToProbation(CacheNode<K, V> node) {
+        node.queue = CacheNode.Queue.PROBATION;
+        probation.addLast(node);
+    }
+    
+    private NodeList<K, V> queueOf(CacheNode<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                return window;
+            case PROTECTED:
+                return protectedSegment;
+            case PROBATION:
+            default:
+                return probation;
+        }
+    }
+}
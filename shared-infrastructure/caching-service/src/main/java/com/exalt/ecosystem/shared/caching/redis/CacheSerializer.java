@@ -0,0 +1,29 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.gogidix.ecosystem.shared.caching.CacheException;
+
+/**
+ * Converts cache keys or values to and from the bytes stored in a remote cache.
+ *
+ * @param <T> Type of the serialized object
+ */
+public interface CacheSerializer<T> {
+    
+    /**
+     * Serializes an object.
+     *
+     * @param value The object to serialize, never null
+     * @return The serialized bytes
+     * @throws CacheException if the object cannot be serialized
+     */
+    byte[] serialize(T value) throws CacheException;
+    
+    /**
+     * Deserializes an object.
+     *
+     * @param bytes The serialized bytes, never null
+     * @return The deserialized object
+     * @throws CacheException if the bytes cannot be deserialized
+     */
+    T deserialize(byte[] bytes) throws CacheException;
+}
@@ -0,0 +1,76 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.gogidix.ecosystem.shared.caching.CacheException;
+import com.gogidix.ecosystem.shared.caching.CacheException.ErrorCode;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Shared Redis connection that pipelines the commands of all threads using it.
+ * Commands are written to the connection without waiting for earlier replies, and automatic
+ * flushing is disabled so that commands issued concurrently, or in bulk by one caller, are
+ * sent to the server in a single write instead of one network flush per command.
+ */
+final class CommandPipeline implements AutoCloseable {
+    private final StatefulRedisConnection<byte[], byte[]> connection;
+    private final RedisAsyncCommands<byte[], byte[]> commands;
+    private final long timeoutMillis;
+    
+    CommandPipeline(StatefulRedisConnection<byte[], byte[]> connection, long timeoutMillis) {
+        this.connection = connection;
+        this.commands = connection.async();
+        this.timeoutMillis = timeoutMillis;
+        connection.setAutoFlushCommands(false);
+    }
+    
+    /**
+     * Queues a command and flushes it together with any other queued commands.
+     */
+    <T> RedisFuture<T> submit(Function<RedisAsyncCommands<byte[], byte[]>, RedisFuture<T>> command) {
+        RedisFuture<T> future = command.apply(commands);
+        connection.flushCommands();
+        return future;
+    }
+    
+    /**
+     * Queues a command without flushing it; callers must {@link #flush()} once their batch is queued.
+     */
+    <T> RedisFuture<T> queue(Function<RedisAsyncCommands<byte[], byte[]>, RedisFuture<T>> command) {
+        return command.apply(commands);
+    }
+    
+    /**
+     * Sends all queued commands to the server.
+     */
+    void flush() {
+        connection.flushCommands();
+    }
+    
+    /**
+     * Waits for the reply of a command, up to the configured connection timeout.
+     */
+    <T> T await(RedisFuture<T> future) throws CacheException {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new CacheException(ErrorCode.TIMEOUT_ERROR, "Redis command timed out after " + timeoutMillis + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Interrupted while waiting for Redis", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new CacheException(ErrorCode.CONNECTION_ERROR, "Redis command failed: " + cause.getMessage(), cause);
+        }
+    }
+    
+    @Override
+    public void close() {
+        connection.close();
+    }
+}
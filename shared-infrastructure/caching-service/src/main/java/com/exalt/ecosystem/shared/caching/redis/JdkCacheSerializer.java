@@ -0,0 +1,49 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.gogidix.ecosystem.shared.caching.CacheException;
+import com.gogidix.ecosystem.shared.caching.CacheException.ErrorCode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Serializer using Java serialization. Values must implement {@link Serializable}.
+ * This is the default value serializer of {@link RedisCache}; compact formats can be
+ * plugged in through {@link CacheSerializer} where values are large or shared across languages.
+ *
+ * @param <T> Type of the serialized object
+ */
+public class JdkCacheSerializer<T> implements CacheSerializer<T> {
+    
+    @Override
+    public byte[] serialize(T value) throws CacheException {
+        if (!(value instanceof Serializable)) {
+            throw new CacheException(
+                ErrorCode.SERIALIZATION_ERROR,
+                "Value of type " + value.getClass().getName() + " is not Serializable"
+            );
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new CacheException(ErrorCode.SERIALIZATION_ERROR, "Failed to serialize value: " + e.getMessage(), e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(byte[] bytes) throws CacheException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (T) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new CacheException(ErrorCode.SERIALIZATION_ERROR, "Failed to deserialize value: " + e.getMessage(), e);
+        }
+    }
+}
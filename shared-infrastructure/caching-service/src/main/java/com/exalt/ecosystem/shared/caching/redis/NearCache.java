@@ -0,0 +1,207 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.gogidix.ecosystem.shared.caching.CacheConfig;
+import com.gogidix.ecosystem.shared.caching.CacheException;
+import com.gogidix.ecosystem.shared.caching.CacheStats;
+import com.gogidix.ecosystem.shared.caching.SingleFlightLoader.CachedValue;
+import com.gogidix.ecosystem.shared.caching.local.InMemoryCache;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded local cache of values read from Redis.
+ * Entries are invalidated through Redis keyspace notifications, so writes from any
+ * instance are observed within the notification latency. The near-cache is cleared
+ * whenever the subscription connection drops, since notifications may have been missed,
+ * and entries also expire after a TTL in case the server stops publishing notifications.
+ *
+ * @param <V> Type of the cached value
+ */
+final class NearCache<V> implements AutoCloseable {
+    
+    /**
+     * A locally cached value and the local time at which it becomes stale in Redis.
+     */
+    private static final class Entry<V> {
+        final V value;
+        final long freshUntil;
+        
+        Entry(V value, long freshUntil) {
+            this.value = value;
+            this.freshUntil = freshUntil;
+        }
+    }
+    
+    private final InMemoryCache<ByteBuffer, Entry<V>> entries;
+    private final long maxTtlNanos;
+    private final RedisClient client;
+    private final StatefulRedisPubSubConnection<byte[], byte[]> subscription;
+    private final RedisConnectionStateListener connectionListener;
+    private final int channelPrefixLength;
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    /**
+     * Creates a near-cache subscribed to the notifications of all keys starting with the prefix.
+     *
+     * @param client    The client used to open the subscription connection
+     * @param uri       The URI of the Redis server
+     * @param name      The name of the owning cache
+     * @param keyPrefix The prefix of the owning cache's keys
+     * @param config    The configuration of the owning cache
+     */
+    NearCache(RedisClient client, RedisURI uri, String name, byte[] keyPrefix, CacheConfig config) {
+        this.client = client;
+        this.entries = new InMemoryCache<>(name + "-near", new CacheConfig(16, config.getNearCacheMaxSize())
+            .setEvictionPolicy(CacheConfig.EvictionPolicy.W_TINY_LFU)
+            .setDefaultTtlSeconds(config.getNearCacheTtlSeconds())
+            .setRecordStats(config.isRecordStats()));
+        this.maxTtlNanos = config.getNearCacheTtlSeconds() > 0
+            ? TimeUnit.SECONDS.toNanos(config.getNearCacheTtlSeconds())
+            : Long.MAX_VALUE;
+        
+        byte[] channelPrefix = ("__keyspace@" + uri.getDatabase() + "__:").getBytes(StandardCharsets.UTF_8);
+        this.channelPrefixLength = channelPrefix.length;
+        
+        this.subscription = client.connectPubSub(ByteArrayCodec.INSTANCE, uri);
+        this.subscription.addListener(new RedisPubSubAdapter<byte[], byte[]>() {
+            @Override
+            public void message(byte[] pattern, byte[] channel, byte[] event) {
+                invalidate(Arrays.copyOfRange(channel, channelPrefixLength, channel.length));
+            }
+        });
+        
+        this.connectionListener = new RedisConnectionStateListener() {
+            @Override
+            public void onRedisConnected(RedisChannelHandler<?, ?> connection, SocketAddress socketAddress) {
+                if (connection == subscription) {
+                    clear();
+                }
+            }
+            
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> connection) {
+                if (connection == subscription) {
+                    clear();
+                }
+            }
+        };
+        client.addListener(connectionListener);
+        
+        this.subscription.sync().psubscribe(concat(channelPrefix, RedisCache.escapeGlob(keyPrefix), new byte[]{'*'}));
+    }
+    
+    /**
+     * Gets a locally cached value. Values are only cached locally while they are fresh.
+     *
+     * @return The value, or null if it is not cached locally
+     */
+    CachedValue<V> get(byte[] key) throws CacheException {
+        Entry<V> entry = entries.get(ByteBuffer.wrap(key));
+        if (entry == null) {
+            return null;
+        }
+        if (entry.freshUntil == 0) {
+            return CachedValue.withoutExpiry(entry.value);
+        }
+        
+        long freshNanos = entry.freshUntil - System.nanoTime();
+        return freshNanos > 0 ? CachedValue.of(entry.value, freshNanos) : null;
+    }
+    
+    /**
+     * Gets the number of invalidations so far. Read it before fetching a value from Redis
+     * and pass it to {@link #putIfNotInvalidated} to avoid caching a value that was
+     * overwritten while the fetch was in flight.
+     */
+    long invalidationCount() {
+        return invalidations.get();
+    }
+    
+    /**
+     * Caches a fresh value fetched from Redis unless any key was invalidated since the fetch started.
+     *
+     * @param freshNanos Nanoseconds until the value becomes stale, or Long.MAX_VALUE if it never does
+     */
+    void putIfNotInvalidated(byte[] key, V value, long freshNanos, long invalidationCount) throws CacheException {
+        if (freshNanos <= 0) {
+            return;
+        }
+        
+        if (invalidations.get() == invalidationCount) {
+            if (freshNanos == Long.MAX_VALUE) {
+                entries.put(ByteBuffer.wrap(key), new Entry<>(value, 0));
+            } else {
+                entries.put(ByteBuffer.wrap(key), new Entry<>(value, System.nanoTime() + freshNanos),
+                    Math.min(freshNanos, maxTtlNanos), TimeUnit.NANOSECONDS);
+            }
+            // An invalidation may have raced with the put, in which case it must win
+            if (invalidations.get() != invalidationCount) {
+                entries.remove(ByteBuffer.wrap(key));
+            }
+        }
+    }
+    
+    /**
+     * Removes a key from the near-cache.
+     */
+    void invalidate(byte[] key) {
+        invalidations.incrementAndGet();
+        try {
+            entries.remove(ByteBuffer.wrap(key));
+        } catch (CacheException e) {
+            // Only thrown for null keys
+        }
+    }
+    
+    /**
+     * Removes all entries from the near-cache.
+     */
+    void clear() {
+        invalidations.incrementAndGet();
+        try {
+            entries.clear();
+        } catch (CacheException e) {
+            // Not thrown by the in-memory cache
+        }
+    }
+    
+    /**
+     * Gets the statistics of the near-cache.
+     */
+    CacheStats getStats() {
+        return entries.getStats();
+    }
+    
+    @Override
+    public void close() {
+        client.removeListener(connectionListener);
+        subscription.close();
+        clear();
+    }
+    
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+}
@@ -3,95 +3,541 @@ package com.exalt.ecosystem.shared.caching.redis;
 import com.gogidix.ecosystem.shared.caching.Cache;
 import com.gogidix.ecosystem.shared.caching.CacheConfig;
 import com.gogidix.ecosystem.shared.caching.CacheException;
+import com.gogidix.ecosystem.shared.caching.CacheException.ErrorCode;
+import com.gogidix.ecosystem.shared.caching.CacheStats;
+import com.gogidix.ecosystem.shared.caching.SingleFlightLoader;
+import com.gogidix.ecosystem.shared.caching.SingleFlightLoader.CachedValue;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.StaticCredentialsProvider;
+import io.lettuce.core.codec.ByteArrayCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
- * Redis implementation of the Cache interface.
- * This is a simplified implementation for compilation purposes.
+ * Redis implementation of the Cache interface, built on a single pipelined Lettuce connection.
+ * Keys are stored as the cache name, a colon and the serialized key. Values are serialized
+ * with a pluggable {@link CacheSerializer}, Java serialization by default.
+ * <p>
+ * When the near-cache is enabled in the {@link CacheConfig}, values read from Redis are also
+ * kept in a bounded local cache that is invalidated through Redis keyspace notifications.
+ * <p>
+ * getOrPut loads missing values through a {@link SingleFlightLoader}. Concurrent misses within
+ * this instance call the supplier once; instances do not coordinate loads with each other.
+ * With a stale-while-revalidate window, entries are kept in Redis for that long past their TTL,
+ * and the remaining TTL is read with PTTL in the same pipeline flush as the value.
  *
  * @param <K> Type of the cache key
  * @param <V> Type of the cached value
  */
-public class RedisCache<K, V> implements Cache<K, V> {
+public class RedisCache<K, V> implements Cache<K, V>, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(RedisCache.class);
+    
+    private static final String DEFAULT_CONNECTION_STRING = "redis://localhost:6379";
+    private static final int SCAN_BATCH_SIZE = 500;
+    
     private final String name;
     private final CacheConfig config;
+    private final CacheSerializer<K> keySerializer;
+    private final CacheSerializer<V> valueSerializer;
+    private final byte[] keyPrefix;
+    private final RedisClient client;
+    private final CommandPipeline pipeline;
+    private final NearCache<V> nearCache;
+    private final SingleFlightLoader<K, V> loader;
+    private final long staleMillis;
+    private final boolean tracksFreshness;
     
     /**
      * Creates a new Redis cache with the specified name and configuration.
+     * Keys are encoded with their toString() representation and values with Java serialization.
      *
      * @param name   The name of the cache
      * @param config The cache configuration
+     * @throws CacheException if the connection to Redis cannot be established
      */
-    public RedisCache(String name, CacheConfig config) {
+    public RedisCache(String name, CacheConfig config) throws CacheException {
+        this(name, config, new ToStringKeySerializer<>(), new JdkCacheSerializer<>());
+    }
+    
+    /**
+     * Creates a new Redis cache with the specified name, configuration and serializers.
+     *
+     * @param name            The name of the cache
+     * @param config          The cache configuration
+     * @param keySerializer   Serializer for cache keys
+     * @param valueSerializer Serializer for cached values
+     * @throws CacheException if the connection to Redis cannot be established
+     */
+    public RedisCache(String name, CacheConfig config, CacheSerializer<K> keySerializer,
+                      CacheSerializer<V> valueSerializer) throws CacheException {
         this.name = name;
         this.config = config;
-        // TODO: Initialize Redis connection
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.keyPrefix = (name + ":").getBytes(StandardCharsets.UTF_8);
+        this.loader = new SingleFlightLoader<>(name, config);
+        this.staleMillis = TimeUnit.SECONDS.toMillis(Math.max(0, config.getStaleWhileRevalidateSeconds()));
+        this.tracksFreshness = staleMillis > 0 || config.getEarlyRefreshBeta() > 0;
+        
+        RedisURI uri = createUri(config);
+        this.client = RedisClient.create(uri);
+        try {
+            this.pipeline = new CommandPipeline(client.connect(ByteArrayCodec.INSTANCE), config.getConnectionTimeout());
+            if (config.isNearCacheEnabled()) {
+                enableKeyspaceNotifications();
+                this.nearCache = new NearCache<>(client, uri, name, keyPrefix, config);
+            } else {
+                this.nearCache = null;
+            }
+        } catch (RedisException e) {
+            client.shutdown();
+            throw new CacheException(
+                ErrorCode.CONNECTION_ERROR,
+                "Failed to connect to Redis at " + uri.getHost() + ":" + uri.getPort() + ": " + e.getMessage(),
+                e
+            );
+        }
     }
     
     @Override
     public V get(K key) throws CacheException {
-        // TODO: Implement Redis get operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        // Stale entries are only served by getOrPut
+        CachedValue<V> cached = lookup(key);
+        return cached != null && cached.isFresh() ? cached.getValue() : null;
     }
     
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T get(K key, Class<T> clazz) throws CacheException {
-        // TODO: Implement Redis get with type operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        V value = get(key);
+        
+        if (value == null) {
+            return null;
+        }
+        
+        if (clazz.isInstance(value)) {
+            return (T) value;
+        } else {
+            throw new CacheException(
+                ErrorCode.TYPE_MISMATCH,
+                "Cached value is not of the expected type. Expected: " + clazz.getName() +
+                ", Actual: " + value.getClass().getName()
+            );
+        }
     }
     
     @Override
     public V getOrPut(K key, Supplier<V> supplier) throws CacheException {
-        // TODO: Implement Redis getOrPut operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        return loader.getOrLoad(key, this::lookup, supplier, this::put);
     }
     
     @Override
     public V getOrPut(K key, Supplier<V> supplier, long ttl, TimeUnit timeUnit) throws CacheException {
-        // TODO: Implement Redis getOrPut with TTL operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        return loader.getOrLoad(key, this::lookup, supplier, (k, value) -> put(k, value, ttl, timeUnit));
     }
     
     @Override
     public void put(K key, V value) throws CacheException {
-        // TODO: Implement Redis put operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        // Use default TTL if specified in config
+        long ttl = config.getDefaultTtlSeconds();
+        if (ttl > 0) {
+            put(key, value, ttl, TimeUnit.SECONDS);
+            return;
+        }
+        
+        byte[] redisKey = encodeKey(key);
+        byte[] bytes = encodeValue(value);
+        pipeline.await(pipeline.submit(commands -> commands.set(redisKey, bytes)));
+        invalidateLocally(redisKey);
     }
     
     @Override
     public void put(K key, V value, long ttl, TimeUnit timeUnit) throws CacheException {
-        // TODO: Implement Redis put with TTL operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        byte[] redisKey = encodeKey(key);
+        byte[] bytes = encodeValue(value);
+        long ttlMillis = toMillis(ttl, timeUnit) + staleMillis;
+        
+        pipeline.await(pipeline.submit(commands -> commands.psetex(redisKey, ttlMillis, bytes)));
+        invalidateLocally(redisKey);
     }
     
     @Override
     public boolean containsKey(K key) throws CacheException {
-        // TODO: Implement Redis containsKey operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        byte[] redisKey = encodeKey(key);
+        
+        if (nearCache != null && nearCache.get(redisKey) != null) {
+            return true;
+        }
+        
+        if (staleMillis > 0) {
+            return isFresh(pipeline.await(pipeline.submit(commands -> commands.pttl(redisKey))));
+        }
+        return pipeline.await(pipeline.submit(commands -> commands.exists(redisKey))) > 0;
     }
     
     @Override
     public boolean remove(K key) throws CacheException {
-        // TODO: Implement Redis remove operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        byte[] redisKey = encodeKey(key);
+        long removed = pipeline.await(pipeline.submit(commands -> commands.del(redisKey)));
+        invalidateLocally(redisKey);
+        return removed > 0;
     }
     
+    /**
+     * Removes all keys of this cache. Keys are found with SCAN and removed with UNLINK in
+     * batches, so the server is never blocked by a single large command.
+     */
     @Override
     public void clear() throws CacheException {
-        // TODO: Implement Redis clear operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        ScanArgs scanArgs = ScanArgs.Builder.matches(keyPattern()).limit(SCAN_BATCH_SIZE);
+        ScanCursor cursor = ScanCursor.INITIAL;
+        
+        do {
+            ScanCursor current = cursor;
+            KeyScanCursor<byte[]> batch = pipeline.await(pipeline.submit(commands -> commands.scan(current, scanArgs)));
+            if (!batch.getKeys().isEmpty()) {
+                byte[][] keys = batch.getKeys().toArray(new byte[0][]);
+                pipeline.await(pipeline.submit(commands -> commands.unlink(keys)));
+            }
+            cursor = batch;
+        } while (!cursor.isFinished());
+        
+        if (nearCache != null) {
+            nearCache.clear();
+        }
     }
     
+    /**
+     * Counts the keys of this cache with SCAN. This walks the whole keyspace of the
+     * database, so it should be used for diagnostics rather than on hot paths.
+     */
     @Override
     public long size() throws CacheException {
-        // TODO: Implement Redis size operation
-        throw new CacheException(CacheException.ErrorCode.UNKNOWN_ERROR, "Redis implementation not yet complete");
+        ScanArgs scanArgs = ScanArgs.Builder.matches(keyPattern()).limit(SCAN_BATCH_SIZE);
+        ScanCursor cursor = ScanCursor.INITIAL;
+        long count = 0;
+        
+        do {
+            ScanCursor current = cursor;
+            KeyScanCursor<byte[]> batch = pipeline.await(pipeline.submit(commands -> commands.scan(current, scanArgs)));
+            count += batch.getKeys().size();
+            cursor = batch;
+        } while (!cursor.isFinished());
+        
+        return count;
     }
     
     @Override
     public String getName() {
         return name;
     }
+    
+    /**
+     * Gets the values of several keys with a single MGET round trip.
+     * Keys found in the near-cache are not requested from Redis.
+     *
+     * @param keys The cache keys
+     * @return The cached values by key; keys without a value are absent from the map
+     * @throws CacheException if an error occurs during the operation
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys) throws CacheException {
+        Map<K, V> result = new LinkedHashMap<>();
+        List<K> missingKeys = new ArrayList<>(keys.size());
+        List<byte[]> missingRedisKeys = new ArrayList<>(keys.size());
+        
+        for (K key : keys) {
+            byte[] redisKey = encodeKey(key);
+            CachedValue<V> cached = nearCache != null ? nearCache.get(redisKey) : null;
+            if (cached != null) {
+                result.put(key, cached.getValue());
+            } else {
+                missingKeys.add(key);
+                missingRedisKeys.add(redisKey);
+            }
+        }
+        
+        if (missingKeys.isEmpty()) {
+            return result;
+        }
+        
+        long invalidations = nearCache != null ? nearCache.invalidationCount() : 0;
+        byte[][] redisKeys = missingRedisKeys.toArray(new byte[0][]);
+        RedisFuture<List<KeyValue<byte[], byte[]>>> reply = pipeline.queue(commands -> commands.mget(redisKeys));
+        List<RedisFuture<Long>> ttlReplies = new ArrayList<>();
+        if (tracksFreshness) {
+            for (byte[] redisKey : redisKeys) {
+                ttlReplies.add(pipeline.queue(commands -> commands.pttl(redisKey)));
+            }
+        }
+        pipeline.flush();
+        List<KeyValue<byte[], byte[]>> values = pipeline.await(reply);
+        
+        // MGET replies in request order
+        for (int i = 0; i < values.size(); i++) {
+            KeyValue<byte[], byte[]> keyValue = values.get(i);
+            long freshNanos = tracksFreshness ? freshNanos(pipeline.await(ttlReplies.get(i))) : Long.MAX_VALUE;
+            if (keyValue.hasValue() && freshNanos > 0) {
+                V value = valueSerializer.deserialize(keyValue.getValue());
+                result.put(missingKeys.get(i), value);
+                if (nearCache != null) {
+                    nearCache.putIfNotInvalidated(redisKeys[i], value, freshNanos, invalidations);
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Puts several values with the default TTL of the configuration.
+     * Without a default TTL all values are written with a single MSET.
+     *
+     * @param values The values to cache by key
+     * @throws CacheException if an error occurs during the operation
+     */
+    public void putAll(Map<? extends K, ? extends V> values) throws CacheException {
+        long ttl = config.getDefaultTtlSeconds();
+        if (ttl > 0) {
+            putAll(values, ttl, TimeUnit.SECONDS);
+            return;
+        }
+        if (values.isEmpty()) {
+            return;
+        }
+        
+        Map<byte[], byte[]> encoded = new LinkedHashMap<>();
+        for (Map.Entry<? extends K, ? extends V> entry : values.entrySet()) {
+            encoded.put(encodeKey(entry.getKey()), encodeValue(entry.getValue()));
+        }
+        
+        pipeline.await(pipeline.submit(commands -> commands.mset(encoded)));
+        encoded.keySet().forEach(this::invalidateLocally);
+    }
+    
+    /**
+     * Puts several values with a TTL. The writes are pipelined and flushed to Redis together.
+     *
+     * @param values   The values to cache by key
+     * @param ttl      Time to live duration
+     * @param timeUnit Time unit for the TTL
+     * @throws CacheException if an error occurs during the operation
+     */
+    public void putAll(Map<? extends K, ? extends V> values, long ttl, TimeUnit timeUnit) throws CacheException {
+        long ttlMillis = toMillis(ttl, timeUnit) + staleMillis;
+        
+        List<byte[]> redisKeys = new ArrayList<>(values.size());
+        List<byte[]> encodedValues = new ArrayList<>(values.size());
+        for (Map.Entry<? extends K, ? extends V> entry : values.entrySet()) {
+            redisKeys.add(encodeKey(entry.getKey()));
+            encodedValues.add(encodeValue(entry.getValue()));
+        }
+        
+        List<RedisFuture<String>> replies = new ArrayList<>(redisKeys.size());
+        for (int i = 0; i < redisKeys.size(); i++) {
+            byte[] redisKey = redisKeys.get(i);
+            byte[] bytes = encodedValues.get(i);
+            replies.add(pipeline.queue(commands -> commands.psetex(redisKey, ttlMillis, bytes)));
+        }
+        pipeline.flush();
+        
+        for (RedisFuture<String> reply : replies) {
+            pipeline.await(reply);
+        }
+        redisKeys.forEach(this::invalidateLocally);
+    }
+    
+    /**
+     * Gets the statistics of the near-cache.
+     *
+     * @return The near-cache statistics, or null if the near-cache is disabled
+     */
+    public CacheStats getNearCacheStats() {
+        return nearCache != null ? nearCache.getStats() : null;
+    }
+    
+    /**
+     * Closes the connections to Redis. Cached data is left in Redis.
+     */
+    @Override
+    public void close() {
+        if (nearCache != null) {
+            nearCache.close();
+        }
+        pipeline.close();
+        client.shutdown();
+    }
+    
+    /**
+     * Escapes the glob characters of a byte sequence so that it only matches itself in a pattern.
+     */
+    static byte[] escapeGlob(byte[] value) {
+        ByteArrayOutputStream escaped = new ByteArrayOutputStream(value.length + 8);
+        for (byte b : value) {
+            if (b == '*' || b == '?' || b == '[' || b == ']' || b == '\\') {
+                escaped.write('\\');
+            }
+            escaped.write(b);
+        }
+        return escaped.toByteArray();
+    }
+    
+    /**
+     * Reads a key together with how long it stays fresh, including entries that are stale
+     * but still within the stale-while-revalidate window.
+     */
+    private CachedValue<V> lookup(K key) throws CacheException {
+        byte[] redisKey = encodeKey(key);
+        
+        if (nearCache != null) {
+            CachedValue<V> cached = nearCache.get(redisKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        long invalidations = nearCache != null ? nearCache.invalidationCount() : 0;
+        byte[] bytes;
+        long freshNanos;
+        if (tracksFreshness) {
+            RedisFuture<byte[]> valueReply = pipeline.queue(commands -> commands.get(redisKey));
+            RedisFuture<Long> ttlReply = pipeline.queue(commands -> commands.pttl(redisKey));
+            pipeline.flush();
+            bytes = pipeline.await(valueReply);
+            freshNanos = freshNanos(pipeline.await(ttlReply));
+        } else {
+            bytes = pipeline.await(pipeline.submit(commands -> commands.get(redisKey)));
+            freshNanos = Long.MAX_VALUE;
+        }
+        
+        if (bytes == null) {
+            return null;
+        }
+        
+        V value = valueSerializer.deserialize(bytes);
+        if (nearCache != null) {
+            nearCache.putIfNotInvalidated(redisKey, value, freshNanos, invalidations);
+        }
+        return CachedValue.of(value, freshNanos);
+    }
+    
+    /**
+     * Converts the remaining TTL of a key into the time until it becomes stale.
+     *
+     * @param pttl The reply of PTTL: -1 for keys without expiry, -2 for missing keys
+     */
+    private long freshNanos(long pttl) {
+        if (pttl == -1) {
+            return Long.MAX_VALUE;
+        }
+        if (pttl < 0) {
+            return 0;
+        }
+        return TimeUnit.MILLISECONDS.toNanos(pttl - staleMillis);
+    }
+    
+    private boolean isFresh(long pttl) {
+        return freshNanos(pttl) > 0;
+    }
+    
+    private byte[] keyPattern() {
+        byte[] escaped = escapeGlob(keyPrefix);
+        byte[] pattern = new byte[escaped.length + 1];
+        System.arraycopy(escaped, 0, pattern, 0, escaped.length);
+        pattern[escaped.length] = '*';
+        return pattern;
+    }
+    
+    private byte[] encodeKey(K key) throws CacheException {
+        if (key == null) {
+            throw new CacheException(ErrorCode.KEY_NOT_FOUND, "Cache key cannot be null");
+        }
+        
+        byte[] serialized = keySerializer.serialize(key);
+        byte[] redisKey = new byte[keyPrefix.length + serialized.length];
+        System.arraycopy(keyPrefix, 0, redisKey, 0, keyPrefix.length);
+        System.arraycopy(serialized, 0, redisKey, keyPrefix.length, serialized.length);
+        return redisKey;
+    }
+    
+    private byte[] encodeValue(V value) throws CacheException {
+        if (value == null) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "Cache value cannot be null");
+        }
+        return valueSerializer.serialize(value);
+    }
+    
+    private long toMillis(long ttl, TimeUnit timeUnit) throws CacheException {
+        if (ttl <= 0) {
+            throw new CacheException(ErrorCode.UNKNOWN_ERROR, "TTL must be positive");
+        }
+        // Redis expiries have millisecond resolution
+        return Math.max(1, timeUnit.toMillis(ttl));
+    }
+    
+    private void invalidateLocally(byte[] redisKey) {
+        if (nearCache != null) {
+            nearCache.invalidate(redisKey);
+        }
+    }
+    
+    /**
+     * Makes sure the server publishes the keyspace events the near-cache relies on.
+     * Managed Redis services may reject CONFIG SET, in which case the events have to be
+     * enabled on the server and the near-cache TTL bounds staleness until they are.
+     */
+    private void enableKeyspaceNotifications() {
+        try {
+            Map<String, String> current = pipeline.await(
+                pipeline.submit(commands -> commands.configGet("notify-keyspace-events")));
+            String flags = current.getOrDefault("notify-keyspace-events", "");
+            
+            StringBuilder required = new StringBuilder(flags);
+            for (char flag : (flags.indexOf('A') >= 0 ? "K" : "Kg$xe").toCharArray()) {
+                if (required.indexOf(String.valueOf(flag)) < 0) {
+                    required.append(flag);
+                }
+            }
+            
+            if (!required.toString().equals(flags)) {
+                pipeline.await(pipeline.submit(commands -> commands.configSet("notify-keyspace-events", required.toString())));
+            }
+        } catch (CacheException e) {
+            log.warn("Could not enable keyspace notifications for near-cache of '{}'; " +
+                     "entries will only be refreshed after {}s: {}", name, config.getNearCacheTtlSeconds(), e.getMessage());
+        }
+    }
+    
+    private static RedisURI createUri(CacheConfig config) {
+        String connectionString = config.getConnectionString() != null
+            ? config.getConnectionString()
+            : DEFAULT_CONNECTION_STRING;
+        
+        RedisURI uri = RedisURI.create(connectionString);
+        if (config.getPassword() != null) {
+            uri.setCredentialsProvider(new StaticCredentialsProvider(
+                config.getUsername(), config.getPassword().toCharArray()));
+        }
+        if (config.isUseSsl()) {
+            uri.setSsl(true);
+        }
+        uri.setTimeout(Duration.ofMillis(config.getConnectionTimeout()));
+        return uri;
+    }
 }
@@ -13,7 +13,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class RedisCacheFactory implements CacheFactory {
     
-    private final Map<String, Cache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final Map<String, RedisCache<?, ?>> caches = new ConcurrentHashMap<>();
     
     @Override
     @SuppressWarnings("unchecked")
@@ -39,7 +39,7 @@ public class RedisCacheFactory implements CacheFactory {
             );
         }
         
-        Cache<K, V> cache = new RedisCache<>(name, config);
+        RedisCache<K, V> cache = new RedisCache<>(name, config);
         caches.put(name, cache);
         
         return cache;
@@ -80,7 +80,7 @@ public class RedisCacheFactory implements CacheFactory {
             );
         }
         
-        Cache<?, ?> cache = caches.remove(name);
+        RedisCache<?, ?> cache = caches.remove(name);
         
         if (cache != null) {
             try {
@@ -92,6 +92,8 @@ public class RedisCacheFactory implements CacheFactory {
                     "Error clearing cache during removal: " + e.getMessage(),
                     e
                 );
+            } finally {
+                cache.close();
             }
         }
         
@@ -110,15 +112,14 @@ public class RedisCacheFactory implements CacheFactory {
         return caches.containsKey(name);
     }
     
+    /**
+     * Closes the connections of all caches. Unlike {@link #removeCache(String)},
+     * this leaves the cached data in Redis for other instances and later restarts.
+     */
     @Override
     public void close() throws CacheException {
-        for (Map.Entry<String, Cache<?, ?>> entry : caches.entrySet()) {
-            try {
-                entry.getValue().clear();
-            } catch (CacheException e) {
-                // Log the error but continue closing other caches
-                System.err.println("Error clearing cache '" + entry.getKey() + "': " + e.getMessage());
-            }
+        for (RedisCache<?, ?> cache : caches.values()) {
+            cache.close();
         }
         
         caches.clear();
@@ -0,0 +1,21 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.gogidix.ecosystem.shared.caching.CacheException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializer storing strings as UTF-8 bytes.
+ */
+public class StringCacheSerializer implements CacheSerializer<String> {
+    
+    @Override
+    public byte[] serialize(String value) throws CacheException {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public String deserialize(byte[] bytes) throws CacheException {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,25 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.gogidix.ecosystem.shared.caching.CacheException;
+import com.gogidix.ecosystem.shared.caching.CacheException.ErrorCode;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Default key serializer, storing the UTF-8 bytes of {@link Object#toString()}.
+ * Keys only ever need to be encoded, so deserialization is not supported.
+ *
+ * @param <K> Type of the cache key
+ */
+class ToStringKeySerializer<K> implements CacheSerializer<K> {
+    
+    @Override
+    public byte[] serialize(K key) throws CacheException {
+        return key.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public K deserialize(byte[] bytes) throws CacheException {
+        throw new CacheException(ErrorCode.SERIALIZATION_ERROR, "Keys encoded with toString() cannot be decoded");
+    }
+}
@@ -0,0 +1,135 @@
+package com.exalt.ecosystem.shared.caching;
+
+import com.gogidix.ecosystem.shared.caching.SingleFlightLoader.CachedValue;
+import com.gogidix.ecosystem.shared.caching.local.InMemoryCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for request coalescing, early refresh, stale serving and timeouts of getOrPut
+ */
+public class SingleFlightLoaderTest {
+
+    @Test
+    @DisplayName("Concurrent misses of the same key call the loader once")
+    public void concurrentMissesAreCoalesced() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("coalesce", new CacheConfig());
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.getOrPut("summary", () -> {
+                        loads.incrementAndGet();
+                        sleep(200);
+                        return "computed";
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("computed", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get(), "Loader should run once for concurrent misses");
+    }
+
+    @Test
+    @DisplayName("A failed load is reported to every waiter and retried by the next call")
+    public void failuresPropagateAndAreNotCached() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("failure", new CacheConfig());
+
+        assertThrows(IllegalStateException.class, () -> cache.getOrPut("key", () -> {
+            throw new IllegalStateException("Backend unavailable");
+        }));
+        assertEquals("recovered", cache.getOrPut("key", () -> "recovered"));
+    }
+
+    @Test
+    @DisplayName("Stale values are served while a single background reload runs")
+    public void staleWhileRevalidate() throws Exception {
+        InMemoryCache<String, Integer> cache = new InMemoryCache<>("stale", new CacheConfig()
+            .setStaleWhileRevalidateSeconds(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, cache.getOrPut("key", loads::incrementAndGet, 100, TimeUnit.MILLISECONDS));
+        sleep(200);
+
+        assertNull(cache.get("key"), "Plain get should treat the stale entry as expired");
+        assertEquals(1, cache.getOrPut("key", loads::incrementAndGet, 100, TimeUnit.MILLISECONDS),
+            "getOrPut should serve the stale value");
+        assertEquals(2, awaitValue(cache, "key", 2), "Background reload should replace the stale value");
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Values close to expiry are refreshed early in the background")
+    public void probabilisticEarlyRefresh() throws Exception {
+        SingleFlightLoader<String, Integer> loader = new SingleFlightLoader<>("early", new CacheConfig()
+            .setEarlyRefreshBeta(1_000_000));
+        Map<String, Integer> store = new ConcurrentHashMap<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        // First load records the load time; the value is then about to become stale
+        assertEquals(1, loader.getOrLoad("key", key -> null, loads::incrementAndGet, store::put));
+        SingleFlightLoader.Reader<String, Integer> almostStale =
+            key -> store.containsKey(key) ? CachedValue.of(store.get(key), 1) : null;
+
+        assertEquals(1, loader.getOrLoad("key", almostStale, loads::incrementAndGet, store::put),
+            "The current value should be returned while refreshing");
+        for (int attempt = 0; attempt < 100 && store.get("key") != 2; attempt++) {
+            sleep(10);
+        }
+        assertEquals(2, store.get("key"));
+    }
+
+    @Test
+    @DisplayName("Callers stop waiting after the loader timeout while the load completes in the background")
+    public void loaderTimeout() throws Exception {
+        InMemoryCache<String, String> cache = new InMemoryCache<>("timeout", new CacheConfig()
+            .setLoaderTimeoutMillis(50));
+
+        CacheException exception = assertThrows(CacheException.class, () -> cache.getOrPut("slow", () -> {
+            sleep(300);
+            return "eventually";
+        }));
+        assertEquals(CacheException.ErrorCode.TIMEOUT_ERROR, exception.getErrorCode());
+
+        assertEquals("eventually", awaitValue(cache, "slow", "eventually"));
+    }
+
+    private static <V> V awaitValue(InMemoryCache<String, V> cache, String key, V expected) throws Exception {
+        V value = cache.get(key);
+        for (int attempt = 0; attempt < 100 && !expected.equals(value); attempt++) {
+            sleep(10);
+            value = cache.get(key);
+        }
+        return value;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
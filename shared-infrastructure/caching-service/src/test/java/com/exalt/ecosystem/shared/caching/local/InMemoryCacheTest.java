@@ -0,0 +1,217 @@
+package com.exalt.ecosystem.shared.caching.local;
+
+import com.gogidix.ecosystem.shared.caching.CacheConfig;
+import com.gogidix.ecosystem.shared.caching.CacheConfig.EvictionPolicy;
+import com.gogidix.ecosystem.shared.caching.CacheException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the eviction and expiration behaviour of InMemoryCache
+ */
+public class InMemoryCacheTest {
+
+    private final AtomicLong time = new AtomicLong();
+
+    @Test
+    @DisplayName("LRU evicts the least recently accessed entry")
+    public void lruEvictsLeastRecentlyUsed() throws CacheException {
+        InMemoryCache<String, Integer> cache = newCache(EvictionPolicy.LRU, 3);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+
+        cache.put("d", 4);
+
+        assertFalse(cache.containsKey("b"), "Least recently used entry should be evicted");
+        assertTrue(cache.containsKey("a"));
+        assertTrue(cache.containsKey("c"));
+        assertTrue(cache.containsKey("d"));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    @DisplayName("LFU evicts the least frequently accessed entry")
+    public void lfuEvictsLeastFrequentlyUsed() throws CacheException {
+        InMemoryCache<String, Integer> cache = newCache(EvictionPolicy.LFU, 3);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        cache.get("c");
+
+        cache.put("d", 4);
+
+        assertFalse(cache.containsKey("b"), "Least frequently used entry should be evicted, oldest first on ties");
+        assertTrue(cache.containsKey("a"));
+        assertTrue(cache.containsKey("c"));
+        assertTrue(cache.containsKey("d"));
+    }
+
+    @Test
+    @DisplayName("FIFO evicts the oldest entry regardless of access")
+    public void fifoEvictsOldestEntry() throws CacheException {
+        InMemoryCache<String, Integer> cache = newCache(EvictionPolicy.FIFO, 3);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+        cache.put("a", 10);
+
+        cache.put("d", 4);
+
+        assertFalse(cache.containsKey("a"), "First inserted entry should be evicted");
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    @DisplayName("RANDOM keeps the cache within its maximum size")
+    public void randomEvictionRespectsMaximumSize() throws CacheException {
+        InMemoryCache<Integer, Integer> cache = newCache(EvictionPolicy.RANDOM, 100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+
+        assertEquals(100, cache.size());
+        assertEquals(900, cache.getStats().getEvictionCount());
+    }
+
+    @Test
+    @DisplayName("W-TinyLFU keeps frequently used entries during a scan")
+    public void tinyLfuResistsScans() throws CacheException {
+        InMemoryCache<Integer, Integer> cache = newCache(EvictionPolicy.W_TINY_LFU, 100);
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 50; key++) {
+                cache.getOrPut(key, () -> 0);
+            }
+        }
+
+        for (int key = 1000; key < 11000; key++) {
+            cache.put(key, key);
+        }
+
+        int retained = 0;
+        for (int key = 0; key < 50; key++) {
+            if (cache.containsKey(key)) {
+                retained++;
+            }
+        }
+        assertTrue(retained >= 45, "Hot entries should survive a scan, retained " + retained);
+    }
+
+    @Test
+    @DisplayName("W-TinyLFU has a better hit rate than LRU on a skewed workload with scans")
+    public void tinyLfuOutperformsLruOnSkewedWorkload() throws CacheException {
+        double lruHitRate = hitRate(newCache(EvictionPolicy.LRU, 500));
+        double tinyLfuHitRate = hitRate(newCache(EvictionPolicy.W_TINY_LFU, 500));
+
+        assertTrue(tinyLfuHitRate > lruHitRate,
+            "W-TinyLFU hit rate " + tinyLfuHitRate + " should exceed LRU hit rate " + lruHitRate);
+    }
+
+    @Test
+    @DisplayName("Entries expire once their TTL elapses")
+    public void entriesExpireAfterTtl() throws CacheException {
+        InMemoryCache<String, Integer> cache = newCache(EvictionPolicy.LRU, 100);
+        cache.put("short", 1, 2, TimeUnit.SECONDS);
+        cache.put("long", 2, 2, TimeUnit.HOURS);
+        cache.put("forever", 3);
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertEquals(2, cache.size(), "Timer wheel should expire the short lived entry");
+        assertNull(cache.get("short"));
+
+        time.addAndGet(TimeUnit.MINUTES.toNanos(119));
+        assertEquals(2, cache.get("long"));
+
+        time.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        assertEquals(1, cache.size());
+        assertNull(cache.get("long"));
+        assertEquals(3, cache.get("forever"));
+        assertEquals(2, cache.getStats().getExpirationCount());
+    }
+
+    @Test
+    @DisplayName("Overwriting an entry replaces its TTL")
+    public void overwriteReplacesTtl() throws CacheException {
+        InMemoryCache<String, Integer> cache = newCache(EvictionPolicy.LRU, 100);
+        cache.put("key", 1, 1, TimeUnit.SECONDS);
+        cache.put("key", 2);
+
+        time.addAndGet(TimeUnit.MINUTES.toNanos(5));
+
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.get("key"));
+    }
+
+    @Test
+    @DisplayName("Statistics count hits, misses and puts")
+    public void statisticsAreRecorded() throws CacheException {
+        InMemoryCache<String, Integer> cache = newCache(EvictionPolicy.LRU, 100);
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+        cache.get("missing");
+
+        assertEquals(2, cache.getStats().getHitCount());
+        assertEquals(1, cache.getStats().getMissCount());
+        assertEquals(1, cache.getStats().getPutCount());
+        assertEquals(2.0 / 3, cache.getStats().getHitRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Remove and clear unlink entries from the eviction order")
+    public void removeAndClearKeepEvictionOrderConsistent() throws CacheException {
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            InMemoryCache<Integer, Integer> cache = newCache(policy, 10);
+            for (int i = 0; i < 20; i++) {
+                cache.put(i, i, 1, TimeUnit.MINUTES);
+                if (i % 3 == 0) {
+                    cache.remove(i);
+                }
+            }
+            assertTrue(cache.size() <= 10, policy + " should respect the maximum size");
+
+            cache.clear();
+            assertEquals(0, cache.size());
+            for (int i = 0; i < 20; i++) {
+                cache.put(i, i);
+            }
+            assertEquals(10, cache.size(), policy + " should evict after being cleared");
+        }
+    }
+
+    private <K, V> InMemoryCache<K, V> newCache(EvictionPolicy policy, int maxSize) {
+        CacheConfig config = new CacheConfig(16, maxSize)
+            .setEvictionPolicy(policy)
+            .setRecordStats(true);
+        return new InMemoryCache<>("test", config, time::get);
+    }
+
+    /**
+     * Runs a Zipf-like workload interleaved with scans of keys that are never reused
+     */
+    private double hitRate(InMemoryCache<Integer, Integer> cache) throws CacheException {
+        Random random = new Random(42);
+        int scanKey = 1_000_000;
+        for (int i = 0; i < 200_000; i++) {
+            int key;
+            if (i % 4 == 0) {
+                key = scanKey++;
+            } else {
+                key = (int) Math.pow(10_000, random.nextDouble()) - 1;
+            }
+            cache.getOrPut(key, () -> 0);
+        }
+        return cache.getStats().getHitRate();
+    }
+}
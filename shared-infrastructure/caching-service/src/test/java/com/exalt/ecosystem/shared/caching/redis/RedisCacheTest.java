@@ -0,0 +1,190 @@
+package com.exalt.ecosystem.shared.caching.redis;
+
+import com.gogidix.ecosystem.shared.caching.CacheConfig;
+import com.gogidix.ecosystem.shared.caching.CacheException;
+import com.gogidix.ecosystem.shared.caching.local.InMemoryCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for RedisCache against a Redis container
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class RedisCacheTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+        .withExposedPorts(6379);
+
+    private final List<RedisCache<?, ?>> caches = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws CacheException {
+        for (RedisCache<?, ?> cache : caches) {
+            cache.clear();
+            cache.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Values round trip through Redis with TTLs")
+    public void putGetRemoveAndExpire() throws Exception {
+        RedisCache<String, String> cache = newCache("basic", false);
+
+        cache.put("a", "alpha");
+        cache.put("b", "beta", 200, TimeUnit.MILLISECONDS);
+
+        assertEquals("alpha", cache.get("a"));
+        assertEquals("alpha", cache.get("a", String.class));
+        assertTrue(cache.containsKey("b"));
+        assertEquals(2, cache.size());
+
+        Thread.sleep(400);
+        assertNull(cache.get("b"), "Entry should expire in Redis");
+
+        assertTrue(cache.remove("a"));
+        assertFalse(cache.remove("a"));
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    @DisplayName("Bulk operations use one round trip and clear only removes own keys")
+    public void bulkOperations() throws CacheException {
+        RedisCache<String, Integer> cache = newCache("bulk", false);
+        RedisCache<String, Integer> other = newCache("bulk-other", false);
+        other.put("kept", 1);
+
+        Map<String, Integer> values = new LinkedHashMap<>();
+        for (int i = 0; i < 1200; i++) {
+            values.put("key" + i, i);
+        }
+        cache.putAll(values);
+        cache.putAll(Map.of("ttl", -1), 1, TimeUnit.MINUTES);
+
+        Map<String, Integer> found = cache.getAll(List.of("key0", "key999", "missing", "ttl"));
+        assertEquals(Map.of("key0", 0, "key999", 999, "ttl", -1), found);
+        assertEquals(1201, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(1, other.get("kept"), "Clearing a cache should not touch other caches");
+    }
+
+    @Test
+    @DisplayName("Concurrent callers share the pipelined connection")
+    public void concurrentAccess() throws Exception {
+        RedisCache<Integer, Integer> cache = newCache("concurrent", false);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 16; thread++) {
+                int offset = thread * 1000;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < offset + 200; i++) {
+                        cache.put(i, i);
+                        assertEquals(i, cache.get(i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(3200, cache.size());
+    }
+
+    @Test
+    @DisplayName("Near-cache serves repeated reads and is invalidated by writes from other instances")
+    public void nearCacheInvalidation() throws Exception {
+        RedisCache<String, String> reader = newCache("near", true);
+        RedisCache<String, String> writer = newCache("near", false);
+
+        writer.put("key", "v1");
+        assertEquals("v1", reader.get("key"));
+        assertEquals("v1", reader.get("key"));
+        assertEquals(1, reader.getNearCacheStats().getHitCount(), "Second read should be served locally");
+
+        writer.put("key", "v2");
+        assertEquals("v2", awaitValue(reader, "key", "v2"), "Keyspace notification should invalidate the near-cache");
+
+        writer.remove("key");
+        assertNull(awaitValue(reader, "key", null));
+    }
+
+    @Test
+    @DisplayName("Latency of Redis gets compared with InMemoryCache")
+    public void latencyComparedWithInMemoryCache() throws Exception {
+        int operations = 2000;
+        InMemoryCache<String, String> local = new InMemoryCache<>("latency", new CacheConfig(16, operations));
+        RedisCache<String, String> remote = newCache("latency", false);
+        RedisCache<String, String> near = newCache("latency", true);
+
+        for (int i = 0; i < operations; i++) {
+            local.put("key" + i, "value" + i);
+            remote.put("key" + i, "value" + i);
+        }
+        for (int i = 0; i < operations; i++) {
+            near.get("key" + i);
+        }
+
+        long localNanos = timeGets(local::get, operations);
+        long remoteNanos = timeGets(remote::get, operations);
+        long nearNanos = timeGets(near::get, operations);
+
+        System.out.printf("Mean get latency: InMemoryCache %d ns, RedisCache %d ns, RedisCache with near-cache %d ns%n",
+            localNanos / operations, remoteNanos / operations, nearNanos / operations);
+        assertTrue(nearNanos < remoteNanos, "Near-cache hits should be faster than Redis round trips");
+    }
+
+    private <K, V> RedisCache<K, V> newCache(String name, boolean nearCache) throws CacheException {
+        CacheConfig config = new CacheConfig()
+            .setConnectionString("redis://" + REDIS.getHost() + ":" + REDIS.getMappedPort(6379))
+            .setNearCacheEnabled(nearCache)
+            .setRecordStats(true);
+        RedisCache<K, V> cache = new RedisCache<>(name, config, new ToStringKeySerializer<>(), new JdkCacheSerializer<>());
+        caches.add(cache);
+        return cache;
+    }
+
+    private String awaitValue(RedisCache<String, String> cache, String key, String expected) throws Exception {
+        String value = cache.get(key);
+        for (int attempt = 0; attempt < 50 && !Objects.equals(value, expected); attempt++) {
+            Thread.sleep(20);
+            value = cache.get(key);
+        }
+        return value;
+    }
+
+    private long timeGets(CacheGetter getter, int operations) throws CacheException {
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            assertNotNull(getter.get("key" + i));
+        }
+        return System.nanoTime() - start;
+    }
+
+    @FunctionalInterface
+    private interface CacheGetter {
+        String get(String key) throws CacheException;
+    }
+}
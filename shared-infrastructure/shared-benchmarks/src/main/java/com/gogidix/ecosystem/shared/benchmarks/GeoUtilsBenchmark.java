@@ -0,0 +1,71 @@
+package com.gogidix.ecosystem.shared.benchmarks;
+
+import com.exalt.ecosystem.shared.geolocation.util.GeoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the distance calculations of {@link GeoUtils} over a fixed set of random coordinates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeoUtilsBenchmark {
+
+    private static final int POINTS = 1024;
+
+    private final double[] latitudes = new double[POINTS];
+    private final double[] longitudes = new double[POINTS];
+    private double[][] polygon;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < POINTS; i++) {
+            latitudes[i] = random.nextDouble() * 180 - 90;
+            longitudes[i] = random.nextDouble() * 360 - 180;
+        }
+        polygon = GeoUtils.generateCirclePoints(48.8566, 2.3522, 50_000, 64);
+    }
+
+    /**
+     * Distance between consecutive points, so the inputs do not let the compiler fold the calculation.
+     */
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double haversineDistance() {
+        double total = 0;
+        for (int i = 0; i < POINTS; i++) {
+            int next = (i + 1) & (POINTS - 1);
+            total += GeoUtils.haversineDistance(latitudes[i], longitudes[i], latitudes[next], longitudes[next]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int isPointInPolygon() {
+        int inside = 0;
+        for (int i = 0; i < POINTS; i++) {
+            if (GeoUtils.isPointInPolygon(latitudes[i], longitudes[i], polygon)) {
+                inside++;
+            }
+        }
+        return inside;
+    }
+}
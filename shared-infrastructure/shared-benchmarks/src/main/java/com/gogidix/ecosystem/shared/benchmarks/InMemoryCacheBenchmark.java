@@ -0,0 +1,97 @@
+package com.gogidix.ecosystem.shared.benchmarks;
+
+import com.exalt.ecosystem.shared.caching.CacheConfig;
+import com.exalt.ecosystem.shared.caching.CacheConfig.EvictionPolicy;
+import com.exalt.ecosystem.shared.caching.CacheException;
+import com.exalt.ecosystem.shared.caching.local.InMemoryCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reads, updates and evicting writes of {@link InMemoryCache} for each eviction policy.
+ * The cache is filled to its maximum size before measuring.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InMemoryCacheBenchmark {
+
+    @Param({"LRU", "LFU", "W_TINY_LFU"})
+    private EvictionPolicy evictionPolicy;
+
+    @Param({"10000"})
+    private int maxSize;
+
+    private InMemoryCache<Integer, String> cache;
+    private Integer[] keys;
+    private String[] values;
+
+    @Setup
+    public void setUp() throws CacheException {
+        cache = new InMemoryCache<>("benchmark", new CacheConfig()
+                .setInitialCapacity(maxSize)
+                .setMaxSize(maxSize)
+                .setEvictionPolicy(evictionPolicy));
+
+        // Twice as many keys as fit, so that writes of the upper half evict
+        keys = new Integer[maxSize * 2];
+        values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+            values[i] = "value-" + i;
+        }
+        for (int i = 0; i < maxSize; i++) {
+            cache.put(keys[i], values[i]);
+        }
+    }
+
+    @Benchmark
+    public String get() throws CacheException {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(maxSize)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String getContended() throws CacheException {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(maxSize)]);
+    }
+
+    @Benchmark
+    public void putExisting() throws CacheException {
+        int index = ThreadLocalRandom.current().nextInt(maxSize);
+        cache.put(keys[index], values[index]);
+    }
+
+    /**
+     * Writes keys of which about half are not cached, so about every other write evicts an entry.
+     */
+    @Benchmark
+    public void putEvicting() throws CacheException {
+        int index = ThreadLocalRandom.current().nextInt(keys.length);
+        cache.put(keys[index], values[index]);
+    }
+
+    @Benchmark
+    public boolean remove() throws CacheException {
+        int index = ThreadLocalRandom.current().nextInt(keys.length);
+        boolean removed = cache.remove(keys[index]);
+        cache.put(keys[index], values[index]);
+        return removed;
+    }
+}
@@ -0,0 +1,63 @@
+package com.gogidix.ecosystem.shared.benchmarks;
+
+import com.exalt.ecosystem.shared.authservice.config.JwtSecurityConfig;
+import com.exalt.ecosystem.shared.authservice.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks issuing and validating access tokens with {@link JwtUtil}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private static final String USERNAME = "benchmark-user";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtSecurityConfig jwtConfig = new JwtSecurityConfig();
+        ReflectionTestUtils.setField(jwtConfig, "jwtSecret", JwtSecurityConfig.generateSecureSecret());
+        ReflectionTestUtils.setField(jwtConfig, "jwtExpiration", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtConfig, "jwtRefreshExpiration", TimeUnit.HOURS.toMillis(2));
+        jwtConfig.validateConfiguration();
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtConfig", jwtConfig);
+        token = jwtUtil.generateToken(USERNAME, List.of("ROLE_USER", "ROLE_ADMIN"));
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(token, USERNAME);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(USERNAME, List.of("ROLE_USER"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.gogidix.ecosystem.shared.benchmarks;
+
+import com.gogidix.ecosystem.shared.admin.websocket.ratelimit.RateLimitInterceptor;
+import com.gogidix.ecosystem.shared.admin.websocket.ratelimit.RateLimitProperties;
+import com.gogidix.ecosystem.shared.admin.websocket.ratelimit.metrics.RateLimitMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the per-session message counting of {@link RateLimitInterceptor#preSend} for STOMP SEND frames.
+ * The limits are high enough that no message is dropped, so every call takes the allowed path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitInterceptorBenchmark {
+
+    @Param({"1", "1000"})
+    private int sessions;
+
+    private RateLimitInterceptor interceptor;
+    private Message<?>[] messages;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMessagesPerSecond(Integer.MAX_VALUE);
+        properties.setBlockOnLimitExceeded(false);
+        interceptor = new RateLimitInterceptor(properties, new RateLimitMetrics(new SimpleMeterRegistry()));
+
+        byte[] payload = "{\"type\":\"ping\"}".getBytes(StandardCharsets.UTF_8);
+        messages = new Message<?>[sessions];
+        for (int i = 0; i < sessions; i++) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+            accessor.setSessionId("session-" + i);
+            accessor.setDestination("/app/dashboard");
+            accessor.setLeaveMutable(true);
+            messages[i] = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+        }
+    }
+
+    @Benchmark
+    public Message<?> preSend() {
+        return interceptor.preSend(messages[ThreadLocalRandom.current().nextInt(sessions)], null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Message<?> preSendContended() {
+        return interceptor.preSend(messages[ThreadLocalRandom.current().nextInt(sessions)], null);
+    }
+}
@@ -0,0 +1,137 @@
+package com.gogidix.ecosystem.shared.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gogidix.ecosystem.shared.admin.export.model.ExportTemplate;
+import com.gogidix.ecosystem.shared.admin.export.service.TemplateProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks applying an export template with {@link TemplateProcessor#processData}, for a single item as
+ * exported per row and for a batch of items. The template mixes simple properties, formatted values,
+ * a SpEL expression and a hidden field.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateProcessorBenchmark {
+
+    @Param({"1000"})
+    private int batchSize;
+
+    private TemplateProcessor templateProcessor;
+    private ExportTemplate template;
+    private List<Order> singleItem;
+    private List<Order> batch;
+
+    @Setup
+    public void setUp() {
+        templateProcessor = new TemplateProcessor(new ObjectMapper());
+
+        template = new ExportTemplate();
+        template.setId(1L);
+        template.setName("orders");
+        template.setFieldMappings(List.of(
+                mapping("id", "orderId", "String", null, true),
+                mapping("customer", "customer", "String", null, true),
+                mapping("quantity", "quantity", "Number", "%d", true),
+                mapping("unitPrice", "unitPrice", "Number", "%.2f", true),
+                mapping("#root.quantity * #root.unitPrice.doubleValue()", "total", "Number", null, true),
+                mapping("status", "status", "String", null, true),
+                mapping("internalNote", "internalNote", "String", null, false)));
+
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(new Order("order-" + i, "customer-" + (i % 100), i % 10 + 1,
+                    BigDecimal.valueOf(1000 + i, 2), i % 3 == 0 ? "SHIPPED" : "PENDING", "note"));
+        }
+        singleItem = List.of(batch.get(0));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> processItem() {
+        return templateProcessor.processData(singleItem, template);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> processBatch() {
+        return templateProcessor.processData(batch, template);
+    }
+
+    private static ExportTemplate.FieldMapping mapping(String sourceField, String targetField, String dataType,
+                                                       String format, boolean visible) {
+        ExportTemplate.FieldMapping mapping = new ExportTemplate.FieldMapping();
+        mapping.setSourceField(sourceField);
+        mapping.setTargetField(targetField);
+        mapping.setDisplayName(targetField);
+        mapping.setDataType(dataType);
+        mapping.setFormat(format);
+        mapping.setVisible(visible);
+        return mapping;
+    }
+
+    /**
+     * Exported item.
+     */
+    public static class Order {
+
+        private final String id;
+        private final String customer;
+        private final int quantity;
+        private final BigDecimal unitPrice;
+        private final String status;
+        private final String internalNote;
+
+        public Order(String id, String customer, int quantity, BigDecimal unitPrice, String status,
+                     String internalNote) {
+            this.id = id;
+            this.customer = customer;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+            this.status = status;
+            this.internalNote = internalNote;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getCustomer() {
+            return customer;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public BigDecimal getUnitPrice() {
+            return unitPrice;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getInternalNote() {
+            return internalNote;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import java.util.List;
+
+/**
+ * Writes batches of audit events to the audit store for the {@link AuditWriteBehindPipeline}.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface AuditBatchWriter {
+
+    /**
+     * Writes all events of a batch, or none of them. Writing an event that is already stored must
+     * not fail, so that a batch can be written again after an error.
+     *
+     * @param events Events to write
+     * @throws Exception if the batch could not be written
+     */
+    void write(List<AuditEvent> events) throws Exception;
+
+    /**
+     * Whether a write failed because the store rejects the events themselves, for example a value too
+     * long for its column, so that writing them again cannot succeed. The pipeline then writes the rest
+     * of the batch without them.
+     *
+     * @param failure Exception thrown by {@link #write(List)}
+     * @return false unless the failure is known to be caused by the events
+     */
+    default boolean isRejected(Exception failure) {
+        return false;
+    }
+}
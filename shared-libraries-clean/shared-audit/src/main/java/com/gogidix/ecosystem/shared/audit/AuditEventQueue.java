@@ -0,0 +1,98 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * Each slot carries a sequence number telling whether it is free for the producer of a given position
+ * or filled for the consumer, so producers only contend on one counter and never on a lock.
+ *
+ * @param <E> Element type
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class AuditEventQueue<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * @param capacity Maximum number of queued elements, rounded up to a power of two
+     */
+    AuditEventQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * Adds an element unless the queue is full. Safe to call from any thread.
+     *
+     * @return false if the queue is full
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    // Publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            // Another producer took the position first; try the next one
+        }
+    }
+
+    /**
+     * Moves up to a number of elements into a list. Must only be called by the consumer thread.
+     *
+     * @return Number of elements moved
+     */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<? super E> target, int maxElements) {
+        long position = head;
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            target.add((E) elements[index]);
+            elements[index] = null;
+            // Frees the slot for the producer one lap later
+            sequences.set(index, position + elements.length);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, elements.length));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+}
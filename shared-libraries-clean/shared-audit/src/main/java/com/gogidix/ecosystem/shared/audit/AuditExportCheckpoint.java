@@ -0,0 +1,49 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Position of an audit export, from which an interrupted export continues.
+ * Exports run in (timestamp, id) order, so the key of the last written event identifies the next one,
+ * and the byte offset tells where the output ends that belongs to the events written so far.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditExportCheckpoint {
+
+    /**
+     * Timestamp of the last written event.
+     */
+    private LocalDateTime lastTimestamp;
+
+    /**
+     * Id of the last written event.
+     */
+    private UUID lastId;
+
+    /**
+     * Number of events written, including those of earlier runs.
+     */
+    private long rowCount;
+
+    /**
+     * Length of the output holding exactly the events written.
+     */
+    private long byteOffset;
+
+    /**
+     * Whether the export has written all matching events.
+     */
+    private boolean completed;
+}
@@ -0,0 +1,318 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Streams audit events matching search criteria from the audit table to CSV or JSON-lines output.
+ * Rows are read through a forward-only cursor that fetches a bounded number of rows at a time and are
+ * written as they arrive, so memory use does not grow with the size of the export. Events are exported
+ * in (timestamp, id) order, and checkpoints taken along the way allow an interrupted export to continue
+ * after the last checkpointed event.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Service
+public class AuditExportEngine {
+
+    private static final String SELECT_SQL = "SELECT id, timestamp, action, service_name, resource_type, "
+            + "resource_id, user_id, username, session_id, ip_address, user_agent, http_method, request_uri, "
+            + "http_status, duration_ms, correlation_id, trace_id, tenant_id, severity, category, description, "
+            + "success, error_message, exception_type, old_values, new_values, metadata, tags, security_context, "
+            + "compliance_flags, retention_days FROM %s";
+
+    private static final TypeReference<Map<String, Object>> OBJECT_MAP = new TypeReference<>() { };
+    private static final TypeReference<Map<String, String>> STRING_MAP = new TypeReference<>() { };
+    private static final TypeReference<Map<String, Boolean>> BOOLEAN_MAP = new TypeReference<>() { };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${audit.export.table-name:audit_events}")
+    private String tableName = "audit_events";
+
+    @Value("${audit.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    @Value("${audit.export.checkpoint-interval:10000}")
+    private int checkpointInterval = 10_000;
+
+    public AuditExportEngine(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Exports matching events to a file. When resuming, the file is cut back to the checkpoint's byte
+     * offset and the export continues after the checkpointed event; otherwise the file is replaced.
+     * The file is synced to disk before each checkpoint is handed to the listener.
+     *
+     * @param resumeFrom         Checkpoint of an earlier run on the same file, or null to start over
+     * @param checkpointListener Receives a checkpoint whenever a number of events is written, or null
+     * @return Checkpoint after the last event, marked completed
+     */
+    public AuditExportCheckpoint exportToFile(AuditLogger.AuditSearchCriteria criteria, AuditExportFormat format,
+                                              Path file, AuditExportCheckpoint resumeFrom,
+                                              Consumer<AuditExportCheckpoint> checkpointListener) throws IOException {
+        try (FileChannel channel = resumeFrom == null
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)
+                : FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (resumeFrom != null) {
+                channel.truncate(resumeFrom.getByteOffset());
+                channel.position(resumeFrom.getByteOffset());
+            }
+            OutputStream output = Channels.newOutputStream(channel);
+            AuditExportCheckpoint last = export(criteria, format, output, resumeFrom, checkpoint -> {
+                try {
+                    channel.force(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (checkpointListener != null) {
+                    checkpointListener.accept(checkpoint);
+                }
+            });
+            channel.force(false);
+            return last;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Exports matching events to a stream, which is flushed at every checkpoint and at the end but not
+     * closed. A CSV header is only written when not resuming.
+     *
+     * @param resumeFrom         Checkpoint of an earlier run whose output the stream continues, or null
+     * @param checkpointListener Receives a checkpoint whenever a number of events is written, or null
+     * @return Checkpoint after the last event, marked completed
+     */
+    public AuditExportCheckpoint export(AuditLogger.AuditSearchCriteria criteria, AuditExportFormat format,
+                                        OutputStream output, AuditExportCheckpoint resumeFrom,
+                                        Consumer<AuditExportCheckpoint> checkpointListener) throws IOException {
+        AuditExportWriter writer = new AuditExportWriter(output, format, objectMapper,
+                resumeFrom == null ? 0 : resumeFrom.getByteOffset());
+        if (resumeFrom == null) {
+            writer.writeHeader();
+        }
+        List<Object> parameters = new ArrayList<>();
+        String sql = buildQuery(criteria, resumeFrom, parameters);
+        ExportProgress progress = new ExportProgress(resumeFrom);
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                streamRows(connection, sql, parameters, event -> {
+                    writer.write(event);
+                    progress.advance(event);
+                    if (progress.rowsSinceCheckpoint >= checkpointInterval) {
+                        AuditExportCheckpoint checkpoint = progress.checkpoint(writer.checkpoint(), false);
+                        if (checkpointListener != null) {
+                            checkpointListener.accept(checkpoint);
+                        }
+                    }
+                });
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        AuditExportCheckpoint completed = progress.checkpoint(writer.finish(), true);
+        log.info("Exported {} audit events as {} in {} ms", completed.getRowCount(), format,
+                (System.nanoTime() - start) / 1_000_000);
+        return completed;
+    }
+
+    /**
+     * Runs the query on a forward-only, read-only cursor. PostgreSQL only fetches rows in portions
+     * within a transaction, so auto-commit is switched off for the duration of the query.
+     */
+    private void streamRows(Connection connection, String sql, List<Object> parameters, EventSink sink)
+            throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    sink.accept(mapRow(resultSet));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (autoCommit) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private String buildQuery(AuditLogger.AuditSearchCriteria criteria, AuditExportCheckpoint resumeFrom,
+                              List<Object> parameters) throws IOException {
+        StringBuilder sql = new StringBuilder(String.format(SELECT_SQL, tableName));
+        List<String> conditions = new ArrayList<>();
+        if (criteria != null) {
+            addCondition(conditions, parameters, "timestamp >= ?", toTimestamp(criteria.getStartTime()));
+            addCondition(conditions, parameters, "timestamp <= ?", toTimestamp(criteria.getEndTime()));
+            addCondition(conditions, parameters, "user_id = ?", criteria.getUserId());
+            addCondition(conditions, parameters, "resource_type = ?", criteria.getResourceType());
+            addCondition(conditions, parameters, "resource_id = ?", criteria.getResourceId());
+            addCondition(conditions, parameters, "action = ?",
+                    criteria.getAction() == null ? null : criteria.getAction().name());
+            addCondition(conditions, parameters, "severity = ?",
+                    criteria.getSeverity() == null ? null : criteria.getSeverity().name());
+            addCondition(conditions, parameters, "service_name = ?", criteria.getServiceName());
+            addCondition(conditions, parameters, "category = ?", criteria.getCategory());
+            addCondition(conditions, parameters, "success = ?", criteria.getSuccess());
+            addCondition(conditions, parameters, "ip_address = ?", criteria.getIpAddress());
+            addCondition(conditions, parameters, "correlation_id = ?", criteria.getCorrelationId());
+            if (criteria.getTags() != null && !criteria.getTags().isEmpty()) {
+                addCondition(conditions, parameters, "tags @> CAST(? AS jsonb)",
+                        objectMapper.writeValueAsString(criteria.getTags()));
+            }
+            if (criteria.getMetadata() != null && !criteria.getMetadata().isEmpty()) {
+                addCondition(conditions, parameters, "metadata @> CAST(? AS jsonb)",
+                        objectMapper.writeValueAsString(criteria.getMetadata()));
+            }
+        }
+        if (resumeFrom != null && resumeFrom.getLastTimestamp() != null) {
+            conditions.add("(timestamp, id) > (?, ?)");
+            parameters.add(toTimestamp(resumeFrom.getLastTimestamp()));
+            parameters.add(resumeFrom.getLastId());
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return sql.append(" ORDER BY timestamp, id").toString();
+    }
+
+    private static void addCondition(List<String> conditions, List<Object> parameters, String condition,
+                                     Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            parameters.add(value);
+        }
+    }
+
+    private AuditEvent mapRow(ResultSet rs) throws SQLException, IOException {
+        Timestamp timestamp = rs.getTimestamp("timestamp");
+        String action = rs.getString("action");
+        String severity = rs.getString("severity");
+        Object id = rs.getObject("id");
+        return AuditEvent.builder()
+                .id(id == null || id instanceof UUID ? (UUID) id : UUID.fromString(id.toString()))
+                .timestamp(timestamp == null ? null : timestamp.toLocalDateTime())
+                .action(action == null ? null : AuditEvent.AuditAction.valueOf(action))
+                .serviceName(rs.getString("service_name"))
+                .resourceType(rs.getString("resource_type"))
+                .resourceId(rs.getString("resource_id"))
+                .userId(rs.getString("user_id"))
+                .username(rs.getString("username"))
+                .sessionId(rs.getString("session_id"))
+                .ipAddress(rs.getString("ip_address"))
+                .userAgent(rs.getString("user_agent"))
+                .httpMethod(rs.getString("http_method"))
+                .requestUri(rs.getString("request_uri"))
+                .httpStatus(rs.getObject("http_status", Integer.class))
+                .durationMs(rs.getObject("duration_ms", Long.class))
+                .correlationId(rs.getString("correlation_id"))
+                .traceId(rs.getString("trace_id"))
+                .tenantId(rs.getString("tenant_id"))
+                .severity(severity == null ? null : AuditEvent.AuditSeverity.valueOf(severity))
+                .category(rs.getString("category"))
+                .description(rs.getString("description"))
+                .success(rs.getObject("success", Boolean.class))
+                .errorMessage(rs.getString("error_message"))
+                .exceptionType(rs.getString("exception_type"))
+                .oldValues(readJson(rs.getString("old_values"), OBJECT_MAP))
+                .newValues(readJson(rs.getString("new_values"), OBJECT_MAP))
+                .metadata(readJson(rs.getString("metadata"), OBJECT_MAP))
+                .tags(readJson(rs.getString("tags"), STRING_MAP))
+                .securityContext(readJson(rs.getString("security_context"), OBJECT_MAP))
+                .complianceFlags(readJson(rs.getString("compliance_flags"), BOOLEAN_MAP))
+                .retentionDays(rs.getObject("retention_days", Integer.class))
+                .build();
+    }
+
+    private <T> T readJson(String json, TypeReference<T> type) throws IOException {
+        return json == null ? null : objectMapper.readValue(json, type);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+
+    @FunctionalInterface
+    private interface EventSink {
+        void accept(AuditEvent event) throws IOException;
+    }
+
+    /**
+     * Key and counts of the events written so far.
+     */
+    private static final class ExportProgress {
+
+        private LocalDateTime lastTimestamp;
+        private UUID lastId;
+        private long rowCount;
+        private long rowsSinceCheckpoint;
+
+        ExportProgress(AuditExportCheckpoint resumeFrom) {
+            if (resumeFrom != null) {
+                lastTimestamp = resumeFrom.getLastTimestamp();
+                lastId = resumeFrom.getLastId();
+                rowCount = resumeFrom.getRowCount();
+            }
+        }
+
+        void advance(AuditEvent event) {
+            lastTimestamp = event.getTimestamp();
+            lastId = event.getId();
+            rowCount++;
+            rowsSinceCheckpoint++;
+        }
+
+        AuditExportCheckpoint checkpoint(long byteOffset, boolean completed) {
+            rowsSinceCheckpoint = 0;
+            return AuditExportCheckpoint.builder()
+                    .lastTimestamp(lastTimestamp)
+                    .lastId(lastId)
+                    .rowCount(rowCount)
+                    .byteOffset(byteOffset)
+                    .completed(completed)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import java.util.Locale;
+
+/**
+ * Output formats of the audit export.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+public enum AuditExportFormat {
+
+    CSV("csv", false),
+    JSON_LINES("jsonl", false),
+    CSV_GZIP("csv.gz", true),
+    JSON_LINES_GZIP("jsonl.gz", true);
+
+    private final String fileExtension;
+    private final boolean gzip;
+
+    AuditExportFormat(String fileExtension, boolean gzip) {
+        this.fileExtension = fileExtension;
+        this.gzip = gzip;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public boolean isCsv() {
+        return this == CSV || this == CSV_GZIP;
+    }
+
+    /**
+     * Resolves a format name as passed to {@link AuditLogger#exportAuditEvents}, such as "CSV", "JSON",
+     * "jsonl", "csv.gz" or "GZIP", which stands for gzipped JSON lines.
+     *
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public static AuditExportFormat from(String format) {
+        String name = format == null ? "" : format.trim().toUpperCase(Locale.ROOT).replace('.', '_').replace('-', '_');
+        switch (name) {
+            case "CSV":
+                return CSV;
+            case "JSON":
+            case "JSONL":
+            case "NDJSON":
+            case "JSON_LINES":
+                return JSON_LINES;
+            case "CSV_GZ":
+            case "CSV_GZIP":
+                return CSV_GZIP;
+            case "GZIP":
+            case "JSON_GZ":
+            case "JSONL_GZ":
+            case "JSON_LINES_GZIP":
+                return JSON_LINES_GZIP;
+            default:
+                throw new IllegalArgumentException("Unsupported audit export format: " + format);
+        }
+    }
+}
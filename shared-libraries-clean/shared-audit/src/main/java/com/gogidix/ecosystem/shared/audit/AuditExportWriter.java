@@ -0,0 +1,258 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes audit events one at a time as CSV or JSON lines, optionally gzipped, to an output stream.
+ * Gzipped output is written as a series of gzip members that end at every checkpoint, so the output up to
+ * a checkpoint is complete on its own and an export can append to it after a restart.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class AuditExportWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final List<Column> COLUMNS = List.of(
+            new Column("id", AuditEvent::getId),
+            new Column("timestamp", AuditEvent::getTimestamp),
+            new Column("action", AuditEvent::getAction),
+            new Column("serviceName", AuditEvent::getServiceName),
+            new Column("resourceType", AuditEvent::getResourceType),
+            new Column("resourceId", AuditEvent::getResourceId),
+            new Column("userId", AuditEvent::getUserId),
+            new Column("username", AuditEvent::getUsername),
+            new Column("sessionId", AuditEvent::getSessionId),
+            new Column("ipAddress", AuditEvent::getIpAddress),
+            new Column("userAgent", AuditEvent::getUserAgent),
+            new Column("httpMethod", AuditEvent::getHttpMethod),
+            new Column("requestUri", AuditEvent::getRequestUri),
+            new Column("httpStatus", AuditEvent::getHttpStatus),
+            new Column("durationMs", AuditEvent::getDurationMs),
+            new Column("correlationId", AuditEvent::getCorrelationId),
+            new Column("traceId", AuditEvent::getTraceId),
+            new Column("tenantId", AuditEvent::getTenantId),
+            new Column("severity", AuditEvent::getSeverity),
+            new Column("category", AuditEvent::getCategory),
+            new Column("description", AuditEvent::getDescription),
+            new Column("success", AuditEvent::getSuccess),
+            new Column("errorMessage", AuditEvent::getErrorMessage),
+            new Column("exceptionType", AuditEvent::getExceptionType),
+            new Column("oldValues", AuditEvent::getOldValues),
+            new Column("newValues", AuditEvent::getNewValues),
+            new Column("metadata", AuditEvent::getMetadata),
+            new Column("tags", AuditEvent::getTags),
+            new Column("securityContext", AuditEvent::getSecurityContext),
+            new Column("complianceFlags", AuditEvent::getComplianceFlags),
+            new Column("retentionDays", AuditEvent::getRetentionDays));
+
+    private final AuditExportFormat format;
+    private final ObjectMapper objectMapper;
+    private final CountingOutputStream target;
+    private GZIPOutputStream gzip;
+    private Writer writer;
+    private JsonGenerator generator;
+
+    /**
+     * @param output      Stream to write to, which is flushed but never closed
+     * @param startOffset Length of the output already written by an earlier run
+     */
+    AuditExportWriter(OutputStream output, AuditExportFormat format, ObjectMapper objectMapper, long startOffset)
+            throws IOException {
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.target = new CountingOutputStream(output, startOffset);
+        open();
+    }
+
+    void writeHeader() throws IOException {
+        if (format.isCsv()) {
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(COLUMNS.get(i).name());
+            }
+            writer.write('\n');
+        }
+    }
+
+    void write(AuditEvent event) throws IOException {
+        if (format.isCsv()) {
+            writeCsv(event);
+        } else {
+            writeJson(event);
+        }
+    }
+
+    /**
+     * Hands everything written so far to the output stream, ending the current gzip member.
+     *
+     * @return Length of the output, including the start offset
+     */
+    long checkpoint() throws IOException {
+        if (generator != null) {
+            generator.flush();
+        }
+        writer.flush();
+        if (gzip != null) {
+            gzip.close();
+            target.flush();
+            long offset = target.getCount();
+            open();
+            return offset;
+        }
+        target.flush();
+        return target.getCount();
+    }
+
+    /**
+     * Writes the end of the output and returns its length. The writer cannot be used afterwards.
+     */
+    long finish() throws IOException {
+        if (generator != null) {
+            generator.flush();
+        }
+        writer.flush();
+        if (gzip != null) {
+            gzip.close();
+        }
+        target.flush();
+        return target.getCount();
+    }
+
+    private void open() throws IOException {
+        OutputStream stream = target;
+        if (format.isGzip()) {
+            gzip = new GZIPOutputStream(new NonClosingOutputStream(target), BUFFER_SIZE);
+            stream = gzip;
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (!format.isCsv()) {
+            generator = objectMapper.getFactory().createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Each event ends with its own newline instead
+            generator.setRootValueSeparator(null);
+        }
+    }
+
+    private void writeCsv(AuditEvent event) throws IOException {
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = COLUMNS.get(i).accessor().apply(event);
+            if (value == null) {
+                continue;
+            }
+            String text = value instanceof Map ? objectMapper.writeValueAsString(value) : value.toString();
+            writeCsvValue(text);
+        }
+        writer.write('\n');
+    }
+
+    private void writeCsvValue(String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private void writeJson(AuditEvent event) throws IOException {
+        generator.writeStartObject();
+        for (Column column : COLUMNS) {
+            Object value = column.accessor().apply(event);
+            if (value == null) {
+                continue;
+            }
+            generator.writeFieldName(column.name());
+            if (value instanceof Number || value instanceof Boolean || value instanceof Map) {
+                generator.writeObject(value);
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private record Column(String name, Function<AuditEvent, Object> accessor) {
+    }
+
+    /**
+     * Counts the bytes handed to the underlying stream.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream output, long startOffset) {
+            super(output);
+            this.count = startOffset;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Keeps the target open when a gzip member is finished and its stream is dropped.
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -268,6 +268,63 @@ public interface AuditRepository extends JpaRepository<AuditEvent, UUID>, JpaSpe
                                               @Param("endTime") LocalDateTime endTime,
                                               Pageable pageable);
     
+    /**
+     * Gets compliance event counts per day and per category, action, resource type and outcome, together
+     * with how many events of each group carry the metadata that the compliance reports score on.
+     * The end time is exclusive, so that the counts of consecutive ranges can be added up.
+     *
+     * @param complianceKey Type of compliance
+     * @param userId Optional user ID to filter by
+     * @param startTime Start time, inclusive
+     * @param endTime End time, exclusive
+     * @return Rows of day, category, action, resource type, success and event count, followed by the counts
+     *         of events with a justification, a purpose, a retention period, a retention period over seven
+     *         years, encryption, monitoring, an approver and an authorization
+     */
+    @Query("SELECT DATE(a.timestamp), a.category, a.action, a.resourceType, a.success, COUNT(a), " +
+           "SUM(CASE WHEN JSON_EXTRACT(a.metadata, '$.justification') IS NOT NULL THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN JSON_EXTRACT(a.metadata, '$.purpose') IS NOT NULL THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN a.retentionDays > 0 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN a.retentionDays > 2555 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN JSON_EXTRACT(a.metadata, '$.encrypted') = true THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN JSON_EXTRACT(a.metadata, '$.monitored') IS NOT NULL THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN JSON_EXTRACT(a.metadata, '$.approver') IS NOT NULL THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN JSON_EXTRACT(a.metadata, '$.authorization') IS NOT NULL THEN 1 ELSE 0 END) " +
+           "FROM AuditEvent a WHERE a.timestamp >= :startTime AND a.timestamp < :endTime AND " +
+           "JSON_EXTRACT(a.complianceFlags, :complianceKey) = true AND (:userId IS NULL OR a.userId = :userId) " +
+           "GROUP BY DATE(a.timestamp), a.category, a.action, a.resourceType, a.success")
+    List<Object[]> getComplianceStatsByDay(@Param("complianceKey") String complianceKey,
+                                           @Param("userId") String userId,
+                                           @Param("startTime") LocalDateTime startTime,
+                                           @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * Gets audit event counts per day and outcome. The end time is exclusive.
+     *
+     * @param startTime Start time, inclusive
+     * @param endTime End time, exclusive
+     * @return Rows of day, success and event count
+     */
+    @Query("SELECT DATE(a.timestamp), a.success, COUNT(a) FROM AuditEvent a " +
+           "WHERE a.timestamp >= :startTime AND a.timestamp < :endTime GROUP BY DATE(a.timestamp), a.success")
+    List<Object[]> getOutcomeStatsByDay(@Param("startTime") LocalDateTime startTime,
+                                        @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * Finds users with more failed audit events within a single hour than a threshold.
+     *
+     * @param startTime Start time
+     * @param endTime End time
+     * @param threshold Number of failures within an hour above which activity is suspicious
+     * @return Rows of user ID, day, hour and failure count for every hour over the threshold
+     */
+    @Query("SELECT a.userId, DATE(a.timestamp), HOUR(a.timestamp), COUNT(a) FROM AuditEvent a " +
+           "WHERE a.timestamp BETWEEN :startTime AND :endTime AND a.success = false AND a.userId IS NOT NULL " +
+           "GROUP BY a.userId, DATE(a.timestamp), HOUR(a.timestamp) HAVING COUNT(a) > :threshold")
+    List<Object[]> findFailureBursts(@Param("startTime") LocalDateTime startTime,
+                                    @Param("endTime") LocalDateTime endTime,
+                                    @Param("threshold") long threshold);
+
     /**
      * Finds audit events with specific metadata.
      * 
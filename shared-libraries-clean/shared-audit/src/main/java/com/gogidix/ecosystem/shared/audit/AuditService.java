@@ -1,7 +1,9 @@
 package com.gogidix.ecosystem.shared.audit;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -11,17 +13,25 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Implementation of the AuditLogger interface for the Exalt Social E-commerce Ecosystem.
  * Provides comprehensive audit logging capabilities with async support and advanced querying.
+ * When an {@link AuditWriteBehindPipeline} is configured, events are queued for batch inserts instead of
+ * being saved one by one on the calling thread.
  * 
  * @author Exalt Development Team
  * @since 1.0.0
@@ -32,6 +42,8 @@ import java.util.stream.Collectors;
 @Transactional
 public class AuditService implements AuditLogger {
     
+    private static final int EXPORT_PAGE_SIZE = 1000;
+    
     private final AuditRepository auditRepository;
     
     @Value("${spring.application.name:unknown-service}")
@@ -43,6 +55,21 @@ public class AuditService implements AuditLogger {
     @Value("${audit.retention.default-days:2555}")
     private int defaultRetentionDays;
     
+    @Value("${audit.write-behind.sync-timeout-ms:5000}")
+    private long writeBehindSyncTimeoutMs;
+    
+    @Autowired(required = false)
+    private AuditWriteBehindPipeline writeBehindPipeline;
+    
+    @Value("${audit.export.directory:${java.io.tmpdir}/audit-exports}")
+    private String exportDirectory = System.getProperty("java.io.tmpdir") + "/audit-exports";
+    
+    @Autowired(required = false)
+    private AuditExportEngine exportEngine;
+    
+    @Autowired(required = false)
+    private ComplianceQueryEngine queryEngine;
+    
     private final ThreadLocal<AuditContextImpl> currentContext = new ThreadLocal<>();
     
     @Override
@@ -54,8 +81,15 @@ public class AuditService implements AuditLogger {
             // Validate the event
             validateAuditEvent(event);
             
-            // Save to repository
-            auditRepository.save(event);
+            // Save to repository, or queue for the next batch insert
+            if (writeBehindPipeline != null) {
+                writeBehindPipeline.offer(event);
+            } else {
+                auditRepository.save(event);
+                if (queryEngine != null) {
+                    queryEngine.eventsWritten(List.of(event));
+                }
+            }
             
             log.debug("Audit event logged: {}", event.getSummary());
             
@@ -68,6 +102,9 @@ public class AuditService implements AuditLogger {
     @Override
     @Async
     public CompletableFuture<Void> auditAsync(AuditEvent event) {
+        if (writeBehindPipeline != null) {
+            return submitToPipeline(event, false);
+        }
         return CompletableFuture.runAsync(() -> audit(event));
     }
     
@@ -129,7 +166,7 @@ public class AuditService implements AuditLogger {
             .build();
         
         // Security events are always logged synchronously for immediate alerting
-        audit(event);
+        auditSynchronously(event);
     }
     
     @Override
@@ -146,7 +183,7 @@ public class AuditService implements AuditLogger {
         event.setComplianceFlag(complianceType, true);
         
         // Compliance events are always logged synchronously
-        audit(event);
+        auditSynchronously(event);
     }
     
     @Override
@@ -266,7 +303,7 @@ public class AuditService implements AuditLogger {
         event.addTag("configType", configType);
         
         // Configuration changes are always logged synchronously
-        audit(event);
+        auditSynchronously(event);
     }
     
     @Override
@@ -293,7 +330,7 @@ public class AuditService implements AuditLogger {
             .build();
         
         // Error events are always logged synchronously
-        audit(event);
+        auditSynchronously(event);
     }
     
     @Override
@@ -329,18 +366,17 @@ public class AuditService implements AuditLogger {
             try {
                 // Create export
                 String exportId = UUID.randomUUID().toString();
+                AuditExportFormat exportFormat = AuditExportFormat.from(format);
+                Path file = Files.createDirectories(Paths.get(exportDirectory))
+                    .resolve(String.format("audit_export_%s.%s", exportId, exportFormat.getFileExtension()));
                 
-                // Execute search without pagination to get all results
-                AuditSearchCriteria exportCriteria = criteria;
-                exportCriteria.setPage(0);
-                exportCriteria.setSize(Integer.MAX_VALUE);
+                // Stream the events into the file instead of loading them all at once
+                AuditExportCheckpoint export = exportEngine != null
+                    ? exportEngine.exportToFile(criteria, exportFormat, file, null, null)
+                    : exportPageByPage(criteria, exportFormat, file);
                 
-                AuditSearchResult searchResult = searchAuditEvents(exportCriteria);
-                
-                // Generate export file (implementation would depend on the format)
-                String fileName = generateExportFile(searchResult.getEvents(), format, exportId);
-                
-                return new AuditExportResultImpl(exportId, format, fileName, searchResult.getEvents().size());
+                return new AuditExportResultImpl(exportId, format, file.getFileName().toString(),
+                    export.getRowCount(), export.getByteOffset());
                 
             } catch (Exception e) {
                 log.error("Failed to export audit events", e);
@@ -349,6 +385,41 @@ public class AuditService implements AuditLogger {
         });
     }
     
+    /**
+     * Logs an event that must be stored before the caller continues. With write-behind enabled the event
+     * is written with the current batch right away and the caller waits for that batch.
+     */
+    private void auditSynchronously(AuditEvent event) {
+        if (writeBehindPipeline == null) {
+            audit(event);
+            return;
+        }
+        try {
+            submitToPipeline(event, true).get(writeBehindSyncTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for audit event to be written: {}", event.getSummary());
+        } catch (Exception e) {
+            log.error("Audit event not written within {} ms: {}", writeBehindSyncTimeoutMs, event.getSummary(), e);
+        }
+    }
+    
+    private CompletableFuture<Void> submitToPipeline(AuditEvent event, boolean flushImmediately) {
+        try {
+            enrichAuditEvent(event);
+            validateAuditEvent(event);
+            return writeBehindPipeline.submit(event, flushImmediately)
+                .exceptionally(e -> {
+                    log.error("Failed to log audit event: {}", event, e);
+                    return null;
+                });
+        } catch (Exception e) {
+            log.error("Failed to log audit event: {}", event, e);
+            // Don't fail - audit logging should not break business logic
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+    
     /**
      * Enriches audit event with context information.
      */
@@ -436,19 +507,31 @@ public class AuditService implements AuditLogger {
     }
     
     /**
-     * Generates export file for audit events.
+     * Exports audit events through the repository one page at a time, for setups without a JDBC
+     * export engine.
      */
-    private String generateExportFile(List<AuditEvent> events, String format, String exportId) {
-        // This is a placeholder implementation
-        // Real implementation would generate actual files in the specified format
-        String fileName = String.format("audit_export_%s.%s", exportId, format.toLowerCase());
-        
-        // In real implementation, you would:
-        // 1. Generate the file in the specified format (JSON, CSV, XML)
-        // 2. Store it in a secure location (S3, local storage, etc.)
-        // 3. Return the file name/path
-        
-        return fileName;
+    private AuditExportCheckpoint exportPageByPage(AuditSearchCriteria criteria, AuditExportFormat format, Path file)
+            throws IOException {
+        Sort sort = Sort.by(Sort.Direction.fromString(criteria.getSortDirection()), criteria.getSortBy());
+        try (OutputStream output = Files.newOutputStream(file)) {
+            AuditExportWriter writer = new AuditExportWriter(output, format, new ObjectMapper(), 0);
+            writer.writeHeader();
+            long rowCount = 0;
+            Page<AuditEvent> page;
+            int pageNumber = 0;
+            do {
+                page = executeSearch(criteria, PageRequest.of(pageNumber++, EXPORT_PAGE_SIZE, sort));
+                for (AuditEvent event : page.getContent()) {
+                    writer.write(event);
+                    rowCount++;
+                }
+            } while (page.hasNext());
+            return AuditExportCheckpoint.builder()
+                .rowCount(rowCount)
+                .byteOffset(writer.finish())
+                .completed(true)
+                .build();
+        }
     }
     
     /**
@@ -666,7 +749,8 @@ public class AuditService implements AuditLogger {
         private final String exportId;
         private final String format;
         private final String fileName;
-        private final int recordCount;
+        private final long recordCount;
+        private final long fileSize;
         private final LocalDateTime createdAt = LocalDateTime.now();
         
         @Override
@@ -686,8 +770,7 @@ public class AuditService implements AuditLogger {
         
         @Override
         public long getFileSize() {
-            // Would be calculated based on actual file
-            return recordCount * 500L; // Estimate 500 bytes per record
+            return fileSize;
         }
         
         @Override
@@ -707,7 +790,7 @@ public class AuditService implements AuditLogger {
         
         @Override
         public int getRecordCount() {
-            return recordCount;
+            return (int) Math.min(recordCount, Integer.MAX_VALUE);
         }
         
         @Override
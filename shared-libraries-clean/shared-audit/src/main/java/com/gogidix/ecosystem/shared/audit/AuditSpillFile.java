@@ -0,0 +1,182 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Local overflow files of the {@link AuditWriteBehindPipeline}.
+ * Events are appended as JSON lines to the current file, which is closed once it holds a maximum number
+ * of events. Closed files are handed out for replay in the order they were written and deleted once
+ * replayed, and files left over from an earlier run are replayed as well. The same format keeps the
+ * dead letters, events the audit store rejected, which are only appended for an operator to inspect.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+final class AuditSpillFile implements Closeable {
+
+    static final String PREFIX = "audit-spill-";
+    static final String DEAD_LETTER_PREFIX = "audit-dead-letter-";
+    static final String SUFFIX = ".jsonl";
+
+    private final Path directory;
+    private final String prefix;
+    private final int maxEventsPerFile;
+    private final ObjectMapper objectMapper;
+    private final long startedAt = System.currentTimeMillis();
+
+    private BufferedWriter writer;
+    private FileChannel channel;
+    private Path currentFile;
+    private int fileSequence;
+    private int eventsInFile;
+    private volatile boolean pending;
+
+    AuditSpillFile(Path directory, String prefix, int maxEventsPerFile) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.prefix = prefix;
+        this.maxEventsPerFile = maxEventsPerFile;
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .addMixIn(AuditEvent.class, FullPrecisionTimestamp.class);
+        this.pending = !closedFiles().isEmpty();
+    }
+
+    /**
+     * Appends events to the current file and hands them to the operating system.
+     */
+    synchronized void append(List<AuditEvent> events) throws IOException {
+        if (writer == null) {
+            currentFile = directory.resolve(String.format("%s%d-%06d%s", prefix, startedAt, fileSequence++, SUFFIX));
+            channel = FileChannel.open(currentFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+        }
+        for (AuditEvent event : events) {
+            writer.write(objectMapper.writeValueAsString(event));
+            writer.newLine();
+        }
+        writer.flush();
+        eventsInFile += events.size();
+        pending = true;
+        if (eventsInFile >= maxEventsPerFile) {
+            closeCurrent();
+        }
+    }
+
+    /**
+     * Whether spilled events are waiting for replay.
+     */
+    boolean hasPending() {
+        return pending;
+    }
+
+    /**
+     * Returns the oldest file ready for replay, closing the current file first if no other file is left.
+     *
+     * @return Oldest closed file, or null if nothing was spilled
+     */
+    synchronized Path nextFile() throws IOException {
+        List<Path> files = closedFiles();
+        if (files.isEmpty() && writer != null) {
+            closeCurrent();
+            files = closedFiles();
+        }
+        if (files.isEmpty()) {
+            pending = false;
+            return null;
+        }
+        return files.get(0);
+    }
+
+    /**
+     * Reads the events of a spill file, skipping lines that can no longer be parsed.
+     */
+    List<AuditEvent> read(Path file) throws IOException {
+        List<AuditEvent> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    events.add(objectMapper.readValue(line, AuditEvent.class));
+                } catch (IOException e) {
+                    // A crash while appending leaves at most a torn last line
+                    log.warn("Skipping unreadable audit spill record in {}", file, e);
+                }
+            }
+        }
+        return events;
+    }
+
+    synchronized void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        pending = writer != null || !closedFiles().isEmpty();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            closeCurrent();
+        }
+    }
+
+    private void closeCurrent() throws IOException {
+        writer.flush();
+        channel.force(true);
+        writer.close();
+        writer = null;
+        channel = null;
+        currentFile = null;
+        eventsInFile = 0;
+    }
+
+    private List<Path> closedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(SUFFIX) && !file.equals(currentFile);
+            }).sorted().toList();
+        }
+    }
+
+    /**
+     * Keeps the fractional seconds the entity's display format drops, so replayed events keep their time.
+     */
+    private abstract static class FullPrecisionTimestamp {
+
+        private static final String PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS";
+
+        @JsonFormat(pattern = PATTERN)
+        private LocalDateTime timestamp;
+
+        @JsonFormat(pattern = PATTERN)
+        abstract LocalDateTime getTimestamp();
+
+        @JsonFormat(pattern = PATTERN)
+        abstract void setTimestamp(LocalDateTime timestamp);
+    }
+}
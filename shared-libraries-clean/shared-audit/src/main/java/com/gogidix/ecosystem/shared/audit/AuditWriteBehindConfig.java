@@ -0,0 +1,97 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import lombok.Data;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Write-behind audit configuration for the Exalt Social E-commerce Ecosystem.
+ * When enabled, {@link AuditService} queues audit events and a background thread inserts them into the
+ * audit table in JDBC batches instead of saving each event on the calling thread. Written batches are
+ * reported to the {@link ComplianceQueryEngine}, if there is one, so that it drops cached counts of late events.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "audit.write-behind.enabled", havingValue = "true")
+public class AuditWriteBehindConfig {
+
+    /**
+     * Write-behind audit configuration properties.
+     */
+    @Data
+    public static class WriteBehindProperties {
+        private int capacity = 65_536;
+        private int batchSize = 500;
+        private long flushIntervalMs = 200;
+        private AuditWriteBehindPipeline.OverflowPolicy overflowPolicy = AuditWriteBehindPipeline.OverflowPolicy.BLOCK;
+        private long blockTimeoutMs = 1000;
+        private String spillDirectory = "audit-spill";
+        private int maxEventsPerSpillFile = 10_000;
+        private String deadLetterDirectory = "audit-dead-letter";
+        private int maxRetries = 3;
+        private long retryDelayMs = 200;
+        private long shutdownTimeoutMs = 30_000;
+        private String tableName = "audit_events";
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "audit.write-behind")
+    public WriteBehindProperties auditWriteBehindProperties() {
+        return new WriteBehindProperties();
+    }
+
+    @Bean
+    public AuditBatchWriter auditBatchWriter(JdbcTemplate jdbcTemplate,
+                                             ObjectProvider<PlatformTransactionManager> transactionManager,
+                                             ObjectProvider<ComplianceQueryEngine> queryEngine,
+                                             WriteBehindProperties properties) {
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        AuditBatchWriter writer = new JdbcAuditBatchWriter(jdbcTemplate,
+                manager == null ? null : new TransactionTemplate(manager), properties.getTableName());
+        ComplianceQueryEngine engine = queryEngine.getIfAvailable();
+        if (engine == null) {
+            return writer;
+        }
+        return new AuditBatchWriter() {
+            @Override
+            public void write(List<AuditEvent> events) throws Exception {
+                writer.write(events);
+                engine.eventsWritten(events);
+            }
+
+            @Override
+            public boolean isRejected(Exception failure) {
+                return writer.isRejected(failure);
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    public AuditWriteBehindPipeline auditWriteBehindPipeline(AuditBatchWriter auditBatchWriter,
+                                                             WriteBehindProperties properties) throws IOException {
+        return new AuditWriteBehindPipeline(auditBatchWriter, AuditWriteBehindPipeline.Options.builder()
+                .capacity(properties.getCapacity())
+                .batchSize(properties.getBatchSize())
+                .flushIntervalMs(properties.getFlushIntervalMs())
+                .overflowPolicy(properties.getOverflowPolicy())
+                .blockTimeoutMs(properties.getBlockTimeoutMs())
+                .spillDirectory(properties.getSpillDirectory())
+                .maxEventsPerSpillFile(properties.getMaxEventsPerSpillFile())
+                .deadLetterDirectory(properties.getDeadLetterDirectory())
+                .maxRetries(properties.getMaxRetries())
+                .retryDelayMs(properties.getRetryDelayMs())
+                .shutdownTimeoutMs(properties.getShutdownTimeoutMs())
+                .build());
+    }
+}
@@ -0,0 +1,571 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind pipeline for audit events.
+ * Callers put events into a bounded lock-free queue and return at once, while a single flusher thread
+ * writes them in batches once a batch is full or its oldest event has waited for the flush interval.
+ * When the queue is full the {@link OverflowPolicy} decides whether callers wait, events are dropped and
+ * counted, or events go to local spill files that are written to the audit store once the queue has
+ * room again. Closing the pipeline writes every queued event before it returns.
+ * A batch the audit store rejects because of some of its events is split until those events are found;
+ * the rest of the batch is written and the rejected events are moved to dead-letter files.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+public class AuditWriteBehindPipeline implements AutoCloseable {
+
+    private static final long DROP_WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int SPINS_BEFORE_PARKING = 100;
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final AuditBatchWriter writer;
+    private final Options options;
+    private final AuditEventQueue<PendingEvent> queue;
+    private final AuditSpillFile spillFile;
+    private AuditSpillFile deadLetterFile;
+    private final Thread flusher;
+    private final long flushIntervalNanos;
+
+    private final LongAdder enqueuedEvents = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder spilledEvents = new LongAdder();
+    private volatile long writtenEvents;
+    private volatile long failedEvents;
+    private volatile long deadLetteredEvents;
+    private volatile long batches;
+    private volatile long totalBatchNanos;
+    private volatile long maxBatchNanos;
+    private volatile long lastBatchNanos;
+
+    private volatile boolean accepting = true;
+    private volatile boolean stopping;
+    private volatile boolean flushRequested;
+    private volatile boolean flusherParked;
+    private volatile int heldEvents;
+    private volatile long lastDropWarning = System.nanoTime() - DROP_WARNING_INTERVAL_NANOS;
+
+    // Replay progress, only touched by the flusher thread
+    private Path replayFile;
+    private List<AuditEvent> replayEvents;
+    private int replayIndex;
+
+    /**
+     * Creates the pipeline and starts its flusher thread.
+     *
+     * @throws IOException if the spill directory cannot be created
+     */
+    public AuditWriteBehindPipeline(AuditBatchWriter writer, Options options) throws IOException {
+        this.writer = writer;
+        this.options = options;
+        this.queue = new AuditEventQueue<>(options.getCapacity());
+        this.spillFile = options.getOverflowPolicy() == OverflowPolicy.SPILL
+                ? new AuditSpillFile(Paths.get(options.getSpillDirectory()), AuditSpillFile.PREFIX,
+                        options.getMaxEventsPerSpillFile())
+                : null;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(options.getFlushIntervalMs());
+        this.flusher = new Thread(this::runFlusher, "audit-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        log.info("Audit write-behind pipeline started: capacity={}, batchSize={}, flushIntervalMs={}, overflow={}",
+                queue.capacity(), options.getBatchSize(), options.getFlushIntervalMs(), options.getOverflowPolicy());
+    }
+
+    /**
+     * Queues an event without tracking when it is written.
+     *
+     * @return false if the event was dropped
+     */
+    public boolean offer(AuditEvent event) {
+        return accept(new PendingEvent(event, null, System.nanoTime(), false));
+    }
+
+    /**
+     * Queues an event and returns a future completed once the event is in the audit store or, under
+     * the spill policy, in a spill file. The future fails if the event is dropped or cannot be written.
+     *
+     * @param event            Event to write
+     * @param flushImmediately Whether to write the current batch at once instead of waiting for it to fill
+     */
+    public CompletableFuture<Void> submit(AuditEvent event, boolean flushImmediately) {
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        accept(new PendingEvent(event, completion, System.nanoTime(), flushImmediately));
+        return completion;
+    }
+
+    /**
+     * Returns a snapshot of the queue depth, event counters and batch latencies.
+     */
+    public Metrics getMetrics() {
+        long batchCount = batches;
+        return Metrics.builder()
+                .queueDepth(queue.size())
+                .queueCapacity(queue.capacity())
+                .enqueuedEvents(enqueuedEvents.sum())
+                .writtenEvents(writtenEvents)
+                .droppedEvents(droppedEvents.sum())
+                .spilledEvents(spilledEvents.sum())
+                .failedEvents(failedEvents)
+                .deadLetteredEvents(deadLetteredEvents)
+                .batches(batchCount)
+                .lastBatchLatencyMs(toMillis(lastBatchNanos))
+                .averageBatchLatencyMs(batchCount == 0 ? 0 : toMillis(totalBatchNanos) / batchCount)
+                .maxBatchLatencyMs(toMillis(maxBatchNanos))
+                .spillPending(spillFile != null && spillFile.hasPending())
+                .build();
+    }
+
+    /**
+     * Stops accepting events and waits up to the shutdown timeout until every queued event is written.
+     * Events still spilled stay in their files and are replayed by the next pipeline on the same directory.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (stopping) {
+                return;
+            }
+            accepting = false;
+            stopping = true;
+        }
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(options.getShutdownTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            log.error("Audit write-behind pipeline did not finish within {} ms, {} events are still queued",
+                    options.getShutdownTimeoutMs(), queue.size());
+            return;
+        }
+        // The flusher is gone, so this thread may consume events queued while it finished
+        List<PendingEvent> batch = new ArrayList<>(options.getBatchSize());
+        while (queue.drainTo(batch, options.getBatchSize()) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                log.error("Failed to close audit spill file", e);
+            }
+        }
+        if (deadLetterFile != null) {
+            try {
+                deadLetterFile.close();
+            } catch (IOException e) {
+                log.error("Failed to close audit dead-letter file", e);
+            }
+        }
+        log.info("Audit write-behind pipeline stopped: {}", getMetrics());
+    }
+
+    private boolean accept(PendingEvent pending) {
+        if (accepting && queue.offer(pending)) {
+            enqueuedEvents.increment();
+            if (pending.urgent()) {
+                requestFlush();
+            } else if (flusherParked && queue.size() + heldEvents >= options.getBatchSize()) {
+                LockSupport.unpark(flusher);
+            }
+            return true;
+        }
+        return overflow(pending);
+    }
+
+    private boolean overflow(PendingEvent pending) {
+        if (spillFile != null) {
+            return spill(pending);
+        }
+        if (options.getOverflowPolicy() == OverflowPolicy.BLOCK && accepting) {
+            return awaitSpace(pending);
+        }
+        drop(pending);
+        return false;
+    }
+
+    private boolean awaitSpace(PendingEvent pending) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getBlockTimeoutMs());
+        requestFlush();
+        int spins = 0;
+        while (accepting && !Thread.currentThread().isInterrupted()) {
+            if (queue.offer(pending)) {
+                enqueuedEvents.increment();
+                return true;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            if (++spins < SPINS_BEFORE_PARKING) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(this, Math.min(remaining, BLOCKED_PARK_NANOS));
+            }
+        }
+        drop(pending);
+        return false;
+    }
+
+    private boolean spill(PendingEvent pending) {
+        try {
+            spillFile.append(List.of(pending.event()));
+            spilledEvents.increment();
+            complete(pending);
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to spill audit event {}", pending.event().getId(), e);
+            drop(pending);
+            return false;
+        }
+    }
+
+    private void drop(PendingEvent pending) {
+        droppedEvents.increment();
+        if (pending.completion() != null) {
+            pending.completion().completeExceptionally(new RejectedExecutionException(
+                    accepting ? "Audit write-behind queue is full" : "Audit write-behind pipeline is closed"));
+        }
+        long now = System.nanoTime();
+        long last = lastDropWarning;
+        if (now - last >= DROP_WARNING_INTERVAL_NANOS) {
+            lastDropWarning = now;
+            log.warn("Dropping audit events, {} dropped so far with {} of {} queued",
+                    droppedEvents.sum(), queue.size(), queue.capacity());
+        }
+    }
+
+    private void requestFlush() {
+        flushRequested = true;
+        LockSupport.unpark(flusher);
+    }
+
+    private void runFlusher() {
+        int batchSize = options.getBatchSize();
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            boolean flushNow = flushRequested;
+            if (flushNow) {
+                flushRequested = false;
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            if (!batch.isEmpty() && (flushNow || stopping || batch.size() >= batchSize
+                    || System.nanoTime() - batch.get(0).enqueuedAt() >= flushIntervalNanos)) {
+                writeBatch(batch);
+                batch.clear();
+                continue;
+            }
+            if (batch.isEmpty()) {
+                if (stopping) {
+                    return;
+                }
+                if (spillFile != null && spillFile.hasPending() && queue.size() < queue.capacity() / 2) {
+                    replayNextChunk();
+                    continue;
+                }
+            }
+            long waitNanos = batch.isEmpty() ? flushIntervalNanos
+                    : flushIntervalNanos - (System.nanoTime() - batch.get(0).enqueuedAt());
+            heldEvents = batch.size();
+            flusherParked = true;
+            if (!flushRequested && !stopping && batch.size() + queue.size() < batchSize) {
+                LockSupport.parkNanos(this, Math.max(waitNanos, 1));
+            }
+            flusherParked = false;
+        }
+    }
+
+    private void writeBatch(List<PendingEvent> batch) {
+        List<AuditEvent> events = new ArrayList<>(batch.size());
+        for (PendingEvent pending : batch) {
+            events.add(pending.event());
+        }
+        WriteOutcome outcome = write(events);
+        writtenEvents += events.size() - outcome.rejected().size() - outcome.unwritten().size();
+        boolean deadLettered = outcome.rejected().isEmpty() || deadLetter(outcome.rejected());
+        Set<AuditEvent> rejected = identitySet(outcome.rejected());
+        Set<AuditEvent> unwritten = identitySet(outcome.unwritten());
+        List<PendingEvent> unwrittenBatch = new ArrayList<>(unwritten.size());
+        for (PendingEvent pending : batch) {
+            if (rejected.contains(pending.event())) {
+                fail(pending, deadLettered
+                        ? "Audit store rejected audit event " : "Failed to keep rejected audit event ");
+            } else if (unwritten.contains(pending.event())) {
+                unwrittenBatch.add(pending);
+            } else {
+                complete(pending);
+            }
+        }
+        if (unwrittenBatch.isEmpty()) {
+            return;
+        }
+        if (spillFile != null) {
+            try {
+                spillFile.append(outcome.unwritten());
+                spilledEvents.add(unwrittenBatch.size());
+                unwrittenBatch.forEach(this::complete);
+                return;
+            } catch (IOException e) {
+                log.error("Failed to spill {} unwritten audit events", unwrittenBatch.size(), e);
+            }
+        }
+        failedEvents += unwrittenBatch.size();
+        unwrittenBatch.forEach(pending -> fail(pending, "Failed to write audit event "));
+    }
+
+    /**
+     * Writes the next batch of the oldest spill file, deleting the file once all of its events are written.
+     */
+    private void replayNextChunk() {
+        try {
+            if (replayFile == null) {
+                replayFile = spillFile.nextFile();
+                if (replayFile == null) {
+                    return;
+                }
+                replayEvents = spillFile.read(replayFile);
+                replayIndex = 0;
+            }
+            if (replayIndex < replayEvents.size()) {
+                int end = Math.min(replayIndex + options.getBatchSize(), replayEvents.size());
+                WriteOutcome outcome = write(replayEvents.subList(replayIndex, end));
+                if (!outcome.unwritten().isEmpty()
+                        || !outcome.rejected().isEmpty() && !deadLetter(outcome.rejected())) {
+                    // Keep the file and try again after the retry delay; events already written are skipped
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(options.getRetryDelayMs()));
+                    return;
+                }
+                writtenEvents += end - replayIndex - outcome.rejected().size();
+                replayIndex = end;
+            }
+            if (replayIndex >= replayEvents.size()) {
+                spillFile.delete(replayFile);
+                log.info("Replayed {} spilled audit events from {}", replayEvents.size(), replayFile);
+                replayFile = null;
+                replayEvents = null;
+            }
+        } catch (IOException e) {
+            log.error("Failed to replay audit spill file {}", replayFile, e);
+            replayFile = null;
+            replayEvents = null;
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(options.getRetryDelayMs()));
+        }
+    }
+
+    /**
+     * Writes events with retries. When the audit store rejects them, the batch is split in halves until the
+     * rejected events are isolated, so that every other event is written.
+     */
+    private WriteOutcome write(List<AuditEvent> events) {
+        WriteOutcome outcome = new WriteOutcome(new ArrayList<>(), new ArrayList<>());
+        Exception failure = writeWithRetries(events);
+        if (failure != null) {
+            isolateRejected(events, failure, outcome);
+        }
+        return outcome;
+    }
+
+    private void isolateRejected(List<AuditEvent> events, Exception failure, WriteOutcome outcome) {
+        if (!writer.isRejected(failure)) {
+            outcome.unwritten().addAll(events);
+            return;
+        }
+        if (events.size() == 1) {
+            log.error("Audit store rejected audit event {}", events.get(0).getId(), failure);
+            outcome.rejected().add(events.get(0));
+            return;
+        }
+        int half = events.size() / 2;
+        for (List<AuditEvent> part : List.of(events.subList(0, half), events.subList(half, events.size()))) {
+            try {
+                writer.write(part);
+            } catch (Exception e) {
+                isolateRejected(part, e, outcome);
+            }
+        }
+    }
+
+    /**
+     * @return null once the events are written, otherwise the last failure
+     */
+    private Exception writeWithRetries(List<AuditEvent> events) {
+        for (int attempt = 0; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                writer.write(events);
+                recordBatch(System.nanoTime() - start);
+                return null;
+            } catch (Exception e) {
+                if (writer.isRejected(e)) {
+                    log.warn("Audit store rejected a batch of {} audit events: {}", events.size(), e.getMessage());
+                    return e;
+                }
+                if (attempt >= options.getMaxRetries()) {
+                    log.error("Failed to write {} audit events after {} attempts", events.size(), attempt + 1, e);
+                    return e;
+                }
+                log.warn("Failed to write {} audit events, retrying: {}", events.size(), e.getMessage());
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(options.getRetryDelayMs() << attempt));
+            }
+        }
+    }
+
+    private void recordBatch(long nanos) {
+        batches++;
+        totalBatchNanos += nanos;
+        lastBatchNanos = nanos;
+        if (nanos > maxBatchNanos) {
+            maxBatchNanos = nanos;
+        }
+    }
+
+    /**
+     * Appends events the audit store rejected to the dead-letter files.
+     *
+     * @return false if the events could not be kept
+     */
+    private boolean deadLetter(List<AuditEvent> events) {
+        try {
+            if (deadLetterFile == null) {
+                deadLetterFile = new AuditSpillFile(Paths.get(options.getDeadLetterDirectory()),
+                        AuditSpillFile.DEAD_LETTER_PREFIX, options.getMaxEventsPerSpillFile());
+            }
+            deadLetterFile.append(events);
+            deadLetteredEvents += events.size();
+            log.error("Moved {} rejected audit events to {}", events.size(), options.getDeadLetterDirectory());
+            return true;
+        } catch (IOException e) {
+            failedEvents += events.size();
+            log.error("Failed to keep {} rejected audit events", events.size(), e);
+            return false;
+        }
+    }
+
+    private void complete(PendingEvent pending) {
+        if (pending.completion() != null) {
+            pending.completion().complete(null);
+        }
+    }
+
+    private void fail(PendingEvent pending, String reason) {
+        if (pending.completion() != null) {
+            pending.completion().completeExceptionally(new IllegalStateException(reason + pending.event().getId()));
+        }
+    }
+
+    private static Set<AuditEvent> identitySet(List<AuditEvent> events) {
+        Set<AuditEvent> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(events);
+        return set;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private record PendingEvent(AuditEvent event, CompletableFuture<Void> completion, long enqueuedAt,
+                                boolean urgent) {
+    }
+
+    /**
+     * Events of a write the store rejected, and those left unwritten for any other reason.
+     */
+    private record WriteOutcome(List<AuditEvent> rejected, List<AuditEvent> unwritten) {
+    }
+
+    /**
+     * What happens to an event that finds the queue full.
+     */
+    public enum OverflowPolicy {
+        /** The caller waits for room up to the block timeout, after which the event is dropped. */
+        BLOCK,
+        /** The event is dropped and counted. */
+        DROP,
+        /** The event is appended to a local spill file and written once the queue has room again. */
+        SPILL
+    }
+
+    /**
+     * Settings of the pipeline.
+     */
+    @Getter
+    @Builder
+    public static class Options {
+
+        @Builder.Default
+        private int capacity = 65_536;
+
+        @Builder.Default
+        private int batchSize = 500;
+
+        @Builder.Default
+        private long flushIntervalMs = 200;
+
+        @Builder.Default
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+        @Builder.Default
+        private long blockTimeoutMs = 1000;
+
+        @Builder.Default
+        private String spillDirectory = "audit-spill";
+
+        @Builder.Default
+        private int maxEventsPerSpillFile = 10_000;
+
+        @Builder.Default
+        private String deadLetterDirectory = "audit-dead-letter";
+
+        @Builder.Default
+        private int maxRetries = 3;
+
+        @Builder.Default
+        private long retryDelayMs = 200;
+
+        @Builder.Default
+        private long shutdownTimeoutMs = 30_000;
+    }
+
+    /**
+     * Point-in-time view of the pipeline's queue and throughput.
+     */
+    @Value
+    @Builder
+    public static class Metrics {
+        int queueDepth;
+        int queueCapacity;
+        long enqueuedEvents;
+        long writtenEvents;
+        long droppedEvents;
+        long spilledEvents;
+        long failedEvents;
+        long deadLetteredEvents;
+        long batches;
+        double lastBatchLatencyMs;
+        double averageBatchLatencyMs;
+        double maxBatchLatencyMs;
+        boolean spillPending;
+    }
+}
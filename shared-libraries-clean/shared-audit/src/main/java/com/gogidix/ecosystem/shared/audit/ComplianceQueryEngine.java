@@ -0,0 +1,248 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the counts behind the compliance reports with aggregate queries, so that neither the time nor
+ * the memory needed for a report grows with the number of audit events.
+ * Counts are grouped by day. The counts of days that are over are cached, so running a report again over
+ * a longer period, such as a quarterly report during the quarter, only queries the days not seen before.
+ * A day is considered over once a delay has passed after its end, leaving time for events that are
+ * written late, for example by the write-behind pipeline. Events written later still, such as events
+ * replayed from a spill file after an outage, drop the cached counts of their day.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Service
+public class ComplianceQueryEngine {
+
+    private static final String ALL_EVENTS = "*";
+
+    private final AuditRepository auditRepository;
+
+    @Value("${audit.compliance.closed-day-delay-minutes:60}")
+    private long closedDayDelayMinutes = 60;
+
+    @Value("${audit.compliance.cache-max-days:10000}")
+    private int cacheMaxDays = 10_000;
+
+    private final Map<String, List<ComplianceStats>> dailyCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<ComplianceStats>> eldest) {
+                    return size() > cacheMaxDays;
+                }
+            });
+
+    // Incremented whenever cached days are dropped, so counts queried before that are not cached afterwards
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ComplianceQueryEngine(AuditRepository auditRepository) {
+        this.auditRepository = auditRepository;
+    }
+
+    /**
+     * Gets the counts of the events flagged for a compliance type within a time range.
+     *
+     * @param complianceType Type of compliance, such as "GDPR"
+     * @param startTime      Start time, inclusive
+     * @param endTime        End time, inclusive
+     * @param userId         Optional user ID to filter by
+     * @return Counts per day, category, action, resource type and outcome
+     */
+    public List<ComplianceStats> getComplianceStats(String complianceType, LocalDateTime startTime,
+                                                    LocalDateTime endTime, String userId) {
+        String scope = complianceType + "|" + (userId != null ? userId : ALL_EVENTS);
+        return load(scope, startTime, endTime, (from, to) -> auditRepository
+                .getComplianceStatsByDay("$." + complianceType, userId, from, to)
+                .stream()
+                .map(ComplianceQueryEngine::toComplianceStats)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Gets the counts of all events within a time range.
+     *
+     * @param startTime Start time, inclusive
+     * @param endTime   End time, inclusive
+     * @return Counts per day and outcome
+     */
+    public List<ComplianceStats> getOutcomeStats(LocalDateTime startTime, LocalDateTime endTime) {
+        return load(ALL_EVENTS, startTime, endTime, (from, to) -> auditRepository
+                .getOutcomeStatsByDay(from, to)
+                .stream()
+                .map(row -> ComplianceStats.builder()
+                        .day(toLocalDate(row[0]))
+                        .success((Boolean) row[1])
+                        .eventCount(toLong(row[2]))
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Drops all cached daily counts, for example after audit events were deleted or archived.
+     */
+    public void clearCache() {
+        invalidations.incrementAndGet();
+        dailyCache.clear();
+    }
+
+    /**
+     * Drops the cached counts of the days of events written after their day was over.
+     *
+     * @param events Events that were just written
+     */
+    public void eventsWritten(Collection<AuditEvent> events) {
+        LocalDateTime closedBefore = LocalDateTime.now().minusMinutes(closedDayDelayMinutes);
+        Set<String> lateDays = new HashSet<>();
+        for (AuditEvent event : events) {
+            LocalDateTime timestamp = event.getTimestamp();
+            if (timestamp != null && !timestamp.toLocalDate().plusDays(1).atStartOfDay().isAfter(closedBefore)) {
+                lateDays.add(timestamp.toLocalDate().toString());
+            }
+        }
+        if (lateDays.isEmpty()) {
+            return;
+        }
+
+        invalidations.incrementAndGet();
+        synchronized (dailyCache) {
+            dailyCache.keySet().removeIf(key -> lateDays.contains(key.substring(key.lastIndexOf('|') + 1)));
+        }
+        log.debug("Dropped cached compliance counts of {} after late audit events", lateDays);
+    }
+
+    /**
+     * Splits a time range into days, takes the counts of days that are over from the cache, and queries the
+     * rest. Consecutive days missing from the cache are queried at once and cached afterwards, while partly
+     * covered days and days that are not over yet are queried on their own and never cached.
+     */
+    private List<ComplianceStats> load(String scope, LocalDateTime startTime, LocalDateTime endTime,
+                                       BiFunction<LocalDateTime, LocalDateTime, List<ComplianceStats>> query) {
+        List<ComplianceStats> stats = new ArrayList<>();
+        // The queries take an exclusive end, which includes the end time itself when moved on by a nanosecond
+        LocalDateTime rangeEnd = endTime.plusNanos(1);
+        LocalDateTime closedBefore = LocalDateTime.now().minusMinutes(closedDayDelayMinutes);
+        LocalDateTime missingFrom = null;
+        LocalDateTime cursor = startTime;
+        int cachedDays = 0;
+
+        while (cursor.isBefore(rangeEnd)) {
+            LocalDateTime dayStart = cursor.toLocalDate().atStartOfDay();
+            LocalDateTime dayEnd = dayStart.plusDays(1);
+            boolean cacheable = cursor.equals(dayStart) && !dayEnd.isAfter(rangeEnd) && !dayEnd.isAfter(closedBefore);
+            if (cacheable) {
+                List<ComplianceStats> cached = dailyCache.get(cacheKey(scope, dayStart.toLocalDate()));
+                if (cached == null) {
+                    if (missingFrom == null) {
+                        missingFrom = dayStart;
+                    }
+                } else {
+                    if (missingFrom != null) {
+                        stats.addAll(queryDays(scope, missingFrom, dayStart, query));
+                        missingFrom = null;
+                    }
+                    stats.addAll(cached);
+                    cachedDays++;
+                }
+                cursor = dayEnd;
+            } else {
+                if (missingFrom != null) {
+                    stats.addAll(queryDays(scope, missingFrom, dayStart, query));
+                    missingFrom = null;
+                }
+                LocalDateTime segmentEnd = dayEnd.isBefore(rangeEnd) ? dayEnd : rangeEnd;
+                stats.addAll(query.apply(cursor, segmentEnd));
+                cursor = segmentEnd;
+            }
+        }
+        if (missingFrom != null) {
+            stats.addAll(queryDays(scope, missingFrom, cursor, query));
+        }
+
+        log.debug("Loaded compliance counts for {} from {} to {} with {} cached days", scope, startTime, endTime,
+            cachedDays);
+        return stats;
+    }
+
+    /**
+     * Queries whole days and caches their counts, including days without any events, unless cached days were
+     * dropped while the query ran.
+     */
+    private List<ComplianceStats> queryDays(String scope, LocalDateTime from, LocalDateTime to,
+                                            BiFunction<LocalDateTime, LocalDateTime, List<ComplianceStats>> query) {
+        long invalidationsBefore = invalidations.get();
+        List<ComplianceStats> stats = query.apply(from, to);
+        if (invalidations.get() != invalidationsBefore) {
+            return stats;
+        }
+        Map<LocalDate, List<ComplianceStats>> byDay = new HashMap<>();
+        for (ComplianceStats stat : stats) {
+            byDay.computeIfAbsent(stat.getDay(), day -> new ArrayList<>()).add(stat);
+        }
+        for (LocalDate day = from.toLocalDate(); day.isBefore(to.toLocalDate()); day = day.plusDays(1)) {
+            dailyCache.put(cacheKey(scope, day), List.copyOf(byDay.getOrDefault(day, List.of())));
+        }
+        return stats;
+    }
+
+    private static String cacheKey(String scope, LocalDate day) {
+        return scope + "|" + day;
+    }
+
+    private static ComplianceStats toComplianceStats(Object[] row) {
+        return ComplianceStats.builder()
+                .day(toLocalDate(row[0]))
+                .category((String) row[1])
+                .action(row[2] instanceof String ? AuditEvent.AuditAction.valueOf((String) row[2])
+                        : (AuditEvent.AuditAction) row[2])
+                .resourceType((String) row[3])
+                .success((Boolean) row[4])
+                .eventCount(toLong(row[5]))
+                .justifiedCount(toLong(row[6]))
+                .purposeCount(toLong(row[7]))
+                .retentionCount(toLong(row[8]))
+                .longRetentionCount(toLong(row[9]))
+                .encryptedCount(toLong(row[10]))
+                .monitoredCount(toLong(row[11]))
+                .approvedCount(toLong(row[12]))
+                .authorizedCount(toLong(row[13]))
+                .build();
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toLocalDate();
+        }
+        return LocalDate.parse(value.toString().substring(0, 10));
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -3,6 +3,7 @@ package com.gogidix.ecosystem.shared.audit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -10,14 +11,20 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 /**
  * Service for generating compliance reports from audit events in the Exalt Social E-commerce Ecosystem.
  * Provides specialized reporting capabilities for various regulatory requirements.
+ * Reports are computed from event counts. With a {@link ComplianceQueryEngine} available, the counts come from
+ * aggregate queries; otherwise the events are loaded and counted in memory, which also fills the event lists
+ * of the reports.
  * 
  * @author Exalt Development Team
  * @since 1.0.0
@@ -31,6 +38,12 @@ public class ComplianceReporter {
     @Autowired
     private AuditRepository auditRepository;
     
+    @Autowired(required = false)
+    private ComplianceQueryEngine queryEngine;
+    
+    @Value("${audit.compliance.suspicious-failure-threshold:10}")
+    private long suspiciousFailureThreshold = 10;
+    
     /**
      * Generates a GDPR compliance report for data access and processing activities.
      * 
@@ -48,24 +61,35 @@ public class ComplianceReporter {
         report.setGeneratedAt(LocalDateTime.now());
         report.setUserId(userId);
         
-        // Get all GDPR-related audit events
-        List<AuditEvent> gdprEvents = getComplianceEvents("GDPR", startTime, endTime, userId);
-        report.setTotalEvents(gdprEvents.size());
+        // Get the counts of all GDPR-related audit events
+        List<ComplianceStats> gdprStats;
+        if (queryEngine != null) {
+            gdprStats = queryEngine.getComplianceStats("GDPR", startTime, endTime, userId);
+        } else {
+            List<AuditEvent> gdprEvents = getComplianceEvents("GDPR", startTime, endTime, userId);
+            report.setDataProcessingEvents(filterEventsByCategory(gdprEvents, "DATA_PROCESSING"));
+            report.setDataAccessEvents(filterEventsByAction(gdprEvents, AuditEvent.AuditAction.READ));
+            report.setDataExportEvents(filterEventsByAction(gdprEvents, AuditEvent.AuditAction.EXPORT));
+            report.setDataDeletionEvents(filterEventsByAction(gdprEvents, AuditEvent.AuditAction.DELETE));
+            report.setConsentEvents(filterEventsByCategory(gdprEvents, "CONSENT"));
+            gdprStats = ComplianceStats.of(gdprEvents);
+        }
+        report.setTotalEvents((int) count(gdprStats, stats -> true));
         
         // Categorize events by GDPR principles
-        report.setDataProcessingEvents(filterEventsByCategory(gdprEvents, "DATA_PROCESSING"));
-        report.setDataAccessEvents(filterEventsByAction(gdprEvents, AuditEvent.AuditAction.READ));
-        report.setDataExportEvents(filterEventsByAction(gdprEvents, AuditEvent.AuditAction.EXPORT));
-        report.setDataDeletionEvents(filterEventsByAction(gdprEvents, AuditEvent.AuditAction.DELETE));
-        report.setConsentEvents(filterEventsByCategory(gdprEvents, "CONSENT"));
+        report.setDataProcessingEventCount(count(gdprStats, inCategory("DATA_PROCESSING")));
+        report.setDataAccessEventCount(count(gdprStats, withAction(AuditEvent.AuditAction.READ)));
+        report.setDataExportEventCount(count(gdprStats, withAction(AuditEvent.AuditAction.EXPORT)));
+        report.setDataDeletionEventCount(count(gdprStats, withAction(AuditEvent.AuditAction.DELETE)));
+        report.setConsentEventCount(count(gdprStats, inCategory("CONSENT")));
         
         // Calculate compliance metrics
-        report.setDataMinimizationCompliance(calculateDataMinimizationCompliance(gdprEvents));
-        report.setPurposeLimitationCompliance(calculatePurposeLimitationCompliance(gdprEvents));
-        report.setStorageLimitationCompliance(calculateStorageLimitationCompliance(gdprEvents));
+        report.setDataMinimizationCompliance(calculateDataMinimizationCompliance(gdprStats));
+        report.setPurposeLimitationCompliance(calculatePurposeLimitationCompliance(gdprStats));
+        report.setStorageLimitationCompliance(calculateStorageLimitationCompliance(gdprStats));
         
         // Generate recommendations
-        report.setRecommendations(generateGdprRecommendations(gdprEvents));
+        report.setRecommendations(generateGdprRecommendations(gdprStats));
         
         return report;
     }
@@ -84,25 +108,36 @@ public class ComplianceReporter {
         report.setReportPeriod(startTime, endTime);
         report.setGeneratedAt(LocalDateTime.now());
         
-        // Get all PCI DSS-related audit events
-        List<AuditEvent> pciEvents = getComplianceEvents("PCI_DSS", startTime, endTime, null);
-        report.setTotalEvents(pciEvents.size());
+        // Get the counts of all PCI DSS-related audit events
+        List<ComplianceStats> pciStats;
+        if (queryEngine != null) {
+            pciStats = queryEngine.getComplianceStats("PCI_DSS", startTime, endTime, null);
+        } else {
+            List<AuditEvent> pciEvents = getComplianceEvents("PCI_DSS", startTime, endTime, null);
+            report.setPaymentDataAccessEvents(filterEventsByResourceType(pciEvents, "PAYMENT"));
+            report.setCardDataEvents(filterEventsByResourceType(pciEvents, "CARD"));
+            report.setEncryptionEvents(filterEventsByCategory(pciEvents, "ENCRYPTION"));
+            report.setAccessControlEvents(filterEventsByCategory(pciEvents, "ACCESS_CONTROL"));
+            report.setNetworkSecurityEvents(filterEventsByCategory(pciEvents, "NETWORK_SECURITY"));
+            pciStats = ComplianceStats.of(pciEvents);
+        }
+        report.setTotalEvents((int) count(pciStats, stats -> true));
         
         // Categorize events by PCI DSS requirements
-        report.setPaymentDataAccessEvents(filterEventsByResourceType(pciEvents, "PAYMENT"));
-        report.setCardDataEvents(filterEventsByResourceType(pciEvents, "CARD"));
-        report.setEncryptionEvents(filterEventsByCategory(pciEvents, "ENCRYPTION"));
-        report.setAccessControlEvents(filterEventsByCategory(pciEvents, "ACCESS_CONTROL"));
-        report.setNetworkSecurityEvents(filterEventsByCategory(pciEvents, "NETWORK_SECURITY"));
+        report.setPaymentDataAccessEventCount(count(pciStats, onResourceType("PAYMENT")));
+        report.setCardDataEventCount(count(pciStats, onResourceType("CARD")));
+        report.setEncryptionEventCount(count(pciStats, inCategory("ENCRYPTION")));
+        report.setAccessControlEventCount(count(pciStats, inCategory("ACCESS_CONTROL")));
+        report.setNetworkSecurityEventCount(count(pciStats, inCategory("NETWORK_SECURITY")));
         
         // Calculate compliance scores
-        report.setSecureNetworkScore(calculateSecureNetworkCompliance(pciEvents));
-        report.setDataProtectionScore(calculateDataProtectionCompliance(pciEvents));
-        report.setAccessControlScore(calculateAccessControlCompliance(pciEvents));
-        report.setMonitoringScore(calculateMonitoringCompliance(pciEvents));
+        report.setSecureNetworkScore(calculateSecureNetworkCompliance(pciStats));
+        report.setDataProtectionScore(calculateDataProtectionCompliance(pciStats));
+        report.setAccessControlScore(calculateAccessControlCompliance(pciStats));
+        report.setMonitoringScore(calculateMonitoringCompliance(pciStats));
         
         // Generate security recommendations
-        report.setSecurityRecommendations(generatePciSecurityRecommendations(pciEvents));
+        report.setSecurityRecommendations(generatePciSecurityRecommendations(pciStats));
         
         return report;
     }
@@ -121,23 +156,33 @@ public class ComplianceReporter {
         report.setReportPeriod(startTime, endTime);
         report.setGeneratedAt(LocalDateTime.now());
         
-        // Get all SOX-related audit events
-        List<AuditEvent> soxEvents = getComplianceEvents("SOX", startTime, endTime, null);
-        report.setTotalEvents(soxEvents.size());
+        // Get the counts of all SOX-related audit events
+        List<ComplianceStats> soxStats;
+        if (queryEngine != null) {
+            soxStats = queryEngine.getComplianceStats("SOX", startTime, endTime, null);
+        } else {
+            List<AuditEvent> soxEvents = getComplianceEvents("SOX", startTime, endTime, null);
+            report.setFinancialTransactionEvents(filterEventsByCategory(soxEvents, "FINANCIAL"));
+            report.setConfigurationChangeEvents(filterEventsByAction(soxEvents, AuditEvent.AuditAction.CONFIGURE));
+            report.setAccessGrantEvents(filterEventsByAction(soxEvents, AuditEvent.AuditAction.GRANT));
+            report.setPrivilegedAccessEvents(filterEventsByCategory(soxEvents, "PRIVILEGED_ACCESS"));
+            soxStats = ComplianceStats.of(soxEvents);
+        }
+        report.setTotalEvents((int) count(soxStats, stats -> true));
         
         // Categorize events by SOX controls
-        report.setFinancialTransactionEvents(filterEventsByCategory(soxEvents, "FINANCIAL"));
-        report.setConfigurationChangeEvents(filterEventsByAction(soxEvents, AuditEvent.AuditAction.CONFIGURE));
-        report.setAccessGrantEvents(filterEventsByAction(soxEvents, AuditEvent.AuditAction.GRANT));
-        report.setPrivilegedAccessEvents(filterEventsByCategory(soxEvents, "PRIVILEGED_ACCESS"));
+        report.setFinancialTransactionEventCount(count(soxStats, inCategory("FINANCIAL")));
+        report.setConfigurationChangeEventCount(count(soxStats, withAction(AuditEvent.AuditAction.CONFIGURE)));
+        report.setAccessGrantEventCount(count(soxStats, withAction(AuditEvent.AuditAction.GRANT)));
+        report.setPrivilegedAccessEventCount(count(soxStats, inCategory("PRIVILEGED_ACCESS")));
         
         // Calculate control effectiveness
-        report.setInternalControlScore(calculateInternalControlEffectiveness(soxEvents));
-        report.setChangeManagementScore(calculateChangeManagementCompliance(soxEvents));
-        report.setAccessManagementScore(calculateAccessManagementCompliance(soxEvents));
+        report.setInternalControlScore(calculateInternalControlEffectiveness(soxStats));
+        report.setChangeManagementScore(calculateChangeManagementCompliance(soxStats));
+        report.setAccessManagementScore(calculateAccessManagementCompliance(soxStats));
         
         // Generate control recommendations
-        report.setControlRecommendations(generateSoxControlRecommendations(soxEvents));
+        report.setControlRecommendations(generateSoxControlRecommendations(soxStats));
         
         return report;
     }
@@ -197,6 +242,17 @@ public class ComplianceReporter {
         return events;
     }
     
+    /**
+     * Gets the compliance counts for a specific type and time range.
+     */
+    private List<ComplianceStats> getComplianceStats(String complianceType, LocalDateTime startTime,
+                                                     LocalDateTime endTime) {
+        if (queryEngine != null) {
+            return queryEngine.getComplianceStats(complianceType, startTime, endTime, null);
+        }
+        return ComplianceStats.of(getComplianceEvents(complianceType, startTime, endTime, null));
+    }
+    
     /**
      * Filters events by category.
      */
@@ -224,20 +280,49 @@ public class ComplianceReporter {
             .collect(Collectors.toList());
     }
     
+    /**
+     * Adds up the events of the counts matching a filter.
+     */
+    private static long count(List<ComplianceStats> stats, Predicate<ComplianceStats> filter) {
+        return sum(stats, filter, ComplianceStats::getEventCount);
+    }
+    
+    /**
+     * Adds up one kind of count over the counts matching a filter.
+     */
+    private static long sum(List<ComplianceStats> stats, Predicate<ComplianceStats> filter,
+                            ToLongFunction<ComplianceStats> counter) {
+        return stats.stream().filter(filter).mapToLong(counter).sum();
+    }
+    
+    private static Predicate<ComplianceStats> inCategory(String category) {
+        return stats -> category.equals(stats.getCategory());
+    }
+    
+    private static Predicate<ComplianceStats> withAction(AuditEvent.AuditAction action) {
+        return stats -> action.equals(stats.getAction());
+    }
+    
+    private static Predicate<ComplianceStats> onResourceType(String resourceType) {
+        return stats -> resourceType.equals(stats.getResourceType());
+    }
+    
+    private static Predicate<ComplianceStats> succeeded() {
+        return stats -> Boolean.TRUE.equals(stats.getSuccess());
+    }
+    
+    private static Predicate<ComplianceStats> failed() {
+        return stats -> Boolean.FALSE.equals(stats.getSuccess());
+    }
+    
     /**
      * Calculates GDPR data minimization compliance score.
      */
-    private double calculateDataMinimizationCompliance(List<AuditEvent> events) {
+    private double calculateDataMinimizationCompliance(List<ComplianceStats> stats) {
         // Implementation would analyze data access patterns
         // This is a simplified calculation
-        long totalDataAccess = events.stream()
-            .filter(e -> e.getAction() == AuditEvent.AuditAction.READ)
-            .count();
-        
-        long justifiedAccess = events.stream()
-            .filter(e -> e.getAction() == AuditEvent.AuditAction.READ)
-            .filter(e -> e.getMetadata() != null && e.getMetadata().containsKey("justification"))
-            .count();
+        long totalDataAccess = count(stats, withAction(AuditEvent.AuditAction.READ));
+        long justifiedAccess = sum(stats, withAction(AuditEvent.AuditAction.READ), ComplianceStats::getJustifiedCount);
         
         return totalDataAccess > 0 ? (double) justifiedAccess / totalDataAccess * 100 : 100.0;
     }
@@ -245,12 +330,10 @@ public class ComplianceReporter {
     /**
      * Calculates GDPR purpose limitation compliance score.
      */
-    private double calculatePurposeLimitationCompliance(List<AuditEvent> events) {
+    private double calculatePurposeLimitationCompliance(List<ComplianceStats> stats) {
         // Simplified calculation based on metadata presence
-        long totalEvents = events.size();
-        long eventsWithPurpose = events.stream()
-            .filter(e -> e.getMetadata() != null && e.getMetadata().containsKey("purpose"))
-            .count();
+        long totalEvents = count(stats, all -> true);
+        long eventsWithPurpose = sum(stats, all -> true, ComplianceStats::getPurposeCount);
         
         return totalEvents > 0 ? (double) eventsWithPurpose / totalEvents * 100 : 100.0;
     }
@@ -258,35 +341,30 @@ public class ComplianceReporter {
     /**
      * Calculates GDPR storage limitation compliance score.
      */
-    private double calculateStorageLimitationCompliance(List<AuditEvent> events) {
+    private double calculateStorageLimitationCompliance(List<ComplianceStats> stats) {
         // Check retention policies are set
-        long eventsWithRetention = events.stream()
-            .filter(e -> e.getRetentionDays() != null && e.getRetentionDays() > 0)
-            .count();
+        long totalEvents = count(stats, all -> true);
+        long eventsWithRetention = sum(stats, all -> true, ComplianceStats::getRetentionCount);
         
-        return events.size() > 0 ? (double) eventsWithRetention / events.size() * 100 : 100.0;
+        return totalEvents > 0 ? (double) eventsWithRetention / totalEvents * 100 : 100.0;
     }
     
     /**
      * Generates GDPR compliance recommendations.
      */
-    private List<String> generateGdprRecommendations(List<AuditEvent> events) {
+    private List<String> generateGdprRecommendations(List<ComplianceStats> stats) {
         List<String> recommendations = new ArrayList<>();
         
         // Check for missing justifications
-        long eventsWithoutJustification = events.stream()
-            .filter(e -> e.getAction() == AuditEvent.AuditAction.READ)
-            .filter(e -> e.getMetadata() == null || !e.getMetadata().containsKey("justification"))
-            .count();
+        long eventsWithoutJustification = count(stats, withAction(AuditEvent.AuditAction.READ))
+            - sum(stats, withAction(AuditEvent.AuditAction.READ), ComplianceStats::getJustifiedCount);
         
         if (eventsWithoutJustification > 0) {
             recommendations.add("Add justification metadata to " + eventsWithoutJustification + " data access events");
         }
         
-        // Check for excessive data retention
-        long longRetentionEvents = events.stream()
-            .filter(e -> e.getRetentionDays() != null && e.getRetentionDays() > 2555) // More than 7 years
-            .count();
+        // Check for excessive data retention (more than 7 years)
+        long longRetentionEvents = sum(stats, all -> true, ComplianceStats::getLongRetentionCount);
         
         if (longRetentionEvents > 0) {
             recommendations.add("Review retention periods for " + longRetentionEvents + " events exceeding 7 years");
@@ -298,13 +376,10 @@ public class ComplianceReporter {
     /**
      * Calculates PCI DSS secure network compliance score.
      */
-    private double calculateSecureNetworkCompliance(List<AuditEvent> events) {
+    private double calculateSecureNetworkCompliance(List<ComplianceStats> stats) {
         // Simplified calculation based on network security events
-        long networkEvents = filterEventsByCategory(events, "NETWORK_SECURITY").size();
-        long secureEvents = events.stream()
-            .filter(e -> "NETWORK_SECURITY".equals(e.getCategory()))
-            .filter(e -> Boolean.TRUE.equals(e.getSuccess()))
-            .count();
+        long networkEvents = count(stats, inCategory("NETWORK_SECURITY"));
+        long secureEvents = count(stats, inCategory("NETWORK_SECURITY").and(succeeded()));
         
         return networkEvents > 0 ? (double) secureEvents / networkEvents * 100 : 100.0;
     }
@@ -312,16 +387,11 @@ public class ComplianceReporter {
     /**
      * Calculates PCI DSS data protection compliance score.
      */
-    private double calculateDataProtectionCompliance(List<AuditEvent> events) {
+    private double calculateDataProtectionCompliance(List<ComplianceStats> stats) {
         // Check for encryption compliance
-        long dataEvents = events.stream()
-            .filter(e -> "PAYMENT".equals(e.getResourceType()) || "CARD".equals(e.getResourceType()))
-            .count();
-        
-        long encryptedEvents = events.stream()
-            .filter(e -> "PAYMENT".equals(e.getResourceType()) || "CARD".equals(e.getResourceType()))
-            .filter(e -> e.getMetadata() != null && Boolean.TRUE.equals(e.getMetadata().get("encrypted")))
-            .count();
+        Predicate<ComplianceStats> paymentData = onResourceType("PAYMENT").or(onResourceType("CARD"));
+        long dataEvents = count(stats, paymentData);
+        long encryptedEvents = sum(stats, paymentData, ComplianceStats::getEncryptedCount);
         
         return dataEvents > 0 ? (double) encryptedEvents / dataEvents * 100 : 100.0;
     }
@@ -329,12 +399,9 @@ public class ComplianceReporter {
     /**
      * Calculates PCI DSS access control compliance score.
      */
-    private double calculateAccessControlCompliance(List<AuditEvent> events) {
-        long accessEvents = filterEventsByCategory(events, "ACCESS_CONTROL").size();
-        long authorizedEvents = events.stream()
-            .filter(e -> "ACCESS_CONTROL".equals(e.getCategory()))
-            .filter(e -> Boolean.TRUE.equals(e.getSuccess()))
-            .count();
+    private double calculateAccessControlCompliance(List<ComplianceStats> stats) {
+        long accessEvents = count(stats, inCategory("ACCESS_CONTROL"));
+        long authorizedEvents = count(stats, inCategory("ACCESS_CONTROL").and(succeeded()));
         
         return accessEvents > 0 ? (double) authorizedEvents / accessEvents * 100 : 100.0;
     }
@@ -342,35 +409,31 @@ public class ComplianceReporter {
     /**
      * Calculates PCI DSS monitoring compliance score.
      */
-    private double calculateMonitoringCompliance(List<AuditEvent> events) {
+    private double calculateMonitoringCompliance(List<ComplianceStats> stats) {
         // Check if all events have proper monitoring metadata
-        long monitoredEvents = events.stream()
-            .filter(e -> e.getMetadata() != null && e.getMetadata().containsKey("monitored"))
-            .count();
+        long totalEvents = count(stats, all -> true);
+        long monitoredEvents = sum(stats, all -> true, ComplianceStats::getMonitoredCount);
         
-        return events.size() > 0 ? (double) monitoredEvents / events.size() * 100 : 100.0;
+        return totalEvents > 0 ? (double) monitoredEvents / totalEvents * 100 : 100.0;
     }
     
     /**
      * Generates PCI DSS security recommendations.
      */
-    private List<String> generatePciSecurityRecommendations(List<AuditEvent> events) {
+    private List<String> generatePciSecurityRecommendations(List<ComplianceStats> stats) {
         List<String> recommendations = new ArrayList<>();
         
         // Check for unencrypted payment data access
-        long unencryptedPaymentAccess = events.stream()
-            .filter(e -> "PAYMENT".equals(e.getResourceType()) || "CARD".equals(e.getResourceType()))
-            .filter(e -> e.getMetadata() == null || !Boolean.TRUE.equals(e.getMetadata().get("encrypted")))
-            .count();
+        Predicate<ComplianceStats> paymentData = onResourceType("PAYMENT").or(onResourceType("CARD"));
+        long unencryptedPaymentAccess = count(stats, paymentData)
+            - sum(stats, paymentData, ComplianceStats::getEncryptedCount);
         
         if (unencryptedPaymentAccess > 0) {
             recommendations.add("Ensure encryption for " + unencryptedPaymentAccess + " payment data access events");
         }
         
         // Check for failed access control events
-        long failedAccessControl = filterEventsByCategory(events, "ACCESS_CONTROL").stream()
-            .filter(e -> Boolean.FALSE.equals(e.getSuccess()))
-            .count();
+        long failedAccessControl = count(stats, inCategory("ACCESS_CONTROL").and(failed()));
         
         if (failedAccessControl > 0) {
             recommendations.add("Investigate " + failedAccessControl + " failed access control events");
@@ -382,12 +445,9 @@ public class ComplianceReporter {
     /**
      * Calculates SOX internal control effectiveness.
      */
-    private double calculateInternalControlEffectiveness(List<AuditEvent> events) {
-        long controlEvents = filterEventsByCategory(events, "INTERNAL_CONTROL").size();
-        long effectiveControls = events.stream()
-            .filter(e -> "INTERNAL_CONTROL".equals(e.getCategory()))
-            .filter(e -> Boolean.TRUE.equals(e.getSuccess()))
-            .count();
+    private double calculateInternalControlEffectiveness(List<ComplianceStats> stats) {
+        long controlEvents = count(stats, inCategory("INTERNAL_CONTROL"));
+        long effectiveControls = count(stats, inCategory("INTERNAL_CONTROL").and(succeeded()));
         
         return controlEvents > 0 ? (double) effectiveControls / controlEvents * 100 : 100.0;
     }
@@ -395,12 +455,9 @@ public class ComplianceReporter {
     /**
      * Calculates SOX change management compliance score.
      */
-    private double calculateChangeManagementCompliance(List<AuditEvent> events) {
-        long changeEvents = filterEventsByAction(events, AuditEvent.AuditAction.CONFIGURE).size();
-        long approvedChanges = events.stream()
-            .filter(e -> e.getAction() == AuditEvent.AuditAction.CONFIGURE)
-            .filter(e -> e.getMetadata() != null && e.getMetadata().containsKey("approver"))
-            .count();
+    private double calculateChangeManagementCompliance(List<ComplianceStats> stats) {
+        long changeEvents = count(stats, withAction(AuditEvent.AuditAction.CONFIGURE));
+        long approvedChanges = sum(stats, withAction(AuditEvent.AuditAction.CONFIGURE), ComplianceStats::getApprovedCount);
         
         return changeEvents > 0 ? (double) approvedChanges / changeEvents * 100 : 100.0;
     }
@@ -408,12 +465,9 @@ public class ComplianceReporter {
     /**
      * Calculates SOX access management compliance score.
      */
-    private double calculateAccessManagementCompliance(List<AuditEvent> events) {
-        long accessGrantEvents = filterEventsByAction(events, AuditEvent.AuditAction.GRANT).size();
-        long authorizedGrants = events.stream()
-            .filter(e -> e.getAction() == AuditEvent.AuditAction.GRANT)
-            .filter(e -> e.getMetadata() != null && e.getMetadata().containsKey("authorization"))
-            .count();
+    private double calculateAccessManagementCompliance(List<ComplianceStats> stats) {
+        long accessGrantEvents = count(stats, withAction(AuditEvent.AuditAction.GRANT));
+        long authorizedGrants = sum(stats, withAction(AuditEvent.AuditAction.GRANT), ComplianceStats::getAuthorizedCount);
         
         return accessGrantEvents > 0 ? (double) authorizedGrants / accessGrantEvents * 100 : 100.0;
     }
@@ -421,24 +475,20 @@ public class ComplianceReporter {
     /**
      * Generates SOX control recommendations.
      */
-    private List<String> generateSoxControlRecommendations(List<AuditEvent> events) {
+    private List<String> generateSoxControlRecommendations(List<ComplianceStats> stats) {
         List<String> recommendations = new ArrayList<>();
         
         // Check for unapproved configuration changes
-        long unapprovedChanges = events.stream()
-            .filter(e -> e.getAction() == AuditEvent.AuditAction.CONFIGURE)
-            .filter(e -> e.getMetadata() == null || !e.getMetadata().containsKey("approver"))
-            .count();
+        long unapprovedChanges = count(stats, withAction(AuditEvent.AuditAction.CONFIGURE))
+            - sum(stats, withAction(AuditEvent.AuditAction.CONFIGURE), ComplianceStats::getApprovedCount);
         
         if (unapprovedChanges > 0) {
             recommendations.add("Ensure approval workflow for " + unapprovedChanges + " configuration changes");
         }
         
         // Check for unauthorized access grants
-        long unauthorizedGrants = events.stream()
-            .filter(e -> e.getAction() == AuditEvent.AuditAction.GRANT)
-            .filter(e -> e.getMetadata() == null || !e.getMetadata().containsKey("authorization"))
-            .count();
+        long unauthorizedGrants = count(stats, withAction(AuditEvent.AuditAction.GRANT))
+            - sum(stats, withAction(AuditEvent.AuditAction.GRANT), ComplianceStats::getAuthorizedCount);
         
         if (unauthorizedGrants > 0) {
             recommendations.add("Review authorization for " + unauthorizedGrants + " access grant events");
@@ -451,13 +501,13 @@ public class ComplianceReporter {
      * Gets compliance summary for a specific type.
      */
     private ComplianceSummary getComplianceSummary(String complianceType, LocalDateTime startTime, LocalDateTime endTime) {
-        List<AuditEvent> events = getComplianceEvents(complianceType, startTime, endTime, null);
+        List<ComplianceStats> stats = getComplianceStats(complianceType, startTime, endTime);
         
         ComplianceSummary summary = new ComplianceSummary();
         summary.setComplianceType(complianceType);
-        summary.setTotalEvents(events.size());
-        summary.setCompliantEvents(events.stream().filter(e -> Boolean.TRUE.equals(e.getSuccess())).count());
-        summary.setComplianceScore(summary.getTotalEvents() > 0 ? 
+        summary.setTotalEvents((int) count(stats, all -> true));
+        summary.setCompliantEvents(count(stats, succeeded()));
+        summary.setComplianceScore(summary.getTotalEvents() > 0 ?
             (double) summary.getCompliantEvents() / summary.getTotalEvents() * 100 : 100.0);
         
         return summary;
@@ -496,6 +546,13 @@ public class ComplianceReporter {
     private Map<String, Object> getComplianceTrends(LocalDateTime startTime, LocalDateTime endTime) {
         Map<String, Object> trends = new HashMap<>();
         
+        // With the query engine, the days are calendar days counted by one grouped query
+        Map<LocalDate, List<ComplianceStats>> statsByDay = null;
+        if (queryEngine != null) {
+            statsByDay = queryEngine.getOutcomeStats(startTime.toLocalDate().atStartOfDay(), endTime).stream()
+                .collect(Collectors.groupingBy(ComplianceStats::getDay));
+        }
+        
         // Calculate daily compliance scores
         LocalDateTime current = startTime;
         List<Map<String, Object>> dailyScores = new ArrayList<>();
@@ -506,16 +563,22 @@ public class ComplianceReporter {
             Map<String, Object> dayScore = new HashMap<>();
             dayScore.put("date", current.format(DateTimeFormatter.ISO_LOCAL_DATE));
             
-            // Get events for this day
-            List<AuditEvent> dayEvents = auditRepository.findRecentAuditEvents(current, 
-                PageRequest.of(0, Integer.MAX_VALUE)).getContent()
-                .stream()
-                .filter(e -> e.getTimestamp().isBefore(dayEnd))
-                .collect(Collectors.toList());
+            // Get event counts for this day
+            List<ComplianceStats> dayStats;
+            if (statsByDay != null) {
+                dayStats = statsByDay.getOrDefault(current.toLocalDate(), List.of());
+            } else {
+                dayStats = ComplianceStats.of(auditRepository.findRecentAuditEvents(current,
+                    PageRequest.of(0, Integer.MAX_VALUE)).getContent()
+                    .stream()
+                    .filter(e -> e.getTimestamp().isBefore(dayEnd))
+                    .collect(Collectors.toList()));
+            }
             
             // Calculate compliance score for the day
-            long compliantEvents = dayEvents.stream().filter(e -> Boolean.TRUE.equals(e.getSuccess())).count();
-            double score = dayEvents.size() > 0 ? (double) compliantEvents / dayEvents.size() * 100 : 100.0;
+            long dayEvents = count(dayStats, all -> true);
+            long compliantEvents = count(dayStats, succeeded());
+            double score = dayEvents > 0 ? (double) compliantEvents / dayEvents * 100 : 100.0;
             dayScore.put("score", score);
             
             dailyScores.add(dayScore);
@@ -548,9 +611,26 @@ public class ComplianceReporter {
             }
         }
         
+        // Suspicious activity indicator, for users with bursts of failures within an hour
+        Set<String> suspiciousUsers = new TreeSet<>();
+        for (Object[] burst : auditRepository.findFailureBursts(startTime, endTime, suspiciousFailureThreshold)) {
+            suspiciousUsers.add((String) burst[0]);
+        }
+        
+        if (!suspiciousUsers.isEmpty()) {
+            Map<String, Object> indicator = new HashMap<>();
+            indicator.put("type", "SUSPICIOUS_ACTIVITY");
+            indicator.put("severity", "HIGH");
+            indicator.put("message", String.format("%d users had more than %d failed operations within an hour",
+                suspiciousUsers.size(), suspiciousFailureThreshold));
+            indicator.put("value", suspiciousUsers.size());
+            indicator.put("users", new ArrayList<>(suspiciousUsers));
+            indicators.add(indicator);
+        }
+        
         return indicators;
     }
-    
+
     // Inner classes for report structures
     
     public static class GdprComplianceReport {
@@ -564,6 +644,11 @@ public class ComplianceReporter {
         private List<AuditEvent> dataExportEvents;
         private List<AuditEvent> dataDeletionEvents;
         private List<AuditEvent> consentEvents;
+        private long dataProcessingEventCount;
+        private long dataAccessEventCount;
+        private long dataExportEventCount;
+        private long dataDeletionEventCount;
+        private long consentEventCount;
         private double dataMinimizationCompliance;
         private double purposeLimitationCompliance;
         private double storageLimitationCompliance;
@@ -602,6 +687,16 @@ public class ComplianceReporter {
         public void setStorageLimitationCompliance(double storageLimitationCompliance) { this.storageLimitationCompliance = storageLimitationCompliance; }
         public List<String> getRecommendations() { return recommendations; }
         public void setRecommendations(List<String> recommendations) { this.recommendations = recommendations; }
+        public long getDataProcessingEventCount() { return dataProcessingEventCount; }
+        public void setDataProcessingEventCount(long dataProcessingEventCount) { this.dataProcessingEventCount = dataProcessingEventCount; }
+        public long getDataAccessEventCount() { return dataAccessEventCount; }
+        public void setDataAccessEventCount(long dataAccessEventCount) { this.dataAccessEventCount = dataAccessEventCount; }
+        public long getDataExportEventCount() { return dataExportEventCount; }
+        public void setDataExportEventCount(long dataExportEventCount) { this.dataExportEventCount = dataExportEventCount; }
+        public long getDataDeletionEventCount() { return dataDeletionEventCount; }
+        public void setDataDeletionEventCount(long dataDeletionEventCount) { this.dataDeletionEventCount = dataDeletionEventCount; }
+        public long getConsentEventCount() { return consentEventCount; }
+        public void setConsentEventCount(long consentEventCount) { this.consentEventCount = consentEventCount; }
     }
     
     public static class PciDssComplianceReport {
@@ -614,6 +709,11 @@ public class ComplianceReporter {
         private List<AuditEvent> encryptionEvents;
         private List<AuditEvent> accessControlEvents;
         private List<AuditEvent> networkSecurityEvents;
+        private long paymentDataAccessEventCount;
+        private long cardDataEventCount;
+        private long encryptionEventCount;
+        private long accessControlEventCount;
+        private long networkSecurityEventCount;
         private double secureNetworkScore;
         private double dataProtectionScore;
         private double accessControlScore;
@@ -652,6 +752,16 @@ public class ComplianceReporter {
         public void setMonitoringScore(double monitoringScore) { this.monitoringScore = monitoringScore; }
         public List<String> getSecurityRecommendations() { return securityRecommendations; }
         public void setSecurityRecommendations(List<String> securityRecommendations) { this.securityRecommendations = securityRecommendations; }
+        public long getPaymentDataAccessEventCount() { return paymentDataAccessEventCount; }
+        public void setPaymentDataAccessEventCount(long paymentDataAccessEventCount) { this.paymentDataAccessEventCount = paymentDataAccessEventCount; }
+        public long getCardDataEventCount() { return cardDataEventCount; }
+        public void setCardDataEventCount(long cardDataEventCount) { this.cardDataEventCount = cardDataEventCount; }
+        public long getEncryptionEventCount() { return encryptionEventCount; }
+        public void setEncryptionEventCount(long encryptionEventCount) { this.encryptionEventCount = encryptionEventCount; }
+        public long getAccessControlEventCount() { return accessControlEventCount; }
+        public void setAccessControlEventCount(long accessControlEventCount) { this.accessControlEventCount = accessControlEventCount; }
+        public long getNetworkSecurityEventCount() { return networkSecurityEventCount; }
+        public void setNetworkSecurityEventCount(long networkSecurityEventCount) { this.networkSecurityEventCount = networkSecurityEventCount; }
     }
     
     public static class SoxComplianceReport {
@@ -663,6 +773,10 @@ public class ComplianceReporter {
         private List<AuditEvent> configurationChangeEvents;
         private List<AuditEvent> accessGrantEvents;
         private List<AuditEvent> privilegedAccessEvents;
+        private long financialTransactionEventCount;
+        private long configurationChangeEventCount;
+        private long accessGrantEventCount;
+        private long privilegedAccessEventCount;
         private double internalControlScore;
         private double changeManagementScore;
         private double accessManagementScore;
@@ -696,6 +810,14 @@ public class ComplianceReporter {
         public void setAccessManagementScore(double accessManagementScore) { this.accessManagementScore = accessManagementScore; }
         public List<String> getControlRecommendations() { return controlRecommendations; }
         public void setControlRecommendations(List<String> controlRecommendations) { this.controlRecommendations = controlRecommendations; }
+        public long getFinancialTransactionEventCount() { return financialTransactionEventCount; }
+        public void setFinancialTransactionEventCount(long financialTransactionEventCount) { this.financialTransactionEventCount = financialTransactionEventCount; }
+        public long getConfigurationChangeEventCount() { return configurationChangeEventCount; }
+        public void setConfigurationChangeEventCount(long configurationChangeEventCount) { this.configurationChangeEventCount = configurationChangeEventCount; }
+        public long getAccessGrantEventCount() { return accessGrantEventCount; }
+        public void setAccessGrantEventCount(long accessGrantEventCount) { this.accessGrantEventCount = accessGrantEventCount; }
+        public long getPrivilegedAccessEventCount() { return privilegedAccessEventCount; }
+        public void setPrivilegedAccessEventCount(long privilegedAccessEventCount) { this.privilegedAccessEventCount = privilegedAccessEventCount; }
     }
     
     public static class ComplianceDashboard {
@@ -0,0 +1,100 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Number of audit events of one day sharing a category, action, resource type and outcome, along with
+ * how many of them carry the metadata that the compliance reports score on. Compliance reports are
+ * computed by adding up these counts, whether they come from an aggregate query or from loaded events.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Value
+@Builder
+public class ComplianceStats {
+
+    LocalDate day;
+    String category;
+    AuditEvent.AuditAction action;
+    String resourceType;
+    Boolean success;
+    long eventCount;
+
+    /**
+     * Events with a "justification" metadata entry.
+     */
+    long justifiedCount;
+
+    /**
+     * Events with a "purpose" metadata entry.
+     */
+    long purposeCount;
+
+    /**
+     * Events with a positive retention period.
+     */
+    long retentionCount;
+
+    /**
+     * Events with a retention period of more than seven years.
+     */
+    long longRetentionCount;
+
+    /**
+     * Events whose "encrypted" metadata entry is true.
+     */
+    long encryptedCount;
+
+    /**
+     * Events with a "monitored" metadata entry.
+     */
+    long monitoredCount;
+
+    /**
+     * Events with an "approver" metadata entry.
+     */
+    long approvedCount;
+
+    /**
+     * Events with an "authorization" metadata entry.
+     */
+    long authorizedCount;
+
+    /**
+     * Creates the counts of a single event.
+     */
+    public static ComplianceStats of(AuditEvent event) {
+        Map<String, Object> metadata = event.getMetadata() != null ? event.getMetadata() : Map.of();
+        Integer retentionDays = event.getRetentionDays();
+        return ComplianceStats.builder()
+                .day(event.getTimestamp() != null ? event.getTimestamp().toLocalDate() : null)
+                .category(event.getCategory())
+                .action(event.getAction())
+                .resourceType(event.getResourceType())
+                .success(event.getSuccess())
+                .eventCount(1)
+                .justifiedCount(metadata.containsKey("justification") ? 1 : 0)
+                .purposeCount(metadata.containsKey("purpose") ? 1 : 0)
+                .retentionCount(retentionDays != null && retentionDays > 0 ? 1 : 0)
+                .longRetentionCount(retentionDays != null && retentionDays > 2555 ? 1 : 0)
+                .encryptedCount(Boolean.TRUE.equals(metadata.get("encrypted")) ? 1 : 0)
+                .monitoredCount(metadata.containsKey("monitored") ? 1 : 0)
+                .approvedCount(metadata.containsKey("approver") ? 1 : 0)
+                .authorizedCount(metadata.containsKey("authorization") ? 1 : 0)
+                .build();
+    }
+
+    /**
+     * Creates the counts of loaded events, one entry per event.
+     */
+    public static List<ComplianceStats> of(List<AuditEvent> events) {
+        return events.stream().map(ComplianceStats::of).collect(Collectors.toList());
+    }
+}
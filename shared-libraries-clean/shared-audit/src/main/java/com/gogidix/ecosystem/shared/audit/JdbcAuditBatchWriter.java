@@ -0,0 +1,122 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes audit event batches into the audit_events table with one JDBC batch insert per batch.
+ * Rows whose id is already stored are skipped, so a batch can be written again after a failure or a
+ * replay from the spill files. The JSON columns are cast to jsonb, as the entity maps them for PostgreSQL.
+ * Values that cannot be converted to JSON and rows violating a column constraint reject their batch.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+public class JdbcAuditBatchWriter implements AuditBatchWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO %s (id, timestamp, action, service_name, resource_type, "
+            + "resource_id, user_id, username, session_id, ip_address, user_agent, http_method, request_uri, "
+            + "http_status, duration_ms, correlation_id, trace_id, tenant_id, severity, category, description, "
+            + "success, error_message, exception_type, old_values, new_values, metadata, tags, security_context, "
+            + "compliance_flags, retention_days) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, "
+            + "?, ?, ?, ?, ?, CAST(? AS jsonb), CAST(? AS jsonb), CAST(? AS jsonb), CAST(? AS jsonb), "
+            + "CAST(? AS jsonb), CAST(? AS jsonb), ?) ON CONFLICT (id) DO NOTHING";
+
+    private static final int[] ARGUMENT_TYPES = {
+            Types.OTHER, Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.BIGINT, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.INTEGER
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final String sql;
+
+    /**
+     * @param jdbcTemplate        Template for the audit data source
+     * @param transactionTemplate Transaction wrapping each batch, or null to rely on auto-commit
+     * @param tableName           Name of the audit table
+     */
+    public JdbcAuditBatchWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.sql = String.format(INSERT_SQL, tableName);
+    }
+
+    @Override
+    public void write(List<AuditEvent> events) throws JsonProcessingException {
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            rows.add(toRow(event));
+        }
+        if (transactionTemplate == null) {
+            jdbcTemplate.batchUpdate(sql, rows, ARGUMENT_TYPES);
+        } else {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows, ARGUMENT_TYPES));
+        }
+    }
+
+    @Override
+    public boolean isRejected(Exception failure) {
+        return failure instanceof JsonProcessingException || failure instanceof DataIntegrityViolationException;
+    }
+
+    private Object[] toRow(AuditEvent event) throws JsonProcessingException {
+        return new Object[]{
+                event.getId(),
+                event.getTimestamp() == null ? null : Timestamp.valueOf(event.getTimestamp()),
+                event.getAction() == null ? null : event.getAction().name(),
+                event.getServiceName(),
+                event.getResourceType(),
+                event.getResourceId(),
+                event.getUserId(),
+                event.getUsername(),
+                event.getSessionId(),
+                event.getIpAddress(),
+                event.getUserAgent(),
+                event.getHttpMethod(),
+                event.getRequestUri(),
+                event.getHttpStatus(),
+                event.getDurationMs(),
+                event.getCorrelationId(),
+                event.getTraceId(),
+                event.getTenantId(),
+                event.getSeverity() == null ? null : event.getSeverity().name(),
+                event.getCategory(),
+                event.getDescription(),
+                event.getSuccess(),
+                event.getErrorMessage(),
+                event.getExceptionType(),
+                toJson(event.getOldValues()),
+                toJson(event.getNewValues()),
+                toJson(event.getMetadata()),
+                toJson(event.getTags()),
+                toJson(event.getSecurityContext()),
+                toJson(event.getComplianceFlags()),
+                event.getRetentionDays()
+        };
+    }
+
+    private String toJson(Map<String, ?> values) throws JsonProcessingException {
+        return values == null ? null : objectMapper.writeValueAsString(values);
+    }
+}
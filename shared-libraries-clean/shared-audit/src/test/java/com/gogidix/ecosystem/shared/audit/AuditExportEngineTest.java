@@ -0,0 +1,245 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the streaming audit export engine against an in-memory database.
+ * Tests CSV and JSON-lines output, filtering, gzip output and resuming an interrupted export.
+ */
+@DisplayName("AuditExportEngine Tests")
+class AuditExportEngineTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int EVENT_COUNT = 250;
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private JdbcTemplate jdbcTemplate;
+    private AuditExportEngine exportEngine;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;NON_KEYWORDS=TIMESTAMP;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE audit_events (id UUID PRIMARY KEY, timestamp TIMESTAMP(9) NOT NULL, "
+            + "action VARCHAR(50), service_name VARCHAR(100), resource_type VARCHAR(100), resource_id VARCHAR(255), "
+            + "user_id VARCHAR(255), username VARCHAR(255), session_id VARCHAR(255), ip_address VARCHAR(45), "
+            + "user_agent VARCHAR(500), http_method VARCHAR(10), request_uri VARCHAR(2000), http_status INT, "
+            + "duration_ms BIGINT, correlation_id VARCHAR(255), trace_id VARCHAR(255), tenant_id VARCHAR(255), "
+            + "severity VARCHAR(20), category VARCHAR(100), description VARCHAR(1000), success BOOLEAN, "
+            + "error_message VARCHAR(2000), exception_type VARCHAR(255), old_values VARCHAR(4000), "
+            + "new_values VARCHAR(4000), metadata VARCHAR(4000), tags VARCHAR(4000), security_context VARCHAR(4000), "
+            + "compliance_flags VARCHAR(4000), retention_days INT)");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            rows.add(new Object[]{
+                UUID.randomUUID(),
+                // Pairs of events share a timestamp, so the id decides their order
+                Timestamp.valueOf(START.plusSeconds(i / 2).plusNanos(123_456_789)),
+                i % 3 == 0 ? "UPDATE" : "CREATE",
+                "order-service",
+                "Order",
+                "order-" + i,
+                "user-" + (i % 5),
+                i % 10 == 0 ? "Cancelled, by \"support\"\nafter review" : "Order placed",
+                "{\"sequence\":" + i + "}",
+                "{\"region\":\"eu\"}",
+                i % 7 != 0
+            });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO audit_events (id, timestamp, action, service_name, resource_type, "
+            + "resource_id, user_id, description, metadata, tags, success, severity, retention_days) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'INFO', 2555)", rows);
+        exportEngine = new AuditExportEngine(jdbcTemplate);
+        ReflectionTestUtils.setField(exportEngine, "fetchSize", 16);
+        ReflectionTestUtils.setField(exportEngine, "checkpointInterval", 40);
+    }
+
+    @Nested
+    @DisplayName("Format Tests")
+    class FormatTests {
+
+        @Test
+        @DisplayName("Should write a CSV header and one quoted record per event in key order")
+        void shouldExportCsv() throws IOException {
+            // Given
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            // When
+            AuditExportCheckpoint result = exportEngine.export(new AuditLogger.AuditSearchCriteria(),
+                AuditExportFormat.CSV, output, null, null);
+
+            // Then
+            String csv = output.toString(StandardCharsets.UTF_8);
+            assertThat(csv).startsWith("id,timestamp,action,serviceName,");
+            assertThat(csv).contains(",\"Cancelled, by \"\"support\"\"\nafter review\",");
+            assertThat(csv).contains(",\"{\"\"region\"\":\"\"eu\"\"}\",");
+            assertThat(result.getRowCount()).isEqualTo(EVENT_COUNT);
+            assertThat(result.isCompleted()).isTrue();
+            assertThat(result.getByteOffset()).isEqualTo(output.size());
+            List<String> ids = new ArrayList<>();
+            for (String line : csv.split("\n")) {
+                if (line.length() > 36 && line.charAt(36) == ',' && !line.startsWith("id,")) {
+                    ids.add(line.substring(0, 36));
+                }
+            }
+            assertThat(ids).containsExactlyElementsOf(expectedIds());
+        }
+
+        @Test
+        @DisplayName("Should write one JSON object per line with full timestamps and nested maps")
+        void shouldExportJsonLines() throws IOException {
+            // Given
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            // When
+            exportEngine.export(new AuditLogger.AuditSearchCriteria(), AuditExportFormat.JSON_LINES, output, null,
+                null);
+
+            // Then
+            List<JsonNode> lines = parseLines(output.toString(StandardCharsets.UTF_8));
+            assertThat(lines).hasSize(EVENT_COUNT);
+            JsonNode first = lines.get(0);
+            assertThat(first.get("timestamp").asText()).isEqualTo("2024-01-01T00:00:00.123456789");
+            assertThat(first.get("metadata").get("sequence").isInt()).isTrue();
+            assertThat(first.get("tags").get("region").asText()).isEqualTo("eu");
+            assertThat(first.get("retentionDays").asInt()).isEqualTo(2555);
+            assertThat(first.has("userAgent")).isFalse();
+            assertThat(lines).extracting(line -> line.get("id").asText()).containsExactlyElementsOf(expectedIds());
+        }
+
+        @Test
+        @DisplayName("Should only export events matching the search criteria")
+        void shouldApplyCriteria() throws IOException {
+            // Given
+            AuditLogger.AuditSearchCriteria criteria = new AuditLogger.AuditSearchCriteria()
+                .forUser("user-3")
+                .timeRange(START.plusSeconds(10), START.plusSeconds(60))
+                .withAction(AuditEvent.AuditAction.CREATE)
+                .successfulOnly();
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            // When
+            AuditExportCheckpoint result = exportEngine.export(criteria, AuditExportFormat.JSON_LINES, output, null,
+                null);
+
+            // Then
+            List<JsonNode> lines = parseLines(output.toString(StandardCharsets.UTF_8));
+            assertThat(lines).isNotEmpty().hasSize((int) result.getRowCount()).allSatisfy(line -> {
+                assertThat(line.get("userId").asText()).isEqualTo("user-3");
+                assertThat(line.get("action").asText()).isEqualTo("CREATE");
+                assertThat(line.get("success").asBoolean()).isTrue();
+            });
+            Integer expected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_events WHERE user_id = 'user-3' "
+                + "AND timestamp BETWEEN ? AND ? AND action = 'CREATE' AND success", Integer.class,
+                Timestamp.valueOf(START.plusSeconds(10)), Timestamp.valueOf(START.plusSeconds(60)));
+            assertThat(lines).hasSize(expected);
+        }
+    }
+
+    @Nested
+    @DisplayName("Checkpoint Tests")
+    class CheckpointTests {
+
+        @Test
+        @DisplayName("Should write a readable gzip file made of one member per checkpoint")
+        void shouldExportGzip() throws IOException {
+            // Given
+            Path file = directory.resolve("audit.jsonl.gz");
+            List<AuditExportCheckpoint> checkpoints = new ArrayList<>();
+
+            // When
+            AuditExportCheckpoint result = exportEngine.exportToFile(new AuditLogger.AuditSearchCriteria(),
+                AuditExportFormat.JSON_LINES_GZIP, file, null, checkpoints::add);
+
+            // Then
+            assertThat(checkpoints).hasSize(EVENT_COUNT / 40)
+                .extracting(AuditExportCheckpoint::getRowCount).containsExactly(40L, 80L, 120L, 160L, 200L, 240L);
+            assertThat(checkpoints).extracting(AuditExportCheckpoint::getByteOffset).isSorted();
+            assertThat(result.getByteOffset()).isEqualTo(Files.size(file));
+            assertThat(parseLines(gunzip(file))).hasSize(EVENT_COUNT);
+        }
+
+        @Test
+        @DisplayName("Should resume an interrupted export into the same output as an uninterrupted one")
+        void shouldResumeFromCheckpoint() throws IOException {
+            for (AuditExportFormat format : AuditExportFormat.values()) {
+                // Given
+                Path complete = directory.resolve("complete." + format.getFileExtension());
+                Path resumed = directory.resolve("resumed." + format.getFileExtension());
+                exportEngine.exportToFile(new AuditLogger.AuditSearchCriteria(), format, complete, null, null);
+                List<AuditExportCheckpoint> checkpoints = new ArrayList<>();
+                assertThatThrownBy(() -> exportEngine.exportToFile(new AuditLogger.AuditSearchCriteria(), format,
+                    resumed, null, checkpoint -> {
+                        checkpoints.add(checkpoint);
+                        if (checkpoints.size() == 3) {
+                            throw new IllegalStateException("crash");
+                        }
+                    })).hasMessage("crash");
+                // Output written after the checkpoint is discarded on resume
+                Files.write(resumed, "partial".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+                // When
+                AuditExportCheckpoint result = exportEngine.exportToFile(new AuditLogger.AuditSearchCriteria(), format,
+                    resumed, checkpoints.get(2), null);
+
+                // Then
+                assertThat(result.getRowCount()).as(format.name()).isEqualTo(EVENT_COUNT);
+                if (format.isGzip()) {
+                    assertThat(gunzip(resumed)).as(format.name()).isEqualTo(gunzip(complete));
+                } else {
+                    assertThat(Files.readAllBytes(resumed)).as(format.name()).isEqualTo(Files.readAllBytes(complete));
+                }
+            }
+        }
+    }
+
+    private List<String> expectedIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM audit_events ORDER BY timestamp, id", UUID.class)
+            .stream().map(UUID::toString).toList();
+    }
+
+    private List<JsonNode> parseLines(String content) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    private static String gunzip(Path file) throws IOException {
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
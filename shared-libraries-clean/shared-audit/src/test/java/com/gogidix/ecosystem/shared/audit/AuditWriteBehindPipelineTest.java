@@ -0,0 +1,631 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the write-behind audit pipeline.
+ * Tests size and time triggered batches, the overflow policies, spill file replay, flushing on close,
+ * metrics, dead letters, the JDBC batch writer and the integration with AuditService.
+ */
+@DisplayName("AuditWriteBehindPipeline Tests")
+class AuditWriteBehindPipelineTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private final RecordingWriter writer = new RecordingWriter();
+    private AuditWriteBehindPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        writer.release();
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Nested
+    @DisplayName("Batching Tests")
+    class BatchingTests {
+
+        @Test
+        @DisplayName("Should write a batch as soon as it is full")
+        void shouldWriteFullBatches() throws Exception {
+            // Given
+            pipeline = new AuditWriteBehindPipeline(writer, options().batchSize(10).flushIntervalMs(60_000).build());
+
+            // When
+            for (int i = 0; i < 25; i++) {
+                pipeline.offer(event(i));
+            }
+
+            // Then
+            writer.awaitEvents(20);
+            assertThat(writer.batches).hasSize(2).allSatisfy(batch -> assertThat(batch).hasSize(10));
+            pipeline.close();
+            assertThat(writer.batchSizes()).containsExactly(10, 10, 5);
+            assertThat(writer.sequences()).containsExactlyElementsOf(range(25));
+        }
+
+        @Test
+        @DisplayName("Should write a partial batch once the flush interval has passed")
+        void shouldWritePartialBatchAfterInterval() throws Exception {
+            // Given
+            pipeline = new AuditWriteBehindPipeline(writer, options().batchSize(1000).flushIntervalMs(50).build());
+
+            // When
+            for (int i = 0; i < 3; i++) {
+                pipeline.offer(event(i));
+            }
+
+            // Then
+            writer.awaitEvents(3);
+            assertThat(writer.batchSizes()).containsExactly(3);
+        }
+
+        @Test
+        @DisplayName("Should complete a flushed submission without waiting for the interval")
+        void shouldFlushImmediatelyOnRequest() throws Exception {
+            // Given
+            pipeline = new AuditWriteBehindPipeline(writer, options().batchSize(1000).flushIntervalMs(60_000).build());
+            pipeline.offer(event(0));
+
+            // When
+            CompletableFuture<Void> written = pipeline.submit(event(1), true);
+
+            // Then
+            written.get(5, TimeUnit.SECONDS);
+            assertThat(writer.sequences()).containsExactly(0, 1);
+        }
+
+        @Test
+        @DisplayName("Should write every queued event when closed")
+        void shouldFlushOnClose() throws Exception {
+            // Given
+            pipeline = new AuditWriteBehindPipeline(writer, options().batchSize(1000).flushIntervalMs(60_000).build());
+            for (int i = 0; i < 100; i++) {
+                pipeline.offer(event(i));
+            }
+
+            // When
+            pipeline.close();
+
+            // Then
+            assertThat(writer.sequences()).containsExactlyElementsOf(range(100));
+            assertThat(pipeline.offer(event(100))).isFalse();
+            assertThat(pipeline.getMetrics().getDroppedEvents()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should report queue depth, counters and batch latency")
+        void shouldReportMetrics() throws Exception {
+            // Given
+            pipeline = new AuditWriteBehindPipeline(writer, options().batchSize(1).build());
+            writer.hold();
+            pipeline.offer(event(0));
+            writer.awaitEntered();
+            for (int i = 1; i < 8; i++) {
+                pipeline.offer(event(i));
+            }
+
+            // When
+            AuditWriteBehindPipeline.Metrics blocked = pipeline.getMetrics();
+            writer.release();
+            pipeline.close();
+            AuditWriteBehindPipeline.Metrics done = pipeline.getMetrics();
+
+            // Then
+            assertThat(blocked.getQueueDepth()).isEqualTo(7);
+            assertThat(blocked.getEnqueuedEvents()).isEqualTo(8);
+            assertThat(done.getQueueDepth()).isZero();
+            assertThat(done.getWrittenEvents()).isEqualTo(8);
+            assertThat(done.getBatches()).isGreaterThanOrEqualTo(2);
+            assertThat(done.getMaxBatchLatencyMs()).isPositive();
+            assertThat(done.getAverageBatchLatencyMs()).isPositive().isLessThanOrEqualTo(done.getMaxBatchLatencyMs());
+        }
+    }
+
+    @Nested
+    @DisplayName("Overflow Policy Tests")
+    class OverflowPolicyTests {
+
+        @Test
+        @DisplayName("Should drop and count events that find the queue full")
+        void shouldDropWhenFull() throws Exception {
+            // Given
+            pipeline = new AuditWriteBehindPipeline(writer, options().capacity(4).batchSize(1)
+                    .overflowPolicy(AuditWriteBehindPipeline.OverflowPolicy.DROP).build());
+            fillQueue(4);
+
+            // When
+            boolean accepted = pipeline.offer(event(5));
+            CompletableFuture<Void> rejected = pipeline.submit(event(6), false);
+
+            // Then
+            assertThat(accepted).isFalse();
+            assertThatThrownBy(() -> rejected.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+            assertThat(pipeline.getMetrics().getDroppedEvents()).isEqualTo(2);
+            writer.release();
+            pipeline.close();
+            assertThat(writer.sequences()).containsExactlyElementsOf(range(5));
+        }
+
+        @Test
+        @DisplayName("Should block the caller until the queue has room")
+        void shouldBlockUntilRoom() throws Exception {
+            // Given
+            pipeline = new AuditWriteBehindPipeline(writer, options().capacity(4).batchSize(1)
+                    .blockTimeoutMs(10_000).build());
+            fillQueue(4);
+            CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> pipeline.offer(event(5)));
+            Thread.sleep(100);
+            assertThat(blocked).isNotDone();
+
+            // When
+            writer.release();
+
+            // Then
+            assertThat(blocked.get(5, TimeUnit.SECONDS)).isTrue();
+            pipeline.close();
+            assertThat(writer.sequences()).containsExactlyElementsOf(range(6));
+            assertThat(pipeline.getMetrics().getDroppedEvents()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should drop the event once the block timeout has passed")
+        void shouldDropAfterBlockTimeout() throws Exception {
+            // Given
+            pipeline = new AuditWriteBehindPipeline(writer, options().capacity(4).batchSize(1)
+                    .blockTimeoutMs(50).build());
+            fillQueue(4);
+
+            // When
+            long start = System.nanoTime();
+            boolean accepted = pipeline.offer(event(5));
+
+            // Then
+            assertThat(accepted).isFalse();
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(50);
+            assertThat(pipeline.getMetrics().getDroppedEvents()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should spill overflowing events to disk and write them once the queue has room")
+        void shouldSpillAndReplay() throws Exception {
+            // Given
+            pipeline = new AuditWriteBehindPipeline(writer, spillOptions().capacity(4).batchSize(1).build());
+            fillQueue(4);
+
+            // When
+            for (int i = 5; i < 50; i++) {
+                assertThat(pipeline.offer(event(i))).isTrue();
+            }
+            AuditWriteBehindPipeline.Metrics spilled = pipeline.getMetrics();
+            writer.release();
+
+            // Then
+            writer.awaitEvents(50);
+            assertThat(spilled.getSpilledEvents()).isEqualTo(45);
+            assertThat(spilled.isSpillPending()).isTrue();
+            assertThat(writer.sequences()).containsExactlyInAnyOrderElementsOf(range(50));
+            waitFor(() -> spillFiles().isEmpty());
+            assertThat(pipeline.getMetrics().getWrittenEvents()).isEqualTo(50);
+        }
+
+        @Test
+        @DisplayName("Should keep the timestamp and maps of replayed events")
+        void shouldReplayEventsUnchanged() throws Exception {
+            // Given
+            pipeline = new AuditWriteBehindPipeline(writer, spillOptions().capacity(4).batchSize(1).build());
+            fillQueue(4);
+            AuditEvent original = event(5);
+            original.setTimestamp(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000));
+            original.addTag("region", "eu");
+            original.setComplianceFlag("GDPR", true);
+
+            // When
+            pipeline.offer(original);
+            writer.release();
+
+            // Then
+            writer.awaitEvents(6);
+            AuditEvent replayed = writer.events().stream()
+                .filter(event -> event.getId().equals(original.getId()))
+                .findFirst().orElseThrow();
+            assertThat(replayed.getTimestamp()).isEqualTo(original.getTimestamp());
+            assertThat(replayed.getTags()).isEqualTo(original.getTags());
+            assertThat(replayed.getComplianceFlags()).isEqualTo(original.getComplianceFlags());
+            assertThat(replayed.getMetadata()).containsEntry("sequence", 5);
+        }
+
+        @Test
+        @DisplayName("Should spill batches that cannot be written and replay them after a restart")
+        void shouldReplaySpillFilesOfEarlierRun() throws Exception {
+            // Given
+            AuditBatchWriter failing = events -> {
+                throw new IllegalStateException("database down");
+            };
+            AuditWriteBehindPipeline first = new AuditWriteBehindPipeline(failing, spillOptions().maxRetries(0).build());
+            for (int i = 0; i < 20; i++) {
+                first.offer(event(i));
+            }
+            first.close();
+            assertThat(first.getMetrics().getSpilledEvents()).isEqualTo(20);
+            assertThat(spillFiles()).isNotEmpty();
+
+            // When
+            pipeline = new AuditWriteBehindPipeline(writer, spillOptions().build());
+
+            // Then
+            writer.awaitEvents(20);
+            assertThat(writer.sequences()).containsExactlyElementsOf(range(20));
+            waitFor(() -> spillFiles().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should retry a failed batch and fail its submissions once retries are exhausted")
+        void shouldRetryAndFailBatches() throws Exception {
+            // Given
+            AtomicInteger attempts = new AtomicInteger();
+            AuditBatchWriter failing = events -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("database down");
+            };
+            pipeline = new AuditWriteBehindPipeline(failing, options().maxRetries(2).retryDelayMs(1).build());
+
+            // When
+            CompletableFuture<Void> written = pipeline.submit(event(0), true);
+
+            // Then
+            assertThatThrownBy(() -> written.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+            assertThat(attempts).hasValue(3);
+            assertThat(pipeline.getMetrics().getFailedEvents()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Dead Letter Tests")
+    class DeadLetterTests {
+
+        @Test
+        @DisplayName("Should write the rest of a batch and move the event the store rejects to a dead-letter file")
+        void shouldDeadLetterRejectedEventOfBatch() throws Exception {
+            // Given
+            pipeline = new AuditWriteBehindPipeline(new RejectingWriter(writer, 7),
+                options().batchSize(20).flushIntervalMs(60_000).build());
+            List<CompletableFuture<Void>> submissions = new ArrayList<>();
+
+            // When
+            for (int i = 0; i < 20; i++) {
+                submissions.add(pipeline.submit(event(i), false));
+            }
+            pipeline.close();
+
+            // Then
+            assertThat(writer.sequences()).containsExactlyInAnyOrderElementsOf(
+                range(20).stream().filter(sequence -> sequence != 7).toList());
+            assertThat(submissions.get(7)).isCompletedExceptionally();
+            assertThat(submissions.stream().filter(CompletableFuture::isCompletedExceptionally)).hasSize(1);
+            assertThat(deadLetters()).singleElement()
+                .satisfies(event -> assertThat(event.getMetadata()).containsEntry("sequence", 7));
+            AuditWriteBehindPipeline.Metrics metrics = pipeline.getMetrics();
+            assertThat(metrics.getWrittenEvents()).isEqualTo(19);
+            assertThat(metrics.getDeadLetteredEvents()).isEqualTo(1);
+            assertThat(metrics.getFailedEvents()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should replay the spill files behind a spilled event the store rejects")
+        void shouldReplayPastRejectedEvent() throws Exception {
+            // Given spill files of an earlier run, the first one holding an event the store rejects
+            AuditBatchWriter failing = events -> {
+                throw new IllegalStateException("database down");
+            };
+            AuditWriteBehindPipeline first = new AuditWriteBehindPipeline(failing, spillOptions().maxRetries(0).build());
+            for (int i = 0; i < 20; i++) {
+                first.offer(event(i));
+            }
+            first.close();
+
+            // When
+            pipeline = new AuditWriteBehindPipeline(new RejectingWriter(writer, 3), spillOptions().batchSize(5).build());
+
+            // Then
+            writer.awaitEvents(19);
+            waitFor(() -> spillFiles().isEmpty());
+            assertThat(writer.sequences()).containsExactlyInAnyOrderElementsOf(
+                range(20).stream().filter(sequence -> sequence != 3).toList());
+            assertThat(deadLetters()).singleElement()
+                .satisfies(event -> assertThat(event.getMetadata()).containsEntry("sequence", 3));
+        }
+
+        @Test
+        @DisplayName("Should spill the events of a batch left unwritten for other reasons than the events")
+        void shouldNotDeadLetterUnavailableStore() throws Exception {
+            // Given
+            AuditBatchWriter failing = new RejectingWriter(writer, 0) {
+                @Override
+                public void write(List<AuditEvent> events) {
+                    throw new IllegalStateException("database down");
+                }
+            };
+            pipeline = new AuditWriteBehindPipeline(failing, spillOptions().maxRetries(0).build());
+
+            // When
+            for (int i = 0; i < 10; i++) {
+                pipeline.offer(event(i));
+            }
+            pipeline.close();
+
+            // Then
+            assertThat(pipeline.getMetrics().getSpilledEvents()).isEqualTo(10);
+            assertThat(pipeline.getMetrics().getDeadLetteredEvents()).isZero();
+            assertThat(deadLetterDirectory()).doesNotExist();
+        }
+    }
+
+    @Nested
+    @DisplayName("Integration Tests")
+    class IntegrationTests {
+
+        @Test
+        @DisplayName("Should insert a batch with one JDBC batch update")
+        void shouldInsertWithJdbcBatch() throws Exception {
+            // Given
+            JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+            JdbcAuditBatchWriter jdbcWriter = new JdbcAuditBatchWriter(jdbcTemplate, null, "audit_events");
+            AuditEvent first = event(0);
+            first.addTag("region", "eu");
+
+            // When
+            jdbcWriter.write(List.of(first, event(1)));
+
+            // Then
+            verify(jdbcTemplate).batchUpdate(
+                argThat((String sql) -> sql.startsWith("INSERT INTO audit_events") && sql.contains("ON CONFLICT (id)")),
+                argThat((List<Object[]> rows) -> rows.size() == 2
+                    && rows.get(0).length == 31
+                    && rows.get(0)[0].equals(first.getId())
+                    && rows.get(0)[2].equals("CREATE")
+                    && rows.get(0)[27].equals("{\"region\":\"eu\"}")),
+                any(int[].class));
+        }
+
+        @Test
+        @DisplayName("Should write dates in maps as ISO strings and reject values that cannot be converted")
+        void shouldConvertJavaTimeValues() throws Exception {
+            // Given
+            JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+            JdbcAuditBatchWriter jdbcWriter = new JdbcAuditBatchWriter(jdbcTemplate, null, "audit_events");
+            AuditEvent event = event(0);
+            event.setMetadata(new HashMap<>(Map.of("expiresAt", LocalDateTime.of(2024, 3, 1, 12, 30))));
+
+            // When
+            jdbcWriter.write(List.of(event));
+
+            // Then
+            verify(jdbcTemplate).batchUpdate(anyString(),
+                argThat((List<Object[]> rows) -> rows.get(0)[26].equals("{\"expiresAt\":\"2024-03-01T12:30:00\"}")),
+                any(int[].class));
+            assertThat(jdbcWriter.isRejected(new DataIntegrityViolationException("value too long"))).isTrue();
+            assertThat(jdbcWriter.isRejected(new IllegalStateException("database down"))).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should queue audit events instead of saving them when write-behind is enabled")
+        void shouldRouteAuditServiceThroughPipeline() throws Exception {
+            // Given
+            AuditRepository auditRepository = mock(AuditRepository.class);
+            AuditService auditService = new AuditService(auditRepository);
+            pipeline = new AuditWriteBehindPipeline(writer, options().batchSize(1000).flushIntervalMs(60_000).build());
+            ReflectionTestUtils.setField(auditService, "serviceName", "test-service");
+            ReflectionTestUtils.setField(auditService, "asyncEnabled", true);
+            ReflectionTestUtils.setField(auditService, "defaultRetentionDays", 2555);
+            ReflectionTestUtils.setField(auditService, "writeBehindSyncTimeoutMs", 5000L);
+            ReflectionTestUtils.setField(auditService, "writeBehindPipeline", pipeline);
+
+            // When
+            CompletableFuture<Void> async = auditService.auditAsync(
+                AuditEvent.AuditAction.UPDATE, "Order", "order-1", "user-1");
+            auditService.auditSecurity(AuditEvent.AuditAction.LOGIN, "user-1", "10.0.0.1",
+                "JUnit", true, "Login");
+
+            // Then
+            assertThat(writer.events()).hasSize(2);
+            assertThat(writer.events()).allSatisfy(event -> {
+                assertThat(event.getId()).isNotNull();
+                assertThat(event.getServiceName()).isEqualTo("test-service");
+            });
+            async.get(5, TimeUnit.SECONDS);
+            verify(auditRepository, never()).save(any());
+        }
+    }
+
+    private AuditWriteBehindPipeline.Options.OptionsBuilder options() {
+        return AuditWriteBehindPipeline.Options.builder()
+            .overflowPolicy(AuditWriteBehindPipeline.OverflowPolicy.BLOCK)
+            .deadLetterDirectory(deadLetterDirectory().toString())
+            .flushIntervalMs(20)
+            .retryDelayMs(1)
+            .shutdownTimeoutMs(5000);
+    }
+
+    private AuditWriteBehindPipeline.Options.OptionsBuilder spillOptions() {
+        return options()
+            .overflowPolicy(AuditWriteBehindPipeline.OverflowPolicy.SPILL)
+            .spillDirectory(spillDirectory.toString())
+            .maxEventsPerSpillFile(8);
+    }
+
+    /**
+     * Holds the writer on the first event and fills the queue behind it.
+     */
+    private void fillQueue(int capacity) throws InterruptedException {
+        writer.hold();
+        pipeline.offer(event(0));
+        writer.awaitEntered();
+        for (int i = 1; i <= capacity; i++) {
+            assertThat(pipeline.offer(event(i))).isTrue();
+        }
+    }
+
+    private List<Path> spillFiles() {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(AuditSpillFile.PREFIX)).toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path deadLetterDirectory() {
+        return spillDirectory.resolve("dead-letter");
+    }
+
+    private List<AuditEvent> deadLetters() throws IOException {
+        AuditSpillFile deadLetterFile = new AuditSpillFile(deadLetterDirectory(), AuditSpillFile.DEAD_LETTER_PREFIX, 8);
+        List<AuditEvent> events = new ArrayList<>();
+        try (Stream<Path> files = Files.list(deadLetterDirectory())) {
+            for (Path file : files.sorted().toList()) {
+                events.addAll(deadLetterFile.read(file));
+            }
+        }
+        return events;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static AuditEvent event(int sequence) {
+        return AuditEvent.builder()
+            .id(UUID.randomUUID())
+            .timestamp(LocalDateTime.now())
+            .action(AuditEvent.AuditAction.CREATE)
+            .serviceName("test-service")
+            .resourceType("Order")
+            .resourceId("order-" + sequence)
+            .metadata(Map.of("sequence", sequence))
+            .build();
+    }
+
+    private static List<Integer> range(int count) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+
+    /**
+     * Writer rejecting every batch holding the event of one sequence, as a store rejects a value too long
+     * for its column, and recording the others.
+     */
+    private static class RejectingWriter implements AuditBatchWriter {
+
+        private final RecordingWriter delegate;
+        private final int rejectedSequence;
+
+        RejectingWriter(RecordingWriter delegate, int rejectedSequence) {
+            this.delegate = delegate;
+            this.rejectedSequence = rejectedSequence;
+        }
+
+        @Override
+        public void write(List<AuditEvent> events) throws Exception {
+            if (events.stream().anyMatch(event -> event.getMetadata().get("sequence").equals(rejectedSequence))) {
+                throw new DataIntegrityViolationException("value too long for type character varying(1000)");
+            }
+            delegate.write(events);
+        }
+
+        @Override
+        public boolean isRejected(Exception failure) {
+            return failure instanceof DataIntegrityViolationException;
+        }
+    }
+
+    /**
+     * Writer recording every batch, which can be held on its next write to let the queue fill up.
+     */
+    private static class RecordingWriter implements AuditBatchWriter {
+
+        private final List<List<AuditEvent>> batches = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        @Override
+        public void write(List<AuditEvent> events) throws Exception {
+            entered.countDown();
+            gate.await();
+            Thread.sleep(1);
+            batches.add(List.copyOf(events));
+        }
+
+        void hold() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        void awaitEntered() throws InterruptedException {
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        void awaitEvents(int count) throws InterruptedException {
+            waitFor(() -> events().size() >= count);
+        }
+
+        List<AuditEvent> events() {
+            return batches.stream().flatMap(List::stream).toList();
+        }
+
+        List<Integer> batchSizes() {
+            return batches.stream().map(List::size).toList();
+        }
+
+        List<Integer> sequences() {
+            return events().stream()
+                .map(event -> (Integer) event.getMetadata().get("sequence"))
+                .collect(Collectors.toList());
+        }
+    }
+}
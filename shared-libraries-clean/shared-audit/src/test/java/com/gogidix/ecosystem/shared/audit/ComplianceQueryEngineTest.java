@@ -0,0 +1,254 @@
+package com.gogidix.ecosystem.shared.audit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the compliance query engine and for compliance reports computed from its counts.
+ * Tests the daily partial result cache and the reports built from aggregate query rows.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ComplianceQueryEngine Tests")
+class ComplianceQueryEngineTest {
+
+    private static final LocalDateTime QUARTER_START = LocalDate.now().minusDays(40).atStartOfDay();
+
+    @Mock
+    private AuditRepository auditRepository;
+
+    private ComplianceQueryEngine queryEngine;
+
+    @BeforeEach
+    void setUp() {
+        queryEngine = new ComplianceQueryEngine(auditRepository);
+    }
+
+    @Nested
+    @DisplayName("Daily Cache Tests")
+    class DailyCacheTests {
+
+        @BeforeEach
+        void setUp() {
+            when(auditRepository.getComplianceStatsByDay(eq("$.SOX"), isNull(), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenAnswer(invocation -> oneEventPerDay(invocation.getArgument(2),
+                    invocation.getArgument(3)));
+        }
+
+        @Test
+        @DisplayName("Should only query the days not covered by an earlier report")
+        void shouldOnlyQueryNewDays() {
+            // Given
+            queryEngine.getComplianceStats("SOX", QUARTER_START, QUARTER_START.plusDays(20).minusNanos(1), null);
+
+            // When
+            List<ComplianceStats> stats = queryEngine.getComplianceStats("SOX", QUARTER_START,
+                QUARTER_START.plusDays(30).minusNanos(1), null);
+
+            // Then
+            assertThat(stats).hasSize(30).extracting(ComplianceStats::getDay).doesNotHaveDuplicates();
+            verify(auditRepository).getComplianceStatsByDay("$.SOX", null, QUARTER_START, QUARTER_START.plusDays(20));
+            verify(auditRepository).getComplianceStatsByDay("$.SOX", null, QUARTER_START.plusDays(20),
+                QUARTER_START.plusDays(30));
+            verifyNoMoreInteractions(auditRepository);
+        }
+
+        @Test
+        @DisplayName("Should query partly covered days and days not over yet every time")
+        void shouldNotCachePartialDays() {
+            // Given
+            LocalDateTime startTime = QUARTER_START.plusHours(12);
+            LocalDateTime endTime = LocalDateTime.now();
+
+            // When
+            queryEngine.getComplianceStats("SOX", startTime, endTime, null);
+            queryEngine.getComplianceStats("SOX", startTime, endTime, null);
+
+            // Then
+            verify(auditRepository, times(2)).getComplianceStatsByDay("$.SOX", null, startTime,
+                QUARTER_START.plusDays(1));
+            verify(auditRepository, times(1)).getComplianceStatsByDay(eq("$.SOX"), isNull(),
+                eq(QUARTER_START.plusDays(1)), any(LocalDateTime.class));
+            verify(auditRepository, times(2)).getComplianceStatsByDay("$.SOX", null,
+                endTime.toLocalDate().atStartOfDay(), endTime.plusNanos(1));
+        }
+
+        @Test
+        @DisplayName("Should query everything again after the cache is cleared")
+        void shouldQueryAgainAfterClearingCache() {
+            // Given
+            LocalDateTime endTime = QUARTER_START.plusDays(5).minusNanos(1);
+            queryEngine.getComplianceStats("SOX", QUARTER_START, endTime, null);
+
+            // When
+            queryEngine.clearCache();
+            queryEngine.getComplianceStats("SOX", QUARTER_START, endTime, null);
+
+            // Then
+            verify(auditRepository, times(2)).getComplianceStatsByDay("$.SOX", null, QUARTER_START,
+                QUARTER_START.plusDays(5));
+        }
+
+        @Test
+        @DisplayName("Should query a cached day again after a late event is written for it")
+        void shouldQueryDayOfLateEventAgain() {
+            // Given
+            LocalDateTime endTime = QUARTER_START.plusDays(5).minusNanos(1);
+            queryEngine.getComplianceStats("SOX", QUARTER_START, endTime, null);
+
+            // When
+            queryEngine.eventsWritten(List.of(AuditEvent.builder().timestamp(QUARTER_START.plusDays(2).plusHours(3))
+                .build()));
+            queryEngine.getComplianceStats("SOX", QUARTER_START, endTime, null);
+
+            // Then
+            verify(auditRepository).getComplianceStatsByDay("$.SOX", null, QUARTER_START, QUARTER_START.plusDays(5));
+            verify(auditRepository).getComplianceStatsByDay("$.SOX", null, QUARTER_START.plusDays(2),
+                QUARTER_START.plusDays(3));
+            verifyNoMoreInteractions(auditRepository);
+        }
+
+        @Test
+        @DisplayName("Should keep cached days when events are written for days not over yet")
+        void shouldKeepCacheForCurrentEvents() {
+            // Given
+            LocalDateTime endTime = QUARTER_START.plusDays(5).minusNanos(1);
+            queryEngine.getComplianceStats("SOX", QUARTER_START, endTime, null);
+
+            // When
+            queryEngine.eventsWritten(List.of(AuditEvent.builder().timestamp(LocalDateTime.now()).build()));
+            queryEngine.getComplianceStats("SOX", QUARTER_START, endTime, null);
+
+            // Then
+            verify(auditRepository).getComplianceStatsByDay("$.SOX", null, QUARTER_START, QUARTER_START.plusDays(5));
+            verifyNoMoreInteractions(auditRepository);
+        }
+
+        @Test
+        @DisplayName("Should not cache counts queried while a late event was written")
+        void shouldNotCacheCountsQueriedDuringLateWrite() {
+            // Given
+            LocalDateTime endTime = QUARTER_START.plusDays(5).minusNanos(1);
+            AuditEvent lateEvent = AuditEvent.builder().timestamp(QUARTER_START.plusHours(1)).build();
+            when(auditRepository.getComplianceStatsByDay("$.SOX", null, QUARTER_START, QUARTER_START.plusDays(5)))
+                .thenAnswer(invocation -> {
+                    queryEngine.eventsWritten(List.of(lateEvent));
+                    return oneEventPerDay(QUARTER_START, QUARTER_START.plusDays(5));
+                });
+
+            // When
+            queryEngine.getComplianceStats("SOX", QUARTER_START, endTime, null);
+            queryEngine.getComplianceStats("SOX", QUARTER_START, endTime, null);
+
+            // Then
+            verify(auditRepository, times(2)).getComplianceStatsByDay("$.SOX", null, QUARTER_START,
+                QUARTER_START.plusDays(5));
+        }
+    }
+
+    @Nested
+    @DisplayName("Report Tests")
+    class ReportTests {
+
+        @Test
+        @DisplayName("Should compute a SOX report from aggregate counts without loading events")
+        void shouldGenerateSoxReportFromCounts() {
+            // Given
+            ComplianceReporter complianceReporter = new ComplianceReporter();
+            ReflectionTestUtils.setField(complianceReporter, "auditRepository", auditRepository);
+            ReflectionTestUtils.setField(complianceReporter, "queryEngine", queryEngine);
+            LocalDate day = QUARTER_START.toLocalDate();
+            when(auditRepository.getComplianceStatsByDay(eq("$.SOX"), isNull(), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenReturn(List.of(
+                    row(day, "FINANCIAL", AuditEvent.AuditAction.CREATE, true, 120),
+                    row(day, "CHANGE_MANAGEMENT", AuditEvent.AuditAction.CONFIGURE, true, 40, 0, 0, 0, 0, 0, 0, 30, 0),
+                    row(day, "ACCESS_MANAGEMENT", AuditEvent.AuditAction.GRANT, true, 10, 0, 0, 0, 0, 0, 0, 0, 10),
+                    row(day, "INTERNAL_CONTROL", AuditEvent.AuditAction.UPDATE, true, 15),
+                    row(day, "INTERNAL_CONTROL", AuditEvent.AuditAction.UPDATE, false, 5)));
+
+            // When
+            ComplianceReporter.SoxComplianceReport report = complianceReporter.generateSoxReport(QUARTER_START,
+                QUARTER_START.plusDays(7).minusNanos(1));
+
+            // Then
+            assertThat(report.getTotalEvents()).isEqualTo(190);
+            assertThat(report.getFinancialTransactionEventCount()).isEqualTo(120);
+            assertThat(report.getConfigurationChangeEventCount()).isEqualTo(40);
+            assertThat(report.getAccessGrantEventCount()).isEqualTo(10);
+            assertThat(report.getInternalControlScore()).isEqualTo(75.0);
+            assertThat(report.getChangeManagementScore()).isEqualTo(75.0);
+            assertThat(report.getAccessManagementScore()).isEqualTo(100.0);
+            assertThat(report.getControlRecommendations())
+                .containsExactly("Ensure approval workflow for 10 configuration changes");
+            assertThat(report.getFinancialTransactionEvents()).isNull();
+            verify(auditRepository, never()).findComplianceAuditEvents(anyString(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should report users with bursts of failures as suspicious activity")
+        void shouldReportSuspiciousActivity() {
+            // Given
+            ComplianceReporter complianceReporter = new ComplianceReporter();
+            ReflectionTestUtils.setField(complianceReporter, "auditRepository", auditRepository);
+            ReflectionTestUtils.setField(complianceReporter, "queryEngine", queryEngine);
+            LocalDateTime endTime = QUARTER_START.plusDays(2).minusNanos(1);
+            when(auditRepository.getComplianceStatsByDay(anyString(), isNull(), any(LocalDateTime.class),
+                any(LocalDateTime.class))).thenAnswer(invocation -> oneEventPerDay(invocation.getArgument(2),
+                    invocation.getArgument(3)));
+            when(auditRepository.findFailureBursts(QUARTER_START, endTime, 10L)).thenReturn(List.of(
+                new Object[]{"user-1", QUARTER_START.toLocalDate(), 9, 25L},
+                new Object[]{"user-1", QUARTER_START.toLocalDate(), 10, 14L},
+                new Object[]{"user-2", QUARTER_START.toLocalDate(), 23, 11L}));
+
+            // When
+            ComplianceReporter.ComplianceDashboard dashboard = complianceReporter.generateComplianceDashboard(
+                QUARTER_START, endTime);
+
+            // Then
+            assertThat(dashboard.getRiskIndicators()).singleElement().satisfies(indicator -> {
+                assertThat(indicator.get("type")).isEqualTo("SUSPICIOUS_ACTIVITY");
+                assertThat(indicator.get("value")).isEqualTo(2);
+                assertThat(indicator.get("users")).isEqualTo(List.of("user-1", "user-2"));
+            });
+            assertThat(dashboard.getSoxSummary().getTotalEvents()).isEqualTo(2);
+            assertThat(dashboard.getComplianceTrends()).containsKey("dailyScores");
+        }
+    }
+
+    private static List<Object[]> oneEventPerDay(LocalDateTime from, LocalDateTime to) {
+        List<Object[]> rows = new ArrayList<>();
+        for (LocalDateTime day = from; day.isBefore(to); day = day.plusDays(1)) {
+            rows.add(row(day.toLocalDate(), "FINANCIAL", AuditEvent.AuditAction.CREATE, true, 1));
+        }
+        return rows;
+    }
+
+    private static Object[] row(LocalDate day, String category, AuditEvent.AuditAction action, boolean success,
+                                long count, long... metadataCounts) {
+        Object[] row = new Object[14];
+        row[0] = java.sql.Date.valueOf(day);
+        row[1] = category;
+        row[2] = action;
+        row[3] = null;
+        row[4] = success;
+        row[5] = count;
+        for (int i = 6; i < row.length; i++) {
+            row[i] = i - 6 < metadataCounts.length ? metadataCounts[i - 6] : 0L;
+        }
+        return row;
+    }
+}
@@ -0,0 +1,127 @@
+package com.gogidix.ecosystem.shared.messaging.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gogidix.ecosystem.shared.messaging.EventPublisher;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer;
+import com.gogidix.ecosystem.shared.messaging.durable.DurableBroker;
+import com.gogidix.ecosystem.shared.messaging.durable.DurableEventPublisher;
+import com.gogidix.ecosystem.shared.messaging.durable.DurableMessageConsumer;
+import com.gogidix.ecosystem.shared.messaging.durable.DurableMessageProducer;
+import com.gogidix.ecosystem.shared.messaging.durable.SegmentLog;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Durable messaging configuration for the Exalt Social E-commerce Ecosystem.
+ * Provides producer, consumer and event publisher implementations that keep messages and consumer
+ * offsets in an append-only log on local disk, so they survive restarts without an external broker.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "messaging.durable.enabled", havingValue = "true")
+public class DurableMessagingConfig {
+
+    /**
+     * Durable messaging configuration properties.
+     */
+    @ConfigurationProperties(prefix = "messaging.durable")
+    public static class DurableProperties {
+        private String directory = "data/messaging";
+        private int partitions = 4;
+        private int segmentBytes = 64 * 1024 * 1024;
+        private int indexIntervalBytes = 4096;
+        private int maxMessageBytes = 1024 * 1024;
+        private long flushIntervalMs = 1000;
+        private long checkpointIntervalMs = 1000;
+        private long retentionMs = 7L * 24 * 60 * 60 * 1000;
+        private long retentionBytes = -1;
+        private long retentionCheckIntervalMs = 60000;
+        private int deduplicationWindow = 65536;
+        private String eventTopicPrefix = "events.";
+
+        // Getters and setters
+        public String getDirectory() { return directory; }
+        public void setDirectory(String directory) { this.directory = directory; }
+        public int getPartitions() { return partitions; }
+        public void setPartitions(int partitions) { this.partitions = partitions; }
+        public int getSegmentBytes() { return segmentBytes; }
+        public void setSegmentBytes(int segmentBytes) { this.segmentBytes = segmentBytes; }
+        public int getIndexIntervalBytes() { return indexIntervalBytes; }
+        public void setIndexIntervalBytes(int indexIntervalBytes) { this.indexIntervalBytes = indexIntervalBytes; }
+        public int getMaxMessageBytes() { return maxMessageBytes; }
+        public void setMaxMessageBytes(int maxMessageBytes) { this.maxMessageBytes = maxMessageBytes; }
+        public long getFlushIntervalMs() { return flushIntervalMs; }
+        public void setFlushIntervalMs(long flushIntervalMs) { this.flushIntervalMs = flushIntervalMs; }
+        public long getCheckpointIntervalMs() { return checkpointIntervalMs; }
+        public void setCheckpointIntervalMs(long checkpointIntervalMs) { this.checkpointIntervalMs = checkpointIntervalMs; }
+        public long getRetentionMs() { return retentionMs; }
+        public void setRetentionMs(long retentionMs) { this.retentionMs = retentionMs; }
+        public long getRetentionBytes() { return retentionBytes; }
+        public void setRetentionBytes(long retentionBytes) { this.retentionBytes = retentionBytes; }
+        public long getRetentionCheckIntervalMs() { return retentionCheckIntervalMs; }
+        public void setRetentionCheckIntervalMs(long retentionCheckIntervalMs) { this.retentionCheckIntervalMs = retentionCheckIntervalMs; }
+        public int getDeduplicationWindow() { return deduplicationWindow; }
+        public void setDeduplicationWindow(int deduplicationWindow) { this.deduplicationWindow = deduplicationWindow; }
+        public String getEventTopicPrefix() { return eventTopicPrefix; }
+        public void setEventTopicPrefix(String eventTopicPrefix) { this.eventTopicPrefix = eventTopicPrefix; }
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "messaging.durable")
+    public DurableProperties durableProperties() {
+        return new DurableProperties();
+    }
+
+    /**
+     * Log holding the messages and consumer offsets; payloads are stored as JSON with the application
+     * object mapper if there is one.
+     */
+    @Bean(destroyMethod = "close")
+    public SegmentLog segmentLog(DurableProperties properties, ObjectProvider<ObjectMapper> objectMapper)
+            throws IOException {
+        return SegmentLog.open(SegmentLog.Options.in(Path.of(properties.getDirectory()))
+                .setPartitions(properties.getPartitions())
+                .setSegmentBytes(properties.getSegmentBytes())
+                .setIndexIntervalBytes(properties.getIndexIntervalBytes())
+                .setMaxMessageBytes(properties.getMaxMessageBytes())
+                .setFlushIntervalMs(properties.getFlushIntervalMs())
+                .setCheckpointIntervalMs(properties.getCheckpointIntervalMs())
+                .setRetentionMs(properties.getRetentionMs())
+                .setRetentionBytes(properties.getRetentionBytes())
+                .setRetentionCheckIntervalMs(properties.getRetentionCheckIntervalMs())
+                .setDeduplicationWindow(properties.getDeduplicationWindow())
+                .setObjectMapper(objectMapper.getIfAvailable()));
+    }
+
+    /**
+     * Broker shared by the durable producer, consumer and event publisher. It is closed before the log.
+     */
+    @Bean(destroyMethod = "close")
+    public DurableBroker durableBroker(SegmentLog segmentLog, DurableProperties properties) {
+        return new DurableBroker(segmentLog, properties.getDeduplicationWindow());
+    }
+
+    @Bean
+    public MessageProducer durableMessageProducer(DurableBroker broker) {
+        return new DurableMessageProducer(broker);
+    }
+
+    @Bean
+    public MessageConsumer durableMessageConsumer(DurableBroker broker) {
+        return new DurableMessageConsumer(broker);
+    }
+
+    @Bean
+    public EventPublisher durableEventPublisher(DurableBroker broker, DurableProperties properties) {
+        return new DurableEventPublisher(broker, properties.getEventTopicPrefix());
+    }
+}
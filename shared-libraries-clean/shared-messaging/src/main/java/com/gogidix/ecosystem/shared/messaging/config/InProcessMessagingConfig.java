@@ -0,0 +1,84 @@
+package com.gogidix.ecosystem.shared.messaging.config;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer;
+import com.gogidix.ecosystem.shared.messaging.inprocess.InProcessBroker;
+import com.gogidix.ecosystem.shared.messaging.inprocess.InProcessEventPublisher;
+import com.gogidix.ecosystem.shared.messaging.inprocess.InProcessMessageConsumer;
+import com.gogidix.ecosystem.shared.messaging.inprocess.InProcessMessageProducer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * In-process messaging configuration for the Exalt Social E-commerce Ecosystem.
+ * Provides producer, consumer and event publisher implementations backed by a broker inside the JVM,
+ * for running event pipelines locally and in tests without Kafka or RabbitMQ.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "messaging.in-process.enabled", havingValue = "true")
+public class InProcessMessagingConfig {
+
+    /**
+     * In-process messaging configuration properties.
+     */
+    @ConfigurationProperties(prefix = "messaging.in-process")
+    public static class InProcessProperties {
+        private int partitions = 4;
+        private int ringCapacity = 8192;
+        private long publishTimeoutMs = 5000;
+        private int deduplicationWindow = 65536;
+        private long pollerSessionTimeoutMs = 30000;
+        private String eventTopicPrefix = "events.";
+
+        // Getters and setters
+        public int getPartitions() { return partitions; }
+        public void setPartitions(int partitions) { this.partitions = partitions; }
+        public int getRingCapacity() { return ringCapacity; }
+        public void setRingCapacity(int ringCapacity) { this.ringCapacity = ringCapacity; }
+        public long getPublishTimeoutMs() { return publishTimeoutMs; }
+        public void setPublishTimeoutMs(long publishTimeoutMs) { this.publishTimeoutMs = publishTimeoutMs; }
+        public int getDeduplicationWindow() { return deduplicationWindow; }
+        public void setDeduplicationWindow(int deduplicationWindow) { this.deduplicationWindow = deduplicationWindow; }
+        public long getPollerSessionTimeoutMs() { return pollerSessionTimeoutMs; }
+        public void setPollerSessionTimeoutMs(long pollerSessionTimeoutMs) { this.pollerSessionTimeoutMs = pollerSessionTimeoutMs; }
+        public String getEventTopicPrefix() { return eventTopicPrefix; }
+        public void setEventTopicPrefix(String eventTopicPrefix) { this.eventTopicPrefix = eventTopicPrefix; }
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "messaging.in-process")
+    public InProcessProperties inProcessProperties() {
+        return new InProcessProperties();
+    }
+
+    /**
+     * Broker shared by the in-process producer, consumer and event publisher.
+     */
+    @Bean(destroyMethod = "close")
+    public InProcessBroker inProcessBroker(InProcessProperties properties) {
+        return new InProcessBroker(properties.getPartitions(), properties.getRingCapacity(),
+                properties.getPublishTimeoutMs(), properties.getDeduplicationWindow(),
+                properties.getPollerSessionTimeoutMs());
+    }
+
+    @Bean
+    public MessageProducer inProcessMessageProducer(InProcessBroker broker) {
+        return new InProcessMessageProducer(broker);
+    }
+
+    @Bean
+    public MessageConsumer inProcessMessageConsumer(InProcessBroker broker) {
+        return new InProcessMessageConsumer(broker);
+    }
+
+    @Bean
+    public EventPublisher inProcessEventPublisher(InProcessBroker broker, InProcessProperties properties) {
+        return new InProcessEventPublisher(broker, properties.getEventTopicPrefix());
+    }
+}
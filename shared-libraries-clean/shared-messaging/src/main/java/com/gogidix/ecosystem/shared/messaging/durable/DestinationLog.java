@@ -0,0 +1,128 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.support.RecentIds;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Partition logs of one destination, together with the ids of its recent exactly-once records and
+ * the consumers waiting for new records.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class DestinationLog {
+
+    private final String name;
+    private final PartitionLog[] partitions;
+    private final RecentIds publishedIds;
+    private final Set<Thread> waiters = ConcurrentHashMap.newKeySet();
+
+    DestinationLog(String name, PartitionLog[] partitions, int deduplicationWindow) {
+        this.name = name;
+        this.partitions = partitions;
+        this.publishedIds = new RecentIds(deduplicationWindow);
+        recoverPublishedIds(deduplicationWindow);
+    }
+
+    /**
+     * Remembers the exactly-once ids among the newest records, so a message sent again after a
+     * restart is still recognized as a duplicate.
+     */
+    private void recoverPublishedIds(int deduplicationWindow) {
+        long perPartition = Math.max(1, deduplicationWindow / partitions.length);
+        for (PartitionLog partition : partitions) {
+            long from = Math.max(partition.getLogStartOffset(), partition.getLogEndOffset() - perPartition);
+            partition.read(from, (segment, position) -> {
+                if (RecordCodec.deliveryModeOf(segment, position) == DeliveryMode.EXACTLY_ONCE) {
+                    String messageId = RecordCodec.messageIdOf(segment, position);
+                    if (messageId != null) {
+                        publishedIds.add(messageId);
+                    }
+                }
+                return true;
+            });
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getPartitionCount() {
+        return partitions.length;
+    }
+
+    PartitionLog partition(int partition) {
+        return partitions[partition];
+    }
+
+    PartitionLog[] getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Chooses the partition of a record. Records with the same key always go to the same partition;
+     * records without a key stay on one partition per appending thread, which keeps their order.
+     */
+    int partitionFor(String key) {
+        int hash = key != null ? key.hashCode() : Long.hashCode(Thread.currentThread().getId());
+        // Spread the bits so that similar keys do not cluster
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, partitions.length);
+    }
+
+    /**
+     * Records a message id for exactly-once appending.
+     *
+     * @return true if the id was not appended recently
+     */
+    boolean markPublished(String messageId) {
+        return publishedIds.add(messageId);
+    }
+
+    /**
+     * Parks the calling thread until records are appended or the timeout passes.
+     *
+     * @param positions Next offset the caller reads from each partition, or null to wait for the next append
+     */
+    void awaitRecords(IntToLongFunction positions, long timeoutNanos) {
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            // Re-check after registering, so an append between the check and the park is not lost
+            if (!hasRecordsAfter(positions)) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            waiters.remove(current);
+        }
+    }
+
+    private boolean hasRecordsAfter(IntToLongFunction positions) {
+        if (positions == null) {
+            return false;
+        }
+        for (int i = 0; i < partitions.length; i++) {
+            if (partitions[i].getLogEndOffset() > positions.applyAsLong(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wakes the parked consumers after records were appended.
+     */
+    void signal() {
+        if (!waiters.isEmpty()) {
+            for (Thread waiter : waiters) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.ConsumerOptions.OffsetResetStrategy;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Messaging on top of a {@link SegmentLog}, shared by {@link DurableMessageProducer},
+ * {@link DurableMessageConsumer} and {@link DurableEventPublisher}.
+ * <p>
+ * The broker keeps what is not stored in the log: the read positions of the consumer groups in this
+ * process, the subscriptions, the requests waiting for a reply and the messages scheduled for later.
+ * Replies to requests of this broker and delayed messages that are not due yet live in memory only.
+ * Closing the broker stops its subscriptions but leaves the log open; the log is closed by its owner.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+public final class DurableBroker implements AutoCloseable {
+
+    /**
+     * Name of the group shared by subscribers and pollers that name no consumer group.
+     */
+    public static final String DEFAULT_GROUP = "default";
+
+    private final SegmentLog segmentLog;
+    private final int deduplicationWindow;
+    private final String brokerId = UUID.randomUUID().toString().substring(0, 8);
+    private final String replyAddress = "reply." + brokerId;
+    private final AtomicLong messageSequence = new AtomicLong();
+    private final ConcurrentMap<String, GroupCursor> cursors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<LogRecord>> pendingReplies = new ConcurrentHashMap<>();
+    private final Set<DurableSubscription<?>> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ScheduledThreadPoolExecutor scheduler;
+    private volatile boolean closed;
+
+    /**
+     * Creates a broker.
+     *
+     * @param segmentLog Log holding the messages
+     * @param deduplicationWindow Number of message ids each consumer group remembers to skip exactly-once
+     *                            messages it already processed
+     */
+    public DurableBroker(SegmentLog segmentLog, int deduplicationWindow) {
+        this.segmentLog = segmentLog;
+        this.deduplicationWindow = deduplicationWindow;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "durable-broker-" + brokerId + "-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    public SegmentLog getSegmentLog() {
+        return segmentLog;
+    }
+
+    String getReplyAddress() {
+        return replyAddress;
+    }
+
+    String nextMessageId() {
+        return brokerId + '-' + messageSequence.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of records a consumer group has not read yet.
+     *
+     * @param destination Destination name
+     * @param consumerGroup Group name, or null for the default group
+     * @return Records between the committed offsets of the group and the end of the log, summed over partitions
+     */
+    public long getLag(String destination, String consumerGroup) {
+        String group = groupName(consumerGroup);
+        long lag = 0;
+        for (int partition = 0; partition < segmentLog.getPartitionCount(destination); partition++) {
+            long committed = segmentLog.getCommittedOffset(destination, group, partition);
+            long from = Math.max(committed, segmentLog.getLogStartOffset(destination, partition));
+            lag += segmentLog.getLogEndOffset(destination, partition) - from;
+        }
+        return lag;
+    }
+
+    /**
+     * Gets the read position of a consumer group, creating it if needed.
+     * A group with committed offsets continues from them. Otherwise the reset strategy decides where
+     * it starts: EARLIEST at the oldest record kept, LATEST at the end of the log, and NONE fails
+     * because the group has no position to start from. The start of a new group is committed right away,
+     * so it does not move if the group restarts before consuming anything.
+     *
+     * @param destination Destination name
+     * @param consumerGroup Group name, or null for the default group
+     * @param resetStrategy Where a group without committed offsets starts
+     * @return The group cursor
+     */
+    GroupCursor joinGroup(String destination, String consumerGroup, OffsetResetStrategy resetStrategy) {
+        ensureOpen(destination);
+        String group = groupName(consumerGroup);
+        String key = destination + '\u0000' + group;
+        GroupCursor cursor = cursors.get(key);
+        if (cursor != null) {
+            return cursor;
+        }
+        return cursors.computeIfAbsent(key, ignored -> createCursor(destination, group, resetStrategy));
+    }
+
+    private GroupCursor createCursor(String destination, String group, OffsetResetStrategy resetStrategy) {
+        int partitionCount = segmentLog.getPartitionCount(destination);
+        long[] startOffsets = new long[partitionCount];
+        for (int partition = 0; partition < partitionCount; partition++) {
+            long committed = segmentLog.getCommittedOffset(destination, group, partition);
+            if (committed >= 0) {
+                startOffsets[partition] = committed;
+                continue;
+            }
+            if (resetStrategy == OffsetResetStrategy.NONE) {
+                throw new MessagingException("Consumer group " + group + " has no committed offset on "
+                        + destination, destination, MessagingException.ErrorCode.DESTINATION_NOT_FOUND);
+            }
+            startOffsets[partition] = resetStrategy == OffsetResetStrategy.EARLIEST
+                    ? segmentLog.getLogStartOffset(destination, partition)
+                    : segmentLog.getLogEndOffset(destination, partition);
+            segmentLog.commitOffset(destination, group, partition, startOffsets[partition], false);
+        }
+        return new GroupCursor(destination, group, startOffsets, deduplicationWindow);
+    }
+
+    private static String groupName(String consumerGroup) {
+        return consumerGroup != null && !consumerGroup.isEmpty() ? consumerGroup : DEFAULT_GROUP;
+    }
+
+    /**
+     * Appends a message.
+     *
+     * @param record Message without destination, partition and offset
+     * @param durable Whether to wait until the message is on disk
+     * @return The send result
+     */
+    DurableSendResult send(String destination, LogRecord record, boolean durable) {
+        ensureOpen(destination);
+        LogRecord appended = segmentLog.append(destination, record, durable);
+        return appended != null
+                ? DurableSendResult.success(appended) : DurableSendResult.duplicate(destination, record);
+    }
+
+    /**
+     * Appends messages to one destination with at most one wait for the disk.
+     *
+     * @return One result per message, in order
+     */
+    List<DurableSendResult> sendBatch(String destination, List<LogRecord> records, boolean durable) {
+        ensureOpen(destination);
+        List<LogRecord> appended = segmentLog.appendBatch(destination, records, durable);
+        return IntStream.range(0, records.size())
+                .mapToObj(i -> appended.get(i) != null
+                        ? DurableSendResult.success(appended.get(i))
+                        : DurableSendResult.duplicate(destination, records.get(i)))
+                .toList();
+    }
+
+    /**
+     * Appends a message after a delay. Until it is due the message is held in memory only.
+     *
+     * @return Future completed once the message is appended
+     */
+    CompletableFuture<DurableSendResult> sendLater(String destination, LogRecord record, boolean durable,
+                                                   long delayMs) {
+        CompletableFuture<DurableSendResult> future = new CompletableFuture<>();
+        try {
+            ensureOpen(destination);
+            scheduler.schedule(() -> {
+                try {
+                    future.complete(send(destination, record, durable));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Sends the response to a request to its reply destination. A reply to a request of this broker
+     * completes the waiting request directly instead of going through the log.
+     *
+     * @throws MessagingException with {@code INVALID_MESSAGE} if the request has no reply destination
+     */
+    void reply(LogRecord request, Object response, String correlationId) {
+        String replyTo = request.getReplyTo();
+        if (replyTo == null) {
+            throw new MessagingException("Message has no reply destination", request.getDestination(),
+                    request.getMessageId(), MessagingException.ErrorCode.INVALID_MESSAGE);
+        }
+        LogRecord reply = LogRecord.builder()
+                .messageId(nextMessageId())
+                .key(correlationId)
+                .payload(response)
+                .correlationId(correlationId)
+                .deliveryMode(DeliveryMode.AT_LEAST_ONCE)
+                .build();
+        if (replyAddress.equals(replyTo)) {
+            CompletableFuture<LogRecord> waiting = pendingReplies.get(correlationId);
+            if (waiting != null) {
+                waiting.complete(reply.toBuilder()
+                        .destination(replyTo)
+                        .timestamp(System.currentTimeMillis())
+                        .build());
+            } else {
+                log.debug("Dropping reply {} that nobody waits for any more", correlationId);
+            }
+            return;
+        }
+        send(replyTo, reply, true);
+    }
+
+    /**
+     * Registers interest in the reply with the given correlation id.
+     *
+     * @param correlationId Correlation id of the request
+     * @return Future completed with the reply
+     */
+    CompletableFuture<LogRecord> expectReply(String correlationId) {
+        CompletableFuture<LogRecord> future = new CompletableFuture<>();
+        pendingReplies.put(correlationId, future);
+        future.whenComplete((reply, error) -> pendingReplies.remove(correlationId, future));
+        return future;
+    }
+
+    void register(DurableSubscription<?> subscription) {
+        subscriptions.add(subscription);
+    }
+
+    void unregister(DurableSubscription<?> subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     * Stops all subscriptions, drops the messages scheduled for later and fails the requests still
+     * waiting for a reply. Offsets committed by the subscriptions are written to disk.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (DurableSubscription<?> subscription : List.copyOf(subscriptions)) {
+            subscription.stop();
+        }
+        scheduler.shutdownNow();
+        for (CompletableFuture<LogRecord> waiting : List.copyOf(pendingReplies.values())) {
+            waiting.completeExceptionally(new MessagingException("Broker closed", replyAddress,
+                    MessagingException.ErrorCode.CONNECTION_FAILED));
+        }
+        segmentLog.flush();
+        log.info("Durable broker {} closed", brokerId);
+    }
+
+    private void ensureOpen(String destination) {
+        if (closed) {
+            throw new MessagingException("Broker closed", destination,
+                    MessagingException.ErrorCode.CONNECTION_FAILED);
+        }
+    }
+}
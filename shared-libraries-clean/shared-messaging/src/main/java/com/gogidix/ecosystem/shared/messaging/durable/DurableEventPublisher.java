@@ -0,0 +1,216 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.DomainEvent;
+import com.gogidix.ecosystem.shared.messaging.EventPublisher;
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link EventPublisher} backed by a {@link DurableBroker}.
+ * <p>
+ * Events go to the topic made of the configured prefix and the event type, partitioned by routing key
+ * or else by aggregate id, so the events of one aggregate are consumed in order. The event id is the
+ * message id, which exactly-once delivery uses to drop duplicates, also across restarts.
+ * <p>
+ * Persistent events are on disk when publishing returns, unless they are sent at most once. A publish
+ * that fails to reach the disk is retried as often as the delivery options allow.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+public class DurableEventPublisher implements EventPublisher {
+
+    private static final DeliveryOptions DEFAULT_OPTIONS = new DeliveryOptions();
+
+    private final DurableBroker broker;
+    private final String topicPrefix;
+
+    public DurableEventPublisher(DurableBroker broker, String topicPrefix) {
+        this.broker = broker;
+        this.topicPrefix = topicPrefix != null ? topicPrefix : "";
+    }
+
+    @Override
+    public <T extends DomainEvent> void publish(T event) {
+        publish(event, DEFAULT_OPTIONS);
+    }
+
+    @Override
+    public <T extends DomainEvent> CompletableFuture<Void> publishAsync(T event) {
+        return publishAsync(event, DEFAULT_OPTIONS);
+    }
+
+    @Override
+    public <T extends DomainEvent> void publishToTopic(String topic, T event) {
+        publish(topic, event, DEFAULT_OPTIONS);
+    }
+
+    @Override
+    public <T extends DomainEvent> CompletableFuture<Void> publishToTopicAsync(String topic, T event) {
+        try {
+            publishToTopic(topic, event);
+            return CompletableFuture.completedFuture(null);
+        } catch (PublishingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public <T extends DomainEvent> void publish(T event, DeliveryOptions options) {
+        publish(topicFor(event), event, options);
+    }
+
+    @Override
+    public <T extends DomainEvent> CompletableFuture<Void> publishAsync(T event, DeliveryOptions options) {
+        try {
+            publish(event, options);
+            return CompletableFuture.completedFuture(null);
+        } catch (PublishingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Publishes events with one wait for the disk per topic.
+     *
+     * @throws PublishingException naming the first event of the topic that could not be published
+     */
+    @Override
+    public void publishBatch(DomainEvent... events) {
+        Map<String, List<DomainEvent>> byTopic = new LinkedHashMap<>();
+        for (DomainEvent event : events) {
+            event.initializeEvent();
+            byTopic.computeIfAbsent(topicFor(event), topic -> new ArrayList<>()).add(event);
+        }
+        for (Map.Entry<String, List<DomainEvent>> topic : byTopic.entrySet()) {
+            List<LogRecord> records = topic.getValue().stream()
+                    .map(event -> record(event, DEFAULT_OPTIONS))
+                    .collect(Collectors.toList());
+            try {
+                broker.sendBatch(topic.getKey(), records, DEFAULT_OPTIONS.isPersistent());
+            } catch (MessagingException e) {
+                DomainEvent first = topic.getValue().get(0);
+                throw new PublishingException(topic.getValue().size() + " of " + events.length
+                        + " events could not be published", first.getEventType(), String.valueOf(first.getEventId()),
+                        e);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> publishBatchAsync(DomainEvent... events) {
+        try {
+            publishBatch(events);
+            return CompletableFuture.completedFuture(null);
+        } catch (PublishingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Publishes the event exactly once after the current transaction commits, or right away if
+     * no transaction is active. An event of a rolled back transaction is never published.
+     */
+    @Override
+    public <T extends DomainEvent> void publishTransactional(T event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event, DeliveryOptions.exactlyOnce());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    publish(event, DeliveryOptions.exactlyOnce());
+                } catch (PublishingException e) {
+                    log.error("Failed to publish event {} after commit", event.getEventId(), e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public <T extends DomainEvent> void publishDelayed(T event, long delaySeconds) {
+        publishLater(event, TimeUnit.SECONDS.toMillis(delaySeconds));
+    }
+
+    @Override
+    public <T extends DomainEvent> void scheduleEvent(T event, LocalDateTime scheduledTime) {
+        publishLater(event, Math.max(0, Duration.between(LocalDateTime.now(), scheduledTime).toMillis()));
+    }
+
+    private void publishLater(DomainEvent event, long delayMs) {
+        event.initializeEvent();
+        String topic = topicFor(event);
+        broker.sendLater(topic, record(event, DEFAULT_OPTIONS), isDurable(DEFAULT_OPTIONS), delayMs)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.error("Failed to publish delayed event {}", event.getEventId(), error);
+                    }
+                });
+    }
+
+    private void publish(String topic, DomainEvent event, DeliveryOptions options) {
+        event.initializeEvent();
+        LogRecord record = record(event, options);
+        int retries = Math.max(0, options.getRetryAttempts());
+        for (int attempt = 0; ; attempt++) {
+            try {
+                broker.send(topic, record, isDurable(options));
+                return;
+            } catch (MessagingException e) {
+                if (attempt >= retries || e.getErrorCode() != MessagingException.ErrorCode.BROKER_ERROR) {
+                    throw new PublishingException("Failed to publish event to " + topic, event.getEventType(),
+                            String.valueOf(event.getEventId()), e);
+                }
+                log.warn("Publishing event {} to {} failed, retrying in {} ms", event.getEventId(), topic,
+                        options.getRetryDelayMs(), e);
+                sleep(options.getRetryDelayMs(), topic, event);
+            }
+        }
+    }
+
+    private static void sleep(long millis, String topic, DomainEvent event) {
+        try {
+            Thread.sleep(Math.max(0, millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PublishingException("Interrupted while publishing event to " + topic, event.getEventType(),
+                    String.valueOf(event.getEventId()), e);
+        }
+    }
+
+    private static boolean isDurable(DeliveryOptions options) {
+        return options.isPersistent() && options.getDeliveryMode() != DeliveryMode.AT_MOST_ONCE;
+    }
+
+    private LogRecord record(DomainEvent event, DeliveryOptions options) {
+        return LogRecord.builder()
+                .messageId(event.getEventId().toString())
+                .key(options.getRoutingKey() != null ? options.getRoutingKey() : event.getAggregateId())
+                .payload(event)
+                .headers(LogRecord.copyHeaders(options.getHeaders()))
+                .correlationId(event.getCorrelationId())
+                .deliveryMode(options.getDeliveryMode())
+                .build();
+    }
+
+    private String topicFor(DomainEvent event) {
+        String eventType = event.getEventType();
+        return topicPrefix + (eventType != null ? eventType : event.getClass().getSimpleName());
+    }
+}
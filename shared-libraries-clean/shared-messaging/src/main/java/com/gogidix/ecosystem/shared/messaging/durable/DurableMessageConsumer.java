@@ -0,0 +1,221 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * {@link MessageConsumer} backed by a {@link DurableBroker}.
+ * <p>
+ * Subscribers taking a plain {@link Consumer} acknowledge a message when it returns; subscribers
+ * taking a {@link MessageHandler} follow {@link ConsumerOptions#isAutoAcknowledge()}. Polling reads
+ * from the default consumer group of the destination. Like an auto-committing Kafka consumer, each poll
+ * commits the position reached by the previous one, so polled messages count as acknowledged by the
+ * next poll unless they are rejected with requeue first.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+public class DurableMessageConsumer implements MessageConsumer {
+
+    private final DurableBroker broker;
+    private final AtomicInteger pollCursor = new AtomicInteger();
+
+    public DurableMessageConsumer(DurableBroker broker) {
+        this.broker = broker;
+    }
+
+    @Override
+    public <T> Subscription subscribe(String destination, Consumer<T> messageHandler, Class<T> messageType) {
+        return subscribe(ConsumerOptions.forDestination(destination), messageHandler, messageType);
+    }
+
+    @Override
+    public <T> Subscription subscribe(ConsumerOptions options, Consumer<T> messageHandler, Class<T> messageType) {
+        return start(options, (message, context) -> messageHandler.accept(message), messageType, true, Long.MAX_VALUE);
+    }
+
+    @Override
+    public <T> Subscription subscribeWithContext(String destination, MessageHandler<T> messageHandler,
+                                                 Class<T> messageType) {
+        return subscribeWithContext(ConsumerOptions.forDestination(destination), messageHandler, messageType);
+    }
+
+    /**
+     * Subscribes to a destination with a context-aware handler and full options.
+     *
+     * @param options Consumer options
+     * @param messageHandler Handler receiving each message with its context
+     * @param messageType Expected message type
+     * @param <T> Message type
+     * @return Subscription handle
+     */
+    public <T> Subscription subscribeWithContext(ConsumerOptions options, MessageHandler<T> messageHandler,
+                                                 Class<T> messageType) {
+        return start(options, messageHandler, messageType, options.isAutoAcknowledge(), Long.MAX_VALUE);
+    }
+
+    private <T> DurableSubscription<T> start(ConsumerOptions options, MessageHandler<T> handler,
+                                             Class<T> messageType, boolean autoAcknowledge, long messageLimit) {
+        if (options.getDestination() == null) {
+            throw new IllegalArgumentException("Consumer options must name a destination");
+        }
+        GroupCursor cursor = broker.joinGroup(options.getDestination(), options.getConsumerGroup(),
+                options.getOffsetResetStrategy());
+        DurableSubscription<T> subscription = new DurableSubscription<>(broker, cursor, options, handler,
+                messageType, autoAcknowledge, messageLimit);
+        subscription.start();
+        log.debug("Subscription {} started on {} in group {}", subscription.getId(), options.getDestination(),
+                cursor.getGroup());
+        return subscription;
+    }
+
+    @Override
+    public <T> ReceivedMessage<T> poll(String destination, Class<T> messageType, long timeoutMs) {
+        List<ReceivedMessage<T>> messages = pollBatch(destination, messageType, 1, timeoutMs);
+        return messages.isEmpty() ? null : messages.get(0);
+    }
+
+    @Override
+    public <T> List<ReceivedMessage<T>> pollBatch(String destination, Class<T> messageType, int maxMessages,
+                                                  long timeoutMs) {
+        GroupCursor cursor = broker.joinGroup(destination, null, ConsumerOptions.OffsetResetStrategy.EARLIEST);
+        SegmentLog segmentLog = broker.getSegmentLog();
+        commitPositions(segmentLog, cursor);
+        PollSettlement settlement = new PollSettlement(cursor);
+        List<ReceivedMessage<T>> messages = new ArrayList<>(Math.max(0, Math.min(maxMessages, 256)));
+        List<LogRecord> read = new ArrayList<>(Math.max(0, Math.min(maxMessages, 256)));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            read(segmentLog, cursor, read, maxMessages - messages.size());
+            long now = System.currentTimeMillis();
+            for (LogRecord record : read) {
+                if (record.getExpiresAt() != 0 && record.isExpired(now)) {
+                    continue;
+                }
+                if (record.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE
+                        && cursor.getProcessedIds().contains(record.getMessageId())) {
+                    continue;
+                }
+                DurableMessageContext context = new DurableMessageContext(broker, record, cursor.getGroup(),
+                        cursor.takeAttempt(record.getPartition(), record.getOffset()), settlement);
+                try {
+                    messages.add(new DurableReceivedMessage<>(DurableSubscription.convert(record, messageType),
+                            context));
+                } catch (MessagingException e) {
+                    log.warn("Skipping message {} polled from {}: {}", record.getMessageId(), destination,
+                            e.getMessage());
+                }
+            }
+            read.clear();
+            long left = deadline - System.nanoTime();
+            if (!messages.isEmpty() || maxMessages <= 0 || left <= 0) {
+                return messages;
+            }
+            segmentLog.awaitRecords(destination, cursor::getPosition, left);
+        }
+    }
+
+    private static void commitPositions(SegmentLog segmentLog, GroupCursor cursor) {
+        for (int partition = 0; partition < cursor.getPartitionCount(); partition++) {
+            segmentLog.commitOffset(cursor.getDestination(), cursor.getGroup(), partition,
+                    cursor.committableOffset(partition), false);
+        }
+    }
+
+    private void read(SegmentLog segmentLog, GroupCursor cursor, List<LogRecord> target, int maxMessages) {
+        String destination = cursor.getDestination();
+        int partitionCount = cursor.getPartitionCount();
+        int start = Math.floorMod(pollCursor.getAndIncrement(), partitionCount);
+        for (int i = 0; i < partitionCount && target.size() < maxMessages; i++) {
+            int partition = (start + i) % partitionCount;
+            long position = cursor.getPosition(partition);
+            if (position >= segmentLog.getLogEndOffset(destination, partition) || !cursor.tryAcquire(partition)) {
+                continue;
+            }
+            try {
+                position = Math.max(cursor.getPosition(partition),
+                        segmentLog.getLogStartOffset(destination, partition));
+                List<LogRecord> records = segmentLog.read(destination, partition, position,
+                        maxMessages - target.size());
+                if (!records.isEmpty()) {
+                    target.addAll(records);
+                    cursor.advance(partition, cursor.getPosition(partition),
+                            records.get(records.size() - 1).getOffset() + 1);
+                }
+            } finally {
+                cursor.release(partition);
+            }
+        }
+    }
+
+    /**
+     * Receives a single message from the default consumer group, processes it and sends the response
+     * to the reply destination of the request.
+     */
+    @Override
+    public <Req, Res> CompletableFuture<Void> receiveAndReply(String destination, RequestProcessor<Req, Res> processor,
+                                                              Class<Req> requestType, Class<Res> responseType) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        MessageHandler<Req> handler = (request, context) -> {
+            try {
+                Res response = processor.process(request, context);
+                context.reply(responseType.cast(response));
+                done.complete(null);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+                throw e;
+            }
+        };
+        start(ConsumerOptions.forDestination(destination).sequential().withPrefetch(1).withAutoAck(), handler,
+                requestType, true, 1);
+        return done;
+    }
+
+    /**
+     * Creates a uniquely named destination. It is stored in the log like any other once a message is sent to it.
+     */
+    @Override
+    public String createTemporaryQueue() {
+        return "temp." + UUID.randomUUID();
+    }
+
+    /**
+     * Settles polled messages: rejecting with requeue rewinds the partition to the message.
+     */
+    private static final class PollSettlement implements DurableMessageContext.Settlement {
+
+        private final GroupCursor cursor;
+
+        PollSettlement(GroupCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public void acknowledged(DurableMessageContext context) {
+            LogRecord record = context.getRecord();
+            if (record.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE) {
+                cursor.getProcessedIds().add(record.getMessageId());
+            }
+        }
+
+        @Override
+        public void rejected(DurableMessageContext context, boolean requeue) {
+            LogRecord record = context.getRecord();
+            if (requeue && record.getDeliveryMode() != DeliveryMode.AT_MOST_ONCE) {
+                cursor.setAttempt(record.getPartition(), record.getOffset(), context.getRetryAttempt() + 1);
+                cursor.rewind(record.getPartition(), record.getOffset());
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.MessageContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Context of a message delivered from the durable log.
+ * A message is settled exactly once, by the first call to {@link #acknowledge()} or {@link #reject(boolean)};
+ * later calls have no effect.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+final class DurableMessageContext implements MessageContext {
+
+    /**
+     * Receives the outcome of a delivered message.
+     */
+    interface Settlement {
+
+        void acknowledged(DurableMessageContext context);
+
+        /**
+         * @param context Context of the rejected message
+         * @param requeue Whether the message should be delivered again
+         */
+        void rejected(DurableMessageContext context, boolean requeue);
+    }
+
+    private final DurableBroker broker;
+    private final LogRecord record;
+    private final String consumerGroup;
+    private final int attempt;
+    private final Settlement settlement;
+    private final long receivedAtMillis = System.currentTimeMillis();
+    private final AtomicBoolean settled = new AtomicBoolean();
+    private volatile boolean handling;
+    private volatile boolean requeued;
+    private volatile Map<String, Object> processingMetadata;
+
+    DurableMessageContext(DurableBroker broker, LogRecord record, String consumerGroup, int attempt,
+                          Settlement settlement) {
+        this.broker = broker;
+        this.record = record;
+        this.consumerGroup = consumerGroup;
+        this.attempt = attempt;
+        this.settlement = settlement;
+    }
+
+    LogRecord getRecord() {
+        return record;
+    }
+
+    /**
+     * Whether the handler of the message is still running, so a requeue can be retried in place.
+     */
+    boolean isHandling() {
+        return handling;
+    }
+
+    void setHandling(boolean handling) {
+        this.handling = handling;
+    }
+
+    boolean isSettled() {
+        return settled.get();
+    }
+
+    boolean isRequeued() {
+        return requeued;
+    }
+
+    @Override
+    public String getMessageId() {
+        return record.getMessageId();
+    }
+
+    @Override
+    public String getDestination() {
+        return record.getDestination();
+    }
+
+    @Override
+    public Map<String, Object> getHeaders() {
+        Map<String, Object> headers = record.getHeaders();
+        return headers != null ? headers : Collections.emptyMap();
+    }
+
+    @Override
+    public Object getHeader(String key) {
+        return getHeaders().get(key);
+    }
+
+    @Override
+    public Integer getPartition() {
+        return record.getPartition();
+    }
+
+    @Override
+    public Long getOffset() {
+        return record.getOffset();
+    }
+
+    @Override
+    public LocalDateTime getReceivedAt() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(receivedAtMillis), ZoneId.systemDefault());
+    }
+
+    @Override
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    @Override
+    public int getRetryAttempt() {
+        return attempt;
+    }
+
+    @Override
+    public void acknowledge() {
+        if (settled.compareAndSet(false, true)) {
+            settlement.acknowledged(this);
+        }
+    }
+
+    @Override
+    public void reject() {
+        reject(false);
+    }
+
+    @Override
+    public void reject(boolean requeue) {
+        if (settled.compareAndSet(false, true)) {
+            requeued = requeue;
+            settlement.rejected(this, requeue);
+        }
+    }
+
+    @Override
+    public void reply(Object response) {
+        String correlationId = record.getCorrelationId();
+        broker.reply(record, response, correlationId != null ? correlationId : record.getMessageId());
+    }
+
+    @Override
+    public void replyAndCorrelate(Object response, String correlationId) {
+        broker.reply(record, response, correlationId);
+    }
+
+    @Override
+    public void addProcessingMetadata(String key, Object value) {
+        Map<String, Object> metadata = processingMetadata;
+        if (metadata == null) {
+            synchronized (this) {
+                metadata = processingMetadata;
+                if (metadata == null) {
+                    metadata = new ConcurrentHashMap<>();
+                    processingMetadata = metadata;
+                }
+            }
+        }
+        metadata.put(key, value);
+    }
+
+    @Override
+    public Object getProcessingMetadata(String key) {
+        Map<String, Object> metadata = processingMetadata;
+        return metadata != null ? metadata.get(key) : null;
+    }
+
+    @Override
+    public AutoCloseable createSpan(String operationName) {
+        long start = System.nanoTime();
+        return () -> log.debug("{} of message {} on {} took {} us", operationName, getMessageId(), getDestination(),
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    }
+
+    @Override
+    public void log(String level, String message, Object... args) {
+        switch (level != null ? level.toUpperCase(Locale.ROOT) : "INFO") {
+            case "TRACE" -> log.trace(message, args);
+            case "DEBUG" -> log.debug(message, args);
+            case "WARN" -> log.warn(message, args);
+            case "ERROR" -> log.error(message, args);
+            default -> log.info(message, args);
+        }
+    }
+}
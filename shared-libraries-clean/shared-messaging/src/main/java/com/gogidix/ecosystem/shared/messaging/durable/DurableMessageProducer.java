@@ -0,0 +1,187 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link MessageProducer} backed by a {@link DurableBroker}.
+ * <p>
+ * Persistent messages, the default, are on disk when the send completes; concurrent senders share the
+ * disk flushes, so their throughput grows with their number. Non-persistent messages are written to the
+ * log too but complete without waiting for the disk, so a crash may lose the last of them.
+ * Fire-and-forget messages are sent at most once and never wait; all other messages are sent at least
+ * once. Delayed messages are held in memory until due. Priority is not supported.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+public class DurableMessageProducer implements MessageProducer {
+
+    private final DurableBroker broker;
+
+    public DurableMessageProducer(DurableBroker broker) {
+        this.broker = broker;
+    }
+
+    @Override
+    public void send(String destination, Object message) {
+        SendOptions options = SendOptions.to(destination).withBody(message);
+        broker.send(destination, record(options), isDurable(options));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAsync(String destination, Object message) {
+        return send(SendOptions.to(destination).withBody(message));
+    }
+
+    @Override
+    public void send(String destination, Object message, Map<String, Object> headers) {
+        SendOptions options = SendOptions.to(destination).withBody(message).setHeaders(headers);
+        broker.send(destination, record(options), isDurable(options));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAsync(String destination, Object message, Map<String, Object> headers) {
+        return send(SendOptions.to(destination).withBody(message).setHeaders(headers));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> send(SendOptions options) {
+        try {
+            LogRecord record = record(options);
+            long delayMs = delayOf(options);
+            if (delayMs > 0) {
+                return broker.sendLater(options.getDestination(), record, isDurable(options), delayMs)
+                        .thenApply(SendResult.class::cast);
+            }
+            return CompletableFuture.completedFuture(broker.send(options.getDestination(), record,
+                    isDurable(options)));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Sends messages to one destination with a single wait for the disk.
+     */
+    @Override
+    public CompletableFuture<BatchSendResult> sendBatch(String destination, Object... messages) {
+        try {
+            List<LogRecord> records = new ArrayList<>(messages.length);
+            for (Object message : messages) {
+                records.add(record(SendOptions.to(destination).withBody(message)));
+            }
+            return CompletableFuture.completedFuture(new DurableSendResult.Batch(
+                    broker.sendBatch(destination, records, true)));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendToPartition(String destination, String partitionKey, Object message) {
+        return send(SendOptions.to(destination).withBody(message).withPartition(partitionKey));
+    }
+
+    @Override
+    public <T> T sendAndReceive(String destination, Object request, Class<T> responseType, long timeoutMs) {
+        try {
+            return sendAndReceiveAsync(destination, request, responseType, timeoutMs).get();
+        } catch (ExecutionException e) {
+            throw asMessagingException(e.getCause(), destination);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for a reply", destination, null,
+                    MessagingException.ErrorCode.TIMEOUT, e);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> sendAndReceiveAsync(String destination, Object request, Class<T> responseType,
+                                                        long timeoutMs) {
+        String correlationId = broker.nextMessageId();
+        CompletableFuture<LogRecord> reply = broker.expectReply(correlationId);
+        send(SendOptions.to(destination)
+                .withBody(request)
+                .setCorrelationId(correlationId)
+                .requestReply(broker.getReplyAddress()))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        reply.completeExceptionally(error);
+                    }
+                });
+        return reply.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((record, error) -> {
+                    if (error != null) {
+                        throw asMessagingException(error, destination);
+                    }
+                    return DurableSubscription.convert(record, responseType);
+                });
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendDelayed(String destination, Object message, long delayMs) {
+        return send(SendOptions.to(destination).withBody(message).withDelay(delayMs));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> scheduleMessage(String destination, Object message,
+                                                         LocalDateTime scheduledTime) {
+        return send(SendOptions.to(destination).withBody(message).scheduled(scheduledTime));
+    }
+
+    private LogRecord record(SendOptions options) {
+        if (options.getDestination() == null) {
+            throw new MessagingException("No destination given", null, MessagingException.ErrorCode.INVALID_MESSAGE);
+        }
+        long ttlMs = options.getTtlMs();
+        long expiresAt = ttlMs > 0 ? System.currentTimeMillis() + delayOf(options) + ttlMs : 0;
+        DeliveryMode deliveryMode = options.getMessageType() == SendOptions.MessageType.FIRE_AND_FORGET
+                ? DeliveryMode.AT_MOST_ONCE : DeliveryMode.AT_LEAST_ONCE;
+        return LogRecord.builder()
+                .messageId(broker.nextMessageId())
+                .key(options.getPartitionKey() != null ? options.getPartitionKey() : options.getRoutingKey())
+                .payload(options.getMessage())
+                .headers(LogRecord.copyHeaders(options.getHeaders()))
+                .correlationId(options.getCorrelationId())
+                .replyTo(options.getReplyTo())
+                .deliveryMode(deliveryMode)
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    private static boolean isDurable(SendOptions options) {
+        return options.isPersistent() && options.getMessageType() != SendOptions.MessageType.FIRE_AND_FORGET;
+    }
+
+    private static long delayOf(SendOptions options) {
+        if (options.getScheduledTime() != null) {
+            return Math.max(0, Duration.between(LocalDateTime.now(), options.getScheduledTime()).toMillis());
+        }
+        return Math.max(0, options.getDelayMs());
+    }
+
+    private static MessagingException asMessagingException(Throwable error, String destination) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof MessagingException messagingException) {
+            return messagingException;
+        }
+        if (cause instanceof TimeoutException) {
+            return new MessagingException("No reply received in time", destination, null,
+                    MessagingException.ErrorCode.TIMEOUT, cause);
+        }
+        return new MessagingException("Request failed", destination, null, MessagingException.ErrorCode.UNKNOWN_ERROR,
+                cause);
+    }
+}
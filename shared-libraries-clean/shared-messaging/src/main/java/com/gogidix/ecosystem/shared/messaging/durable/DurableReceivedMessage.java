@@ -0,0 +1,49 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.MessageContext;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.ReceivedMessage;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Message returned by polling the durable log.
+ *
+ * @param <T> Payload type
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class DurableReceivedMessage<T> implements ReceivedMessage<T> {
+
+    private final T payload;
+    private final DurableMessageContext context;
+
+    DurableReceivedMessage(T payload, DurableMessageContext context) {
+        this.payload = payload;
+        this.context = context;
+    }
+
+    @Override
+    public T getPayload() { return payload; }
+
+    @Override
+    public MessageContext getContext() { return context; }
+
+    @Override
+    public String getMessageId() { return context.getMessageId(); }
+
+    @Override
+    public Map<String, Object> getHeaders() { return context.getHeaders(); }
+
+    @Override
+    public LocalDateTime getReceivedAt() { return context.getReceivedAt(); }
+
+    @Override
+    public void acknowledge() { context.acknowledge(); }
+
+    @Override
+    public void reject() { context.reject(); }
+
+    @Override
+    public void reject(boolean requeue) { context.reject(requeue); }
+}
@@ -0,0 +1,112 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.BatchSendResult;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.SendResult;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of appending a message to the durable log. A message that could not be appended fails the
+ * send with an exception instead of producing a result.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class DurableSendResult implements SendResult {
+
+    /**
+     * Metadata key set to true when an exactly-once message was dropped as a duplicate.
+     */
+    static final String DUPLICATE = "duplicate";
+
+    private final String messageId;
+    private final String destination;
+    private final Integer partition;
+    private final Long offset;
+    private final LogRecord record;
+    private final Map<String, Object> metadata;
+
+    private DurableSendResult(String messageId, String destination, LogRecord record,
+                              Map<String, Object> metadata) {
+        this.messageId = messageId;
+        this.destination = destination;
+        this.partition = record != null ? record.getPartition() : null;
+        this.offset = record != null ? record.getOffset() : null;
+        this.record = record;
+        this.metadata = metadata;
+    }
+
+    static DurableSendResult success(LogRecord record) {
+        return new DurableSendResult(record.getMessageId(), record.getDestination(), record,
+                Collections.emptyMap());
+    }
+
+    /**
+     * Result of an exactly-once message that was not appended because its id was appended before.
+     */
+    static DurableSendResult duplicate(String destination, LogRecord record) {
+        return new DurableSendResult(record.getMessageId(), destination, null, Map.of(DUPLICATE, true));
+    }
+
+    @Override
+    public String getMessageId() { return messageId; }
+
+    @Override
+    public String getDestination() { return destination; }
+
+    @Override
+    public Integer getPartition() { return partition; }
+
+    @Override
+    public Long getOffset() { return offset; }
+
+    @Override
+    public LocalDateTime getSentAt() { return record != null ? record.getSentAt() : null; }
+
+    @Override
+    public boolean isSuccessful() { return true; }
+
+    @Override
+    public String getErrorMessage() { return null; }
+
+    @Override
+    public Throwable getError() { return null; }
+
+    @Override
+    public Map<String, Object> getMetadata() { return metadata; }
+
+    /**
+     * Result of sending a batch of messages.
+     */
+    static final class Batch implements BatchSendResult {
+
+        private final List<SendResult> results;
+        private final List<SendResult> failedResults;
+
+        Batch(List<? extends SendResult> results) {
+            this.results = Collections.unmodifiableList(results);
+            this.failedResults = this.results.stream().filter(result -> !result.isSuccessful()).toList();
+        }
+
+        @Override
+        public int getTotalMessages() { return results.size(); }
+
+        @Override
+        public int getSuccessfulMessages() { return results.size() - failedResults.size(); }
+
+        @Override
+        public int getFailedMessages() { return failedResults.size(); }
+
+        @Override
+        public List<SendResult> getResults() { return results; }
+
+        @Override
+        public boolean isAllSuccessful() { return failedResults.isEmpty(); }
+
+        @Override
+        public List<SendResult> getFailedResults() { return failedResults; }
+    }
+}
@@ -0,0 +1,539 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.ConsumerOptions;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.MessageHandler;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.StatisticsListener;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.Subscription;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Subscription of a handler to a consumer group of the durable log.
+ * <p>
+ * Each worker thread repeatedly takes a partition nobody else is reading, reads a batch of records from
+ * the group position on and hands them to the handler, so partitions are processed in parallel and
+ * records within a partition in order. There are never more workers than partitions.
+ * <p>
+ * With automatic acknowledgment the prefetch count is the batch size, and the group offset is committed
+ * after every batch. With manual acknowledgment the prefetch count limits the records that were delivered
+ * but not yet acknowledged, and the group offset is committed up to the oldest of those; records still
+ * unacknowledged when the subscription stops are read again. Offsets are committed to disk right away
+ * when the batch held an exactly-once record, and with the next checkpoint otherwise.
+ * <p>
+ * A failing handler is called again after the retry delay while the partition waits, which keeps the order,
+ * until its retries are used up and the record goes to the dead letter queue, if any. A record requeued
+ * after its handler returned rewinds the partition, so it is read again together with the records after it.
+ *
+ * @param <T> Message type
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+final class DurableSubscription<T> implements Subscription, DurableMessageContext.Settlement {
+
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long STOP_TIMEOUT_MS = 5000;
+    private static final SpelExpressionParser FILTER_PARSER = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, DurableSubscription.class.getClassLoader()));
+
+    private final String id = UUID.randomUUID().toString();
+    private final DurableBroker broker;
+    private final SegmentLog segmentLog;
+    private final GroupCursor cursor;
+    private final MessageHandler<T> handler;
+    private final Class<T> messageType;
+    private final boolean autoAcknowledge;
+    private final int batchSize;
+    private final int maxRetries;
+    private final long retryDelayMs;
+    private final String deadLetterQueue;
+    private final Expression filter;
+    private final Thread[] workers;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<DurableMessageContext, Boolean> unacknowledged = new ConcurrentHashMap<>();
+    private final AtomicLong remaining;
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder errored = new LongAdder();
+    private final List<StatisticsListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile boolean running = true;
+    private volatile boolean paused;
+
+    /**
+     * Creates a subscription; {@link #start()} starts consuming.
+     *
+     * @param broker Broker
+     * @param cursor Position of the consumer group to consume with
+     * @param options Consumer options
+     * @param handler Message handler
+     * @param messageType Expected message type
+     * @param autoAcknowledge Whether messages are acknowledged when their handler returns
+     * @param messageLimit Number of messages after which the subscription stops itself
+     */
+    DurableSubscription(DurableBroker broker, GroupCursor cursor, ConsumerOptions options, MessageHandler<T> handler,
+                        Class<T> messageType, boolean autoAcknowledge, long messageLimit) {
+        this.broker = broker;
+        this.segmentLog = broker.getSegmentLog();
+        this.cursor = cursor;
+        this.handler = handler;
+        this.messageType = messageType;
+        this.autoAcknowledge = autoAcknowledge;
+        this.batchSize = Math.max(1, options.getPrefetchCount());
+        this.maxRetries = Math.max(0, options.getMaxRetries());
+        this.retryDelayMs = Math.max(0, options.getRetryDelayMs());
+        this.deadLetterQueue = options.getDeadLetterQueue();
+        this.filter = options.getFilterExpression() != null && !options.getFilterExpression().isBlank()
+                ? FILTER_PARSER.parseExpression(options.getFilterExpression()) : null;
+        this.remaining = new AtomicLong(messageLimit);
+        int workerCount = options.isConcurrent()
+                ? Math.max(1, Math.min(options.getMaxConcurrency(), cursor.getPartitionCount())) : 1;
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            int index = i;
+            workers[i] = new Thread(() -> runWorker(index),
+                    "durable-" + cursor.getDestination() + "-" + cursor.getGroup() + "-" + i);
+            workers[i].setDaemon(true);
+        }
+    }
+
+    void start() {
+        broker.register(this);
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Converts a payload to the expected type.
+     *
+     * @throws MessagingException with {@code INVALID_MESSAGE} if the payload has another type
+     */
+    static <T> T convert(LogRecord record, Class<T> messageType) {
+        Object payload = record.getPayload();
+        if (payload == null || messageType.isInstance(payload)) {
+            return messageType.cast(payload);
+        }
+        throw new MessagingException("Expected " + messageType.getName() + " but received "
+                + payload.getClass().getName(), record.getDestination(), record.getMessageId(),
+                MessagingException.ErrorCode.INVALID_MESSAGE);
+    }
+
+    private void runWorker(int index) {
+        int partitionCount = cursor.getPartitionCount();
+        int next = index % partitionCount;
+        while (running) {
+            if (paused) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+                continue;
+            }
+            int limit = (int) Math.min(autoAcknowledge ? batchSize : batchSize - inFlight.get(),
+                    Math.max(1, remaining.get()));
+            if (limit <= 0) {
+                // Every credit is taken by an unacknowledged record; an acknowledgment wakes the worker
+                LockSupport.parkNanos(this, IDLE_NANOS);
+                continue;
+            }
+            int consumed = 0;
+            try {
+                for (int i = 0; i < partitionCount && consumed == 0 && running; i++) {
+                    int partition = next;
+                    next = (next + 1) % partitionCount;
+                    if (cursor.getPosition(partition) >= segmentLog.getLogEndOffset(cursor.getDestination(), partition)
+                            || !cursor.tryAcquire(partition)) {
+                        continue;
+                    }
+                    try {
+                        consumed = consume(partition, limit);
+                    } finally {
+                        cursor.release(partition);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("Subscription {} failed while consuming from {}", id, cursor.getDestination(), e);
+            }
+            if (consumed == 0) {
+                segmentLog.awaitRecords(cursor.getDestination(), cursor::getPosition, IDLE_NANOS);
+            } else if (remaining.addAndGet(-consumed) <= 0) {
+                stop();
+            }
+        }
+    }
+
+    /**
+     * Delivers a batch of one partition and moves the group position past the records that were handled.
+     *
+     * @return Number of records consumed
+     */
+    private int consume(int partition, int limit) {
+        String destination = cursor.getDestination();
+        long position = cursor.getPosition(partition);
+        long start = segmentLog.getLogStartOffset(destination, partition);
+        if (position < start) {
+            log.warn("Group {} lost records {} to {} of {}-{} to retention", cursor.getGroup(), position, start - 1,
+                    destination, partition);
+            cursor.advance(partition, position, start);
+            position = cursor.getPosition(partition);
+        }
+        List<LogRecord> records = segmentLog.read(destination, partition, position, limit);
+        long next = position;
+        boolean exactlyOnce = false;
+        int consumed = 0;
+        for (LogRecord record : records) {
+            if (!running || !deliver(record)) {
+                break;
+            }
+            exactlyOnce |= record.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE;
+            next = record.getOffset() + 1;
+            consumed++;
+        }
+        if (next != position) {
+            // Records acknowledged during the batch could not be committed past the old position
+            cursor.advance(partition, position, next);
+            segmentLog.commitOffset(destination, cursor.getGroup(), partition, cursor.committableOffset(partition),
+                    exactlyOnce);
+        }
+        return consumed;
+    }
+
+    /**
+     * Hands a record to the handler, retrying in place until it succeeds or its retries are used up.
+     *
+     * @return false if the subscription stopped before the record was handled, so it must be read again
+     */
+    private boolean deliver(LogRecord record) {
+        int partition = record.getPartition();
+        if (record.getExpiresAt() != 0 && record.isExpired(System.currentTimeMillis())
+                || record.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE
+                && cursor.getProcessedIds().contains(record.getMessageId())
+                || filter != null && !matches(record)) {
+            cursor.takeAttempt(partition, record.getOffset());
+            return true;
+        }
+        T message;
+        try {
+            message = convert(record, messageType);
+        } catch (MessagingException e) {
+            recordError(e);
+            deadLetter(record, 1, e);
+            return true;
+        }
+        boolean atMostOnce = record.getDeliveryMode() == DeliveryMode.AT_MOST_ONCE;
+        int attempt = cursor.takeAttempt(partition, record.getOffset());
+        if (!autoAcknowledge) {
+            cursor.delivered(partition, record.getOffset());
+        }
+        while (true) {
+            DurableMessageContext context = new DurableMessageContext(broker, record, cursor.getGroup(), attempt, this);
+            if (!autoAcknowledge) {
+                inFlight.incrementAndGet();
+                unacknowledged.put(context, Boolean.TRUE);
+            }
+            if (atMostOnce) {
+                // Acknowledged before handling, so a failing handler never causes a second delivery
+                context.acknowledge();
+            }
+            Exception failure = null;
+            context.setHandling(true);
+            try {
+                handler.handle(message, context);
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                context.setHandling(false);
+            }
+            if (failure == null && !context.isRequeued()) {
+                if (autoAcknowledge) {
+                    context.acknowledge();
+                }
+                return true;
+            }
+            if (failure != null) {
+                recordError(failure);
+            }
+            if (context.isSettled() && !context.isRequeued()) {
+                // Acknowledged or rejected by the handler itself before it failed
+                return true;
+            }
+            // The handler failed or requeued the record: the attempt is over either way
+            release(context);
+            if (attempt >= maxRetries) {
+                deadLetter(record, attempt + 1, failure);
+                settle(partition, record);
+                return true;
+            }
+            attempt++;
+            if (!pause(retryDelayMs)) {
+                cursor.setAttempt(partition, record.getOffset(), attempt);
+                return false;
+            }
+        }
+    }
+
+    private boolean matches(LogRecord record) {
+        try {
+            SimpleEvaluationContext context = SimpleEvaluationContext.forReadOnlyDataBinding()
+                    .withRootObject(record.getPayload())
+                    .build();
+            context.setVariable("headers", record.getHeaders() != null ? record.getHeaders() : Map.of());
+            return Boolean.TRUE.equals(filter.getValue(context, Boolean.class));
+        } catch (RuntimeException e) {
+            log.warn("Filter of subscription {} failed on message {}, skipping it", id, record.getMessageId(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Waits before a retry.
+     *
+     * @return false if the subscription stopped meanwhile
+     */
+    private boolean pause(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long left;
+        while (running && (left = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, left);
+        }
+        return running;
+    }
+
+    @Override
+    public void acknowledged(DurableMessageContext context) {
+        LogRecord record = context.getRecord();
+        if (record.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE) {
+            cursor.getProcessedIds().add(record.getMessageId());
+        }
+        if (release(context)) {
+            settle(record.getPartition(), record);
+        }
+        processed.increment();
+        if (!listeners.isEmpty()) {
+            long total = processed.sum();
+            notifyListeners(listener -> listener.onMessageProcessed(id, total));
+        }
+    }
+
+    @Override
+    public void rejected(DurableMessageContext context, boolean requeue) {
+        LogRecord record = context.getRecord();
+        if (context.isHandling() && requeue && record.getDeliveryMode() != DeliveryMode.AT_MOST_ONCE) {
+            // Retried in place by the worker once the handler returns
+            return;
+        }
+        recordError(new MessagingException("Message rejected", record.getDestination(), record.getMessageId(),
+                MessagingException.ErrorCode.INVALID_MESSAGE));
+        if (!release(context)) {
+            if (!requeue && record.getDeliveryMode() != DeliveryMode.AT_MOST_ONCE) {
+                deadLetter(record, context.getRetryAttempt() + 1, null);
+            }
+            return;
+        }
+        int partition = record.getPartition();
+        if (requeue && context.getRetryAttempt() < maxRetries
+                && record.getDeliveryMode() != DeliveryMode.AT_MOST_ONCE) {
+            // Rewound before the record is settled, so the committed offset never passes it
+            cursor.setAttempt(partition, record.getOffset(), context.getRetryAttempt() + 1);
+            cursor.rewind(partition, record.getOffset());
+            cursor.settled(partition, record.getOffset());
+            return;
+        }
+        if (record.getDeliveryMode() != DeliveryMode.AT_MOST_ONCE) {
+            deadLetter(record, context.getRetryAttempt() + 1, null);
+        }
+        settle(partition, record);
+    }
+
+    /**
+     * Returns the prefetch credit of a delivered record.
+     *
+     * @return true if the record was awaiting a manual acknowledgment
+     */
+    private boolean release(DurableMessageContext context) {
+        if (autoAcknowledge || unacknowledged.remove(context) == null) {
+            return false;
+        }
+        inFlight.decrementAndGet();
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        return true;
+    }
+
+    /**
+     * Commits past a record that was acknowledged manually, or given up on.
+     */
+    private void settle(int partition, LogRecord record) {
+        if (autoAcknowledge) {
+            return;
+        }
+        long committable = cursor.settled(partition, record.getOffset());
+        segmentLog.commitOffset(cursor.getDestination(), cursor.getGroup(), partition, committable,
+                record.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE);
+    }
+
+    private void recordError(Throwable error) {
+        errored.increment();
+        notifyListeners(listener -> listener.onMessageErrored(id, error));
+    }
+
+    private void deadLetter(LogRecord record, int attempts, Throwable cause) {
+        if (deadLetterQueue == null || deadLetterQueue.isBlank()) {
+            log.warn("Dropping message {} from {} after {} attempts", record.getMessageId(), record.getDestination(),
+                    attempts, cause);
+            return;
+        }
+        Map<String, Object> headers = new HashMap<>(record.getHeaders() != null ? record.getHeaders() : Map.of());
+        headers.put("x-original-destination", record.getDestination());
+        headers.put("x-original-message-id", record.getMessageId());
+        headers.put("x-original-partition", record.getPartition());
+        headers.put("x-original-offset", record.getOffset());
+        headers.put("x-delivery-attempts", attempts);
+        if (cause != null) {
+            headers.put("x-exception", cause.getClass().getName() + ": " + cause.getMessage());
+        }
+        try {
+            broker.send(deadLetterQueue, LogRecord.builder()
+                    .messageId(broker.nextMessageId())
+                    .key(record.getKey())
+                    .payload(record.getPayload())
+                    .headers(headers)
+                    .correlationId(record.getCorrelationId())
+                    .deliveryMode(DeliveryMode.AT_LEAST_ONCE)
+                    .build(), true);
+        } catch (MessagingException e) {
+            log.error("Failed to dead-letter message {} to {}", record.getMessageId(), deadLetterQueue, e);
+        }
+    }
+
+    private void notifyListeners(Consumer<StatisticsListener> notification) {
+        for (StatisticsListener listener : listeners) {
+            try {
+                notification.accept(listener);
+            } catch (RuntimeException e) {
+                log.warn("Statistics listener of subscription {} failed", id, e);
+            }
+        }
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getDestination() {
+        return cursor.getDestination();
+    }
+
+    @Override
+    public boolean isActive() {
+        return running && !paused;
+    }
+
+    @Override
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    @Override
+    public long getMessagesProcessed() {
+        return processed.sum();
+    }
+
+    @Override
+    public long getMessagesErrored() {
+        return errored.sum();
+    }
+
+    @Override
+    public void pause() {
+        if (running && !paused) {
+            paused = true;
+            notifyListeners(listener -> listener.onSubscriptionPaused(id));
+        }
+    }
+
+    @Override
+    public void resume() {
+        if (running && paused) {
+            paused = false;
+            for (Thread worker : workers) {
+                LockSupport.unpark(worker);
+            }
+            notifyListeners(listener -> listener.onSubscriptionResumed(id));
+        }
+    }
+
+    /**
+     * Stops consuming, waits for the workers to finish their current record and rewinds the group to the
+     * records that were never acknowledged, so they are read again.
+     */
+    @Override
+    public void stop() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        running = false;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        for (Thread worker : workers) {
+            if (worker != Thread.currentThread()) {
+                try {
+                    worker.join(STOP_TIMEOUT_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        for (DurableMessageContext context : unacknowledged.keySet()) {
+            LogRecord record = context.getRecord();
+            if (unacknowledged.remove(context) != null) {
+                cursor.rewind(record.getPartition(), record.getOffset());
+                cursor.settled(record.getPartition(), record.getOffset());
+            }
+        }
+        inFlight.set(0);
+        broker.unregister(this);
+        segmentLog.wakeUp(cursor.getDestination());
+        notifyListeners(listener -> listener.onSubscriptionStopped(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> stopAsync() {
+        return CompletableFuture.runAsync(this::stop);
+    }
+
+    @Override
+    public void addStatisticsListener(StatisticsListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeStatisticsListener(StatisticsListener listener) {
+        listeners.remove(listener);
+    }
+}
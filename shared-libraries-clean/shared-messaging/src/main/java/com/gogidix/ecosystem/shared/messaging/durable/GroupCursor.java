@@ -0,0 +1,143 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.support.RecentIds;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read position of a consumer group on a destination, shared by all subscriptions and pollers of the group.
+ * <p>
+ * Per partition the cursor holds the next offset to read, an ownership flag so that one thread at a time
+ * reads the partition, and the offsets that were delivered but not yet acknowledged. The offset committed
+ * for the group is the lowest of those, or the read position if everything was acknowledged, so no
+ * unacknowledged record is skipped after a restart however the acknowledgments are ordered.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class GroupCursor {
+
+    private static final int FREE = 0;
+    private static final int TAKEN = 1;
+
+    private final String destination;
+    private final String group;
+    private final AtomicIntegerArray owners;
+    private final AtomicLongArray positions;
+    private final NavigableSet<Long>[] unacknowledged;
+    private final Map<Long, Integer>[] attempts;
+    private final RecentIds processedIds;
+
+    @SuppressWarnings("unchecked")
+    GroupCursor(String destination, String group, long[] startOffsets, int deduplicationWindow) {
+        this.destination = destination;
+        this.group = group;
+        this.owners = new AtomicIntegerArray(startOffsets.length);
+        this.positions = new AtomicLongArray(startOffsets);
+        this.unacknowledged = new NavigableSet[startOffsets.length];
+        this.attempts = new Map[startOffsets.length];
+        for (int i = 0; i < startOffsets.length; i++) {
+            unacknowledged[i] = new ConcurrentSkipListSet<>();
+            attempts[i] = new ConcurrentHashMap<>();
+        }
+        this.processedIds = new RecentIds(deduplicationWindow);
+    }
+
+    String getDestination() {
+        return destination;
+    }
+
+    String getGroup() {
+        return group;
+    }
+
+    int getPartitionCount() {
+        return positions.length();
+    }
+
+    /**
+     * Takes ownership of a partition.
+     *
+     * @return true if no other thread owns the partition
+     */
+    boolean tryAcquire(int partition) {
+        return owners.get(partition) == FREE && owners.compareAndSet(partition, FREE, TAKEN);
+    }
+
+    void release(int partition) {
+        owners.set(partition, FREE);
+    }
+
+    long getPosition(int partition) {
+        return positions.get(partition);
+    }
+
+    /**
+     * Moves the read position forward after a batch, unless it was rewound while the batch was processed.
+     */
+    void advance(int partition, long expected, long next) {
+        positions.compareAndSet(partition, expected, next);
+    }
+
+    /**
+     * Rewinds the read position so that the record at the offset is read again, along with all later ones.
+     */
+    void rewind(int partition, long offset) {
+        positions.accumulateAndGet(partition, offset, Math::min);
+    }
+
+    /**
+     * Remembers that a record was delivered and awaits acknowledgment; called before the read position
+     * moves past it.
+     */
+    void delivered(int partition, long offset) {
+        unacknowledged[partition].add(offset);
+    }
+
+    /**
+     * Forgets a delivered record once it is settled.
+     *
+     * @return Offset the group can commit on the partition
+     */
+    long settled(int partition, long offset) {
+        unacknowledged[partition].remove(offset);
+        return committableOffset(partition);
+    }
+
+    /**
+     * Offset below which every record of the partition was settled. The position is read first: a record
+     * delivered after that read is at or above it, and one delivered before is in the unacknowledged set.
+     */
+    long committableOffset(int partition) {
+        long position = positions.get(partition);
+        Long lowest = unacknowledged[partition].ceiling(Long.MIN_VALUE);
+        return lowest != null ? Math.min(lowest, position) : position;
+    }
+
+    /**
+     * Records the delivery attempt a record is due for when it is read again after being requeued.
+     */
+    void setAttempt(int partition, long offset, int attempt) {
+        attempts[partition].put(offset, attempt);
+    }
+
+    /**
+     * Takes the delivery attempt recorded for a record, 0 if it was never requeued.
+     */
+    int takeAttempt(int partition, long offset) {
+        if (attempts[partition].isEmpty()) {
+            return 0;
+        }
+        Integer attempt = attempts[partition].remove(offset);
+        return attempt != null ? attempt : 0;
+    }
+
+    RecentIds getProcessedIds() {
+        return processedIds;
+    }
+}
@@ -0,0 +1,68 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Message as stored in a {@link SegmentLog}.
+ * Records are built by the sender without destination, partition and offset; the log fills those in
+ * when it appends the record.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Getter
+@Builder(toBuilder = true)
+public final class LogRecord {
+
+    private final String destination;
+    private final int partition;
+    private final long offset;
+
+    /**
+     * Append time in epoch milliseconds; retention compares it against the retention period.
+     */
+    private final long timestamp;
+
+    private final String messageId;
+
+    /**
+     * Key choosing the partition, or null to spread records over all partitions.
+     */
+    private final String key;
+
+    private final String correlationId;
+    private final String replyTo;
+    private final DeliveryMode deliveryMode;
+    private final Map<String, Object> headers;
+    private final Object payload;
+
+    /**
+     * Epoch millisecond after which the record is discarded instead of delivered, or 0 if it never expires.
+     */
+    private final long expiresAt;
+
+    /**
+     * Copies headers so that later changes by the sender do not reach the log.
+     */
+    static Map<String, Object> copyHeaders(Map<String, Object> headers) {
+        return headers == null || headers.isEmpty()
+                ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(headers));
+    }
+
+    public LocalDateTime getSentAt() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAt != 0 && nowMillis > expiresAt;
+    }
+}
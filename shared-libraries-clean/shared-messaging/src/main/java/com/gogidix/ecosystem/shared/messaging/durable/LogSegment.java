@@ -0,0 +1,290 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One file of a partition log, named after the offset of its first record and mapped into memory.
+ * <p>
+ * The active segment is mapped at its full capacity and appended to by copying frames into the
+ * mapping; a sealed segment is cut to the bytes written and mapped read-only. Readers see every
+ * record below the published size, which is written after the record itself. Records are only
+ * guaranteed to be on disk after {@link #flush()}.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+final class LogSegment implements Closeable {
+
+    static final String SUFFIX = ".log";
+
+    /**
+     * Receives the frames of a segment while it is read.
+     */
+    interface FrameVisitor {
+
+        /**
+         * @param segment Segment contents, to be read with absolute gets only
+         * @param position Start of the frame
+         * @return Whether to continue with the next frame
+         */
+        boolean visit(ByteBuffer segment, int position);
+    }
+
+    private final long baseOffset;
+    private final Path logPath;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final OffsetIndex index;
+    private final int indexIntervalBytes;
+    private volatile int size;
+    private volatile long nextOffset;
+    private volatile long maxTimestamp;
+    private int flushedSize;
+    private int bytesSinceIndexEntry;
+    private volatile boolean sealed;
+
+    private LogSegment(long baseOffset, Path logPath, FileChannel channel, MappedByteBuffer buffer, OffsetIndex index,
+                       int indexIntervalBytes, boolean sealed) {
+        this.baseOffset = baseOffset;
+        this.logPath = logPath;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.index = index;
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.sealed = sealed;
+    }
+
+    static String fileName(long baseOffset, String suffix) {
+        return String.format("%020d%s", baseOffset, suffix);
+    }
+
+    /**
+     * Creates an empty active segment.
+     */
+    static LogSegment create(Path directory, long baseOffset, int capacity, int indexIntervalBytes) throws IOException {
+        Path logPath = directory.resolve(fileName(baseOffset, SUFFIX));
+        FileChannel channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            OffsetIndex index = OffsetIndex.create(directory.resolve(fileName(baseOffset, OffsetIndex.SUFFIX)),
+                    baseOffset, capacity / indexIntervalBytes + 1);
+            LogSegment segment = new LogSegment(baseOffset, logPath, channel,
+                    channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity), index, indexIntervalBytes, false);
+            segment.nextOffset = baseOffset;
+            return segment;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reopens the last segment of a partition for appending. Its records are checked one by one and
+     * the file is cut after the last intact one, dropping a record that was torn by a crash; the index
+     * is rebuilt on the way.
+     */
+    static LogSegment recover(Path directory, long baseOffset, int capacity, int indexIntervalBytes)
+            throws IOException {
+        Path logPath = directory.resolve(fileName(baseOffset, SUFFIX));
+        FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long fileSize = channel.size();
+            MappedByteBuffer existing = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(fileSize, Integer.MAX_VALUE));
+            int limit = existing.capacity();
+            int position = 0;
+            long offset = baseOffset;
+            long timestamp = 0;
+            int length;
+            while ((length = RecordCodec.validate(existing, position, limit, offset)) > 0) {
+                timestamp = RecordCodec.timestampOf(existing, position);
+                position += length;
+                offset++;
+            }
+            if (limit - position >= 4 && existing.getInt(position) != 0) {
+                log.warn("Truncating {} at byte {} after {} intact records", logPath, position, offset - baseOffset);
+            }
+            // Cutting the file drops anything behind the last intact record, so it can never be read as a record later
+            channel.truncate(position);
+            OffsetIndex index = OffsetIndex.create(directory.resolve(fileName(baseOffset, OffsetIndex.SUFFIX)),
+                    baseOffset, Math.max(capacity, position) / indexIntervalBytes + 1);
+            LogSegment segment = new LogSegment(baseOffset, logPath, channel,
+                    channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, position)), index,
+                    indexIntervalBytes, false);
+            segment.rebuildIndex(position);
+            segment.size = position;
+            segment.flushedSize = position;
+            segment.nextOffset = offset;
+            segment.maxTimestamp = timestamp;
+            return segment;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a sealed segment, trusting its contents since they were written to disk when it was sealed.
+     * The index is rebuilt if it is missing or damaged.
+     *
+     * @param nextBaseOffset Base offset of the following segment, which is the end of this one
+     */
+    static LogSegment openSealed(Path directory, long baseOffset, long nextBaseOffset, int indexIntervalBytes)
+            throws IOException {
+        Path logPath = directory.resolve(fileName(baseOffset, SUFFIX));
+        Path indexPath = directory.resolve(fileName(baseOffset, OffsetIndex.SUFFIX));
+        FileChannel channel = FileChannel.open(logPath, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int size = buffer.capacity();
+            OffsetIndex index = OffsetIndex.openSealed(indexPath, baseOffset, size);
+            boolean rebuild = index == null;
+            if (rebuild) {
+                log.info("Rebuilding index {}", indexPath);
+                index = OffsetIndex.create(indexPath, baseOffset, size / indexIntervalBytes + 1);
+            }
+            LogSegment segment = new LogSegment(baseOffset, logPath, channel, buffer, index, indexIntervalBytes, true);
+            if (rebuild) {
+                segment.rebuildIndex(size);
+                index.seal();
+            }
+            segment.size = size;
+            segment.flushedSize = size;
+            segment.nextOffset = nextBaseOffset;
+            segment.maxTimestamp = segment.lastTimestamp();
+            return segment;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void rebuildIndex(int limit) {
+        int position = 0;
+        int sinceEntry = 0;
+        while (position < limit) {
+            if (sinceEntry >= indexIntervalBytes) {
+                index.append(RecordCodec.offsetOf(buffer, position), position);
+                sinceEntry = 0;
+            }
+            int length = RecordCodec.frameLength(buffer, position);
+            position += length;
+            sinceEntry += length;
+        }
+        bytesSinceIndexEntry = sinceEntry;
+    }
+
+    private long lastTimestamp() {
+        int position = index.lastPosition();
+        long timestamp = 0;
+        while (position < size) {
+            timestamp = RecordCodec.timestampOf(buffer, position);
+            position += RecordCodec.frameLength(buffer, position);
+        }
+        return timestamp;
+    }
+
+    long getBaseOffset() {
+        return baseOffset;
+    }
+
+    long getNextOffset() {
+        return nextOffset;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    boolean hasRoomFor(int length) {
+        return !sealed && (long) size + length <= buffer.capacity();
+    }
+
+    /**
+     * Appends a frame; the caller holds the partition lock and has checked {@link #hasRoomFor(int)}.
+     */
+    void append(byte[] frame, long offset, long timestamp) {
+        int position = size;
+        if (bytesSinceIndexEntry >= indexIntervalBytes) {
+            index.append(offset, position);
+            bytesSinceIndexEntry = 0;
+        }
+        buffer.put(position, frame);
+        buffer.putLong(position + RecordCodec.OFFSET_POSITION, offset);
+        bytesSinceIndexEntry += frame.length;
+        maxTimestamp = timestamp;
+        nextOffset = offset + 1;
+        size = position + frame.length;
+    }
+
+    /**
+     * Visits the frames from an offset on.
+     *
+     * @return Whether the end of the segment was reached without the visitor stopping
+     */
+    boolean read(long fromOffset, FrameVisitor visitor) {
+        int limit = size;
+        int position = fromOffset > baseOffset ? index.lookup(fromOffset) : 0;
+        while (position < limit) {
+            if (RecordCodec.offsetOf(buffer, position) >= fromOffset && !visitor.visit(buffer, position)) {
+                return false;
+            }
+            position += RecordCodec.frameLength(buffer, position);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the records appended since the last flush to disk.
+     */
+    synchronized void flush() {
+        int target = size;
+        if (target > flushedSize) {
+            buffer.force(flushedSize, target - flushedSize);
+            flushedSize = target;
+        }
+    }
+
+    /**
+     * Flushes the segment and cuts its files to their contents; nothing can be appended afterwards.
+     */
+    synchronized void seal() throws IOException {
+        flush();
+        index.seal();
+        channel.truncate(size);
+        sealed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            index.close();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Deletes the files of the segment. Readers still holding the segment can finish, since the mapping
+     * stays valid until it is garbage collected.
+     */
+    void delete() throws IOException {
+        close();
+        index.delete();
+        Files.deleteIfExists(logPath);
+    }
+}
@@ -0,0 +1,86 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * File holding the committed offsets of all consumer groups of a log.
+ * <p>
+ * The file is a version line followed by one line per group and partition. It is replaced as a whole:
+ * the offsets are written to a temporary file, which is forced to disk and then renamed over the
+ * previous checkpoint, so a crash leaves either the old or the new offsets but never a mix.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class OffsetCheckpoint {
+
+    static final String FILE_NAME = "consumer-offsets.checkpoint";
+
+    private static final String VERSION = "1";
+
+    /**
+     * Partition of a destination as consumed by one group.
+     */
+    record Key(String destination, String group, int partition) { }
+
+    private final Path path;
+    private final Path temporaryPath;
+
+    OffsetCheckpoint(Path directory) {
+        this.path = directory.resolve(FILE_NAME);
+        this.temporaryPath = directory.resolve(FILE_NAME + ".tmp");
+    }
+
+    Map<Key, Long> read() throws IOException {
+        Map<Key, Long> offsets = new HashMap<>();
+        if (!Files.exists(path)) {
+            return offsets;
+        }
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !VERSION.equals(lines.get(0))) {
+            throw new IOException("Unsupported checkpoint version in " + path);
+        }
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(" ");
+            if (fields.length != 4) {
+                throw new IOException("Malformed checkpoint line in " + path + ": " + line);
+            }
+            offsets.put(new Key(URLDecoder.decode(fields[0], StandardCharsets.UTF_8),
+                    URLDecoder.decode(fields[1], StandardCharsets.UTF_8), Integer.parseInt(fields[2])),
+                    Long.parseLong(fields[3]));
+        }
+        return offsets;
+    }
+
+    void write(Map<Key, Long> offsets) throws IOException {
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            writer.write(VERSION);
+            writer.newLine();
+            for (Map.Entry<Key, Long> entry : offsets.entrySet()) {
+                Key key = entry.getKey();
+                writer.write(URLEncoder.encode(key.destination(), StandardCharsets.UTF_8) + ' '
+                        + URLEncoder.encode(key.group(), StandardCharsets.UTF_8) + ' '
+                        + key.partition() + ' ' + entry.getValue());
+                writer.newLine();
+            }
+            writer.flush();
+            channel.force(true);
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
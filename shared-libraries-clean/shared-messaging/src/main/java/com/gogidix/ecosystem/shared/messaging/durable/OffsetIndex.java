@@ -0,0 +1,142 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sparse offset index of a segment, mapped into memory.
+ * Every entry holds an offset relative to the segment base and the file position of that record,
+ * one entry per index interval of log bytes, so a seek reads at most one interval of the log.
+ * The index of the active segment is mapped at its maximum size and cut to its entries when the
+ * segment is sealed.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class OffsetIndex implements Closeable {
+
+    static final String SUFFIX = ".index";
+
+    private static final int ENTRY_LENGTH = 8;
+
+    private final Path path;
+    private final long baseOffset;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private volatile int entries;
+
+    private OffsetIndex(Path path, long baseOffset, FileChannel channel, MappedByteBuffer buffer, int entries) {
+        this.path = path;
+        this.baseOffset = baseOffset;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity() / ENTRY_LENGTH;
+        this.entries = entries;
+    }
+
+    /**
+     * Creates an empty index for appending, replacing any existing file.
+     */
+    static OffsetIndex create(Path path, long baseOffset, int maxEntries) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new OffsetIndex(path, baseOffset, channel,
+                    channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) maxEntries * ENTRY_LENGTH), 0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the index of a sealed segment.
+     *
+     * @param logSize Size of the segment file
+     * @return The index, or null if it is missing or does not match the segment
+     */
+    static OffsetIndex openSealed(Path path, long baseOffset, long logSize) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) % ENTRY_LENGTH != 0) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int entries = buffer.capacity() / ENTRY_LENGTH;
+            if (entries > 0 && buffer.getInt((entries - 1) * ENTRY_LENGTH + 4) >= logSize) {
+                channel.close();
+                return null;
+            }
+            return new OffsetIndex(path, baseOffset, channel, buffer, entries);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds an entry; called with increasing offsets only, and ignored once the index is full.
+     */
+    void append(long offset, int position) {
+        int count = entries;
+        if (count < capacity) {
+            buffer.putInt(count * ENTRY_LENGTH, (int) (offset - baseOffset));
+            buffer.putInt(count * ENTRY_LENGTH + 4, position);
+            entries = count + 1;
+        }
+    }
+
+    /**
+     * Finds where to start scanning for an offset.
+     *
+     * @return Position of the last indexed record at or before the offset, or 0 if there is none
+     */
+    int lookup(long offset) {
+        long relative = offset - baseOffset;
+        int low = 0;
+        int high = entries - 1;
+        int position = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getInt(middle * ENTRY_LENGTH) <= relative) {
+                position = buffer.getInt(middle * ENTRY_LENGTH + 4);
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Position of the last entry, or 0 if the index is empty.
+     */
+    int lastPosition() {
+        int count = entries;
+        return count > 0 ? buffer.getInt((count - 1) * ENTRY_LENGTH + 4) : 0;
+    }
+
+    /**
+     * Writes the entries to disk and cuts the file to them.
+     */
+    void seal() throws IOException {
+        buffer.force();
+        channel.truncate((long) entries * ENTRY_LENGTH);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
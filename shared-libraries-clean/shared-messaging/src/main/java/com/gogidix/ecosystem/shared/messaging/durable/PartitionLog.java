@@ -0,0 +1,257 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of one partition of a destination: a directory of segments, of which only the
+ * last one is appended to. A new segment is started when a record does not fit into the active one,
+ * and whole segments are deleted once they fall out of retention.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+final class PartitionLog {
+
+    private final String destination;
+    private final int partition;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int indexIntervalBytes;
+    private final ConcurrentNavigableMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private volatile LogSegment active;
+    private volatile long logEndOffset;
+    private volatile long durableOffset;
+
+    private PartitionLog(String destination, int partition, Path directory, int segmentBytes,
+                         int indexIntervalBytes) {
+        this.destination = destination;
+        this.partition = partition;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.indexIntervalBytes = indexIntervalBytes;
+    }
+
+    /**
+     * Opens the log in a directory, recovering the segments found there or starting an empty log.
+     */
+    static PartitionLog open(String destination, int partition, Path directory, int segmentBytes,
+                             int indexIntervalBytes) throws IOException {
+        Files.createDirectories(directory);
+        PartitionLog partitionLog = new PartitionLog(destination, partition, directory, segmentBytes,
+                indexIntervalBytes);
+        List<Long> baseOffsets;
+        try (Stream<Path> files = Files.list(directory)) {
+            baseOffsets = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(LogSegment.SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - LogSegment.SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        try {
+            for (int i = 0; i < baseOffsets.size() - 1; i++) {
+                partitionLog.segments.put(baseOffsets.get(i), LogSegment.openSealed(directory, baseOffsets.get(i),
+                        baseOffsets.get(i + 1), indexIntervalBytes));
+            }
+            LogSegment active = baseOffsets.isEmpty()
+                    ? LogSegment.create(directory, 0, segmentBytes, indexIntervalBytes)
+                    : LogSegment.recover(directory, baseOffsets.get(baseOffsets.size() - 1), segmentBytes,
+                    indexIntervalBytes);
+            partitionLog.segments.put(active.getBaseOffset(), active);
+            partitionLog.active = active;
+            partitionLog.logEndOffset = active.getNextOffset();
+            partitionLog.durableOffset = partitionLog.logEndOffset;
+        } catch (IOException | RuntimeException e) {
+            partitionLog.close();
+            throw e;
+        }
+        return partitionLog;
+    }
+
+    String getDestination() {
+        return destination;
+    }
+
+    int getPartition() {
+        return partition;
+    }
+
+    long getLogStartOffset() {
+        return segments.firstKey();
+    }
+
+    long getLogEndOffset() {
+        return logEndOffset;
+    }
+
+    /**
+     * Offset up to which records are known to be on disk.
+     */
+    long getDurableOffset() {
+        return durableOffset;
+    }
+
+    long getSizeInBytes() {
+        long bytes = 0;
+        for (LogSegment segment : segments.values()) {
+            bytes += segment.getSize();
+        }
+        return bytes;
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Appends encoded frames as consecutive records.
+     *
+     * @return Offset of the first frame
+     */
+    synchronized long append(List<byte[]> frames, long timestamp) {
+        long first = logEndOffset;
+        long offset = first;
+        for (byte[] frame : frames) {
+            if (!active.hasRoomFor(frame.length)) {
+                roll(offset);
+            }
+            active.append(frame, offset, timestamp);
+            offset++;
+            // Published per record, so readers see a batch as soon as its first record is written
+            logEndOffset = offset;
+        }
+        return first;
+    }
+
+    private void roll(long nextOffset) {
+        try {
+            active.seal();
+            LogSegment next = LogSegment.create(directory, nextOffset, segmentBytes, indexIntervalBytes);
+            segments.put(nextOffset, next);
+            active = next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll segment of " + destination + "-" + partition, e);
+        }
+    }
+
+    /**
+     * Visits the frames from an offset on, continuing into later segments. Reading below the log start
+     * offset starts at the first record still present.
+     */
+    void read(long fromOffset, LogSegment.FrameVisitor visitor) {
+        Map.Entry<Long, LogSegment> floor = segments.floorEntry(fromOffset);
+        Iterator<LogSegment> iterator = (floor != null ? segments.tailMap(floor.getKey(), true) : segments)
+                .values().iterator();
+        while (iterator.hasNext()) {
+            if (!iterator.next().read(fromOffset, visitor)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads and decodes up to a number of records from an offset on. A record whose payload cannot be
+     * decoded, for example because its class is gone, is returned as an expired record without payload,
+     * so consumers skip it instead of being stuck on it.
+     */
+    List<LogRecord> read(long fromOffset, int maxRecords, RecordCodec codec) {
+        List<LogRecord> records = new ArrayList<>(Math.min(maxRecords, 256));
+        if (maxRecords <= 0 || fromOffset >= logEndOffset) {
+            return records;
+        }
+        read(fromOffset, (segment, position) -> {
+            try {
+                records.add(codec.decode(segment, position, destination, partition));
+            } catch (MessagingException e) {
+                long offset = RecordCodec.offsetOf(segment, position);
+                log.error("Skipping undecodable record {} of {}-{}", offset, destination, partition, e);
+                records.add(LogRecord.builder()
+                        .destination(destination)
+                        .partition(partition)
+                        .offset(offset)
+                        .timestamp(RecordCodec.timestampOf(segment, position))
+                        .messageId(RecordCodec.messageIdOf(segment, position))
+                        .deliveryMode(RecordCodec.deliveryModeOf(segment, position))
+                        .expiresAt(1)
+                        .build());
+            }
+            return records.size() < maxRecords;
+        });
+        return records;
+    }
+
+    /**
+     * Writes everything appended so far to disk. Sealed segments were flushed when they were sealed,
+     * so only the active segment needs it.
+     *
+     * @return Whether anything had to be written
+     */
+    boolean flush() {
+        long end = logEndOffset;
+        if (end == durableOffset) {
+            return false;
+        }
+        active.flush();
+        durableOffset = end;
+        return true;
+    }
+
+    /**
+     * Deletes the oldest sealed segments while their newest record is older than the retention period
+     * or the log is larger than the retention size. The active segment is never deleted.
+     *
+     * @param minTimestamp Records appended before this epoch millisecond are out of retention, or 0 to keep them
+     * @param retentionBytes Size the log may have, or a negative value for no limit
+     * @return Number of deleted segments
+     */
+    int deleteExpiredSegments(long minTimestamp, long retentionBytes) {
+        int deleted = 0;
+        long size = retentionBytes >= 0 ? getSizeInBytes() : 0;
+        while (true) {
+            Map.Entry<Long, LogSegment> first = segments.firstEntry();
+            LogSegment segment = first.getValue();
+            if (segment == active) {
+                return deleted;
+            }
+            boolean expired = segment.getMaxTimestamp() < minTimestamp;
+            boolean oversized = retentionBytes >= 0 && size - segment.getSize() >= retentionBytes;
+            if (!expired && !oversized) {
+                return deleted;
+            }
+            segments.remove(first.getKey());
+            size -= segment.getSize();
+            try {
+                segment.delete();
+                deleted++;
+            } catch (IOException e) {
+                log.warn("Failed to delete segment {} of {}-{}", first.getKey(), destination, partition, e);
+            }
+        }
+    }
+
+    void close() {
+        for (LogSegment segment : segments.values()) {
+            try {
+                if (segment == active) {
+                    segment.flush();
+                }
+                segment.close();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to close segment {} of {}-{}", segment.getBaseOffset(), destination, partition, e);
+            }
+        }
+    }
+}
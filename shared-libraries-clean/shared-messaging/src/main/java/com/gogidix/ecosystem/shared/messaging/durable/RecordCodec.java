@@ -0,0 +1,238 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary layout of a record in a segment file.
+ * <pre>
+ *  0  int   size of the rest of the frame
+ *  4  long  offset
+ * 12  int   CRC32C of everything from byte 16 on
+ * 16  long  timestamp
+ * 24  long  expiry, or 0
+ * 32  byte  delivery mode
+ * 33  body: message id, key, correlation id, reply-to, headers, payload type and payload
+ * </pre>
+ * The offset is left out of the checksum, so a frame is encoded and checksummed before the log
+ * assigns its offset, outside of the partition lock. Strings are length-prefixed UTF-8, headers and
+ * payloads are JSON written with the configured object mapper, and the payload is read back as the
+ * class it was written from.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class RecordCodec {
+
+    static final int OFFSET_POSITION = 4;
+    static final int HEADER_LENGTH = 33;
+
+    private static final int CRC_POSITION = 12;
+    private static final int CHECKED_POSITION = 16;
+    private static final DeliveryMode[] DELIVERY_MODES = DeliveryMode.values();
+    private static final TypeReference<Map<String, Object>> HEADERS_TYPE = new TypeReference<>() { };
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, Class<?>> payloadTypes = new ConcurrentHashMap<>();
+
+    RecordCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Encodes a record into a frame whose offset is still 0.
+     *
+     * @throws MessagingException with {@code SERIALIZATION_FAILED} if the headers or payload cannot be written
+     */
+    byte[] encode(LogRecord record, long timestamp) {
+        Frame frame = new Frame(256);
+        frame.position = HEADER_LENGTH;
+        frame.putString(record.getMessageId());
+        frame.putString(record.getKey());
+        frame.putString(record.getCorrelationId());
+        frame.putString(record.getReplyTo());
+        Object payload = record.getPayload();
+        try {
+            Map<String, Object> headers = record.getHeaders();
+            frame.putBytes(headers == null || headers.isEmpty() ? null : objectMapper.writeValueAsBytes(headers));
+            frame.putString(payload != null ? payload.getClass().getName() : null);
+            frame.putBytes(payload != null ? objectMapper.writeValueAsBytes(payload) : null);
+        } catch (IOException e) {
+            throw new MessagingException("Failed to serialize message", record.getDestination(),
+                    record.getMessageId(), MessagingException.ErrorCode.SERIALIZATION_FAILED, e);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(frame.bytes, 0, frame.position);
+        buffer.putInt(0, frame.position - OFFSET_POSITION);
+        buffer.putLong(CHECKED_POSITION, timestamp);
+        buffer.putLong(CHECKED_POSITION + 8, record.getExpiresAt());
+        DeliveryMode deliveryMode = record.getDeliveryMode() != null
+                ? record.getDeliveryMode() : DeliveryMode.AT_LEAST_ONCE;
+        buffer.put(CHECKED_POSITION + 16, (byte) deliveryMode.ordinal());
+        CRC32C crc = new CRC32C();
+        crc.update(frame.bytes, CHECKED_POSITION, frame.position - CHECKED_POSITION);
+        buffer.putInt(CRC_POSITION, (int) crc.getValue());
+        return frame.position == frame.bytes.length ? frame.bytes : Arrays.copyOf(frame.bytes, frame.position);
+    }
+
+    /**
+     * Checks the frame at a position of a segment.
+     *
+     * @param buffer Segment contents
+     * @param position Start of the frame
+     * @param limit End of the readable contents
+     * @param expectedOffset Offset the frame must carry
+     * @return Length of the frame, or -1 if there is no intact frame with that offset at the position
+     */
+    static int validate(ByteBuffer buffer, int position, int limit, long expectedOffset) {
+        if (limit - position < HEADER_LENGTH) {
+            return -1;
+        }
+        int size = buffer.getInt(position);
+        if (size < HEADER_LENGTH - OFFSET_POSITION || size > limit - position - OFFSET_POSITION
+                || buffer.getLong(position + OFFSET_POSITION) != expectedOffset) {
+            return -1;
+        }
+        int length = size + OFFSET_POSITION;
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(position + CHECKED_POSITION, length - CHECKED_POSITION));
+        return (int) crc.getValue() == buffer.getInt(position + CRC_POSITION) ? length : -1;
+    }
+
+    static int frameLength(ByteBuffer buffer, int position) {
+        return buffer.getInt(position) + OFFSET_POSITION;
+    }
+
+    static long offsetOf(ByteBuffer buffer, int position) {
+        return buffer.getLong(position + OFFSET_POSITION);
+    }
+
+    static long timestampOf(ByteBuffer buffer, int position) {
+        return buffer.getLong(position + CHECKED_POSITION);
+    }
+
+    static DeliveryMode deliveryModeOf(ByteBuffer buffer, int position) {
+        return DELIVERY_MODES[buffer.get(position + CHECKED_POSITION + 16)];
+    }
+
+    /**
+     * Reads the message id of a frame without decoding the rest of it.
+     */
+    static String messageIdOf(ByteBuffer buffer, int position) {
+        int length = buffer.getInt(position + HEADER_LENGTH);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + HEADER_LENGTH + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the frame at a position of a segment.
+     *
+     * @throws MessagingException with {@code SERIALIZATION_FAILED} if the headers or payload cannot be read
+     */
+    LogRecord decode(ByteBuffer segment, int position, String destination, int partition) {
+        byte[] bytes = new byte[frameLength(segment, position)];
+        segment.get(position, bytes);
+        ByteBuffer frame = ByteBuffer.wrap(bytes);
+        frame.position(HEADER_LENGTH);
+        String messageId = getString(frame);
+        LogRecord.LogRecordBuilder record = LogRecord.builder()
+                .destination(destination)
+                .partition(partition)
+                .offset(frame.getLong(OFFSET_POSITION))
+                .timestamp(frame.getLong(CHECKED_POSITION))
+                .expiresAt(frame.getLong(CHECKED_POSITION + 8))
+                .deliveryMode(DELIVERY_MODES[frame.get(CHECKED_POSITION + 16)])
+                .messageId(messageId)
+                .key(getString(frame))
+                .correlationId(getString(frame))
+                .replyTo(getString(frame));
+        try {
+            int headersLength = frame.getInt();
+            if (headersLength >= 0) {
+                record.headers(Collections.unmodifiableMap(
+                        objectMapper.readValue(bytes, frame.position(), headersLength, HEADERS_TYPE)));
+                frame.position(frame.position() + headersLength);
+            } else {
+                record.headers(Collections.emptyMap());
+            }
+            String payloadType = getString(frame);
+            int payloadLength = frame.getInt();
+            if (payloadType != null && payloadLength >= 0) {
+                record.payload(objectMapper.readValue(bytes, frame.position(), payloadLength, typeNamed(payloadType)));
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new MessagingException("Failed to deserialize message", destination, messageId,
+                    MessagingException.ErrorCode.SERIALIZATION_FAILED, e);
+        }
+        return record.build();
+    }
+
+    private Class<?> typeNamed(String name) throws ClassNotFoundException {
+        Class<?> type = payloadTypes.get(name);
+        if (type == null) {
+            type = Class.forName(name, false, Thread.currentThread().getContextClassLoader() != null
+                    ? Thread.currentThread().getContextClassLoader() : RecordCodec.class.getClassLoader());
+            payloadTypes.put(name, type);
+        }
+        return type;
+    }
+
+    private static String getString(ByteBuffer frame) {
+        int length = frame.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(frame.array(), frame.position(), length, StandardCharsets.UTF_8);
+        frame.position(frame.position() + length);
+        return value;
+    }
+
+    /**
+     * Growable byte array the body of a frame is written into.
+     */
+    private static final class Frame {
+
+        private byte[] bytes;
+        private int position;
+
+        Frame(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void putString(String value) {
+            putBytes(value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+        }
+
+        void putBytes(byte[] value) {
+            int length = value != null ? value.length : -1;
+            ensureCapacity(4 + Math.max(0, length));
+            ByteBuffer.wrap(bytes).putInt(position, length);
+            position += 4;
+            if (value != null) {
+                System.arraycopy(value, 0, bytes, position, value.length);
+                position += value.length;
+            }
+        }
+
+        private void ensureCapacity(int additional) {
+            if (position + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + additional));
+            }
+        }
+    }
+}
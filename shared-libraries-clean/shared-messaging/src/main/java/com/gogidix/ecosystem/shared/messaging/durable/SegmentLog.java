@@ -0,0 +1,629 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Durable, segmented commit log on local disk, backing {@link DurableMessageProducer},
+ * {@link DurableMessageConsumer} and {@link DurableEventPublisher}.
+ * <p>
+ * Every destination is split into a fixed number of partitions, and every partition is a directory of
+ * memory-mapped segment files, each with a sparse offset index for seeks. Records get consecutive
+ * offsets per partition. Consumer groups keep their own committed offset per partition, stored in a
+ * checkpoint file, so many groups read the same records and resume where they left off after a restart.
+ * <p>
+ * Appends only copy into the mapped segment; a single flusher thread writes to disk. An append that
+ * must be durable asks for a flush and waits for it, and all appends that arrive while a flush is
+ * running are written together by the next one (group commit), so the cost of a disk sync is shared
+ * by every concurrent producer. Other appends and non-durable offset commits are written at the
+ * flush and checkpoint intervals. On startup the last segment of every partition is checked record by
+ * record and cut after the last intact one. Segments are deleted as a whole once their newest record is
+ * older than the retention period, or while a partition exceeds the retention size.
+ * <p>
+ * One directory can be opened by one log at a time; a lock file guards it across processes.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+public final class SegmentLog implements AutoCloseable {
+
+    private static final String LOCK_FILE = ".lock";
+
+    private final Options options;
+    private final Path directory;
+    private final RecordCodec codec;
+    private final OffsetCheckpoint checkpoint;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final ConcurrentMap<String, DestinationLog> destinations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<OffsetCheckpoint.Key, Long> committedOffsets = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushRequested = flushLock.newCondition();
+    private final Condition flushCompleted = flushLock.newCondition();
+    private final Thread flusher;
+    private long startedFlushes;
+    private long completedFlushes;
+    private long failedFlush = -1;
+    private IOException flushFailure;
+    private boolean flushPending;
+    private boolean checkpointPending;
+    private volatile boolean checkpointDirty;
+    private volatile boolean closed;
+
+    private SegmentLog(Options options, FileChannel lockChannel, FileLock lock) {
+        this.options = options;
+        this.directory = options.getDirectory();
+        this.codec = new RecordCodec(options.getObjectMapper() != null ? options.getObjectMapper() : defaultMapper());
+        this.checkpoint = new OffsetCheckpoint(directory);
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+        this.flusher = new Thread(this::runFlusher, "segment-log-flusher-" + directory.getFileName());
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Opens the log in a directory, recovering all destinations and committed offsets found there.
+     *
+     * @throws IOException if the directory cannot be read, or is in use by another log
+     */
+    public static SegmentLog open(Options options) throws IOException {
+        options.validate();
+        Files.createDirectories(options.getDirectory());
+        FileChannel lockChannel = FileChannel.open(options.getDirectory().resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another log of this JVM
+            lock = null;
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Log directory " + options.getDirectory() + " is in use");
+        }
+        SegmentLog segmentLog = new SegmentLog(options, lockChannel, lock);
+        try {
+            segmentLog.recover();
+        } catch (IOException | RuntimeException e) {
+            segmentLog.closeFiles();
+            throw e;
+        }
+        segmentLog.flusher.start();
+        return segmentLog;
+    }
+
+    private static ObjectMapper defaultMapper() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            for (Path entry : entries.filter(Files::isDirectory).toList()) {
+                String name = URLDecoder.decode(entry.getFileName().toString(), StandardCharsets.UTF_8);
+                destinations.put(name, openDestination(name));
+            }
+        }
+        committedOffsets.putAll(checkpoint.read());
+        log.info("Opened segment log {} with {} destinations and {} committed offsets", directory,
+                destinations.size(), committedOffsets.size());
+    }
+
+    private DestinationLog openDestination(String name) throws IOException {
+        Path destinationDirectory = directory.resolve(URLEncoder.encode(name, StandardCharsets.UTF_8));
+        int partitionCount = options.getPartitions();
+        if (Files.isDirectory(destinationDirectory)) {
+            try (Stream<Path> entries = Files.list(destinationDirectory)) {
+                // Keep the partitioning the destination was created with, so keys stay on their partition
+                int existing = (int) entries.filter(Files::isDirectory).count();
+                partitionCount = existing > 0 ? existing : partitionCount;
+            }
+        }
+        PartitionLog[] partitions = new PartitionLog[partitionCount];
+        try {
+            for (int i = 0; i < partitionCount; i++) {
+                partitions[i] = PartitionLog.open(name, i, destinationDirectory.resolve(String.valueOf(i)),
+                        options.getSegmentBytes(), options.getIndexIntervalBytes());
+            }
+        } catch (IOException | RuntimeException e) {
+            for (PartitionLog partition : partitions) {
+                if (partition != null) {
+                    partition.close();
+                }
+            }
+            throw e;
+        }
+        return new DestinationLog(name, partitions, options.getDeduplicationWindow());
+    }
+
+    DestinationLog destination(String name) {
+        DestinationLog destination = destinations.get(name);
+        if (destination != null) {
+            return destination;
+        }
+        ensureOpen(name);
+        return destinations.computeIfAbsent(name, key -> {
+            try {
+                return openDestination(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the names of all destinations in the log.
+     */
+    public Set<String> getDestinations() {
+        return Collections.unmodifiableSet(destinations.keySet());
+    }
+
+    /**
+     * Gets the number of partitions of a destination, creating the destination if needed.
+     */
+    public int getPartitionCount(String destination) {
+        return destination(destination).getPartitionCount();
+    }
+
+    /**
+     * Gets the offset of the oldest record still kept in a partition.
+     */
+    public long getLogStartOffset(String destination, int partition) {
+        return destination(destination).partition(partition).getLogStartOffset();
+    }
+
+    /**
+     * Gets the offset the next record appended to a partition will get.
+     */
+    public long getLogEndOffset(String destination, int partition) {
+        return destination(destination).partition(partition).getLogEndOffset();
+    }
+
+    /**
+     * Gets the number of bytes a destination takes on disk.
+     */
+    public long getSizeInBytes(String destination) {
+        long bytes = 0;
+        for (PartitionLog partition : destination(destination).getPartitions()) {
+            bytes += partition.getSizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Appends a record. An exactly-once record whose message id was appended recently is dropped.
+     *
+     * @param destination Destination name
+     * @param record Record to append; its key chooses the partition
+     * @param durable Whether to wait until the record is on disk
+     * @return The appended record with destination, partition, offset and timestamp, or null if it was a duplicate
+     * @throws MessagingException with {@code MESSAGE_TOO_LARGE} if the record exceeds the maximum message size,
+     *                            or {@code BROKER_ERROR} if it could not be written
+     */
+    public LogRecord append(String destination, LogRecord record, boolean durable) {
+        return appendBatch(destination, List.of(record), durable).get(0);
+    }
+
+    /**
+     * Appends records, writing all records of a partition under one lock and waiting for at most one flush.
+     *
+     * @return The appended records in the given order, with null for dropped duplicates
+     * @see #append(String, LogRecord, boolean)
+     */
+    public List<LogRecord> appendBatch(String destination, List<LogRecord> records, boolean durable) {
+        ensureOpen(destination);
+        DestinationLog target = destination(destination);
+        long timestamp = System.currentTimeMillis();
+        int partitionCount = target.getPartitionCount();
+        int[] partitionOf = new int[records.size()];
+        byte[][] frames = new byte[records.size()][];
+        List<List<byte[]>> framesByPartition = new ArrayList<>(Collections.nCopies(partitionCount, null));
+        for (int i = 0; i < records.size(); i++) {
+            LogRecord record = records.get(i);
+            if (record.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE && record.getMessageId() != null
+                    && !target.markPublished(record.getMessageId())) {
+                partitionOf[i] = -1;
+                continue;
+            }
+            byte[] frame = codec.encode(record, timestamp);
+            if (frame.length > options.getMaxMessageBytes()) {
+                throw new MessagingException("Message of " + frame.length + " bytes exceeds the maximum of "
+                        + options.getMaxMessageBytes(), destination, record.getMessageId(),
+                        MessagingException.ErrorCode.MESSAGE_TOO_LARGE);
+            }
+            int partition = target.partitionFor(record.getKey());
+            partitionOf[i] = partition;
+            frames[i] = frame;
+            if (framesByPartition.get(partition) == null) {
+                framesByPartition.set(partition, new ArrayList<>());
+            }
+            framesByPartition.get(partition).add(frame);
+        }
+        long[] firstOffsets = new long[partitionCount];
+        for (int partition = 0; partition < partitionCount; partition++) {
+            List<byte[]> partitionFrames = framesByPartition.get(partition);
+            if (partitionFrames != null) {
+                try {
+                    firstOffsets[partition] = target.partition(partition).append(partitionFrames, timestamp);
+                } catch (UncheckedIOException e) {
+                    throw new MessagingException("Failed to append to " + destination + "-" + partition,
+                            destination, null, MessagingException.ErrorCode.BROKER_ERROR, e.getCause());
+                }
+            }
+        }
+        target.signal();
+        if (durable) {
+            awaitFlush(destination);
+        }
+        List<LogRecord> appended = new ArrayList<>(records.size());
+        long[] nextOffsets = firstOffsets.clone();
+        for (int i = 0; i < records.size(); i++) {
+            int partition = partitionOf[i];
+            appended.add(partition < 0 ? null : records.get(i).toBuilder()
+                    .destination(destination)
+                    .partition(partition)
+                    .offset(nextOffsets[partition]++)
+                    .timestamp(timestamp)
+                    .build());
+        }
+        return appended;
+    }
+
+    /**
+     * Reads up to a number of records of a partition. Reading from an offset that was already deleted by
+     * retention starts at the oldest record still kept.
+     *
+     * @return Records from the offset on, empty if there are none yet
+     * @throws MessagingException with {@code SERIALIZATION_FAILED} if a payload cannot be read
+     */
+    public List<LogRecord> read(String destination, int partition, long offset, int maxRecords) {
+        return destination(destination).partition(partition).read(offset, maxRecords, codec);
+    }
+
+    /**
+     * Parks the calling thread until records are appended to a destination or the timeout passes.
+     *
+     * @param positions Next offset the caller reads from each partition, so that the call returns right away
+     *                  if records were appended already; null to wait for the next append
+     */
+    public void awaitRecords(String destination, IntToLongFunction positions, long timeoutNanos) {
+        destination(destination).awaitRecords(positions, timeoutNanos);
+    }
+
+    /**
+     * Wakes the threads waiting for records of a destination.
+     */
+    public void wakeUp(String destination) {
+        DestinationLog target = destinations.get(destination);
+        if (target != null) {
+            target.signal();
+        }
+    }
+
+    /**
+     * Gets the committed offset of a consumer group, the offset it continues reading from.
+     *
+     * @return Committed offset, or -1 if the group never committed on this partition
+     */
+    public long getCommittedOffset(String destination, String group, int partition) {
+        Long offset = committedOffsets.get(new OffsetCheckpoint.Key(destination, group, partition));
+        return offset != null ? offset : -1;
+    }
+
+    /**
+     * Commits the offset a consumer group continues reading from after a restart. Offsets only move forward.
+     *
+     * @param durable Whether to wait until the offset is in the checkpoint file; otherwise it is written
+     *                with the next checkpoint
+     */
+    public void commitOffset(String destination, String group, int partition, long offset, boolean durable) {
+        OffsetCheckpoint.Key key = new OffsetCheckpoint.Key(destination, group, partition);
+        Long previous = committedOffsets.get(key);
+        if (previous == null || previous < offset) {
+            committedOffsets.merge(key, offset, Math::max);
+            checkpointDirty = true;
+        }
+        if (durable && checkpointDirty) {
+            flushLock.lock();
+            try {
+                checkpointPending = true;
+            } finally {
+                flushLock.unlock();
+            }
+            awaitFlush(destination);
+        }
+    }
+
+    /**
+     * Writes all appended records and committed offsets to disk and waits until they are there.
+     *
+     * @throws MessagingException with {@code BROKER_ERROR} if writing failed
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            checkpointPending = true;
+        } finally {
+            flushLock.unlock();
+        }
+        awaitFlush(null);
+    }
+
+    /**
+     * Waits for a flush that starts after the call, which covers everything appended before it.
+     */
+    private void awaitFlush(String destination) {
+        flushLock.lock();
+        try {
+            long target = startedFlushes + 1;
+            flushPending = true;
+            flushRequested.signal();
+            while (completedFlushes < target) {
+                if (closed) {
+                    throw new MessagingException("Log closed", destination, MessagingException.ErrorCode.BROKER_ERROR);
+                }
+                flushCompleted.awaitUninterruptibly();
+            }
+            if (failedFlush >= target) {
+                throw new MessagingException("Failed to write to disk", destination, null,
+                        MessagingException.ErrorCode.BROKER_ERROR, flushFailure);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void runFlusher() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(options.getFlushIntervalMs());
+        long checkpointIntervalNanos = TimeUnit.MILLISECONDS.toNanos(options.getCheckpointIntervalMs());
+        long retentionCheckIntervalNanos = TimeUnit.MILLISECONDS.toNanos(options.getRetentionCheckIntervalMs());
+        long now = System.nanoTime();
+        long nextFlush = now + flushIntervalNanos;
+        long nextCheckpoint = now + checkpointIntervalNanos;
+        long nextRetentionCheck = now + retentionCheckIntervalNanos;
+        boolean running = true;
+        while (running) {
+            long flush;
+            boolean writeCheckpoint;
+            flushLock.lock();
+            try {
+                long deadline = Math.min(nextFlush, Math.min(nextCheckpoint, nextRetentionCheck));
+                long wait;
+                while (!flushPending && !closed && (wait = deadline - System.nanoTime()) > 0) {
+                    flushRequested.awaitNanos(wait);
+                }
+                running = !closed;
+                now = System.nanoTime();
+                writeCheckpoint = checkpointPending || !running || now - nextCheckpoint >= 0;
+                flush = ++startedFlushes;
+                flushPending = false;
+                checkpointPending = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                flushLock.unlock();
+            }
+
+            IOException failure = null;
+            try {
+                flushPartitions();
+                if (writeCheckpoint && checkpointDirty) {
+                    checkpointDirty = false;
+                    checkpoint.write(new HashMap<>(committedOffsets));
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (UncheckedIOException e) {
+                failure = e.getCause();
+            } catch (RuntimeException e) {
+                failure = new IOException(e);
+            }
+            if (failure != null) {
+                checkpointDirty = true;
+                log.error("Failed to flush segment log {}", directory, failure);
+            }
+            flushLock.lock();
+            try {
+                completedFlushes = flush;
+                if (failure != null) {
+                    failedFlush = flush;
+                    flushFailure = failure;
+                }
+                flushCompleted.signalAll();
+            } finally {
+                flushLock.unlock();
+            }
+
+            now = System.nanoTime();
+            if (now - nextFlush >= 0) {
+                nextFlush = now + flushIntervalNanos;
+            }
+            if (writeCheckpoint) {
+                nextCheckpoint = now + checkpointIntervalNanos;
+            }
+            if (running && now - nextRetentionCheck >= 0) {
+                applyRetention();
+                nextRetentionCheck = System.nanoTime() + retentionCheckIntervalNanos;
+            }
+        }
+    }
+
+    private void flushPartitions() {
+        for (DestinationLog destination : destinations.values()) {
+            for (PartitionLog partition : destination.getPartitions()) {
+                partition.flush();
+            }
+        }
+    }
+
+    /**
+     * Deletes the segments that fell out of retention in all partitions. Runs periodically on the flusher thread.
+     *
+     * @return Number of deleted segments
+     */
+    public int applyRetention() {
+        long retentionMs = options.getRetentionMs();
+        long minTimestamp = retentionMs > 0 ? System.currentTimeMillis() - retentionMs : 0;
+        int deleted = 0;
+        for (DestinationLog destination : destinations.values()) {
+            for (PartitionLog partition : destination.getPartitions()) {
+                deleted += partition.deleteExpiredSegments(minTimestamp, options.getRetentionBytes());
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} segments of {} that fell out of retention", deleted, directory);
+        }
+        return deleted;
+    }
+
+    private void ensureOpen(String destination) {
+        if (closed) {
+            throw new MessagingException("Log closed", destination, MessagingException.ErrorCode.BROKER_ERROR);
+        }
+    }
+
+    /**
+     * Writes everything to disk, stops the flusher and closes all files.
+     */
+    @Override
+    public void close() {
+        flushLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushRequested.signal();
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            // The flusher makes one last pass, writing all records and the checkpoint
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeFiles();
+    }
+
+    private void closeFiles() {
+        for (DestinationLog destination : destinations.values()) {
+            for (PartitionLog partition : destination.getPartitions()) {
+                partition.close();
+            }
+        }
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Failed to release the lock of {}", directory, e);
+        }
+    }
+
+    /**
+     * Options of a segment log.
+     */
+    public static class Options {
+        private Path directory;
+        private int partitions = 4;
+        private int segmentBytes = 64 * 1024 * 1024;
+        private int indexIntervalBytes = 4096;
+        private int maxMessageBytes = 1024 * 1024;
+        private long flushIntervalMs = 1000;
+        private long checkpointIntervalMs = 1000;
+        private long retentionMs = TimeUnit.DAYS.toMillis(7);
+        private long retentionBytes = -1;
+        private long retentionCheckIntervalMs = 60000;
+        private int deduplicationWindow = 65536;
+        private ObjectMapper objectMapper;
+
+        // Builder pattern
+        public static Options in(Path directory) {
+            return new Options().setDirectory(directory);
+        }
+
+        void validate() {
+            if (directory == null) {
+                throw new IllegalArgumentException("directory must be set");
+            }
+            if (partitions < 1) {
+                throw new IllegalArgumentException("partitions must be at least 1");
+            }
+            if (indexIntervalBytes < 1 || segmentBytes < indexIntervalBytes) {
+                throw new IllegalArgumentException(
+                        "indexIntervalBytes must be positive and segmentBytes at least indexIntervalBytes");
+            }
+            if (maxMessageBytes < RecordCodec.HEADER_LENGTH || maxMessageBytes > segmentBytes) {
+                throw new IllegalArgumentException("maxMessageBytes must fit into a segment");
+            }
+            if (flushIntervalMs < 1 || checkpointIntervalMs < 1 || retentionCheckIntervalMs < 1) {
+                throw new IllegalArgumentException("Intervals must be at least 1 ms");
+            }
+        }
+
+        // Getters and setters with fluent interface
+        public Path getDirectory() { return directory; }
+        public Options setDirectory(Path directory) { this.directory = directory; return this; }
+        public int getPartitions() { return partitions; }
+        public Options setPartitions(int partitions) { this.partitions = partitions; return this; }
+        public int getSegmentBytes() { return segmentBytes; }
+        public Options setSegmentBytes(int segmentBytes) { this.segmentBytes = segmentBytes; return this; }
+        public int getIndexIntervalBytes() { return indexIntervalBytes; }
+        public Options setIndexIntervalBytes(int indexIntervalBytes) { this.indexIntervalBytes = indexIntervalBytes; return this; }
+        public int getMaxMessageBytes() { return maxMessageBytes; }
+        public Options setMaxMessageBytes(int maxMessageBytes) { this.maxMessageBytes = maxMessageBytes; return this; }
+        public long getFlushIntervalMs() { return flushIntervalMs; }
+        public Options setFlushIntervalMs(long flushIntervalMs) { this.flushIntervalMs = flushIntervalMs; return this; }
+        public long getCheckpointIntervalMs() { return checkpointIntervalMs; }
+        public Options setCheckpointIntervalMs(long checkpointIntervalMs) { this.checkpointIntervalMs = checkpointIntervalMs; return this; }
+        public long getRetentionMs() { return retentionMs; }
+        public Options setRetentionMs(long retentionMs) { this.retentionMs = retentionMs; return this; }
+        public long getRetentionBytes() { return retentionBytes; }
+        public Options setRetentionBytes(long retentionBytes) { this.retentionBytes = retentionBytes; return this; }
+        public long getRetentionCheckIntervalMs() { return retentionCheckIntervalMs; }
+        public Options setRetentionCheckIntervalMs(long retentionCheckIntervalMs) { this.retentionCheckIntervalMs = retentionCheckIntervalMs; return this; }
+        public int getDeduplicationWindow() { return deduplicationWindow; }
+        public Options setDeduplicationWindow(int deduplicationWindow) { this.deduplicationWindow = deduplicationWindow; return this; }
+        public ObjectMapper getObjectMapper() { return objectMapper; }
+        public Options setObjectMapper(ObjectMapper objectMapper) { this.objectMapper = objectMapper; return this; }
+    }
+}
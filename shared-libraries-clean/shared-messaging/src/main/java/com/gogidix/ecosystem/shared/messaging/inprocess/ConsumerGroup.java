@@ -0,0 +1,169 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.support.RecentIds;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Consumer group of a destination. Every group receives every message sent to the destination,
+ * and the consumers within a group share its messages.
+ * <p>
+ * The group holds one ring buffer per partition. A consumer takes exclusive ownership of a
+ * partition while it processes a batch from it, so messages of one partition are handled in
+ * order within the group, while different partitions are processed concurrently.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class ConsumerGroup {
+
+    private final String name;
+    private final String destination;
+    private final boolean defaultGroup;
+    private final MessageRing<Envelope>[] partitions;
+    private final AtomicIntegerArray owners;
+    private final AtomicInteger consumers = new AtomicInteger();
+    private final Set<Thread> waiters = ConcurrentHashMap.newKeySet();
+    private final RecentIds processedIds;
+    private final LongAdder dropped = new LongAdder();
+    private final long pollerSessionNanos;
+    private volatile long lastPollNanos;
+
+    @SuppressWarnings("unchecked")
+    ConsumerGroup(String name, String destination, int partitionCount, int ringCapacity,
+                  int deduplicationWindow, long pollerSessionNanos) {
+        this.name = name;
+        this.destination = destination;
+        this.defaultGroup = InProcessBroker.DEFAULT_GROUP.equals(name);
+        this.partitions = new MessageRing[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new MessageRing<>(ringCapacity);
+        }
+        this.owners = new AtomicIntegerArray(partitionCount);
+        this.processedIds = new RecentIds(deduplicationWindow);
+        this.pollerSessionNanos = pollerSessionNanos;
+        this.lastPollNanos = System.nanoTime() - pollerSessionNanos;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Indicates whether this is the group shared by subscribers and pollers that name no group.
+     */
+    boolean isDefaultGroup() {
+        return defaultGroup;
+    }
+
+    int getPartitionCount() {
+        return partitions.length;
+    }
+
+    MessageRing<Envelope> partition(int partition) {
+        return partitions[partition];
+    }
+
+    /**
+     * Takes exclusive ownership of a partition for processing, without waiting.
+     */
+    boolean tryAcquire(int partition) {
+        return owners.get(partition) == 0 && owners.compareAndSet(partition, 0, 1);
+    }
+
+    void release(int partition) {
+        owners.set(partition, 0);
+    }
+
+    boolean offer(Envelope envelope) {
+        return partitions[envelope.getPartition()].offer(envelope);
+    }
+
+    boolean hasMessages() {
+        for (MessageRing<Envelope> partition : partitions) {
+            if (!partition.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long getDepth() {
+        long depth = 0;
+        for (MessageRing<Envelope> partition : partitions) {
+            depth += partition.size();
+        }
+        return depth;
+    }
+
+    void attach() {
+        consumers.incrementAndGet();
+    }
+
+    void detach() {
+        consumers.decrementAndGet();
+    }
+
+    /**
+     * Records that a poller read from the group, which keeps the group live for the poller session.
+     */
+    void touch() {
+        lastPollNanos = System.nanoTime();
+    }
+
+    /**
+     * Indicates whether someone consumes from the group. Only live groups hold back producers
+     * when full; a group nobody consumes from drops overflowing messages instead.
+     */
+    boolean isLive() {
+        return consumers.get() > 0 || System.nanoTime() - lastPollNanos < pollerSessionNanos;
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    RecentIds getProcessedIds() {
+        return processedIds;
+    }
+
+    /**
+     * Parks the calling consumer until a message arrives or the timeout elapses.
+     */
+    void awaitMessages(long timeoutNanos) {
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            // Re-check after registering, so a signal between the check and the park is not lost
+            if (!hasMessages()) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            waiters.remove(current);
+        }
+    }
+
+    /**
+     * Wakes the parked consumers after messages were added.
+     */
+    void signal() {
+        if (!waiters.isEmpty()) {
+            for (Thread waiter : waiters) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.support.RecentIds;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Topic or queue of the in-process broker, divided into a fixed number of partitions.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class Destination {
+
+    private static final ConsumerGroup[] NO_GROUPS = new ConsumerGroup[0];
+
+    private final String name;
+    private final int partitionCount;
+    private final AtomicLongArray offsets;
+    private final ConcurrentMap<String, ConsumerGroup> groups = new ConcurrentHashMap<>();
+    private final RecentIds publishedIds;
+
+    /**
+     * Snapshot of the groups, replaced whenever a group is added, so that sending never iterates the map.
+     */
+    private volatile ConsumerGroup[] groupSnapshot = NO_GROUPS;
+
+    Destination(String name, int partitionCount, int deduplicationWindow) {
+        this.name = name;
+        this.partitionCount = partitionCount;
+        this.offsets = new AtomicLongArray(partitionCount);
+        this.publishedIds = new RecentIds(deduplicationWindow);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Chooses the partition of a message. Messages with the same key always go to the same partition;
+     * messages without a key stay on one partition per sending thread, which keeps their order.
+     */
+    int partitionFor(String partitionKey) {
+        int hash = partitionKey != null ? partitionKey.hashCode() : Long.hashCode(Thread.currentThread().getId());
+        // Spread the bits so that similar keys do not cluster
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, partitionCount);
+    }
+
+    long nextOffset(int partition) {
+        return offsets.getAndIncrement(partition);
+    }
+
+    ConsumerGroup[] getGroups() {
+        return groupSnapshot;
+    }
+
+    ConsumerGroup getGroup(String groupName) {
+        return groups.get(groupName);
+    }
+
+    /**
+     * Gets a group, creating it if needed.
+     *
+     * @param groupName Group name
+     * @param factory Creates the group if it does not exist
+     * @return The existing or created group
+     */
+    synchronized ConsumerGroup getOrCreateGroup(String groupName, Function<String, ConsumerGroup> factory) {
+        ConsumerGroup group = groups.get(groupName);
+        if (group == null) {
+            group = factory.apply(groupName);
+            groups.put(groupName, group);
+            groupSnapshot = groups.values().toArray(NO_GROUPS);
+        }
+        return group;
+    }
+
+    /**
+     * Records a message id for exactly-once sending.
+     *
+     * @return true if the id was not sent recently
+     */
+    boolean markPublished(String messageId) {
+        return publishedIds.add(messageId);
+    }
+}
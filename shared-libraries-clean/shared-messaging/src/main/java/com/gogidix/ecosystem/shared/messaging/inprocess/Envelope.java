@@ -0,0 +1,74 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable message as held by the in-process broker.
+ * The payload is passed by reference, so every consumer group receives the same envelope
+ * and payloads should be treated as read-only by handlers.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Getter
+@Builder(toBuilder = true)
+final class Envelope {
+
+    private final String messageId;
+    private final String destination;
+    private final int partition;
+    private final long offset;
+    private final Object payload;
+    private final Map<String, Object> headers;
+    private final String correlationId;
+    private final String replyTo;
+
+    /**
+     * Send time in epoch milliseconds, converted only when asked for so that sending never builds a date.
+     */
+    private final long sentAtMillis;
+
+    private final DeliveryMode deliveryMode;
+
+    /**
+     * Number of the delivery attempt, starting at 0.
+     */
+    private final int attempt;
+
+    /**
+     * Nano time after which the message is discarded, or 0 if it never expires.
+     */
+    private final long expiresAtNanos;
+
+    /**
+     * Copies headers so that later changes by the sender do not reach consumers.
+     */
+    static Map<String, Object> copyHeaders(Map<String, Object> headers) {
+        return headers == null || headers.isEmpty()
+                ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(headers));
+    }
+
+    LocalDateTime getSentAt() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(sentAtMillis), ZoneId.systemDefault());
+    }
+
+    boolean isExpired(long nowNanos) {
+        return expiresAtNanos != 0 && nowNanos - expiresAtNanos > 0;
+    }
+
+    /**
+     * Creates the envelope for the next delivery attempt of this message.
+     */
+    Envelope nextAttempt() {
+        return toBuilder().attempt(attempt + 1).build();
+    }
+}
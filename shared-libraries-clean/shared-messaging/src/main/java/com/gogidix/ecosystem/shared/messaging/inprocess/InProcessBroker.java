@@ -0,0 +1,537 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.ConsumerOptions.OffsetResetStrategy;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.SendResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Message broker running inside the JVM, shared by {@link InProcessMessageProducer},
+ * {@link InProcessMessageConsumer} and {@link InProcessEventPublisher}.
+ * <p>
+ * Every destination is split into a fixed number of partitions, and every consumer group of a
+ * destination holds one lock-free ring buffer per partition. Sending a message places a reference
+ * to it in the ring of each group; nothing is serialized or copied. Messages with the same partition
+ * key keep their order within a group.
+ * <p>
+ * A group somebody consumes from holds back producers when its ring is full, up to the publish timeout.
+ * A group nobody consumes from drops overflowing messages instead, so an abandoned group never blocks
+ * producers and never holds more than one ring of messages. Subscribers and pollers that name no group
+ * share a default group, which also keeps the backlog of destinations that have no other group yet.
+ * <p>
+ * Messages live in memory only: they are lost when the broker is closed, and the persistence and
+ * priority options of a send are not honoured.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+public final class InProcessBroker implements AutoCloseable {
+
+    /**
+     * Name of the group shared by subscribers and pollers that name no consumer group.
+     */
+    public static final String DEFAULT_GROUP = "default";
+
+    private static final int SPINS_BEFORE_PARKING = 100;
+    private static final long BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long RESCHEDULE_MS = 1;
+
+    private final int partitionCount;
+    private final int ringCapacity;
+    private final long publishTimeoutNanos;
+    private final int deduplicationWindow;
+    private final long pollerSessionNanos;
+    private final String brokerId = UUID.randomUUID().toString().substring(0, 8);
+    private final String replyAddress = "reply." + brokerId;
+    private final AtomicLong messageSequence = new AtomicLong();
+    private final ConcurrentMap<String, Destination> destinations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Envelope>> pendingReplies = new ConcurrentHashMap<>();
+    private final Set<InProcessSubscription<?>> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ScheduledThreadPoolExecutor scheduler;
+    private volatile boolean closed;
+
+    /**
+     * Creates a broker with 4 partitions per destination, rings of 8192 messages, a 5 second
+     * publish timeout and a deduplication window of 65536 message ids.
+     */
+    public InProcessBroker() {
+        this(4, 8192, 5000, 65536, 30000);
+    }
+
+    /**
+     * Creates a broker.
+     *
+     * @param partitionCount Number of partitions of every destination
+     * @param ringCapacity Number of messages each group holds per partition, rounded up to a power of two
+     * @param publishTimeoutMs How long a producer waits for room before failing with a timeout
+     * @param deduplicationWindow Number of recent message ids remembered for exactly-once delivery
+     * @param pollerSessionTimeoutMs How long a group stays live after its last poll
+     */
+    public InProcessBroker(int partitionCount, int ringCapacity, long publishTimeoutMs,
+                           int deduplicationWindow, long pollerSessionTimeoutMs) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("partitionCount must be at least 1");
+        }
+        if (ringCapacity < 1) {
+            throw new IllegalArgumentException("ringCapacity must be at least 1");
+        }
+        this.partitionCount = partitionCount;
+        this.ringCapacity = ringCapacity;
+        this.publishTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(publishTimeoutMs);
+        this.deduplicationWindow = deduplicationWindow;
+        this.pollerSessionNanos = TimeUnit.MILLISECONDS.toNanos(pollerSessionTimeoutMs);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "inprocess-broker-" + brokerId + "-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    long getPublishTimeoutNanos() {
+        return publishTimeoutNanos;
+    }
+
+    String getReplyAddress() {
+        return replyAddress;
+    }
+
+    /**
+     * Gets the number of messages waiting in a consumer group.
+     *
+     * @param destination Destination name
+     * @param consumerGroup Group name, or null for the default group
+     * @return Number of waiting messages, 0 if the group does not exist
+     */
+    public long getQueueDepth(String destination, String consumerGroup) {
+        ConsumerGroup group = findGroup(destination, consumerGroup);
+        return group != null ? group.getDepth() : 0;
+    }
+
+    /**
+     * Gets the number of messages a consumer group dropped because it was full.
+     *
+     * @param destination Destination name
+     * @param consumerGroup Group name, or null for the default group
+     * @return Number of dropped messages, 0 if the group does not exist
+     */
+    public long getDroppedMessages(String destination, String consumerGroup) {
+        ConsumerGroup group = findGroup(destination, consumerGroup);
+        return group != null ? group.getDropped() : 0;
+    }
+
+    String nextMessageId() {
+        return brokerId + '-' + messageSequence.incrementAndGet();
+    }
+
+    String createTemporaryDestination() {
+        String name = "temp." + UUID.randomUUID();
+        destination(name);
+        return name;
+    }
+
+    Destination destination(String name) {
+        Destination destination = destinations.get(name);
+        return destination != null ? destination : destinations.computeIfAbsent(name, this::createDestination);
+    }
+
+    private Destination createDestination(String name) {
+        Destination destination = new Destination(name, partitionCount, deduplicationWindow);
+        destination.getOrCreateGroup(DEFAULT_GROUP, groupName -> createGroup(groupName, name));
+        return destination;
+    }
+
+    private ConsumerGroup createGroup(String groupName, String destinationName) {
+        return new ConsumerGroup(groupName, destinationName, partitionCount, ringCapacity,
+                deduplicationWindow, pollerSessionNanos);
+    }
+
+    private ConsumerGroup findGroup(String destinationName, String groupName) {
+        Destination destination = destinations.get(destinationName);
+        return destination != null ? destination.getGroup(groupName != null ? groupName : DEFAULT_GROUP) : null;
+    }
+
+    /**
+     * Gets the consumer group a subscriber or poller joins, creating it if needed.
+     * The reset strategy applies only to a group created by this call: EARLIEST takes over the backlog
+     * of the default group if nobody consumes from it, LATEST starts with the next message sent, and
+     * NONE fails because the group has no position to start from.
+     *
+     * @param destinationName Destination name
+     * @param groupName Group name, or null for the default group
+     * @param resetStrategy Where a new group starts
+     * @return The consumer group
+     */
+    ConsumerGroup joinGroup(String destinationName, String groupName, OffsetResetStrategy resetStrategy) {
+        Destination destination = destination(destinationName);
+        String name = groupName != null && !groupName.isEmpty() ? groupName : DEFAULT_GROUP;
+        ConsumerGroup existing = destination.getGroup(name);
+        if (existing != null) {
+            return existing;
+        }
+        if (resetStrategy == OffsetResetStrategy.NONE) {
+            throw new MessagingException("Consumer group " + name + " has no position on " + destinationName,
+                    destinationName, MessagingException.ErrorCode.DESTINATION_NOT_FOUND);
+        }
+        boolean[] created = new boolean[1];
+        ConsumerGroup backlog = destination.getGroup(DEFAULT_GROUP);
+        ConsumerGroup group = destination.getOrCreateGroup(name, newName -> {
+            created[0] = true;
+            ConsumerGroup newGroup = createGroup(newName, destinationName);
+            if (resetStrategy == OffsetResetStrategy.EARLIEST) {
+                adoptBacklog(backlog, newGroup);
+            }
+            return newGroup;
+        });
+        if (created[0] && resetStrategy == OffsetResetStrategy.EARLIEST) {
+            // Pick up messages that reached the default group while the new group was being registered
+            adoptBacklog(backlog, group);
+        }
+        return group;
+    }
+
+    private void adoptBacklog(ConsumerGroup from, ConsumerGroup to) {
+        if (from.isLive()) {
+            return;
+        }
+        for (int partition = 0; partition < partitionCount; partition++) {
+            MessageRing<Envelope> source = from.partition(partition);
+            Envelope envelope;
+            while ((envelope = source.poll()) != null) {
+                if (!to.offer(envelope)) {
+                    to.recordDropped();
+                }
+            }
+        }
+        to.signal();
+    }
+
+    /**
+     * Assigns the partition and offset of a message.
+     *
+     * @param builder Envelope with everything but destination, partition and offset set
+     * @param destinationName Destination name
+     * @param partitionKey Key choosing the partition, or null
+     * @return The complete envelope
+     */
+    Envelope prepare(Envelope.EnvelopeBuilder builder, String destinationName, String partitionKey) {
+        Destination destination = destination(destinationName);
+        int partition = destination.partitionFor(partitionKey);
+        return builder.destination(destinationName)
+                .partition(partition)
+                .offset(destination.nextOffset(partition))
+                .build();
+    }
+
+    /**
+     * Sends a message to every consumer group of its destination, waiting for room in live groups
+     * unless the message is sent at most once.
+     *
+     * @param envelope Message to send
+     * @return The send result
+     * @throws MessagingException with {@code TIMEOUT} if a live group stays full for the publish timeout
+     */
+    SendResult send(Envelope envelope) {
+        return send(envelope, publishTimeoutNanos);
+    }
+
+    /**
+     * Sends a message like {@link #send(Envelope)}, waiting up to the given time for room.
+     *
+     * @param envelope Message to send
+     * @param timeoutNanos How long to wait for room in live groups
+     * @return The send result
+     */
+    SendResult send(Envelope envelope, long timeoutNanos) {
+        ensureOpen(envelope);
+        Destination destination = destination(envelope.getDestination());
+        if (isDuplicate(destination, envelope)) {
+            return InProcessSendResult.duplicate(envelope);
+        }
+        List<ConsumerGroup> pending = offer(envelope, destination.getGroups(), true);
+        if (pending != null) {
+            awaitCapacity(envelope, pending, System.nanoTime() + timeoutNanos);
+        }
+        return InProcessSendResult.success(envelope);
+    }
+
+    /**
+     * Sends messages, waking the consumers once for the whole batch rather than once per message.
+     * A message that times out does not stop the rest of the batch.
+     *
+     * @param envelopes Messages to send
+     * @return One result per message, in order
+     */
+    List<SendResult> sendBatch(List<Envelope> envelopes) {
+        List<SendResult> results = new ArrayList<>(envelopes.size());
+        Set<Destination> touched = new LinkedHashSet<>();
+        for (Envelope envelope : envelopes) {
+            try {
+                ensureOpen(envelope);
+                Destination destination = destination(envelope.getDestination());
+                touched.add(destination);
+                if (isDuplicate(destination, envelope)) {
+                    results.add(InProcessSendResult.duplicate(envelope));
+                    continue;
+                }
+                List<ConsumerGroup> pending = offer(envelope, destination.getGroups(), false);
+                if (pending != null) {
+                    awaitCapacity(envelope, pending, System.nanoTime() + publishTimeoutNanos);
+                }
+                results.add(InProcessSendResult.success(envelope));
+            } catch (MessagingException e) {
+                results.add(InProcessSendResult.failure(envelope.getDestination(), envelope.getMessageId(), e));
+            }
+        }
+        for (Destination destination : touched) {
+            for (ConsumerGroup group : destination.getGroups()) {
+                group.signal();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Sends a message after a delay. Delivery never blocks the scheduler: while a live group is
+     * full the attempt is repeated, until the publish timeout counted from the due time.
+     *
+     * @param envelope Message to send
+     * @param delayMs Delay in milliseconds
+     * @return Future completed once the message reached every group
+     */
+    CompletableFuture<SendResult> sendLater(Envelope envelope, long delayMs) {
+        CompletableFuture<SendResult> future = new CompletableFuture<>();
+        try {
+            ensureOpen(envelope);
+            scheduler.schedule(() -> deliverScheduled(envelope, null, 0, future), Math.max(0, delayMs),
+                    TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void deliverScheduled(Envelope envelope, List<ConsumerGroup> pending, long deadline,
+                                  CompletableFuture<SendResult> future) {
+        try {
+            ensureOpen(envelope);
+            if (pending == null) {
+                Destination destination = destination(envelope.getDestination());
+                if (isDuplicate(destination, envelope)) {
+                    future.complete(InProcessSendResult.duplicate(envelope));
+                    return;
+                }
+                deadline = System.nanoTime() + publishTimeoutNanos;
+                pending = offer(envelope, destination.getGroups(), true);
+            } else {
+                retryOffer(envelope, pending);
+            }
+            if (pending == null || pending.isEmpty()) {
+                future.complete(InProcessSendResult.success(envelope));
+            } else if (System.nanoTime() - deadline > 0) {
+                future.completeExceptionally(timeout(envelope));
+            } else {
+                List<ConsumerGroup> remaining = pending;
+                long dueBy = deadline;
+                scheduler.schedule(() -> deliverScheduled(envelope, remaining, dueBy, future),
+                        RESCHEDULE_MS, TimeUnit.MILLISECONDS);
+            }
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Puts a message back into a single consumer group after a delay, for consumer-side retries.
+     * The message is dropped if the group has nobody consuming from it any more.
+     *
+     * @param group Consumer group
+     * @param envelope Message to redeliver
+     * @param delayMs Delay in milliseconds
+     */
+    void redeliver(ConsumerGroup group, Envelope envelope, long delayMs) {
+        if (closed) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            if (group.offer(envelope)) {
+                group.signal();
+            } else if (group.isLive() && !closed) {
+                redeliver(group, envelope, RESCHEDULE_MS);
+            } else {
+                group.recordDropped();
+            }
+        }, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends the reply to a request, either completing a waiting {@code sendAndReceive} directly
+     * or sending it to the reply destination of the request.
+     *
+     * @param request The request being answered
+     * @param response Response payload
+     * @param correlationId Correlation id of the response
+     */
+    void reply(Envelope request, Object response, String correlationId) {
+        String replyTo = request.getReplyTo();
+        if (replyTo == null) {
+            throw new MessagingException("Message has no reply destination", request.getDestination(),
+                    request.getMessageId(), MessagingException.ErrorCode.INVALID_MESSAGE);
+        }
+        Envelope.EnvelopeBuilder reply = Envelope.builder()
+                .messageId(nextMessageId())
+                .payload(response)
+                .correlationId(correlationId)
+                .sentAtMillis(System.currentTimeMillis())
+                .deliveryMode(DeliveryMode.AT_LEAST_ONCE);
+        if (replyAddress.equals(replyTo)) {
+            CompletableFuture<Envelope> waiting = pendingReplies.get(correlationId);
+            if (waiting != null) {
+                waiting.complete(reply.destination(replyTo).build());
+            } else {
+                log.debug("Dropping reply {} that nobody waits for any more", correlationId);
+            }
+            return;
+        }
+        send(prepare(reply, replyTo, correlationId));
+    }
+
+    /**
+     * Registers interest in the reply with the given correlation id.
+     *
+     * @param correlationId Correlation id of the request
+     * @return Future completed with the reply
+     */
+    CompletableFuture<Envelope> expectReply(String correlationId) {
+        CompletableFuture<Envelope> future = new CompletableFuture<>();
+        pendingReplies.put(correlationId, future);
+        future.whenComplete((reply, error) -> pendingReplies.remove(correlationId, future));
+        return future;
+    }
+
+    void register(InProcessSubscription<?> subscription) {
+        subscriptions.add(subscription);
+    }
+
+    void unregister(InProcessSubscription<?> subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     * Stops all subscriptions and fails the requests still waiting for a reply.
+     * Messages still waiting in the rings are discarded.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (InProcessSubscription<?> subscription : List.copyOf(subscriptions)) {
+            subscription.stop();
+        }
+        scheduler.shutdownNow();
+        for (CompletableFuture<Envelope> waiting : List.copyOf(pendingReplies.values())) {
+            waiting.completeExceptionally(new MessagingException("Broker closed", replyAddress,
+                    MessagingException.ErrorCode.CONNECTION_FAILED));
+        }
+        log.info("In-process broker {} closed with {} destinations", brokerId, destinations.size());
+    }
+
+    private boolean isDuplicate(Destination destination, Envelope envelope) {
+        return envelope.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE
+                && !destination.markPublished(envelope.getMessageId());
+    }
+
+    /**
+     * Offers a message to each group without waiting.
+     *
+     * @return The live groups that were full, or null if there were none
+     */
+    private List<ConsumerGroup> offer(Envelope envelope, ConsumerGroup[] groups, boolean signal) {
+        List<ConsumerGroup> pending = null;
+        boolean fanOut = groups.length > 1;
+        for (ConsumerGroup group : groups) {
+            if (fanOut && group.isDefaultGroup() && !group.isLive()) {
+                // The default group only keeps a backlog while the destination has no other group
+                continue;
+            }
+            if (group.offer(envelope)) {
+                if (signal) {
+                    group.signal();
+                }
+            } else if (envelope.getDeliveryMode() == DeliveryMode.AT_MOST_ONCE || !group.isLive()) {
+                group.recordDropped();
+            } else {
+                if (pending == null) {
+                    pending = new ArrayList<>(groups.length);
+                }
+                pending.add(group);
+            }
+        }
+        return pending;
+    }
+
+    private void retryOffer(Envelope envelope, List<ConsumerGroup> pending) {
+        for (Iterator<ConsumerGroup> it = pending.iterator(); it.hasNext(); ) {
+            ConsumerGroup group = it.next();
+            if (group.offer(envelope)) {
+                group.signal();
+                it.remove();
+            } else if (!group.isLive()) {
+                group.recordDropped();
+                it.remove();
+            }
+        }
+    }
+
+    private void awaitCapacity(Envelope envelope, List<ConsumerGroup> pending, long deadline) {
+        for (ConsumerGroup group : pending) {
+            group.signal();
+        }
+        int spins = 0;
+        while (!pending.isEmpty()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw timeout(envelope);
+            }
+            if (++spins < SPINS_BEFORE_PARKING) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(BACKOFF_NANOS);
+            }
+            retryOffer(envelope, pending);
+        }
+    }
+
+    private MessagingException timeout(Envelope envelope) {
+        return new MessagingException("Consumers of " + envelope.getDestination() + " did not make room in time",
+                envelope.getDestination(), envelope.getMessageId(), MessagingException.ErrorCode.TIMEOUT);
+    }
+
+    private void ensureOpen(Envelope envelope) {
+        if (closed) {
+            throw new MessagingException("Broker closed", envelope.getDestination(), envelope.getMessageId(),
+                    MessagingException.ErrorCode.CONNECTION_FAILED);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.DomainEvent;
+import com.gogidix.ecosystem.shared.messaging.EventPublisher;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.SendResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EventPublisher} backed by an {@link InProcessBroker}.
+ * <p>
+ * Events go to the topic made of the configured prefix and the event type, partitioned by routing key
+ * or else by aggregate id, so the events of one aggregate are consumed in order. The event id is the
+ * message id, which exactly-once delivery uses to drop duplicates.
+ * <p>
+ * Each retry attempt of the delivery options extends the time a publish waits for room in a full
+ * consumer group by one publish timeout, instead of sending again, so that retries never duplicate an event.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+public class InProcessEventPublisher implements EventPublisher {
+
+    private static final DeliveryOptions DEFAULT_OPTIONS = new DeliveryOptions();
+
+    private final InProcessBroker broker;
+    private final String topicPrefix;
+
+    public InProcessEventPublisher(InProcessBroker broker, String topicPrefix) {
+        this.broker = broker;
+        this.topicPrefix = topicPrefix != null ? topicPrefix : "";
+    }
+
+    @Override
+    public <T extends DomainEvent> void publish(T event) {
+        publish(event, DEFAULT_OPTIONS);
+    }
+
+    @Override
+    public <T extends DomainEvent> CompletableFuture<Void> publishAsync(T event) {
+        return publishAsync(event, DEFAULT_OPTIONS);
+    }
+
+    @Override
+    public <T extends DomainEvent> void publishToTopic(String topic, T event) {
+        publish(topic, event, DEFAULT_OPTIONS);
+    }
+
+    @Override
+    public <T extends DomainEvent> CompletableFuture<Void> publishToTopicAsync(String topic, T event) {
+        try {
+            publishToTopic(topic, event);
+            return CompletableFuture.completedFuture(null);
+        } catch (PublishingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public <T extends DomainEvent> void publish(T event, DeliveryOptions options) {
+        publish(topicFor(event), event, options);
+    }
+
+    @Override
+    public <T extends DomainEvent> CompletableFuture<Void> publishAsync(T event, DeliveryOptions options) {
+        try {
+            publish(event, options);
+            return CompletableFuture.completedFuture(null);
+        } catch (PublishingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Publishes events, waking the consumers once for the whole batch.
+     *
+     * @throws PublishingException naming the first event that could not be published
+     */
+    @Override
+    public void publishBatch(DomainEvent... events) {
+        List<Envelope> envelopes = new ArrayList<>(events.length);
+        for (DomainEvent event : events) {
+            event.initializeEvent();
+            envelopes.add(envelope(topicFor(event), event, DEFAULT_OPTIONS));
+        }
+        List<SendResult> results = broker.sendBatch(envelopes);
+        for (int i = 0; i < results.size(); i++) {
+            SendResult result = results.get(i);
+            if (!result.isSuccessful()) {
+                long failed = results.stream().filter(r -> !r.isSuccessful()).count();
+                throw new PublishingException(failed + " of " + events.length + " events could not be published",
+                        events[i].getEventType(), String.valueOf(events[i].getEventId()), result.getError());
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> publishBatchAsync(DomainEvent... events) {
+        try {
+            publishBatch(events);
+            return CompletableFuture.completedFuture(null);
+        } catch (PublishingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Publishes the event exactly once after the current transaction commits, or right away if
+     * no transaction is active. An event of a rolled back transaction is never published.
+     */
+    @Override
+    public <T extends DomainEvent> void publishTransactional(T event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event, DeliveryOptions.exactlyOnce());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    publish(event, DeliveryOptions.exactlyOnce());
+                } catch (PublishingException e) {
+                    log.error("Failed to publish event {} after commit", event.getEventId(), e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public <T extends DomainEvent> void publishDelayed(T event, long delaySeconds) {
+        publishLater(event, TimeUnit.SECONDS.toMillis(delaySeconds));
+    }
+
+    @Override
+    public <T extends DomainEvent> void scheduleEvent(T event, LocalDateTime scheduledTime) {
+        publishLater(event, Math.max(0, Duration.between(LocalDateTime.now(), scheduledTime).toMillis()));
+    }
+
+    private void publishLater(DomainEvent event, long delayMs) {
+        event.initializeEvent();
+        broker.sendLater(envelope(topicFor(event), event, DEFAULT_OPTIONS), delayMs)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.error("Failed to publish delayed event {}", event.getEventId(), error);
+                    }
+                });
+    }
+
+    private void publish(String topic, DomainEvent event, DeliveryOptions options) {
+        event.initializeEvent();
+        long waitNanos = broker.getPublishTimeoutNanos() * (1 + Math.max(0, options.getRetryAttempts()));
+        try {
+            broker.send(envelope(topic, event, options), waitNanos);
+        } catch (MessagingException e) {
+            throw new PublishingException("Failed to publish event to " + topic, event.getEventType(),
+                    String.valueOf(event.getEventId()), e);
+        }
+    }
+
+    private Envelope envelope(String topic, DomainEvent event, DeliveryOptions options) {
+        Envelope.EnvelopeBuilder builder = Envelope.builder()
+                .messageId(event.getEventId().toString())
+                .payload(event)
+                .headers(Envelope.copyHeaders(options.getHeaders()))
+                .correlationId(event.getCorrelationId())
+                .sentAtMillis(System.currentTimeMillis())
+                .deliveryMode(options.getDeliveryMode());
+        String partitionKey = options.getRoutingKey() != null ? options.getRoutingKey() : event.getAggregateId();
+        return broker.prepare(builder, topic, partitionKey);
+    }
+
+    private String topicFor(DomainEvent event) {
+        String eventType = event.getEventType();
+        return topicPrefix + (eventType != null ? eventType : event.getClass().getSimpleName());
+    }
+}
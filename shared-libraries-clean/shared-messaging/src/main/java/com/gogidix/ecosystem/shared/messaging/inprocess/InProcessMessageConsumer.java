@@ -0,0 +1,197 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * {@link MessageConsumer} backed by an {@link InProcessBroker}.
+ * <p>
+ * Subscribers taking a plain {@link Consumer} acknowledge a message when it returns; subscribers
+ * taking a {@link MessageHandler} follow {@link ConsumerOptions#isAutoAcknowledge()}. Polling reads
+ * from the default consumer group of the destination, and polled messages count as acknowledged
+ * unless they are rejected.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+public class InProcessMessageConsumer implements MessageConsumer {
+
+    private final InProcessBroker broker;
+    private final AtomicInteger pollCursor = new AtomicInteger();
+
+    public InProcessMessageConsumer(InProcessBroker broker) {
+        this.broker = broker;
+    }
+
+    @Override
+    public <T> Subscription subscribe(String destination, Consumer<T> messageHandler, Class<T> messageType) {
+        return subscribe(ConsumerOptions.forDestination(destination), messageHandler, messageType);
+    }
+
+    @Override
+    public <T> Subscription subscribe(ConsumerOptions options, Consumer<T> messageHandler, Class<T> messageType) {
+        return start(options, (message, context) -> messageHandler.accept(message), messageType, true, Long.MAX_VALUE);
+    }
+
+    @Override
+    public <T> Subscription subscribeWithContext(String destination, MessageHandler<T> messageHandler,
+                                                 Class<T> messageType) {
+        return subscribeWithContext(ConsumerOptions.forDestination(destination), messageHandler, messageType);
+    }
+
+    /**
+     * Subscribes to a destination with a context-aware handler and full options.
+     *
+     * @param options Consumer options
+     * @param messageHandler Handler receiving each message with its context
+     * @param messageType Expected message type
+     * @param <T> Message type
+     * @return Subscription handle
+     */
+    public <T> Subscription subscribeWithContext(ConsumerOptions options, MessageHandler<T> messageHandler,
+                                                 Class<T> messageType) {
+        return start(options, messageHandler, messageType, options.isAutoAcknowledge(), Long.MAX_VALUE);
+    }
+
+    private <T> InProcessSubscription<T> start(ConsumerOptions options, MessageHandler<T> handler,
+                                               Class<T> messageType, boolean autoAcknowledge, long messageLimit) {
+        if (options.getDestination() == null) {
+            throw new IllegalArgumentException("Consumer options must name a destination");
+        }
+        ConsumerGroup group = broker.joinGroup(options.getDestination(), options.getConsumerGroup(),
+                options.getOffsetResetStrategy());
+        InProcessSubscription<T> subscription = new InProcessSubscription<>(broker, group, options, handler,
+                messageType, autoAcknowledge, messageLimit);
+        subscription.start();
+        log.debug("Subscription {} started on {} in group {}", subscription.getId(), options.getDestination(),
+                group.getName());
+        return subscription;
+    }
+
+    @Override
+    public <T> ReceivedMessage<T> poll(String destination, Class<T> messageType, long timeoutMs) {
+        List<ReceivedMessage<T>> messages = pollBatch(destination, messageType, 1, timeoutMs);
+        return messages.isEmpty() ? null : messages.get(0);
+    }
+
+    @Override
+    public <T> List<ReceivedMessage<T>> pollBatch(String destination, Class<T> messageType, int maxMessages,
+                                                  long timeoutMs) {
+        ConsumerGroup group = broker.joinGroup(destination, null, ConsumerOptions.OffsetResetStrategy.EARLIEST);
+        group.touch();
+        PollSettlement settlement = new PollSettlement(broker, group);
+        List<ReceivedMessage<T>> messages = new ArrayList<>(Math.max(0, Math.min(maxMessages, 256)));
+        List<Envelope> drained = new ArrayList<>(Math.max(0, Math.min(maxMessages, 256)));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            drain(group, drained, maxMessages - messages.size());
+            long now = System.nanoTime();
+            for (Envelope envelope : drained) {
+                if (envelope.getExpiresAtNanos() != 0 && envelope.isExpired(now)) {
+                    continue;
+                }
+                if (envelope.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE
+                        && group.getProcessedIds().contains(envelope.getMessageId())) {
+                    continue;
+                }
+                InProcessMessageContext context = new InProcessMessageContext(broker, envelope, group.getName(),
+                        settlement);
+                try {
+                    messages.add(new InProcessReceivedMessage<>(InProcessSubscription.convert(envelope, messageType),
+                            context));
+                } catch (MessagingException e) {
+                    log.warn("Skipping message {} polled from {}: {}", envelope.getMessageId(), destination,
+                            e.getMessage());
+                }
+            }
+            drained.clear();
+            if (!messages.isEmpty() || maxMessages <= 0 || now - deadline >= 0) {
+                return messages;
+            }
+            group.awaitMessages(deadline - now);
+        }
+    }
+
+    private void drain(ConsumerGroup group, List<Envelope> target, int maxMessages) {
+        int partitionCount = group.getPartitionCount();
+        int start = Math.floorMod(pollCursor.getAndIncrement(), partitionCount);
+        for (int i = 0; i < partitionCount && target.size() < maxMessages; i++) {
+            int partition = (start + i) % partitionCount;
+            MessageRing<Envelope> ring = group.partition(partition);
+            if (ring.isEmpty() || !group.tryAcquire(partition)) {
+                continue;
+            }
+            try {
+                ring.drainTo(target, maxMessages - target.size());
+            } finally {
+                group.release(partition);
+            }
+        }
+    }
+
+    /**
+     * Receives a single message from the default consumer group, processes it and sends the response
+     * to the reply destination of the request.
+     */
+    @Override
+    public <Req, Res> CompletableFuture<Void> receiveAndReply(String destination, RequestProcessor<Req, Res> processor,
+                                                              Class<Req> requestType, Class<Res> responseType) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        MessageHandler<Req> handler = (request, context) -> {
+            try {
+                Res response = processor.process(request, context);
+                context.reply(responseType.cast(response));
+                done.complete(null);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+                throw e;
+            }
+        };
+        start(ConsumerOptions.forDestination(destination).sequential().withPrefetch(1).withAutoAck(), handler,
+                requestType, true, 1);
+        return done;
+    }
+
+    @Override
+    public String createTemporaryQueue() {
+        return broker.createTemporaryDestination();
+    }
+
+    /**
+     * Settles polled messages: rejecting with requeue puts the message back into the group.
+     */
+    private static final class PollSettlement implements InProcessMessageContext.Settlement {
+
+        private final InProcessBroker broker;
+        private final ConsumerGroup group;
+
+        PollSettlement(InProcessBroker broker, ConsumerGroup group) {
+            this.broker = broker;
+            this.group = group;
+        }
+
+        @Override
+        public void acknowledged(Envelope envelope) {
+            if (envelope.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE) {
+                group.getProcessedIds().add(envelope.getMessageId());
+            }
+        }
+
+        @Override
+        public void rejected(Envelope envelope, boolean requeue, Throwable cause) {
+            if (requeue && envelope.getDeliveryMode() != DeliveryMode.AT_MOST_ONCE) {
+                broker.redeliver(group, envelope.nextAttempt(), 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.MessageContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Context of a message delivered by the in-process broker.
+ * A message is settled exactly once, by the first call to {@link #acknowledge()} or {@link #reject(boolean)};
+ * later calls have no effect.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+final class InProcessMessageContext implements MessageContext {
+
+    /**
+     * Receives the outcome of a delivered message.
+     */
+    interface Settlement {
+
+        void acknowledged(Envelope envelope);
+
+        /**
+         * @param envelope Rejected message
+         * @param requeue Whether the message should be delivered again
+         * @param cause Failure of the handler, or null if the message was rejected explicitly
+         */
+        void rejected(Envelope envelope, boolean requeue, Throwable cause);
+    }
+
+    private final InProcessBroker broker;
+    private final Envelope envelope;
+    private final String consumerGroup;
+    private final Settlement settlement;
+    private final long receivedAtMillis = System.currentTimeMillis();
+    private final AtomicBoolean settled = new AtomicBoolean();
+    private volatile Map<String, Object> processingMetadata;
+
+    InProcessMessageContext(InProcessBroker broker, Envelope envelope, String consumerGroup, Settlement settlement) {
+        this.broker = broker;
+        this.envelope = envelope;
+        this.consumerGroup = consumerGroup;
+        this.settlement = settlement;
+    }
+
+    /**
+     * Rejects the message because its handler failed, asking for redelivery.
+     */
+    void fail(Throwable cause) {
+        if (settled.compareAndSet(false, true)) {
+            settlement.rejected(envelope, true, cause);
+        }
+    }
+
+    @Override
+    public String getMessageId() {
+        return envelope.getMessageId();
+    }
+
+    @Override
+    public String getDestination() {
+        return envelope.getDestination();
+    }
+
+    @Override
+    public Map<String, Object> getHeaders() {
+        Map<String, Object> headers = envelope.getHeaders();
+        return headers != null ? headers : Collections.emptyMap();
+    }
+
+    @Override
+    public Object getHeader(String key) {
+        return getHeaders().get(key);
+    }
+
+    @Override
+    public Integer getPartition() {
+        return envelope.getPartition();
+    }
+
+    @Override
+    public Long getOffset() {
+        return envelope.getOffset();
+    }
+
+    @Override
+    public LocalDateTime getReceivedAt() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(receivedAtMillis), ZoneId.systemDefault());
+    }
+
+    @Override
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    @Override
+    public int getRetryAttempt() {
+        return envelope.getAttempt();
+    }
+
+    @Override
+    public void acknowledge() {
+        if (settled.compareAndSet(false, true)) {
+            settlement.acknowledged(envelope);
+        }
+    }
+
+    @Override
+    public void reject() {
+        reject(false);
+    }
+
+    @Override
+    public void reject(boolean requeue) {
+        if (settled.compareAndSet(false, true)) {
+            settlement.rejected(envelope, requeue, null);
+        }
+    }
+
+    @Override
+    public void reply(Object response) {
+        String correlationId = envelope.getCorrelationId();
+        broker.reply(envelope, response, correlationId != null ? correlationId : envelope.getMessageId());
+    }
+
+    @Override
+    public void replyAndCorrelate(Object response, String correlationId) {
+        broker.reply(envelope, response, correlationId);
+    }
+
+    @Override
+    public void addProcessingMetadata(String key, Object value) {
+        Map<String, Object> metadata = processingMetadata;
+        if (metadata == null) {
+            synchronized (this) {
+                metadata = processingMetadata;
+                if (metadata == null) {
+                    metadata = new ConcurrentHashMap<>();
+                    processingMetadata = metadata;
+                }
+            }
+        }
+        metadata.put(key, value);
+    }
+
+    @Override
+    public Object getProcessingMetadata(String key) {
+        Map<String, Object> metadata = processingMetadata;
+        return metadata != null ? metadata.get(key) : null;
+    }
+
+    @Override
+    public AutoCloseable createSpan(String operationName) {
+        long start = System.nanoTime();
+        return () -> log.debug("{} of message {} on {} took {} us", operationName, getMessageId(), getDestination(),
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    }
+
+    @Override
+    public void log(String level, String message, Object... args) {
+        switch (level != null ? level.toUpperCase(Locale.ROOT) : "INFO") {
+            case "TRACE" -> log.trace(message, args);
+            case "DEBUG" -> log.debug(message, args);
+            case "WARN" -> log.warn(message, args);
+            case "ERROR" -> log.error(message, args);
+            default -> log.info(message, args);
+        }
+    }
+}
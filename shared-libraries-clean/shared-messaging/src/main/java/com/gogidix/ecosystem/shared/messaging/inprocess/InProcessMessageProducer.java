@@ -0,0 +1,176 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link MessageProducer} backed by an {@link InProcessBroker}.
+ * <p>
+ * Sending hands the message object itself to the consumers, so messages should not be modified once sent.
+ * The asynchronous methods complete before they return unless the message is delayed, since an in-process
+ * send only waits when a consumer group is full. Fire-and-forget messages are sent at most once and never
+ * wait; all other messages are sent at least once. Priority and persistence are not supported.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+public class InProcessMessageProducer implements MessageProducer {
+
+    private final InProcessBroker broker;
+
+    public InProcessMessageProducer(InProcessBroker broker) {
+        this.broker = broker;
+    }
+
+    @Override
+    public void send(String destination, Object message) {
+        broker.send(envelope(SendOptions.to(destination).withBody(message)));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAsync(String destination, Object message) {
+        return send(SendOptions.to(destination).withBody(message));
+    }
+
+    @Override
+    public void send(String destination, Object message, Map<String, Object> headers) {
+        broker.send(envelope(SendOptions.to(destination).withBody(message).setHeaders(headers)));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAsync(String destination, Object message, Map<String, Object> headers) {
+        return send(SendOptions.to(destination).withBody(message).setHeaders(headers));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> send(SendOptions options) {
+        try {
+            Envelope envelope = envelope(options);
+            long delayMs = delayOf(options);
+            if (delayMs > 0) {
+                return broker.sendLater(envelope, delayMs);
+            }
+            return CompletableFuture.completedFuture(broker.send(envelope));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<BatchSendResult> sendBatch(String destination, Object... messages) {
+        try {
+            List<Envelope> envelopes = new ArrayList<>(messages.length);
+            for (Object message : messages) {
+                envelopes.add(envelope(SendOptions.to(destination).withBody(message)));
+            }
+            return CompletableFuture.completedFuture(new InProcessSendResult.Batch(broker.sendBatch(envelopes)));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendToPartition(String destination, String partitionKey, Object message) {
+        return send(SendOptions.to(destination).withBody(message).withPartition(partitionKey));
+    }
+
+    @Override
+    public <T> T sendAndReceive(String destination, Object request, Class<T> responseType, long timeoutMs) {
+        try {
+            return sendAndReceiveAsync(destination, request, responseType, timeoutMs).get();
+        } catch (ExecutionException e) {
+            throw asMessagingException(e.getCause(), destination);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for a reply", destination, null,
+                    MessagingException.ErrorCode.TIMEOUT, e);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> sendAndReceiveAsync(String destination, Object request, Class<T> responseType,
+                                                        long timeoutMs) {
+        String correlationId = broker.nextMessageId();
+        CompletableFuture<Envelope> reply = broker.expectReply(correlationId);
+        send(SendOptions.to(destination)
+                .withBody(request)
+                .setCorrelationId(correlationId)
+                .requestReply(broker.getReplyAddress()))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        reply.completeExceptionally(error);
+                    }
+                });
+        return reply.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((envelope, error) -> {
+                    if (error != null) {
+                        throw asMessagingException(error, destination);
+                    }
+                    return InProcessSubscription.convert(envelope, responseType);
+                });
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendDelayed(String destination, Object message, long delayMs) {
+        return send(SendOptions.to(destination).withBody(message).withDelay(delayMs));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> scheduleMessage(String destination, Object message,
+                                                         LocalDateTime scheduledTime) {
+        return send(SendOptions.to(destination).withBody(message).scheduled(scheduledTime));
+    }
+
+    private Envelope envelope(SendOptions options) {
+        if (options.getDestination() == null) {
+            throw new MessagingException("No destination given", null, MessagingException.ErrorCode.INVALID_MESSAGE);
+        }
+        long ttlMs = options.getTtlMs();
+        long expiresAtNanos = ttlMs > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayOf(options) + ttlMs) : 0;
+        DeliveryMode deliveryMode = options.getMessageType() == SendOptions.MessageType.FIRE_AND_FORGET
+                ? DeliveryMode.AT_MOST_ONCE : DeliveryMode.AT_LEAST_ONCE;
+        Envelope.EnvelopeBuilder builder = Envelope.builder()
+                .messageId(broker.nextMessageId())
+                .payload(options.getMessage())
+                .headers(Envelope.copyHeaders(options.getHeaders()))
+                .correlationId(options.getCorrelationId())
+                .replyTo(options.getReplyTo())
+                .sentAtMillis(System.currentTimeMillis())
+                .deliveryMode(deliveryMode)
+                .expiresAtNanos(expiresAtNanos);
+        String partitionKey = options.getPartitionKey() != null ? options.getPartitionKey() : options.getRoutingKey();
+        return broker.prepare(builder, options.getDestination(), partitionKey);
+    }
+
+    private static long delayOf(SendOptions options) {
+        if (options.getScheduledTime() != null) {
+            return Math.max(0, Duration.between(LocalDateTime.now(), options.getScheduledTime()).toMillis());
+        }
+        return Math.max(0, options.getDelayMs());
+    }
+
+    private static MessagingException asMessagingException(Throwable error, String destination) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof MessagingException messagingException) {
+            return messagingException;
+        }
+        if (cause instanceof TimeoutException) {
+            return new MessagingException("No reply received in time", destination, null,
+                    MessagingException.ErrorCode.TIMEOUT, cause);
+        }
+        return new MessagingException("Request failed", destination, null, MessagingException.ErrorCode.UNKNOWN_ERROR,
+                cause);
+    }
+}
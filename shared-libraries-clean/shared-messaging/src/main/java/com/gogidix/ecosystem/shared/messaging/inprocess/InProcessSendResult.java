@@ -0,0 +1,115 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.BatchSendResult;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.SendResult;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of sending a message through the in-process broker.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+final class InProcessSendResult implements SendResult {
+
+    /**
+     * Metadata key set to true when an exactly-once message was dropped as a duplicate.
+     */
+    static final String DUPLICATE = "duplicate";
+
+    private final String messageId;
+    private final String destination;
+    private final Integer partition;
+    private final Long offset;
+    private final Envelope envelope;
+    private final Throwable error;
+    private final Map<String, Object> metadata;
+
+    private InProcessSendResult(String messageId, String destination, Envelope envelope, Throwable error,
+                                Map<String, Object> metadata) {
+        this.messageId = messageId;
+        this.destination = destination;
+        this.partition = envelope != null ? envelope.getPartition() : null;
+        this.offset = envelope != null ? envelope.getOffset() : null;
+        this.envelope = envelope;
+        this.error = error;
+        this.metadata = metadata;
+    }
+
+    static InProcessSendResult success(Envelope envelope) {
+        return new InProcessSendResult(envelope.getMessageId(), envelope.getDestination(), envelope, null,
+                Collections.emptyMap());
+    }
+
+    static InProcessSendResult duplicate(Envelope envelope) {
+        return new InProcessSendResult(envelope.getMessageId(), envelope.getDestination(), envelope, null,
+                Map.of(DUPLICATE, true));
+    }
+
+    static InProcessSendResult failure(String destination, String messageId, Throwable error) {
+        return new InProcessSendResult(messageId, destination, null, error, Collections.emptyMap());
+    }
+
+    @Override
+    public String getMessageId() { return messageId; }
+
+    @Override
+    public String getDestination() { return destination; }
+
+    @Override
+    public Integer getPartition() { return partition; }
+
+    @Override
+    public Long getOffset() { return offset; }
+
+    @Override
+    public LocalDateTime getSentAt() { return envelope != null ? envelope.getSentAt() : null; }
+
+    @Override
+    public boolean isSuccessful() { return error == null; }
+
+    @Override
+    public String getErrorMessage() { return error != null ? error.getMessage() : null; }
+
+    @Override
+    public Throwable getError() { return error; }
+
+    @Override
+    public Map<String, Object> getMetadata() { return metadata; }
+
+    /**
+     * Result of sending a batch of messages.
+     */
+    static final class Batch implements BatchSendResult {
+
+        private final List<SendResult> results;
+        private final List<SendResult> failedResults;
+
+        Batch(List<SendResult> results) {
+            this.results = Collections.unmodifiableList(results);
+            this.failedResults = results.stream().filter(result -> !result.isSuccessful()).toList();
+        }
+
+        @Override
+        public int getTotalMessages() { return results.size(); }
+
+        @Override
+        public int getSuccessfulMessages() { return results.size() - failedResults.size(); }
+
+        @Override
+        public int getFailedMessages() { return failedResults.size(); }
+
+        @Override
+        public List<SendResult> getResults() { return results; }
+
+        @Override
+        public boolean isAllSuccessful() { return failedResults.isEmpty(); }
+
+        @Override
+        public List<SendResult> getFailedResults() { return failedResults; }
+    }
+}
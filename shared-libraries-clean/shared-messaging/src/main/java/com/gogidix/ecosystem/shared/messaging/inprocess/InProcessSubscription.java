@@ -0,0 +1,435 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.ConsumerOptions;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.MessageHandler;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.StatisticsListener;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.Subscription;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Subscription of a handler to a consumer group of the in-process broker.
+ * <p>
+ * Each worker thread repeatedly takes a partition nobody else is processing, removes a batch of
+ * messages from it and hands them to the handler, so partitions are processed in parallel and
+ * messages within a partition in order. There are never more workers than partitions.
+ * <p>
+ * With automatic acknowledgment the prefetch count is the batch size, and a message is acknowledged
+ * once its handler returns. With manual acknowledgment the prefetch count limits the messages that
+ * were delivered but not yet acknowledged; those are put back into the group when the subscription stops.
+ * A failed or requeued message is delivered again after the retry delay, possibly after later messages
+ * of its partition, and is sent to the dead letter queue, if any, once its retries are used up.
+ *
+ * @param <T> Message type
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+@Slf4j
+final class InProcessSubscription<T> implements Subscription, InProcessMessageContext.Settlement {
+
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long STOP_TIMEOUT_MS = 5000;
+    private static final SpelExpressionParser FILTER_PARSER = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, InProcessSubscription.class.getClassLoader()));
+
+    private final String id = UUID.randomUUID().toString();
+    private final InProcessBroker broker;
+    private final ConsumerGroup group;
+    private final MessageHandler<T> handler;
+    private final Class<T> messageType;
+    private final boolean autoAcknowledge;
+    private final int batchSize;
+    private final int maxRetries;
+    private final long retryDelayMs;
+    private final String deadLetterQueue;
+    private final Expression filter;
+    private final Thread[] workers;
+    private final Semaphore credits;
+    private final Map<String, Envelope> unacknowledged = new ConcurrentHashMap<>();
+    private final AtomicLong remaining;
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder errored = new LongAdder();
+    private final List<StatisticsListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile boolean running = true;
+    private volatile boolean paused;
+
+    /**
+     * Creates a subscription; {@link #start()} starts consuming.
+     *
+     * @param broker Broker
+     * @param group Consumer group to consume from
+     * @param options Consumer options
+     * @param handler Message handler
+     * @param messageType Expected message type
+     * @param autoAcknowledge Whether messages are acknowledged when their handler returns
+     * @param messageLimit Number of messages after which the subscription stops itself
+     */
+    InProcessSubscription(InProcessBroker broker, ConsumerGroup group, ConsumerOptions options,
+                          MessageHandler<T> handler, Class<T> messageType, boolean autoAcknowledge,
+                          long messageLimit) {
+        this.broker = broker;
+        this.group = group;
+        this.handler = handler;
+        this.messageType = messageType;
+        this.autoAcknowledge = autoAcknowledge;
+        this.batchSize = Math.max(1, options.getPrefetchCount());
+        this.maxRetries = Math.max(0, options.getMaxRetries());
+        this.retryDelayMs = Math.max(0, options.getRetryDelayMs());
+        this.deadLetterQueue = options.getDeadLetterQueue();
+        this.filter = options.getFilterExpression() != null && !options.getFilterExpression().isBlank()
+                ? FILTER_PARSER.parseExpression(options.getFilterExpression()) : null;
+        this.credits = autoAcknowledge ? null : new Semaphore(batchSize);
+        this.remaining = new AtomicLong(messageLimit);
+        int workerCount = options.isConcurrent()
+                ? Math.max(1, Math.min(options.getMaxConcurrency(), group.getPartitionCount())) : 1;
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            int index = i;
+            workers[i] = new Thread(() -> runWorker(index),
+                    "inprocess-" + group.getDestination() + "-" + group.getName() + "-" + i);
+            workers[i].setDaemon(true);
+        }
+    }
+
+    void start() {
+        group.attach();
+        broker.register(this);
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Converts a payload to the expected type.
+     *
+     * @throws MessagingException with {@code INVALID_MESSAGE} if the payload has another type
+     */
+    static <T> T convert(Envelope envelope, Class<T> messageType) {
+        Object payload = envelope.getPayload();
+        if (payload == null || messageType.isInstance(payload)) {
+            return messageType.cast(payload);
+        }
+        throw new MessagingException("Expected " + messageType.getName() + " but received "
+                + payload.getClass().getName(), envelope.getDestination(), envelope.getMessageId(),
+                MessagingException.ErrorCode.INVALID_MESSAGE);
+    }
+
+    private void runWorker(int index) {
+        List<Envelope> batch = new ArrayList<>(batchSize);
+        int partitionCount = group.getPartitionCount();
+        int cursor = index % partitionCount;
+        while (running) {
+            if (paused) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+                continue;
+            }
+            int granted = acquireCredits();
+            if (granted == 0) {
+                continue;
+            }
+            int drained = 0;
+            try {
+                for (int i = 0; i < partitionCount && drained == 0; i++) {
+                    int partition = cursor;
+                    cursor = (cursor + 1) % partitionCount;
+                    MessageRing<Envelope> ring = group.partition(partition);
+                    if (ring.isEmpty() || !group.tryAcquire(partition)) {
+                        continue;
+                    }
+                    try {
+                        drained = ring.drainTo(batch, granted);
+                        for (Envelope envelope : batch) {
+                            process(envelope);
+                        }
+                    } finally {
+                        group.release(partition);
+                        batch.clear();
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("Subscription {} failed while consuming from {}", id, group.getDestination(), e);
+            }
+            releaseCredits(granted - drained);
+            if (drained == 0) {
+                group.awaitMessages(IDLE_NANOS);
+            } else if (remaining.addAndGet(-drained) <= 0) {
+                stop();
+            }
+        }
+    }
+
+    private int acquireCredits() {
+        int limit = (int) Math.min(batchSize, Math.max(1, remaining.get()));
+        if (credits == null) {
+            return limit;
+        }
+        try {
+            if (!credits.tryAcquire(IDLE_NANOS, TimeUnit.NANOSECONDS)) {
+                return 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        int granted = 1;
+        while (granted < limit && credits.tryAcquire()) {
+            granted++;
+        }
+        return granted;
+    }
+
+    private void releaseCredits(int count) {
+        if (credits != null && count > 0) {
+            credits.release(count);
+        }
+    }
+
+    private void process(Envelope envelope) {
+        if (envelope.getExpiresAtNanos() != 0 && envelope.isExpired(System.nanoTime())) {
+            releaseCredits(1);
+            return;
+        }
+        boolean atMostOnce = envelope.getDeliveryMode() == DeliveryMode.AT_MOST_ONCE;
+        if (envelope.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE
+                && group.getProcessedIds().contains(envelope.getMessageId())) {
+            releaseCredits(1);
+            return;
+        }
+        if (filter != null && !matches(envelope)) {
+            releaseCredits(1);
+            return;
+        }
+        InProcessMessageContext context = new InProcessMessageContext(broker, envelope, group.getName(), this);
+        if (!autoAcknowledge) {
+            unacknowledged.put(envelope.getMessageId(), envelope);
+        }
+        if (atMostOnce) {
+            // Acknowledged before handling, so a failing handler never causes a second delivery
+            context.acknowledge();
+        }
+        try {
+            handler.handle(convert(envelope, messageType), context);
+            if (autoAcknowledge) {
+                context.acknowledge();
+            }
+        } catch (Exception e) {
+            if (atMostOnce) {
+                recordError(e);
+            } else {
+                context.fail(e);
+            }
+        }
+    }
+
+    private boolean matches(Envelope envelope) {
+        try {
+            SimpleEvaluationContext context = SimpleEvaluationContext.forReadOnlyDataBinding()
+                    .withRootObject(envelope.getPayload())
+                    .build();
+            context.setVariable("headers", envelope.getHeaders() != null ? envelope.getHeaders() : Map.of());
+            return Boolean.TRUE.equals(filter.getValue(context, Boolean.class));
+        } catch (RuntimeException e) {
+            log.warn("Filter of subscription {} failed on message {}, skipping it", id, envelope.getMessageId(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void acknowledged(Envelope envelope) {
+        settle(envelope);
+        if (envelope.getDeliveryMode() == DeliveryMode.EXACTLY_ONCE) {
+            group.getProcessedIds().add(envelope.getMessageId());
+        }
+        processed.increment();
+        if (!listeners.isEmpty()) {
+            long total = processed.sum();
+            notifyListeners(listener -> listener.onMessageProcessed(id, total));
+        }
+    }
+
+    @Override
+    public void rejected(Envelope envelope, boolean requeue, Throwable cause) {
+        settle(envelope);
+        recordError(cause != null ? cause : new MessagingException("Message rejected", envelope.getDestination(),
+                envelope.getMessageId(), MessagingException.ErrorCode.INVALID_MESSAGE));
+        if (envelope.getDeliveryMode() == DeliveryMode.AT_MOST_ONCE) {
+            return;
+        }
+        if (requeue && envelope.getAttempt() < maxRetries) {
+            broker.redeliver(group, envelope.nextAttempt(), retryDelayMs);
+        } else {
+            deadLetter(envelope, cause);
+        }
+    }
+
+    private void settle(Envelope envelope) {
+        if (!autoAcknowledge && unacknowledged.remove(envelope.getMessageId()) != null) {
+            releaseCredits(1);
+        }
+    }
+
+    private void recordError(Throwable error) {
+        errored.increment();
+        notifyListeners(listener -> listener.onMessageErrored(id, error));
+    }
+
+    private void deadLetter(Envelope envelope, Throwable cause) {
+        if (deadLetterQueue == null || deadLetterQueue.isBlank()) {
+            log.warn("Dropping message {} from {} after {} attempts", envelope.getMessageId(),
+                    envelope.getDestination(), envelope.getAttempt() + 1, cause);
+            return;
+        }
+        Map<String, Object> headers = new HashMap<>(envelope.getHeaders() != null ? envelope.getHeaders() : Map.of());
+        headers.put("x-original-destination", envelope.getDestination());
+        headers.put("x-original-message-id", envelope.getMessageId());
+        headers.put("x-delivery-attempts", envelope.getAttempt() + 1);
+        if (cause != null) {
+            headers.put("x-exception", cause.getClass().getName() + ": " + cause.getMessage());
+        }
+        try {
+            broker.send(broker.prepare(Envelope.builder()
+                    .messageId(broker.nextMessageId())
+                    .payload(envelope.getPayload())
+                    .headers(headers)
+                    .correlationId(envelope.getCorrelationId())
+                    .sentAtMillis(System.currentTimeMillis())
+                    .deliveryMode(DeliveryMode.AT_LEAST_ONCE), deadLetterQueue, null));
+        } catch (MessagingException e) {
+            log.error("Failed to dead-letter message {} to {}", envelope.getMessageId(), deadLetterQueue, e);
+        }
+    }
+
+    private void notifyListeners(Consumer<StatisticsListener> notification) {
+        for (StatisticsListener listener : listeners) {
+            try {
+                notification.accept(listener);
+            } catch (RuntimeException e) {
+                log.warn("Statistics listener of subscription {} failed", id, e);
+            }
+        }
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getDestination() {
+        return group.getDestination();
+    }
+
+    @Override
+    public boolean isActive() {
+        return running && !paused;
+    }
+
+    @Override
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    @Override
+    public long getMessagesProcessed() {
+        return processed.sum();
+    }
+
+    @Override
+    public long getMessagesErrored() {
+        return errored.sum();
+    }
+
+    @Override
+    public void pause() {
+        if (running && !paused) {
+            paused = true;
+            notifyListeners(listener -> listener.onSubscriptionPaused(id));
+        }
+    }
+
+    @Override
+    public void resume() {
+        if (running && paused) {
+            paused = false;
+            for (Thread worker : workers) {
+                LockSupport.unpark(worker);
+            }
+            notifyListeners(listener -> listener.onSubscriptionResumed(id));
+        }
+    }
+
+    /**
+     * Stops consuming, waits for the workers to finish their current batch and puts messages that
+     * were never acknowledged back into the group.
+     */
+    @Override
+    public void stop() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        running = false;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        for (Thread worker : workers) {
+            if (worker != Thread.currentThread()) {
+                try {
+                    worker.join(STOP_TIMEOUT_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        group.detach();
+        for (Envelope envelope : unacknowledged.values()) {
+            if (!group.offer(envelope)) {
+                group.recordDropped();
+            }
+        }
+        unacknowledged.clear();
+        group.signal();
+        broker.unregister(this);
+        notifyListeners(listener -> listener.onSubscriptionStopped(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> stopAsync() {
+        return CompletableFuture.runAsync(this::stop);
+    }
+
+    @Override
+    public void addStatisticsListener(StatisticsListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeStatisticsListener(StatisticsListener listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,46 @@
+package com.gogidix.ecosystem.shared.messaging.support;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded set of the most recently seen message ids, used to drop duplicates for exactly-once delivery.
+ * Once the window is full, every new id evicts the oldest one.
+ *
+ * @author Exalt Development Team
+ * @since 1.0.0
+ */
+public final class RecentIds {
+
+    private final Set<String> ids = ConcurrentHashMap.newKeySet();
+    private final AtomicReferenceArray<String> order;
+    private final AtomicLong next = new AtomicLong();
+
+    public RecentIds(int window) {
+        this.order = new AtomicReferenceArray<>(Math.max(1, window));
+    }
+
+    /**
+     * Records an id.
+     *
+     * @param id Message id
+     * @return true if the id was not in the window yet
+     */
+    public boolean add(String id) {
+        if (!ids.add(id)) {
+            return false;
+        }
+        int index = (int) (next.getAndIncrement() % order.length());
+        String evicted = order.getAndSet(index, id);
+        if (evicted != null) {
+            ids.remove(evicted);
+        }
+        return true;
+    }
+
+    public boolean contains(String id) {
+        return ids.contains(id);
+    }
+}
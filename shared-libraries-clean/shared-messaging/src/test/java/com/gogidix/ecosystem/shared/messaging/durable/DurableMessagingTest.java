@@ -0,0 +1,297 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.DomainEvent;
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.ConsumerOptions;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.MessageContext;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.ReceivedMessage;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.Subscription;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.SendOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the durable broker through its producer, consumer and event publisher.
+ * Tests that messages and consumer offsets survive restarts, manual acknowledgment, retries with dead
+ * lettering, polling, request-reply and exactly-once publishing.
+ */
+class DurableMessagingTest {
+
+    @TempDir
+    Path directory;
+
+    private SegmentLog segmentLog;
+    private DurableBroker broker;
+    private DurableMessageProducer producer;
+    private DurableMessageConsumer consumer;
+    private DurableEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stop();
+    }
+
+    @Test
+    @DisplayName("Should keep messages and committed offsets across a restart")
+    void shouldSurviveRestart() throws Exception {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            producer.sendToPartition("orders", "customer-" + (i % 7), new Order("order-" + i, i));
+        }
+        CountDownLatch firstRun = new CountDownLatch(100);
+        consumer.subscribe(ConsumerOptions.forDestination("orders").withGroup("billing").fromEarliest(),
+                (Order order) -> firstRun.countDown(), Order.class);
+        assertThat(firstRun.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        restart();
+        for (int i = 100; i < 150; i++) {
+            producer.sendToPartition("orders", "customer-" + (i % 7), new Order("order-" + i, i));
+        }
+        Set<Integer> billing = ConcurrentHashMap.newKeySet();
+        Set<Integer> audit = ConcurrentHashMap.newKeySet();
+        CountDownLatch secondRun = new CountDownLatch(50 + 150);
+        consumer.subscribe(ConsumerOptions.forDestination("orders").withGroup("billing").fromEarliest(),
+                (Order order) -> {
+                    billing.add(order.sequence());
+                    secondRun.countDown();
+                }, Order.class);
+        consumer.subscribe(ConsumerOptions.forDestination("orders").withGroup("audit").fromEarliest(),
+                (Order order) -> {
+                    audit.add(order.sequence());
+                    secondRun.countDown();
+                }, Order.class);
+
+        // Then
+        assertThat(secondRun.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        assertThat(billing).hasSize(50).allMatch(sequence -> sequence >= 100);
+        assertThat(audit).hasSize(150);
+        assertThat(broker.getLag("orders", "billing")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep the order of messages with the same partition key")
+    void shouldKeepOrderWithinPartition() throws InterruptedException {
+        // Given
+        int messagesPerKey = 500;
+        List<String> keys = List.of("order-1", "order-2", "order-3", "order-4", "order-5");
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(messagesPerKey * keys.size());
+        consumer.subscribe(ConsumerOptions.forDestination("orders").concurrent(4).withPrefetch(32),
+                (Order order) -> {
+                    received.computeIfAbsent(order.id(), key -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(order.sequence());
+                    latch.countDown();
+                }, Order.class);
+
+        // When
+        for (int i = 0; i < messagesPerKey; i++) {
+            for (String key : keys) {
+                producer.send(SendOptions.to("orders").withBody(new Order(key, i)).withPartition(key)
+                        .setPersistent(false));
+            }
+        }
+
+        // Then
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        for (String key : keys) {
+            assertThat(received.get(key)).hasSize(messagesPerKey).isSorted();
+        }
+    }
+
+    @Test
+    @DisplayName("Should deliver unacknowledged messages again after a restart")
+    void shouldRedeliverUnacknowledgedMessages() throws Exception {
+        // Given
+        for (int i = 0; i < 20; i++) {
+            producer.sendToPartition("payments", "key", new Order("payment-" + i, i));
+        }
+        List<MessageContext> held = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(20);
+        consumer.subscribeWithContext(ConsumerOptions.forDestination("payments").withGroup("ledger").fromEarliest()
+                        .withPrefetch(100),
+                (Order order, MessageContext context) -> {
+                    if (order.sequence() < 5 || order.sequence() % 2 == 0) {
+                        context.acknowledge();
+                    } else {
+                        held.add(context);
+                    }
+                    delivered.countDown();
+                }, Order.class);
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        restart();
+        List<Integer> redelivered = new CopyOnWriteArrayList<>();
+        CountDownLatch again = new CountDownLatch(15);
+        consumer.subscribeWithContext(ConsumerOptions.forDestination("payments").withGroup("ledger")
+                        .withPrefetch(100),
+                (Order order, MessageContext context) -> {
+                    redelivered.add(order.sequence());
+                    context.acknowledge();
+                    again.countDown();
+                }, Order.class);
+
+        // Then
+        assertThat(again.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(held).hasSize(8);
+        assertThat(redelivered).startsWith(5).contains(5, 7, 9, 11, 13, 15, 17, 19).doesNotContain(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    @DisplayName("Should retry a failing message in place and then dead-letter it")
+    void shouldDeadLetterAfterRetries() throws InterruptedException {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch dead = new CountDownLatch(1);
+        List<ReceivedHeaders> deadLettered = new CopyOnWriteArrayList<>();
+        consumer.subscribeWithContext(ConsumerOptions.forDestination("orders.dlq").fromEarliest(),
+                (Order order, MessageContext context) -> {
+                    deadLettered.add(new ReceivedHeaders(order, context.getHeaders()));
+                    dead.countDown();
+                }, Order.class);
+        consumer.subscribe(ConsumerOptions.forDestination("orders").fromEarliest().sequential()
+                        .setMaxRetries(2).setRetryDelayMs(10).setDeadLetterQueue("orders.dlq"),
+                (Order order) -> {
+                    if (order.sequence() == 1) {
+                        attempts.incrementAndGet();
+                        throw new IllegalStateException("poison");
+                    }
+                    processed.add(order.sequence());
+                }, Order.class);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            producer.sendToPartition("orders", "key", new Order("order-" + i, i));
+        }
+
+        // Then
+        assertThat(dead.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        assertThat(attempts).hasValue(3);
+        assertThat(processed).containsExactly(0, 2);
+        ReceivedHeaders message = deadLettered.get(0);
+        assertThat(message.order().sequence()).isEqualTo(1);
+        assertThat(message.headers()).containsEntry("x-original-destination", "orders")
+                .containsEntry("x-delivery-attempts", 3)
+                .containsKey("x-exception");
+    }
+
+    @Test
+    @DisplayName("Should poll messages and commit them with the next poll")
+    void shouldPollMessages() throws Exception {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            producer.sendToPartition("tasks", "key", new Order("task-" + i, i));
+        }
+
+        // When
+        List<ReceivedMessage<Order>> first = consumer.pollBatch("tasks", Order.class, 4, 1000);
+        first.get(3).reject(true);
+        List<ReceivedMessage<Order>> second = consumer.pollBatch("tasks", Order.class, 100, 1000);
+        ReceivedMessage<Order> none = consumer.poll("tasks", Order.class, 50);
+
+        // Then
+        assertThat(first).extracting(message -> message.getPayload().sequence()).containsExactly(0, 1, 2, 3);
+        assertThat(second).extracting(message -> message.getPayload().sequence())
+                .containsExactly(3, 4, 5, 6, 7, 8, 9);
+        assertThat(second.get(0).getContext().getRetryAttempt()).isEqualTo(1);
+        assertThat(none).isNull();
+    }
+
+    @Test
+    @DisplayName("Should answer a request through its reply destination")
+    void shouldReplyToRequests() {
+        // Given
+        consumer.receiveAndReply("quotes", (Order request, MessageContext context) -> "quote for " + request.id(),
+                Order.class, String.class);
+
+        // When
+        String reply = producer.sendAndReceive("quotes", new Order("order-7", 7), String.class, 5000);
+
+        // Then
+        assertThat(reply).isEqualTo("quote for order-7");
+    }
+
+    @Test
+    @DisplayName("Should publish an exactly-once event only once across restarts")
+    void shouldPublishExactlyOnce() throws Exception {
+        // Given
+        TestEvent event = new TestEvent();
+        event.setAggregateId("order-1");
+        event.setEventType("OrderPlaced");
+        publisher.publish(event, DeliveryOptions.exactlyOnce());
+        publisher.publish(event, DeliveryOptions.exactlyOnce());
+
+        // When
+        restart();
+        publisher.publish(event, DeliveryOptions.exactlyOnce());
+
+        // Then
+        List<ReceivedMessage<TestEvent>> received = consumer.pollBatch("events.OrderPlaced", TestEvent.class, 10,
+                500);
+        assertThat(received).hasSize(1);
+        assertThat(received.get(0).getPayload().getEventId()).isEqualTo(event.getEventId());
+        assertThat(received.get(0).getPayload().getAggregateId()).isEqualTo("order-1");
+    }
+
+    private void start() throws IOException {
+        segmentLog = SegmentLog.open(SegmentLog.Options.in(directory).setFlushIntervalMs(10));
+        broker = new DurableBroker(segmentLog, 1024);
+        producer = new DurableMessageProducer(broker);
+        consumer = new DurableMessageConsumer(broker);
+        publisher = new DurableEventPublisher(broker, "events.");
+    }
+
+    private void stop() {
+        broker.close();
+        segmentLog.close();
+    }
+
+    private void restart() throws IOException {
+        stop();
+        start();
+    }
+
+    record Order(String id, int sequence) {
+    }
+
+    record ReceivedHeaders(Order order, Map<String, Object> headers) {
+    }
+
+    static class TestEvent extends DomainEvent {
+
+        @Override
+        public DomainEvent createCopy() {
+            TestEvent copy = new TestEvent();
+            copy.setAggregateId(getAggregateId());
+            copy.setEventType(getEventType());
+            return copy;
+        }
+    }
+}
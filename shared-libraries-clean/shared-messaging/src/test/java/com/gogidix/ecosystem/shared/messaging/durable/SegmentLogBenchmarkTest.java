@@ -0,0 +1,137 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Throughput benchmarks of the segment log.
+ * Prints the sustained append rate in MB/s for durable appends, where concurrent producers share the
+ * disk flushes, and for appends that do not wait for the disk, and the rate of replaying the log.
+ */
+@Tag("performance")
+class SegmentLogBenchmarkTest {
+
+    private static final int PAYLOAD_BYTES = 512;
+    private static final int BATCH_SIZE = 100;
+    private static final long NON_DURABLE_BYTES = 512L * 1024 * 1024;
+    private static final long DURABLE_BYTES = 64L * 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private SegmentLog segmentLog;
+
+    @AfterEach
+    void tearDown() {
+        if (segmentLog != null) {
+            segmentLog.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should sustain a high append rate without waiting for the disk")
+    void shouldAppendWithoutWaiting() throws Exception {
+        segmentLog = SegmentLog.open(options());
+        double rate = runAppends("non-durable", 4, NON_DURABLE_BYTES, false, 1);
+        System.out.printf("non-durable append, 4 producers: %,.1f MB/s%n", rate);
+        assertThat(rate).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should share disk flushes between concurrent durable producers")
+    void shouldGroupCommitDurableAppends() throws Exception {
+        segmentLog = SegmentLog.open(options());
+        for (int producers : new int[]{1, 8, 32}) {
+            double single = runAppends("durable-" + producers, producers, DURABLE_BYTES / 4, true, 1);
+            double batched = runAppends("durable-batched-" + producers, producers, DURABLE_BYTES, true, BATCH_SIZE);
+            System.out.printf("durable append, %2d producers: %,.1f MB/s single, %,.1f MB/s in batches of %d%n",
+                    producers, single, batched, BATCH_SIZE);
+        }
+    }
+
+    @Test
+    @DisplayName("Should replay the log at a high rate")
+    void shouldReplayQuickly() throws Exception {
+        segmentLog = SegmentLog.open(options());
+        runAppends("replay", 4, NON_DURABLE_BYTES / 2, false, BATCH_SIZE);
+        segmentLog.close();
+        segmentLog = SegmentLog.open(options());
+
+        long start = System.nanoTime();
+        long bytes = 0;
+        long records = 0;
+        for (int partition = 0; partition < segmentLog.getPartitionCount("replay"); partition++) {
+            long offset = segmentLog.getLogStartOffset("replay", partition);
+            List<LogRecord> batch;
+            while (!(batch = segmentLog.read("replay", partition, offset, 1000)).isEmpty()) {
+                records += batch.size();
+                bytes += (long) batch.size() * PAYLOAD_BYTES;
+                offset = batch.get(batch.size() - 1).getOffset() + 1;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("replay: %,d records, %,.1f MB/s of payload%n", records, bytes / seconds / (1024 * 1024));
+        assertThat(records).isPositive();
+    }
+
+    private SegmentLog.Options options() {
+        return SegmentLog.Options.in(directory)
+                .setPartitions(8)
+                .setRetentionMs(0);
+    }
+
+    /**
+     * Appends payload bytes from several threads and returns the payload rate in MB/s.
+     */
+    private double runAppends(String destination, int producers, long totalBytes, boolean durable, int batchSize)
+            throws Exception {
+        long recordsPerProducer = totalBytes / PAYLOAD_BYTES / producers;
+        String payload = "x".repeat(PAYLOAD_BYTES - 2);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int p = 0; p < producers; p++) {
+                String key = "producer-" + p;
+                futures.add(executor.submit(() -> {
+                    List<LogRecord> batch = new ArrayList<>(batchSize);
+                    for (long i = 0; i < recordsPerProducer; i++) {
+                        batch.add(LogRecord.builder()
+                                .messageId(key + '-' + i)
+                                .key(key)
+                                .payload(payload)
+                                .deliveryMode(DeliveryMode.AT_LEAST_ONCE)
+                                .build());
+                        if (batch.size() == batchSize) {
+                            segmentLog.appendBatch(destination, batch, durable);
+                            batch.clear();
+                        }
+                    }
+                    if (!batch.isEmpty()) {
+                        segmentLog.appendBatch(destination, batch, durable);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return recordsPerProducer * producers * PAYLOAD_BYTES / seconds / (1024 * 1024);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.gogidix.ecosystem.shared.messaging.durable;
+
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions.DeliveryMode;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the segment log: appending and reading across segments, recovery after a restart or a torn
+ * write, retention, offset checkpoints and exactly-once deduplication.
+ */
+class SegmentLogTest {
+
+    @TempDir
+    Path directory;
+
+    private SegmentLog segmentLog;
+
+    @AfterEach
+    void tearDown() {
+        if (segmentLog != null) {
+            segmentLog.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should read back appended records in order with consecutive offsets")
+    void shouldReadBackAppendedRecords() throws IOException {
+        // Given
+        segmentLog = SegmentLog.open(options());
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            LogRecord appended = segmentLog.append("orders", record("message-" + i), i % 10 == 0);
+            assertThat(appended.getOffset()).isEqualTo(i);
+            assertThat(appended.getPartition()).isZero();
+        }
+
+        // Then
+        List<LogRecord> records = segmentLog.read("orders", 0, 0, 1000);
+        assertThat(records).hasSize(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(records.get(i).getOffset()).isEqualTo(i);
+            assertThat(records.get(i).getPayload()).isEqualTo("message-" + i);
+            assertThat(records.get(i).getHeaders()).containsEntry("sequence", i);
+        }
+        assertThat(segmentLog.getLogEndOffset("orders", 0)).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should seek to any offset across rolled segments")
+    void shouldSeekAcrossSegments() throws IOException {
+        // Given
+        segmentLog = SegmentLog.open(options().setSegmentBytes(8192).setIndexIntervalBytes(256));
+        for (int i = 0; i < 2000; i++) {
+            segmentLog.append("orders", record("message-" + i), false);
+        }
+
+        // When / Then
+        assertThat(segmentFiles("orders", 0)).hasSizeGreaterThan(10);
+        for (long offset : new long[]{0, 1, 63, 64, 999, 1500, 1999}) {
+            List<LogRecord> records = segmentLog.read("orders", 0, offset, 2);
+            assertThat(records.get(0).getOffset()).isEqualTo(offset);
+            assertThat(records.get(0).getPayload()).isEqualTo("message-" + offset);
+        }
+        assertThat(segmentLog.read("orders", 0, 2000, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep records and continue offsets after a restart")
+    void shouldRecoverAfterRestart() throws IOException {
+        // Given
+        segmentLog = SegmentLog.open(options().setSegmentBytes(8192));
+        for (int i = 0; i < 500; i++) {
+            segmentLog.append("orders", record("message-" + i), false);
+        }
+        segmentLog.close();
+
+        // When
+        segmentLog = SegmentLog.open(options().setSegmentBytes(8192));
+        LogRecord appended = segmentLog.append("orders", record("message-500"), true);
+
+        // Then
+        assertThat(segmentLog.getDestinations()).containsExactly("orders");
+        assertThat(appended.getOffset()).isEqualTo(500);
+        List<LogRecord> records = segmentLog.read("orders", 0, 0, 1000);
+        assertThat(records).extracting(LogRecord::getOffset).containsExactlyElementsOf(
+                Stream.iterate(0L, offset -> offset + 1).limit(501).toList());
+        assertThat(records.get(499).getPayload()).isEqualTo("message-499");
+    }
+
+    @Test
+    @DisplayName("Should drop a torn record at the end of the log on recovery")
+    void shouldTruncateTornTail() throws IOException {
+        // Given
+        segmentLog = SegmentLog.open(options());
+        for (int i = 0; i < 10; i++) {
+            segmentLog.append("orders", record("message-" + i), false);
+        }
+        segmentLog.close();
+        corruptLastByte(segmentFiles("orders", 0).get(0));
+
+        // When
+        segmentLog = SegmentLog.open(options());
+
+        // Then
+        assertThat(segmentLog.getLogEndOffset("orders", 0)).isEqualTo(9);
+        assertThat(segmentLog.append("orders", record("replacement"), true).getOffset()).isEqualTo(9);
+        List<LogRecord> records = segmentLog.read("orders", 0, 8, 10);
+        assertThat(records).extracting(LogRecord::getPayload).containsExactly("message-8", "replacement");
+    }
+
+    @Test
+    @DisplayName("Should delete the oldest segments beyond the retained size but never the active one")
+    void shouldApplyRetentionBySize() throws IOException {
+        // Given
+        segmentLog = SegmentLog.open(options().setSegmentBytes(4096).setRetentionBytes(16_384));
+        for (int i = 0; i < 2000; i++) {
+            segmentLog.append("orders", record("message-" + i), false);
+        }
+
+        // When
+        int deleted = segmentLog.applyRetention();
+
+        // Then
+        assertThat(deleted).isPositive();
+        assertThat(segmentLog.getSizeInBytes("orders")).isLessThanOrEqualTo(16_384 + 4096);
+        long start = segmentLog.getLogStartOffset("orders", 0);
+        assertThat(start).isPositive();
+        assertThat(segmentLog.read("orders", 0, start, 1).get(0).getPayload()).isEqualTo("message-" + start);
+        assertThat(segmentLog.getLogEndOffset("orders", 0)).isEqualTo(2000);
+    }
+
+    @Test
+    @DisplayName("Should delete segments older than the retention period")
+    void shouldApplyRetentionByTime() throws Exception {
+        // Given
+        segmentLog = SegmentLog.open(options().setSegmentBytes(4096).setRetentionMs(200));
+        for (int i = 0; i < 500; i++) {
+            segmentLog.append("orders", record("message-" + i), false);
+        }
+        Thread.sleep(300);
+        segmentLog.append("orders", record("fresh"), false);
+
+        // When
+        segmentLog.applyRetention();
+
+        // Then
+        long start = segmentLog.getLogStartOffset("orders", 0);
+        assertThat(start).isPositive();
+        assertThat(segmentLog.read("orders", 0, 0, 1000)).extracting(LogRecord::getOffset).startsWith(start);
+        assertThat(segmentLog.read("orders", 0, 500, 1).get(0).getPayload()).isEqualTo("fresh");
+    }
+
+    @Test
+    @DisplayName("Should persist committed offsets and only move them forward")
+    void shouldPersistCommittedOffsets() throws IOException {
+        // Given
+        segmentLog = SegmentLog.open(options().setPartitions(2));
+        segmentLog.append("orders/eu", record("message"), false);
+
+        // When
+        segmentLog.commitOffset("orders/eu", "billing group", 1, 42, false);
+        segmentLog.commitOffset("orders/eu", "billing group", 1, 17, false);
+        segmentLog.commitOffset("orders/eu", "shipping", 0, 7, true);
+        segmentLog.close();
+        segmentLog = SegmentLog.open(options().setPartitions(2));
+
+        // Then
+        assertThat(segmentLog.getCommittedOffset("orders/eu", "billing group", 1)).isEqualTo(42);
+        assertThat(segmentLog.getCommittedOffset("orders/eu", "shipping", 0)).isEqualTo(7);
+        assertThat(segmentLog.getCommittedOffset("orders/eu", "shipping", 1)).isEqualTo(-1);
+        assertThat(segmentLog.getPartitionCount("orders/eu")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should drop exactly-once duplicates, also after a restart")
+    void shouldDeduplicateExactlyOnceRecords() throws IOException {
+        // Given
+        segmentLog = SegmentLog.open(options());
+        LogRecord first = record("payment").toBuilder()
+                .messageId("payment-1")
+                .deliveryMode(DeliveryMode.EXACTLY_ONCE)
+                .build();
+        assertThat(segmentLog.append("payments", first, true)).isNotNull();
+        assertThat(segmentLog.append("payments", first, true)).isNull();
+        segmentLog.close();
+
+        // When
+        segmentLog = SegmentLog.open(options());
+
+        // Then
+        assertThat(segmentLog.append("payments", first, true)).isNull();
+        assertThat(segmentLog.append("payments", record("other"), true).getOffset()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject records larger than the maximum message size")
+    void shouldRejectOversizedRecords() throws IOException {
+        // Given
+        segmentLog = SegmentLog.open(options().setMaxMessageBytes(512));
+
+        // When / Then
+        assertThatThrownBy(() -> segmentLog.append("orders", record("x".repeat(1024)), false))
+                .isInstanceOf(MessagingException.class)
+                .extracting(e -> ((MessagingException) e).getErrorCode())
+                .isEqualTo(MessagingException.ErrorCode.MESSAGE_TOO_LARGE);
+        assertThat(segmentLog.getLogEndOffset("orders", 0)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should refuse to open a directory another log holds")
+    void shouldLockDirectory() throws IOException {
+        // Given
+        segmentLog = SegmentLog.open(options());
+
+        // When / Then
+        assertThatThrownBy(() -> SegmentLog.open(options())).isInstanceOf(IOException.class);
+    }
+
+    private SegmentLog.Options options() {
+        return SegmentLog.Options.in(directory)
+                .setPartitions(1)
+                .setMaxMessageBytes(1024)
+                .setRetentionMs(0)
+                .setRetentionCheckIntervalMs(3_600_000);
+    }
+
+    private static LogRecord record(String payload) {
+        return LogRecord.builder()
+                .messageId(UUID.randomUUID().toString())
+                .key("key")
+                .payload(payload)
+                .headers(Map.of("sequence", payload.startsWith("message-")
+                        ? Integer.parseInt(payload.substring("message-".length())) : -1))
+                .deliveryMode(DeliveryMode.AT_LEAST_ONCE)
+                .build();
+    }
+
+    private List<Path> segmentFiles(String destination, int partition) throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve(destination).resolve(String.valueOf(partition)))) {
+            return files.filter(file -> file.toString().endsWith(LogSegment.SUFFIX)).sorted().toList();
+        }
+    }
+
+    /**
+     * Flips the last written byte of a segment, as a write cut short by a crash would leave it.
+     */
+    private static void corruptLastByte(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+            channel.read(content, 0);
+            int last = content.limit() - 1;
+            while (content.get(last) == 0) {
+                last--;
+            }
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~content.get(last)}), last);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.DomainEvent;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.ConsumerOptions;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.Subscription;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Throughput and latency benchmarks of the in-process broker.
+ * Prints messages per second for single and batched sends at several prefetch counts, and the
+ * end-to-end latency percentiles of a steady message stream.
+ */
+@Tag("performance")
+class InProcessBrokerBenchmarkTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int MESSAGES_PER_PRODUCER = 250_000;
+    private static final int BATCH_SIZE = 100;
+    private static final int LATENCY_SAMPLES = 50_000;
+
+    private InProcessBroker broker;
+    private InProcessMessageProducer producer;
+    private InProcessMessageConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        broker = new InProcessBroker(8, 16_384, 30_000, 65_536, 30_000);
+        producer = new InProcessMessageProducer(broker);
+        consumer = new InProcessMessageConsumer(broker);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.close();
+    }
+
+    @Test
+    @DisplayName("Should sustain high throughput with concurrent producers and consumers")
+    void shouldSustainHighThroughput() throws Exception {
+        for (int prefetch : new int[]{1, 16, 256}) {
+            // Warm up once, then measure
+            runThroughput("warmup-" + prefetch, prefetch, false);
+            double single = runThroughput("single-" + prefetch, prefetch, false);
+            double batched = runThroughput("batched-" + prefetch, prefetch, true);
+            System.out.printf("prefetch %3d: send %,.0f msg/s, sendBatch %,.0f msg/s%n", prefetch, single, batched);
+        }
+    }
+
+    @Test
+    @DisplayName("Should deliver a steady stream with low end-to-end latency")
+    void shouldDeliverWithLowLatency() throws Exception {
+        long[] latencies = new long[LATENCY_SAMPLES];
+        AtomicInteger index = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(LATENCY_SAMPLES);
+        Subscription subscription = consumer.subscribe(ConsumerOptions.forDestination("latency").withPrefetch(16),
+                (Long sentAt) -> {
+                    latencies[index.getAndIncrement()] = System.nanoTime() - sentAt;
+                    done.countDown();
+                }, Long.class);
+
+        for (int i = 0; i < LATENCY_SAMPLES; i++) {
+            producer.send("latency", System.nanoTime());
+            if (i % 64 == 0) {
+                // Leave gaps so the consumer also goes idle and is woken up, as in a real stream
+                Thread.sleep(0, 200_000);
+            }
+        }
+
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        subscription.stop();
+        Arrays.sort(latencies);
+        System.out.printf("latency p50 %d us, p99 %d us, p99.9 %d us, max %d us%n",
+                micros(percentile(latencies, 0.50)), micros(percentile(latencies, 0.99)),
+                micros(percentile(latencies, 0.999)), micros(latencies[latencies.length - 1]));
+        assertThat(micros(percentile(latencies, 0.50))).isLessThan(10_000);
+    }
+
+    @Test
+    @DisplayName("Should publish domain events in batches to a consumer group")
+    void shouldPublishEventBatches() throws Exception {
+        InProcessEventPublisher publisher = new InProcessEventPublisher(broker, "events.");
+        int batches = 2_000;
+        LongAdder received = new LongAdder();
+        CountDownLatch done = new CountDownLatch(batches * BATCH_SIZE);
+        consumer.subscribe(ConsumerOptions.forDestination("events.StockChanged").withGroup("inventory")
+                        .concurrent(8).withPrefetch(256),
+                (StockChanged event) -> { received.increment(); done.countDown(); }, StockChanged.class);
+
+        long start = System.nanoTime();
+        for (int b = 0; b < batches; b++) {
+            DomainEvent[] events = new DomainEvent[BATCH_SIZE];
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                events[i] = new StockChanged("sku-" + (i % 32));
+            }
+            publisher.publishBatch(events);
+        }
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("publishBatch: %,.0f events/s%n", received.sum() * 1e9 / elapsed);
+        assertThat(received.sum()).isEqualTo((long) batches * BATCH_SIZE);
+    }
+
+    private double runThroughput(String destination, int prefetch, boolean batched) throws Exception {
+        int total = PRODUCERS * MESSAGES_PER_PRODUCER;
+        CountDownLatch done = new CountDownLatch(total);
+        Subscription subscription = consumer.subscribe(ConsumerOptions.forDestination(destination).withGroup("bench")
+                .concurrent(8).withPrefetch(prefetch), (Integer message) -> done.countDown(), Integer.class);
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> sends = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                sends.add(producers.submit(() -> {
+                    Object[] batch = new Object[BATCH_SIZE];
+                    for (int i = 0; i < MESSAGES_PER_PRODUCER; i++) {
+                        if (!batched) {
+                            producer.send(destination, i);
+                            continue;
+                        }
+                        batch[i % BATCH_SIZE] = i;
+                        if (i % BATCH_SIZE == BATCH_SIZE - 1) {
+                            producer.sendBatch(destination, batch).join();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> send : sends) {
+                send.get();
+            }
+            assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+            long elapsed = System.nanoTime() - start;
+            subscription.stop();
+            assertThat(subscription.getMessagesProcessed()).isEqualTo(total);
+            assertThat(broker.getDroppedMessages(destination, "bench")).isZero();
+            return total * 1e9 / elapsed;
+        } finally {
+            producers.shutdownNow();
+            subscription.stop();
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static class StockChanged extends DomainEvent {
+
+        StockChanged(String sku) {
+            setAggregateId(sku);
+            setEventType("StockChanged");
+        }
+
+        @Override
+        public DomainEvent createCopy() {
+            return new StockChanged(getAggregateId());
+        }
+    }
+}
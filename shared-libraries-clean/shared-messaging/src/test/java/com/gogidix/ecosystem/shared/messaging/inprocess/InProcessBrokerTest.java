@@ -0,0 +1,322 @@
+package com.gogidix.ecosystem.shared.messaging.inprocess;
+
+import com.gogidix.ecosystem.shared.messaging.DomainEvent;
+import com.gogidix.ecosystem.shared.messaging.EventPublisher.DeliveryOptions;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.ConsumerOptions;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.MessageContext;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.ReceivedMessage;
+import com.gogidix.ecosystem.shared.messaging.MessageConsumer.Subscription;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.BatchSendResult;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.MessagingException;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.SendOptions;
+import com.gogidix.ecosystem.shared.messaging.MessageProducer.SendResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the in-process broker through its producer, consumer and event publisher.
+ * Tests partition ordering, consumer groups, prefetch, delayed delivery, request-reply and delivery modes.
+ */
+class InProcessBrokerTest {
+
+    private InProcessBroker broker;
+    private InProcessMessageProducer producer;
+    private InProcessMessageConsumer consumer;
+    private InProcessEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        broker = new InProcessBroker(4, 1024, 500, 1024, 30000);
+        producer = new InProcessMessageProducer(broker);
+        consumer = new InProcessMessageConsumer(broker);
+        publisher = new InProcessEventPublisher(broker, "events.");
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.close();
+    }
+
+    @Test
+    @DisplayName("Should keep the order of messages with the same partition key")
+    void shouldKeepOrderWithinPartition() throws InterruptedException {
+        // Given
+        int messagesPerKey = 2000;
+        List<String> keys = List.of("order-1", "order-2", "order-3", "order-4", "order-5");
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(messagesPerKey * keys.size());
+        Subscription subscription = consumer.subscribe(ConsumerOptions.forDestination("orders").concurrent(4),
+                (KeyedMessage message) -> {
+                    received.computeIfAbsent(message.key(), key -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(message.sequence());
+                    latch.countDown();
+                }, KeyedMessage.class);
+
+        // When
+        for (int i = 0; i < messagesPerKey; i++) {
+            for (String key : keys) {
+                producer.sendToPartition("orders", key, new KeyedMessage(key, i));
+            }
+        }
+
+        // Then
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        for (String key : keys) {
+            assertThat(received.get(key)).hasSize(messagesPerKey).isSorted();
+        }
+        assertThat(subscription.getMessagesProcessed()).isEqualTo((long) messagesPerKey * keys.size());
+    }
+
+    @Test
+    @DisplayName("Should deliver every message to each consumer group once")
+    void shouldDeliverToEveryConsumerGroup() throws InterruptedException {
+        // Given
+        int messageCount = 1000;
+        AtomicInteger billing = new AtomicInteger();
+        AtomicInteger shipping = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(messageCount * 2);
+        consumer.subscribe(ConsumerOptions.forDestination("payments").withGroup("billing").concurrent(2),
+                (String message) -> { billing.incrementAndGet(); latch.countDown(); }, String.class);
+        consumer.subscribe(ConsumerOptions.forDestination("payments").withGroup("billing").concurrent(2),
+                (String message) -> { billing.incrementAndGet(); latch.countDown(); }, String.class);
+        consumer.subscribe(ConsumerOptions.forDestination("payments").withGroup("shipping"),
+                (String message) -> { shipping.incrementAndGet(); latch.countDown(); }, String.class);
+
+        // When
+        for (int i = 0; i < messageCount; i++) {
+            producer.send("payments", "payment-" + i);
+        }
+
+        // Then
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        assertThat(billing.get()).isEqualTo(messageCount);
+        assertThat(shipping.get()).isEqualTo(messageCount);
+    }
+
+    @Test
+    @DisplayName("Should limit unacknowledged messages to the prefetch count")
+    void shouldLimitUnacknowledgedMessagesToPrefetch() throws InterruptedException {
+        // Given
+        List<HeldMessage> held = new CopyOnWriteArrayList<>();
+        consumer.subscribeWithContext(ConsumerOptions.forDestination("manual").withManualAck().withPrefetch(3),
+                (String message, MessageContext context) ->
+                        held.add(new HeldMessage(message, context)), String.class);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            producer.send("manual", "message-" + i);
+        }
+        Thread.sleep(200);
+
+        // Then
+        assertThat(held).hasSize(3);
+        held.forEach(holder -> holder.context().acknowledge());
+        Thread.sleep(200);
+        assertThat(held).hasSize(6);
+    }
+
+    @Test
+    @DisplayName("Should deliver delayed messages after the delay")
+    void shouldDeliverDelayedMessages() throws Exception {
+        // Given
+        long start = System.nanoTime();
+
+        // When
+        SendResult result = producer.sendDelayed("reminders", "later", 200).get(5, TimeUnit.SECONDS);
+        ReceivedMessage<String> message = consumer.poll("reminders", String.class, 1000);
+
+        // Then
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(200);
+        assertThat(result.isSuccessful()).isTrue();
+        assertThat(message).isNotNull();
+        assertThat(message.getPayload()).isEqualTo("later");
+    }
+
+    @Test
+    @DisplayName("Should return the reply of a request")
+    void shouldReturnReplyOfRequest() {
+        // Given
+        consumer.subscribeWithContext(ConsumerOptions.forDestination("prices").withAutoAck(),
+                (String sku, MessageContext context) ->
+                        context.reply(sku.length() * 10), String.class);
+
+        // When
+        Integer price = producer.sendAndReceive("prices", "SKU-42", Integer.class, 2000);
+
+        // Then
+        assertThat(price).isEqualTo(60);
+    }
+
+    @Test
+    @DisplayName("Should fail a request nobody answers with a timeout")
+    void shouldTimeOutUnansweredRequest() {
+        // When / Then
+        assertThatThrownBy(() -> producer.sendAndReceive("nobody", "ping", String.class, 100))
+                .isInstanceOf(MessagingException.class)
+                .extracting(e -> ((MessagingException) e).getErrorCode())
+                .isEqualTo(MessagingException.ErrorCode.TIMEOUT);
+    }
+
+    @Test
+    @DisplayName("Should drop duplicate events published exactly once")
+    void shouldDropDuplicateExactlyOnceEvents() {
+        // Given
+        TestEvent event = new TestEvent("order-1");
+
+        // When
+        publisher.publish(event, DeliveryOptions.exactlyOnce());
+        publisher.publish(event, DeliveryOptions.exactlyOnce());
+        List<ReceivedMessage<TestEvent>> messages = consumer.pollBatch("events.OrderPlaced", TestEvent.class, 10, 200);
+
+        // Then
+        assertThat(messages).hasSize(1);
+        assertThat(messages.get(0).getPayload().getEventId()).isEqualTo(event.getEventId());
+    }
+
+    @Test
+    @DisplayName("Should retry failed messages and then dead-letter them")
+    void shouldRetryThenDeadLetter() throws InterruptedException {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        consumer.subscribe(ConsumerOptions.forDestination("fragile").withDeadLetter("fragile.dlq")
+                        .setMaxRetries(2).setRetryDelayMs(10),
+                (String message) -> {
+                    attempts.incrementAndGet();
+                    throw new IllegalStateException("boom");
+                }, String.class);
+
+        // When
+        producer.send("fragile", "poison");
+        ReceivedMessage<String> deadLetter = consumer.poll("fragile.dlq", String.class, 2000);
+
+        // Then
+        assertThat(deadLetter).isNotNull();
+        assertThat(deadLetter.getPayload()).isEqualTo("poison");
+        assertThat(deadLetter.getHeaders()).containsEntry("x-original-destination", "fragile")
+                .containsEntry("x-delivery-attempts", 3);
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should only deliver messages matching the filter expression")
+    void shouldApplyFilterExpression() throws InterruptedException {
+        // Given
+        List<KeyedMessage> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        consumer.subscribe(ConsumerOptions.forDestination("filtered").withFilter("key == 'keep' and #headers['region'] == 'eu'"),
+                (KeyedMessage message) -> { received.add(message); latch.countDown(); }, KeyedMessage.class);
+
+        // When
+        producer.send("filtered", new KeyedMessage("skip", 1), Map.of("region", "eu"));
+        producer.send("filtered", new KeyedMessage("keep", 2), Map.of("region", "us"));
+        producer.send("filtered", new KeyedMessage("keep", 3), Map.of("region", "eu"));
+
+        // Then
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        assertThat(received).containsExactly(new KeyedMessage("keep", 3));
+    }
+
+    @Test
+    @DisplayName("Should send batches and poll them back")
+    void shouldSendAndPollBatches() throws Exception {
+        // When
+        BatchSendResult result = producer.sendBatch("batch", "a", "b", "c").get();
+        List<ReceivedMessage<String>> messages = consumer.pollBatch("batch", String.class, 10, 200);
+
+        // Then
+        assertThat(result.isAllSuccessful()).isTrue();
+        assertThat(result.getTotalMessages()).isEqualTo(3);
+        assertThat(messages).extracting(ReceivedMessage::getPayload).containsExactlyInAnyOrder("a", "b", "c");
+    }
+
+    @Test
+    @DisplayName("Should drop fire-and-forget messages when a live group is full")
+    void shouldDropFireAndForgetMessagesWhenFull() throws InterruptedException {
+        // Given
+        InProcessBroker small = new InProcessBroker(1, 4, 100, 16, 30000);
+        CountDownLatch handling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        new InProcessMessageConsumer(small).subscribe(ConsumerOptions.forDestination("slow").withPrefetch(1),
+                (String message) -> {
+                    handling.countDown();
+                    awaitQuietly(release);
+                }, String.class);
+        InProcessMessageProducer smallProducer = new InProcessMessageProducer(small);
+        smallProducer.send(SendOptions.to("slow").withBody("m0").fireAndForget());
+        assertThat(handling.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        for (int i = 1; i < 20; i++) {
+            smallProducer.send(SendOptions.to("slow").withBody("m" + i).fireAndForget());
+        }
+
+        // Then
+        assertThat(small.getDroppedMessages("slow", null)).isGreaterThan(0);
+        assertThatThrownBy(() -> smallProducer.send("slow", "blocked"))
+                .isInstanceOf(MessagingException.class);
+        release.countDown();
+        small.close();
+    }
+
+    @Test
+    @DisplayName("Should let a new group start from the earliest backlog")
+    void shouldStartNewGroupFromEarliestBacklog() throws InterruptedException {
+        // Given
+        producer.send("backlog", "first");
+        producer.send("backlog", "second");
+        CountDownLatch latch = new CountDownLatch(2);
+
+        // When
+        consumer.subscribe(ConsumerOptions.forDestination("backlog").withGroup("late").fromEarliest(),
+                (String message) -> latch.countDown(), String.class);
+
+        // Then
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThatThrownBy(() -> consumer.subscribe(ConsumerOptions.forDestination("backlog").withGroup("unknown")
+                .setOffsetResetStrategy(ConsumerOptions.OffsetResetStrategy.NONE), (String message) -> { }, String.class))
+                .isInstanceOf(MessagingException.class);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    record KeyedMessage(String key, int sequence) {
+    }
+
+    record HeldMessage(String message, MessageContext context) {
+    }
+
+    private static class TestEvent extends DomainEvent {
+
+        TestEvent(String aggregateId) {
+            setAggregateId(aggregateId);
+            setEventType("OrderPlaced");
+        }
+
+        @Override
+        public DomainEvent createCopy() {
+            return new TestEvent(getAggregateId());
+        }
+    }
+}